@@ -37,14 +37,33 @@
  * source files. Review of these model elements will clarify the relatively easy
  * and straightforward application of the SysMLinJava framework to SysML-based
  * systems modeling.
- * <h3>Open and independent module</h3> Of course, all of the packages in the
- * module are exported for use by other modules that define SysMLinJava models.
- * The module's only required modules are those of the Java API.
+ * <h3>Open and independent module</h3> Of course, all of the packages of the
+ * module's API are exported for use by other modules that define SysMLinJava
+ * models. The module requires only modules of the JDK: {@code java.logging},
+ * and {@code java.management} and {@code jdk.jfr} for the metrics and flight
+ * recorder events of the executing models, which are required transitively as
+ * their types appear in the exported API; {@code jdk.unsupported} for the
+ * creation of block prototypes' copies; and, at compile time only,
+ * {@code java.compiler} and {@code jdk.compiler} for the annotation processors
+ * that generate state machine dispatchers and model metadata. The packages of
+ * the annotation processors are not exported, as their types extend those of
+ * {@code java.compiler}, but the processors are provided as services to the
+ * compiler.
  */
 module sysMLinJava
 {
 	exports sysmlinjava;
 	exports sysmlinjava.analysis.bom;
+	exports sysmlinjava.analysis.metrics;
+	exports sysmlinjava.analysis.metadata;
+	exports sysmlinjava.analysis.flightrecorder;
+	exports sysmlinjava.analysis.tracing;
+	exports sysmlinjava.analysis.watchdog;
+	exports sysmlinjava.analysis.tradestudy;
+	exports sysmlinjava.analysis.sweeps;
+	exports sysmlinjava.analysis.cache;
+	exports sysmlinjava.analysis.sensitivity;
+	exports sysmlinjava.analysis.surrogate;
 	exports sysmlinjava.analysis.bom.annotations;
 	exports sysmlinjava.analysis.barcharts;
 	exports sysmlinjava.analysis.common;
@@ -65,7 +84,10 @@ module sysMLinJava
 	exports sysmlinjava.analysis.interactionsequence;
 	exports sysmlinjava.connectors;
 	exports sysmlinjava.constraintblocks;
+	exports sysmlinjava.constraintblocks.solver;
 	exports sysmlinjava.events;
+	exports sysmlinjava.execution;
+	exports sysmlinjava.execution.snapshots;
 	exports sysmlinjava.kinds;
 	exports sysmlinjava.units;
 	exports sysmlinjava.probability;
@@ -76,6 +98,8 @@ module sysMLinJava
 	exports sysmlinjava.valuetypes;
 	exports sysmlinjava.analysis.htmldisplay;
 	exports sysmlinjava.blocks;
+	exports sysmlinjava.blocks.populations;
+	exports sysmlinjava.blocks.prototypes;
 	exports sysmlinjava.common;
 	exports sysmlinjava.ports;
 	exports sysmlinjava.annotations.views;
@@ -86,4 +110,13 @@ module sysMLinJava
 	exports sysmlinjava.views;
 
 	requires transitive java.logging;
+	requires transitive java.management;
+	requires transitive jdk.jfr;
+	requires jdk.unsupported;
+	requires static java.compiler;
+	requires static jdk.compiler;
+
+	uses sysmlinjava.analysis.metadata.ModelMetadataIndex;
+
+	provides javax.annotation.processing.Processor with sysmlinjava.statemachine.compiler.StateMachineDispatcherProcessor, sysmlinjava.analysis.metadata.compiler.ModelMetadataProcessor;
 }
\ No newline at end of file
@@ -0,0 +1,202 @@
+package sysmlinjava.analysis.cache;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.logging.Logger;
+import sysmlinjava.constraintblocks.SysMLConstraintBlock;
+import sysmlinjava.valuetypes.IInteger;
+import sysmlinjava.valuetypes.RReal;
+import sysmlinjava.valuetypes.SysMLValueType;
+
+/**
+ * Memoization of the constraints of a pure {@code SysMLConstraintBlock}, i.e.
+ * of a constraint block whose outputs depend only on the values of its input
+ * constraint parameters.
+ * <h2>Keys and outputs</h2> The key of an evaluation of the constraints is the
+ * {@code EvaluationKey} of the namespace of the constraint block and the
+ * current values of its input constraint parameters, which must be
+ * {@code RReal}s or {@code IInteger}s. The namespace is the type and name of
+ * the constraint block, the fingerprint of its type, i.e. the SHA-256 digest of
+ * the bytes of its class file, and the version of the constraints, if
+ * specified, so that the entries cached, e.g. on disk, for a previous version
+ * of the constraints are not found for the current version. The version is to
+ * be specified, and changed with each change of the constraints, if the
+ * constraints depend on code other than that of the constraint block's class,
+ * e.g. of its superclasses or of the functions it calls. The outputs are the specified
+ * {@code RReal} or {@code IInteger} values set by the constraints, e.g. the
+ * constraint block's output parameters. Upon a hit, the outputs are set to the
+ * cached values by their {@code setValue()} operations, so that their
+ * observers are notified as if the constraints had been performed.
+ *
+ * @author ModelerOne
+ *
+ * @see SysMLConstraintBlock#createMemoization(MemoCache, List, List)
+ */
+public final class ConstraintMemoization
+{
+	/**
+	 * Cache of the evaluations
+	 */
+	public final MemoCache cache;
+	/**
+	 * IDs of the input constraint parameters
+	 */
+	public final List<String> inputParamIDs;
+	/**
+	 * Outputs set by the constraints
+	 */
+	public final List<SysMLValueType> outputs;
+	/**
+	 * Namespace of the keys of the evaluations, i.e. the type, name, fingerprint,
+	 * and version of the constraint block
+	 */
+	private final String namespace;
+
+	/**
+	 * Constructor for constraints without a version, i.e. that depend only on the
+	 * code of the constraint block's class
+	 *
+	 * @param constraintBlock constraint block whose constraints are memoized
+	 * @param cache           cache of the evaluations
+	 * @param inputParamIDs   IDs of the input constraint parameters
+	 * @param outputs         outputs set by the constraints
+	 * @throws IllegalArgumentException if an output is not an {@code RReal} or
+	 *                                  {@code IInteger}
+	 */
+	public ConstraintMemoization(SysMLConstraintBlock constraintBlock, MemoCache cache, List<String> inputParamIDs, List<? extends SysMLValueType> outputs)
+	{
+		this(constraintBlock, cache, "", inputParamIDs, outputs);
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param constraintBlock constraint block whose constraints are memoized
+	 * @param cache           cache of the evaluations
+	 * @param version         version of the constraints, to be changed with each
+	 *                        change of the code on which they depend
+	 * @param inputParamIDs   IDs of the input constraint parameters
+	 * @param outputs         outputs set by the constraints
+	 * @throws IllegalArgumentException if an output is not an {@code RReal} or
+	 *                                  {@code IInteger}
+	 */
+	public ConstraintMemoization(SysMLConstraintBlock constraintBlock, MemoCache cache, String version, List<String> inputParamIDs, List<? extends SysMLValueType> outputs)
+	{
+		super();
+		for (SysMLValueType output : outputs)
+			if (!(output instanceof RReal) && !(output instanceof IInteger))
+				throw new IllegalArgumentException("memoized output not an RReal or IInteger: " + output);
+		this.cache = cache;
+		this.inputParamIDs = List.copyOf(inputParamIDs);
+		this.outputs = List.copyOf(outputs);
+		this.namespace = "constraint\0" + constraintBlock.getClass().getName() + "\0" + constraintBlock.name.orElse("") + "\0" + fingerprints.get(constraintBlock.getClass()) + "\0" + version;
+	}
+
+	/**
+	 * Returns the key of the evaluation of the current values of the input
+	 * constraint parameters of the specified constraint block
+	 *
+	 * @param constraintBlock the constraint block
+	 * @return the key
+	 * @throws IllegalStateException if an input constraint parameter is not an
+	 *                               {@code RReal} or {@code IInteger}
+	 */
+	public EvaluationKey keyOf(SysMLConstraintBlock constraintBlock)
+	{
+		double[] inputs = new double[inputParamIDs.size()];
+		for (int i = 0; i < inputs.length; i++)
+		{
+			SysMLValueType param = constraintBlock.constraintParams.get(inputParamIDs.get(i));
+			if (param instanceof RReal)
+				inputs[i] = ((RReal)param).value;
+			else if (param instanceof IInteger)
+				inputs[i] = ((IInteger)param).value;
+			else
+				throw new IllegalStateException("memoized input parameter not an RReal or IInteger: " + inputParamIDs.get(i));
+		}
+		return EvaluationKey.of(namespace, inputs);
+	}
+
+	/**
+	 * Sets the outputs to their cached values for the specified key, if cached
+	 *
+	 * @param key key of the evaluation
+	 * @return true if the outputs were cached and set
+	 */
+	public boolean restore(EvaluationKey key)
+	{
+		Optional<double[]> cached = cache.get(key);
+		boolean result = cached.isPresent() && cached.get().length == outputs.size();
+		if (result)
+			for (int i = 0; i < outputs.size(); i++)
+			{
+				SysMLValueType output = outputs.get(i);
+				if (output instanceof RReal)
+					((RReal)output).setValue(cached.get()[i]);
+				else
+					((IInteger)output).setValue((long)cached.get()[i]);
+			}
+		return result;
+	}
+
+	/**
+	 * Caches the current values of the outputs for the specified key
+	 *
+	 * @param key key of the evaluation
+	 */
+	public void store(EvaluationKey key)
+	{
+		double[] values = new double[outputs.size()];
+		for (int i = 0; i < values.length; i++)
+		{
+			SysMLValueType output = outputs.get(i);
+			values[i] = output instanceof RReal ? ((RReal)output).value : ((IInteger)output).value;
+		}
+		cache.put(key, values);
+	}
+
+	/**
+	 * Returns the fingerprint of the specified class, i.e. the hexadecimal SHA-256
+	 * digest of the bytes of its class file
+	 *
+	 * @param type the class
+	 * @return the fingerprint, or an empty string if the class file cannot be read
+	 */
+	private static String fingerprintOf(Class<?> type)
+	{
+		String result = "";
+		try (InputStream classFile = type.getResourceAsStream("/" + type.getName().replace('.', '/') + ".class"))
+		{
+			if (classFile != null)
+				result = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(classFile.readAllBytes()));
+			else
+				logger.warning("class file not found, memoized constraints not fingerprinted: " + type.getName());
+		} catch (IOException | NoSuchAlgorithmException e)
+		{
+			logger.warning("class file not read, memoized constraints not fingerprinted: " + type.getName() + ": " + e);
+		}
+		return result;
+	}
+
+	/**
+	 * Fingerprints of the classes of the memoized constraint blocks, computed upon
+	 * first use
+	 */
+	private static final ClassValue<String> fingerprints = new ClassValue<>()
+	{
+		@Override
+		protected String computeValue(Class<?> type)
+		{
+			return fingerprintOf(type);
+		}
+	};
+	/**
+	 * Logger for the memoizations
+	 */
+	private static final Logger logger = Logger.getLogger(ConstraintMemoization.class.getSimpleName());
+}
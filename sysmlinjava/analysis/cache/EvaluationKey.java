@@ -0,0 +1,102 @@
+package sysmlinjava.analysis.cache;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+
+/**
+ * Key of an evaluation in a {@code MemoCache}, i.e. the canonical hash of the
+ * namespace of the evaluation and the values of its inputs.
+ * <h2>Canonical hash</h2> The key is the SHA-256 digest of the UTF-8 bytes of
+ * the namespace, e.g. the model version and the names of the parameters and
+ * outputs of a sweep, followed by the bits of each input value, with negative
+ * zero hashed as zero and every NaN as the canonical NaN, so that inputs that
+ * are equal as numbers have equal keys in every JVM and the keys can be used as
+ * the names of the entries of the disk tier of the cache.
+ *
+ * @author ModelerOne
+ *
+ * @see MemoCache
+ */
+public final class EvaluationKey
+{
+	/**
+	 * SHA-256 digest of the namespace and inputs
+	 */
+	private final byte[] digest;
+	/**
+	 * Hash code of the key, i.e. the first bytes of the digest
+	 */
+	private final int hashCode;
+
+	/**
+	 * Constructor
+	 *
+	 * @param digest SHA-256 digest of the namespace and inputs
+	 */
+	private EvaluationKey(byte[] digest)
+	{
+		super();
+		this.digest = digest;
+		this.hashCode = ByteBuffer.wrap(digest).getInt();
+	}
+
+	/**
+	 * Returns the key of the evaluation of the specified inputs in the specified
+	 * namespace
+	 *
+	 * @param namespace namespace of the evaluation
+	 * @param inputs    values of the inputs
+	 * @return the key
+	 */
+	public static EvaluationKey of(String namespace, double... inputs)
+	{
+		MessageDigest sha;
+		try
+		{
+			sha = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e)
+		{
+			throw new IllegalStateException("SHA-256 not available", e);
+		}
+		byte[] name = namespace.getBytes(StandardCharsets.UTF_8);
+		ByteBuffer bytes = ByteBuffer.allocate(4 + name.length + 8 * inputs.length);
+		bytes.putInt(name.length).put(name);
+		for (double input : inputs)
+			bytes.putLong(Double.doubleToLongBits(input == 0.0 ? 0.0 : input));
+		sha.update(bytes.array());
+		return new EvaluationKey(sha.digest());
+	}
+
+	/**
+	 * Returns the hexadecimal representation of the digest of the key, i.e. the
+	 * name of the entry of the key in the disk tier of a cache
+	 *
+	 * @return the hexadecimal digest
+	 */
+	public String toHex()
+	{
+		return HexFormat.of().formatHex(digest);
+	}
+
+	@Override
+	public boolean equals(Object other)
+	{
+		return other instanceof EvaluationKey && Arrays.equals(digest, ((EvaluationKey)other).digest);
+	}
+
+	@Override
+	public int hashCode()
+	{
+		return hashCode;
+	}
+
+	@Override
+	public String toString()
+	{
+		return "EvaluationKey [" + toHex() + "]";
+	}
+}
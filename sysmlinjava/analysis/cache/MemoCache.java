@@ -0,0 +1,659 @@
+package sysmlinjava.analysis.cache;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import sysmlinjava.analysis.metrics.SysMLMetrics;
+
+/**
+ * Memoization cache of the outputs of SysMLinJava evaluations, e.g. of whole
+ * scenario runs of a {@code SweepRunner} or of the constraints of pure
+ * {@code SysMLConstraintBlock}s, keyed by the {@code EvaluationKey} of the
+ * evaluation's namespace and inputs.
+ * <h2>Tiers and eviction</h2> The entries are held in memory, up to
+ * {@code maxEntries} entries, beyond which the least recently used entry is
+ * evicted. If the cache has a {@code directory}, each entry is also written to
+ * a file of the directory named by its key, so that the entry survives the
+ * restart of the JVM and is found on disk after its eviction from memory. The
+ * files are written to temporary files and moved into place, so that an entry
+ * is never read partially written, and the oldest files are deleted when the
+ * directory exceeds {@code maxDiskEntries} entries. If the cache has a
+ * {@code maxAge}, entries older than the age, in memory or on disk, are
+ * discarded upon their lookup.
+ * <h3>Metrics</h3> The cache counts its lookups by outcome, i.e. memory hits,
+ * disk hits, and misses, and its evictions and expirations, and registers these
+ * counts and its hit rate with the platform MBean server under the JMX object
+ * name
+ *
+ * <pre>
+ * sysmlinjava:type=MemoCache,name="scenarios"
+ * </pre>
+ *
+ * until it is closed. The cache is therefore created by its {@code create()}
+ * operations, which register the cache once it is constructed. The metrics of
+ * a cache whose name is that of another registered cache are not registered,
+ * which is reported as a warning, so the names of the caches are to be unique.
+ *
+ * @author ModelerOne
+ *
+ * @see EvaluationKey
+ * @see ConstraintMemoization
+ */
+public class MemoCache implements MemoCacheMBean, Closeable
+{
+	/**
+	 * Name of the cache
+	 */
+	public final String name;
+	/**
+	 * Maximum number of entries in memory
+	 */
+	public final int maxEntries;
+	/**
+	 * Optional maximum age of the entries
+	 */
+	public final Optional<Duration> maxAge;
+	/**
+	 * Optional directory of the disk tier of the cache
+	 */
+	public final Optional<Path> directory;
+	/**
+	 * Maximum number of entries on disk
+	 */
+	public final int maxDiskEntries;
+	/**
+	 * JMX object name of the cache
+	 */
+	public final ObjectName objectName;
+	/**
+	 * Whether the cache is registered with the platform MBean server under its
+	 * object name
+	 */
+	private volatile boolean isRegistered;
+	/**
+	 * Entries in memory in order of their last use, which also guards them
+	 */
+	private final LinkedHashMap<EvaluationKey, Entry> entries;
+	/**
+	 * Number of entries on disk
+	 */
+	private final AtomicInteger diskEntryCount;
+	/**
+	 * Number of lookups found in memory
+	 */
+	private final LongAdder memoryHits;
+	/**
+	 * Number of lookups found on disk
+	 */
+	private final LongAdder diskHits;
+	/**
+	 * Number of lookups not found
+	 */
+	private final LongAdder misses;
+	/**
+	 * Number of entries evicted from memory
+	 */
+	private final LongAdder evictions;
+	/**
+	 * Number of entries discarded for their age
+	 */
+	private final LongAdder expirations;
+
+	/**
+	 * Constructor of a cache in memory only, without maximum age. The cache is not
+	 * registered with the platform MBean server.
+	 *
+	 * @param name       name of the cache
+	 * @param maxEntries maximum number of entries in memory
+	 */
+	protected MemoCache(String name, int maxEntries)
+	{
+		this(name, maxEntries, Optional.empty(), Optional.empty(), 0);
+	}
+
+	/**
+	 * Constructor. The cache is not registered with the platform MBean server.
+	 *
+	 * @param name           name of the cache
+	 * @param maxEntries     maximum number of entries in memory
+	 * @param maxAge         optional maximum age of the entries
+	 * @param directory      optional directory of the disk tier, created if it
+	 *                       does not exist
+	 * @param maxDiskEntries maximum number of entries on disk
+	 * @throws IllegalArgumentException if the directory cannot be created or read
+	 */
+	protected MemoCache(String name, int maxEntries, Optional<Duration> maxAge, Optional<Path> directory, int maxDiskEntries)
+	{
+		super();
+		this.name = name;
+		this.maxEntries = maxEntries;
+		this.maxAge = maxAge;
+		this.directory = directory;
+		this.maxDiskEntries = maxDiskEntries;
+		this.entries = new LinkedHashMap<>(16, 0.75f, true);
+		this.diskEntryCount = new AtomicInteger();
+		this.memoryHits = new LongAdder();
+		this.diskHits = new LongAdder();
+		this.misses = new LongAdder();
+		this.evictions = new LongAdder();
+		this.expirations = new LongAdder();
+		if (directory.isPresent())
+			try
+			{
+				Files.createDirectories(directory.get());
+				diskEntryCount.set(diskFiles().size());
+			} catch (IOException e)
+			{
+				throw new IllegalArgumentException("memo cache directory not accessible: " + directory.get(), e);
+			}
+		ObjectName objectName = null;
+		try
+		{
+			objectName = new ObjectName(SysMLMetrics.domain + ":type=MemoCache,name=" + ObjectName.quote(name));
+		} catch (JMException e)
+		{
+			logger.warning("invalid memo cache metrics name " + name + ": " + e.getMessage());
+		}
+		this.objectName = objectName;
+		this.isRegistered = false;
+	}
+
+	/**
+	 * Creates a cache in memory only, without maximum age, and registers its
+	 * metrics with the platform MBean server
+	 *
+	 * @param name       name of the cache, unique among the registered caches
+	 * @param maxEntries maximum number of entries in memory
+	 * @return the cache
+	 */
+	public static MemoCache create(String name, int maxEntries)
+	{
+		MemoCache result = new MemoCache(name, maxEntries);
+		result.register();
+		return result;
+	}
+
+	/**
+	 * Creates a cache and registers its metrics with the platform MBean server
+	 *
+	 * @param name           name of the cache, unique among the registered caches
+	 * @param maxEntries     maximum number of entries in memory
+	 * @param maxAge         optional maximum age of the entries
+	 * @param directory      optional directory of the disk tier, created if it
+	 *                       does not exist
+	 * @param maxDiskEntries maximum number of entries on disk
+	 * @return the cache
+	 * @throws IllegalArgumentException if the directory cannot be created or read
+	 */
+	public static MemoCache create(String name, int maxEntries, Optional<Duration> maxAge, Optional<Path> directory, int maxDiskEntries)
+	{
+		MemoCache result = new MemoCache(name, maxEntries, maxAge, directory, maxDiskEntries);
+		result.register();
+		return result;
+	}
+
+	/**
+	 * Registers the metrics of the cache with the platform MBean server, unless
+	 * another cache is registered under the same name, which is reported as a
+	 * warning
+	 */
+	protected void register()
+	{
+		if (objectName != null)
+			try
+			{
+				ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+				isRegistered = true;
+			} catch (InstanceAlreadyExistsException e)
+			{
+				logger.warning("memo cache metrics not registered, another memo cache is registered as " + objectName);
+			} catch (JMException e)
+			{
+				logger.warning("failed to register memo cache metrics " + name + ": " + e.getMessage());
+			}
+	}
+
+	/**
+	 * Returns the outputs of the evaluation of the specified key, from memory or,
+	 * if not in memory, from disk
+	 *
+	 * @param key key of the evaluation
+	 * @return optional copy of the outputs, empty if not cached or expired
+	 */
+	public Optional<double[]> get(EvaluationKey key)
+	{
+		Optional<double[]> result = Optional.empty();
+		long now = System.currentTimeMillis();
+		boolean isExpired = false;
+		synchronized (entries)
+		{
+			Entry entry = entries.get(key);
+			if (entry != null)
+			{
+				if (isExpired(entry.createdMillis, now))
+				{
+					entries.remove(key);
+					isExpired = true;
+				}
+				else
+					result = Optional.of(entry.outputs.clone());
+			}
+		}
+		if (result.isPresent())
+			memoryHits.increment();
+		else
+		{
+			Optional<Entry> stored = isExpired ? Optional.empty() : readEntry(key, now);
+			if (stored.isPresent())
+			{
+				diskHits.increment();
+				putInMemory(key, stored.get());
+				result = Optional.of(stored.get().outputs.clone());
+			}
+			else
+				misses.increment();
+		}
+		if (isExpired)
+		{
+			expirations.increment();
+			deleteEntry(key);
+		}
+		return result;
+	}
+
+	/**
+	 * Caches the specified outputs of the evaluation of the specified key, in
+	 * memory and, if the cache has a disk tier, on disk
+	 *
+	 * @param key     key of the evaluation
+	 * @param outputs outputs of the evaluation
+	 */
+	public void put(EvaluationKey key, double[] outputs)
+	{
+		Entry entry = new Entry(outputs.clone(), System.currentTimeMillis());
+		putInMemory(key, entry);
+		writeEntry(key, entry);
+	}
+
+	/**
+	 * Returns the cached outputs of the evaluation of the specified key or, if not
+	 * cached, evaluates them by the specified evaluation and caches them
+	 *
+	 * @param key        key of the evaluation
+	 * @param evaluation the evaluation
+	 * @return the outputs
+	 */
+	public double[] computeIfAbsent(EvaluationKey key, Supplier<double[]> evaluation)
+	{
+		Optional<double[]> cached = get(key);
+		double[] result;
+		if (cached.isPresent())
+			result = cached.get();
+		else
+		{
+			result = evaluation.get();
+			put(key, result);
+		}
+		return result;
+	}
+
+	@Override
+	public long getMemoryHitCount()
+	{
+		return memoryHits.sum();
+	}
+
+	@Override
+	public long getDiskHitCount()
+	{
+		return diskHits.sum();
+	}
+
+	@Override
+	public long getMissCount()
+	{
+		return misses.sum();
+	}
+
+	@Override
+	public double getHitRate()
+	{
+		long hits = memoryHits.sum() + diskHits.sum();
+		long lookups = hits + misses.sum();
+		return lookups == 0 ? 0.0 : (double)hits / lookups;
+	}
+
+	@Override
+	public long getEvictionCount()
+	{
+		return evictions.sum();
+	}
+
+	@Override
+	public long getExpirationCount()
+	{
+		return expirations.sum();
+	}
+
+	@Override
+	public int getMemoryEntryCount()
+	{
+		synchronized (entries)
+		{
+			return entries.size();
+		}
+	}
+
+	@Override
+	public int getDiskEntryCount()
+	{
+		return diskEntryCount.get();
+	}
+
+	@Override
+	public void resetCounts()
+	{
+		memoryHits.reset();
+		diskHits.reset();
+		misses.reset();
+		evictions.reset();
+		expirations.reset();
+	}
+
+	@Override
+	public void clear()
+	{
+		synchronized (entries)
+		{
+			entries.clear();
+		}
+		if (directory.isPresent())
+			try
+			{
+				for (Path file : diskFiles())
+					Files.deleteIfExists(file);
+				diskEntryCount.set(0);
+			} catch (IOException e)
+			{
+				logger.warning("memo cache directory not cleared: " + e.getMessage());
+			}
+	}
+
+	/**
+	 * Unregisters the metrics of the cache, if registered. The entries on disk are
+	 * retained.
+	 */
+	@Override
+	public void close()
+	{
+		if (isRegistered)
+			try
+			{
+				MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+				if (server.isRegistered(objectName))
+					server.unregisterMBean(objectName);
+				isRegistered = false;
+			} catch (JMException e)
+			{
+				logger.warning("failed to unregister memo cache metrics " + name + ": " + e.getMessage());
+			}
+	}
+
+	/**
+	 * Puts the specified entry in memory, evicting the least recently used entry
+	 * if the memory is full
+	 *
+	 * @param key   key of the entry
+	 * @param entry the entry
+	 */
+	private void putInMemory(EvaluationKey key, Entry entry)
+	{
+		synchronized (entries)
+		{
+			entries.put(key, entry);
+			while (entries.size() > Math.max(0, maxEntries))
+			{
+				Map.Entry<EvaluationKey, Entry> eldest = entries.entrySet().iterator().next();
+				entries.remove(eldest.getKey());
+				evictions.increment();
+			}
+		}
+	}
+
+	/**
+	 * Returns whether an entry created at the specified time is expired at the
+	 * specified time
+	 *
+	 * @param createdMillis time of creation of the entry
+	 * @param nowMillis     current time
+	 * @return true if the cache has a maximum age that the entry exceeds
+	 */
+	private boolean isExpired(long createdMillis, long nowMillis)
+	{
+		return maxAge.isPresent() && nowMillis - createdMillis > maxAge.get().toMillis();
+	}
+
+	/**
+	 * Reads the entry of the specified key from disk, deleting it if it is
+	 * expired
+	 *
+	 * @param key       key of the entry
+	 * @param nowMillis current time
+	 * @return optional entry, empty if the cache has no disk tier, or the entry is
+	 *         not on disk, is expired, or cannot be read
+	 */
+	private Optional<Entry> readEntry(EvaluationKey key, long nowMillis)
+	{
+		Optional<Entry> result = Optional.empty();
+		if (directory.isPresent())
+		{
+			Path file = fileOf(key);
+			try
+			{
+				long createdMillis = Files.getLastModifiedTime(file).toMillis();
+				if (isExpired(createdMillis, nowMillis))
+				{
+					expirations.increment();
+					deleteEntry(key);
+				}
+				else
+				{
+					ByteBuffer bytes = ByteBuffer.wrap(Files.readAllBytes(file));
+					double[] outputs = new double[bytes.getInt()];
+					for (int i = 0; i < outputs.length; i++)
+						outputs[i] = bytes.getDouble();
+					result = Optional.of(new Entry(outputs, createdMillis));
+				}
+			} catch (NoSuchFileException e)
+			{
+			} catch (IOException | RuntimeException e)
+			{
+				logger.warning("memo cache entry not readable, discarded: " + file + ": " + e);
+				deleteEntry(key);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Writes the specified entry to disk, if the cache has a disk tier, and trims
+	 * the disk tier if it exceeds its maximum number of entries
+	 *
+	 * @param key   key of the entry
+	 * @param entry the entry
+	 */
+	private void writeEntry(EvaluationKey key, Entry entry)
+	{
+		if (directory.isPresent())
+		{
+			Path file = fileOf(key);
+			try
+			{
+				ByteBuffer bytes = ByteBuffer.allocate(4 + 8 * entry.outputs.length);
+				bytes.putInt(entry.outputs.length);
+				for (double output : entry.outputs)
+					bytes.putDouble(output);
+				Path temporary = Files.createTempFile(directory.get(), key.toHex(), temporarySuffix);
+				Files.write(temporary, bytes.array());
+				Files.setLastModifiedTime(temporary, FileTime.fromMillis(entry.createdMillis));
+				boolean isNew = !Files.exists(file);
+				try
+				{
+					Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+				} catch (AtomicMoveNotSupportedException e)
+				{
+					Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+				}
+				if (isNew && diskEntryCount.incrementAndGet() > maxDiskEntries)
+					trimDisk();
+			} catch (IOException e)
+			{
+				logger.warning("memo cache entry not written: " + file + ": " + e.getMessage());
+			}
+		}
+	}
+
+	/**
+	 * Deletes the entry of the specified key from disk, if the cache has a disk
+	 * tier
+	 *
+	 * @param key key of the entry
+	 */
+	private void deleteEntry(EvaluationKey key)
+	{
+		if (directory.isPresent())
+			try
+			{
+				if (Files.deleteIfExists(fileOf(key)))
+					diskEntryCount.decrementAndGet();
+			} catch (IOException e)
+			{
+				logger.warning("memo cache entry not deleted: " + e.getMessage());
+			}
+	}
+
+	/**
+	 * Deletes the oldest entries on disk, down to nine tenths of the maximum
+	 * number of entries on disk
+	 *
+	 * @throws IOException if the directory cannot be read
+	 */
+	private synchronized void trimDisk() throws IOException
+	{
+		List<Path> files = diskFiles();
+		int excess = files.size() - maxDiskEntries * 9 / 10;
+		if (excess > 0)
+		{
+			List<Map.Entry<Path, Long>> aged = new ArrayList<>(files.size());
+			for (Path file : files)
+				try
+				{
+					aged.add(Map.entry(file, Files.getLastModifiedTime(file).toMillis()));
+				} catch (NoSuchFileException e)
+				{
+				}
+			aged.sort(Map.Entry.comparingByValue(Comparator.naturalOrder()));
+			for (int i = 0; i < excess && i < aged.size(); i++)
+				Files.deleteIfExists(aged.get(i).getKey());
+		}
+		diskEntryCount.set(diskFiles().size());
+	}
+
+	/**
+	 * Returns the files of the entries on disk
+	 *
+	 * @return the files
+	 * @throws IOException if the directory cannot be read
+	 */
+	private List<Path> diskFiles() throws IOException
+	{
+		List<Path> result = new ArrayList<>();
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(directory.get(), "*" + entrySuffix))
+		{
+			files.forEach(result::add);
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the file of the entry of the specified key
+	 *
+	 * @param key key of the entry
+	 * @return the file
+	 */
+	private Path fileOf(EvaluationKey key)
+	{
+		return directory.get().resolve(key.toHex() + entrySuffix);
+	}
+
+	@Override
+	public String toString()
+	{
+		return String.format("MemoCache [name=%s, hitRate=%.3f, memoryEntries=%d, diskEntries=%d]", name, getHitRate(), getMemoryEntryCount(), getDiskEntryCount());
+	}
+
+	/**
+	 * Entry of the cache, i.e. the outputs of an evaluation and the time of their
+	 * caching
+	 */
+	private static final class Entry
+	{
+		/**
+		 * Outputs of the evaluation
+		 */
+		final double[] outputs;
+		/**
+		 * {@code System.currentTimeMillis()} at which the outputs were cached
+		 */
+		final long createdMillis;
+
+		/**
+		 * Constructor
+		 *
+		 * @param outputs       outputs of the evaluation
+		 * @param createdMillis time at which the outputs were cached
+		 */
+		Entry(double[] outputs, long createdMillis)
+		{
+			super();
+			this.outputs = outputs;
+			this.createdMillis = createdMillis;
+		}
+	}
+
+	/**
+	 * Suffix of the names of the files of the entries on disk
+	 */
+	private static final String entrySuffix = ".memo";
+	/**
+	 * Suffix of the names of the temporary files of entries being written
+	 */
+	private static final String temporarySuffix = ".tmp";
+	/**
+	 * Logger for the caches
+	 */
+	private static final Logger logger = Logger.getLogger(MemoCache.class.getSimpleName());
+}
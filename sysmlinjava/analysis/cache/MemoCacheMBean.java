@@ -0,0 +1,78 @@
+package sysmlinjava.analysis.cache;
+
+/**
+ * JMX management interface for the {@code MemoCache}, i.e. the counts of its
+ * lookups by outcome, its hit rate, and its sizes
+ *
+ * @author ModelerOne
+ *
+ * @see MemoCache
+ */
+public interface MemoCacheMBean
+{
+	/**
+	 * Returns the number of lookups found in memory
+	 *
+	 * @return number of memory hits
+	 */
+	long getMemoryHitCount();
+
+	/**
+	 * Returns the number of lookups not found in memory but found on disk
+	 *
+	 * @return number of disk hits
+	 */
+	long getDiskHitCount();
+
+	/**
+	 * Returns the number of lookups not found
+	 *
+	 * @return number of misses
+	 */
+	long getMissCount();
+
+	/**
+	 * Returns the fraction of lookups found in memory or on disk
+	 *
+	 * @return hit rate from 0 to 1, or 0 if there have been no lookups
+	 */
+	double getHitRate();
+
+	/**
+	 * Returns the number of entries evicted from memory for its size
+	 *
+	 * @return number of evictions
+	 */
+	long getEvictionCount();
+
+	/**
+	 * Returns the number of entries discarded for their age
+	 *
+	 * @return number of expirations
+	 */
+	long getExpirationCount();
+
+	/**
+	 * Returns the number of entries in memory
+	 *
+	 * @return number of entries in memory
+	 */
+	int getMemoryEntryCount();
+
+	/**
+	 * Returns the number of entries on disk
+	 *
+	 * @return number of entries on disk, 0 if the cache has no disk tier
+	 */
+	int getDiskEntryCount();
+
+	/**
+	 * Clears the counts of the lookups
+	 */
+	void resetCounts();
+
+	/**
+	 * Discards all entries of the cache, in memory and on disk
+	 */
+	void clear();
+}
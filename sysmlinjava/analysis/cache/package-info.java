@@ -0,0 +1,9 @@
+/**
+ * Contains the memoization cache of SysMLinJava evaluations, i.e. of the
+ * outputs of whole scenario runs keyed by the model version and parameter
+ * vector, and of the outputs of pure constraint blocks keyed by the constraint
+ * block and its input parameter values, with size- and age-based eviction, an
+ * optional on-disk tier that survives restarts, and JMX metrics of its hit
+ * rates.
+ */
+package sysmlinjava.analysis.cache;
@@ -0,0 +1,29 @@
+package sysmlinjava.analysis.flightrecorder;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event for the performance of a {@code SysMLState}'s do-activity in the
+ * thread in which the do-activity executes. The element of the event is the
+ * state.
+ *
+ * @author ModelerOne
+ *
+ */
+@Name("sysmlinjava.DoActivity")
+@Label("Do Activity")
+@Category({"SysMLinJava", "State Machine"})
+@Description("Performance of a state do-activity")
+public class DoActivityEvent extends SysMLElementEvent
+{
+	/**
+	 * Constructor of the event for the performance of a state do-activity
+	 */
+	public DoActivityEvent()
+	{
+		super();
+	}
+}
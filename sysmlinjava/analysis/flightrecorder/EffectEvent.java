@@ -0,0 +1,29 @@
+package sysmlinjava.analysis.flightrecorder;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event for the performance of a {@code SysMLEffect}'s activity. The element
+ * of the event is the effect.
+ *
+ * @author ModelerOne
+ *
+ */
+@Name("sysmlinjava.Effect")
+@Label("Effect")
+@Category({"SysMLinJava", "State Machine"})
+@Description("Performance of a transition effect activity")
+public class EffectEvent extends SysMLElementEvent
+{
+	/**
+	 * Constructor of the event for the performance of a transition effect
+	 * activity
+	 */
+	public EffectEvent()
+	{
+		super();
+	}
+}
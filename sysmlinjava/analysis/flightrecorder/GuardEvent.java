@@ -0,0 +1,35 @@
+package sysmlinjava.analysis.flightrecorder;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event for the evaluation of a {@code SysMLGuard}'s condition. The element
+ * of the event is the guard.
+ *
+ * @author ModelerOne
+ *
+ */
+@Name("sysmlinjava.Guard")
+@Label("Guard")
+@Category({"SysMLinJava", "State Machine"})
+@Description("Evaluation of a transition guard condition")
+public class GuardEvent extends SysMLElementEvent
+{
+	/**
+	 * Whether the guard's condition was satisfied
+	 */
+	@Label("Satisfied")
+	public boolean satisfied;
+
+	/**
+	 * Constructor of the event for the evaluation of a transition guard
+	 * condition
+	 */
+	public GuardEvent()
+	{
+		super();
+	}
+}
@@ -0,0 +1,30 @@
+package sysmlinjava.analysis.flightrecorder;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event for the performance of a {@code SysMLConstraintBlock}'s
+ * {@code performConstraints()} operation. The element of the event is the
+ * constraint block.
+ *
+ * @author ModelerOne
+ *
+ */
+@Name("sysmlinjava.PerformConstraints")
+@Label("Perform Constraints")
+@Category({"SysMLinJava", "Parametrics"})
+@Description("Performance of the constraints of a constraint block")
+public class PerformConstraintsEvent extends SysMLElementEvent
+{
+	/**
+	 * Constructor of the event for the performance of the constraints of a
+	 * constraint block
+	 */
+	public PerformConstraintsEvent()
+	{
+		super();
+	}
+}
@@ -0,0 +1,36 @@
+package sysmlinjava.analysis.flightrecorder;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event for the reception of a signal or object by a {@code SysMLFullPort}
+ * from its peer or server ports, including the submission of the resulting
+ * event to the event context block. The element of the event is the port.
+ *
+ * @author ModelerOne
+ *
+ */
+@Name("sysmlinjava.PortReceive")
+@Label("Port Receive")
+@Category({"SysMLinJava", "Ports"})
+@Description("Reception of a signal or object by a full port")
+public class PortReceiveEvent extends SysMLElementEvent
+{
+	/**
+	 * Type of the signal or object received
+	 */
+	@Label("Object Type")
+	public String objectType;
+
+	/**
+	 * Constructor of the event for the reception of a signal or object by a
+	 * full port
+	 */
+	public PortReceiveEvent()
+	{
+		super();
+	}
+}
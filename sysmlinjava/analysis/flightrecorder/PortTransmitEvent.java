@@ -0,0 +1,34 @@
+package sysmlinjava.analysis.flightrecorder;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event for the transmission of an object by a {@code SysMLFullPort} to its
+ * peer or server ports. The element of the event is the port.
+ *
+ * @author ModelerOne
+ *
+ */
+@Name("sysmlinjava.PortTransmit")
+@Label("Port Transmit")
+@Category({"SysMLinJava", "Ports"})
+@Description("Transmission of an object by a full port")
+public class PortTransmitEvent extends SysMLElementEvent
+{
+	/**
+	 * Type of the object transmitted
+	 */
+	@Label("Object Type")
+	public String objectType;
+
+	/**
+	 * Constructor of the event for the transmission of an object by a full port
+	 */
+	public PortTransmitEvent()
+	{
+		super();
+	}
+}
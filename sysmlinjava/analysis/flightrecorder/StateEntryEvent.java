@@ -0,0 +1,29 @@
+package sysmlinjava.analysis.flightrecorder;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event for the performance of a {@code SysMLState}'s on-enter activity and
+ * the start of its sub-state machines, if any. The element of the event is the
+ * state.
+ *
+ * @author ModelerOne
+ *
+ */
+@Name("sysmlinjava.StateEntry")
+@Label("State Entry")
+@Category({"SysMLinJava", "State Machine"})
+@Description("Performance of a state on-enter activity")
+public class StateEntryEvent extends SysMLElementEvent
+{
+	/**
+	 * Constructor of the event for the performance of a state on-enter activity
+	 */
+	public StateEntryEvent()
+	{
+		super();
+	}
+}
@@ -0,0 +1,29 @@
+package sysmlinjava.analysis.flightrecorder;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event for the performance of a {@code SysMLState}'s on-exit activity and
+ * the termination of its do-activity or sub-state machines, if any. The element
+ * of the event is the state.
+ *
+ * @author ModelerOne
+ *
+ */
+@Name("sysmlinjava.StateExit")
+@Label("State Exit")
+@Category({"SysMLinJava", "State Machine"})
+@Description("Performance of a state on-exit activity")
+public class StateExitEvent extends SysMLElementEvent
+{
+	/**
+	 * Constructor of the event for the performance of a state on-exit activity
+	 */
+	public StateExitEvent()
+	{
+		super();
+	}
+}
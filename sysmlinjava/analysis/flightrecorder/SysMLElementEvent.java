@@ -0,0 +1,134 @@
+package sysmlinjava.analysis.flightrecorder;
+
+import java.util.Optional;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+import sysmlinjava.blocks.SysMLBlock;
+import sysmlinjava.common.SysMLClass;
+
+/**
+ * Abstract base class for the Java Flight Recorder (JFR) events emitted by
+ * SysMLinJava model elements. Each event carries the identity string of the
+ * model element, e.g. the transition, effect, or port, and the identity string
+ * and ID of the block in whose context the element operates, so a JFR recording
+ * identifies which model element consumed the recorded time rather than only
+ * the lambda or method that implements it.
+ * <h2>Cost when disabled</h2> The events are used by the SysMLinJava elements
+ * in the JFR idiom:
+ * 
+ * <pre>
+ * {@code
+ * TransitionEvent jfrEvent = new TransitionEvent();
+ * jfrEvent.begin();
+ * ...
+ * jfrEvent.commitFor(transition, contextBlock);
+ * }
+ * </pre>
+ * 
+ * where the {@code commitFor()} operation, or the {@code shouldCommitFor()}
+ * operation for events with additional fields, sets the fields only if the
+ * event is to be committed, i.e. only if the event type is enabled in a running
+ * recording and its duration exceeds the threshold. When no recording is
+ * running, the JIT compiler eliminates the allocation and timing of the event,
+ * so the events can remain in production models.
+ * <p>
+ * As the events are emitted on the hot paths of the models, e.g. upon every
+ * evaluation of a constraint block, they are disabled by default, so that the
+ * recordings of models that are not being profiled, e.g. the JVM's continuous
+ * default recording, do not pay for them. The events are enabled, without
+ * stack traces and with a threshold of 0 ms, in the JFR configuration (.jfc)
+ * file of a profiling recording, e.g.
+ * 
+ * <pre>
+ * {@code
+ * <event name="sysmlinjava.Transition">
+ *   <setting name="enabled">true</setting>
+ * </event>
+ * }
+ * </pre>
+ *
+ * @author ModelerOne
+ *
+ */
+@Category({"SysMLinJava"})
+@Enabled(false)
+@StackTrace(false)
+@Threshold("0 ms")
+public abstract class SysMLElementEvent extends jdk.jfr.Event
+{
+	/**
+	 * Identity string of the model element
+	 */
+	@Label("Element")
+	@Description("Identity string of the model element")
+	public String element;
+	/**
+	 * Identity string of the block in whose context the element operates
+	 */
+	@Label("Block")
+	@Description("Identity string of the block in whose context the element operates")
+	public String block;
+	/**
+	 * ID of the block in whose context the element operates, or -1 if none
+	 */
+	@Label("Block ID")
+	@Description("ID of the block in whose context the element operates")
+	public long blockID;
+
+	/**
+	 * Constructor for the events of the extending classes, whose timing is begun
+	 * by {@code begin()} and ended by {@code commitFor()} or
+	 * {@code shouldCommitFor()}
+	 */
+	public SysMLElementEvent()
+	{
+		super();
+	}
+
+	/**
+	 * Ends the timing of the event and, if the event is to be committed, sets its
+	 * identity fields for the specified element and block and commits the event.
+	 * 
+	 * @param element      model element for which the event is emitted
+	 * @param contextBlock optional block in whose context the element operates
+	 */
+	public void commitFor(SysMLClass element, Optional<? extends SysMLBlock> contextBlock)
+	{
+		if (shouldCommitFor(element, contextBlock))
+			commit();
+	}
+
+	/**
+	 * Ends the timing of the event and, if the event is to be committed, sets its
+	 * identity fields for the specified element and block. This operation is used
+	 * in place of {@code commitFor()} for events that have additional fields, i.e.
+	 * the additional fields are set and the event committed only if this
+	 * operation returns true.
+	 * 
+	 * @param element      model element for which the event is emitted
+	 * @param contextBlock optional block in whose context the element operates
+	 * @return true if the event is to be committed, false otherwise
+	 */
+	public boolean shouldCommitFor(SysMLClass element, Optional<? extends SysMLBlock> contextBlock)
+	{
+		end();
+		boolean result = shouldCommit();
+		if (result)
+		{
+			this.element = element.identityString();
+			if (contextBlock.isPresent())
+			{
+				SysMLBlock blockInstance = contextBlock.get();
+				this.block = blockInstance.identityString();
+				this.blockID = blockInstance.id != null ? blockInstance.id : -1;
+			}
+			else
+				this.blockID = -1;
+		}
+		return result;
+	}
+}
@@ -0,0 +1,47 @@
+package sysmlinjava.analysis.flightrecorder;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event for the performance of a {@code SysMLTransition} by a
+ * {@code SysMLStateMachine}, i.e. the duration of the exit activity of the
+ * source state, the transition's effect, and the entry activity of the target
+ * state. The element of the event is the transition.
+ *
+ * @author ModelerOne
+ *
+ */
+@Name("sysmlinjava.Transition")
+@Label("Transition")
+@Category({"SysMLinJava", "State Machine"})
+@Description("Performance of a state machine transition, including exit, effect, and entry activities")
+public class TransitionEvent extends SysMLElementEvent
+{
+	/**
+	 * Identity string of the vertex from which the transition was performed
+	 */
+	@Label("From Vertex")
+	public String fromVertex;
+	/**
+	 * Identity string of the vertex to which the transition was performed
+	 */
+	@Label("To Vertex")
+	public String toVertex;
+	/**
+	 * Type of the event that triggered the transition, if any
+	 */
+	@Label("Trigger")
+	public String trigger;
+
+	/**
+	 * Constructor of the event for the performance of a state machine
+	 * transition, including exit, effect, and entry activities
+	 */
+	public TransitionEvent()
+	{
+		super();
+	}
+}
@@ -0,0 +1,7 @@
+/**
+ * Contains Java Flight Recorder (JFR) event types that are emitted by the
+ * state machines, ports, and constraint blocks of executing SysMLinJava models,
+ * i.e. that identify the transitions, effects, guards, state activities, port
+ * signals, and constraint evaluations in JFR recordings.
+ */
+package sysmlinjava.analysis.flightrecorder;
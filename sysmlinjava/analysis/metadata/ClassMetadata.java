@@ -0,0 +1,45 @@
+package sysmlinjava.analysis.metadata;
+
+import java.util.List;
+
+/**
+ * Metadata of a class of a SysMLinJava model, i.e. the class and the metadata
+ * of its fields that are annotated with SysMLinJava modeling annotations, in
+ * order of declaration. Only the fields declared by the class itself are
+ * included. The fields inherited from its superclasses are provided by the
+ * {@code SysMLMetadata} registry.
+ *
+ * @author ModelerOne
+ *
+ * @see SysMLMetadata#fieldsOf(Class)
+ */
+public final class ClassMetadata
+{
+	/**
+	 * The class
+	 */
+	public final Class<?> type;
+	/**
+	 * Metadata of the annotated fields declared by the class
+	 */
+	public final List<FieldMetadata> fields;
+
+	/**
+	 * Constructor
+	 *
+	 * @param type   the class
+	 * @param fields metadata of the annotated fields declared by the class
+	 */
+	public ClassMetadata(Class<?> type, FieldMetadata... fields)
+	{
+		super();
+		this.type = type;
+		this.fields = List.of(fields);
+	}
+
+	@Override
+	public String toString()
+	{
+		return String.format("ClassMetadata [type=%s, fields=%s]", type.getName(), fields);
+	}
+}
@@ -0,0 +1,132 @@
+package sysmlinjava.analysis.metadata;
+
+import java.lang.annotation.Annotation;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+import sysmlinjava.units.SysMLUnit;
+import sysmlinjava.valuetypes.SysMLValueType;
+
+/**
+ * Metadata of a field of a class of a SysMLinJava model that is annotated with
+ * SysMLinJava modeling annotations, e.g. {@code &#64;Value}, {@code &#64;Part},
+ * {@code &#64;FullPort}, or {@code &#64;Satisfy}.
+ * <h2>Accessor</h2> The {@code accessor} is a lambda generated for the field,
+ * i.e. a direct field access that is as fast as the field access in the model's
+ * own code, rather than a reflective access. It is present for all fields that
+ * are accessible from the package of their class, i.e. all but
+ * {@code private} fields. Relationships that are represented by fields, e.g.
+ * the requirements satisfied by a block's {@code &#64;Satisfy} fields, are
+ * obtained by the accessor as the values of the fields.
+ * <h3>Annotations</h3> The annotations of the field are recorded by their
+ * qualified names, as most of the modeling annotations are retained only in
+ * the source and are therefore not available by reflection.
+ *
+ * @author ModelerOne
+ *
+ */
+public final class FieldMetadata
+{
+	/**
+	 * Name of the field
+	 */
+	public final String name;
+	/**
+	 * Type of the field, i.e. the erasure of its declared type, or {@code Object}
+	 * if its declared type is not accessible from the package of its class
+	 */
+	public final Class<?> type;
+	/**
+	 * Declared type of the field as it appears in the source, including any type
+	 * arguments, e.g. {@code java.util.Optional<my.model.MyPart>}
+	 */
+	public final String genericType;
+	/**
+	 * Whether the field is static
+	 */
+	public final boolean isStatic;
+	/**
+	 * Qualified names of the modeling annotations of the field
+	 */
+	public final List<String> annotations;
+	/**
+	 * Optional accessor of the field, which returns the value of the field of the
+	 * specified instance of its class (ignored if the field is static), empty if
+	 * the field is {@code private}
+	 */
+	public final Optional<Function<Object, Object>> accessor;
+
+	/**
+	 * Constructor
+	 *
+	 * @param name        name of the field
+	 * @param type        type of the field
+	 * @param genericType declared type of the field as it appears in the source
+	 * @param isStatic    whether the field is static
+	 * @param annotations qualified names of the modeling annotations of the field
+	 * @param accessor    accessor of the field, null if the field is not
+	 *                    accessible
+	 */
+	public FieldMetadata(String name, Class<?> type, String genericType, boolean isStatic, List<String> annotations, Function<Object, Object> accessor)
+	{
+		super();
+		this.name = name;
+		this.type = type;
+		this.genericType = genericType;
+		this.isStatic = isStatic;
+		this.annotations = annotations;
+		this.accessor = Optional.ofNullable(accessor);
+	}
+
+	/**
+	 * Returns whether the field is annotated with the specified annotation
+	 *
+	 * @param annotationType type of the annotation
+	 * @return true if the field is annotated with the annotation
+	 */
+	public boolean isAnnotatedWith(Class<? extends Annotation> annotationType)
+	{
+		return annotations.contains(annotationType.getName());
+	}
+
+	/**
+	 * Returns the value of the field of the specified instance
+	 *
+	 * @param instance instance of the class of the field, ignored if the field is
+	 *                 static
+	 * @return value of the field
+	 * @throws IllegalStateException if the field has no accessor
+	 */
+	public Object valueOf(Object instance)
+	{
+		if (accessor.isEmpty())
+			throw new IllegalStateException("field has no accessor: " + name);
+		return accessor.get().apply(instance);
+	}
+
+	/**
+	 * Returns the units of the value of the field of the specified instance, i.e.
+	 * the units of the value if it is a {@code SysMLValueType}
+	 *
+	 * @param instance instance of the class of the field
+	 * @return optional units of the value, empty if the value is not a value type
+	 *         or the field has no accessor
+	 */
+	public Optional<SysMLUnit> unitsOf(Object instance)
+	{
+		Optional<SysMLUnit> result = Optional.empty();
+		if (accessor.isPresent())
+		{
+			Object value = accessor.get().apply(instance);
+			if (value instanceof SysMLValueType)
+				result = Optional.ofNullable(((SysMLValueType)value).units);
+		}
+		return result;
+	}
+
+	@Override
+	public String toString()
+	{
+		return String.format("FieldMetadata [name=%s, genericType=%s, isStatic=%s, annotations=%s]", name, genericType, isStatic, annotations);
+	}
+}
@@ -0,0 +1,28 @@
+package sysmlinjava.analysis.metadata;
+
+import java.util.List;
+
+/**
+ * Service interface of the metadata index of the classes of a package of a
+ * SysMLinJava model. An implementation of the {@code ModelMetadataIndex} is
+ * generated for each package of the model by the {@code ModelMetadataProcessor}
+ * annotation processor and is registered as a service of this interface, i.e.
+ * in {@code META-INF/services/sysmlinjava.analysis.metadata.ModelMetadataIndex}
+ * by the processor or, for a model that is a named module, by a
+ * {@code provides} declaration of the model's module. The indexes are loaded by
+ * the {@code SysMLMetadata} registry.
+ *
+ * @author ModelerOne
+ *
+ * @see SysMLMetadata
+ * @see sysmlinjava.analysis.metadata.compiler.ModelMetadataProcessor
+ */
+public interface ModelMetadataIndex
+{
+	/**
+	 * Returns the metadata of the classes of the index
+	 *
+	 * @return metadata of the classes
+	 */
+	List<ClassMetadata> classes();
+}
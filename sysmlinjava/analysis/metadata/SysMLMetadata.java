@@ -0,0 +1,182 @@
+package sysmlinjava.analysis.metadata;
+
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+
+/**
+ * Registry of the metadata of the classes of the SysMLinJava models in the JVM.
+ * The {@code SysMLMetadata} loads the {@code ModelMetadataIndex}es generated
+ * for the packages of the models by the {@code ModelMetadataProcessor} upon
+ * first use, by the {@code ServiceLoader}, and provides the metadata of the
+ * annotated fields of any model class, including the fields inherited from its
+ * superclasses. Tools that walk the elements of a model, e.g. to take a
+ * snapshot, create a bill of materials, serialize the model, or trace its
+ * requirements, can thereby find the values, parts, ports, and relationships
+ * of the model's blocks without reflection and without scanning the class
+ * path, as follows:
+ *
+ * <pre>
+ * for (FieldMetadata field : SysMLMetadata.fieldsAnnotatedWith(block.getClass(), Value.class))
+ * 	System.out.println(field.name + " = " + field.valueOf(block) + " " + field.unitsOf(block));
+ * </pre>
+ *
+ * Indexes of classes that are not loaded by the {@code ServiceLoader}, e.g.
+ * classes loaded by a custom class loader, can be added by the
+ * {@code register()} operation.
+ *
+ * @author ModelerOne
+ *
+ */
+public final class SysMLMetadata
+{
+	/**
+	 * Logger for the registry
+	 */
+	private static final Logger logger = Logger.getLogger(SysMLMetadata.class.getSimpleName());
+	/**
+	 * Metadata of the classes of the registered indexes, by class
+	 */
+	private static final Map<Class<?>, ClassMetadata> metadataByClass = new ConcurrentHashMap<>();
+	/**
+	 * Annotated fields of the classes, including inherited fields, by class
+	 */
+	private static final Map<Class<?>, List<FieldMetadata>> fieldsByClass = new ConcurrentHashMap<>();
+	/**
+	 * Whether the indexes have been loaded by the {@code ServiceLoader}
+	 */
+	private static volatile boolean isLoaded = false;
+
+	/**
+	 * Constructor - private as the registry has only static operations
+	 */
+	private SysMLMetadata()
+	{
+		super();
+	}
+
+	/**
+	 * Registers the metadata of the classes of the specified index. The fields
+	 * of the classes already returned by {@code fieldsOf()} that are, or extend,
+	 * the classes of the index are replaced, so that concurrent readers see either
+	 * the previous or the new fields of each class.
+	 *
+	 * @param index index to be registered
+	 */
+	public static void register(ModelMetadataIndex index)
+	{
+		List<Class<?>> types = new ArrayList<>();
+		index.classes().forEach(metadata ->
+		{
+			metadataByClass.put(metadata.type, metadata);
+			types.add(metadata.type);
+		});
+		fieldsByClass.replaceAll((type, fields) -> types.stream().anyMatch(registered -> registered.isAssignableFrom(type)) ? collectFields(type) : fields);
+	}
+
+	/**
+	 * Returns the metadata of the specified class, i.e. of the annotated fields it
+	 * declares
+	 *
+	 * @param type the class
+	 * @return optional metadata of the class, empty if the class is not indexed
+	 */
+	public static Optional<ClassMetadata> classMetadata(Class<?> type)
+	{
+		load();
+		return Optional.ofNullable(metadataByClass.get(type));
+	}
+
+	/**
+	 * Returns the metadata of all indexed classes
+	 *
+	 * @return metadata of the classes
+	 */
+	public static Collection<ClassMetadata> allClasses()
+	{
+		load();
+		return metadataByClass.values();
+	}
+
+	/**
+	 * Returns the metadata of the annotated fields of the specified class,
+	 * including the fields inherited from its indexed superclasses, with the
+	 * fields of the superclasses first
+	 *
+	 * @param type the class
+	 * @return metadata of the annotated fields
+	 */
+	public static List<FieldMetadata> fieldsOf(Class<?> type)
+	{
+		load();
+		return fieldsByClass.computeIfAbsent(type, SysMLMetadata::collectFields);
+	}
+
+	/**
+	 * Returns the metadata of the fields of the specified class, including
+	 * inherited fields, that are annotated with the specified annotation
+	 *
+	 * @param type           the class
+	 * @param annotationType type of the annotation
+	 * @return metadata of the fields annotated with the annotation
+	 */
+	public static List<FieldMetadata> fieldsAnnotatedWith(Class<?> type, Class<? extends Annotation> annotationType)
+	{
+		List<FieldMetadata> result = new ArrayList<>();
+		for (FieldMetadata field : fieldsOf(type))
+			if (field.isAnnotatedWith(annotationType))
+				result.add(field);
+		return result;
+	}
+
+	/**
+	 * Returns the annotated fields of the specified class and its superclasses
+	 *
+	 * @param type the class
+	 * @return metadata of the annotated fields, superclass fields first
+	 */
+	private static List<FieldMetadata> collectFields(Class<?> type)
+	{
+		List<ClassMetadata> hierarchy = new ArrayList<>();
+		for (Class<?> superclass = type; superclass != null; superclass = superclass.getSuperclass())
+		{
+			ClassMetadata metadata = metadataByClass.get(superclass);
+			if (metadata != null)
+				hierarchy.add(0, metadata);
+		}
+		List<FieldMetadata> result = new ArrayList<>();
+		hierarchy.forEach(metadata -> result.addAll(metadata.fields));
+		return List.copyOf(result);
+	}
+
+	/**
+	 * Loads the indexes provided by the {@code ServiceLoader}, if not already
+	 * loaded
+	 */
+	private static void load()
+	{
+		if (!isLoaded)
+			synchronized (SysMLMetadata.class)
+			{
+				if (!isLoaded)
+				{
+					try
+					{
+						for (ModelMetadataIndex index : ServiceLoader.load(ModelMetadataIndex.class))
+							register(index);
+					} catch (ServiceConfigurationError e)
+					{
+						logger.warning("model metadata index could not be loaded: " + e.getMessage());
+					}
+					isLoaded = true;
+				}
+			}
+	}
+}
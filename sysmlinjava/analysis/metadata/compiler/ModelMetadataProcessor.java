@@ -0,0 +1,323 @@
+package sysmlinjava.analysis.metadata.compiler;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import javax.tools.StandardLocation;
+
+/**
+ * SysMLinJava's annotation processor that generates the
+ * {@code ModelMetadataIndex} of each package of a SysMLinJava model.
+ * <h2>Metadata index</h2> The processor collects the fields of the model's
+ * classes that are annotated with the SysMLinJava modeling annotations, i.e.
+ * the annotations in the {@code sysmlinjava.annotations} packages and the bill
+ * of materials annotations, most of which are retained only in the source. For
+ * each package that contains such fields it generates the class
+ * {@code GeneratedModelMetadataIndex}, which provides the name, type, and
+ * annotations of each field and a lambda that accesses the field directly. It
+ * also generates the service registration of the indexes, i.e. the
+ * {@code META-INF/services/sysmlinjava.analysis.metadata.ModelMetadataIndex}
+ * resource, by which the {@code SysMLMetadata} registry loads them at runtime.
+ * <h2>Usage</h2> The processor is included in the annotation processor path of
+ * the compilation of the model, e.g.
+ *
+ * <pre>
+ * javac -processorpath sysmlinjava.jar -processor sysmlinjava.analysis.metadata.compiler.ModelMetadataProcessor ...
+ * </pre>
+ *
+ * or is found automatically on the processor module path, as it is provided by
+ * the SysMLinJava module as a {@code javax.annotation.processing.Processor}
+ * service. If the model is itself a named module, the service resource is not
+ * used and the model's module must instead declare
+ * {@code provides sysmlinjava.analysis.metadata.ModelMetadataIndex with ...}
+ * for the generated indexes.
+ * <h3>Accessibility</h3> The generated index is in the package of the
+ * classes it describes, so it has accessors for all but the {@code private}
+ * fields. Classes that are not accessible from their package, i.e. local,
+ * anonymous, and {@code private} nested classes, are not indexed.
+ *
+ * @author ModelerOne
+ *
+ * @see sysmlinjava.analysis.metadata.SysMLMetadata
+ */
+@SupportedAnnotationTypes({ModelMetadataProcessor.modelingAnnotationsPackage + ".*", ModelMetadataProcessor.bomAnnotationsPackage + ".*"})
+public class ModelMetadataProcessor extends AbstractProcessor
+{
+	/**
+	 * Qualified names of the index classes generated in all rounds
+	 */
+	private final List<String> generatedIndexes;
+	/**
+	 * Number of index classes generated in each package, used to name the indexes
+	 * generated for the same package in later rounds
+	 */
+	private final Map<String, Integer> indexCountByPackage;
+
+	/**
+	 * Constructor
+	 */
+	public ModelMetadataProcessor()
+	{
+		super();
+		generatedIndexes = new ArrayList<>();
+		indexCountByPackage = new HashMap<>();
+	}
+
+	@Override
+	public SourceVersion getSupportedSourceVersion()
+	{
+		return SourceVersion.latestSupported();
+	}
+
+	@Override
+	public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv)
+	{
+		if (roundEnv.processingOver())
+			writeServiceRegistration();
+		else
+		{
+			Map<PackageElement, Map<TypeElement, List<VariableElement>>> fieldsByPackage = new LinkedHashMap<>();
+			for (TypeElement annotation : annotations)
+				for (Element element : roundEnv.getElementsAnnotatedWith(annotation))
+					if (element.getKind() == ElementKind.FIELD && isIndexable((TypeElement)element.getEnclosingElement()))
+					{
+						TypeElement type = (TypeElement)element.getEnclosingElement();
+						Map<TypeElement, List<VariableElement>> fieldsByType = fieldsByPackage.computeIfAbsent(processingEnv.getElementUtils().getPackageOf(type), packageElement -> new LinkedHashMap<>());
+						List<VariableElement> fields = fieldsByType.computeIfAbsent(type, typeElement -> new ArrayList<>());
+						if (!fields.contains(element))
+							fields.add((VariableElement)element);
+					}
+			fieldsByPackage.forEach((packageElement, fieldsByType) ->
+			{
+				try
+				{
+					generateIndex(packageElement, fieldsByType);
+				} catch (IOException e)
+				{
+					processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING, "model metadata index could not be written: " + e.getMessage(), packageElement);
+				}
+			});
+		}
+		return false;
+	}
+
+	/**
+	 * Generates the metadata index of the specified fields of the specified
+	 * package
+	 *
+	 * @param packageElement package of the index
+	 * @param fieldsByType   annotated fields of the classes of the package
+	 * @throws IOException if the source file cannot be written
+	 */
+	private void generateIndex(PackageElement packageElement, Map<TypeElement, List<VariableElement>> fieldsByType) throws IOException
+	{
+		String packageName = packageElement.isUnnamed() ? "" : packageElement.getQualifiedName().toString();
+		int count = indexCountByPackage.merge(packageName, 1, Integer::sum);
+		String indexSimpleName = indexClassName + (count > 1 ? String.valueOf(count) : "");
+		String indexName = packageName.isEmpty() ? indexSimpleName : packageName + "." + indexSimpleName;
+		Set<Element> originatingElements = new LinkedHashSet<>(fieldsByType.keySet());
+		try (PrintWriter out = new PrintWriter(processingEnv.getFiler().createSourceFile(indexName, originatingElements.toArray(new Element[0])).openWriter()))
+		{
+			if (!packageName.isEmpty())
+				out.printf("package %s;%n%n", packageName);
+			out.printf("/**%n * Model metadata index of the package {@code %s} generated by the {@code ModelMetadataProcessor}%n */%n", packageName);
+			out.printf("public final class %s implements sysmlinjava.analysis.metadata.ModelMetadataIndex%n{%n", indexSimpleName);
+			out.printf("\tpublic %s()%n\t{%n\t\tsuper();%n\t}%n%n", indexSimpleName);
+			out.printf("\t@Override%n\tpublic java.util.List<sysmlinjava.analysis.metadata.ClassMetadata> classes()%n\t{%n\t\treturn java.util.List.of(");
+			boolean firstType = true;
+			for (Map.Entry<TypeElement, List<VariableElement>> entry : fieldsByType.entrySet())
+			{
+				String typeName = processingEnv.getTypeUtils().erasure(entry.getKey().asType()).toString();
+				out.printf("%s%n\t\t\tnew sysmlinjava.analysis.metadata.ClassMetadata(%s.class", firstType ? "" : ",", typeName);
+				List<? extends Element> declaredElements = entry.getKey().getEnclosedElements();
+				entry.getValue().sort((left, right) -> Integer.compare(declaredElements.indexOf(left), declaredElements.indexOf(right)));
+				for (VariableElement field : entry.getValue())
+					out.printf(",%n\t\t\t\t%s", fieldMetadataOf(typeName, field, packageName));
+				out.printf(")");
+				firstType = false;
+			}
+			out.printf(");%n\t}%n}%n");
+		}
+		generatedIndexes.add(indexName);
+	}
+
+	/**
+	 * Returns the source of the construction of the metadata of the specified
+	 * field
+	 *
+	 * @param typeName    name of the class of the field
+	 * @param field       the field
+	 * @param packageName name of the package of the index
+	 * @return source of the {@code FieldMetadata} construction
+	 */
+	private String fieldMetadataOf(String typeName, VariableElement field, String packageName)
+	{
+		List<String> annotationNames = new ArrayList<>();
+		for (AnnotationMirror annotation : field.getAnnotationMirrors())
+		{
+			String annotationName = ((TypeElement)annotation.getAnnotationType().asElement()).getQualifiedName().toString();
+			if (annotationName.startsWith(modelingAnnotationsPackage + ".") || annotationName.startsWith(bomAnnotationsPackage + "."))
+				annotationNames.add("\"" + annotationName + "\"");
+		}
+		boolean isStatic = field.getModifiers().contains(Modifier.STATIC);
+		String accessor = "null";
+		if (!field.getModifiers().contains(Modifier.PRIVATE))
+			accessor = isStatic ? String.format("instance -> %s.%s", typeName, field.getSimpleName()) : String.format("instance -> ((%s)instance).%s", typeName, field.getSimpleName());
+		TypeMirror fieldType = processingEnv.getTypeUtils().erasure(field.asType());
+		String typeLiteral = isAccessible(fieldType, packageName) ? fieldType.toString() : "java.lang.Object";
+		return String.format("new sysmlinjava.analysis.metadata.FieldMetadata(\"%s\", %s.class, \"%s\", %s, java.util.List.of(%s), %s)", field.getSimpleName(), typeLiteral, escaped(field.asType().toString()), isStatic, String.join(", ", annotationNames),
+			accessor);
+	}
+
+	/**
+	 * Writes the service registration of the indexes generated in all rounds,
+	 * merged with the indexes registered by the existing service registration, if
+	 * any, e.g. of an incremental compilation of only some of the model's
+	 * packages
+	 */
+	private void writeServiceRegistration()
+	{
+		if (!generatedIndexes.isEmpty())
+		{
+			Set<String> indexes = new LinkedHashSet<>(existingServiceRegistration());
+			indexes.addAll(generatedIndexes);
+			try (PrintWriter out = new PrintWriter(processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", serviceResourceName).openWriter()))
+			{
+				indexes.forEach(out::println);
+			} catch (IOException e)
+			{
+				processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING, "model metadata index service registration could not be written: " + e.getMessage());
+			}
+		}
+	}
+
+	/**
+	 * Returns the names of the indexes registered by the existing service
+	 * registration in the class output, if any
+	 *
+	 * @return names of the registered indexes, empty if there is no existing
+	 *         service registration
+	 */
+	private List<String> existingServiceRegistration()
+	{
+		List<String> result = new ArrayList<>();
+		try (BufferedReader in = new BufferedReader(processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT, "", serviceResourceName).openReader(true)))
+		{
+			String line;
+			while ((line = in.readLine()) != null)
+			{
+				int comment = line.indexOf('#');
+				String name = (comment >= 0 ? line.substring(0, comment) : line).trim();
+				if (!name.isEmpty())
+					result.add(name);
+			}
+		} catch (IOException e)
+		{
+			// no existing service registration
+		}
+		return result;
+	}
+
+	/**
+	 * Returns whether the specified class can be indexed, i.e. can be referenced
+	 * from its package
+	 *
+	 * @param type the class
+	 * @return true if the class can be indexed
+	 */
+	private boolean isIndexable(TypeElement type)
+	{
+		boolean result = true;
+		Element element = type;
+		while (result && element instanceof TypeElement)
+		{
+			TypeElement enclosingType = (TypeElement)element;
+			result = (enclosingType.getNestingKind() == NestingKind.TOP_LEVEL || enclosingType.getNestingKind() == NestingKind.MEMBER) && !enclosingType.getModifiers().contains(Modifier.PRIVATE);
+			element = enclosingType.getEnclosingElement();
+		}
+		return result;
+	}
+
+	/**
+	 * Returns whether the specified erased type can be referenced from the
+	 * specified package
+	 *
+	 * @param type        erased type
+	 * @param packageName name of the package
+	 * @return true if the type can be referenced
+	 */
+	private boolean isAccessible(TypeMirror type, String packageName)
+	{
+		boolean result = true;
+		if (type.getKind() == TypeKind.ARRAY)
+			result = isAccessible(((ArrayType)type).getComponentType(), packageName);
+		else if (type.getKind() == TypeKind.DECLARED)
+		{
+			Element element = ((DeclaredType)type).asElement();
+			String typePackage = processingEnv.getElementUtils().getPackageOf(element).getQualifiedName().toString();
+			while (result && element instanceof TypeElement)
+			{
+				if (typePackage.equals(packageName))
+					result = !element.getModifiers().contains(Modifier.PRIVATE);
+				else
+					result = element.getModifiers().contains(Modifier.PUBLIC);
+				element = element.getEnclosingElement();
+			}
+		}
+		else if (!type.getKind().isPrimitive())
+			result = false;
+		return result;
+	}
+
+	/**
+	 * Returns the specified text escaped for a Java string literal
+	 *
+	 * @param text text to be escaped
+	 * @return escaped text
+	 */
+	private static String escaped(String text)
+	{
+		return text.replace("\\", "\\\\").replace("\"", "\\\"");
+	}
+
+	/**
+	 * Name of the package of the SysMLinJava modeling annotations
+	 */
+	static final String modelingAnnotationsPackage = "sysmlinjava.annotations";
+	/**
+	 * Name of the package of the SysMLinJava bill of materials annotations
+	 */
+	static final String bomAnnotationsPackage = "sysmlinjava.analysis.bom.annotations";
+	/**
+	 * Simple name of the generated index classes
+	 */
+	private static final String indexClassName = "GeneratedModelMetadataIndex";
+	/**
+	 * Name of the service registration resource of the generated indexes
+	 */
+	private static final String serviceResourceName = "META-INF/services/sysmlinjava.analysis.metadata.ModelMetadataIndex";
+}
@@ -0,0 +1,6 @@
+/**
+ * Contains the annotation processor that generates the
+ * {@code ModelMetadataIndex} of each package of a SysMLinJava model from the
+ * modeling annotations of its fields.
+ */
+package sysmlinjava.analysis.metadata.compiler;
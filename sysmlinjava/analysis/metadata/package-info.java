@@ -0,0 +1,7 @@
+/**
+ * Contains classes that provide the metadata of the model elements of
+ * SysMLinJava models at runtime without reflection, i.e. the annotated fields,
+ * their types, modeling annotations, and accessors, from the metadata indexes
+ * generated for the models by the {@code ModelMetadataProcessor}.
+ */
+package sysmlinjava.analysis.metadata;
@@ -0,0 +1,67 @@
+package sysmlinjava.analysis.metrics;
+
+import java.util.Map;
+import sysmlinjava.constraintblocks.SysMLConstraintBlock;
+
+/**
+ * Metrics of a type of {@code SysMLConstraintBlock} in a model. The
+ * {@code ConstraintBlockMetrics} records the duration of every call to the
+ * constraint blocks' {@code performConstraints()} operation in a
+ * {@code LatencyHistogram}, whose count is the number of calls.
+ *
+ * @author ModelerOne
+ *
+ * @see SysMLMetrics#forConstraintBlock(SysMLConstraintBlock)
+ */
+public class ConstraintBlockMetrics extends ElementMetrics<SysMLConstraintBlock> implements ConstraintBlockMetricsMBean
+{
+	/**
+	 * Histogram of the durations of calls to the {@code performConstraints()}
+	 * operation
+	 */
+	public final LatencyHistogram performConstraintsDuration;
+
+	/**
+	 * Constructor
+	 * 
+	 * @param modelName       name of the model root in which the constraint blocks
+	 *                        reside
+	 * @param blockTypeName   name of the type of block that contains the
+	 *                        constraint blocks
+	 * @param elementTypeName name of the type of constraint block
+	 */
+	public ConstraintBlockMetrics(String modelName, String blockTypeName, String elementTypeName)
+	{
+		super(modelName, kindName, blockTypeName, elementTypeName);
+		performConstraintsDuration = new LatencyHistogram();
+	}
+
+	@Override
+	public long getPerformConstraintsCount()
+	{
+		return performConstraintsDuration.getCount();
+	}
+
+	@Override
+	public double getPerformConstraintsMeanMicros()
+	{
+		return performConstraintsDuration.getMeanMicros();
+	}
+
+	@Override
+	public void reset()
+	{
+		performConstraintsDuration.reset();
+	}
+
+	@Override
+	public Map<String, LatencyHistogram> histograms()
+	{
+		return Map.of("performConstraintsDuration", performConstraintsDuration);
+	}
+
+	/**
+	 * Kind of element, i.e. value of the {@code type} key of the JMX object name
+	 */
+	public static final String kindName = "ConstraintBlock";
+}
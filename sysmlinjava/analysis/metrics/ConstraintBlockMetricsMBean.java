@@ -0,0 +1,43 @@
+package sysmlinjava.analysis.metrics;
+
+/**
+ * JMX management interface for the {@code ConstraintBlockMetrics}. The
+ * attributes are aggregated over all instances of a type of constraint block in
+ * a model. The {@code performConstraints()} duration histogram is registered as
+ * a separate {@code LatencyHistogramMBean}.
+ *
+ * @author ModelerOne
+ *
+ * @see ConstraintBlockMetrics
+ */
+public interface ConstraintBlockMetricsMBean
+{
+	/**
+	 * Returns the number of constraint block instances whose metrics are
+	 * aggregated
+	 *
+	 * @return number of constraint block instances
+	 */
+	int getInstanceCount();
+
+	/**
+	 * Returns the number of calls to the constraint blocks'
+	 * {@code performConstraints()} operation
+	 *
+	 * @return number of calls
+	 */
+	long getPerformConstraintsCount();
+
+	/**
+	 * Returns the mean duration of the constraint blocks'
+	 * {@code performConstraints()} operation
+	 *
+	 * @return mean duration in microseconds
+	 */
+	double getPerformConstraintsMeanMicros();
+
+	/**
+	 * Clears the histogram of the metrics
+	 */
+	void reset();
+}
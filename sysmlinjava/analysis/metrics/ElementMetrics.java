@@ -0,0 +1,186 @@
+package sysmlinjava.analysis.metrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+
+/**
+ * Abstract base class for the metrics of a type of SysMLinJava element in a
+ * model. The {@code ElementMetrics} aggregates the metrics of all instances of
+ * the same type of element, e.g. state machine, full port, or constraint block,
+ * that reside in the same model root, i.e. all instances of a type of element
+ * share a single set of counters and histograms. The aggregation keeps the
+ * number of registered MBeans proportional to the number of block types in the
+ * model rather than the number of block instances.
+ * <p>
+ * The instances of the element type that contribute to the metrics are held in
+ * a weakly referenced set, so the metrics do not prevent the instances from
+ * being garbage collected. The set of instances is used to provide the gauge
+ * metrics that are obtained from the instances themselves, e.g. queue depths
+ * and current states, at the time the MBean attribute is read.
+ *
+ * @author ModelerOne
+ *
+ * @param <T> type of element for which the metrics are aggregated
+ * 
+ * @see SysMLMetrics
+ */
+public abstract class ElementMetrics<T>
+{
+	/**
+	 * Name of the model root (top-level block) of the model in which the elements
+	 * reside
+	 */
+	public final String modelName;
+	/**
+	 * Name of the type of block in which the elements reside
+	 */
+	public final String blockTypeName;
+	/**
+	 * Name of the type of element for which the metrics are aggregated
+	 */
+	public final String elementTypeName;
+	/**
+	 * JMX object name under which these metrics are registered
+	 */
+	public final ObjectName objectName;
+	/**
+	 * Additional key properties of the JMX object name that distinguish these
+	 * metrics from others of the same element type, if any
+	 */
+	private final String nameSuffix;
+	/**
+	 * Weakly referenced set of the instances whose metrics are aggregated
+	 */
+	private final Set<T> instances;
+
+	/**
+	 * Constructor
+	 * 
+	 * @param modelName       name of the model root in which the elements reside
+	 * @param kindName        name of the kind of element, e.g. "StateMachine", used
+	 *                        as the {@code type} key of the JMX object name
+	 * @param blockTypeName   name of the type of block in which the elements
+	 *                        reside
+	 * @param elementTypeName name of the type of element for which the metrics are
+	 *                        aggregated
+	 */
+	protected ElementMetrics(String modelName, String kindName, String blockTypeName, String elementTypeName)
+	{
+		this(modelName, kindName, blockTypeName, elementTypeName, "");
+	}
+
+	/**
+	 * Constructor with additional key properties for the JMX object name
+	 * 
+	 * @param modelName       name of the model root in which the elements reside
+	 * @param kindName        name of the kind of element, e.g. "StateMachine", used
+	 *                        as the {@code type} key of the JMX object name
+	 * @param blockTypeName   name of the type of block in which the elements
+	 *                        reside
+	 * @param elementTypeName name of the type of element for which the metrics are
+	 *                        aggregated
+	 * @param nameSuffix      additional key properties, each preceded by a comma,
+	 *                        to be appended to the JMX object name
+	 */
+	protected ElementMetrics(String modelName, String kindName, String blockTypeName, String elementTypeName, String nameSuffix)
+	{
+		super();
+		this.modelName = modelName;
+		this.blockTypeName = blockTypeName;
+		this.elementTypeName = elementTypeName;
+		this.nameSuffix = nameSuffix;
+		this.objectName = objectNameFor(modelName, kindName, blockTypeName, elementTypeName, nameSuffix);
+		this.instances = Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));
+	}
+
+	/**
+	 * Adds the specified element to the set of instances whose metrics are
+	 * aggregated
+	 * 
+	 * @param instance element to be added
+	 */
+	public void addInstance(T instance)
+	{
+		instances.add(instance);
+	}
+
+	/**
+	 * Returns a list of the instances whose metrics are currently aggregated, i.e.
+	 * those that have not been garbage collected
+	 * 
+	 * @return list of the instances
+	 */
+	public List<T> instances()
+	{
+		synchronized (instances)
+		{
+			return new ArrayList<>(instances);
+		}
+	}
+
+	/**
+	 * Returns the number of instances whose metrics are currently aggregated
+	 * 
+	 * @return number of instances
+	 */
+	public int getInstanceCount()
+	{
+		return instances.size();
+	}
+
+	/**
+	 * Returns the histograms of these metrics that are to be registered as separate
+	 * MBeans, keyed by the value of the {@code histogram} key of their JMX object
+	 * names. This base class operation returns an empty map, so extensions that
+	 * provide histograms must override this operation.
+	 * 
+	 * @return map of histograms by name
+	 */
+	public Map<String, LatencyHistogram> histograms()
+	{
+		return Map.of();
+	}
+
+	/**
+	 * Returns the JMX object name for the specified histogram of these metrics
+	 * 
+	 * @param histogramName name of the histogram
+	 * @return object name for the histogram
+	 */
+	public ObjectName histogramObjectName(String histogramName)
+	{
+		return objectNameFor(modelName, objectName.getKeyProperty("type"), blockTypeName, elementTypeName, nameSuffix + ",histogram=" + ObjectName.quote(histogramName));
+	}
+
+	/**
+	 * Returns the JMX object name for the specified model, kind of element, block
+	 * type, and element type
+	 * 
+	 * @param modelName       name of the model root
+	 * @param kindName        name of the kind of element
+	 * @param blockTypeName   name of the type of block
+	 * @param elementTypeName name of the type of element
+	 * @param suffix          additional key properties to be appended to the name
+	 * @return JMX object name
+	 */
+	protected static ObjectName objectNameFor(String modelName, String kindName, String blockTypeName, String elementTypeName, String suffix)
+	{
+		ObjectName result = null;
+		String nameString = String.format("%s:model=%s,type=%s,block=%s,name=%s%s", SysMLMetrics.domain, ObjectName.quote(modelName), kindName, ObjectName.quote(blockTypeName), ObjectName.quote(elementTypeName),
+			suffix);
+		try
+		{
+			result = new ObjectName(nameString);
+		} catch (MalformedObjectNameException e)
+		{
+			e.printStackTrace();
+		}
+		return result;
+	}
+}
@@ -0,0 +1,108 @@
+package sysmlinjava.analysis.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+import sysmlinjava.ports.SysMLFullPort;
+
+/**
+ * Metrics of a type of {@code SysMLFullPort} in a type of block in a model. The
+ * {@code FullPortMetrics} counts the signals received from and transmitted to
+ * peer ports, and the bytes and errors of the UDP datagrams used to transmit
+ * the signals to and receive the signals from ports in other processes. All
+ * counts are striped {@code LongAdder}s that are incremented directly by the
+ * full ports and their UDP receivers and transmitters.
+ * <p>
+ * Note that only the signals exchanged with peer ports are counted as messages.
+ * Objects passed between client and server ports in a stack of protocols are
+ * not counted, as they are the same messages being processed by the protocol
+ * layers of the same block.
+ *
+ * @author ModelerOne
+ *
+ * @see SysMLMetrics#forFullPort(SysMLFullPort)
+ */
+public class FullPortMetrics extends ElementMetrics<SysMLFullPort> implements FullPortMetricsMBean
+{
+	/**
+	 * Counter of signals received from peer ports
+	 */
+	public final LongAdder messagesIn;
+	/**
+	 * Counter of signals transmitted to peer ports
+	 */
+	public final LongAdder messagesOut;
+	/**
+	 * Counter of bytes received in UDP datagrams
+	 */
+	public final LongAdder udpBytesIn;
+	/**
+	 * Counter of bytes transmitted in UDP datagrams
+	 */
+	public final LongAdder udpBytesOut;
+	/**
+	 * Counter of errors encountered in reception and transmission of UDP datagrams
+	 */
+	public final LongAdder udpErrors;
+
+	/**
+	 * Constructor
+	 * 
+	 * @param modelName       name of the model root in which the full ports reside
+	 * @param blockTypeName   name of the type of block in which the full ports
+	 *                        reside
+	 * @param elementTypeName name of the type of full port
+	 */
+	public FullPortMetrics(String modelName, String blockTypeName, String elementTypeName)
+	{
+		super(modelName, kindName, blockTypeName, elementTypeName);
+		messagesIn = new LongAdder();
+		messagesOut = new LongAdder();
+		udpBytesIn = new LongAdder();
+		udpBytesOut = new LongAdder();
+		udpErrors = new LongAdder();
+	}
+
+	@Override
+	public long getMessagesIn()
+	{
+		return messagesIn.sum();
+	}
+
+	@Override
+	public long getMessagesOut()
+	{
+		return messagesOut.sum();
+	}
+
+	@Override
+	public long getUdpBytesIn()
+	{
+		return udpBytesIn.sum();
+	}
+
+	@Override
+	public long getUdpBytesOut()
+	{
+		return udpBytesOut.sum();
+	}
+
+	@Override
+	public long getUdpErrors()
+	{
+		return udpErrors.sum();
+	}
+
+	@Override
+	public void reset()
+	{
+		messagesIn.reset();
+		messagesOut.reset();
+		udpBytesIn.reset();
+		udpBytesOut.reset();
+		udpErrors.reset();
+	}
+
+	/**
+	 * Kind of element, i.e. value of the {@code type} key of the JMX object name
+	 */
+	public static final String kindName = "FullPort";
+}
@@ -0,0 +1,62 @@
+package sysmlinjava.analysis.metrics;
+
+/**
+ * JMX management interface for the {@code FullPortMetrics}. The attributes are
+ * aggregated over all instances of a type of full port in a type of block in a
+ * model.
+ *
+ * @author ModelerOne
+ *
+ * @see FullPortMetrics
+ */
+public interface FullPortMetricsMBean
+{
+	/**
+	 * Returns the number of full port instances whose metrics are aggregated
+	 *
+	 * @return number of full port instances
+	 */
+	int getInstanceCount();
+
+	/**
+	 * Returns the number of signals received by the full ports from peer ports
+	 *
+	 * @return number of messages received
+	 */
+	long getMessagesIn();
+
+	/**
+	 * Returns the number of signals transmitted by the full ports to peer ports
+	 *
+	 * @return number of messages transmitted
+	 */
+	long getMessagesOut();
+
+	/**
+	 * Returns the number of bytes received in UDP datagrams by the full ports
+	 *
+	 * @return number of UDP bytes received
+	 */
+	long getUdpBytesIn();
+
+	/**
+	 * Returns the number of bytes transmitted in UDP datagrams by the full ports
+	 *
+	 * @return number of UDP bytes transmitted
+	 */
+	long getUdpBytesOut();
+
+	/**
+	 * Returns the number of errors, i.e. exceptions and unrecognized objects,
+	 * encountered in the reception and transmission of UDP datagrams by the full
+	 * ports
+	 *
+	 * @return number of UDP errors
+	 */
+	long getUdpErrors();
+
+	/**
+	 * Clears the counters of the metrics
+	 */
+	void reset();
+}
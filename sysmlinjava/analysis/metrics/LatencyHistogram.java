@@ -0,0 +1,261 @@
+package sysmlinjava.analysis.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram of durations (latencies) recorded in nanoseconds.
+ * <h2>Log-linear buckets</h2> The {@code LatencyHistogram} counts recorded
+ * durations in a fixed array of log-linear buckets, i.e. each power-of-two
+ * range of nanoseconds is divided into 8 equal sub-buckets. Percentiles derived
+ * from the buckets are therefore within 12.5% of the actual recorded value over
+ * the entire range of a {@code long} nanosecond value, while the histogram
+ * occupies a fixed and small amount of memory regardless of the number of
+ * durations recorded.
+ * <h3>Low overhead recording</h3> Recording a duration consists of computing
+ * the bucket index from the leading zeros of the value and atomically
+ * incrementing the bucket's count. The total of all durations is accumulated in
+ * a striped {@code LongAdder}. No locks are used, so the histogram can be
+ * recorded from any number of threads concurrently and is intended to be always
+ * on, i.e. recorded for every transition, constraint evaluation, etc. of an
+ * executing model.
+ *
+ * @author ModelerOne
+ *
+ * @see SysMLMetrics
+ */
+public class LatencyHistogram implements LatencyHistogramMBean
+{
+	/**
+	 * Number of sub-buckets per power-of-two range of values, expressed as a power
+	 * of two
+	 */
+	private static final int subBucketBits = 3;
+	/**
+	 * Number of sub-buckets per power-of-two range of values
+	 */
+	private static final int subBucketCount = 1 << subBucketBits;
+	/**
+	 * Total number of buckets needed to cover all positive {@code long} values
+	 */
+	private static final int bucketCount = (64 - subBucketBits) * subBucketCount;
+
+	/**
+	 * Counts of recorded durations in each of the buckets
+	 */
+	private final AtomicLongArray counts;
+	/**
+	 * Total number of recorded durations
+	 */
+	private final LongAdder count;
+	/**
+	 * Sum of all recorded durations, nanoseconds
+	 */
+	private final LongAdder sumNanos;
+	/**
+	 * Maximum of all recorded durations, nanoseconds
+	 */
+	private final AtomicLong maxNanos;
+
+	/**
+	 * Constructor - initializes an empty histogram
+	 */
+	public LatencyHistogram()
+	{
+		super();
+		counts = new AtomicLongArray(bucketCount);
+		count = new LongAdder();
+		sumNanos = new LongAdder();
+		maxNanos = new AtomicLong();
+	}
+
+	/**
+	 * Records the specified duration in the histogram. Negative durations are
+	 * recorded as zero.
+	 *
+	 * @param nanos duration to be recorded, nanoseconds
+	 */
+	public void record(long nanos)
+	{
+		long value = nanos < 0 ? 0 : nanos;
+		counts.incrementAndGet(bucketIndexOf(value));
+		count.increment();
+		sumNanos.add(value);
+		if (value > maxNanos.get())
+			maxNanos.accumulateAndGet(value, Math::max);
+	}
+
+	/**
+	 * Records the duration from the specified start time to the current time of
+	 * {@code System.nanoTime()}
+	 *
+	 * @param startNanos start time as previously obtained from
+	 *                   {@code System.nanoTime()}
+	 */
+	public void recordSince(long startNanos)
+	{
+		record(System.nanoTime() - startNanos);
+	}
+
+	/**
+	 * Returns the duration at the specified percentile of the recorded durations.
+	 * The value returned is the midpoint of the bucket in which the percentile
+	 * falls, or the maximum if the percentile falls in the highest occupied
+	 * bucket.
+	 *
+	 * @param percentile percentile, 0.0 to 100.0, of the duration to be returned
+	 * @return duration at the percentile, nanoseconds, or 0 if no durations have
+	 *         been recorded
+	 */
+	public long percentileNanos(double percentile)
+	{
+		long total = 0;
+		long[] snapshot = new long[bucketCount];
+		for (int i = 0; i < bucketCount; i++)
+		{
+			snapshot[i] = counts.get(i);
+			total += snapshot[i];
+		}
+		long result = 0;
+		if (total > 0)
+		{
+			long rank = (long)Math.ceil(Math.min(100.0, Math.max(0.0, percentile)) / 100.0 * total);
+			if (rank < 1)
+				rank = 1;
+			long cumulative = 0;
+			boolean found = false;
+			for (int i = 0; i < bucketCount && !found; i++)
+			{
+				cumulative += snapshot[i];
+				if (cumulative >= rank)
+				{
+					found = true;
+					result = cumulative == total ? maxNanos.get() : Math.min(midpointOf(i), maxNanos.get());
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the mean of the recorded durations
+	 *
+	 * @return mean duration, nanoseconds, or 0 if no durations have been recorded
+	 */
+	public double meanNanos()
+	{
+		long n = count.sum();
+		return n > 0 ? (double)sumNanos.sum() / n : 0.0;
+	}
+
+	/**
+	 * Returns the maximum of the recorded durations
+	 *
+	 * @return maximum duration, nanoseconds
+	 */
+	public long maxNanos()
+	{
+		return maxNanos.get();
+	}
+
+	@Override
+	public long getCount()
+	{
+		return count.sum();
+	}
+
+	@Override
+	public double getMeanMicros()
+	{
+		return meanNanos() / 1_000.0;
+	}
+
+	@Override
+	public double getP50Micros()
+	{
+		return percentileNanos(50.0) / 1_000.0;
+	}
+
+	@Override
+	public double getP90Micros()
+	{
+		return percentileNanos(90.0) / 1_000.0;
+	}
+
+	@Override
+	public double getP99Micros()
+	{
+		return percentileNanos(99.0) / 1_000.0;
+	}
+
+	@Override
+	public double getP999Micros()
+	{
+		return percentileNanos(99.9) / 1_000.0;
+	}
+
+	@Override
+	public double getMaxMicros()
+	{
+		return maxNanos.get() / 1_000.0;
+	}
+
+	@Override
+	public void reset()
+	{
+		for (int i = 0; i < bucketCount; i++)
+			counts.set(i, 0);
+		count.reset();
+		sumNanos.reset();
+		maxNanos.set(0);
+	}
+
+	/**
+	 * Returns the index of the bucket in which the specified value is counted
+	 *
+	 * @param value non-negative value whose bucket index is to be returned
+	 * @return index of the value's bucket
+	 */
+	private static int bucketIndexOf(long value)
+	{
+		int result;
+		if (value < subBucketCount)
+			result = (int)value;
+		else
+		{
+			int exponent = 63 - Long.numberOfLeadingZeros(value);
+			int subBucket = (int)(value >>> (exponent - subBucketBits)) & (subBucketCount - 1);
+			result = (exponent - subBucketBits + 1) * subBucketCount + subBucket;
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the midpoint of the range of values counted in the specified bucket
+	 *
+	 * @param index index of the bucket
+	 * @return midpoint of the bucket's range of values
+	 */
+	private static long midpointOf(int index)
+	{
+		long result;
+		if (index < subBucketCount)
+			result = index;
+		else
+		{
+			int exponent = index / subBucketCount + subBucketBits - 1;
+			int subBucket = index % subBucketCount;
+			long width = 1L << (exponent - subBucketBits);
+			long lower = (long)(subBucketCount + subBucket) << (exponent - subBucketBits);
+			result = lower + width / 2;
+		}
+		return result;
+	}
+
+	@Override
+	public String toString()
+	{
+		return String.format("LatencyHistogram [count=%d, meanMicros=%.1f, p50Micros=%.1f, p99Micros=%.1f, maxMicros=%.1f]", getCount(), getMeanMicros(), getP50Micros(), getP99Micros(), getMaxMicros());
+	}
+}
@@ -0,0 +1,67 @@
+package sysmlinjava.analysis.metrics;
+
+/**
+ * JMX management interface for the {@code LatencyHistogram}. The attributes
+ * summarize the recorded durations as a count, a mean, a maximum, and a set of
+ * percentiles, all in microseconds.
+ *
+ * @author ModelerOne
+ *
+ * @see LatencyHistogram
+ */
+public interface LatencyHistogramMBean
+{
+	/**
+	 * Returns the number of durations recorded by the histogram
+	 *
+	 * @return number of recorded durations
+	 */
+	long getCount();
+
+	/**
+	 * Returns the mean of the recorded durations
+	 *
+	 * @return mean duration in microseconds
+	 */
+	double getMeanMicros();
+
+	/**
+	 * Returns the 50th percentile (median) of the recorded durations
+	 *
+	 * @return median duration in microseconds
+	 */
+	double getP50Micros();
+
+	/**
+	 * Returns the 90th percentile of the recorded durations
+	 *
+	 * @return 90th percentile duration in microseconds
+	 */
+	double getP90Micros();
+
+	/**
+	 * Returns the 99th percentile of the recorded durations
+	 *
+	 * @return 99th percentile duration in microseconds
+	 */
+	double getP99Micros();
+
+	/**
+	 * Returns the 99.9th percentile of the recorded durations
+	 *
+	 * @return 99.9th percentile duration in microseconds
+	 */
+	double getP999Micros();
+
+	/**
+	 * Returns the maximum of the recorded durations
+	 *
+	 * @return maximum duration in microseconds
+	 */
+	double getMaxMicros();
+
+	/**
+	 * Clears all recorded durations from the histogram
+	 */
+	void reset();
+}
@@ -0,0 +1,124 @@
+package sysmlinjava.analysis.metrics;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import sysmlinjava.statemachine.SysMLStateMachineInstance;
+
+/**
+ * Metrics of the {@code SysMLStateMachineInstance}s of a
+ * {@code SysMLStateMachineDefinition} in a type of block in a model. As for the
+ * {@code StateMachineMetrics}, the events received and processed by all the
+ * instances are counted in striped {@code LongAdder}s and the duration of every
+ * transition they perform is recorded in a {@code LatencyHistogram}, and the
+ * queue depths and current states are gauges that are read from the instances
+ * at the time the attributes are read.
+ * <p>
+ * The metrics are registered under the {@code StateMachineInstance} type, with
+ * the name of the definition as the element name, so that they are
+ * distinguished from the metrics of the prototype {@code SysMLStateMachine} from
+ * which the definition was compiled.
+ *
+ * @author ModelerOne
+ *
+ * @see SysMLMetrics#forStateMachineInstance(SysMLStateMachineInstance)
+ */
+public class StateMachineInstanceMetrics extends ElementMetrics<SysMLStateMachineInstance> implements StateMachineInstanceMetricsMBean
+{
+	/**
+	 * Counter of events received, i.e. submitted to the instances
+	 */
+	public final LongAdder eventsReceived;
+	/**
+	 * Counter of events processed by the instances
+	 */
+	public final LongAdder eventsProcessed;
+	/**
+	 * Histogram of the durations of transitions performed by the instances,
+	 * including exit, effect, and entry activities
+	 */
+	public final LatencyHistogram transitionLatency;
+
+	/**
+	 * Constructor
+	 *
+	 * @param modelName       name of the model root in which the instances reside
+	 * @param blockTypeName   name of the type of context block of the instances
+	 * @param elementTypeName name of the definition of the instances
+	 */
+	public StateMachineInstanceMetrics(String modelName, String blockTypeName, String elementTypeName)
+	{
+		super(modelName, kindName, blockTypeName, elementTypeName);
+		eventsReceived = new LongAdder();
+		eventsProcessed = new LongAdder();
+		transitionLatency = new LatencyHistogram();
+	}
+
+	@Override
+	public long getEventsReceived()
+	{
+		return eventsReceived.sum();
+	}
+
+	@Override
+	public long getEventsProcessed()
+	{
+		return eventsProcessed.sum();
+	}
+
+	@Override
+	public int getQueueDepth()
+	{
+		int result = 0;
+		for (SysMLStateMachineInstance instance : instances())
+			result += instance.queueDepth();
+		return result;
+	}
+
+	@Override
+	public int getMaxQueueDepth()
+	{
+		int result = 0;
+		for (SysMLStateMachineInstance instance : instances())
+			result = Math.max(result, instance.queueDepth());
+		return result;
+	}
+
+	@Override
+	public String[] getCurrentStates()
+	{
+		List<SysMLStateMachineInstance> instances = instances();
+		String[] result = new String[instances.size()];
+		for (int i = 0; i < result.length; i++)
+		{
+			SysMLStateMachineInstance instance = instances.get(i);
+			result[i] = instance.identityString() + ": " + instance.currentState().orElse("none");
+		}
+		return result;
+	}
+
+	@Override
+	public long getTransitionCount()
+	{
+		return transitionLatency.getCount();
+	}
+
+	@Override
+	public void reset()
+	{
+		eventsReceived.reset();
+		eventsProcessed.reset();
+		transitionLatency.reset();
+	}
+
+	@Override
+	public Map<String, LatencyHistogram> histograms()
+	{
+		return Map.of("transitionLatency", transitionLatency);
+	}
+
+	/**
+	 * Kind of element, i.e. value of the {@code type} key of the JMX object name
+	 */
+	public static final String kindName = "StateMachineInstance";
+}
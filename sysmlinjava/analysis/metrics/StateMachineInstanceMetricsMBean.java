@@ -0,0 +1,73 @@
+package sysmlinjava.analysis.metrics;
+
+/**
+ * JMX management interface for the {@code StateMachineInstanceMetrics}. The
+ * attributes are aggregated over all instances of a
+ * {@code SysMLStateMachineDefinition} in a type of block in a model. The
+ * transition latency histogram is registered as a separate
+ * {@code LatencyHistogramMBean}.
+ *
+ * @author ModelerOne
+ *
+ * @see StateMachineInstanceMetrics
+ */
+public interface StateMachineInstanceMetricsMBean
+{
+	/**
+	 * Returns the number of state machine instances whose metrics are aggregated
+	 *
+	 * @return number of state machine instances
+	 */
+	int getInstanceCount();
+
+	/**
+	 * Returns the number of events received, i.e. submitted to the state machine
+	 * instances for processing
+	 *
+	 * @return number of events received
+	 */
+	long getEventsReceived();
+
+	/**
+	 * Returns the number of events processed by the state machine instances
+	 *
+	 * @return number of events processed
+	 */
+	long getEventsProcessed();
+
+	/**
+	 * Returns the total number of events currently waiting in the instances'
+	 * event queues
+	 *
+	 * @return current total queue depth
+	 */
+	int getQueueDepth();
+
+	/**
+	 * Returns the maximum number of events currently waiting in any one of the
+	 * instances' event queues
+	 *
+	 * @return current maximum queue depth
+	 */
+	int getMaxQueueDepth();
+
+	/**
+	 * Returns the current states of the instances, one entry per instance in the
+	 * form {@code "contextBlock: state"}
+	 *
+	 * @return array of current states
+	 */
+	String[] getCurrentStates();
+
+	/**
+	 * Returns the number of transitions performed by the instances
+	 *
+	 * @return number of transitions performed
+	 */
+	long getTransitionCount();
+
+	/**
+	 * Clears the counters and histogram of the metrics
+	 */
+	void reset();
+}
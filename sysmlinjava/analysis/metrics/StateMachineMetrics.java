@@ -0,0 +1,125 @@
+package sysmlinjava.analysis.metrics;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import sysmlinjava.statemachine.SysMLStateMachine;
+
+/**
+ * Metrics of a type of {@code SysMLStateMachine} in a model. The
+ * {@code StateMachineMetrics} counts the events received and processed by all
+ * instances of the state machine type in striped {@code LongAdder}s and records
+ * the duration of every transition performed by the state machines in a
+ * {@code LatencyHistogram}. Queue depths and current states are gauges that are
+ * read from the state machine instances at the time the attributes are read.
+ * <p>
+ * The {@code SysMLStateMachine} obtains its {@code StateMachineMetrics} from the
+ * {@code SysMLMetrics} registry and records its events and transitions
+ * directly, i.e. recording is always on and consists only of non-blocking
+ * increments.
+ *
+ * @author ModelerOne
+ *
+ * @see SysMLMetrics#forStateMachine(SysMLStateMachine)
+ */
+public class StateMachineMetrics extends ElementMetrics<SysMLStateMachine> implements StateMachineMetricsMBean
+{
+	/**
+	 * Counter of events received, i.e. submitted to the state machines
+	 */
+	public final LongAdder eventsReceived;
+	/**
+	 * Counter of events processed by the state machines' event handlers
+	 */
+	public final LongAdder eventsProcessed;
+	/**
+	 * Histogram of the durations of transitions performed by the state machines,
+	 * including exit, effect, and entry activities
+	 */
+	public final LatencyHistogram transitionLatency;
+
+	/**
+	 * Constructor
+	 * 
+	 * @param modelName       name of the model root in which the state machines
+	 *                        reside
+	 * @param blockTypeName   name of the type of context block of the state
+	 *                        machines
+	 * @param elementTypeName name of the type of state machine
+	 */
+	public StateMachineMetrics(String modelName, String blockTypeName, String elementTypeName)
+	{
+		super(modelName, kindName, blockTypeName, elementTypeName);
+		eventsReceived = new LongAdder();
+		eventsProcessed = new LongAdder();
+		transitionLatency = new LatencyHistogram();
+	}
+
+	@Override
+	public long getEventsReceived()
+	{
+		return eventsReceived.sum();
+	}
+
+	@Override
+	public long getEventsProcessed()
+	{
+		return eventsProcessed.sum();
+	}
+
+	@Override
+	public int getQueueDepth()
+	{
+		int result = 0;
+		for (SysMLStateMachine stateMachine : instances())
+			result += stateMachine.queueDepth();
+		return result;
+	}
+
+	@Override
+	public int getMaxQueueDepth()
+	{
+		int result = 0;
+		for (SysMLStateMachine stateMachine : instances())
+			result = Math.max(result, stateMachine.queueDepth());
+		return result;
+	}
+
+	@Override
+	public String[] getCurrentStates()
+	{
+		List<SysMLStateMachine> stateMachines = instances();
+		String[] result = new String[stateMachines.size()];
+		for (int i = 0; i < result.length; i++)
+		{
+			SysMLStateMachine stateMachine = stateMachines.get(i);
+			result[i] = stateMachine.identityString() + ": " + stateMachine.currentState.map(state -> state.identityString()).orElse("none");
+		}
+		return result;
+	}
+
+	@Override
+	public long getTransitionCount()
+	{
+		return transitionLatency.getCount();
+	}
+
+	@Override
+	public void reset()
+	{
+		eventsReceived.reset();
+		eventsProcessed.reset();
+		transitionLatency.reset();
+	}
+
+	@Override
+	public Map<String, LatencyHistogram> histograms()
+	{
+		return Map.of("transitionLatency", transitionLatency);
+	}
+
+	/**
+	 * Kind of element, i.e. value of the {@code type} key of the JMX object name
+	 */
+	public static final String kindName = "StateMachine";
+}
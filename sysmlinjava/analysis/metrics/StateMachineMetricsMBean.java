@@ -0,0 +1,72 @@
+package sysmlinjava.analysis.metrics;
+
+/**
+ * JMX management interface for the {@code StateMachineMetrics}. The attributes
+ * are aggregated over all instances of a type of state machine in a model. The
+ * transition latency histogram is registered as a separate
+ * {@code LatencyHistogramMBean}.
+ *
+ * @author ModelerOne
+ *
+ * @see StateMachineMetrics
+ */
+public interface StateMachineMetricsMBean
+{
+	/**
+	 * Returns the number of state machine instances whose metrics are aggregated
+	 *
+	 * @return number of state machine instances
+	 */
+	int getInstanceCount();
+
+	/**
+	 * Returns the number of events received, i.e. submitted to the state machines
+	 * for processing
+	 *
+	 * @return number of events received
+	 */
+	long getEventsReceived();
+
+	/**
+	 * Returns the number of events processed by the state machines' event handlers
+	 *
+	 * @return number of events processed
+	 */
+	long getEventsProcessed();
+
+	/**
+	 * Returns the total number of events currently waiting in the state machines'
+	 * event queues
+	 *
+	 * @return current total queue depth
+	 */
+	int getQueueDepth();
+
+	/**
+	 * Returns the maximum number of events currently waiting in any one of the
+	 * state machines' event queues
+	 *
+	 * @return current maximum queue depth
+	 */
+	int getMaxQueueDepth();
+
+	/**
+	 * Returns the current states of the state machines, one entry per state
+	 * machine instance in the form {@code "stateMachine: state"}
+	 *
+	 * @return array of current states
+	 */
+	String[] getCurrentStates();
+
+	/**
+	 * Returns the number of transitions performed by the state machines
+	 *
+	 * @return number of transitions performed
+	 */
+	long getTransitionCount();
+
+	/**
+	 * Clears the counters and histogram of the metrics
+	 */
+	void reset();
+}
@@ -0,0 +1,367 @@
+package sysmlinjava.analysis.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import sysmlinjava.blocks.SysMLBlock;
+import sysmlinjava.constraintblocks.SysMLConstraintBlock;
+import sysmlinjava.ports.SysMLFullPort;
+import sysmlinjava.statemachine.SysMLStateMachine;
+import sysmlinjava.statemachine.SysMLStateMachineInstance;
+
+/**
+ * Registry of the JMX metrics of executing SysMLinJava models. The
+ * {@code SysMLMetrics} creates and registers with the platform MBean server the
+ * metrics for each type of state machine, state machine instance definition,
+ * full port, constraint block, and timer in each model root, i.e. each top-level block of a model, that
+ * executes in the JVM. The metrics are registered under JMX object names of the
+ * form
+ * 
+ * <pre>
+ * sysmlinjava:model="SystemModel",type=StateMachine,block="Controller",name="ControllerStateMachine"
+ * </pre>
+ * 
+ * with the histograms of the metrics registered under the same name with an
+ * additional {@code histogram} key. The metrics can therefore be viewed with
+ * any JMX client, e.g. JConsole or VisualVM, or exported by a JMX agent while
+ * the model executes without need for a profiler.
+ * <h2>Always on</h2> The metrics are obtained by the SysMLinJava elements
+ * themselves upon their first recording of a metric and are recorded directly
+ * thereafter, i.e. there is no configuration to enable the metrics. The metrics
+ * are aggregated per type of element so the registry grows only with the number
+ * of types of elements in the model, and the recording of the metrics uses only
+ * striped counters and lock-free histograms.
+ * <h3>Model root</h3> The model root of an element is found by following the
+ * chain of context blocks (and parent constraint blocks) from the element to
+ * the top-level block. Constraint blocks that are created without a parent or
+ * context block, as is typical, are attributed to the model named by the
+ * {@code defaultModelName}.
+ *
+ * @author ModelerOne
+ *
+ */
+public final class SysMLMetrics
+{
+	/**
+	 * Logger for the registry
+	 */
+	private static final Logger logger = Logger.getLogger(SysMLMetrics.class.getSimpleName());
+	/**
+	 * Metrics created by the registry, mapped by their JMX object names
+	 */
+	private static final Map<ObjectName, ElementMetrics<?>> metricsByName = new ConcurrentHashMap<>();
+
+	/**
+	 * Name of the model to which elements are attributed if they have no context
+	 * block from which the model root can be found. The name can be set by the
+	 * system property {@code sysmlinjava.metrics.model} or by assignment prior to
+	 * the start of the model's execution.
+	 */
+	public static volatile String defaultModelName = System.getProperty("sysmlinjava.metrics.model", "model");
+
+	/**
+	 * Private constructor, as all operations of the registry are static
+	 */
+	private SysMLMetrics()
+	{
+		super();
+	}
+
+	/**
+	 * Returns the metrics for the type of the specified state machine, creating
+	 * and registering the metrics if this is the first state machine of its type
+	 * in its model, and adds the state machine to the instances whose metrics are
+	 * aggregated.
+	 * 
+	 * @param stateMachine state machine whose metrics are to be returned
+	 * @return the state machine's metrics
+	 */
+	public static StateMachineMetrics forStateMachine(SysMLStateMachine stateMachine)
+	{
+		String modelName = modelNameOf(stateMachine.contextBlock);
+		String blockTypeName = typeNameOf(stateMachine.contextBlock);
+		String elementTypeName = typeNameOf(stateMachine);
+		StateMachineMetrics result = metricsFor(ElementMetrics.objectNameFor(modelName, StateMachineMetrics.kindName, blockTypeName, elementTypeName, ""),
+			() -> new StateMachineMetrics(modelName, blockTypeName, elementTypeName));
+		result.addInstance(stateMachine);
+		return result;
+	}
+
+	/**
+	 * Returns the metrics for the definition of the specified state machine
+	 * instance in the type of its context block, creating and registering the
+	 * metrics if this is the first instance of its definition in its type of
+	 * block in its model, and adds the instance to the instances whose metrics are
+	 * aggregated.
+	 * 
+	 * @param instance state machine instance whose metrics are to be returned
+	 * @return the state machine instance's metrics
+	 */
+	public static StateMachineInstanceMetrics forStateMachineInstance(SysMLStateMachineInstance instance)
+	{
+		String modelName = modelNameOf(instance.contextBlock);
+		String blockTypeName = typeNameOf(instance.contextBlock);
+		String elementTypeName = instance.definition.name;
+		StateMachineInstanceMetrics result = metricsFor(ElementMetrics.objectNameFor(modelName, StateMachineInstanceMetrics.kindName, blockTypeName, elementTypeName, ""),
+			() -> new StateMachineInstanceMetrics(modelName, blockTypeName, elementTypeName));
+		result.addInstance(instance);
+		return result;
+	}
+
+	/**
+	 * Returns the metrics for the type of the specified full port, creating and
+	 * registering the metrics if this is the first full port of its type in its
+	 * type of block, and adds the full port to the instances whose metrics are
+	 * aggregated.
+	 * 
+	 * @param fullPort full port whose metrics are to be returned
+	 * @return the full port's metrics
+	 */
+	public static FullPortMetrics forFullPort(SysMLFullPort fullPort)
+	{
+		String modelName = modelNameOf(fullPort.contextBlock);
+		String blockTypeName = typeNameOf(fullPort.contextBlock);
+		String elementTypeName = typeNameOf(fullPort);
+		FullPortMetrics result = metricsFor(ElementMetrics.objectNameFor(modelName, FullPortMetrics.kindName, blockTypeName, elementTypeName, ""),
+			() -> new FullPortMetrics(modelName, blockTypeName, elementTypeName));
+		result.addInstance(fullPort);
+		return result;
+	}
+
+	/**
+	 * Returns the metrics for the type of the specified constraint block, creating
+	 * and registering the metrics if this is the first constraint block of its
+	 * type in its model, and adds the constraint block to the instances whose
+	 * metrics are aggregated.
+	 * 
+	 * @param constraintBlock constraint block whose metrics are to be returned
+	 * @return the constraint block's metrics
+	 */
+	public static ConstraintBlockMetrics forConstraintBlock(SysMLConstraintBlock constraintBlock)
+	{
+		Optional<? extends SysMLBlock> container = constraintBlock.parent.isPresent() ? constraintBlock.parent : constraintBlock.contextBlock;
+		String modelName = modelNameOf(container);
+		String blockTypeName = typeNameOf(container);
+		String elementTypeName = typeNameOf(constraintBlock);
+		ConstraintBlockMetrics result = metricsFor(ElementMetrics.objectNameFor(modelName, ConstraintBlockMetrics.kindName, blockTypeName, elementTypeName, ""),
+			() -> new ConstraintBlockMetrics(modelName, blockTypeName, elementTypeName));
+		result.addInstance(constraintBlock);
+		return result;
+	}
+
+	/**
+	 * Returns the metrics for the timers with the specified ID in the type of the
+	 * specified state machine, creating and registering the metrics if this is the
+	 * first such timer in its model.
+	 * 
+	 * @param stateMachine state machine that owns the timer
+	 * @param timerID      ID of the timer
+	 * @return the timer's metrics
+	 */
+	public static TimerMetrics forTimer(SysMLStateMachine stateMachine, String timerID)
+	{
+		String modelName = modelNameOf(stateMachine.contextBlock);
+		String blockTypeName = typeNameOf(stateMachine.contextBlock);
+		String elementTypeName = typeNameOf(stateMachine);
+		TimerMetrics result = metricsFor(ElementMetrics.objectNameFor(modelName, TimerMetrics.kindName, blockTypeName, elementTypeName, ",timer=" + ObjectName.quote(timerID)),
+			() -> new TimerMetrics(modelName, blockTypeName, elementTypeName, timerID));
+		result.addInstance(stateMachine);
+		return result;
+	}
+
+	/**
+	 * Returns the model root of the specified block, i.e. the top-level block
+	 * found by following the chain of parent constraint blocks and context blocks
+	 * from the specified block
+	 * 
+	 * @param block block whose model root is to be returned
+	 * @return the model root, which is the block itself if it has no parent or
+	 *         context block
+	 */
+	public static SysMLBlock modelRootOf(SysMLBlock block)
+	{
+		SysMLBlock result = block;
+		boolean done = false;
+		while (!done)
+		{
+			if (result instanceof SysMLConstraintBlock && ((SysMLConstraintBlock)result).parent.isPresent())
+				result = ((SysMLConstraintBlock)result).parent.get();
+			else if (result.contextBlock.isPresent())
+				result = result.contextBlock.get();
+			else
+				done = true;
+		}
+		return result;
+	}
+
+	/**
+	 * Returns a list of all the metrics created by the registry
+	 * 
+	 * @return list of metrics
+	 */
+	public static List<ElementMetrics<?>> allMetrics()
+	{
+		return new ArrayList<>(metricsByName.values());
+	}
+
+	/**
+	 * Returns a list of all the state machine metrics created by the registry
+	 * 
+	 * @return list of state machine metrics
+	 */
+	public static List<StateMachineMetrics> allStateMachineMetrics()
+	{
+		List<StateMachineMetrics> result = new ArrayList<>();
+		metricsByName.values().forEach(metrics ->
+		{
+			if (metrics instanceof StateMachineMetrics)
+				result.add((StateMachineMetrics)metrics);
+		});
+		return result;
+	}
+
+	/**
+	 * Returns a list of all the state machine instance metrics created by the
+	 * registry
+	 * 
+	 * @return list of state machine instance metrics
+	 */
+	public static List<StateMachineInstanceMetrics> allStateMachineInstanceMetrics()
+	{
+		List<StateMachineInstanceMetrics> result = new ArrayList<>();
+		metricsByName.values().forEach(metrics ->
+		{
+			if (metrics instanceof StateMachineInstanceMetrics)
+				result.add((StateMachineInstanceMetrics)metrics);
+		});
+		return result;
+	}
+
+	/**
+	 * Unregisters and discards all the metrics of the specified model, e.g. upon
+	 * completion of the model's execution
+	 * 
+	 * @param modelName name of the model whose metrics are to be unregistered
+	 */
+	public static void unregisterModel(String modelName)
+	{
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		metricsByName.values().removeIf(metrics ->
+		{
+			boolean result = metrics.modelName.equals(modelName);
+			if (result)
+				try
+				{
+					if (server.isRegistered(metrics.objectName))
+						server.unregisterMBean(metrics.objectName);
+					for (String histogramName : metrics.histograms().keySet())
+					{
+						ObjectName histogramObjectName = metrics.histogramObjectName(histogramName);
+						if (server.isRegistered(histogramObjectName))
+							server.unregisterMBean(histogramObjectName);
+					}
+				} catch (JMException e)
+				{
+					logger.warning("failed to unregister metrics " + metrics.objectName + ": " + e.getMessage());
+				}
+			return result;
+		});
+	}
+
+	/**
+	 * Returns the existing metrics with the specified object name or, if none
+	 * exist, creates the metrics with the specified supplier and registers them
+	 * and their histograms with the platform MBean server
+	 * 
+	 * @param <M>        type of metrics
+	 * @param objectName JMX object name of the metrics
+	 * @param supplier   supplier of new metrics
+	 * @return existing or new metrics
+	 */
+	@SuppressWarnings("unchecked")
+	private static <M extends ElementMetrics<?>> M metricsFor(ObjectName objectName, Supplier<M> supplier)
+	{
+		return (M)metricsByName.computeIfAbsent(objectName, name ->
+		{
+			M metrics = supplier.get();
+			register(metrics);
+			return metrics;
+		});
+	}
+
+	/**
+	 * Registers the specified metrics and their histograms with the platform MBean
+	 * server. Failure to register is logged but otherwise ignored, i.e. the
+	 * metrics continue to be recorded.
+	 * 
+	 * @param metrics metrics to be registered
+	 */
+	private static void register(ElementMetrics<?> metrics)
+	{
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		try
+		{
+			if (!server.isRegistered(metrics.objectName))
+				server.registerMBean(metrics, metrics.objectName);
+			for (Map.Entry<String, LatencyHistogram> histogram : metrics.histograms().entrySet())
+			{
+				ObjectName histogramObjectName = metrics.histogramObjectName(histogram.getKey());
+				if (!server.isRegistered(histogramObjectName))
+					server.registerMBean(histogram.getValue(), histogramObjectName);
+			}
+		} catch (JMException e)
+		{
+			logger.warning("failed to register metrics " + metrics.objectName + ": " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Returns the name of the model root of the specified optional block, or the
+	 * {@code defaultModelName} if the block is not present
+	 * 
+	 * @param block optional block whose model name is to be returned
+	 * @return name of the model
+	 */
+	private static String modelNameOf(Optional<? extends SysMLBlock> block)
+	{
+		return block.isPresent() ? typeNameOf(modelRootOf(block.get())) : defaultModelName;
+	}
+
+	/**
+	 * Returns the name of the type of the specified optional block, or "none" if
+	 * the block is not present
+	 * 
+	 * @param block optional block whose type name is to be returned
+	 * @return name of the block's type
+	 */
+	private static String typeNameOf(Optional<? extends SysMLBlock> block)
+	{
+		return block.isPresent() ? typeNameOf(block.get()) : "none";
+	}
+
+	/**
+	 * Returns the name of the type of the specified object, i.e. the simple name
+	 * of its class or, if the class is anonymous, the full name of its class
+	 * 
+	 * @param object object whose type name is to be returned
+	 * @return name of the object's type
+	 */
+	private static String typeNameOf(Object object)
+	{
+		String result = object.getClass().getSimpleName();
+		return result.isEmpty() ? object.getClass().getName() : result;
+	}
+
+	/**
+	 * Domain of the JMX object names of the metrics
+	 */
+	public static final String domain = "sysmlinjava";
+}
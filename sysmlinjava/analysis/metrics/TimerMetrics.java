@@ -0,0 +1,88 @@
+package sysmlinjava.analysis.metrics;
+
+import java.util.Map;
+import javax.management.ObjectName;
+import sysmlinjava.statemachine.SysMLStateMachine;
+
+/**
+ * Metrics of the timers with the same timer ID in a type of
+ * {@code SysMLStateMachine} in a model. The {@code TimerMetrics} records the
+ * fire lag of every firing of the timers in a {@code LatencyHistogram}, i.e.
+ * the time between the scheduled time of the firing and the time the timer
+ * actually runs in the context block's thread pool. Growing fire lag is an
+ * early indication that the pool of threads is saturated.
+ *
+ * @author ModelerOne
+ *
+ * @see SysMLMetrics#forTimer(SysMLStateMachine, String)
+ */
+public class TimerMetrics extends ElementMetrics<SysMLStateMachine> implements TimerMetricsMBean
+{
+	/**
+	 * ID of the timers whose metrics are aggregated
+	 */
+	public final String timerID;
+	/**
+	 * Histogram of the lag of the timers' firings behind their scheduled times
+	 */
+	public final LatencyHistogram fireLag;
+
+	/**
+	 * Constructor
+	 * 
+	 * @param modelName       name of the model root in which the state machines
+	 *                        reside
+	 * @param blockTypeName   name of the type of context block of the state
+	 *                        machines
+	 * @param elementTypeName name of the type of state machine that owns the
+	 *                        timers
+	 * @param timerID         ID of the timers
+	 */
+	public TimerMetrics(String modelName, String blockTypeName, String elementTypeName, String timerID)
+	{
+		super(modelName, kindName, blockTypeName, elementTypeName, ",timer=" + ObjectName.quote(timerID));
+		this.timerID = timerID;
+		fireLag = new LatencyHistogram();
+	}
+
+	@Override
+	public String getTimerID()
+	{
+		return timerID;
+	}
+
+	@Override
+	public long getFireCount()
+	{
+		return fireLag.getCount();
+	}
+
+	@Override
+	public double getFireLagMeanMicros()
+	{
+		return fireLag.getMeanMicros();
+	}
+
+	@Override
+	public double getFireLagMaxMicros()
+	{
+		return fireLag.getMaxMicros();
+	}
+
+	@Override
+	public void reset()
+	{
+		fireLag.reset();
+	}
+
+	@Override
+	public Map<String, LatencyHistogram> histograms()
+	{
+		return Map.of("fireLag", fireLag);
+	}
+
+	/**
+	 * Kind of element, i.e. value of the {@code type} key of the JMX object name
+	 */
+	public static final String kindName = "Timer";
+}
@@ -0,0 +1,47 @@
+package sysmlinjava.analysis.metrics;
+
+/**
+ * JMX management interface for the {@code TimerMetrics}. The attributes are
+ * aggregated over all timers with the same timer ID in all instances of a type
+ * of state machine in a model. The fire lag histogram is registered as a
+ * separate {@code LatencyHistogramMBean}.
+ *
+ * @author ModelerOne
+ *
+ * @see TimerMetrics
+ */
+public interface TimerMetricsMBean
+{
+	/**
+	 * Returns the ID of the timers whose metrics are aggregated
+	 *
+	 * @return timer ID
+	 */
+	String getTimerID();
+
+	/**
+	 * Returns the number of times the timers have fired
+	 *
+	 * @return number of firings
+	 */
+	long getFireCount();
+
+	/**
+	 * Returns the mean lag of the timers' firings behind their scheduled times
+	 *
+	 * @return mean fire lag in microseconds
+	 */
+	double getFireLagMeanMicros();
+
+	/**
+	 * Returns the maximum lag of the timers' firings behind their scheduled times
+	 *
+	 * @return maximum fire lag in microseconds
+	 */
+	double getFireLagMaxMicros();
+
+	/**
+	 * Clears the histogram of the metrics
+	 */
+	void reset();
+}
@@ -0,0 +1,7 @@
+/**
+ * Contains classes that register and record always-on JMX metrics of executing
+ * SysMLinJava models, i.e. event counts, queue depths, current states, and
+ * transition latencies of state machines, message and UDP counts of full ports,
+ * durations of constraint block evaluations, and fire lags of timers.
+ */
+package sysmlinjava.analysis.metrics;
@@ -0,0 +1,121 @@
+package sysmlinjava.analysis.sensitivity;
+
+import java.util.Random;
+
+/**
+ * Saltelli sample of the uncertain inputs of a {@code SensitivityAnalysis},
+ * i.e. the probabilities of the values of the inputs of the evaluations from
+ * which the Sobol indices are estimated.
+ * <h2>Matrices</h2> The sample consists of two independent matrices, A and B,
+ * of {@code sampleCount} rows of the probabilities of the {@code inputCount}
+ * inputs, each a Latin hypercube, i.e. the probabilities of each input are
+ * stratified into {@code sampleCount} equal strata, each sampled once. For each
+ * input i, the matrix AB<sub>i</sub> is matrix A with its column i taken from
+ * matrix B. The model is evaluated for each row of A, B, and each
+ * AB<sub>i</sub>, i.e. {@code sampleCount * (inputCount + 2)} evaluations,
+ * numbered matrix after matrix.
+ *
+ * @author ModelerOne
+ *
+ * @see SensitivityAnalysis
+ */
+public final class SaltelliSample
+{
+	/**
+	 * Number of rows of each matrix
+	 */
+	public final int sampleCount;
+	/**
+	 * Number of inputs, i.e. columns of each matrix
+	 */
+	public final int inputCount;
+	/**
+	 * Probabilities of matrix A, by row
+	 */
+	private final double[][] a;
+	/**
+	 * Probabilities of matrix B, by row
+	 */
+	private final double[][] b;
+
+	/**
+	 * Constructor
+	 *
+	 * @param sampleCount number of rows of each matrix
+	 * @param inputCount  number of inputs
+	 * @param random      generator of the random numbers of the sample
+	 * @throws IllegalArgumentException if there are no rows or inputs
+	 */
+	public SaltelliSample(int sampleCount, int inputCount, Random random)
+	{
+		super();
+		if (sampleCount < 1 || inputCount < 1)
+			throw new IllegalArgumentException("Saltelli sample requires samples and inputs");
+		this.sampleCount = sampleCount;
+		this.inputCount = inputCount;
+		this.a = latinHypercube(sampleCount, inputCount, random);
+		this.b = latinHypercube(sampleCount, inputCount, random);
+	}
+
+	/**
+	 * Returns the number of evaluations of the sample
+	 *
+	 * @return number of rows of the matrices A, B, and each AB<sub>i</sub>
+	 */
+	public long evaluationCount()
+	{
+		return (long)sampleCount * (inputCount + 2);
+	}
+
+	/**
+	 * Returns the probabilities of the inputs of the specified evaluation
+	 *
+	 * @param evaluation number of the evaluation, i.e. the rows of A, then of B,
+	 *                   then of each AB<sub>i</sub> in order of i
+	 * @return copy of the probabilities of the inputs
+	 */
+	public double[] probabilities(long evaluation)
+	{
+		int matrix = (int)(evaluation / sampleCount);
+		int row = (int)(evaluation % sampleCount);
+		double[] result;
+		if (matrix == 1)
+			result = b[row].clone();
+		else
+		{
+			result = a[row].clone();
+			if (matrix > 1)
+				result[matrix - 2] = b[row][matrix - 2];
+		}
+		return result;
+	}
+
+	/**
+	 * Returns a Latin hypercube of probabilities, strictly between 0 and 1
+	 *
+	 * @param sampleCount number of rows
+	 * @param inputCount  number of columns
+	 * @param random      generator of the random numbers
+	 * @return the probabilities, by row
+	 */
+	private static double[][] latinHypercube(int sampleCount, int inputCount, Random random)
+	{
+		double[][] result = new double[sampleCount][inputCount];
+		int[] strata = new int[sampleCount];
+		for (int input = 0; input < inputCount; input++)
+		{
+			for (int i = 0; i < sampleCount; i++)
+				strata[i] = i;
+			for (int i = sampleCount - 1; i > 0; i--)
+			{
+				int j = random.nextInt(i + 1);
+				int stratum = strata[i];
+				strata[i] = strata[j];
+				strata[j] = stratum;
+			}
+			for (int row = 0; row < sampleCount; row++)
+				result[row][input] = Math.max(Double.MIN_NORMAL, (strata[row] + random.nextDouble()) / sampleCount);
+		}
+		return result;
+	}
+}
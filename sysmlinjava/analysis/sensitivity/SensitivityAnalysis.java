@@ -0,0 +1,443 @@
+package sysmlinjava.analysis.sensitivity;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import sysmlinjava.constraintblocks.ParametricNetwork;
+import sysmlinjava.probability.SysMLProbabilityDistribution;
+
+/**
+ * Global variance-based sensitivity analysis of a SysMLinJava model, i.e. the
+ * estimation of the Sobol indices of the outputs of the model, e.g. its
+ * measures of effectiveness, with respect to its uncertain inputs.
+ * <h2>Declaration</h2> The analysis is declared by
+ * <ul>
+ * <li>a factory of instances of the model, e.g. the constructor of a class that
+ * creates the model's blocks and constraint blocks and binds them to each
+ * other</li>
+ * <li>a function that returns the {@code ParametricNetwork} of a model
+ * instance, i.e. the network of the constraint blocks that calculate the
+ * outputs from the inputs</li>
+ * <li>the {@code UncertainInput}s, i.e. the {@code RReal} and {@code IInteger}
+ * values of the model distributed by {@code SysMLProbabilityDistribution}s</li>
+ * <li>the {@code SensitivityOutput}s, i.e. the values of the model whose
+ * sensitivities are analyzed</li>
+ * </ul>
+ * <h2>Estimation</h2> The model is evaluated for the rows of a
+ * {@code SaltelliSample} of the inputs, whose probabilities are transformed to
+ * values of the inputs by the quantiles of their distributions. For each
+ * output, the first-order index of input i is estimated by the estimator of
+ * Saltelli et al. (2010), the mean of f(B)(f(AB<sub>i</sub>) - f(A)), and the
+ * total-order index by the estimator of Jansen (1999), half the mean of
+ * (f(A) - f(AB<sub>i</sub>))<sup>2</sup>, each divided by the variance of f(A)
+ * and f(B). The confidence intervals of the indices are the percentile
+ * intervals of {@code bootstrapCount} estimates from the rows of the sample
+ * resampled with replacement. Rows for which an evaluation of the output
+ * failed, or was not a number, are excluded from the estimates of the output.
+ * <h3>Parallel batches on reused models</h3> The evaluations are divided into
+ * batches of {@code batchSize} evaluations, which are evaluated concurrently by
+ * the workers of a {@code ForkJoinPool}. Each batch borrows a model instance
+ * that no other batch is using, creating and attaching its parametric network
+ * if there is none idle, and for each of its evaluations sets the inputs in an
+ * {@code update()} of the network, so that only the affected constraint blocks
+ * are evaluated, in the worker's thread, and reads the outputs. The model
+ * instances are thereby reused for all the evaluations, at most one per worker
+ * being created, so that tens of thousands of evaluations are practical, as
+ * follows:
+ *
+ * <pre>
+ * {@code
+ * SensitivityAnalysis<AircraftModel> analysis = new SensitivityAnalysis<>(AircraftModel::new, model -> model.network, inputs, outputs);
+ * analysis.setSeed(1L);
+ * List<SensitivityIndices> indices = analysis.run(4096);
+ * }
+ * </pre>
+ *
+ * @author ModelerOne
+ *
+ * @param <M> type of the model of the analysis
+ *
+ * @see SysMLProbabilityDistribution#quantile(double)
+ * @see ParametricNetwork
+ */
+public class SensitivityAnalysis<M>
+{
+	/**
+	 * Uncertain inputs of the analysis
+	 */
+	public final List<UncertainInput<M>> inputs;
+	/**
+	 * Outputs of the analysis
+	 */
+	public final List<SensitivityOutput<M>> outputs;
+	/**
+	 * Number of workers by which the batches are evaluated concurrently
+	 */
+	public int workerCount;
+	/**
+	 * Number of evaluations of a batch
+	 */
+	public int batchSize;
+	/**
+	 * Number of bootstrap resamples of the confidence intervals
+	 */
+	public int bootstrapCount;
+	/**
+	 * Confidence level of the confidence intervals
+	 */
+	public double confidenceLevel;
+	/**
+	 * Factory of the instances of the model
+	 */
+	private final Supplier<M> modelFactory;
+	/**
+	 * Function that returns the parametric network of a model instance
+	 */
+	private final Function<M, ParametricNetwork> networkOf;
+	/**
+	 * Model instances not being used by a batch
+	 */
+	private final ConcurrentLinkedQueue<M> idleModels;
+	/**
+	 * Number of model instances created
+	 */
+	private final AtomicLong modelCount;
+	/**
+	 * Number of evaluations of the model
+	 */
+	private final AtomicLong evaluationCount;
+	/**
+	 * Random number generator of the samples and bootstrap resamples
+	 */
+	private Random random;
+
+	/**
+	 * Constructor
+	 *
+	 * @param modelFactory factory of the instances of the model
+	 * @param networkOf    function that returns the parametric network of a model
+	 *                     instance
+	 * @param inputs       the uncertain inputs
+	 * @param outputs      the outputs
+	 * @throws IllegalArgumentException if there are no inputs or outputs
+	 */
+	public SensitivityAnalysis(Supplier<M> modelFactory, Function<M, ParametricNetwork> networkOf, List<UncertainInput<M>> inputs, List<SensitivityOutput<M>> outputs)
+	{
+		super();
+		if (inputs.isEmpty() || outputs.isEmpty())
+			throw new IllegalArgumentException("sensitivity analysis requires inputs and outputs");
+		this.inputs = List.copyOf(inputs);
+		this.outputs = List.copyOf(outputs);
+		this.workerCount = Runtime.getRuntime().availableProcessors();
+		this.batchSize = 256;
+		this.bootstrapCount = 1000;
+		this.confidenceLevel = 0.95;
+		this.modelFactory = modelFactory;
+		this.networkOf = networkOf;
+		this.idleModels = new ConcurrentLinkedQueue<>();
+		this.modelCount = new AtomicLong();
+		this.evaluationCount = new AtomicLong();
+		this.random = new Random();
+	}
+
+	/**
+	 * Sets the seed of the random number generator of the samples and bootstrap
+	 * resamples, so that the analysis is repeatable
+	 *
+	 * @param seed the seed
+	 */
+	public synchronized void setSeed(long seed)
+	{
+		random = new Random(seed);
+	}
+
+	/**
+	 * Runs the analysis for a Saltelli sample of the specified number of rows,
+	 * i.e. {@code sampleCount * (inputs + 2)} evaluations of the model
+	 *
+	 * @param sampleCount number of rows of the matrices of the sample
+	 * @return the Sobol indices of each output, in the order of the outputs
+	 * @throws IllegalArgumentException if an input has no distribution
+	 */
+	public synchronized List<SensitivityIndices> run(int sampleCount)
+	{
+		M prototype = borrowModel();
+		List<SysMLProbabilityDistribution> distributions = inputs.stream().map(input -> input.distributionOf(prototype)).collect(Collectors.toList());
+		idleModels.add(prototype);
+		SaltelliSample sample = new SaltelliSample(sampleCount, inputs.size(), random);
+		double[][] values = evaluate(sample, distributions);
+		List<SensitivityIndices> result = new ArrayList<>(outputs.size());
+		for (int o = 0; o < outputs.size(); o++)
+			result.add(indices(outputs.get(o).name, values[o], sampleCount));
+		return result;
+	}
+
+	/**
+	 * Returns the number of evaluations of the model
+	 *
+	 * @return number of evaluations
+	 */
+	public long evaluationCount()
+	{
+		return evaluationCount.get();
+	}
+
+	/**
+	 * Returns the number of model instances created, at most the number of
+	 * workers
+	 *
+	 * @return number of model instances
+	 */
+	public long modelCount()
+	{
+		return modelCount.get();
+	}
+
+	/**
+	 * Evaluates the model for the evaluations of the specified sample, in batches
+	 * by the workers of a pool
+	 *
+	 * @param sample        the sample
+	 * @param distributions distributions of the inputs
+	 * @return values of each output, by evaluation, NaN if the evaluation failed
+	 */
+	private double[][] evaluate(SaltelliSample sample, List<SysMLProbabilityDistribution> distributions)
+	{
+		if (sample.evaluationCount() > Integer.MAX_VALUE)
+			throw new IllegalArgumentException("sensitivity analysis has too many evaluations: " + sample.evaluationCount());
+		int evaluations = (int)sample.evaluationCount();
+		double[][] result = new double[outputs.size()][evaluations];
+		int size = Math.max(1, batchSize);
+		List<Callable<Void>> batches = new ArrayList<>();
+		for (int first = 0; first < evaluations; first += size)
+		{
+			int from = first;
+			int to = Math.min(evaluations, first + size);
+			batches.add(() ->
+			{
+				evaluate(sample, distributions, from, to, result);
+				return null;
+			});
+		}
+		ForkJoinPool pool = new ForkJoinPool(Math.max(1, workerCount));
+		try
+		{
+			for (Future<Void> future : pool.invokeAll(batches))
+				future.get();
+		} catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("sensitivity analysis interrupted", e);
+		} catch (ExecutionException e)
+		{
+			throw new IllegalStateException("sensitivity analysis batch failed", e.getCause());
+		} finally
+		{
+			pool.shutdown();
+		}
+		return result;
+	}
+
+	/**
+	 * Evaluates the model for the specified range of evaluations of the sample on
+	 * an idle model instance
+	 *
+	 * @param sample        the sample
+	 * @param distributions distributions of the inputs
+	 * @param from          number of the first evaluation of the range
+	 * @param to            number of the evaluation after the range
+	 * @param values        values of each output, by evaluation, set for the range
+	 */
+	private void evaluate(SaltelliSample sample, List<SysMLProbabilityDistribution> distributions, int from, int to, double[][] values)
+	{
+		M model = borrowModel();
+		ParametricNetwork network = networkOf.apply(model);
+		try
+		{
+			for (int evaluation = from; evaluation < to; evaluation++)
+			{
+				double[] probabilities = sample.probabilities(evaluation);
+				try
+				{
+					network.update(() ->
+					{
+						for (int i = 0; i < probabilities.length; i++)
+							inputs.get(i).apply(model, distributions.get(i).quantile(probabilities[i]));
+					});
+					for (int o = 0; o < outputs.size(); o++)
+						values[o][evaluation] = outputs.get(o).value(model);
+				} catch (RuntimeException e)
+				{
+					logger.warning("sensitivity analysis evaluation failed, excluded: " + e);
+					for (int o = 0; o < outputs.size(); o++)
+						values[o][evaluation] = Double.NaN;
+				}
+				evaluationCount.incrementAndGet();
+			}
+		} finally
+		{
+			idleModels.add(model);
+		}
+	}
+
+	/**
+	 * Returns an idle model instance, creating one and attaching its parametric
+	 * network if there is none
+	 *
+	 * @return the model instance, to be returned to the idle instances when no
+	 *         longer used
+	 */
+	private M borrowModel()
+	{
+		M result = idleModels.poll();
+		if (result == null)
+		{
+			result = modelFactory.get();
+			networkOf.apply(result).attach();
+			modelCount.incrementAndGet();
+		}
+		return result;
+	}
+
+	/**
+	 * Estimates the Sobol indices of an output, with their bootstrap confidence
+	 * intervals
+	 *
+	 * @param outputName  name of the output
+	 * @param values      values of the output, by evaluation
+	 * @param sampleCount number of rows of the matrices of the sample
+	 * @return the indices
+	 */
+	private SensitivityIndices indices(String outputName, double[] values, int sampleCount)
+	{
+		int inputCount = inputs.size();
+		int[] rows = new int[sampleCount];
+		int rowCount = 0;
+		for (int row = 0; row < sampleCount; row++)
+		{
+			boolean isNumber = true;
+			for (int matrix = 0; matrix < inputCount + 2; matrix++)
+				isNumber &= Double.isFinite(values[matrix * sampleCount + row]);
+			if (isNumber)
+				rows[rowCount++] = row;
+		}
+		if (rowCount < sampleCount)
+			logger.warning("sensitivity output " + outputName + ": " + (sampleCount - rowCount) + " of " + sampleCount + " rows excluded for failed evaluations");
+		rows = Arrays.copyOf(rows, rowCount);
+		double[] firstOrder = new double[inputCount];
+		double[] totalOrder = new double[inputCount];
+		double variance = estimate(values, sampleCount, rows, firstOrder, totalOrder);
+		int resampleCount = rowCount > 0 ? Math.max(0, bootstrapCount) : 0;
+		double[][] firstOrderEstimates = new double[inputCount][resampleCount];
+		double[][] totalOrderEstimates = new double[inputCount][resampleCount];
+		double[] firstOrderResample = new double[inputCount];
+		double[] totalOrderResample = new double[inputCount];
+		int[] resampled = new int[rowCount];
+		for (int r = 0; r < resampleCount; r++)
+		{
+			for (int i = 0; i < rowCount; i++)
+				resampled[i] = rows[random.nextInt(rowCount)];
+			estimate(values, sampleCount, resampled, firstOrderResample, totalOrderResample);
+			for (int i = 0; i < inputCount; i++)
+			{
+				firstOrderEstimates[i][r] = firstOrderResample[i];
+				totalOrderEstimates[i][r] = totalOrderResample[i];
+			}
+		}
+		double[] firstOrderLower = new double[inputCount];
+		double[] firstOrderUpper = new double[inputCount];
+		double[] totalOrderLower = new double[inputCount];
+		double[] totalOrderUpper = new double[inputCount];
+		for (int i = 0; i < inputCount; i++)
+		{
+			firstOrderLower[i] = percentile(firstOrderEstimates[i], (1.0 - confidenceLevel) / 2.0);
+			firstOrderUpper[i] = percentile(firstOrderEstimates[i], (1.0 + confidenceLevel) / 2.0);
+			totalOrderLower[i] = percentile(totalOrderEstimates[i], (1.0 - confidenceLevel) / 2.0);
+			totalOrderUpper[i] = percentile(totalOrderEstimates[i], (1.0 + confidenceLevel) / 2.0);
+		}
+		List<String> inputNames = inputs.stream().map(input -> input.name).collect(Collectors.toList());
+		return new SensitivityIndices(outputName, inputNames, variance, rowCount, confidenceLevel, firstOrder, firstOrderLower, firstOrderUpper, totalOrder, totalOrderLower, totalOrderUpper);
+	}
+
+	/**
+	 * Estimates the first-order and total-order indices of an output from the
+	 * specified rows of the sample
+	 *
+	 * @param values      values of the output, by evaluation
+	 * @param sampleCount number of rows of the matrices of the sample
+	 * @param rows        the rows, possibly repeated
+	 * @param firstOrder  first-order indices, set by the estimation
+	 * @param totalOrder  total-order indices, set by the estimation
+	 * @return variance of the output, NaN if there are no rows
+	 */
+	private static double estimate(double[] values, int sampleCount, int[] rows, double[] firstOrder, double[] totalOrder)
+	{
+		double sum = 0.0;
+		for (int row : rows)
+			sum += values[row] + values[sampleCount + row];
+		double mean = sum / (2.0 * rows.length);
+		double squares = 0.0;
+		for (int row : rows)
+		{
+			double a = values[row] - mean;
+			double b = values[sampleCount + row] - mean;
+			squares += a * a + b * b;
+		}
+		double variance = rows.length == 0 ? Double.NaN : squares / (2.0 * rows.length - 1.0);
+		for (int i = 0; i < firstOrder.length; i++)
+		{
+			int ab = (i + 2) * sampleCount;
+			double first = 0.0;
+			double total = 0.0;
+			for (int row : rows)
+			{
+				double fA = values[row];
+				double fB = values[sampleCount + row];
+				double fAB = values[ab + row];
+				first += fB * (fAB - fA);
+				total += (fA - fAB) * (fA - fAB);
+			}
+			firstOrder[i] = variance > 0.0 ? first / rows.length / variance : 0.0;
+			totalOrder[i] = variance > 0.0 ? total / (2.0 * rows.length) / variance : 0.0;
+		}
+		return variance;
+	}
+
+	/**
+	 * Returns the specified percentile of the specified estimates, by linear
+	 * interpolation between the nearest ranks
+	 *
+	 * @param estimates  the estimates, which are sorted
+	 * @param percentile the percentile, between 0.0 and 1.0
+	 * @return the percentile, NaN if there are no estimates
+	 */
+	private static double percentile(double[] estimates, double percentile)
+	{
+		double result = Double.NaN;
+		if (estimates.length > 0)
+		{
+			Arrays.sort(estimates);
+			double rank = percentile * (estimates.length - 1);
+			int lower = (int)Math.floor(rank);
+			int upper = Math.min(estimates.length - 1, lower + 1);
+			result = estimates[lower] + (rank - lower) * (estimates[upper] - estimates[lower]);
+		}
+		return result;
+	}
+
+	/**
+	 * Logger for the sensitivity analyses
+	 */
+	private static final Logger logger = Logger.getLogger(SensitivityAnalysis.class.getSimpleName());
+}
@@ -0,0 +1,162 @@
+package sysmlinjava.analysis.sensitivity;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Sobol indices of an output of a {@code SensitivityAnalysis}, i.e. the
+ * fractions of the variance of the output attributable to each uncertain
+ * input.
+ * <h2>Indices</h2> The first-order index of an input is the fraction of the
+ * variance of the output due to the input alone, and the total-order index is
+ * the fraction due to the input including all its interactions with the other
+ * inputs, so that the difference between the two is the fraction due to the
+ * interactions. Inputs whose total-order index is near zero can be fixed at any
+ * value of their distribution without affecting the output. Each index is
+ * accompanied by the bounds of its bootstrap confidence interval of
+ * {@code confidenceLevel}.
+ *
+ * @author ModelerOne
+ *
+ * @see SensitivityAnalysis
+ */
+public final class SensitivityIndices implements Serializable
+{
+	/** Serializable ID*/private static final long serialVersionUID = -4781903366518240417L;
+	/**
+	 * Name of the output
+	 */
+	public final String outputName;
+	/**
+	 * Names of the inputs, in the order of the indices
+	 */
+	public final List<String> inputNames;
+	/**
+	 * Variance of the output
+	 */
+	public final double variance;
+	/**
+	 * Number of rows of the sample whose evaluations of the output were all
+	 * numbers, i.e. from which the indices were estimated
+	 */
+	public final int sampleCount;
+	/**
+	 * Confidence level of the confidence intervals, e.g. 0.95
+	 */
+	public final double confidenceLevel;
+	/**
+	 * First-order indices of the inputs
+	 */
+	public final double[] firstOrder;
+	/**
+	 * Lower bounds of the confidence intervals of the first-order indices
+	 */
+	public final double[] firstOrderLower;
+	/**
+	 * Upper bounds of the confidence intervals of the first-order indices
+	 */
+	public final double[] firstOrderUpper;
+	/**
+	 * Total-order indices of the inputs
+	 */
+	public final double[] totalOrder;
+	/**
+	 * Lower bounds of the confidence intervals of the total-order indices
+	 */
+	public final double[] totalOrderLower;
+	/**
+	 * Upper bounds of the confidence intervals of the total-order indices
+	 */
+	public final double[] totalOrderUpper;
+
+	/**
+	 * Constructor
+	 *
+	 * @param outputName      name of the output
+	 * @param inputNames      names of the inputs
+	 * @param variance        variance of the output
+	 * @param sampleCount     number of rows from which the indices were estimated
+	 * @param confidenceLevel confidence level of the confidence intervals
+	 * @param firstOrder      first-order indices
+	 * @param firstOrderLower lower bounds of the first-order indices
+	 * @param firstOrderUpper upper bounds of the first-order indices
+	 * @param totalOrder      total-order indices
+	 * @param totalOrderLower lower bounds of the total-order indices
+	 * @param totalOrderUpper upper bounds of the total-order indices
+	 */
+	SensitivityIndices(String outputName, List<String> inputNames, double variance, int sampleCount, double confidenceLevel, double[] firstOrder, double[] firstOrderLower, double[] firstOrderUpper, double[] totalOrder, double[] totalOrderLower, double[] totalOrderUpper)
+	{
+		super();
+		this.outputName = outputName;
+		this.inputNames = List.copyOf(inputNames);
+		this.variance = variance;
+		this.sampleCount = sampleCount;
+		this.confidenceLevel = confidenceLevel;
+		this.firstOrder = firstOrder;
+		this.firstOrderLower = firstOrderLower;
+		this.firstOrderUpper = firstOrderUpper;
+		this.totalOrder = totalOrder;
+		this.totalOrderLower = totalOrderLower;
+		this.totalOrderUpper = totalOrderUpper;
+	}
+
+	/**
+	 * Returns the first-order index of the named input
+	 *
+	 * @param inputName name of the input
+	 * @return the index
+	 * @throws IllegalArgumentException if there is no input of the name
+	 */
+	public double firstOrder(String inputName)
+	{
+		return firstOrder[indexOf(inputName)];
+	}
+
+	/**
+	 * Returns the total-order index of the named input
+	 *
+	 * @param inputName name of the input
+	 * @return the index
+	 * @throws IllegalArgumentException if there is no input of the name
+	 */
+	public double totalOrder(String inputName)
+	{
+		return totalOrder[indexOf(inputName)];
+	}
+
+	/**
+	 * Returns the index of the named input
+	 *
+	 * @param inputName name of the input
+	 * @return the index
+	 * @throws IllegalArgumentException if there is no input of the name
+	 */
+	private int indexOf(String inputName)
+	{
+		int result = inputNames.indexOf(inputName);
+		if (result < 0)
+			throw new IllegalArgumentException("no sensitivity input: " + inputName);
+		return result;
+	}
+
+	@Override
+	public String toString()
+	{
+		StringBuilder builder = new StringBuilder();
+		builder.append("SensitivityIndices [outputName=");
+		builder.append(outputName);
+		builder.append(", inputNames=");
+		builder.append(inputNames);
+		builder.append(", variance=");
+		builder.append(variance);
+		builder.append(", sampleCount=");
+		builder.append(sampleCount);
+		builder.append(", firstOrder=");
+		builder.append(Arrays.toString(firstOrder));
+		builder.append(", totalOrder=");
+		builder.append(Arrays.toString(totalOrder));
+		builder.append("]");
+		return builder.toString();
+	}
+}
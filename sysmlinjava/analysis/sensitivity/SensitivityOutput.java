@@ -0,0 +1,89 @@
+package sysmlinjava.analysis.sensitivity;
+
+import java.util.function.Function;
+import sysmlinjava.valuetypes.IInteger;
+import sysmlinjava.valuetypes.RReal;
+import sysmlinjava.valuetypes.SysMLValueType;
+
+/**
+ * Output of a {@code SensitivityAnalysis}, i.e. an {@code RReal} or
+ * {@code IInteger} value of the model, e.g. a measure of effectiveness
+ * calculated by a constraint block, whose sensitivity to the uncertain inputs
+ * is analyzed.
+ * <h2>Access to the value</h2> The output identifies its value by a function
+ * that returns the value of a specified instance of the model, e.g. the
+ * constraint parameter of a constraint block
+ *
+ * <pre>
+ * {@code
+ * SensitivityOutput.of("range", (AircraftModel model) -> model.rangeObjective.constraintParams.get("range"))
+ * }
+ * </pre>
+ *
+ * The value is read once the parametric network of the model instance has
+ * evaluated the sample.
+ *
+ * @author ModelerOne
+ *
+ * @param <M> type of the model of the analysis
+ */
+public final class SensitivityOutput<M>
+{
+	/**
+	 * Name of the output
+	 */
+	public final String name;
+	/**
+	 * Function that returns the value of the output of a model instance
+	 */
+	private final Function<M, ? extends SysMLValueType> value;
+
+	/**
+	 * Constructor
+	 *
+	 * @param name  name of the output
+	 * @param value function that returns the value of the output of a model
+	 *              instance
+	 */
+	private SensitivityOutput(String name, Function<M, ? extends SysMLValueType> value)
+	{
+		super();
+		this.name = name;
+		this.value = value;
+	}
+
+	/**
+	 * Returns an output
+	 *
+	 * @param <M>   type of the model
+	 * @param name  name of the output
+	 * @param value function that returns the {@code RReal} or {@code IInteger}
+	 *              value of the output of a model instance
+	 * @return the output
+	 */
+	public static <M> SensitivityOutput<M> of(String name, Function<M, ? extends SysMLValueType> value)
+	{
+		return new SensitivityOutput<>(name, value);
+	}
+
+	/**
+	 * Returns the value of the output of the specified model instance
+	 *
+	 * @param model the model instance
+	 * @return the value
+	 * @throws IllegalStateException if the value is not an {@code RReal} or
+	 *                               {@code IInteger}
+	 */
+	double value(M model)
+	{
+		SysMLValueType param = value.apply(model);
+		double result;
+		if (param instanceof RReal)
+			result = ((RReal)param).value;
+		else if (param instanceof IInteger)
+			result = ((IInteger)param).value;
+		else
+			throw new IllegalStateException("sensitivity output " + name + ": not an RReal or IInteger value: " + param);
+		return result;
+	}
+}
@@ -0,0 +1,174 @@
+package sysmlinjava.analysis.sensitivity;
+
+import java.util.Optional;
+import java.util.function.Function;
+import sysmlinjava.probability.SysMLProbabilityDistribution;
+import sysmlinjava.valuetypes.IInteger;
+import sysmlinjava.valuetypes.RReal;
+import sysmlinjava.valuetypes.SysMLValueType;
+
+/**
+ * Uncertain input of a {@code SensitivityAnalysis}, i.e. an {@code RReal} or
+ * {@code IInteger} value of the model whose value is a random variable of a
+ * {@code SysMLProbabilityDistribution}.
+ * <h2>Access to the value and its distribution</h2> As each worker of the
+ * analysis evaluates the samples on its own instance of the model, the input
+ * identifies its value by a function that returns the value of a specified
+ * instance of the model, e.g.
+ *
+ * <pre>
+ * {@code
+ * UncertainInput.real("dragCoefficient", (AircraftModel model) -> model.wing.dragCoefficient)
+ * }
+ * </pre>
+ *
+ * By default, the distribution of the input is the
+ * {@code probabilityDistribution} of the value type, as created for the value
+ * of the model, which must then have one. A distribution may instead be
+ * specified for the input. The values of the input are the quantiles of the
+ * distribution of the probabilities of the samples, rounded to the nearest
+ * integer if integer-valued, and are set by the value's {@code setValue()}
+ * operation, so that the value change observers of the value, e.g. the
+ * constraint parameter ports bound to it, are notified of the change.
+ *
+ * @author ModelerOne
+ *
+ * @param <M> type of the model of the analysis
+ *
+ * @see SysMLProbabilityDistribution#quantile(double)
+ */
+public final class UncertainInput<M>
+{
+	/**
+	 * Name of the input
+	 */
+	public final String name;
+	/**
+	 * Whether the input is integer-valued, i.e. an {@code IInteger}
+	 */
+	public final boolean isInteger;
+	/**
+	 * Optional distribution of the input, otherwise the distribution of the
+	 * value type of the model
+	 */
+	public final Optional<SysMLProbabilityDistribution> distribution;
+	/**
+	 * Function that returns the real value of the input of a model instance, if
+	 * real-valued
+	 */
+	private final Function<M, RReal> realValue;
+	/**
+	 * Function that returns the integer value of the input of a model instance, if
+	 * integer-valued
+	 */
+	private final Function<M, IInteger> integerValue;
+
+	/**
+	 * Constructor
+	 *
+	 * @param name         name of the input
+	 * @param distribution optional distribution of the input
+	 * @param realValue    function that returns the real value, or null
+	 * @param integerValue function that returns the integer value, or null
+	 */
+	private UncertainInput(String name, Optional<SysMLProbabilityDistribution> distribution, Function<M, RReal> realValue, Function<M, IInteger> integerValue)
+	{
+		super();
+		this.name = name;
+		this.isInteger = integerValue != null;
+		this.distribution = distribution;
+		this.realValue = realValue;
+		this.integerValue = integerValue;
+	}
+
+	/**
+	 * Returns a real-valued input distributed by the probability distribution of
+	 * its value type
+	 *
+	 * @param <M>   type of the model
+	 * @param name  name of the input
+	 * @param value function that returns the {@code RReal} value of the input of a
+	 *              model instance
+	 * @return the input
+	 */
+	public static <M> UncertainInput<M> real(String name, Function<M, RReal> value)
+	{
+		return new UncertainInput<>(name, Optional.empty(), value, null);
+	}
+
+	/**
+	 * Returns a real-valued input distributed by the specified probability
+	 * distribution
+	 *
+	 * @param <M>          type of the model
+	 * @param name         name of the input
+	 * @param distribution distribution of the input
+	 * @param value        function that returns the {@code RReal} value of the
+	 *                     input of a model instance
+	 * @return the input
+	 */
+	public static <M> UncertainInput<M> real(String name, SysMLProbabilityDistribution distribution, Function<M, RReal> value)
+	{
+		return new UncertainInput<>(name, Optional.of(distribution), value, null);
+	}
+
+	/**
+	 * Returns an integer-valued input distributed by the probability distribution
+	 * of its value type
+	 *
+	 * @param <M>   type of the model
+	 * @param name  name of the input
+	 * @param value function that returns the {@code IInteger} value of the input
+	 *              of a model instance
+	 * @return the input
+	 */
+	public static <M> UncertainInput<M> integer(String name, Function<M, IInteger> value)
+	{
+		return new UncertainInput<>(name, Optional.empty(), null, value);
+	}
+
+	/**
+	 * Returns an integer-valued input distributed by the specified probability
+	 * distribution
+	 *
+	 * @param <M>          type of the model
+	 * @param name         name of the input
+	 * @param distribution distribution of the input
+	 * @param value        function that returns the {@code IInteger} value of the
+	 *                     input of a model instance
+	 * @return the input
+	 */
+	public static <M> UncertainInput<M> integer(String name, SysMLProbabilityDistribution distribution, Function<M, IInteger> value)
+	{
+		return new UncertainInput<>(name, Optional.of(distribution), null, value);
+	}
+
+	/**
+	 * Returns the distribution of the input, i.e. the specified distribution or
+	 * that of the value type of the specified model instance
+	 *
+	 * @param model the model instance
+	 * @return the distribution
+	 * @throws IllegalArgumentException if no distribution is specified and the
+	 *                                  value type has none
+	 */
+	SysMLProbabilityDistribution distributionOf(M model)
+	{
+		SysMLValueType value = isInteger ? integerValue.apply(model) : realValue.apply(model);
+		return distribution.or(() -> value.probabilityDistribution).orElseThrow(() -> new IllegalArgumentException("uncertain input " + name + ": value type has no probability distribution"));
+	}
+
+	/**
+	 * Sets the input of the specified model instance to the specified value
+	 *
+	 * @param model the model instance
+	 * @param value the value, rounded if the input is integer-valued
+	 */
+	void apply(M model, double value)
+	{
+		if (isInteger)
+			integerValue.apply(model).setValue(Math.round(value));
+		else
+			realValue.apply(model).setValue(value);
+	}
+}
@@ -0,0 +1,10 @@
+/**
+ * Contains the global variance-based sensitivity analysis of SysMLinJava
+ * models, i.e. the declaration of uncertain inputs distributed by the
+ * {@code SysMLProbabilityDistribution}s of their value types and of the outputs
+ * of interest, the Saltelli sample matrices of the inputs, and the estimation
+ * of the first-order and total-order Sobol indices of the outputs, with
+ * bootstrap confidence intervals, from evaluations of the model's parametric
+ * network in parallel batches on reused model instances.
+ */
+package sysmlinjava.analysis.sensitivity;
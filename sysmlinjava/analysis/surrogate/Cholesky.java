@@ -0,0 +1,92 @@
+package sysmlinjava.analysis.surrogate;
+
+/**
+ * Cholesky decomposition of the symmetric positive-definite matrices of the
+ * fitting of the surrogates, i.e. the lower-triangular matrix L of the matrix
+ * A = L L<sup>T</sup>, by which the linear systems of the matrix are solved
+ * and its inverse is calculated.
+ *
+ * @author ModelerOne
+ */
+final class Cholesky
+{
+	/**
+	 * The lower-triangular matrix L, by row
+	 */
+	private final double[][] lower;
+
+	/**
+	 * Constructor that decomposes the specified matrix
+	 *
+	 * @param matrix the symmetric positive-definite matrix, by row, of which only
+	 *               the lower triangle is read
+	 * @throws IllegalArgumentException if the matrix is not positive-definite,
+	 *                                  e.g. for samples that do not determine the
+	 *                                  surrogate
+	 */
+	Cholesky(double[][] matrix)
+	{
+		super();
+		int size = matrix.length;
+		lower = new double[size][size];
+		for (int i = 0; i < size; i++)
+			for (int j = 0; j <= i; j++)
+			{
+				double sum = matrix[i][j];
+				for (int k = 0; k < j; k++)
+					sum -= lower[i][k] * lower[j][k];
+				if (i == j)
+				{
+					if (!(sum > 0.0))
+						throw new IllegalArgumentException("surrogate matrix not positive-definite, samples may not determine the surrogate");
+					lower[i][i] = Math.sqrt(sum);
+				}
+				else
+					lower[i][j] = sum / lower[j][j];
+			}
+	}
+
+	/**
+	 * Returns the solution x of A x = b
+	 *
+	 * @param vector the vector b
+	 * @return the solution x
+	 */
+	double[] solve(double[] vector)
+	{
+		int size = lower.length;
+		double[] result = vector.clone();
+		for (int i = 0; i < size; i++)
+		{
+			for (int k = 0; k < i; k++)
+				result[i] -= lower[i][k] * result[k];
+			result[i] /= lower[i][i];
+		}
+		for (int i = size - 1; i >= 0; i--)
+		{
+			for (int k = i + 1; k < size; k++)
+				result[i] -= lower[k][i] * result[k];
+			result[i] /= lower[i][i];
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the inverse of A
+	 *
+	 * @return the inverse, by row
+	 */
+	double[][] inverse()
+	{
+		int size = lower.length;
+		double[][] result = new double[size][];
+		double[] unit = new double[size];
+		for (int i = 0; i < size; i++)
+		{
+			unit[i] = 1.0;
+			result[i] = solve(unit);
+			unit[i] = 0.0;
+		}
+		return result;
+	}
+}
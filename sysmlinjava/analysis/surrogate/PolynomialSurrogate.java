@@ -0,0 +1,181 @@
+package sysmlinjava.analysis.surrogate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@code Surrogate} that is a polynomial regression, i.e. the polynomial of a
+ * specified total degree in the normalized inputs fitted to the training set by
+ * least squares.
+ * <h2>Error estimate</h2> The estimated error of an output is the standard
+ * error of the prediction of the regression, i.e. s (1 + x<sup>T</sup>
+ * (X<sup>T</sup>X)<sup>-1</sup> x)<sup>1/2</sup>, where s is the standard
+ * deviation of the residuals of the output in the training set and x the
+ * monomials of the inputs, so that the error grows where the polynomial cannot
+ * follow the constraint block and towards the sparsely sampled parts of the
+ * trained region. The training set must have more samples than the polynomial
+ * has monomials, i.e. than (n + d)! / (n! d!) for n inputs and degree d.
+ *
+ * @author ModelerOne
+ */
+public final class PolynomialSurrogate extends Surrogate
+{
+	/** Serializable ID*/private static final long serialVersionUID = 3860319471702688146L;
+	/**
+	 * Total degree of the polynomial
+	 */
+	public final int degree;
+	/**
+	 * Exponents of the inputs of each monomial of the polynomial
+	 */
+	private final int[][] exponents;
+	/**
+	 * Coefficients of the monomials of each output
+	 */
+	private final double[][] coefficients;
+	/**
+	 * Standard deviation of the residuals of each output
+	 */
+	private final double[] residualDeviations;
+	/**
+	 * Inverse of the information matrix X<sup>T</sup>X of the monomials of the
+	 * training set
+	 */
+	private final double[][] inverseInformation;
+
+	/**
+	 * Constructor that fits the polynomial to the specified training set
+	 *
+	 * @param trainingSet the training set
+	 * @param degree      total degree of the polynomial, e.g. 2 for a quadratic
+	 *                    response surface
+	 * @throws IllegalArgumentException if the degree is negative, or the training
+	 *                                  set has too few samples or samples that do
+	 *                                  not determine the polynomial
+	 */
+	public PolynomialSurrogate(TrainingSet trainingSet, int degree)
+	{
+		super(trainingSet);
+		if (degree < 0)
+			throw new IllegalArgumentException("polynomial surrogate degree negative: " + degree);
+		this.degree = degree;
+		List<int[]> monomials = new ArrayList<>();
+		addExponents(new int[inputParamIDs.size()], 0, degree, monomials);
+		this.exponents = monomials.toArray(new int[0][]);
+		int termCount = exponents.length;
+		if (sampleCount <= termCount)
+			throw new IllegalArgumentException("polynomial surrogate of " + termCount + " monomials requires more samples: " + sampleCount);
+		double[][] information = new double[termCount][termCount];
+		double[][] moments = new double[outputParamIDs.size()][termCount];
+		double[][] terms = new double[sampleCount][];
+		for (int s = 0; s < sampleCount; s++)
+		{
+			terms[s] = terms(normalized(trainingSet.input(s)));
+			double[] output = trainingSet.output(s);
+			for (int j = 0; j < termCount; j++)
+			{
+				for (int k = 0; k <= j; k++)
+					information[j][k] += terms[s][j] * terms[s][k];
+				for (int o = 0; o < output.length; o++)
+					moments[o][j] += terms[s][j] * output[o];
+			}
+		}
+		Cholesky cholesky = new Cholesky(information);
+		this.inverseInformation = cholesky.inverse();
+		this.coefficients = new double[outputParamIDs.size()][];
+		this.residualDeviations = new double[outputParamIDs.size()];
+		for (int o = 0; o < coefficients.length; o++)
+		{
+			coefficients[o] = cholesky.solve(moments[o]);
+			double squares = 0.0;
+			for (int s = 0; s < sampleCount; s++)
+			{
+				double residual = trainingSet.output(s)[o] - dot(coefficients[o], terms[s]);
+				squares += residual * residual;
+			}
+			residualDeviations[o] = Math.sqrt(squares / (sampleCount - termCount));
+		}
+	}
+
+	@Override
+	public double[] predict(double[] inputs)
+	{
+		double[] terms = terms(normalized(inputs));
+		double[] result = new double[coefficients.length];
+		for (int o = 0; o < result.length; o++)
+			result[o] = dot(coefficients[o], terms);
+		return result;
+	}
+
+	@Override
+	public double[] estimatedError(double[] inputs)
+	{
+		double[] terms = terms(normalized(inputs));
+		double leverage = 0.0;
+		for (int j = 0; j < terms.length; j++)
+			leverage += terms[j] * dot(inverseInformation[j], terms);
+		double[] result = new double[residualDeviations.length];
+		for (int o = 0; o < result.length; o++)
+			result[o] = residualDeviations[o] * Math.sqrt(1.0 + Math.max(0.0, leverage));
+		return result;
+	}
+
+	/**
+	 * Returns the values of the monomials of the specified normalized inputs
+	 *
+	 * @param normalized normalized values of the inputs
+	 * @return values of the monomials
+	 */
+	private double[] terms(double[] normalized)
+	{
+		double[] result = new double[exponents.length];
+		for (int j = 0; j < result.length; j++)
+		{
+			double term = 1.0;
+			for (int i = 0; i < normalized.length; i++)
+				for (int power = 0; power < exponents[j][i]; power++)
+					term *= normalized[i];
+			result[j] = term;
+		}
+		return result;
+	}
+
+	/**
+	 * Adds the exponents of the monomials of total degree up to the specified
+	 * degree in the inputs from the specified input on, with the exponents of the
+	 * preceding inputs as specified
+	 *
+	 * @param exponents exponents of the preceding inputs
+	 * @param input     index of the input
+	 * @param degree    remaining degree
+	 * @param monomials exponents of the monomials, to which the monomials are
+	 *                  added
+	 */
+	private static void addExponents(int[] exponents, int input, int degree, List<int[]> monomials)
+	{
+		if (input == exponents.length)
+			monomials.add(exponents.clone());
+		else
+			for (int power = 0; power <= degree; power++)
+			{
+				exponents[input] = power;
+				addExponents(exponents, input + 1, degree - power, monomials);
+				exponents[input] = 0;
+			}
+	}
+
+	/**
+	 * Returns the dot product of the specified vectors
+	 *
+	 * @param a first vector
+	 * @param b second vector
+	 * @return the dot product
+	 */
+	private static double dot(double[] a, double[] b)
+	{
+		double result = 0.0;
+		for (int i = 0; i < a.length; i++)
+			result += a[i] * b[i];
+		return result;
+	}
+}
@@ -0,0 +1,310 @@
+package sysmlinjava.analysis.surrogate;
+
+import java.util.Optional;
+import java.util.logging.Logger;
+
+/**
+ * {@code Surrogate} that is a radial-basis-function regression, i.e. the mean
+ * of each output of the training set plus a weighted sum of Gaussian functions
+ * of the distances of the normalized inputs from the samples, which
+ * interpolates the training set up to a small regularization.
+ * <h2>Length scale</h2> The length scale of the Gaussian functions is the mean
+ * distance of the samples from their nearest neighbors multiplied by a factor,
+ * so that the scale suits the density of the samples whatever their number and
+ * inputs. By default, the factor is that of the {@code lengthScaleFactors} for
+ * which the leave-one-out errors of the training set are least, so that
+ * smooth constraints are fitted by wide functions and rough ones by narrow
+ * functions.
+ * <h2>Error estimate</h2> The estimated error of an output is the standard
+ * deviation of the regression as a Gaussian process of the kernel, i.e. s
+ * (1 - k<sup>T</sup> K<sup>-1</sup> k)<sup>1/2</sup>, where k are the kernel
+ * values of the inputs with the samples and K of the samples with each other,
+ * so that the error is nil at the samples and grows between and away from
+ * them. The scale s of each output is estimated from the leave-one-out errors
+ * of the training set, which are calculated in closed form from the inverse of
+ * K. As the inverse is retained, the surrogate suits training sets of up to
+ * some thousands of samples.
+ *
+ * @author ModelerOne
+ */
+public final class RadialBasisSurrogate extends Surrogate
+{
+	/** Serializable ID*/private static final long serialVersionUID = -5170493816261944821L;
+	/**
+	 * Length scale of the Gaussian functions, in normalized inputs
+	 */
+	public final double lengthScale;
+	/**
+	 * Normalized inputs of the samples
+	 */
+	private final double[][] centers;
+	/**
+	 * Mean of each output of the training set
+	 */
+	private final double[] means;
+	/**
+	 * Weights of the Gaussian functions of each output
+	 */
+	private final double[][] weights;
+	/**
+	 * Scale of the estimated error of each output
+	 */
+	private final double[] errorScales;
+	/**
+	 * Inverse of the regularized kernel matrix of the samples
+	 */
+	private final double[][] inverseKernel;
+
+	/**
+	 * Constructor that fits the regression to the specified training set with the
+	 * length scale of the {@code lengthScaleFactors} of least leave-one-out error
+	 *
+	 * @param trainingSet the training set
+	 * @throws IllegalArgumentException if the training set has fewer than two
+	 *                                  samples or repeated samples
+	 */
+	public RadialBasisSurrogate(TrainingSet trainingSet)
+	{
+		this(trainingSet, Optional.empty());
+	}
+
+	/**
+	 * Constructor that fits the regression to the specified training set with the
+	 * specified length scale factor
+	 *
+	 * @param trainingSet       the training set
+	 * @param lengthScaleFactor factor of the mean nearest-neighbor distance of the
+	 *                          samples that is the length scale
+	 * @throws IllegalArgumentException if the training set has fewer than two
+	 *                                  samples or repeated samples, or the kernel
+	 *                                  matrix of the length scale is singular
+	 */
+	public RadialBasisSurrogate(TrainingSet trainingSet, double lengthScaleFactor)
+	{
+		this(trainingSet, Optional.of(lengthScaleFactor));
+	}
+
+	/**
+	 * Constructor that fits the regression to the specified training set
+	 *
+	 * @param trainingSet       the training set
+	 * @param lengthScaleFactor optional factor of the mean nearest-neighbor
+	 *                          distance of the samples that is the length scale,
+	 *                          otherwise the factor of least leave-one-out error
+	 * @throws IllegalArgumentException if the training set has fewer than two
+	 *                                  samples or repeated samples, or the kernel
+	 *                                  matrix of every length scale is singular
+	 */
+	private RadialBasisSurrogate(TrainingSet trainingSet, Optional<Double> lengthScaleFactor)
+	{
+		super(trainingSet);
+		if (sampleCount < 2)
+			throw new IllegalArgumentException("radial basis surrogate requires at least two samples");
+		int outputCount = outputParamIDs.size();
+		this.centers = new double[sampleCount][];
+		this.means = new double[outputCount];
+		for (int s = 0; s < sampleCount; s++)
+		{
+			centers[s] = normalized(trainingSet.input(s));
+			double[] output = trainingSet.output(s);
+			for (int o = 0; o < outputCount; o++)
+				means[o] += output[o] / sampleCount;
+		}
+		double[][] deviations = new double[outputCount][sampleCount];
+		for (int s = 0; s < sampleCount; s++)
+		{
+			double[] output = trainingSet.output(s);
+			for (int o = 0; o < outputCount; o++)
+				deviations[o][s] = output[o] - means[o];
+		}
+		double nearestSum = 0.0;
+		for (int s = 0; s < sampleCount; s++)
+		{
+			double nearest = Double.POSITIVE_INFINITY;
+			for (int t = 0; t < sampleCount; t++)
+				if (t != s)
+					nearest = Math.min(nearest, Math.sqrt(squaredDistance(centers[s], centers[t])));
+			nearestSum += nearest;
+		}
+		if (!(nearestSum > 0.0))
+			throw new IllegalArgumentException("radial basis surrogate requires distinct samples");
+		Optional<Fit> best = Optional.empty();
+		for (double factor : lengthScaleFactor.isPresent() ? new double[] {lengthScaleFactor.get()} : lengthScaleFactors)
+			try
+			{
+				Fit fit = new Fit(centers, deviations, factor * nearestSum / sampleCount);
+				if (best.isEmpty() || fit.leaveOneOutError < best.get().leaveOneOutError)
+					best = Optional.of(fit);
+			} catch (IllegalArgumentException e)
+			{
+				logger.fine("radial basis surrogate length scale factor skipped: " + factor + " " + e.getMessage());
+			}
+		Fit fit = best.orElseThrow(() -> new IllegalArgumentException("radial basis surrogate kernel matrix singular, samples may be too close"));
+		this.lengthScale = fit.lengthScale;
+		this.inverseKernel = fit.inverseKernel;
+		this.weights = fit.weights;
+		this.errorScales = fit.errorScales;
+	}
+
+	@Override
+	public double[] predict(double[] inputs)
+	{
+		double[] kernels = kernels(normalized(inputs));
+		double[] result = means.clone();
+		for (int o = 0; o < result.length; o++)
+			for (int s = 0; s < sampleCount; s++)
+				result[o] += weights[o][s] * kernels[s];
+		return result;
+	}
+
+	@Override
+	public double[] estimatedError(double[] inputs)
+	{
+		double[] kernels = kernels(normalized(inputs));
+		double explained = 0.0;
+		for (int s = 0; s < sampleCount; s++)
+			if (kernels[s] != 0.0)
+			{
+				double product = 0.0;
+				for (int t = 0; t < sampleCount; t++)
+					product += inverseKernel[s][t] * kernels[t];
+				explained += kernels[s] * product;
+			}
+		double deviation = Math.sqrt(Math.max(0.0, 1.0 + regularization - explained));
+		double[] result = new double[errorScales.length];
+		for (int o = 0; o < result.length; o++)
+			result[o] = errorScales[o] * deviation;
+		return result;
+	}
+
+	/**
+	 * Returns the kernel values of the specified normalized inputs with the
+	 * samples
+	 *
+	 * @param normalized normalized values of the inputs
+	 * @return kernel values, by sample
+	 */
+	private double[] kernels(double[] normalized)
+	{
+		double[] result = new double[sampleCount];
+		for (int s = 0; s < sampleCount; s++)
+			result[s] = kernel(normalized, centers[s], lengthScale);
+		return result;
+	}
+
+	/**
+	 * Returns the Gaussian kernel value of the specified normalized inputs
+	 *
+	 * @param a           first normalized inputs
+	 * @param b           second normalized inputs
+	 * @param lengthScale length scale of the kernel
+	 * @return the kernel value
+	 */
+	private static double kernel(double[] a, double[] b, double lengthScale)
+	{
+		return Math.exp(-squaredDistance(a, b) / (lengthScale * lengthScale));
+	}
+
+	/**
+	 * Returns the squared distance between the specified normalized inputs
+	 *
+	 * @param a first normalized inputs
+	 * @param b second normalized inputs
+	 * @return the squared distance
+	 */
+	private static double squaredDistance(double[] a, double[] b)
+	{
+		double result = 0.0;
+		for (int i = 0; i < a.length; i++)
+			result += (a[i] - b[i]) * (a[i] - b[i]);
+		return result;
+	}
+
+	/**
+	 * Fit of the regression for a length scale
+	 */
+	private static final class Fit
+	{
+		/**
+		 * The length scale
+		 */
+		final double lengthScale;
+		/**
+		 * Inverse of the regularized kernel matrix of the samples
+		 */
+		final double[][] inverseKernel;
+		/**
+		 * Weights of the Gaussian functions of each output
+		 */
+		final double[][] weights;
+		/**
+		 * Scale of the estimated error of each output
+		 */
+		final double[] errorScales;
+		/**
+		 * Sum over the outputs of the mean squared leave-one-out error relative to
+		 * the variance of the output
+		 */
+		final double leaveOneOutError;
+
+		/**
+		 * Constructor that fits the regression
+		 *
+		 * @param centers     normalized inputs of the samples
+		 * @param deviations  deviations of each output of the samples from its mean
+		 * @param lengthScale the length scale
+		 * @throws IllegalArgumentException if the kernel matrix is singular
+		 */
+		Fit(double[][] centers, double[][] deviations, double lengthScale)
+		{
+			super();
+			int sampleCount = centers.length;
+			double[][] kernel = new double[sampleCount][sampleCount];
+			for (int s = 0; s < sampleCount; s++)
+			{
+				for (int t = 0; t < s; t++)
+					kernel[s][t] = kernel(centers[s], centers[t], lengthScale);
+				kernel[s][s] = 1.0 + regularization;
+			}
+			Cholesky cholesky = new Cholesky(kernel);
+			this.lengthScale = lengthScale;
+			this.inverseKernel = cholesky.inverse();
+			this.weights = new double[deviations.length][];
+			this.errorScales = new double[deviations.length];
+			double error = 0.0;
+			for (int o = 0; o < deviations.length; o++)
+			{
+				weights[o] = cholesky.solve(deviations[o]);
+				double scale = 0.0;
+				double squares = 0.0;
+				double variance = 0.0;
+				for (int s = 0; s < sampleCount; s++)
+				{
+					double leaveOneOutError = weights[o][s] / inverseKernel[s][s];
+					scale += leaveOneOutError * leaveOneOutError * inverseKernel[s][s];
+					squares += leaveOneOutError * leaveOneOutError;
+					variance += deviations[o][s] * deviations[o][s];
+				}
+				errorScales[o] = Math.sqrt(scale / sampleCount);
+				if (variance > 0.0)
+					error += squares / variance;
+			}
+			this.leaveOneOutError = error;
+		}
+	}
+
+	/**
+	 * Factors of the mean nearest-neighbor distance of the samples among which the
+	 * length scale of least leave-one-out error is chosen
+	 */
+	private static final double[] lengthScaleFactors = {1.0, 2.0, 4.0, 8.0, 16.0, 32.0};
+	/**
+	 * Regularization added to the diagonal of the kernel matrix, which keeps the
+	 * matrix well-conditioned
+	 */
+	private static final double regularization = 1.0e-8;
+	/**
+	 * Logger for the radial basis surrogates
+	 */
+	private static final Logger logger = Logger.getLogger(RadialBasisSurrogate.class.getSimpleName());
+}
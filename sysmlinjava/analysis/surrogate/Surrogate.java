@@ -0,0 +1,124 @@
+package sysmlinjava.analysis.surrogate;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * Surrogate model of a constraint block, i.e. a fast approximation of the
+ * values of its output constraint parameters as functions of the values of its
+ * input constraint parameters, fitted to a {@code TrainingSet} sampled from
+ * the constraint block.
+ * <h2>Trained region and error estimates</h2> The surrogate is valid only in
+ * its trained region, i.e. the box bounded by the least and greatest values of
+ * each input of the training set, and provides an estimate of the error of
+ * each of its predicted outputs, which typically grows with the distance of the
+ * inputs from the samples. The inputs are normalized to the interval [-1, 1] of
+ * the trained region before they are applied to the approximation, so that
+ * inputs of different scales contribute alike. Surrogates are serializable, so
+ * that a surrogate fitted offline is loaded by the model that uses it.
+ *
+ * @author ModelerOne
+ *
+ * @see SurrogateConstraint
+ */
+public abstract class Surrogate implements Serializable
+{
+	/** Serializable ID*/private static final long serialVersionUID = -1936554205117036915L;
+	/**
+	 * IDs of the input constraint parameters
+	 */
+	public final List<String> inputParamIDs;
+	/**
+	 * IDs of the output constraint parameters
+	 */
+	public final List<String> outputParamIDs;
+	/**
+	 * Least value of each input of the training set
+	 */
+	public final double[] lowerBounds;
+	/**
+	 * Greatest value of each input of the training set
+	 */
+	public final double[] upperBounds;
+	/**
+	 * Number of samples of the training set
+	 */
+	public final int sampleCount;
+
+	/**
+	 * Constructor
+	 *
+	 * @param trainingSet training set to which the surrogate is fitted
+	 * @throws IllegalArgumentException if the training set is empty
+	 */
+	protected Surrogate(TrainingSet trainingSet)
+	{
+		super();
+		if (trainingSet.size() == 0)
+			throw new IllegalArgumentException("surrogate requires a training set of samples");
+		this.inputParamIDs = trainingSet.inputParamIDs;
+		this.outputParamIDs = trainingSet.outputParamIDs;
+		this.sampleCount = trainingSet.size();
+		this.lowerBounds = trainingSet.input(0);
+		this.upperBounds = trainingSet.input(0);
+		for (int s = 1; s < sampleCount; s++)
+		{
+			double[] input = trainingSet.input(s);
+			for (int i = 0; i < input.length; i++)
+			{
+				lowerBounds[i] = Math.min(lowerBounds[i], input[i]);
+				upperBounds[i] = Math.max(upperBounds[i], input[i]);
+			}
+		}
+	}
+
+	/**
+	 * Returns whether the specified inputs lie inside the trained region
+	 *
+	 * @param inputs values of the inputs
+	 * @return true if each input is within the bounds of the training set
+	 */
+	public boolean isInTrainedRegion(double[] inputs)
+	{
+		boolean result = true;
+		for (int i = 0; i < inputs.length; i++)
+			result &= inputs[i] >= lowerBounds[i] && inputs[i] <= upperBounds[i];
+		return result;
+	}
+
+	/**
+	 * Returns the predicted values of the outputs for the specified inputs
+	 *
+	 * @param inputs values of the inputs
+	 * @return predicted values of the outputs, in the order of their IDs
+	 */
+	public abstract double[] predict(double[] inputs);
+
+	/**
+	 * Returns the estimated errors of the predicted values of the outputs for the
+	 * specified inputs, i.e. the estimated standard deviations of the differences
+	 * between the predicted values and the values of the constraint block
+	 *
+	 * @param inputs values of the inputs
+	 * @return estimated errors of the outputs, in the order of their IDs
+	 */
+	public abstract double[] estimatedError(double[] inputs);
+
+	/**
+	 * Returns the specified inputs normalized to the interval [-1, 1] of the
+	 * trained region, or 0 for an input of a single value in the training set
+	 *
+	 * @param inputs values of the inputs
+	 * @return normalized values of the inputs
+	 */
+	protected double[] normalized(double[] inputs)
+	{
+		double[] result = new double[inputs.length];
+		for (int i = 0; i < inputs.length; i++)
+		{
+			double range = upperBounds[i] - lowerBounds[i];
+			result[i] = range > 0.0 ? 2.0 * (inputs[i] - lowerBounds[i]) / range - 1.0 : 0.0;
+		}
+		return result;
+	}
+}
@@ -0,0 +1,173 @@
+package sysmlinjava.analysis.surrogate;
+
+import java.util.concurrent.atomic.LongAdder;
+import sysmlinjava.constraintblocks.SysMLConstraintBlock;
+import sysmlinjava.valuetypes.IInteger;
+import sysmlinjava.valuetypes.RReal;
+import sysmlinjava.valuetypes.SysMLValueType;
+
+/**
+ * Surrogate constraint of a {@code SysMLConstraintBlock}, i.e. a
+ * {@code Surrogate} that stands in for the constraints of the block whenever
+ * its predictions are trusted.
+ * <h2>Substitution and fallback</h2> Before each performance of the
+ * constraints, the current values of the input constraint parameters of the
+ * surrogate are read from the constraint block. If they lie inside the trained
+ * region of the surrogate, and the estimated error of each output is within
+ * its tolerance, the output constraint parameters are set to the predicted
+ * values by their {@code setValue()} operations, so that their observers are
+ * notified as if the constraints had been performed, and the constraints are
+ * not performed. Otherwise the constraint block falls back to performing its
+ * constraints. The counts of substitutions and fallbacks indicate whether the
+ * surrogate's trained region and tolerances suit the model's use of it.
+ *
+ * @author ModelerOne
+ *
+ * @see SysMLConstraintBlock#createSurrogate(Surrogate, double[])
+ */
+public final class SurrogateConstraint
+{
+	/**
+	 * The surrogate
+	 */
+	public final Surrogate surrogate;
+	/**
+	 * Tolerance of the estimated error of each output
+	 */
+	public final double[] tolerances;
+	/**
+	 * Number of performances of the constraints substituted by the surrogate
+	 */
+	private final LongAdder substitutionCount;
+	/**
+	 * Number of performances of the constraints that fell back to the constraint
+	 * block
+	 */
+	private final LongAdder fallbackCount;
+
+	/**
+	 * Constructor
+	 *
+	 * @param surrogate  the surrogate
+	 * @param tolerances tolerance of the estimated error of each output, or a
+	 *                   single tolerance of all the outputs
+	 * @throws IllegalArgumentException if the number of tolerances is neither
+	 *                                  one nor the number of outputs
+	 */
+	public SurrogateConstraint(Surrogate surrogate, double... tolerances)
+	{
+		super();
+		int outputCount = surrogate.outputParamIDs.size();
+		if (tolerances.length != 1 && tolerances.length != outputCount)
+			throw new IllegalArgumentException("surrogate constraint requires one tolerance or one per output: " + tolerances.length);
+		this.surrogate = surrogate;
+		this.tolerances = new double[outputCount];
+		for (int o = 0; o < outputCount; o++)
+			this.tolerances[o] = tolerances[tolerances.length == 1 ? 0 : o];
+		this.substitutionCount = new LongAdder();
+		this.fallbackCount = new LongAdder();
+	}
+
+	/**
+	 * Substitutes the surrogate for the constraints of the specified constraint
+	 * block if its inputs lie inside the trained region and the estimated errors
+	 * are within tolerance, setting the outputs to the predicted values
+	 *
+	 * @param constraintBlock the constraint block
+	 * @return true if the surrogate was substituted, false if the constraints are
+	 *         to be performed
+	 * @throws IllegalStateException if an input or output constraint parameter is
+	 *                               not an {@code RReal} or {@code IInteger}
+	 */
+	public boolean substitute(SysMLConstraintBlock constraintBlock)
+	{
+		double[] inputs = new double[surrogate.inputParamIDs.size()];
+		for (int i = 0; i < inputs.length; i++)
+			inputs[i] = valueOf(constraintBlock, surrogate.inputParamIDs.get(i));
+		boolean result = surrogate.isInTrainedRegion(inputs);
+		if (result)
+		{
+			double[] errors = surrogate.estimatedError(inputs);
+			for (int o = 0; o < errors.length; o++)
+				result &= errors[o] <= tolerances[o];
+		}
+		if (result)
+		{
+			double[] outputs = surrogate.predict(inputs);
+			for (int o = 0; o < outputs.length; o++)
+			{
+				String paramID = surrogate.outputParamIDs.get(o);
+				SysMLValueType output = constraintBlock.constraintParams.get(paramID);
+				if (output instanceof RReal)
+					((RReal)output).setValue(outputs[o]);
+				else if (output instanceof IInteger)
+					((IInteger)output).setValue(Math.round(outputs[o]));
+				else
+					throw new IllegalStateException("surrogate output parameter not an RReal or IInteger: " + paramID);
+			}
+			substitutionCount.increment();
+		}
+		else
+			fallbackCount.increment();
+		return result;
+	}
+
+	/**
+	 * Returns the number of performances of the constraints substituted by the
+	 * surrogate
+	 *
+	 * @return number of substitutions
+	 */
+	public long substitutionCount()
+	{
+		return substitutionCount.sum();
+	}
+
+	/**
+	 * Returns the number of performances of the constraints that fell back to the
+	 * constraint block
+	 *
+	 * @return number of fallbacks
+	 */
+	public long fallbackCount()
+	{
+		return fallbackCount.sum();
+	}
+
+	/**
+	 * Returns the value of the specified constraint parameter of the specified
+	 * constraint block
+	 *
+	 * @param constraintBlock the constraint block
+	 * @param paramID         ID of the constraint parameter
+	 * @return the value
+	 * @throws IllegalStateException if the parameter is not an {@code RReal} or
+	 *                               {@code IInteger}
+	 */
+	private static double valueOf(SysMLConstraintBlock constraintBlock, String paramID)
+	{
+		SysMLValueType param = constraintBlock.constraintParams.get(paramID);
+		double result;
+		if (param instanceof RReal)
+			result = ((RReal)param).value;
+		else if (param instanceof IInteger)
+			result = ((IInteger)param).value;
+		else
+			throw new IllegalStateException("surrogate input parameter not an RReal or IInteger: " + paramID);
+		return result;
+	}
+
+	@Override
+	public String toString()
+	{
+		StringBuilder builder = new StringBuilder();
+		builder.append("SurrogateConstraint [surrogate=");
+		builder.append(surrogate.getClass().getSimpleName());
+		builder.append(", substitutionCount=");
+		builder.append(substitutionCount());
+		builder.append(", fallbackCount=");
+		builder.append(fallbackCount());
+		builder.append("]");
+		return builder.toString();
+	}
+}
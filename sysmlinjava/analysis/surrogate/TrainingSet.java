@@ -0,0 +1,123 @@
+package sysmlinjava.analysis.surrogate;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Training set of a {@code Surrogate}, i.e. the values of the input and output
+ * constraint parameters of a constraint block for each of a set of samples,
+ * e.g. as sampled offline by a {@code ConstraintBlockSampler}. The training set
+ * is serializable, so that the samples of an expensive constraint block can be
+ * saved and surrogates fitted to them later.
+ *
+ * @author ModelerOne
+ *
+ * @see sysmlinjava.constraintblocks.ConstraintBlockSampler
+ */
+public final class TrainingSet implements Serializable
+{
+	/** Serializable ID*/private static final long serialVersionUID = 6021487731958207736L;
+	/**
+	 * IDs of the input constraint parameters
+	 */
+	public final List<String> inputParamIDs;
+	/**
+	 * IDs of the output constraint parameters
+	 */
+	public final List<String> outputParamIDs;
+	/**
+	 * Values of the inputs of the samples
+	 */
+	private final List<double[]> inputs;
+	/**
+	 * Values of the outputs of the samples
+	 */
+	private final List<double[]> outputs;
+
+	/**
+	 * Constructor for an empty training set
+	 *
+	 * @param inputParamIDs  IDs of the input constraint parameters
+	 * @param outputParamIDs IDs of the output constraint parameters
+	 * @throws IllegalArgumentException if there are no inputs or outputs
+	 */
+	public TrainingSet(List<String> inputParamIDs, List<String> outputParamIDs)
+	{
+		super();
+		if (inputParamIDs.isEmpty() || outputParamIDs.isEmpty())
+			throw new IllegalArgumentException("training set requires inputs and outputs");
+		this.inputParamIDs = List.copyOf(inputParamIDs);
+		this.outputParamIDs = List.copyOf(outputParamIDs);
+		this.inputs = new ArrayList<>();
+		this.outputs = new ArrayList<>();
+	}
+
+	/**
+	 * Adds a sample to the training set
+	 *
+	 * @param input  values of the inputs
+	 * @param output values of the outputs
+	 * @throws IllegalArgumentException if the numbers of values do not match the
+	 *                                  parameters, or a value is not finite
+	 */
+	public void add(double[] input, double[] output)
+	{
+		if (input.length != inputParamIDs.size() || output.length != outputParamIDs.size())
+			throw new IllegalArgumentException("training sample does not match the parameters of the training set");
+		for (double value : input)
+			if (!Double.isFinite(value))
+				throw new IllegalArgumentException("training sample input not finite: " + value);
+		for (double value : output)
+			if (!Double.isFinite(value))
+				throw new IllegalArgumentException("training sample output not finite: " + value);
+		inputs.add(input.clone());
+		outputs.add(output.clone());
+	}
+
+	/**
+	 * Returns the number of samples
+	 *
+	 * @return number of samples
+	 */
+	public int size()
+	{
+		return inputs.size();
+	}
+
+	/**
+	 * Returns the values of the inputs of the specified sample
+	 *
+	 * @param sample index of the sample
+	 * @return copy of the values of the inputs
+	 */
+	public double[] input(int sample)
+	{
+		return inputs.get(sample).clone();
+	}
+
+	/**
+	 * Returns the values of the outputs of the specified sample
+	 *
+	 * @param sample index of the sample
+	 * @return copy of the values of the outputs
+	 */
+	public double[] output(int sample)
+	{
+		return outputs.get(sample).clone();
+	}
+
+	@Override
+	public String toString()
+	{
+		StringBuilder builder = new StringBuilder();
+		builder.append("TrainingSet [inputParamIDs=");
+		builder.append(inputParamIDs);
+		builder.append(", outputParamIDs=");
+		builder.append(outputParamIDs);
+		builder.append(", size=");
+		builder.append(size());
+		builder.append("]");
+		return builder.toString();
+	}
+}
@@ -0,0 +1,9 @@
+/**
+ * Contains the surrogate models of expensive constraint blocks, i.e. the
+ * training sets sampled offline from a constraint block, the polynomial and
+ * radial-basis-function regressions fitted to them with estimates of their
+ * errors, and the surrogate constraint that stands in for the constraint block
+ * whenever its inputs lie inside the trained region and the estimated error is
+ * within tolerance, falling back to the constraint block otherwise.
+ */
+package sysmlinjava.analysis.surrogate;
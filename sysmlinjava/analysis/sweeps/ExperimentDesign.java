@@ -0,0 +1,139 @@
+package sysmlinjava.analysis.sweeps;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+
+/**
+ * Design of the experiments of a parameter sweep, i.e. the vectors of the
+ * values of the {@code SweepParameter}s for each of the scenarios of the sweep.
+ * <h2>Designs</h2>
+ * <ul>
+ * <li>{@code fullFactorial()} - a scenario for every combination of the levels
+ * of the parameters, the first parameter varying slowest</li>
+ * <li>{@code latinHypercube()} - the specified number of scenarios in which the
+ * range of each parameter is divided into as many equal strata, each stratum
+ * of each parameter is sampled exactly once, and the strata of the parameters
+ * are combined by random permutations</li>
+ * </ul>
+ * The parameter vector of a scenario is determined by its index alone, the
+ * Latin hypercube by its seed, so that a sweep resumed after an interruption
+ * runs exactly the scenarios that were not completed.
+ *
+ * @author ModelerOne
+ *
+ * @see SweepRunner
+ */
+public final class ExperimentDesign
+{
+	/**
+	 * Parameters of the design
+	 */
+	public final List<SweepParameter> parameters;
+	/**
+	 * Number of scenarios of the design
+	 */
+	public final long scenarioCount;
+	/**
+	 * Values of the parameters of the scenarios of a Latin-hypercube design, by
+	 * parameter and scenario
+	 */
+	private final Optional<double[][]> samples;
+
+	/**
+	 * Constructor
+	 *
+	 * @param parameters    parameters of the design
+	 * @param scenarioCount number of scenarios
+	 * @param samples       optional values of the parameters by scenario
+	 */
+	private ExperimentDesign(List<SweepParameter> parameters, long scenarioCount, Optional<double[][]> samples)
+	{
+		super();
+		this.parameters = List.copyOf(parameters);
+		this.scenarioCount = scenarioCount;
+		this.samples = samples;
+	}
+
+	/**
+	 * Returns the full-factorial design of the specified parameters
+	 *
+	 * @param parameters the parameters
+	 * @return the design
+	 * @throws IllegalArgumentException if the number of combinations of the
+	 *                                  levels of the parameters exceeds the
+	 *                                  range of a long
+	 */
+	public static ExperimentDesign fullFactorial(List<SweepParameter> parameters)
+	{
+		long count = 1L;
+		for (SweepParameter parameter : parameters)
+			try
+			{
+				count = Math.multiplyExact(count, parameter.levelCount());
+			} catch (ArithmeticException e)
+			{
+				throw new IllegalArgumentException("full-factorial design has too many scenarios", e);
+			}
+		return new ExperimentDesign(parameters, count, Optional.empty());
+	}
+
+	/**
+	 * Returns a Latin-hypercube design of the specified parameters
+	 *
+	 * @param parameters  the parameters
+	 * @param sampleCount number of scenarios of the design
+	 * @param seed        seed of the random permutations and of the positions of
+	 *                    the samples within their strata
+	 * @return the design
+	 */
+	public static ExperimentDesign latinHypercube(List<SweepParameter> parameters, int sampleCount, long seed)
+	{
+		Random random = new Random(seed);
+		double[][] samples = new double[parameters.size()][sampleCount];
+		for (int p = 0; p < samples.length; p++)
+		{
+			int[] strata = new int[sampleCount];
+			for (int i = 0; i < sampleCount; i++)
+				strata[i] = i;
+			for (int i = sampleCount - 1; i > 0; i--)
+			{
+				int j = random.nextInt(i + 1);
+				int stratum = strata[i];
+				strata[i] = strata[j];
+				strata[j] = stratum;
+			}
+			for (int i = 0; i < sampleCount; i++)
+				samples[p][i] = parameters.get(p).sample((strata[i] + random.nextDouble()) / sampleCount);
+		}
+		return new ExperimentDesign(parameters, sampleCount, Optional.of(samples));
+	}
+
+	/**
+	 * Returns the values of the parameters of the scenario of the specified index
+	 *
+	 * @param index index of the scenario
+	 * @return values of the parameters in order of the parameters
+	 * @throws IndexOutOfBoundsException if the index is not that of a scenario
+	 */
+	public double[] scenario(long index)
+	{
+		if (index < 0 || index >= scenarioCount)
+			throw new IndexOutOfBoundsException("scenario " + index + " of design of " + scenarioCount + " scenarios");
+		double[] result = new double[parameters.size()];
+		if (samples.isPresent())
+			for (int p = 0; p < result.length; p++)
+				result[p] = samples.get()[p][(int)index];
+		else
+		{
+			long remainder = index;
+			for (int p = result.length - 1; p >= 0; p--)
+			{
+				SweepParameter parameter = parameters.get(p);
+				result[p] = parameter.level((int)(remainder % parameter.levelCount()));
+				remainder /= parameter.levelCount();
+			}
+		}
+		return result;
+	}
+}
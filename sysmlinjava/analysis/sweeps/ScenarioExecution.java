@@ -0,0 +1,132 @@
+package sysmlinjava.analysis.sweeps;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+import sysmlinjava.execution.SysMLExecutors;
+import sysmlinjava.execution.VirtualTimeExecutor;
+
+/**
+ * Execution of the scenarios of a {@code SweepDefinition} in the calling
+ * thread, each on a new copy of the model executing in its own
+ * {@code VirtualTimeExecutor}. The paths of the parameters and outputs are
+ * resolved on the first copy of the model and applied to every subsequent
+ * copy. An execution is used by one thread at a time, i.e. by one worker of
+ * the {@code SweepRunner} or by the {@code SweepWorker} of a forked JVM.
+ *
+ * @author ModelerOne
+ *
+ * @param <M> type of the model
+ */
+final class ScenarioExecution<M>
+{
+	/**
+	 * Definition of the sweep
+	 */
+	private final SweepDefinition<M> definition;
+	/**
+	 * Design of the experiments of the sweep
+	 */
+	private final ExperimentDesign design;
+	/**
+	 * Paths of the parameters, resolved on the first copy of the model
+	 */
+	private Optional<List<ValuePath>> parameterPaths;
+	/**
+	 * Paths of the outputs, resolved on the first copy of the model
+	 */
+	private Optional<List<ValuePath>> outputPaths;
+
+	/**
+	 * Constructor
+	 *
+	 * @param definition definition of the sweep
+	 */
+	ScenarioExecution(SweepDefinition<M> definition)
+	{
+		super();
+		this.definition = definition;
+		this.design = definition.design();
+		this.parameterPaths = Optional.empty();
+		this.outputPaths = Optional.empty();
+	}
+
+	/**
+	 * Executes the scenario of the specified index, i.e. creates a copy of the
+	 * model in its own virtual time, assigns the parameters of the scenario,
+	 * starts the scenario in the scope of the copy's virtual time executor, so
+	 * that elements created upon the start also execute in its virtual time,
+	 * executes it for the scenario duration of virtual time, reads the outputs,
+	 * and stops the scenario
+	 *
+	 * @param index index of the scenario
+	 * @return optional values of the outputs, empty if the execution failed
+	 */
+	Optional<double[]> run(long index)
+	{
+		Optional<double[]> result = Optional.empty();
+		VirtualTimeExecutor executor = new VirtualTimeExecutor();
+		M model = null;
+		try
+		{
+			double[] parameters = design.scenario(index);
+			model = SysMLExecutors.createWithExecutor(executor, definition::createModel);
+			if (parameterPaths.isEmpty())
+				resolvePaths(model);
+			for (int p = 0; p < parameters.length; p++)
+				parameterPaths.get().get(p).set(model, parameters[p]);
+			M started = model;
+			SysMLExecutors.createWithExecutor(executor, () ->
+			{
+				definition.startScenario(started);
+				return started;
+			});
+			executor.runFor(definition.scenarioDuration().value, TimeUnit.MILLISECONDS);
+			double[] outputs = new double[outputPaths.get().size()];
+			for (int o = 0; o < outputs.length; o++)
+				outputs[o] = outputPaths.get().get(o).get(model);
+			result = Optional.of(outputs);
+		} catch (RuntimeException e)
+		{
+			logger.warning("scenario " + index + " failed: " + e);
+		} finally
+		{
+			if (model != null)
+				try
+				{
+					definition.stopScenario(model);
+				} catch (RuntimeException e)
+				{
+					logger.warning("scenario " + index + " not stopped: " + e);
+				}
+			executor.reset();
+		}
+		return result;
+	}
+
+	/**
+	 * Resolves the paths of the parameters and outputs on the specified copy of
+	 * the model
+	 *
+	 * @param model the copy of the model
+	 * @throws IllegalArgumentException if a path cannot be resolved
+	 */
+	private void resolvePaths(M model)
+	{
+		List<ValuePath> parameters = new ArrayList<>(design.parameters.size());
+		for (SweepParameter parameter : design.parameters)
+			parameters.add(ValuePath.resolve(model, parameter.path, true));
+		List<ValuePath> outputs = new ArrayList<>(definition.outputs().size());
+		for (String output : definition.outputs())
+			outputs.add(ValuePath.resolve(model, output, false));
+		parameterPaths = Optional.of(parameters);
+		outputPaths = Optional.of(outputs);
+	}
+
+	/**
+	 * Logger for the scenario executions
+	 */
+	private static final Logger logger = Logger.getLogger(ScenarioExecution.class.getSimpleName());
+}
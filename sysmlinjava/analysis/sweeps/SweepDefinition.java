@@ -0,0 +1,105 @@
+package sysmlinjava.analysis.sweeps;
+
+import java.util.List;
+import sysmlinjava.blocks.SysMLBlock;
+import sysmlinjava.common.SysMLInterface;
+import sysmlinjava.valuetypes.DurationMilliseconds;
+
+/**
+ * Definition of a parameter sweep of a model, i.e. the factory of the copies of
+ * the model, the {@code ExperimentDesign} of the values of its parameters, the
+ * paths of its outputs, e.g. its measures of effectiveness and performance,
+ * and the duration of each scenario in virtual time.
+ * <h2>Scenario</h2> Each scenario of the sweep is executed by the
+ * {@code SweepRunner} on a new copy of the model, created by
+ * {@code createModel()} with its own {@code VirtualTimeExecutor}, as follows:
+ * <ol>
+ * <li>the values of the parameters of the scenario are assigned to the
+ * {@code @Value} fields at their paths</li>
+ * <li>the scenario is started by {@code startScenario()}</li>
+ * <li>the model is executed for the {@code scenarioDuration()} of virtual
+ * time</li>
+ * <li>the values of the outputs are read, and the scenario is stopped by
+ * {@code stopScenario()}</li>
+ * </ol>
+ * The outputs of the scenarios may be cached across sweeps by the
+ * {@code SweepRunner}, keyed by the {@code modelVersion()} and the values of the
+ * parameters, so the version must be changed whenever a change of the model
+ * changes its outputs.
+ * <p>
+ * As a sweep run in forked JVMs creates the definition in each JVM by its
+ * class name, the class of the definition must then be public and have a
+ * public constructor without parameters.
+ *
+ * @author ModelerOne
+ *
+ * @param <M> type of the model
+ *
+ * @see SweepRunner
+ */
+public interface SweepDefinition<M> extends SysMLInterface
+{
+	/**
+	 * Creates a new copy of the model, without starting it
+	 *
+	 * @return the copy of the model
+	 */
+	M createModel();
+
+	/**
+	 * Returns the design of the experiments of the sweep
+	 *
+	 * @return the design
+	 */
+	ExperimentDesign design();
+
+	/**
+	 * Returns the paths of the outputs of the model to be recorded for each
+	 * scenario
+	 *
+	 * @return the paths of the outputs
+	 */
+	List<String> outputs();
+
+	/**
+	 * Returns the duration of each scenario in virtual time
+	 *
+	 * @return the duration
+	 */
+	DurationMilliseconds scenarioDuration();
+
+	/**
+	 * Returns the version of the model, which distinguishes the cached outputs of
+	 * its scenarios from those of other versions of the model, by default the
+	 * implementation version of the package of the definition, if any
+	 *
+	 * @return the version of the model, or an empty string if none
+	 */
+	default String modelVersion()
+	{
+		String version = getClass().getPackage() == null ? null : getClass().getPackage().getImplementationVersion();
+		return version == null ? "" : version;
+	}
+
+	/**
+	 * Starts the scenario, by default by starting the model if it is a block
+	 *
+	 * @param model the copy of the model
+	 */
+	default void startScenario(M model)
+	{
+		if (model instanceof SysMLBlock)
+			((SysMLBlock)model).start();
+	}
+
+	/**
+	 * Stops the scenario, by default by stopping the model if it is a block
+	 *
+	 * @param model the copy of the model
+	 */
+	default void stopScenario(M model)
+	{
+		if (model instanceof SysMLBlock)
+			((SysMLBlock)model).stop();
+	}
+}
@@ -0,0 +1,171 @@
+package sysmlinjava.analysis.sweeps;
+
+import java.util.Arrays;
+
+/**
+ * Parameter of a parameter sweep, i.e. a numeric {@code @Value} field of the
+ * model, identified by its {@code ValuePath}, and the values it takes in the
+ * scenarios of the sweep.
+ * <h2>Levels and bounds</h2> A full-factorial {@code ExperimentDesign} combines
+ * the levels of the parameters, and a Latin-hypercube design samples the range
+ * between the bounds of the parameters. A parameter declared by explicit
+ * levels is sampled by a Latin-hypercube design at the level nearest the
+ * sample, and an integer parameter at the nearest integer.
+ *
+ * @author ModelerOne
+ *
+ * @see ExperimentDesign
+ */
+public final class SweepParameter
+{
+	/**
+	 * Path of the {@code @Value} field of the parameter from the model, e.g.
+	 * {@code "engine.thrust"}
+	 */
+	public final String path;
+	/**
+	 * Lower bound of the values of the parameter
+	 */
+	public final double lowerBound;
+	/**
+	 * Upper bound of the values of the parameter
+	 */
+	public final double upperBound;
+	/**
+	 * Whether the parameter is declared by explicit levels, to which the samples
+	 * of a Latin-hypercube design are snapped
+	 */
+	public final boolean isDiscrete;
+	/**
+	 * Whether the values of the parameter are integers
+	 */
+	public final boolean isInteger;
+	/**
+	 * Levels of the parameter in ascending order
+	 */
+	private final double[] levels;
+
+	/**
+	 * Constructor
+	 *
+	 * @param path       path of the field of the parameter
+	 * @param levels     levels of the parameter
+	 * @param isDiscrete whether the parameter is declared by explicit levels
+	 * @param isInteger  whether the values are integers
+	 * @throws IllegalArgumentException if there are no levels
+	 */
+	private SweepParameter(String path, double[] levels, boolean isDiscrete, boolean isInteger)
+	{
+		super();
+		if (levels.length == 0)
+			throw new IllegalArgumentException("sweep parameter without levels: " + path);
+		this.path = path;
+		this.levels = levels.clone();
+		Arrays.sort(this.levels);
+		this.lowerBound = this.levels[0];
+		this.upperBound = this.levels[this.levels.length - 1];
+		this.isDiscrete = isDiscrete;
+		this.isInteger = isInteger;
+	}
+
+	/**
+	 * Returns a parameter of the specified explicit levels
+	 *
+	 * @param path   path of the field of the parameter
+	 * @param levels the levels
+	 * @return the parameter
+	 */
+	public static SweepParameter levels(String path, double... levels)
+	{
+		return new SweepParameter(path, levels, true, false);
+	}
+
+	/**
+	 * Returns a parameter of the specified number of levels evenly spaced between
+	 * the specified bounds, inclusive
+	 *
+	 * @param path       path of the field of the parameter
+	 * @param lowerBound lower bound of the values
+	 * @param upperBound upper bound of the values
+	 * @param levelCount number of levels of a full-factorial design
+	 * @return the parameter
+	 */
+	public static SweepParameter range(String path, double lowerBound, double upperBound, int levelCount)
+	{
+		double[] levels = new double[Math.max(1, levelCount)];
+		for (int i = 0; i < levels.length; i++)
+			levels[i] = levels.length == 1 ? lowerBound : lowerBound + i * (upperBound - lowerBound) / (levels.length - 1);
+		return new SweepParameter(path, levels, false, false);
+	}
+
+	/**
+	 * Returns an integer parameter whose levels are all the integers between the
+	 * specified bounds, inclusive
+	 *
+	 * @param path       path of the field of the parameter
+	 * @param lowerBound lower bound of the values
+	 * @param upperBound upper bound of the values
+	 * @return the parameter
+	 */
+	public static SweepParameter integers(String path, long lowerBound, long upperBound)
+	{
+		double[] levels = new double[(int)Math.max(1, upperBound - lowerBound + 1)];
+		for (int i = 0; i < levels.length; i++)
+			levels[i] = lowerBound + i;
+		return new SweepParameter(path, levels, false, true);
+	}
+
+	/**
+	 * Returns the number of levels of the parameter
+	 *
+	 * @return number of levels
+	 */
+	public int levelCount()
+	{
+		return levels.length;
+	}
+
+	/**
+	 * Returns the level of the specified index
+	 *
+	 * @param index index of the level in ascending order
+	 * @return the level
+	 */
+	public double level(int index)
+	{
+		return levels[index];
+	}
+
+	/**
+	 * Returns the value of the parameter for the specified fraction of its range,
+	 * i.e. the value between the bounds snapped to the nearest level if discrete
+	 * or to the nearest integer if integer
+	 *
+	 * @param fraction fraction of the range, from 0 to 1
+	 * @return the value
+	 */
+	double sample(double fraction)
+	{
+		double result = lowerBound + fraction * (upperBound - lowerBound);
+		if (isDiscrete)
+		{
+			int index = Arrays.binarySearch(levels, result);
+			if (index < 0)
+			{
+				int above = Math.min(levels.length - 1, -index - 1);
+				int below = Math.max(0, above - 1);
+				index = result - levels[below] <= levels[above] - result ? below : above;
+			}
+			result = levels[index];
+		}
+		else if (isInteger)
+			result = Math.rint(result);
+		return result;
+	}
+
+	@Override
+	public String toString()
+	{
+		return String.format("SweepParameter [path=%s, lowerBound=%s, upperBound=%s, levelCount=%d]", path, lowerBound, upperBound, levels.length);
+	}
+}
@@ -0,0 +1,88 @@
+package sysmlinjava.analysis.sweeps;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Progress of a parameter sweep, i.e. the numbers of its scenarios completed
+ * and failed and the estimated time of the remaining scenarios, which is
+ * estimated from the rate at which the scenarios have been completed since the
+ * sweep was started or resumed.
+ *
+ * @author ModelerOne
+ *
+ * @see SweepRunner
+ */
+public final class SweepProgress
+{
+	/**
+	 * Number of scenarios of the sweep
+	 */
+	public final long totalScenarios;
+	/**
+	 * Number of scenarios completed, including those completed before the sweep
+	 * was resumed
+	 */
+	public final long completedScenarios;
+	/**
+	 * Number of scenarios completed before the sweep was resumed
+	 */
+	public final long resumedScenarios;
+	/**
+	 * Number of scenarios completed whose execution failed, whose outputs are
+	 * therefore recorded as NaN
+	 */
+	public final long failedScenarios;
+	/**
+	 * Time elapsed since the sweep was started or resumed
+	 */
+	public final Duration elapsed;
+
+	/**
+	 * Constructor
+	 *
+	 * @param totalScenarios     number of scenarios of the sweep
+	 * @param completedScenarios number of scenarios completed
+	 * @param resumedScenarios   number of scenarios completed before resumption
+	 * @param failedScenarios    number of scenarios failed
+	 * @param elapsed            time elapsed
+	 */
+	SweepProgress(long totalScenarios, long completedScenarios, long resumedScenarios, long failedScenarios, Duration elapsed)
+	{
+		super();
+		this.totalScenarios = totalScenarios;
+		this.completedScenarios = completedScenarios;
+		this.resumedScenarios = resumedScenarios;
+		this.failedScenarios = failedScenarios;
+		this.elapsed = elapsed;
+	}
+
+	/**
+	 * Returns the fraction of the scenarios completed
+	 *
+	 * @return fraction from 0 to 1
+	 */
+	public double fraction()
+	{
+		return totalScenarios == 0 ? 1.0 : (double)completedScenarios / totalScenarios;
+	}
+
+	/**
+	 * Returns the estimated time to complete the remaining scenarios
+	 *
+	 * @return optional estimated time, empty if no scenario has been completed
+	 *         since the sweep was started or resumed
+	 */
+	public Optional<Duration> estimatedRemaining()
+	{
+		long completedSinceResumed = completedScenarios - resumedScenarios;
+		return completedSinceResumed == 0 ? Optional.empty() : Optional.of(elapsed.multipliedBy(totalScenarios - completedScenarios).dividedBy(completedSinceResumed));
+	}
+
+	@Override
+	public String toString()
+	{
+		return String.format("SweepProgress [%d/%d (%.1f%%), failed=%d, elapsed=%s, eta=%s]", completedScenarios, totalScenarios, 100.0 * fraction(), failedScenarios, elapsed,
+			estimatedRemaining().map(Duration::toString).orElse("unknown"));
+	}
+}
@@ -0,0 +1,22 @@
+package sysmlinjava.analysis.sweeps;
+
+import sysmlinjava.common.SysMLInterface;
+
+/**
+ * Observer of the progress of a {@code SweepRunner}, which is notified each
+ * time the results of completed scenarios are appended to the results file
+ *
+ * @author ModelerOne
+ *
+ * @see SweepRunner#addObserver(SweepProgressObserver)
+ */
+@FunctionalInterface
+public interface SweepProgressObserver extends SysMLInterface
+{
+	/**
+	 * Operation that is invoked upon the progress of the sweep
+	 *
+	 * @param progress the progress
+	 */
+	void onProgress(SweepProgress progress);
+}
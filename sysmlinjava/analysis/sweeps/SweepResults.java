@@ -0,0 +1,116 @@
+package sysmlinjava.analysis.sweeps;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Results of a parameter sweep read from its {@code SweepResultsFile}, i.e. the
+ * indexes of the scenarios recorded and the values of each column, in the
+ * order in which the scenarios were recorded. Incomplete chunks at the end of
+ * the file, e.g. of a sweep that is running or crashed, are ignored.
+ *
+ * <pre>
+ * SweepResults results = SweepResults.read(Path.of("sweep.results"));
+ * double[] range = results.column("aircraft.rangeObjective.range");
+ * </pre>
+ *
+ * @author ModelerOne
+ *
+ * @see SweepResultsFile
+ */
+public final class SweepResults
+{
+	/**
+	 * Names of the columns
+	 */
+	public final List<String> columnNames;
+	/**
+	 * Indexes of the scenarios of the rows
+	 */
+	public final long[] scenarios;
+	/**
+	 * Values of the rows by column
+	 */
+	private final double[][] columns;
+
+	/**
+	 * Constructor
+	 *
+	 * @param columnNames names of the columns
+	 * @param scenarios   indexes of the scenarios of the rows
+	 * @param columns     values of the rows by column
+	 */
+	private SweepResults(List<String> columnNames, long[] scenarios, double[][] columns)
+	{
+		super();
+		this.columnNames = columnNames;
+		this.scenarios = scenarios;
+		this.columns = columns;
+	}
+
+	/**
+	 * Reads the results of the specified results file
+	 *
+	 * @param file path of the results file
+	 * @return the results
+	 * @throws IOException if the file cannot be read or is not a results file
+	 */
+	public static SweepResults read(Path file) throws IOException
+	{
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ))
+		{
+			List<String> columnNames = SweepResultsFile.readHeader(channel, file);
+			List<long[]> indexChunks = new ArrayList<>();
+			List<double[][]> columnChunks = new ArrayList<>();
+			SweepResultsFile.readChunks(channel, columnNames.size(), (indexes, columns) ->
+			{
+				indexChunks.add(indexes);
+				columnChunks.add(columns);
+			});
+			int rowCount = indexChunks.stream().mapToInt(indexes -> indexes.length).sum();
+			long[] scenarios = new long[rowCount];
+			double[][] columns = new double[columnNames.size()][rowCount];
+			int row = 0;
+			for (int chunk = 0; chunk < indexChunks.size(); chunk++)
+			{
+				int length = indexChunks.get(chunk).length;
+				System.arraycopy(indexChunks.get(chunk), 0, scenarios, row, length);
+				for (int column = 0; column < columns.length; column++)
+					System.arraycopy(columnChunks.get(chunk)[column], 0, columns[column], row, length);
+				row += length;
+			}
+			return new SweepResults(List.copyOf(columnNames), scenarios, columns);
+		}
+	}
+
+	/**
+	 * Returns the number of rows, i.e. of scenarios recorded
+	 *
+	 * @return number of rows
+	 */
+	public int rowCount()
+	{
+		return scenarios.length;
+	}
+
+	/**
+	 * Returns the values of the column of the specified name
+	 *
+	 * @param columnName name of the column, i.e. the path of the parameter or
+	 *                   output
+	 * @return copy of the values of the column in order of the rows
+	 * @throws IllegalArgumentException if there is no column of the name
+	 */
+	public double[] column(String columnName)
+	{
+		int index = columnNames.indexOf(columnName);
+		if (index < 0)
+			throw new IllegalArgumentException("no column of name: " + columnName);
+		return Arrays.copyOf(columns[index], columns[index].length);
+	}
+}
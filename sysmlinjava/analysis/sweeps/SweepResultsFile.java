@@ -0,0 +1,327 @@
+package sysmlinjava.analysis.sweeps;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only columnar file of the results of the scenarios of a parameter
+ * sweep, i.e. of the values of the parameters and outputs of each scenario.
+ * <h2>Format</h2> The file consists of a header followed by chunks of rows:
+ * <ul>
+ * <li>the header is the magic number and version of the format, the number of
+ * columns, and the name of each column as UTF-8</li>
+ * <li>each chunk is the number of its rows, the indexes of the scenarios of
+ * its rows, the values of each column for its rows, column after column, and
+ * the CRC-32 of the chunk</li>
+ * </ul>
+ * The values of a column are thereby contiguous within each chunk, so that a
+ * column is read without reading the others, and the chunks are appended as
+ * the scenarios complete, each forced to the storage device before the
+ * scenarios are reported completed.
+ * <h3>Recovery</h3> Upon opening an existing file, e.g. after a crash of the
+ * sweep, the chunks are verified by their CRCs, the file is truncated after the
+ * last complete chunk, and the scenarios of the complete chunks are reported
+ * by {@code completedScenarios()}, so that the sweep resumes with the scenarios
+ * that were not recorded.
+ *
+ * @author ModelerOne
+ *
+ * @see SweepResults
+ * @see SweepRunner
+ */
+public final class SweepResultsFile implements Closeable
+{
+	/**
+	 * Path of the file
+	 */
+	public final Path file;
+	/**
+	 * Names of the columns
+	 */
+	public final List<String> columnNames;
+	/**
+	 * Channel of the file, positioned at its end
+	 */
+	private final FileChannel channel;
+	/**
+	 * Indexes of the scenarios recorded in the file
+	 */
+	private final BitSet completed;
+
+	/**
+	 * Constructor
+	 *
+	 * @param file        path of the file
+	 * @param columnNames names of the columns
+	 * @param channel     channel of the file, positioned at its end
+	 * @param completed   indexes of the scenarios recorded in the file
+	 */
+	private SweepResultsFile(Path file, List<String> columnNames, FileChannel channel, BitSet completed)
+	{
+		super();
+		this.file = file;
+		this.columnNames = columnNames;
+		this.channel = channel;
+		this.completed = completed;
+	}
+
+	/**
+	 * Opens the results file of the specified path for the specified columns,
+	 * creating it if it does not exist or is empty, otherwise recovering its
+	 * complete chunks
+	 *
+	 * @param file        path of the file
+	 * @param columnNames names of the columns
+	 * @return the open results file, positioned to append
+	 * @throws IOException if the file cannot be opened or written, or is a results
+	 *                     file of other columns
+	 */
+	public static SweepResultsFile open(Path file, List<String> columnNames) throws IOException
+	{
+		FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		BitSet completed = new BitSet();
+		try
+		{
+			if (channel.size() == 0L)
+			{
+				channel.write(header(columnNames));
+				channel.force(true);
+			}
+			else
+			{
+				List<String> existing = readHeader(channel, file);
+				if (!existing.equals(columnNames))
+					throw new IOException("results file is of other columns: " + file + " " + existing);
+				long end = readChunks(channel, existing.size(), (indexes, columns) ->
+				{
+					for (long index : indexes)
+						completed.set((int)index);
+				});
+				if (end < channel.size())
+				{
+					logger.warning("incomplete chunk of results file truncated: " + file + " at " + end + " of " + channel.size() + " bytes");
+					channel.truncate(end);
+					channel.force(true);
+				}
+				channel.position(end);
+			}
+		} catch (IOException | RuntimeException e)
+		{
+			channel.close();
+			throw e;
+		}
+		return new SweepResultsFile(file, List.copyOf(columnNames), channel, completed);
+	}
+
+	/**
+	 * Returns the indexes of the scenarios recorded in the file
+	 *
+	 * @return copy of the indexes of the recorded scenarios
+	 */
+	public synchronized BitSet completedScenarios()
+	{
+		return (BitSet)completed.clone();
+	}
+
+	/**
+	 * Appends a chunk of the specified rows to the file and forces it to the
+	 * storage device
+	 *
+	 * @param indexes indexes of the scenarios of the rows
+	 * @param rows    values of the columns of each row
+	 * @throws IOException if the chunk cannot be written
+	 */
+	public synchronized void append(long[] indexes, double[][] rows) throws IOException
+	{
+		int columnCount = columnNames.size();
+		ByteBuffer chunk = ByteBuffer.allocate((int)chunkSize(indexes.length, columnCount));
+		chunk.putInt(indexes.length);
+		for (long index : indexes)
+			chunk.putLong(index);
+		for (int column = 0; column < columnCount; column++)
+			for (double[] row : rows)
+				chunk.putDouble(row[column]);
+		CRC32 crc = new CRC32();
+		crc.update(chunk.array(), 0, chunk.position());
+		chunk.putLong(crc.getValue());
+		chunk.flip();
+		while (chunk.hasRemaining())
+			channel.write(chunk);
+		channel.force(false);
+		for (long index : indexes)
+			completed.set((int)index);
+	}
+
+	@Override
+	public synchronized void close() throws IOException
+	{
+		channel.close();
+	}
+
+	/**
+	 * Returns the header of a results file of the specified columns
+	 *
+	 * @param columnNames names of the columns
+	 * @return the header, ready to be written
+	 */
+	private static ByteBuffer header(List<String> columnNames)
+	{
+		List<byte[]> names = new ArrayList<>(columnNames.size());
+		int size = 12;
+		for (String name : columnNames)
+		{
+			byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+			names.add(bytes);
+			size += 4 + bytes.length;
+		}
+		ByteBuffer result = ByteBuffer.allocate(size);
+		result.putInt(magic).putInt(version).putInt(names.size());
+		for (byte[] name : names)
+			result.putInt(name.length).put(name);
+		return result.flip();
+	}
+
+	/**
+	 * Reads the header of the specified results file, leaving the channel
+	 * positioned at its first chunk
+	 *
+	 * @param channel channel of the file
+	 * @param file    path of the file
+	 * @return names of the columns of the file
+	 * @throws IOException if the file is not a results file
+	 */
+	static List<String> readHeader(FileChannel channel, Path file) throws IOException
+	{
+		channel.position(0L);
+		ByteBuffer fixed = readFully(channel, 12);
+		if (fixed == null || fixed.getInt() != magic || fixed.getInt() != version)
+			throw new IOException("not a sweep results file: " + file);
+		int columnCount = fixed.getInt();
+		List<String> result = new ArrayList<>(columnCount);
+		for (int column = 0; column < columnCount; column++)
+		{
+			ByteBuffer length = readFully(channel, 4);
+			ByteBuffer name = length == null ? null : readFully(channel, length.getInt());
+			if (name == null)
+				throw new IOException("sweep results file header incomplete: " + file);
+			result.add(StandardCharsets.UTF_8.decode(name).toString());
+		}
+		return result;
+	}
+
+	/**
+	 * Reads the complete chunks of the specified results file from the position
+	 * of the channel, i.e. the chunks up to the first that is incomplete or whose
+	 * CRC does not match
+	 *
+	 * @param channel     channel of the file, positioned at its first chunk
+	 * @param columnCount number of columns of the file
+	 * @param reader      reader of the indexes and columns of each chunk
+	 * @return position of the end of the last complete chunk
+	 * @throws IOException if the file cannot be read
+	 */
+	static long readChunks(FileChannel channel, int columnCount, ChunkReader reader) throws IOException
+	{
+		long result = channel.position();
+		boolean isComplete = true;
+		while (isComplete)
+		{
+			ByteBuffer count = readFully(channel, 4);
+			int rowCount = count == null ? -1 : count.getInt();
+			long size = rowCount < 0 ? -1L : chunkSize(rowCount, columnCount);
+			ByteBuffer chunk = size < 0L || size > channel.size() - result ? null : readFully(channel, (int)(size - 4));
+			if (chunk == null)
+				isComplete = false;
+			else
+			{
+				CRC32 crc = new CRC32();
+				crc.update(count.flip());
+				crc.update(chunk.array(), 0, chunk.limit() - 8);
+				if (crc.getValue() != chunk.getLong(chunk.limit() - 8))
+					isComplete = false;
+				else
+				{
+					long[] indexes = new long[rowCount];
+					for (int row = 0; row < rowCount; row++)
+						indexes[row] = chunk.getLong();
+					double[][] columns = new double[columnCount][rowCount];
+					for (int column = 0; column < columnCount; column++)
+						for (int row = 0; row < rowCount; row++)
+							columns[column][row] = chunk.getDouble();
+					reader.read(indexes, columns);
+					result += size;
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Reads the specified number of bytes from the channel
+	 *
+	 * @param channel   the channel
+	 * @param byteCount number of bytes
+	 * @return buffer of the bytes read, ready to be read, or null if the end of the
+	 *         channel was reached before the bytes were read
+	 * @throws IOException if the channel cannot be read
+	 */
+	private static ByteBuffer readFully(FileChannel channel, int byteCount) throws IOException
+	{
+		ByteBuffer result = ByteBuffer.allocate(byteCount);
+		int read = 0;
+		while (result.hasRemaining() && read >= 0)
+			read = channel.read(result);
+		return result.hasRemaining() ? null : result.flip();
+	}
+
+	/**
+	 * Returns the size in bytes of a chunk of the specified numbers of rows and
+	 * columns
+	 *
+	 * @param rowCount    number of rows
+	 * @param columnCount number of columns
+	 * @return size of the chunk
+	 */
+	private static long chunkSize(long rowCount, int columnCount)
+	{
+		return 4L + rowCount * 8L * (1 + columnCount) + 8L;
+	}
+
+	/**
+	 * Reader of the chunks of a results file
+	 */
+	@FunctionalInterface
+	interface ChunkReader
+	{
+		/**
+		 * Reads a chunk
+		 *
+		 * @param indexes indexes of the scenarios of the rows of the chunk
+		 * @param columns values of the rows of the chunk, by column
+		 */
+		void read(long[] indexes, double[][] columns);
+	}
+
+	/**
+	 * Magic number of the results file, i.e. "SWPR"
+	 */
+	private static final int magic = 0x53575052;
+	/**
+	 * Version of the format of the results file
+	 */
+	private static final int version = 1;
+	/**
+	 * Logger for the results files
+	 */
+	private static final Logger logger = Logger.getLogger(SweepResultsFile.class.getSimpleName());
+}
@@ -0,0 +1,595 @@
+package sysmlinjava.analysis.sweeps;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+import sysmlinjava.analysis.cache.EvaluationKey;
+import sysmlinjava.analysis.cache.MemoCache;
+import sysmlinjava.execution.NamedThreadFactory;
+
+/**
+ * Runner of a parameter sweep, i.e. of the scenarios of the
+ * {@code ExperimentDesign} of a {@code SweepDefinition}, concurrently by a
+ * number of workers, each executing one scenario at a time on its own copy of
+ * the model in virtual time, without any display of the model.
+ * <h2>Workers</h2> By default, the workers are threads of the runner's JVM,
+ * each of which creates a new copy of the model for each scenario with its own
+ * {@code VirtualTimeExecutor}, so that the copies share no state other than
+ * the static state of the model's classes. If {@code isForked}, each worker
+ * instead forks a JVM running the {@code SweepWorker}, to which it sends the
+ * indexes of its scenarios, so that the scenarios are also isolated from each
+ * other's static state and a scenario that crashes its JVM fails only itself;
+ * the worker then forks a new JVM for its next scenario.
+ * <h3>Streaming of results</h3> The values of the parameters and outputs of
+ * each completed scenario are buffered and appended to the
+ * {@code SweepResultsFile} in chunks of {@code chunkSize} rows, or at least
+ * every {@code flushInterval}, each chunk forced to the storage device before
+ * the {@code SweepProgressObserver}s are notified of the progress of the sweep,
+ * including the estimated time to complete it. The outputs of a scenario whose
+ * execution failed are recorded as NaN.
+ * <h3>Resumption and early termination</h3> A sweep that is run with an
+ * existing results file, e.g. after a crash or after {@code stop()}, resumes
+ * with the scenarios not recorded in the file, as follows:
+ *
+ * <pre>
+ * {@code
+ * SweepRunner<Aircraft> runner = new SweepRunner<>(new AircraftSweep(), Path.of("aircraft.sweep"));
+ * runner.addObserver(progress -> System.out.println(progress));
+ * runner.run();
+ * SweepResults results = SweepResults.read(Path.of("aircraft.sweep"));
+ * }
+ * </pre>
+ *
+ * The {@code stop()} operation stops the workers from beginning further
+ * scenarios, and the run then ends once the scenarios in progress are
+ * recorded.
+ * <h3>Memoization</h3> If the runner has a {@code cache}, the outputs of each
+ * scenario are looked up in the cache by the {@code EvaluationKey} of the
+ * definition's class and {@code modelVersion()}, the scenario duration, the
+ * parameter paths and outputs, and the values of the parameters of the
+ * scenario, and the scenario is executed only if they are not cached, after
+ * which its outputs are cached, so that scenarios repeated across sweeps, e.g.
+ * of refined designs, are not executed again.
+ *
+ * @author ModelerOne
+ *
+ * @param <M> type of the model
+ *
+ * @see SweepDefinition
+ * @see SweepResults
+ */
+public class SweepRunner<M>
+{
+	/**
+	 * Definition of the sweep
+	 */
+	public final SweepDefinition<M> definition;
+	/**
+	 * Path of the results file of the sweep
+	 */
+	public final Path resultsFile;
+	/**
+	 * Number of workers
+	 */
+	public int workerCount;
+	/**
+	 * Whether the workers execute the scenarios in forked JVMs
+	 */
+	public boolean isForked;
+	/**
+	 * Options of the forked JVMs, e.g. {@code -Xmx2g}
+	 */
+	public List<String> forkedJvmOptions;
+	/**
+	 * Maximum number of rows of a chunk of the results file
+	 */
+	public int chunkSize;
+	/**
+	 * Maximum interval between the appends of chunks to the results file while
+	 * scenarios are completing
+	 */
+	public Duration flushInterval;
+	/**
+	 * Optional cache of the outputs of the scenarios
+	 */
+	public Optional<MemoCache> cache;
+	/**
+	 * Observers of the progress of the sweep
+	 */
+	private final List<SweepProgressObserver> observers;
+	/**
+	 * Results file while the sweep is running
+	 */
+	private SweepResultsFile results;
+	/**
+	 * Indexes of the scenarios recorded or begun
+	 */
+	private BitSet dispensed;
+	/**
+	 * Indexes of the scenarios of the rows not yet appended to the results file
+	 */
+	private final List<Long> bufferedIndexes;
+	/**
+	 * Rows not yet appended to the results file
+	 */
+	private final List<double[]> bufferedRows;
+	/**
+	 * {@code System.nanoTime()} of the last append to the results file
+	 */
+	private long lastFlushNanos;
+	/**
+	 * {@code System.nanoTime()} at the start of the run
+	 */
+	private long startNanos;
+	/**
+	 * Number of scenarios of the sweep
+	 */
+	private long totalScenarios;
+	/**
+	 * Number of scenarios recorded before the run
+	 */
+	private long resumedScenarios;
+	/**
+	 * Number of scenarios recorded during the run
+	 */
+	private long completedScenarios;
+	/**
+	 * Number of scenarios recorded during the run whose execution failed
+	 */
+	private long failedScenarios;
+	/**
+	 * Whether the sweep has been requested to stop
+	 */
+	private volatile boolean isStopRequested;
+
+	/**
+	 * Constructor
+	 *
+	 * @param definition  definition of the sweep
+	 * @param resultsFile path of the results file of the sweep
+	 */
+	public SweepRunner(SweepDefinition<M> definition, Path resultsFile)
+	{
+		super();
+		this.definition = definition;
+		this.resultsFile = resultsFile;
+		this.workerCount = Runtime.getRuntime().availableProcessors();
+		this.isForked = false;
+		this.forkedJvmOptions = List.of();
+		this.chunkSize = 64;
+		this.flushInterval = Duration.ofSeconds(10);
+		this.cache = Optional.empty();
+		this.observers = new CopyOnWriteArrayList<>();
+		this.bufferedIndexes = new ArrayList<>();
+		this.bufferedRows = new ArrayList<>();
+		this.isStopRequested = false;
+	}
+
+	/**
+	 * Adds the specified observer of the progress of the sweep
+	 *
+	 * @param observer the observer
+	 */
+	public void addObserver(SweepProgressObserver observer)
+	{
+		observers.add(observer);
+	}
+
+	/**
+	 * Removes the specified observer of the progress of the sweep
+	 *
+	 * @param observer the observer
+	 */
+	public void removeObserver(SweepProgressObserver observer)
+	{
+		observers.remove(observer);
+	}
+
+	/**
+	 * Runs the scenarios of the sweep not yet recorded in the results file, until
+	 * all are recorded or the sweep is stopped
+	 *
+	 * @return the progress of the sweep at the end of the run
+	 * @throws IOException              if the results file cannot be opened or
+	 *                                  written
+	 * @throws IllegalArgumentException if the design has more scenarios than a
+	 *                                  sweep can run, or the sweep is forked and
+	 *                                  the definition cannot be created by its
+	 *                                  class name
+	 */
+	public SweepProgress run() throws IOException
+	{
+		ExperimentDesign design = definition.design();
+		if (design.scenarioCount > Integer.MAX_VALUE)
+			throw new IllegalArgumentException("sweep has too many scenarios: " + design.scenarioCount);
+		if (isForked)
+			try
+			{
+				definition.getClass().getConstructor();
+			} catch (NoSuchMethodException e)
+			{
+				throw new IllegalArgumentException("forked sweep definition requires a public constructor without parameters: " + definition.getClass().getName());
+			}
+		List<String> columns = new ArrayList<>();
+		design.parameters.forEach(parameter -> columns.add(parameter.path));
+		columns.addAll(definition.outputs());
+		isStopRequested = false;
+		SweepProgress result;
+		try (SweepResultsFile file = SweepResultsFile.open(resultsFile, columns))
+		{
+			synchronized (this)
+			{
+				results = file;
+				dispensed = file.completedScenarios();
+				totalScenarios = design.scenarioCount;
+				resumedScenarios = dispensed.cardinality();
+				completedScenarios = 0L;
+				failedScenarios = 0L;
+				startNanos = lastFlushNanos = System.nanoTime();
+			}
+			if (resumedScenarios > 0)
+				logger.info("sweep resumed with " + resumedScenarios + " of " + totalScenarios + " scenarios recorded in " + resultsFile);
+			ExecutorService workers = Executors.newFixedThreadPool(Math.max(1, workerCount), new NamedThreadFactory("SysMLinJava-sweep", true));
+			try
+			{
+				List<Future<?>> futures = new ArrayList<>();
+				for (int w = 0; w < Math.max(1, workerCount); w++)
+					futures.add(workers.submit(() ->
+					{
+						work();
+						return null;
+					}));
+				for (Future<?> future : futures)
+					future.get();
+			} catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+				isStopRequested = true;
+			} catch (ExecutionException e)
+			{
+				isStopRequested = true;
+				if (e.getCause() instanceof IOException)
+					throw (IOException)e.getCause();
+				throw new IllegalStateException("sweep worker failed", e.getCause());
+			} finally
+			{
+				workers.shutdown();
+				synchronized (this)
+				{
+					flush();
+					result = progress();
+					results = null;
+				}
+			}
+		}
+		observers.forEach(observer -> observer.onProgress(result));
+		return result;
+	}
+
+	/**
+	 * Requests the sweep to stop, upon which the workers begin no further
+	 * scenarios and the run ends once the scenarios in progress are recorded
+	 */
+	public void stop()
+	{
+		isStopRequested = true;
+	}
+
+	/**
+	 * Returns the progress of the sweep
+	 *
+	 * @return the progress
+	 */
+	public synchronized SweepProgress progress()
+	{
+		return new SweepProgress(totalScenarios, resumedScenarios + completedScenarios, resumedScenarios, failedScenarios, Duration.ofNanos(System.nanoTime() - startNanos));
+	}
+
+	/**
+	 * Performs the scenarios dispensed to a worker until there are none left or
+	 * the sweep is stopped
+	 *
+	 * @throws IOException if the results cannot be appended to the results file
+	 */
+	private void work() throws IOException
+	{
+		try (ScenarioExecutor executor = isForked ? new ForkedExecutor() : new LocalExecutor<>(definition))
+		{
+			ExperimentDesign design = definition.design();
+			String namespace = cacheNamespace(design);
+			int index;
+			while ((index = nextScenario()) >= 0)
+			{
+				double[] parameters = design.scenario(index);
+				EvaluationKey key = EvaluationKey.of(namespace, parameters);
+				Optional<double[]> outputs = cache.isPresent() ? cache.get().get(key) : Optional.empty();
+				if (outputs.isEmpty())
+				{
+					outputs = executor.run(index);
+					if (outputs.isPresent() && cache.isPresent())
+						cache.get().put(key, outputs.get());
+				}
+				double[] row = Arrays.copyOf(parameters, parameters.length + definition.outputs().size());
+				if (outputs.isPresent())
+					System.arraycopy(outputs.get(), 0, row, parameters.length, outputs.get().length);
+				else
+					Arrays.fill(row, parameters.length, row.length, Double.NaN);
+				record(index, row, outputs.isEmpty());
+			}
+		}
+	}
+
+	/**
+	 * Returns the namespace of the cache keys of the scenarios of the sweep
+	 *
+	 * @param design design of the experiments of the sweep
+	 * @return the namespace
+	 */
+	private String cacheNamespace(ExperimentDesign design)
+	{
+		StringBuilder result = new StringBuilder("scenario\0").append(definition.getClass().getName()).append('\0').append(definition.modelVersion()).append('\0').append(definition.scenarioDuration().value);
+		design.parameters.forEach(parameter -> result.append('\0').append(parameter.path));
+		result.append("\0->");
+		definition.outputs().forEach(output -> result.append('\0').append(output));
+		return result.toString();
+	}
+
+	/**
+	 * Returns the index of the next scenario not recorded or begun, marking it
+	 * begun
+	 *
+	 * @return index of the scenario, or -1 if there is none or the sweep is
+	 *         stopped
+	 */
+	private synchronized int nextScenario()
+	{
+		int result = -1;
+		if (!isStopRequested)
+		{
+			int index = dispensed.nextClearBit(0);
+			if (index < totalScenarios)
+			{
+				dispensed.set(index);
+				result = index;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Records the specified row of the specified scenario, appending the buffered
+	 * rows to the results file if the chunk is full or the flush interval has
+	 * elapsed
+	 *
+	 * @param index    index of the scenario
+	 * @param row      values of the parameters and outputs of the scenario
+	 * @param isFailed whether the execution of the scenario failed
+	 * @throws IOException if the results cannot be appended to the results file
+	 */
+	private void record(int index, double[] row, boolean isFailed) throws IOException
+	{
+		Optional<SweepProgress> progress = Optional.empty();
+		synchronized (this)
+		{
+			bufferedIndexes.add((long)index);
+			bufferedRows.add(row);
+			completedScenarios++;
+			if (isFailed)
+				failedScenarios++;
+			if (bufferedRows.size() >= chunkSize || System.nanoTime() - lastFlushNanos >= flushInterval.toNanos())
+			{
+				flush();
+				progress = Optional.of(progress());
+			}
+		}
+		progress.ifPresent(current -> observers.forEach(observer -> observer.onProgress(current)));
+	}
+
+	/**
+	 * Appends the buffered rows to the results file as a chunk
+	 *
+	 * @throws IOException if the chunk cannot be appended
+	 */
+	private void flush() throws IOException
+	{
+		if (!bufferedRows.isEmpty())
+		{
+			long[] indexes = bufferedIndexes.stream().mapToLong(Long::longValue).toArray();
+			double[][] rows = bufferedRows.toArray(new double[bufferedRows.size()][]);
+			bufferedIndexes.clear();
+			bufferedRows.clear();
+			results.append(indexes, rows);
+		}
+		lastFlushNanos = System.nanoTime();
+	}
+
+	/**
+	 * Executor of the scenarios of a worker
+	 */
+	private interface ScenarioExecutor extends Closeable
+	{
+		/**
+		 * Executes the scenario of the specified index
+		 *
+		 * @param index index of the scenario
+		 * @return optional values of the outputs, empty if the execution failed
+		 * @throws IOException if the scenario cannot be sent to a forked JVM
+		 */
+		Optional<double[]> run(int index) throws IOException;
+	}
+
+	/**
+	 * Executor of the scenarios of a worker in the worker's thread
+	 *
+	 * @param <T> type of the model
+	 */
+	private static final class LocalExecutor<T> implements ScenarioExecutor
+	{
+		/**
+		 * Execution of the scenarios
+		 */
+		private final ScenarioExecution<T> execution;
+
+		/**
+		 * Constructor
+		 *
+		 * @param definition definition of the sweep
+		 */
+		private LocalExecutor(SweepDefinition<T> definition)
+		{
+			super();
+			this.execution = new ScenarioExecution<>(definition);
+		}
+
+		@Override
+		public Optional<double[]> run(int index)
+		{
+			return execution.run(index);
+		}
+
+		@Override
+		public void close()
+		{
+		}
+	}
+
+	/**
+	 * Executor of the scenarios of a worker in a forked JVM running the
+	 * {@code SweepWorker}
+	 */
+	private final class ForkedExecutor implements ScenarioExecutor
+	{
+		/**
+		 * Forked JVM, if started
+		 */
+		private Optional<Process> process;
+		/**
+		 * Writer of the requests to the forked JVM
+		 */
+		private Writer requests;
+		/**
+		 * Reader of the responses of the forked JVM
+		 */
+		private BufferedReader responses;
+
+		/**
+		 * Constructor
+		 */
+		private ForkedExecutor()
+		{
+			super();
+			this.process = Optional.empty();
+		}
+
+		@Override
+		public Optional<double[]> run(int index) throws IOException
+		{
+			if (process.isEmpty())
+				fork();
+			Optional<double[]> result = Optional.empty();
+			String response;
+			try
+			{
+				requests.write(index + "\n");
+				requests.flush();
+				response = responses.readLine();
+			} catch (IOException e)
+			{
+				response = null;
+			}
+			if (response == null)
+			{
+				logger.warning("forked sweep worker ended during scenario " + index + ", scenario failed");
+				close();
+			}
+			else
+			{
+				String[] fields = response.trim().split(" ");
+				if (fields.length < 2 || Long.parseLong(fields[0]) != index)
+					throw new IOException("unexpected response of forked sweep worker: " + response);
+				if (fields[1].equals("ok"))
+				{
+					double[] outputs = new double[fields.length - 2];
+					for (int o = 0; o < outputs.length; o++)
+						outputs[o] = Double.parseDouble(fields[o + 2]);
+					result = Optional.of(outputs);
+				}
+			}
+			return result;
+		}
+
+		/**
+		 * Forks the JVM of the worker, with the class path and module path of this
+		 * JVM
+		 *
+		 * @throws IOException if the JVM cannot be started
+		 */
+		private void fork() throws IOException
+		{
+			List<String> command = new ArrayList<>();
+			command.add(ProcessHandle.current().info().command().orElse(Path.of(System.getProperty("java.home"), "bin", "java").toString()));
+			command.addAll(forkedJvmOptions);
+			command.add("-cp");
+			command.add(System.getProperty("java.class.path"));
+			String modulePath = System.getProperty("jdk.module.path");
+			if (modulePath != null && !modulePath.isEmpty())
+			{
+				command.add("--module-path");
+				command.add(modulePath);
+				command.add("--add-modules");
+				command.add("ALL-MODULE-PATH");
+			}
+			command.add(SweepWorker.class.getName());
+			command.add(definition.getClass().getName());
+			Process started = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+			requests = new OutputStreamWriter(started.getOutputStream(), StandardCharsets.UTF_8);
+			responses = new BufferedReader(new InputStreamReader(started.getInputStream(), StandardCharsets.UTF_8));
+			process = Optional.of(started);
+		}
+
+		@Override
+		public void close()
+		{
+			if (process.isPresent())
+			{
+				try
+				{
+					requests.close();
+					if (!process.get().waitFor(10, TimeUnit.SECONDS))
+						process.get().destroyForcibly();
+				} catch (IOException e)
+				{
+					process.get().destroyForcibly();
+				} catch (InterruptedException e)
+				{
+					Thread.currentThread().interrupt();
+					process.get().destroyForcibly();
+				}
+				process = Optional.empty();
+			}
+		}
+	}
+
+	/**
+	 * Logger for the sweep runners
+	 */
+	private static final Logger logger = Logger.getLogger(SweepRunner.class.getSimpleName());
+}
@@ -0,0 +1,70 @@
+package sysmlinjava.analysis.sweeps;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+/**
+ * Main class of a JVM forked by the {@code SweepRunner} to execute scenarios
+ * of a sweep in isolation from the JVM of the runner and of the other workers.
+ * <h2>Protocol</h2> The worker is started with the class name of the
+ * {@code SweepDefinition}, which it creates by its constructor without
+ * parameters. It then reads the index of a scenario from each line of its
+ * standard input, executes the scenario, and writes a line of the index
+ * followed by {@code ok} and the values of the outputs, or by {@code failed},
+ * to its standard output. The standard output of the model, e.g. of its
+ * {@code System.out.println()}s, is redirected to the standard error, which the
+ * runner inherits. The worker exits at the end of its standard input.
+ *
+ * @author ModelerOne
+ *
+ * @see SweepRunner#isForked
+ */
+public final class SweepWorker
+{
+	/**
+	 * Constructor - private as the worker has only its main operation
+	 */
+	private SweepWorker()
+	{
+		super();
+	}
+
+	/**
+	 * Executes the scenarios requested by the runner
+	 *
+	 * @param args class name of the sweep definition
+	 * @throws IOException                 if the standard input cannot be read
+	 * @throws ReflectiveOperationException if the sweep definition cannot be
+	 *                                      created
+	 */
+	public static void main(String[] args) throws IOException, ReflectiveOperationException
+	{
+		PrintStream results = new PrintStream(System.out, false, StandardCharsets.UTF_8);
+		System.setOut(System.err);
+		SweepDefinition<?> definition = (SweepDefinition<?>)Class.forName(args[0]).getConstructor().newInstance();
+		ScenarioExecution<?> execution = new ScenarioExecution<>(definition);
+		BufferedReader requests = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+		String request;
+		while ((request = requests.readLine()) != null)
+		{
+			long index = Long.parseLong(request.trim());
+			Optional<double[]> outputs = execution.run(index);
+			StringBuilder response = new StringBuilder().append(index);
+			if (outputs.isPresent())
+			{
+				response.append(" ok");
+				for (double output : outputs.get())
+					response.append(' ').append(output);
+			}
+			else
+				response.append(" failed");
+			results.println(response);
+			results.flush();
+		}
+		System.exit(0);
+	}
+}
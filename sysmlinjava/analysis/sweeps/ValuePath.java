@@ -0,0 +1,204 @@
+package sysmlinjava.analysis.sweeps;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+import sysmlinjava.analysis.metadata.ClassMetadata;
+import sysmlinjava.analysis.metadata.FieldMetadata;
+import sysmlinjava.analysis.metadata.SysMLMetadata;
+import sysmlinjava.annotations.Value;
+import sysmlinjava.valuetypes.IInteger;
+import sysmlinjava.valuetypes.RReal;
+import sysmlinjava.valuetypes.SysMLValueType;
+
+/**
+ * Path from a model to a numeric value of one of its blocks, i.e. the dotted
+ * names of the fields that lead from the model to the value, e.g.
+ * {@code "propulsion.engine.thrust"} for the {@code thrust} value of the
+ * {@code engine} part of the {@code propulsion} part of the model.
+ * <h2>Resolution by the metadata registry</h2> The path is resolved once, on
+ * an instance of the model, into the accessors of its fields, which are
+ * thereafter applied to each copy of the model. The fields are found in the
+ * {@code SysMLMetadata} registry, whose generated accessors access the fields
+ * directly, or by reflection for classes that are not indexed. The value must
+ * be an {@code RReal} or {@code IInteger}, and the field of a parameter to be
+ * assigned must be a {@code @Value} field. As the {@code @Value} annotation is
+ * retained only in the source, any field of a value type is taken to be a
+ * {@code @Value} field of a class that is not indexed.
+ *
+ * @author ModelerOne
+ *
+ * @see SysMLMetadata
+ */
+public final class ValuePath
+{
+	/**
+	 * The dotted path
+	 */
+	public final String path;
+	/**
+	 * Accessors of the fields of the path, in order from the model
+	 */
+	private final List<Function<Object, Object>> accessors;
+
+	/**
+	 * Constructor
+	 *
+	 * @param path      the dotted path
+	 * @param accessors accessors of the fields of the path
+	 */
+	private ValuePath(String path, List<Function<Object, Object>> accessors)
+	{
+		super();
+		this.path = path;
+		this.accessors = accessors;
+	}
+
+	/**
+	 * Resolves the specified path on the specified instance of a model
+	 *
+	 * @param model        instance of the model
+	 * @param path         the dotted path
+	 * @param isValueField whether the last field of the path must be a
+	 *                     {@code @Value} field
+	 * @return the resolved path
+	 * @throws IllegalArgumentException if a field of the path is not found or not
+	 *                                  accessible, or the path does not lead to
+	 *                                  an {@code RReal} or {@code IInteger}
+	 */
+	public static ValuePath resolve(Object model, String path, boolean isValueField)
+	{
+		String[] names = path.split("\\.");
+		List<Function<Object, Object>> accessors = new ArrayList<>(names.length);
+		Object current = model;
+		for (int i = 0; i < names.length; i++)
+		{
+			if (current == null)
+				throw new IllegalArgumentException("value path " + path + ": null at " + names[i - 1]);
+			Function<Object, Object> accessor = accessorOf(current.getClass(), names[i], isValueField && i == names.length - 1, path);
+			accessors.add(accessor);
+			current = accessor.apply(current);
+		}
+		if (!(current instanceof RReal) && !(current instanceof IInteger))
+			throw new IllegalArgumentException("value path " + path + ": not an RReal or IInteger value");
+		return new ValuePath(path, List.copyOf(accessors));
+	}
+
+	/**
+	 * Returns the value at the end of the path from the specified model
+	 *
+	 * @param model instance of the model
+	 * @return the value
+	 */
+	public SysMLValueType valueOf(Object model)
+	{
+		Object current = model;
+		for (Function<Object, Object> accessor : accessors)
+			current = accessor.apply(current);
+		return (SysMLValueType)current;
+	}
+
+	/**
+	 * Returns the numeric value at the end of the path from the specified model
+	 *
+	 * @param model instance of the model
+	 * @return the numeric value
+	 */
+	public double get(Object model)
+	{
+		SysMLValueType value = valueOf(model);
+		return value instanceof RReal ? ((RReal)value).value : ((IInteger)value).value;
+	}
+
+	/**
+	 * Sets the value at the end of the path from the specified model, notifying
+	 * its value change observers
+	 *
+	 * @param model    instance of the model
+	 * @param newValue the new value, rounded if the value is an integer
+	 */
+	public void set(Object model, double newValue)
+	{
+		SysMLValueType value = valueOf(model);
+		if (value instanceof RReal)
+			((RReal)value).setValue(newValue);
+		else
+			((IInteger)value).setValue(Math.round(newValue));
+	}
+
+	/**
+	 * Returns the accessor of the field of the specified name of the specified
+	 * class or its superclasses, from the metadata registry if the field is
+	 * indexed, otherwise by reflection
+	 *
+	 * @param type         the class
+	 * @param name         name of the field
+	 * @param isValueField whether the field must be a {@code @Value} field
+	 * @param path         the path, for the messages of exceptions
+	 * @return the accessor
+	 * @throws IllegalArgumentException if the field is not found, not
+	 *                                  accessible, or not a {@code @Value} field
+	 *                                  as required
+	 */
+	private static Function<Object, Object> accessorOf(Class<?> type, String name, boolean isValueField, String path)
+	{
+		Optional<Function<Object, Object>> result = Optional.empty();
+		for (FieldMetadata field : SysMLMetadata.fieldsOf(type))
+			if (field.name.equals(name) && !field.isStatic && field.accessor.isPresent() && (!isValueField || field.isAnnotatedWith(Value.class)))
+				result = field.accessor;
+		for (Class<?> declaring = type; result.isEmpty() && declaring != null; declaring = declaring.getSuperclass())
+			try
+			{
+				Field field = declaring.getDeclaredField(name);
+				if (Modifier.isStatic(field.getModifiers()) || isValueField && !isAnnotatedValue(field))
+					throw new IllegalArgumentException("value path " + path + ": not a " + (isValueField ? "@Value " : "") + "instance field: " + name);
+				if (!field.trySetAccessible())
+					throw new IllegalArgumentException("value path " + path + ": field not accessible, its package may need to be opened to sysmlinjava: " + field);
+				result = Optional.of(instance ->
+				{
+					try
+					{
+						return field.get(instance);
+					} catch (IllegalAccessException e)
+					{
+						throw new IllegalStateException(e);
+					}
+				});
+			} catch (NoSuchFieldException e)
+			{
+			}
+		return result.orElseThrow(() -> new IllegalArgumentException("value path " + path + ": field not found: " + name + " of " + type.getName()));
+	}
+
+	/**
+	 * Returns whether the specified field, found by reflection, is a
+	 * {@code @Value} field, i.e. is indexed as a {@code @Value} field if its class
+	 * is indexed, otherwise is a field of a value type
+	 *
+	 * @param field the field
+	 * @return true if the field is a {@code @Value} field
+	 */
+	private static boolean isAnnotatedValue(Field field)
+	{
+		boolean result = false;
+		Optional<ClassMetadata> metadata = SysMLMetadata.classMetadata(field.getDeclaringClass());
+		if (metadata.isPresent())
+		{
+			for (FieldMetadata indexed : metadata.get().fields)
+				if (indexed.name.equals(field.getName()) && indexed.isAnnotatedWith(Value.class))
+					result = true;
+		}
+		else
+			result = SysMLValueType.class.isAssignableFrom(field.getType());
+		return result;
+	}
+
+	@Override
+	public String toString()
+	{
+		return "ValuePath [" + path + "]";
+	}
+}
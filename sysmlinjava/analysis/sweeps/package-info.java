@@ -0,0 +1,9 @@
+/**
+ * Contains the design-of-experiments and parameter-sweep runner for SysMLinJava
+ * models, i.e. the full-factorial and Latin-hypercube designs of the values of
+ * the models' {@code @Value} fields, the runner that executes each scenario of
+ * a design on its own copy of the model in virtual time, in worker threads or
+ * forked JVMs, and the append-only columnar file into which the outputs of the
+ * scenarios are streamed and from which an interrupted sweep is resumed.
+ */
+package sysmlinjava.analysis.sweeps;
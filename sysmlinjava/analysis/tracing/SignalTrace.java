@@ -0,0 +1,184 @@
+package sysmlinjava.analysis.tracing;
+
+import java.io.Serializable;
+
+/**
+ * Trace context of a signal transmitted by a {@code SysMLFullPort}. The
+ * {@code SignalTrace} is stamped on a signal when the signal is transmitted by
+ * the full port at the top of a protocol stack, i.e. the port whose
+ * {@code transmit()} operation is first called, and accompanies the signal and
+ * the objects and events created from it through the client/server hops of
+ * protocol stacks, the UDP transport between processes, and the event queue of
+ * the receiving block's state machine. The times at which each of these stages
+ * is reached are recorded in the trace, and when the state machine completes
+ * its response to the event the trace is completed and its latencies recorded
+ * in the {@code TracePathStatistics} for its path.
+ * <p>
+ * All times are nanoseconds since the epoch as provided by the
+ * {@code SignalTracing.epochNanos()} clock, so the times of a trace that crosses
+ * processes on the same (or a time-synchronized) host are comparable.
+ * <p>
+ * The {@code SignalTrace} is {@code Serializable} so it can be transmitted
+ * with its signal by the full port's UDP transmitter. Upon receipt of a signal
+ * by a port, the trace is copied for the receiving port, so a signal transmitted
+ * to multiple peers produces a separate trace for each peer. Likewise, the trace
+ * is forked for each event created from the signal, so that the queueing and
+ * completion of one event are not recorded in the trace of another.
+ *
+ * @author ModelerOne
+ *
+ * @see SignalTracing
+ */
+public class SignalTrace implements Serializable
+{
+	/**
+	 * Unique ID of the trace, i.e. of the original transmission of the signal
+	 */
+	public final long traceID;
+	/**
+	 * Type of the full port that originally transmitted the signal
+	 */
+	public final String originPortType;
+	/**
+	 * Time at which the signal was originally transmitted
+	 */
+	public final long transmitNanos;
+	/**
+	 * Type of the full port that received the signal, or null if not yet received
+	 */
+	public String receivingPortType;
+	/**
+	 * Time at which the signal was received by the peer port, or 0 if not yet
+	 * received
+	 */
+	public long receiveNanos;
+	/**
+	 * Time at which the event for the signal was submitted to the state machine's
+	 * event queue, or 0 if not yet submitted
+	 */
+	public long enqueueNanos;
+	/**
+	 * Time at which the event for the signal was taken from the state machine's
+	 * event queue for processing, or 0 if not yet taken
+	 */
+	public long dequeueNanos;
+	/**
+	 * Time at which the state machine completed its response to the event, or 0
+	 * if not yet completed
+	 */
+	public long completeNanos;
+
+	/**
+	 * Constructor for new trace of an original transmission
+	 * 
+	 * @param traceID        unique ID of the trace
+	 * @param originPortType type of the full port that transmitted the signal
+	 * @param transmitNanos  time of the transmission
+	 */
+	public SignalTrace(long traceID, String originPortType, long transmitNanos)
+	{
+		super();
+		this.traceID = traceID;
+		this.originPortType = originPortType;
+		this.transmitNanos = transmitNanos;
+	}
+
+	/**
+	 * Returns a copy of this trace stamped with the receipt of the signal by the
+	 * specified type of port at the specified time
+	 * 
+	 * @param receivingPortType type of the port that received the signal
+	 * @param receiveNanos      time of receipt
+	 * @return copy of this trace for the receipt of the signal
+	 */
+	public SignalTrace receivedBy(String receivingPortType, long receiveNanos)
+	{
+		SignalTrace result = new SignalTrace(traceID, originPortType, transmitNanos);
+		result.receivingPortType = receivingPortType;
+		result.receiveNanos = receiveNanos;
+		return result;
+	}
+
+	/**
+	 * Returns a fork of this trace for an event created from the signal, i.e. a
+	 * copy of the trace's transmission and receipt whose queueing and completion
+	 * are recorded separately from those of this trace
+	 * 
+	 * @return fork of this trace
+	 */
+	public SignalTrace fork()
+	{
+		SignalTrace result = new SignalTrace(traceID, originPortType, transmitNanos);
+		result.receivingPortType = receivingPortType;
+		result.receiveNanos = receiveNanos;
+		return result;
+	}
+
+	/**
+	 * Returns the path of the trace, i.e. the origin and receiving port types, by
+	 * which the trace's latencies are summarized
+	 * 
+	 * @return path of the trace
+	 */
+	public String path()
+	{
+		return originPortType + " -> " + (receivingPortType != null ? receivingPortType : "?");
+	}
+
+	/**
+	 * Returns the transport latency, i.e. the time from original transmission to
+	 * receipt by the peer port, including client/server hops and UDP transport
+	 * 
+	 * @return transport latency, nanoseconds
+	 */
+	public long transportNanos()
+	{
+		return receiveNanos > 0 ? receiveNanos - transmitNanos : 0;
+	}
+
+	/**
+	 * Returns the queueing latency, i.e. the time the event for the signal waited
+	 * in the state machine's event queue
+	 * 
+	 * @return queueing latency, nanoseconds
+	 */
+	public long queueingNanos()
+	{
+		return enqueueNanos > 0 && dequeueNanos > 0 ? dequeueNanos - enqueueNanos : 0;
+	}
+
+	/**
+	 * Returns the effect latency, i.e. the time the state machine took to respond
+	 * to the event, including guards, effects, and state exit and entry
+	 * activities
+	 * 
+	 * @return effect latency, nanoseconds
+	 */
+	public long effectNanos()
+	{
+		return dequeueNanos > 0 && completeNanos > 0 ? completeNanos - dequeueNanos : 0;
+	}
+
+	/**
+	 * Returns the end-to-end latency, i.e. the time from original transmission to
+	 * the completion of the state machine's response to the event
+	 * 
+	 * @return end-to-end latency, nanoseconds
+	 */
+	public long endToEndNanos()
+	{
+		return completeNanos > 0 ? completeNanos - transmitNanos : 0;
+	}
+
+	@Override
+	public String toString()
+	{
+		return String.format("SignalTrace [traceID=%d, path=%s, transportNanos=%d, queueingNanos=%d, effectNanos=%d, endToEndNanos=%d]", traceID, path(), transportNanos(), queueingNanos(), effectNanos(),
+			endToEndNanos());
+	}
+
+	/**
+	 * Serializable ID
+	 */
+	private static final long serialVersionUID = 7411396310228562451L;
+}
@@ -0,0 +1,243 @@
+package sysmlinjava.analysis.tracing;
+
+import java.lang.management.ManagementFactory;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import sysmlinjava.analysis.metrics.LatencyHistogram;
+import sysmlinjava.analysis.metrics.SysMLMetrics;
+
+/**
+ * Controller of the end-to-end tracing of signals through executing SysMLinJava
+ * models. When tracing is enabled, the {@code SysMLFullPort} stamps a
+ * {@code SignalTrace} on each signal it originally transmits and the trace
+ * follows the signal through the stages of its delivery:
+ * <ul>
+ * <li>client/server hops in the transmitting and receiving protocol stacks, via
+ * the {@code current} thread-local trace</li>
+ * <li>UDP transport between processes, via serialization of the trace after
+ * the signal in the datagram</li>
+ * <li>the event for the signal that is submitted to the event context block,
+ * and the state machine's event queue</li>
+ * <li>the state machine's response to the event</li>
+ * </ul>
+ * When the state machine completes its response, the trace is completed and its
+ * latencies recorded in the {@code TracePathStatistics} of its path, which are
+ * registered as MBeans with the platform MBean server under the object name
+ * {@code sysmlinjava:type=SignalPath,path="..."}.
+ * <h2>Enabling</h2> Tracing is disabled by default and is enabled by the system
+ * property {@code sysmlinjava.tracing=true} or by setting the {@code enabled}
+ * field prior to the start of the model's execution. When disabled, the ports
+ * and state machines perform only a check of the field and of the absence of
+ * the trace on signals and events.
+ *
+ * @author ModelerOne
+ *
+ * @see SignalTrace
+ */
+public final class SignalTracing
+{
+	/**
+	 * Whether tracing is enabled
+	 */
+	public static volatile boolean enabled = Boolean.getBoolean("sysmlinjava.tracing");
+
+	/**
+	 * Logger for the tracing
+	 */
+	private static final Logger logger = Logger.getLogger(SignalTracing.class.getSimpleName());
+	/**
+	 * Trace of the signal currently being transmitted or received in this thread,
+	 * used to carry the trace through client/server hops of protocol stacks
+	 */
+	private static final ThreadLocal<SignalTrace> current = new ThreadLocal<>();
+	/**
+	 * Generator of unique trace IDs, seeded with the time so IDs of traces from
+	 * different processes are unlikely to collide
+	 */
+	private static final AtomicLong nextTraceID = new AtomicLong(System.currentTimeMillis() << 20);
+	/**
+	 * Statistics of the completed traces mapped by their paths
+	 */
+	private static final Map<String, TracePathStatistics> statisticsByPath = new ConcurrentHashMap<>();
+	/**
+	 * Nanoseconds since the epoch at the time the {@code anchorNanoTime} was
+	 * obtained
+	 */
+	private static final long anchorEpochNanos;
+	/**
+	 * {@code System.nanoTime()} at the time the {@code anchorEpochNanos} was
+	 * obtained
+	 */
+	private static final long anchorNanoTime;
+
+	static
+	{
+		Instant now = Instant.now();
+		anchorNanoTime = System.nanoTime();
+		anchorEpochNanos = now.getEpochSecond() * 1_000_000_000L + now.getNano();
+	}
+
+	/**
+	 * Private constructor, as all operations are static
+	 */
+	private SignalTracing()
+	{
+		super();
+	}
+
+	/**
+	 * Returns the current time in nanoseconds since the epoch. The time is
+	 * anchored to the wall clock once and advanced by {@code System.nanoTime()},
+	 * so it is monotonic within a process and comparable across processes to the
+	 * extent their wall clocks are synchronized.
+	 * 
+	 * @return current time, nanoseconds since the epoch
+	 */
+	public static long epochNanos()
+	{
+		return anchorEpochNanos + (System.nanoTime() - anchorNanoTime);
+	}
+
+	/**
+	 * Returns the trace of the signal currently being transmitted or received in
+	 * this thread, if any
+	 * 
+	 * @return optional current trace
+	 */
+	public static Optional<SignalTrace> current()
+	{
+		return Optional.ofNullable(current.get());
+	}
+
+	/**
+	 * Sets the trace of the signal currently being transmitted or received in this
+	 * thread and returns the previously current trace, which should be restored
+	 * by a subsequent call once the transmission or receipt is complete
+	 * 
+	 * @param trace optional trace to be made current
+	 * @return previously current trace, or null if none
+	 */
+	public static SignalTrace setCurrent(Optional<SignalTrace> trace)
+	{
+		SignalTrace result = current.get();
+		current.set(trace.orElse(null));
+		return result;
+	}
+
+	/**
+	 * Restores the previously current trace returned by {@code setCurrent()}
+	 * 
+	 * @param previous previously current trace, or null if none
+	 */
+	public static void restoreCurrent(SignalTrace previous)
+	{
+		if (previous == null)
+			current.remove();
+		else
+			current.set(previous);
+	}
+
+	/**
+	 * Returns the trace for a transmission by the specified type of port, i.e. the
+	 * current trace if the transmission is a hop in a protocol stack, or a new
+	 * trace if it is an original transmission
+	 * 
+	 * @param portType type of the transmitting port
+	 * @return trace for the transmission
+	 */
+	public static SignalTrace traceForTransmit(String portType)
+	{
+		SignalTrace result = current.get();
+		if (result == null)
+			result = new SignalTrace(nextTraceID.incrementAndGet(), portType, epochNanos());
+		return result;
+	}
+
+	/**
+	 * Completes the specified trace, i.e. stamps its completion time and records
+	 * its latencies in the statistics for its path
+	 * 
+	 * @param trace trace to be completed
+	 */
+	public static void complete(SignalTrace trace)
+	{
+		trace.completeNanos = epochNanos();
+		statisticsFor(trace.path()).record(trace);
+	}
+
+	/**
+	 * Returns the statistics of the specified path, creating and registering them
+	 * if they do not yet exist
+	 * 
+	 * @param path path whose statistics are to be returned
+	 * @return statistics of the path
+	 */
+	public static TracePathStatistics statisticsFor(String path)
+	{
+		return statisticsByPath.computeIfAbsent(path, newPath ->
+		{
+			TracePathStatistics statistics = new TracePathStatistics(newPath);
+			register(statistics);
+			return statistics;
+		});
+	}
+
+	/**
+	 * Returns a list of the statistics of all paths traced
+	 * 
+	 * @return list of statistics
+	 */
+	public static List<TracePathStatistics> allStatistics()
+	{
+		return new ArrayList<>(statisticsByPath.values());
+	}
+
+	/**
+	 * Returns a report of the latency percentiles of all paths traced, e.g. for
+	 * logging at the end of the model's execution
+	 * 
+	 * @return report of latencies
+	 */
+	public static String report()
+	{
+		StringBuilder result = new StringBuilder();
+		statisticsByPath.values().forEach(statistics -> result.append(statistics.getSummary()).append(System.lineSeparator()));
+		return result.toString();
+	}
+
+	/**
+	 * Registers the specified statistics and their histograms with the platform
+	 * MBean server
+	 * 
+	 * @param statistics statistics to be registered
+	 */
+	private static void register(TracePathStatistics statistics)
+	{
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		String baseName = String.format("%s:type=SignalPath,path=%s", SysMLMetrics.domain, ObjectName.quote(statistics.path));
+		try
+		{
+			ObjectName objectName = new ObjectName(baseName);
+			if (!server.isRegistered(objectName))
+				server.registerMBean(statistics, objectName);
+			for (Map.Entry<String, LatencyHistogram> histogram : statistics.histograms().entrySet())
+			{
+				ObjectName histogramObjectName = new ObjectName(baseName + ",histogram=" + ObjectName.quote(histogram.getKey()));
+				if (!server.isRegistered(histogramObjectName))
+					server.registerMBean(histogram.getValue(), histogramObjectName);
+			}
+		} catch (JMException e)
+		{
+			logger.warning("failed to register statistics for path " + statistics.path + ": " + e.getMessage());
+		}
+	}
+}
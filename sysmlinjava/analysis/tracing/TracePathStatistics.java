@@ -0,0 +1,118 @@
+package sysmlinjava.analysis.tracing;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import sysmlinjava.analysis.metrics.LatencyHistogram;
+
+/**
+ * Latency statistics of the completed signal traces of a path, i.e. of the
+ * signals transmitted by one type of port and received by another. The
+ * {@code TracePathStatistics} records the transport, queueing, effect, and
+ * end-to-end latencies of each completed trace in {@code LatencyHistogram}s,
+ * providing a breakdown of where the end-to-end latency of the path is spent.
+ *
+ * @author ModelerOne
+ *
+ * @see SignalTracing
+ */
+public class TracePathStatistics implements TracePathStatisticsMBean
+{
+	/**
+	 * Path whose traces are summarized
+	 */
+	public final String path;
+	/**
+	 * Histogram of the transport latencies, i.e. transmission to receipt
+	 */
+	public final LatencyHistogram transport;
+	/**
+	 * Histogram of the queueing latencies, i.e. enqueue to dequeue
+	 */
+	public final LatencyHistogram queueing;
+	/**
+	 * Histogram of the effect latencies, i.e. dequeue to completion of response
+	 */
+	public final LatencyHistogram effect;
+	/**
+	 * Histogram of the end-to-end latencies, i.e. transmission to completion of
+	 * response
+	 */
+	public final LatencyHistogram endToEnd;
+
+	/**
+	 * Constructor
+	 * 
+	 * @param path path whose traces are to be summarized
+	 */
+	public TracePathStatistics(String path)
+	{
+		super();
+		this.path = path;
+		transport = new LatencyHistogram();
+		queueing = new LatencyHistogram();
+		effect = new LatencyHistogram();
+		endToEnd = new LatencyHistogram();
+	}
+
+	/**
+	 * Records the latencies of the specified completed trace
+	 * 
+	 * @param trace completed trace to be recorded
+	 */
+	public void record(SignalTrace trace)
+	{
+		transport.record(trace.transportNanos());
+		queueing.record(trace.queueingNanos());
+		effect.record(trace.effectNanos());
+		endToEnd.record(trace.endToEndNanos());
+	}
+
+	/**
+	 * Returns the histograms of the statistics mapped by their names
+	 * 
+	 * @return map of the histograms
+	 */
+	public Map<String, LatencyHistogram> histograms()
+	{
+		Map<String, LatencyHistogram> result = new LinkedHashMap<>();
+		result.put("transport", transport);
+		result.put("queueing", queueing);
+		result.put("effect", effect);
+		result.put("endToEnd", endToEnd);
+		return result;
+	}
+
+	@Override
+	public String getPath()
+	{
+		return path;
+	}
+
+	@Override
+	public long getTraceCount()
+	{
+		return endToEnd.getCount();
+	}
+
+	@Override
+	public String getSummary()
+	{
+		StringBuilder result = new StringBuilder(path);
+		result.append(String.format(" (%d traces)", getTraceCount()));
+		histograms().forEach((name, histogram) -> result.append(String.format("%n  %-9s p50=%10.1f p90=%10.1f p99=%10.1f max=%10.1f us", name, histogram.getP50Micros(), histogram.getP90Micros(),
+			histogram.getP99Micros(), histogram.getMaxMicros())));
+		return result.toString();
+	}
+
+	@Override
+	public void reset()
+	{
+		histograms().values().forEach(histogram -> histogram.reset());
+	}
+
+	@Override
+	public String toString()
+	{
+		return getSummary();
+	}
+}
@@ -0,0 +1,41 @@
+package sysmlinjava.analysis.tracing;
+
+/**
+ * JMX management interface for the {@code TracePathStatistics}. The
+ * attributes summarize the end-to-end latency of the completed traces of a
+ * path. The transport, queueing, effect, and end-to-end histograms are
+ * registered as separate {@code LatencyHistogramMBean}s.
+ *
+ * @author ModelerOne
+ *
+ * @see TracePathStatistics
+ */
+public interface TracePathStatisticsMBean
+{
+	/**
+	 * Returns the path whose traces are summarized
+	 *
+	 * @return the path
+	 */
+	String getPath();
+
+	/**
+	 * Returns the number of completed traces of the path
+	 *
+	 * @return number of completed traces
+	 */
+	long getTraceCount();
+
+	/**
+	 * Returns a summary of the percentiles of the transport, queueing, effect, and
+	 * end-to-end latencies of the path
+	 *
+	 * @return summary of the latencies
+	 */
+	String getSummary();
+
+	/**
+	 * Clears the histograms of the statistics
+	 */
+	void reset();
+}
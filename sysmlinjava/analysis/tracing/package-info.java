@@ -0,0 +1,8 @@
+/**
+ * Contains classes that trace signals end-to-end through executing SysMLinJava
+ * models, i.e. from the transmission of a signal by a full port, through
+ * client/server protocol hops, UDP transport, and state machine event queues,
+ * to the completion of the state machine's response to the resulting event,
+ * and that summarize the transport, queueing, and effect latencies per path.
+ */
+package sysmlinjava.analysis.tracing;
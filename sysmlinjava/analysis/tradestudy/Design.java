@@ -0,0 +1,109 @@
+package sysmlinjava.analysis.tradestudy;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Candidate design of a {@code TradeStudy} that has been evaluated, i.e. the
+ * values of its design variables and of its objectives.
+ * <h2>Dominance</h2> A design dominates another if it is no worse for every
+ * objective and better for at least one, as determined by the costs of the
+ * objectives, i.e. their values negated for the objectives to be maximized. A
+ * design whose evaluation failed is infeasible, and is dominated by every
+ * feasible design.
+ *
+ * @author ModelerOne
+ *
+ * @see TradeStudy
+ */
+public final class Design implements Serializable
+{
+	/** Serializable ID*/private static final long serialVersionUID = 4381975530471662014L;
+	/**
+	 * Values of the design variables in order of the variables of the trade study
+	 */
+	public final double[] variables;
+	/**
+	 * Values of the objectives in order of the objectives of the trade study, or
+	 * NaN if the design is infeasible
+	 */
+	public final double[] objectives;
+	/**
+	 * Whether the evaluation of the design succeeded
+	 */
+	public final boolean isFeasible;
+	/**
+	 * Costs of the objectives, i.e. the values to be minimized
+	 */
+	final double[] costs;
+	/**
+	 * Rank of the design, i.e. index of the non-dominated front of the population
+	 * to which it belongs
+	 */
+	int rank;
+	/**
+	 * Crowding distance of the design within its front
+	 */
+	double crowdingDistance;
+
+	/**
+	 * Constructor
+	 *
+	 * @param variables  values of the design variables
+	 * @param objectives values of the objectives
+	 * @param costs      costs of the objectives
+	 * @param isFeasible whether the evaluation of the design succeeded
+	 */
+	Design(double[] variables, double[] objectives, double[] costs, boolean isFeasible)
+	{
+		super();
+		this.variables = variables;
+		this.objectives = objectives;
+		this.costs = costs;
+		this.isFeasible = isFeasible;
+		this.rank = 0;
+		this.crowdingDistance = 0.0;
+	}
+
+	/**
+	 * Returns whether this design dominates the specified design
+	 *
+	 * @param other the other design
+	 * @return true if this design dominates the other
+	 */
+	public boolean dominates(Design other)
+	{
+		boolean result;
+		if (!isFeasible || !other.isFeasible)
+			result = isFeasible && !other.isFeasible;
+		else
+		{
+			boolean isBetter = false;
+			boolean isWorse = false;
+			for (int i = 0; i < costs.length && !isWorse; i++)
+				if (costs[i] < other.costs[i])
+					isBetter = true;
+				else if (costs[i] > other.costs[i])
+					isWorse = true;
+			result = isBetter && !isWorse;
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the rank of the design in the population of the latest generation,
+	 * i.e. 0 for the designs of the Pareto front
+	 *
+	 * @return the rank
+	 */
+	public int rank()
+	{
+		return rank;
+	}
+
+	@Override
+	public String toString()
+	{
+		return String.format("Design [variables=%s, objectives=%s%s]", Arrays.toString(variables), Arrays.toString(objectives), isFeasible ? "" : ", infeasible");
+	}
+}
@@ -0,0 +1,141 @@
+package sysmlinjava.analysis.tradestudy;
+
+import java.util.function.Function;
+import sysmlinjava.valuetypes.IInteger;
+import sysmlinjava.valuetypes.RReal;
+
+/**
+ * Design variable of a {@code TradeStudy}, i.e. a bounded {@code RReal} or
+ * {@code IInteger} value of the model whose value is chosen by the search.
+ * <h2>Access to the value</h2> As each worker of the trade study evaluates the
+ * candidate designs on its own instance of the model, the design variable
+ * identifies its value by a function that returns the value of a specified
+ * instance of the model rather than by the value itself, e.g.
+ *
+ * <pre>
+ * {@code
+ * DesignVariable.real("wingArea", 10.0, 40.0, (AircraftModel model) -> model.wing.area)
+ * }
+ * </pre>
+ *
+ * The value is set by its {@code setValue()} operation, so that the value change
+ * observers of the value, e.g. the constraint parameter ports bound to it, are
+ * notified of the change.
+ *
+ * @author ModelerOne
+ *
+ * @param <M> type of the model of the trade study
+ */
+public final class DesignVariable<M>
+{
+	/**
+	 * Name of the variable
+	 */
+	public final String name;
+	/**
+	 * Lower bound of the value of the variable
+	 */
+	public final double lowerBound;
+	/**
+	 * Upper bound of the value of the variable
+	 */
+	public final double upperBound;
+	/**
+	 * Whether the variable is integer-valued, i.e. an {@code IInteger}
+	 */
+	public final boolean isInteger;
+	/**
+	 * Function that returns the real value of the variable of a model instance, if
+	 * real-valued
+	 */
+	private final Function<M, RReal> realValue;
+	/**
+	 * Function that returns the integer value of the variable of a model instance,
+	 * if integer-valued
+	 */
+	private final Function<M, IInteger> integerValue;
+
+	/**
+	 * Constructor
+	 *
+	 * @param name         name of the variable
+	 * @param lowerBound   lower bound of the value
+	 * @param upperBound   upper bound of the value
+	 * @param realValue    function that returns the real value, or null
+	 * @param integerValue function that returns the integer value, or null
+	 * @throws IllegalArgumentException if the bounds are not ordered
+	 */
+	private DesignVariable(String name, double lowerBound, double upperBound, Function<M, RReal> realValue, Function<M, IInteger> integerValue)
+	{
+		super();
+		if (!(lowerBound <= upperBound))
+			throw new IllegalArgumentException("design variable " + name + ": lower bound exceeds upper bound");
+		this.name = name;
+		this.lowerBound = lowerBound;
+		this.upperBound = upperBound;
+		this.isInteger = integerValue != null;
+		this.realValue = realValue;
+		this.integerValue = integerValue;
+	}
+
+	/**
+	 * Returns a real-valued design variable
+	 *
+	 * @param <M>        type of the model
+	 * @param name       name of the variable
+	 * @param lowerBound lower bound of the value
+	 * @param upperBound upper bound of the value
+	 * @param value      function that returns the {@code RReal} value of the
+	 *                   variable of a model instance
+	 * @return the design variable
+	 */
+	public static <M> DesignVariable<M> real(String name, double lowerBound, double upperBound, Function<M, RReal> value)
+	{
+		return new DesignVariable<>(name, lowerBound, upperBound, value, null);
+	}
+
+	/**
+	 * Returns an integer-valued design variable
+	 *
+	 * @param <M>        type of the model
+	 * @param name       name of the variable
+	 * @param lowerBound lower bound of the value
+	 * @param upperBound upper bound of the value
+	 * @param value      function that returns the {@code IInteger} value of the
+	 *                   variable of a model instance
+	 * @return the design variable
+	 */
+	public static <M> DesignVariable<M> integer(String name, long lowerBound, long upperBound, Function<M, IInteger> value)
+	{
+		return new DesignVariable<>(name, lowerBound, upperBound, null, value);
+	}
+
+	/**
+	 * Returns the specified value limited to the bounds of the variable and, if
+	 * integer-valued, rounded to the nearest integer
+	 *
+	 * @param value the value
+	 * @return the feasible value
+	 */
+	double feasible(double value)
+	{
+		double result = Math.min(upperBound, Math.max(lowerBound, value));
+		if (isInteger)
+			result = Math.min(Math.floor(upperBound), Math.max(Math.ceil(lowerBound), Math.rint(result)));
+		return result;
+	}
+
+	/**
+	 * Sets the variable of the specified model instance to the specified value
+	 *
+	 * @param model the model instance
+	 * @param value the value
+	 */
+	void apply(M model, double value)
+	{
+		if (isInteger)
+			integerValue.apply(model).setValue((long)value);
+		else
+			realValue.apply(model).setValue(value);
+	}
+}
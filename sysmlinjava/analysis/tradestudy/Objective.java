@@ -0,0 +1,135 @@
+package sysmlinjava.analysis.tradestudy;
+
+import java.util.function.Function;
+import sysmlinjava.constraintblocks.SysMLObjectiveFunctionBlock;
+import sysmlinjava.valuetypes.IInteger;
+import sysmlinjava.valuetypes.RReal;
+import sysmlinjava.valuetypes.SysMLValueType;
+
+/**
+ * Objective of a {@code TradeStudy}, i.e. a measure of effectiveness,
+ * performance, or suitability calculated by a
+ * {@code SysMLObjectiveFunctionBlock} of the model, which the search minimizes
+ * or maximizes.
+ * <h2>Access to the measure</h2> The objective identifies the objective
+ * function block of a specified instance of the model by a function, and the
+ * measure by the ID of the block's constraint parameter, which must be an
+ * {@code RReal} or {@code IInteger}, e.g.
+ *
+ * <pre>
+ * {@code
+ * Objective.maximize("range", (AircraftModel model) -> model.rangeObjective, "range")
+ * }
+ * </pre>
+ *
+ * The measure is read once the parametric network of the model instance has
+ * evaluated the design.
+ *
+ * @author ModelerOne
+ *
+ * @param <M> type of the model of the trade study
+ */
+public final class Objective<M>
+{
+	/**
+	 * Name of the objective
+	 */
+	public final String name;
+	/**
+	 * Whether the objective is to be minimized, otherwise maximized
+	 */
+	public final boolean isMinimized;
+	/**
+	 * ID of the constraint parameter of the objective function block that is the
+	 * measure
+	 */
+	public final String paramID;
+	/**
+	 * Function that returns the objective function block of a model instance
+	 */
+	private final Function<M, ? extends SysMLObjectiveFunctionBlock> objectiveFunctionBlock;
+
+	/**
+	 * Constructor
+	 *
+	 * @param name                   name of the objective
+	 * @param isMinimized            whether the objective is to be minimized
+	 * @param objectiveFunctionBlock function that returns the objective function
+	 *                               block of a model instance
+	 * @param paramID                ID of the constraint parameter that is the
+	 *                               measure
+	 */
+	private Objective(String name, boolean isMinimized, Function<M, ? extends SysMLObjectiveFunctionBlock> objectiveFunctionBlock, String paramID)
+	{
+		super();
+		this.name = name;
+		this.isMinimized = isMinimized;
+		this.objectiveFunctionBlock = objectiveFunctionBlock;
+		this.paramID = paramID;
+	}
+
+	/**
+	 * Returns an objective to be minimized
+	 *
+	 * @param <M>                    type of the model
+	 * @param name                   name of the objective
+	 * @param objectiveFunctionBlock function that returns the objective function
+	 *                               block of a model instance
+	 * @param paramID                ID of the constraint parameter that is the
+	 *                               measure
+	 * @return the objective
+	 */
+	public static <M> Objective<M> minimize(String name, Function<M, ? extends SysMLObjectiveFunctionBlock> objectiveFunctionBlock, String paramID)
+	{
+		return new Objective<>(name, true, objectiveFunctionBlock, paramID);
+	}
+
+	/**
+	 * Returns an objective to be maximized
+	 *
+	 * @param <M>                    type of the model
+	 * @param name                   name of the objective
+	 * @param objectiveFunctionBlock function that returns the objective function
+	 *                               block of a model instance
+	 * @param paramID                ID of the constraint parameter that is the
+	 *                               measure
+	 * @return the objective
+	 */
+	public static <M> Objective<M> maximize(String name, Function<M, ? extends SysMLObjectiveFunctionBlock> objectiveFunctionBlock, String paramID)
+	{
+		return new Objective<>(name, false, objectiveFunctionBlock, paramID);
+	}
+
+	/**
+	 * Returns the measure of the specified model instance
+	 *
+	 * @param model the model instance
+	 * @return the value of the measure
+	 * @throws IllegalStateException if the measure is not an {@code RReal} or
+	 *                               {@code IInteger} constraint parameter
+	 */
+	double value(M model)
+	{
+		SysMLValueType param = objectiveFunctionBlock.apply(model).constraintParams.get(paramID);
+		double result;
+		if (param instanceof RReal)
+			result = ((RReal)param).value;
+		else if (param instanceof IInteger)
+			result = ((IInteger)param).value;
+		else
+			throw new IllegalStateException("objective " + name + ": no RReal or IInteger constraint parameter of ID: " + paramID);
+		return result;
+	}
+
+	/**
+	 * Returns the specified value of the measure as a cost, i.e. as a value to be
+	 * minimized
+	 *
+	 * @param value the value
+	 * @return the cost
+	 */
+	double cost(double value)
+	{
+		return isMinimized ? value : -value;
+	}
+}
@@ -0,0 +1,26 @@
+package sysmlinjava.analysis.tradestudy;
+
+import java.util.List;
+import sysmlinjava.common.SysMLInterface;
+
+/**
+ * Observer of the Pareto front of a {@code TradeStudy}, which is notified of
+ * the front as it evolves, i.e. once for each generation of the search.
+ *
+ * @author ModelerOne
+ *
+ * @see TradeStudy#addObserver(ParetoFrontObserver)
+ */
+@FunctionalInterface
+public interface ParetoFrontObserver extends SysMLInterface
+{
+	/**
+	 * Operation that is invoked, in the thread that runs the trade study, upon the
+	 * completion of each generation of the search
+	 *
+	 * @param generation number of the generation, 0 for the initial population
+	 * @param front      the non-dominated designs of the population of the
+	 *                   generation
+	 */
+	void onParetoFront(int generation, List<Design> front);
+}
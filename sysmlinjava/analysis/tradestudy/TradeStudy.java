@@ -0,0 +1,652 @@
+package sysmlinjava.analysis.tradestudy;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import sysmlinjava.constraintblocks.ParametricNetwork;
+
+/**
+ * Multi-objective trade study of a SysMLinJava model, i.e. the search for the
+ * Pareto front of the designs of the model, the designs for which no objective
+ * can be improved without worsening another.
+ * <h2>Declaration</h2> The trade study is declared by
+ * <ul>
+ * <li>a factory of instances of the model, e.g. the constructor of a class that
+ * creates the model's blocks and constraint blocks and binds them to each
+ * other</li>
+ * <li>a function that returns the {@code ParametricNetwork} of a model
+ * instance, i.e. the network of the constraint blocks that calculate the
+ * objectives from the design variables</li>
+ * <li>the {@code DesignVariable}s, i.e. the bounded {@code RReal} and
+ * {@code IInteger} values of the model to be chosen by the search</li>
+ * <li>the {@code Objective}s, i.e. the measures of the
+ * {@code SysMLObjectiveFunctionBlock}s of the model to be minimized or
+ * maximized</li>
+ * </ul>
+ * <h2>Search</h2> The search is the NSGA-II genetic algorithm, i.e. a
+ * population of designs is evolved for a number of generations, in each of
+ * which
+ * <ol>
+ * <li>offspring designs are created from parent designs chosen by binary
+ * tournaments, by simulated binary crossover and polynomial mutation of their
+ * design variables</li>
+ * <li>the offspring designs are evaluated</li>
+ * <li>the next population is selected from the parents and the offspring by
+ * their rank, i.e. the index of the non-dominated front to which they belong,
+ * and by their crowding distance within the last front selected, which
+ * preserves the diversity of the front</li>
+ * </ol>
+ * Integer-valued design variables are rounded to the nearest integer within
+ * their bounds.
+ * <h3>Parallel evaluation on isolated models</h3> The designs of a generation
+ * are evaluated concurrently by the workers of a {@code ForkJoinPool}. Each
+ * evaluation borrows a model instance that no other evaluation is using,
+ * creating and attaching its parametric network if there is none idle, sets
+ * the design variables in an {@code update()} of the network, so that the
+ * affected constraint blocks are evaluated once in the worker's thread, reads
+ * the objectives, and returns the instance for the next evaluation. The model
+ * instances are therefore never shared between concurrent evaluations, and at
+ * most one instance per worker is created. An evaluation that fails, or whose
+ * objectives are not numbers, yields an infeasible design, which is logged and
+ * dominated by all feasible designs.
+ * <h3>Streaming, resumption, and early termination</h3> The
+ * {@code ParetoFrontObserver}s of the trade study are notified of the front of
+ * each generation as the search evolves. The search may be stopped early by
+ * the {@code stop()} operation, e.g. by an observer that is satisfied with the
+ * front, upon which the evaluations not yet begun are skipped and the
+ * generation is completed with the designs already evaluated. A subsequent
+ * {@code run()} continues the search from its current population, and the
+ * search can be resumed in another execution from a
+ * {@code TradeStudyCheckpoint}, as follows:
+ *
+ * <pre>
+ * {@code
+ * TradeStudy<AircraftModel> study = new TradeStudy<>(AircraftModel::new, model -> model.network, variables, objectives);
+ * study.addObserver((generation, front) -> System.out.println(generation + ": " + front.size()));
+ * study.run(50);
+ * TradeStudyCheckpoint checkpoint = study.checkpoint();
+ * ...
+ * study.resume(checkpoint);
+ * study.run(50);
+ * }
+ * </pre>
+ *
+ * @author ModelerOne
+ *
+ * @param <M> type of the model of the trade study
+ *
+ * @see sysmlinjava.constraintblocks.SysMLObjectiveFunctionBlock
+ * @see ParametricNetwork
+ */
+public class TradeStudy<M>
+{
+	/**
+	 * Design variables of the study
+	 */
+	public final List<DesignVariable<M>> variables;
+	/**
+	 * Objectives of the study
+	 */
+	public final List<Objective<M>> objectives;
+	/**
+	 * Number of designs of the population
+	 */
+	public int populationSize;
+	/**
+	 * Number of workers by which the designs are evaluated concurrently
+	 */
+	public int workerCount;
+	/**
+	 * Probability of the crossover of the variables of a pair of parents
+	 */
+	public double crossoverProbability;
+	/**
+	 * Distribution index of the simulated binary crossover, larger values of which
+	 * create offspring nearer their parents
+	 */
+	public double crossoverDistributionIndex;
+	/**
+	 * Probability of the mutation of each variable of an offspring, by default
+	 * the reciprocal of the number of variables
+	 */
+	public double mutationProbability;
+	/**
+	 * Distribution index of the polynomial mutation, larger values of which
+	 * create smaller mutations
+	 */
+	public double mutationDistributionIndex;
+	/**
+	 * Factory of the instances of the model
+	 */
+	private final Supplier<M> modelFactory;
+	/**
+	 * Function that returns the parametric network of a model instance
+	 */
+	private final Function<M, ParametricNetwork> networkOf;
+	/**
+	 * Model instances not being used by an evaluation
+	 */
+	private final ConcurrentLinkedQueue<M> idleModels;
+	/**
+	 * Observers of the Pareto front
+	 */
+	private final List<ParetoFrontObserver> observers;
+	/**
+	 * Number of model instances created
+	 */
+	private final AtomicLong modelCount;
+	/**
+	 * Number of designs evaluated
+	 */
+	private final AtomicLong evaluationCount;
+	/**
+	 * Random number generator of the search
+	 */
+	private Random random;
+	/**
+	 * Population of the latest generation, ranked
+	 */
+	private volatile List<Design> population;
+	/**
+	 * Number of the latest generation, or -1 before the initial population
+	 */
+	private volatile int generation;
+	/**
+	 * Whether the search has been requested to stop
+	 */
+	private volatile boolean isStopRequested;
+
+	/**
+	 * Constructor
+	 *
+	 * @param modelFactory factory of the instances of the model
+	 * @param networkOf    function that returns the parametric network of a model
+	 *                     instance
+	 * @param variables    the design variables
+	 * @param objectives   the objectives
+	 * @throws IllegalArgumentException if there are no variables or objectives
+	 */
+	public TradeStudy(Supplier<M> modelFactory, Function<M, ParametricNetwork> networkOf, List<DesignVariable<M>> variables, List<Objective<M>> objectives)
+	{
+		super();
+		if (variables.isEmpty() || objectives.isEmpty())
+			throw new IllegalArgumentException("trade study requires design variables and objectives");
+		this.variables = List.copyOf(variables);
+		this.objectives = List.copyOf(objectives);
+		this.populationSize = 100;
+		this.workerCount = Runtime.getRuntime().availableProcessors();
+		this.crossoverProbability = 0.9;
+		this.crossoverDistributionIndex = 20.0;
+		this.mutationProbability = 1.0 / variables.size();
+		this.mutationDistributionIndex = 20.0;
+		this.modelFactory = modelFactory;
+		this.networkOf = networkOf;
+		this.idleModels = new ConcurrentLinkedQueue<>();
+		this.observers = new CopyOnWriteArrayList<>();
+		this.modelCount = new AtomicLong();
+		this.evaluationCount = new AtomicLong();
+		this.random = new Random();
+		this.population = List.of();
+		this.generation = -1;
+		this.isStopRequested = false;
+	}
+
+	/**
+	 * Sets the seed of the random number generator of the search, so that the
+	 * search is repeatable
+	 *
+	 * @param seed the seed
+	 */
+	public synchronized void setSeed(long seed)
+	{
+		random = new Random(seed);
+	}
+
+	/**
+	 * Adds the specified observer of the Pareto front
+	 *
+	 * @param observer the observer
+	 */
+	public void addObserver(ParetoFrontObserver observer)
+	{
+		observers.add(observer);
+	}
+
+	/**
+	 * Removes the specified observer of the Pareto front
+	 *
+	 * @param observer the observer
+	 */
+	public void removeObserver(ParetoFrontObserver observer)
+	{
+		observers.remove(observer);
+	}
+
+	/**
+	 * Runs the search for the specified number of generations, or until stopped,
+	 * beginning with the evaluation of a random initial population if there is no
+	 * current population
+	 *
+	 * @param generations number of generations to be evolved
+	 * @return the Pareto front of the last generation
+	 */
+	public synchronized List<Design> run(int generations)
+	{
+		isStopRequested = false;
+		ForkJoinPool pool = new ForkJoinPool(Math.max(1, workerCount));
+		try
+		{
+			if (population.isEmpty())
+			{
+				List<double[]> candidates = new ArrayList<>(populationSize);
+				for (int i = 0; i < populationSize; i++)
+				{
+					double[] candidate = new double[variables.size()];
+					for (int v = 0; v < candidate.length; v++)
+					{
+						DesignVariable<M> variable = variables.get(v);
+						candidate[v] = variable.feasible(variable.lowerBound + random.nextDouble() * (variable.upperBound - variable.lowerBound));
+					}
+					candidates.add(candidate);
+				}
+				completeGeneration(evaluate(candidates, pool));
+			}
+			for (int i = 0; i < generations && !isStopRequested; i++)
+			{
+				List<Design> combined = new ArrayList<>(population);
+				combined.addAll(evaluate(offspring(), pool));
+				completeGeneration(combined);
+			}
+		} finally
+		{
+			pool.shutdown();
+		}
+		return paretoFront();
+	}
+
+	/**
+	 * Requests the search to stop, upon which the evaluations of the current
+	 * generation not yet begun are skipped and the search stops at the end of the
+	 * generation
+	 */
+	public void stop()
+	{
+		isStopRequested = true;
+	}
+
+	/**
+	 * Returns the Pareto front of the latest generation, i.e. its feasible designs
+	 * that are not dominated by other designs
+	 *
+	 * @return the Pareto front, empty before the initial population
+	 */
+	public List<Design> paretoFront()
+	{
+		return population.stream().filter(design -> design.rank == 0 && design.isFeasible).collect(Collectors.toUnmodifiableList());
+	}
+
+	/**
+	 * Returns the population of the latest generation
+	 *
+	 * @return the population
+	 */
+	public List<Design> population()
+	{
+		return population;
+	}
+
+	/**
+	 * Returns the number of the latest generation
+	 *
+	 * @return the number of the generation, 0 for the initial population, or -1
+	 *         before the initial population
+	 */
+	public int generation()
+	{
+		return generation;
+	}
+
+	/**
+	 * Returns the number of designs evaluated
+	 *
+	 * @return number of evaluations
+	 */
+	public long evaluationCount()
+	{
+		return evaluationCount.get();
+	}
+
+	/**
+	 * Returns the number of model instances created by the workers
+	 *
+	 * @return number of model instances
+	 */
+	public long modelCount()
+	{
+		return modelCount.get();
+	}
+
+	/**
+	 * Returns a checkpoint of the search, from which it can be resumed
+	 *
+	 * @return the checkpoint
+	 */
+	public synchronized TradeStudyCheckpoint checkpoint()
+	{
+		long seed = random.nextLong();
+		random = new Random(seed);
+		return new TradeStudyCheckpoint(generation, evaluationCount.get(), population, seed);
+	}
+
+	/**
+	 * Resumes the search from the specified checkpoint, i.e. replaces the current
+	 * population by the population of the checkpoint, to be evolved by subsequent
+	 * runs
+	 *
+	 * @param checkpoint the checkpoint
+	 * @throws IllegalArgumentException if the designs of the checkpoint do not
+	 *                                  match the variables and objectives of the
+	 *                                  study
+	 */
+	public synchronized void resume(TradeStudyCheckpoint checkpoint)
+	{
+		for (Design design : checkpoint.population)
+			if (design.variables.length != variables.size() || design.objectives.length != objectives.size())
+				throw new IllegalArgumentException("checkpoint does not match the design variables and objectives of the trade study");
+		random = new Random(checkpoint.seed);
+		evaluationCount.set(checkpoint.evaluationCount);
+		generation = checkpoint.generation;
+		List<Design> resumed = new ArrayList<>(checkpoint.population);
+		rankAndCrowd(resumed);
+		population = Collections.unmodifiableList(resumed);
+	}
+
+	/**
+	 * Selects the next population from the specified designs, makes it the
+	 * current population, and notifies the observers of its Pareto front
+	 *
+	 * @param designs the designs, i.e. the current population and its offspring
+	 */
+	private void completeGeneration(List<Design> designs)
+	{
+		population = Collections.unmodifiableList(select(designs));
+		generation++;
+		List<Design> front = paretoFront();
+		int completed = generation;
+		observers.forEach(observer -> observer.onParetoFront(completed, front));
+	}
+
+	/**
+	 * Evaluates the specified candidate designs concurrently by the workers of the
+	 * specified pool, skipping the candidates not yet begun once the search is
+	 * requested to stop
+	 *
+	 * @param candidates values of the design variables of the candidates
+	 * @param pool       pool of the workers
+	 * @return the evaluated designs
+	 */
+	private List<Design> evaluate(List<double[]> candidates, ForkJoinPool pool)
+	{
+		List<Callable<Optional<Design>>> tasks = new ArrayList<>(candidates.size());
+		for (double[] candidate : candidates)
+			tasks.add(() -> isStopRequested ? Optional.empty() : Optional.of(evaluate(candidate)));
+		List<Design> result = new ArrayList<>(candidates.size());
+		for (Future<Optional<Design>> future : pool.invokeAll(tasks))
+			try
+			{
+				future.get().ifPresent(result::add);
+			} catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+				isStopRequested = true;
+			} catch (ExecutionException e)
+			{
+				logger.warning("trade study evaluation failed: " + e.getCause());
+			}
+		return result;
+	}
+
+	/**
+	 * Evaluates the specified candidate design on an idle model instance
+	 *
+	 * @param candidate values of the design variables
+	 * @return the evaluated design, infeasible if the evaluation failed
+	 */
+	private Design evaluate(double[] candidate)
+	{
+		M model = idleModels.poll();
+		if (model == null)
+		{
+			model = modelFactory.get();
+			networkOf.apply(model).attach();
+			modelCount.incrementAndGet();
+		}
+		double[] values = new double[objectives.size()];
+		double[] costs = new double[objectives.size()];
+		boolean isFeasible = true;
+		try
+		{
+			M evaluated = model;
+			networkOf.apply(model).update(() ->
+			{
+				for (int v = 0; v < candidate.length; v++)
+					variables.get(v).apply(evaluated, candidate[v]);
+			});
+			for (int o = 0; o < values.length; o++)
+			{
+				values[o] = objectives.get(o).value(model);
+				costs[o] = objectives.get(o).cost(values[o]);
+				if (Double.isNaN(values[o]))
+					isFeasible = false;
+			}
+		} catch (RuntimeException e)
+		{
+			logger.warning("trade study design evaluation failed, design infeasible: " + e);
+			isFeasible = false;
+		} finally
+		{
+			idleModels.add(model);
+			evaluationCount.incrementAndGet();
+		}
+		return new Design(candidate, values, costs, isFeasible);
+	}
+
+	/**
+	 * Returns the variables of the offspring of the current population, created
+	 * by crossover and mutation of parents chosen by binary tournaments
+	 *
+	 * @return values of the design variables of the offspring
+	 */
+	private List<double[]> offspring()
+	{
+		List<double[]> result = new ArrayList<>(populationSize);
+		while (result.size() < populationSize)
+		{
+			double[] child0 = tournament().variables.clone();
+			double[] child1 = tournament().variables.clone();
+			if (random.nextDouble() < crossoverProbability)
+				crossover(child0, child1);
+			mutate(child0);
+			mutate(child1);
+			result.add(child0);
+			if (result.size() < populationSize)
+				result.add(child1);
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the better of two designs of the current population chosen at
+	 * random, i.e. the design of lower rank or, of equal rank, of larger crowding
+	 * distance
+	 *
+	 * @return the chosen design
+	 */
+	private Design tournament()
+	{
+		Design design0 = population.get(random.nextInt(population.size()));
+		Design design1 = population.get(random.nextInt(population.size()));
+		Design result;
+		if (design0.rank != design1.rank)
+			result = design0.rank < design1.rank ? design0 : design1;
+		else
+			result = design0.crowdingDistance >= design1.crowdingDistance ? design0 : design1;
+		return result;
+	}
+
+	/**
+	 * Performs the simulated binary crossover of the specified variables, each
+	 * variable with a probability of one half
+	 *
+	 * @param child0 variables of the first child
+	 * @param child1 variables of the second child
+	 */
+	private void crossover(double[] child0, double[] child1)
+	{
+		for (int v = 0; v < child0.length; v++)
+			if (random.nextBoolean())
+			{
+				double u = random.nextDouble();
+				double beta = u <= 0.5 ? Math.pow(2.0 * u, 1.0 / (crossoverDistributionIndex + 1.0)) : Math.pow(1.0 / (2.0 * (1.0 - u)), 1.0 / (crossoverDistributionIndex + 1.0));
+				double x0 = child0[v];
+				double x1 = child1[v];
+				child0[v] = variables.get(v).feasible(0.5 * ((1.0 + beta) * x0 + (1.0 - beta) * x1));
+				child1[v] = variables.get(v).feasible(0.5 * ((1.0 - beta) * x0 + (1.0 + beta) * x1));
+			}
+	}
+
+	/**
+	 * Performs the polynomial mutation of the specified variables, each variable
+	 * with the mutation probability
+	 *
+	 * @param child variables of the child
+	 */
+	private void mutate(double[] child)
+	{
+		for (int v = 0; v < child.length; v++)
+			if (random.nextDouble() < mutationProbability)
+			{
+				DesignVariable<M> variable = variables.get(v);
+				double u = random.nextDouble();
+				double delta = u < 0.5 ? Math.pow(2.0 * u, 1.0 / (mutationDistributionIndex + 1.0)) - 1.0 : 1.0 - Math.pow(2.0 * (1.0 - u), 1.0 / (mutationDistributionIndex + 1.0));
+				double mutated = child[v] + delta * (variable.upperBound - variable.lowerBound);
+				if (variable.isInteger && mutated != child[v] && Math.rint(mutated) == child[v])
+					mutated = child[v] + Math.signum(delta);
+				child[v] = variable.feasible(mutated);
+			}
+	}
+
+	/**
+	 * Returns the designs selected from the specified designs for the next
+	 * population, i.e. the designs of the best fronts and, of the first front that
+	 * does not fit, the designs of largest crowding distance
+	 *
+	 * @param designs the designs
+	 * @return the selected designs
+	 */
+	private List<Design> select(List<Design> designs)
+	{
+		List<Design> result = new ArrayList<>(populationSize);
+		for (List<Design> front : rankAndCrowd(designs))
+			if (result.size() < populationSize)
+			{
+				if (result.size() + front.size() > populationSize)
+				{
+					front.sort(Comparator.comparingDouble((Design design) -> design.crowdingDistance).reversed());
+					front = front.subList(0, populationSize - result.size());
+				}
+				result.addAll(front);
+			}
+		return result;
+	}
+
+	/**
+	 * Sorts the specified designs into their non-dominated fronts, setting their
+	 * ranks, and sets their crowding distances within their fronts
+	 *
+	 * @param designs the designs
+	 * @return the fronts in order of rank
+	 */
+	private List<List<Design>> rankAndCrowd(List<Design> designs)
+	{
+		int size = designs.size();
+		List<List<Integer>> dominatedBy = new ArrayList<>(size);
+		int[] dominationCount = new int[size];
+		List<Integer> current = new ArrayList<>();
+		for (int i = 0; i < size; i++)
+		{
+			List<Integer> dominated = new ArrayList<>();
+			for (int j = 0; j < size; j++)
+				if (designs.get(i).dominates(designs.get(j)))
+					dominated.add(j);
+				else if (designs.get(j).dominates(designs.get(i)))
+					dominationCount[i]++;
+			dominatedBy.add(dominated);
+			if (dominationCount[i] == 0)
+				current.add(i);
+		}
+		List<List<Design>> result = new ArrayList<>();
+		int rank = 0;
+		while (!current.isEmpty())
+		{
+			List<Design> front = new ArrayList<>(current.size());
+			List<Integer> next = new ArrayList<>();
+			for (int i : current)
+			{
+				designs.get(i).rank = rank;
+				front.add(designs.get(i));
+				for (int j : dominatedBy.get(i))
+					if (--dominationCount[j] == 0)
+						next.add(j);
+			}
+			crowd(front);
+			result.add(front);
+			current = next;
+			rank++;
+		}
+		return result;
+	}
+
+	/**
+	 * Sets the crowding distances of the designs of the specified front, i.e. the
+	 * sum over the objectives of the normalized distance between the neighbors of
+	 * each design, infinite for the designs at the extremes of an objective
+	 *
+	 * @param front the designs of the front
+	 */
+	private void crowd(List<Design> front)
+	{
+		front.forEach(design -> design.crowdingDistance = 0.0);
+		List<Design> sorted = new ArrayList<>(front);
+		for (int o = 0; o < objectives.size(); o++)
+		{
+			int objective = o;
+			sorted.sort(Comparator.comparingDouble((Design design) -> design.costs[objective]));
+			double range = sorted.get(sorted.size() - 1).costs[o] - sorted.get(0).costs[o];
+			sorted.get(0).crowdingDistance = Double.POSITIVE_INFINITY;
+			sorted.get(sorted.size() - 1).crowdingDistance = Double.POSITIVE_INFINITY;
+			if (range > 0.0)
+				for (int i = 1; i < sorted.size() - 1; i++)
+					sorted.get(i).crowdingDistance += (sorted.get(i + 1).costs[o] - sorted.get(i - 1).costs[o]) / range;
+		}
+	}
+
+	/**
+	 * Logger for the trade studies
+	 */
+	private static final Logger logger = Logger.getLogger(TradeStudy.class.getSimpleName());
+}
@@ -0,0 +1,54 @@
+package sysmlinjava.analysis.tradestudy;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * Checkpoint of a {@code TradeStudy}, i.e. the state of its search at the end
+ * of a generation, from which the search can be resumed, e.g. after an early
+ * termination or in another execution of the trade study. The checkpoint is
+ * serializable, so that it can be written to and read from a file by object
+ * streams.
+ *
+ * @author ModelerOne
+ *
+ * @see TradeStudy#checkpoint()
+ * @see TradeStudy#resume(TradeStudyCheckpoint)
+ */
+public final class TradeStudyCheckpoint implements Serializable
+{
+	/** Serializable ID*/private static final long serialVersionUID = -2873304172565101539L;
+	/**
+	 * Number of the last generation completed
+	 */
+	public final int generation;
+	/**
+	 * Number of designs evaluated up to the checkpoint
+	 */
+	public final long evaluationCount;
+	/**
+	 * Population of the last generation completed
+	 */
+	public final List<Design> population;
+	/**
+	 * Seed of the random number generator of the search from the checkpoint on
+	 */
+	final long seed;
+
+	/**
+	 * Constructor
+	 *
+	 * @param generation      number of the last generation completed
+	 * @param evaluationCount number of designs evaluated
+	 * @param population      population of the generation
+	 * @param seed            seed of the random number generator of the search
+	 */
+	TradeStudyCheckpoint(int generation, long evaluationCount, List<Design> population, long seed)
+	{
+		super();
+		this.generation = generation;
+		this.evaluationCount = evaluationCount;
+		this.population = List.copyOf(population);
+		this.seed = seed;
+	}
+}
@@ -0,0 +1,8 @@
+/**
+ * Contains the multi-objective trade-study engine for SysMLinJava models, i.e.
+ * the declaration of bounded design variables and of objectives calculated by
+ * objective function blocks, and the NSGA-II population-based search that
+ * evaluates candidate designs concurrently on isolated model instances and
+ * streams the evolving Pareto front to its observers.
+ */
+package sysmlinjava.analysis.tradestudy;
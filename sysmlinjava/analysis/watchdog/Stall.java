@@ -0,0 +1,91 @@
+package sysmlinjava.analysis.watchdog;
+
+import java.util.Optional;
+
+/**
+ * Stall detected by the {@code StallWatchdog}, i.e. the kind of stall, the
+ * implicated block, element, and state, the duration of the stall, and the
+ * stack trace of the implicated thread, if any.
+ * 
+ * @author ModelerOne
+ *
+ */
+public class Stall
+{
+	/**
+	 * Kind of stall
+	 */
+	public final StallKind kind;
+	/**
+	 * Identity string of the block implicated in the stall
+	 */
+	public final String block;
+	/**
+	 * Identity string of the element implicated in the stall, i.e. the state
+	 * machine, constraint parameter port, or state
+	 */
+	public final String element;
+	/**
+	 * Identity string of the current state of the implicated state machine, or of
+	 * the state of the implicated do-activity, if any
+	 */
+	public final Optional<String> state;
+	/**
+	 * Duration of the stall at the time of the sample, milliseconds
+	 */
+	public final long durationMillis;
+	/**
+	 * Optional name of the thread implicated in the stall
+	 */
+	public final Optional<String> threadName;
+	/**
+	 * Stack trace of the thread implicated in the stall, empty if none
+	 */
+	public final StackTraceElement[] stackTrace;
+
+	/**
+	 * Constructor
+	 * 
+	 * @param kind           kind of stall
+	 * @param block          identity string of the implicated block
+	 * @param element        identity string of the implicated element
+	 * @param state          identity string of the implicated state, if any
+	 * @param durationMillis duration of the stall
+	 * @param thread         implicated thread, if any
+	 */
+	public Stall(StallKind kind, String block, String element, Optional<String> state, long durationMillis, Optional<Thread> thread)
+	{
+		super();
+		this.kind = kind;
+		this.block = block;
+		this.element = element;
+		this.state = state;
+		this.durationMillis = durationMillis;
+		this.threadName = thread.map(Thread::getName);
+		this.stackTrace = thread.isPresent() ? thread.get().getStackTrace() : new StackTraceElement[0];
+	}
+
+	/**
+	 * Returns the key that identifies the stall across samples, i.e. the kind and
+	 * implicated block and element
+	 * 
+	 * @return key of the stall
+	 */
+	public String key()
+	{
+		return kind + ":" + block + ":" + element + ":" + threadName.orElse("");
+	}
+
+	@Override
+	public String toString()
+	{
+		StringBuilder result = new StringBuilder(String.format("%s: block=%s, element=%s, state=%s, duration=%d ms", kind, block, element, state.orElse("n/a"), durationMillis));
+		if (threadName.isPresent())
+		{
+			result.append(String.format("%n    thread \"%s\"", threadName.get()));
+			for (StackTraceElement frame : stackTrace)
+				result.append(String.format("%n        at %s", frame));
+		}
+		return result.toString();
+	}
+}
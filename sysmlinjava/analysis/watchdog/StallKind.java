@@ -0,0 +1,34 @@
+package sysmlinjava.analysis.watchdog;
+
+/**
+ * Kinds of stalls detected by the {@code StallWatchdog}
+ * 
+ * @author ModelerOne
+ *
+ */
+public enum StallKind
+{
+	/**
+	 * State machine event handler executing longer than the handler time budget
+	 */
+	handlerOverBudget,
+	/**
+	 * State machine event queue not empty and not drained for longer than the
+	 * queue time budget
+	 */
+	queueNotDraining,
+	/**
+	 * Constraint parameter port producer blocked on a full parameter queue for
+	 * longer than the producer time budget
+	 */
+	blockedProducer,
+	/**
+	 * Do-activity still executing longer than the cancellation time budget after
+	 * it was cancelled upon exit from its state
+	 */
+	cancelledDoActivity,
+	/**
+	 * Threads deadlocked on monitors or ownable synchronizers
+	 */
+	deadlock;
+}
@@ -0,0 +1,23 @@
+package sysmlinjava.analysis.watchdog;
+
+/**
+ * Listener for the stalls detected by the {@code StallWatchdog}. Listeners are
+ * invoked in the watchdog's sampling thread whenever a sample detects stalls
+ * that were not detected by the previous sample, e.g. to abort a wedged run of
+ * a scenario farm.
+ * 
+ * @author ModelerOne
+ *
+ * @see StallWatchdog#addListener(StallListener)
+ */
+@FunctionalInterface
+public interface StallListener
+{
+	/**
+	 * Reacts to the detection of stalls
+	 * 
+	 * @param report report of all the stalls detected by the sample, including
+	 *               those previously detected
+	 */
+	void onStall(StallReport report);
+}
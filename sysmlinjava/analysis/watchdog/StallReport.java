@@ -0,0 +1,60 @@
+package sysmlinjava.analysis.watchdog;
+
+import java.lang.management.ThreadInfo;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Report of the stalls detected by a sample of the {@code StallWatchdog},
+ * including the information of any deadlocked threads.
+ * 
+ * @author ModelerOne
+ *
+ */
+public class StallReport
+{
+	/**
+	 * Stalls detected by the sample
+	 */
+	public final List<Stall> stalls;
+	/**
+	 * Information, including stack traces and held locks, of deadlocked threads
+	 * detected by the sample
+	 */
+	public final List<ThreadInfo> deadlockedThreads;
+	/**
+	 * Whether the report contains stalls that were not detected by the previous
+	 * sample
+	 */
+	public boolean hasNewStalls;
+
+	/**
+	 * Constructor
+	 */
+	public StallReport()
+	{
+		super();
+		stalls = new ArrayList<>();
+		deadlockedThreads = new ArrayList<>();
+		hasNewStalls = false;
+	}
+
+	/**
+	 * Returns whether any stalls were detected
+	 * 
+	 * @return true if stalls were detected, false otherwise
+	 */
+	public boolean isEmpty()
+	{
+		return stalls.isEmpty() && deadlockedThreads.isEmpty();
+	}
+
+	@Override
+	public String toString()
+	{
+		StringBuilder result = new StringBuilder(String.format("StallReport: %d stall(s), %d deadlocked thread(s)", stalls.size(), deadlockedThreads.size()));
+		stalls.forEach(stall -> result.append(String.format("%n  %s", stall)));
+		deadlockedThreads.forEach(threadInfo -> result.append(String.format("%n  %s: %s", StallKind.deadlock, threadInfo)));
+		return result.toString();
+	}
+}
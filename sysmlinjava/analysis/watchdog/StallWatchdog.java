@@ -0,0 +1,323 @@
+package sysmlinjava.analysis.watchdog;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+import sysmlinjava.analysis.metrics.StateMachineInstanceMetrics;
+import sysmlinjava.analysis.metrics.StateMachineMetrics;
+import sysmlinjava.analysis.metrics.SysMLMetrics;
+import sysmlinjava.analysis.watchdog.WatchdogRegistry.TrackedActivity;
+import sysmlinjava.blocks.SysMLBlock;
+import sysmlinjava.statemachine.SysMLStateMachine;
+import sysmlinjava.statemachine.SysMLStateMachineInstance;
+
+/**
+ * Watchdog that detects stalls and deadlocks in executing SysMLinJava models.
+ * The {@code StallWatchdog} periodically samples, in a single daemon thread:
+ * <ul>
+ * <li>the event handler in progress, if any, of every state machine and state
+ * machine instance in the JVM, flagging handlers that have executed longer than the
+ * {@code handlerBudgetMillis}</li>
+ * <li>the event queue of every asynchronous state machine and state machine
+ * instance, flagging queues that
+ * contain events but have not been drained, i.e. from which no event has been
+ * taken, for longer than the {@code queueBudgetMillis}</li>
+ * <li>the producers of constraint parameter values that are blocked on full
+ * parameter queues longer than the {@code producerBudgetMillis}</li>
+ * <li>the do-activities that continue to execute longer than the
+ * {@code cancelBudgetMillis} after their states were exited</li>
+ * <li>the threads that are deadlocked on monitors or ownable synchronizers</li>
+ * </ul>
+ * Stalls are logged with the implicated blocks, states, and stack traces and
+ * reported to the registered {@code StallListener}s, e.g. the listener returned
+ * by {@code exitOnStall()} that terminates a wedged run.
+ * <h2>Low overhead</h2> The state machines and state machine instances record
+ * only the thread and start time of their event handlers in volatile fields,
+ * and they are found via the {@code SysMLMetrics} registry, so the cost to the
+ * model is a few volatile writes per event. The cost of the sampling is proportional to the
+ * number of state machines and is incurred only once per sample period.
+ * Stack traces are obtained only for the threads implicated in stalls.
+ * 
+ * @author ModelerOne
+ *
+ */
+public class StallWatchdog implements Runnable
+{
+	/**
+	 * Logger for the watchdog
+	 */
+	protected Logger logger;
+	/**
+	 * Period between samples, milliseconds
+	 */
+	public final long samplePeriodMillis;
+	/**
+	 * Maximum time an event handler may execute before it is flagged,
+	 * milliseconds
+	 */
+	public long handlerBudgetMillis;
+	/**
+	 * Maximum time an event queue may contain events without being drained before
+	 * it is flagged, milliseconds
+	 */
+	public long queueBudgetMillis;
+	/**
+	 * Maximum time a producer may be blocked on a full parameter queue before it
+	 * is flagged, milliseconds
+	 */
+	public long producerBudgetMillis;
+	/**
+	 * Maximum time a do-activity may continue to execute after its cancellation
+	 * before it is flagged, milliseconds
+	 */
+	public long cancelBudgetMillis;
+	/**
+	 * Listeners to be notified of new stalls
+	 */
+	private final List<StallListener> listeners;
+	/**
+	 * Keys of the stalls detected by the previous sample
+	 */
+	private Set<String> previousStallKeys;
+	/**
+	 * Executor of the sampling thread
+	 */
+	private ScheduledExecutorService sampler;
+	/**
+	 * Future of the scheduled sampling
+	 */
+	private Optional<ScheduledFuture<?>> samplerFuture;
+
+	/**
+	 * Constructor for a single time budget applied to handlers, queues,
+	 * producers, and cancelled do-activities
+	 * 
+	 * @param samplePeriodMillis period between samples, milliseconds
+	 * @param budgetMillis       time budget, milliseconds
+	 */
+	public StallWatchdog(long samplePeriodMillis, long budgetMillis)
+	{
+		super();
+		logger = Logger.getLogger(getClass().getSimpleName());
+		this.samplePeriodMillis = samplePeriodMillis;
+		this.handlerBudgetMillis = budgetMillis;
+		this.queueBudgetMillis = budgetMillis;
+		this.producerBudgetMillis = budgetMillis;
+		this.cancelBudgetMillis = budgetMillis;
+		listeners = new CopyOnWriteArrayList<>();
+		previousStallKeys = new HashSet<>();
+		samplerFuture = Optional.empty();
+	}
+
+	/**
+	 * Adds a listener to be notified of new stalls
+	 * 
+	 * @param listener listener to be added
+	 */
+	public void addListener(StallListener listener)
+	{
+		listeners.add(listener);
+	}
+
+	/**
+	 * Starts the periodic sampling in a daemon thread
+	 */
+	public synchronized void start()
+	{
+		if (samplerFuture.isEmpty())
+		{
+			sampler = Executors.newSingleThreadScheduledExecutor(runnable ->
+			{
+				Thread thread = new Thread(runnable, "SysMLinJava-StallWatchdog");
+				thread.setDaemon(true);
+				return thread;
+			});
+			samplerFuture = Optional.of(sampler.scheduleWithFixedDelay(this, samplePeriodMillis, samplePeriodMillis, TimeUnit.MILLISECONDS));
+		}
+	}
+
+	/**
+	 * Stops the periodic sampling
+	 */
+	public synchronized void stop()
+	{
+		if (samplerFuture.isPresent())
+		{
+			samplerFuture.get().cancel(false);
+			sampler.shutdown();
+			samplerFuture = Optional.empty();
+		}
+	}
+
+	/**
+	 * Runnable operation of the sampling thread that samples the model and, if new
+	 * stalls are detected, logs the report and notifies the listeners
+	 */
+	@Override
+	public void run()
+	{
+		try
+		{
+			StallReport report = sample();
+			if (report.hasNewStalls)
+			{
+				logger.severe(report.toString());
+				listeners.forEach(listener -> listener.onStall(report));
+			}
+		} catch (RuntimeException e)
+		{
+			logger.warning("sample failed: " + e);
+		}
+	}
+
+	/**
+	 * Samples the state machines, blocked producers, do-activities, and threads of
+	 * the JVM and returns a report of the stalls detected
+	 * 
+	 * @return report of detected stalls
+	 */
+	public StallReport sample()
+	{
+		StallReport result = new StallReport();
+		long now = System.nanoTime();
+		for (StateMachineMetrics metrics : SysMLMetrics.allStateMachineMetrics())
+			for (SysMLStateMachine stateMachine : metrics.instances())
+				sampleStateMachine(stateMachine, now, result);
+		for (StateMachineInstanceMetrics metrics : SysMLMetrics.allStateMachineInstanceMetrics())
+			for (SysMLStateMachineInstance instance : metrics.instances())
+				sampleStateMachineInstance(instance, now, result);
+		for (TrackedActivity producer : WatchdogRegistry.blockedProducers())
+		{
+			long blockedMillis = TimeUnit.NANOSECONDS.toMillis(now - producer.startNanos);
+			if (blockedMillis > producerBudgetMillis)
+				result.stalls.add(new Stall(StallKind.blockedProducer, identityOf(producer.block), producer.element.identityString(), Optional.empty(), blockedMillis, Optional.of(producer.thread)));
+		}
+		for (TrackedActivity doActivity : WatchdogRegistry.doActivities())
+		{
+			long cancelledNanos = doActivity.cancelledNanos;
+			if (cancelledNanos != 0)
+			{
+				long cancelledMillis = TimeUnit.NANOSECONDS.toMillis(now - cancelledNanos);
+				if (cancelledMillis > cancelBudgetMillis)
+					result.stalls.add(new Stall(StallKind.cancelledDoActivity, identityOf(doActivity.block), doActivity.element.identityString(), Optional.of(doActivity.element.identityString()), cancelledMillis,
+						Optional.of(doActivity.thread)));
+			}
+		}
+		ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+		long[] deadlockedIDs = threadBean.isSynchronizerUsageSupported() ? threadBean.findDeadlockedThreads() : threadBean.findMonitorDeadlockedThreads();
+		if (deadlockedIDs != null)
+			for (ThreadInfo threadInfo : threadBean.getThreadInfo(deadlockedIDs, true, threadBean.isSynchronizerUsageSupported()))
+				if (threadInfo != null)
+					result.deadlockedThreads.add(threadInfo);
+
+		Set<String> stallKeys = new HashSet<>();
+		result.stalls.forEach(stall -> stallKeys.add(stall.key()));
+		result.deadlockedThreads.forEach(threadInfo -> stallKeys.add(StallKind.deadlock + ":" + threadInfo.getThreadId()));
+		for (String key : stallKeys)
+			if (!previousStallKeys.contains(key))
+				result.hasNewStalls = true;
+		previousStallKeys = stallKeys;
+		return result;
+	}
+
+	/**
+	 * Samples the specified state machine's event handler and event queue and adds
+	 * any stalls to the specified report
+	 * 
+	 * @param stateMachine state machine to be sampled
+	 * @param now          {@code System.nanoTime()} of the sample
+	 * @param report       report to which stalls are to be added
+	 */
+	private void sampleStateMachine(SysMLStateMachine stateMachine, long now, StallReport report)
+	{
+		Optional<String> state = stateMachine.currentState.map(currentState -> currentState.identityString());
+		Optional<Thread> handlerThread = stateMachine.handlerThread();
+		if (handlerThread.isPresent())
+		{
+			long handlerMillis = TimeUnit.NANOSECONDS.toMillis(now - stateMachine.handlerStartNanos());
+			if (handlerMillis > handlerBudgetMillis)
+			{
+				String element = stateMachine.identityString() + stateMachine.handlerEvent().map(event -> " handling " + event.getClass().getSimpleName()).orElse("");
+				report.stalls.add(new Stall(StallKind.handlerOverBudget, identityOf(stateMachine.contextBlock), element, state, handlerMillis, handlerThread));
+			}
+		}
+		else if (stateMachine.queueDepth() > 0)
+		{
+			long lastDequeueNanos = stateMachine.lastDequeueNanos();
+			long undrainedMillis = TimeUnit.NANOSECONDS.toMillis(now - lastDequeueNanos);
+			if (lastDequeueNanos != 0 && undrainedMillis > queueBudgetMillis)
+				report.stalls.add(new Stall(StallKind.queueNotDraining, identityOf(stateMachine.contextBlock), stateMachine.identityString() + " queueDepth=" + stateMachine.queueDepth(), state, undrainedMillis,
+					Optional.empty()));
+		}
+	}
+
+	/**
+	 * Samples the specified state machine instance's event processing and event
+	 * queue and adds any stalls to the specified report
+	 * 
+	 * @param instance state machine instance to be sampled
+	 * @param now      {@code System.nanoTime()} of the sample
+	 * @param report   report to which stalls are to be added
+	 */
+	private void sampleStateMachineInstance(SysMLStateMachineInstance instance, long now, StallReport report)
+	{
+		Optional<String> state = instance.currentState();
+		Optional<Thread> handlerThread = instance.handlerThread();
+		if (handlerThread.isPresent())
+		{
+			long handlerMillis = TimeUnit.NANOSECONDS.toMillis(now - instance.handlerStartNanos());
+			if (handlerMillis > handlerBudgetMillis)
+			{
+				String element = instance.identityString() + instance.handlerEvent().map(event -> " handling " + event.getClass().getSimpleName()).orElse("");
+				report.stalls.add(new Stall(StallKind.handlerOverBudget, identityOf(instance.contextBlock), element, state, handlerMillis, handlerThread));
+			}
+		}
+		else if (instance.queueDepth() > 0)
+		{
+			long lastDequeueNanos = instance.lastDequeueNanos();
+			long undrainedMillis = TimeUnit.NANOSECONDS.toMillis(now - lastDequeueNanos);
+			if (lastDequeueNanos != 0 && undrainedMillis > queueBudgetMillis)
+				report.stalls.add(new Stall(StallKind.queueNotDraining, identityOf(instance.contextBlock), instance.identityString() + " queueDepth=" + instance.queueDepth(), state, undrainedMillis,
+					Optional.empty()));
+		}
+	}
+
+	/**
+	 * Returns the identity string of the specified optional block
+	 * 
+	 * @param block optional block
+	 * @return identity string of the block, or "none" if not present
+	 */
+	private static String identityOf(Optional<? extends SysMLBlock> block)
+	{
+		return block.isPresent() ? block.get().identityString() : "none";
+	}
+
+	/**
+	 * Returns a listener that terminates the JVM with the specified exit status
+	 * upon detection of new stalls, e.g. to abort wedged runs of a scenario farm.
+	 * The JVM is halted rather than exited, as shutdown hooks of a wedged model
+	 * may themselves block.
+	 * 
+	 * @param exitStatus status with which the JVM is to exit
+	 * @return listener that terminates the JVM
+	 */
+	public static StallListener exitOnStall(int exitStatus)
+	{
+		return report ->
+		{
+			Logger.getLogger(StallWatchdog.class.getSimpleName()).severe("aborting run with exit status " + exitStatus + " due to stalls");
+			Runtime.getRuntime().halt(exitStatus);
+		};
+	}
+}
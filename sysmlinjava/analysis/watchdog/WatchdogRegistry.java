@@ -0,0 +1,201 @@
+package sysmlinjava.analysis.watchdog;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import sysmlinjava.blocks.SysMLBlock;
+import sysmlinjava.common.SysMLClass;
+import sysmlinjava.ports.SysMLConstraintParameterPort;
+import sysmlinjava.statemachine.SysMLState;
+
+/**
+ * Registry of the potentially blocking activities of an executing SysMLinJava
+ * model that are sampled by the {@code StallWatchdog}, i.e. the producers of
+ * constraint parameter values that are blocked on full parameter queues and the
+ * do-activities of states that are currently executing. The
+ * {@code SysMLConstraintParameterPort} registers a producer only when the queue
+ * of its bounded history, if enabled, is full, and the {@code SysMLState} and
+ * {@code SysMLStateMachineInstance} register their do-activities for the
+ * duration of their execution, so the registry has no cost in the normal flow of parameter
+ * values and events.
+ *
+ * @author ModelerOne
+ *
+ * @see StallWatchdog
+ */
+public final class WatchdogRegistry
+{
+	/**
+	 * Producers blocked on full parameter queues, mapped by their threads
+	 */
+	private static final Map<Thread, TrackedActivity> blockedProducers = new ConcurrentHashMap<>();
+	/**
+	 * Do-activities currently executing, mapped by their threads
+	 */
+	private static final Map<Thread, TrackedActivity> doActivities = new ConcurrentHashMap<>();
+
+	/**
+	 * Private constructor, as all operations are static
+	 */
+	private WatchdogRegistry()
+	{
+		super();
+	}
+
+	/**
+	 * Registers the current thread as blocked on the full parameter queue of the
+	 * specified port
+	 * 
+	 * @param port constraint parameter port whose queue is full
+	 */
+	public static void producerBlocked(SysMLConstraintParameterPort port)
+	{
+		Thread thread = Thread.currentThread();
+		blockedProducers.put(thread, new TrackedActivity(thread, port, Optional.ofNullable(port.constraintBlock)));
+	}
+
+	/**
+	 * Unregisters the current thread as blocked on a full parameter queue
+	 */
+	public static void producerUnblocked()
+	{
+		blockedProducers.remove(Thread.currentThread());
+	}
+
+	/**
+	 * Registers the start of the do-activity of the specified state in the current
+	 * thread
+	 * 
+	 * @param state state whose do-activity is started
+	 */
+	public static void doActivityStarted(SysMLState state)
+	{
+		doActivityStarted(state, state.contextBlock);
+	}
+
+	/**
+	 * Registers the start of the do-activity of the specified state in the context
+	 * of the specified block in the current thread, e.g. of a state of a
+	 * {@code SysMLStateMachineDefinition} that is shared by the instances of the
+	 * definition in the contexts of different blocks
+	 * 
+	 * @param state state whose do-activity is started
+	 * @param block optional block in whose context the do-activity executes
+	 */
+	public static void doActivityStarted(SysMLClass state, Optional<? extends SysMLBlock> block)
+	{
+		Thread thread = Thread.currentThread();
+		doActivities.put(thread, new TrackedActivity(thread, state, block));
+	}
+
+	/**
+	 * Unregisters the do-activity executing in the current thread
+	 * 
+	 * @param state state whose do-activity has ended
+	 */
+	public static void doActivityEnded(SysMLClass state)
+	{
+		doActivities.remove(Thread.currentThread());
+	}
+
+	/**
+	 * Marks the executing do-activities of the specified state as cancelled, i.e.
+	 * as expected to end promptly upon exit from the state
+	 * 
+	 * @param state state whose do-activities are cancelled
+	 */
+	public static void doActivityCancelled(SysMLState state)
+	{
+		doActivityCancelled(state, state.contextBlock);
+	}
+
+	/**
+	 * Marks the executing do-activities of the specified state in the context of
+	 * the specified block as cancelled, i.e. as expected to end promptly upon exit
+	 * from the state
+	 * 
+	 * @param state state whose do-activities are cancelled
+	 * @param block optional block in whose context the do-activities execute
+	 */
+	public static void doActivityCancelled(SysMLClass state, Optional<? extends SysMLBlock> block)
+	{
+		long now = System.nanoTime();
+		SysMLBlock contextBlock = block.isPresent() ? block.get() : null;
+		doActivities.values().forEach(activity ->
+		{
+			if (activity.element == state && (activity.block.isPresent() ? activity.block.get() : null) == contextBlock && activity.cancelledNanos == 0)
+				activity.cancelledNanos = now;
+		});
+	}
+
+	/**
+	 * Returns a list of the producers currently blocked on full parameter queues
+	 * 
+	 * @return list of blocked producers
+	 */
+	public static List<TrackedActivity> blockedProducers()
+	{
+		return new ArrayList<>(blockedProducers.values());
+	}
+
+	/**
+	 * Returns a list of the do-activities currently executing
+	 * 
+	 * @return list of do-activities
+	 */
+	public static List<TrackedActivity> doActivities()
+	{
+		return new ArrayList<>(doActivities.values());
+	}
+
+	/**
+	 * Activity tracked by the registry, i.e. a blocked producer or executing
+	 * do-activity, with the thread in which it executes and the time it started
+	 * 
+	 * @author ModelerOne
+	 *
+	 */
+	public static final class TrackedActivity
+	{
+		/**
+		 * Thread in which the activity executes
+		 */
+		public final Thread thread;
+		/**
+		 * Model element that performs the activity, i.e. the constraint parameter
+		 * port or state
+		 */
+		public final SysMLClass element;
+		/**
+		 * Optional block in whose context the element operates
+		 */
+		public final Optional<? extends SysMLBlock> block;
+		/**
+		 * {@code System.nanoTime()} at which the activity started or blocked
+		 */
+		public final long startNanos;
+		/**
+		 * {@code System.nanoTime()} at which the activity was cancelled, or 0 if not
+		 * cancelled
+		 */
+		public volatile long cancelledNanos;
+
+		/**
+		 * Constructor
+		 * 
+		 * @param thread  thread in which the activity executes
+		 * @param element model element that performs the activity
+		 * @param block   optional block in whose context the element operates
+		 */
+		TrackedActivity(Thread thread, SysMLClass element, Optional<? extends SysMLBlock> block)
+		{
+			super();
+			this.thread = thread;
+			this.element = element;
+			this.block = block;
+			this.startNanos = System.nanoTime();
+		}
+	}
+}
@@ -0,0 +1,7 @@
+/**
+ * Contains the stall and deadlock watchdog for executing SysMLinJava models,
+ * i.e. the sampler of state machine event handlers, event queues, blocked
+ * constraint parameter port producers, and cancelled do-activities that
+ * reports and optionally aborts wedged model executions.
+ */
+package sysmlinjava.analysis.watchdog;
@@ -15,12 +15,22 @@
  */
 package sysmlinjava.blocks;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.Optional;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import sysmlinjava.annotations.statemachines.StateMachine;
 import sysmlinjava.common.SysMLClass;
 import sysmlinjava.events.SysMLEvent;
+import sysmlinjava.execution.SysMLExecutors;
+import sysmlinjava.execution.VirtualTimeExecutor;
+import sysmlinjava.execution.snapshots.SysMLJournal;
+import sysmlinjava.execution.snapshots.SysMLSnapshot;
 import sysmlinjava.statemachine.SysMLStateMachine;
+import sysmlinjava.statemachine.SysMLStateMachineDefinition;
+import sysmlinjava.statemachine.SysMLStateMachineInstance;
 
 /**
  * SysMLinJava's represention of the SysML block
@@ -187,6 +197,18 @@ public abstract class SysMLBlock extends SysMLClass
 	@StateMachine
 	public Optional<? extends SysMLStateMachine> stateMachine;
 
+	/**
+	 * Optional flyweight state machine instance for this SysML block, i.e. a state
+	 * machine whose states and transitions are defined by a
+	 * {@code SysMLStateMachineDefinition} shared by all blocks of the same type.
+	 * It may be created in the {@code createStateMachine()} operation instead of
+	 * the {@code stateMachine}, in which case the {@code start()},
+	 * {@code acceptEvent()}, and {@code stop()} operations are performed by it.
+	 * 
+	 * @see SysMLStateMachineDefinition
+	 */
+	public Optional<SysMLStateMachineInstance> stateMachineInstance;
+
 	/**
 	 * Optional SysML block that serves as the block "context" in which this block
 	 * resides. The contextBlock may be used by other block properties, such as
@@ -198,7 +220,11 @@ public abstract class SysMLBlock extends SysMLClass
 	 * Instance of the Java API's {@code ScheduledThreadPoolExecutor} used to "run"
 	 * the optional state machine's {@code Runnable}. It is also available to
 	 * {@code SysMLBlock} extensions to execute other threads of execution that
-	 * might be declared for the block.
+	 * might be declared for the block. The executor is provided by the
+	 * {@code SysMLExecutors} factory, i.e. it is either the block's own executor
+	 * or the executor shared by all blocks, depending on the factory's mode.
+	 * 
+	 * @see SysMLExecutors
 	 */
 	public ScheduledThreadPoolExecutor concurrentExecutionThreads;
 
@@ -210,8 +236,9 @@ public abstract class SysMLBlock extends SysMLClass
 	{
 		super();
 		stateMachine = Optional.empty();
+		stateMachineInstance = Optional.empty();
 		contextBlock = Optional.empty();
-		concurrentExecutionThreads = new ScheduledThreadPoolExecutor(10);
+		concurrentExecutionThreads = SysMLExecutors.newBlockExecutor();
 		preCreate();
 		createProperties();
 	}
@@ -227,8 +254,9 @@ public abstract class SysMLBlock extends SysMLClass
 	{
 		super(name, id);
 		stateMachine = Optional.empty();
+		stateMachineInstance = Optional.empty();
 		this.contextBlock = Optional.empty();
-		concurrentExecutionThreads = new ScheduledThreadPoolExecutor(10);
+		concurrentExecutionThreads = SysMLExecutors.newBlockExecutor();
 		preCreate();
 		createProperties();
 	}
@@ -247,8 +275,9 @@ public abstract class SysMLBlock extends SysMLClass
 	{
 		super(name, id);
 		stateMachine = Optional.empty();
+		stateMachineInstance = Optional.empty();
 		this.contextBlock = Optional.of(contextBlock);
-		concurrentExecutionThreads = new ScheduledThreadPoolExecutor(10);
+		concurrentExecutionThreads = SysMLExecutors.newBlockExecutor();
 		preCreate();
 		createProperties();
 	}
@@ -333,7 +362,9 @@ public abstract class SysMLBlock extends SysMLClass
 	 */
 	public void start()
 	{
-		if (stateMachine.isPresent())
+		if (stateMachineInstance.isPresent())
+			stateMachineInstance.get().start();
+		else if (stateMachine.isPresent())
 			stateMachine.get().start();
 		else
 			logger.warning(getClass().getSimpleName() + ": no state machine to start");
@@ -342,16 +373,29 @@ public abstract class SysMLBlock extends SysMLClass
 	/**
 	 * Accepts and queues a specified event into the state machine's event queue.
 	 * Whereas the event queue is a thread safe object, this method can be called to
-	 * inject an event into the state machine from any thread.
+	 * inject an event into the state machine from any thread. If a journal is
+	 * recording and the event originates outside the model, the event is recorded
+	 * in the journal.
 	 * 
 	 * @param event event to be queued to the state machine
+	 * @see SysMLJournal
 	 */
 	public void acceptEvent(SysMLEvent event)
 	{
-		if (stateMachine.isPresent())
-			stateMachine.get().queueEvent(event);
-		else
-			logger.warning(getClass().getSimpleName() + ": no state machine to accept event: " + event.getClass().getSimpleName());
+		boolean isExternal = SysMLJournal.isRecording() && SysMLJournal.enterModel(this, event);
+		try
+		{
+			if (stateMachineInstance.isPresent())
+				stateMachineInstance.get().queueEvent(event);
+			else if (stateMachine.isPresent())
+				stateMachine.get().queueEvent(event);
+			else
+				logger.warning(getClass().getSimpleName() + ": no state machine to accept event: " + event.getClass().getSimpleName());
+		} finally
+		{
+			if (isExternal)
+				SysMLJournal.exitModel();
+		}
 	}
 
 	/**
@@ -369,29 +413,90 @@ public abstract class SysMLBlock extends SysMLClass
 	 */
 	public void stop()
 	{
-		if (stateMachine.isPresent())
+		if (stateMachineInstance.isPresent())
+			stateMachineInstance.get().stop();
+		else if (stateMachine.isPresent())
 			stateMachine.get().stop();
 		else
 			logger.warning(getClass().getSimpleName() + ": no state machine to stop");
 	}
 
 	/**
-	 * Delays the calling thread (sleeps) for the specified seconds of time.
+	 * Saves a snapshot of the running model of which this block is the root, i.e.
+	 * the values and flows of this block and all its contained blocks and the
+	 * current states, queued events, and active timers of their state machines, to
+	 * the specified file.
+	 * 
+	 * @param file path of the snapshot file, created or overwritten
+	 * @throws IOException if the snapshot file cannot be written
+	 * @see SysMLSnapshot
+	 */
+	public void saveSnapshot(Path file) throws IOException
+	{
+		SysMLSnapshot.save(this, file);
+	}
+
+	/**
+	 * Restores the model of which this block is the root, newly created and not
+	 * started, to the running model of which a snapshot was saved to the specified
+	 * file, resuming the state machines of the model in their saved states. The
+	 * block must not be started after it is restored.
+	 * 
+	 * @param file path of the snapshot file
+	 * @throws IOException if the snapshot file cannot be read or does not match
+	 *                     the model
+	 * @see SysMLSnapshot
+	 */
+	public void restoreSnapshot(Path file) throws IOException
+	{
+		SysMLSnapshot.restore(this, file);
+	}
+
+	/**
+	 * Delays the calling thread (sleeps) for the specified seconds of time. If the
+	 * block's executor is a {@code VirtualTimeExecutor}, i.e. the model executes
+	 * in virtual time, the delay instead performs the model's tasks for the
+	 * specified seconds of virtual time, which only the thread that drives the
+	 * model's virtual time may do. Tasks of the model that delay in virtual time
+	 * are to schedule their continuation by the {@code delay(seconds,
+	 * continuation)} operation instead.
 	 * 
 	 * @param seconds time to sleep in seconds. Use up to 3 decimal places for
 	 *                fractions of a second, i.e. the delay is capable of the
 	 *                milliseconds precision provided by java's
 	 *                {@code Thread.sleep(<millis>)} operation.
+	 * @throws IllegalStateException if called by a task of the block's
+	 *                               {@code VirtualTimeExecutor}
 	 */
 	public void delay(double seconds)
 	{
-		try
-		{
-			Thread.sleep((long)(seconds * 1000));
-		} catch (InterruptedException e)
-		{
-			e.printStackTrace();
-		}
+		if (concurrentExecutionThreads instanceof VirtualTimeExecutor)
+			((VirtualTimeExecutor)concurrentExecutionThreads).runFor((long)(seconds * 1000), TimeUnit.MILLISECONDS);
+		else
+			try
+			{
+				Thread.sleep((long)(seconds * 1000));
+			} catch (InterruptedException e)
+			{
+				e.printStackTrace();
+			}
+	}
+
+	/**
+	 * Schedules the specified continuation to be performed by the block's executor
+	 * after the specified seconds of time, without delaying the calling thread.
+	 * If the block's executor is a {@code VirtualTimeExecutor} the continuation is
+	 * performed after the seconds of virtual time, whereby this operation is the
+	 * means by which tasks of the model delay in virtual time.
+	 * 
+	 * @param seconds      time of the delay in seconds, to the milliseconds
+	 *                     precision
+	 * @param continuation task to be performed after the delay
+	 * @return future of the scheduled continuation
+	 */
+	public ScheduledFuture<?> delay(double seconds, Runnable continuation)
+	{
+		return concurrentExecutionThreads.schedule(continuation, (long)(seconds * 1000), TimeUnit.MILLISECONDS);
 	}
 
 	/**
@@ -0,0 +1,235 @@
+package sysmlinjava.blocks.populations;
+
+import java.util.Arrays;
+import java.util.function.Function;
+import sysmlinjava.analysis.metadata.FieldMetadata;
+import sysmlinjava.blocks.SysMLBlock;
+import sysmlinjava.valuetypes.IInteger;
+import sysmlinjava.valuetypes.RReal;
+
+/**
+ * Column of a {@code SysMLBlockPopulation}, i.e. the values of one numeric
+ * value or flow field of the block type for all the instances of the
+ * population. The values are stored in a contiguous primitive array, i.e. a
+ * {@code double[]} for fields of the {@code RReal} type or its extensions, and
+ * a {@code long[]} for fields of the {@code IInteger} type or its extensions.
+ * The value of the instance at index {@code i} of the population is at index
+ * {@code i} of the array. The array may be longer than the population's size,
+ * in which case the elements beyond the size are not used.
+ * <p>
+ * The arrays are exposed for bulk operations on the values, but note that they
+ * are replaced with longer arrays as the population grows, so they should be
+ * obtained again after instances are added to the population.
+ * <p>
+ * The values of the field are loaded and stored by the accessor of the field's
+ * {@code FieldMetadata}, i.e. by direct field access if the block type is
+ * indexed by the {@code ModelMetadataProcessor}.
+ *
+ * @author ModelerOne
+ *
+ * @see SysMLBlockPopulation
+ */
+public final class PopulationColumn
+{
+	/**
+	 * Name of the value or flow field of the block type
+	 */
+	public final String name;
+	/**
+	 * Whether the column contains integer ({@code IInteger}) values, i.e. values
+	 * stored in the {@code longs} array, or real ({@code RReal}) values stored in
+	 * the {@code doubles} array
+	 */
+	public final boolean isInteger;
+	/**
+	 * Accessor of the value or flow field of the block type
+	 */
+	private final Function<Object, Object> accessor;
+	/**
+	 * Value of the field in a newly created instance of the block type, i.e. the
+	 * value of new instances of the population
+	 */
+	private final double defaultDouble;
+	/**
+	 * Integer value of the field in a newly created instance of the block type
+	 */
+	private final long defaultLong;
+	/**
+	 * Real values of the instances, or null if the column is an integer column
+	 */
+	private double[] doubles;
+	/**
+	 * Integer values of the instances, or null if the column is a real column
+	 */
+	private long[] longs;
+
+	/**
+	 * Constructor
+	 *
+	 * @param field     metadata of the value or flow field of the block type, with
+	 *                  its accessor
+	 * @param prototype newly created instance of the block type whose field value
+	 *                  is to be the value of new instances of the population
+	 * @param capacity  initial capacity of the column
+	 */
+	PopulationColumn(FieldMetadata field, SysMLBlock prototype, int capacity)
+	{
+		super();
+		this.accessor = field.accessor.get();
+		this.name = field.name;
+		this.isInteger = IInteger.class.isAssignableFrom(field.type);
+		if (isInteger)
+		{
+			IInteger value = (IInteger)get(prototype);
+			defaultLong = value != null ? value.value : 0L;
+			defaultDouble = 0.0;
+			longs = new long[capacity];
+		}
+		else
+		{
+			RReal value = (RReal)get(prototype);
+			defaultDouble = value != null ? value.value : 0.0;
+			defaultLong = 0L;
+			doubles = new double[capacity];
+		}
+	}
+
+	/**
+	 * Returns the array of real values of the instances
+	 *
+	 * @return array of real values of the instances
+	 * @throws IllegalStateException if the column is an integer column
+	 */
+	public double[] doubles()
+	{
+		if (isInteger)
+			throw new IllegalStateException("integer column: " + name);
+		return doubles;
+	}
+
+	/**
+	 * Returns the array of integer values of the instances
+	 *
+	 * @return array of integer values of the instances
+	 * @throws IllegalStateException if the column is a real column
+	 */
+	public long[] longs()
+	{
+		if (!isInteger)
+			throw new IllegalStateException("real column: " + name);
+		return longs;
+	}
+
+	/**
+	 * Returns the value of the instance at the specified index as a double
+	 *
+	 * @param index index of the instance
+	 * @return value of the instance
+	 */
+	public double getDouble(int index)
+	{
+		return isInteger ? longs[index] : doubles[index];
+	}
+
+	/**
+	 * Sets the value of the instance at the specified index, rounded to an integer
+	 * if the column is an integer column
+	 *
+	 * @param index index of the instance
+	 * @param value value of the instance
+	 */
+	public void setDouble(int index, double value)
+	{
+		if (isInteger)
+			longs[index] = Math.round(value);
+		else
+			doubles[index] = value;
+	}
+
+	/**
+	 * Copies the value of the instance at the specified index into the field of
+	 * the specified block. The field's value change observers are not notified.
+	 *
+	 * @param index index of the instance
+	 * @param block block whose field is to be set
+	 */
+	void load(int index, SysMLBlock block)
+	{
+		if (isInteger)
+			((IInteger)get(block)).value = longs[index];
+		else
+			((RReal)get(block)).value = doubles[index];
+	}
+
+	/**
+	 * Copies the value of the field of the specified block into the instance at
+	 * the specified index
+	 *
+	 * @param index index of the instance
+	 * @param block block whose field value is to be copied
+	 */
+	void store(int index, SysMLBlock block)
+	{
+		if (isInteger)
+			longs[index] = ((IInteger)get(block)).value;
+		else
+			doubles[index] = ((RReal)get(block)).value;
+	}
+
+	/**
+	 * Sets the value of the instance at the specified index to the default value
+	 *
+	 * @param index index of the instance
+	 */
+	void reset(int index)
+	{
+		if (isInteger)
+			longs[index] = defaultLong;
+		else
+			doubles[index] = defaultDouble;
+	}
+
+	/**
+	 * Copies the value of the instance at one index to another index
+	 *
+	 * @param from index of the instance whose value is to be copied
+	 * @param to   index of the instance whose value is to be set
+	 */
+	void move(int from, int to)
+	{
+		if (isInteger)
+			longs[to] = longs[from];
+		else
+			doubles[to] = doubles[from];
+	}
+
+	/**
+	 * Increases the capacity of the column to the specified capacity
+	 *
+	 * @param capacity new capacity of the column
+	 */
+	void grow(int capacity)
+	{
+		if (isInteger)
+			longs = Arrays.copyOf(longs, capacity);
+		else
+			doubles = Arrays.copyOf(doubles, capacity);
+	}
+
+	/**
+	 * Returns the value of the field of the specified block
+	 *
+	 * @param block block whose field value is to be returned
+	 * @return value of the field
+	 */
+	private Object get(SysMLBlock block)
+	{
+		return accessor.apply(block);
+	}
+
+	@Override
+	public String toString()
+	{
+		return String.format("PopulationColumn [name=%s, isInteger=%s]", name, isInteger);
+	}
+}
@@ -0,0 +1,553 @@
+package sysmlinjava.blocks.populations;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleUnaryOperator;
+import java.util.function.Supplier;
+import sysmlinjava.analysis.metadata.ClassMetadata;
+import sysmlinjava.analysis.metadata.FieldMetadata;
+import sysmlinjava.analysis.metadata.SysMLMetadata;
+import sysmlinjava.annotations.Flow;
+import sysmlinjava.annotations.Value;
+import sysmlinjava.blocks.SysMLBlock;
+import sysmlinjava.valuetypes.IInteger;
+import sysmlinjava.valuetypes.RReal;
+import sysmlinjava.valuetypes.ValueKernels;
+
+/**
+ * Population of instances of the same {@code SysMLBlock} type stored as
+ * struct-of-arrays.
+ * <h2>Compact instances</h2> Models of swarms, traffic, etc. can include tens
+ * of thousands of instances of the same block type. As a full
+ * {@code SysMLBlock} each instance includes its own object graph of ports,
+ * value type objects, state machine, executor, etc. that occupies kilobytes of
+ * memory. The {@code SysMLBlockPopulation} instead stores only the numeric
+ * values and flows of each instance, i.e. the fields of the block type that are
+ * annotated as {@code @Value} or {@code @Flow} and whose type is the
+ * {@code RReal} or {@code IInteger} type or one of their extensions. Each of
+ * these fields is stored as a {@code PopulationColumn}, i.e. a contiguous
+ * primitive array of the field's values for all the instances, so that an
+ * instance occupies only 8 bytes per numeric field.
+ * <h3>Bulk operations</h3> Operations across the whole population, e.g.
+ * updating the positions of all vehicles from their velocities, iterate over
+ * the contiguous arrays of the columns, which is cache-friendly and free of
+ * allocation. The bulk operations of the population, e.g.
+ * {@code multiplyAdd("position", "velocity", dt)}, do so for the common cases,
+ * and the arrays are available from the columns for any other bulk operations.
+ * <h3>Per-instance views</h3> An instance of the population can also be
+ * operated upon as an instance of the block type itself by means of the
+ * population's {@code cursor}, i.e. a single instance of the block type that is
+ * loaded with the values of an instance by {@code load(index)} and whose values
+ * are stored back into the population by {@code store(index)}. The cursor can
+ * therefore be passed to any operation of the block type. The
+ * {@code forEachInstance()} operation loads, operates upon, and stores each
+ * instance in turn. If an independent instance of the block type is needed,
+ * e.g. to execute its state machine, the {@code materialize(index)} operation
+ * creates one with the values of the instance.
+ * <h3>Metadata</h3> The value and flow fields of the block type are found in
+ * the {@code SysMLMetadata} registry, i.e. in the index generated by the
+ * {@code ModelMetadataProcessor}, and are accessed by their generated accessors.
+ * As the {@code @Value} and {@code @Flow} annotations are retained only in the
+ * source, the value and flow fields of a block type that is not indexed cannot
+ * be found, so the population of such a type is to be constructed with the
+ * explicit list of the names of its numeric fields, which are then accessed by
+ * reflection.
+ * <p>
+ * Note that the population is not thread-safe, i.e. it should be operated upon
+ * by a single thread at a time, and that the loading of values into the cursor
+ * does not notify the value change observers of the cursor's values.
+ *
+ * @author ModelerOne
+ *
+ * @param <B> type of the blocks of the population
+ */
+public class SysMLBlockPopulation<B extends SysMLBlock>
+{
+	/**
+	 * Factory of instances of the block type
+	 */
+	private final Supplier<B> factory;
+	/**
+	 * Instance of the block type used as a view of the population's instances
+	 */
+	public final B cursor;
+	/**
+	 * Columns of the values and flows of the population
+	 */
+	private final List<PopulationColumn> columns;
+	/**
+	 * Map of the columns by the names of their fields
+	 */
+	private final Map<String, PopulationColumn> columnsByName;
+	/**
+	 * Number of instances in the population
+	 */
+	private int size;
+	/**
+	 * Number of instances that can be in the population before its columns are
+	 * grown
+	 */
+	private int capacity;
+
+	/**
+	 * Constructor
+	 *
+	 * @param factory         factory of new instances of the block type, e.g.
+	 *                        {@code () -> new Vehicle("Vehicle", 0L)}.
+	 *                        The factory is used to create the {@code cursor} and
+	 *                        any materialized instances, and the values of the
+	 *                        instance it creates are the initial values of new
+	 *                        instances of the population.
+	 * @param initialCapacity initial number of instances that can be in the
+	 *                        population before its columns are grown
+	 * @throws IllegalArgumentException if the block type or one of its
+	 *                                  superclasses is not indexed in the
+	 *                                  {@code SysMLMetadata} registry
+	 */
+	public SysMLBlockPopulation(Supplier<B> factory, int initialCapacity)
+	{
+		this(factory, initialCapacity, Optional.empty());
+	}
+
+	/**
+	 * Constructor for a population of the specified numeric fields of the block
+	 * type, e.g. of a block type that is not indexed in the {@code SysMLMetadata}
+	 * registry
+	 *
+	 * @param factory         factory of new instances of the block type, e.g.
+	 *                        {@code () -> new Vehicle("Vehicle", 0L)}.
+	 *                        The factory is used to create the {@code cursor} and
+	 *                        any materialized instances, and the values of the
+	 *                        instance it creates are the initial values of new
+	 *                        instances of the population.
+	 * @param initialCapacity initial number of instances that can be in the
+	 *                        population before its columns are grown
+	 * @param fieldNames      names of the numeric value and flow fields of the
+	 *                        block type to be stored by the population
+	 * @throws IllegalArgumentException if a named field is not a non-static field
+	 *                                  of type {@code RReal}, {@code IInteger}, or
+	 *                                  an extension of either
+	 */
+	public SysMLBlockPopulation(Supplier<B> factory, int initialCapacity, List<String> fieldNames)
+	{
+		this(factory, initialCapacity, Optional.of(fieldNames));
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param factory         factory of new instances of the block type
+	 * @param initialCapacity initial number of instances that can be in the
+	 *                        population before its columns are grown
+	 * @param fieldNames      optional names of the numeric fields to be stored,
+	 *                        or empty if the fields are to be found in the
+	 *                        {@code SysMLMetadata} registry
+	 */
+	private SysMLBlockPopulation(Supplier<B> factory, int initialCapacity, Optional<List<String>> fieldNames)
+	{
+		super();
+		this.factory = factory;
+		this.cursor = factory.get();
+		this.capacity = Math.max(1, initialCapacity);
+		this.columns = new ArrayList<>();
+		this.columnsByName = new HashMap<>();
+		for (FieldMetadata field : fieldNames.isPresent() ? namedFieldsOf(cursor.getClass(), fieldNames.get()) : numericFieldsOf(cursor.getClass()))
+		{
+			PopulationColumn column = new PopulationColumn(field, cursor, capacity);
+			columns.add(column);
+			columnsByName.put(column.name, column);
+		}
+	}
+
+	/**
+	 * Returns the number of instances in the population
+	 *
+	 * @return number of instances
+	 */
+	public int size()
+	{
+		return size;
+	}
+
+	/**
+	 * Returns the columns of the population
+	 *
+	 * @return unmodifiable list of the columns
+	 */
+	public List<PopulationColumn> columns()
+	{
+		return Collections.unmodifiableList(columns);
+	}
+
+	/**
+	 * Returns the column for the specified field
+	 *
+	 * @param fieldName name of the value or flow field of the block type
+	 * @return column of the field's values
+	 * @throws IllegalArgumentException if the block type has no numeric value or
+	 *                                  flow field of the specified name
+	 */
+	public PopulationColumn column(String fieldName)
+	{
+		PopulationColumn result = columnsByName.get(fieldName);
+		if (result == null)
+			throw new IllegalArgumentException("no numeric value or flow named " + fieldName + " in " + cursor.getClass().getSimpleName());
+		return result;
+	}
+
+	/**
+	 * Adds an instance with the initial values of the block type to the
+	 * population
+	 *
+	 * @return index of the added instance
+	 */
+	public int add()
+	{
+		ensureCapacity(size + 1);
+		for (PopulationColumn column : columns)
+			column.reset(size);
+		return size++;
+	}
+
+	/**
+	 * Adds an instance with the values of the specified block to the population
+	 *
+	 * @param block block whose values are to be the values of the added instance
+	 * @return index of the added instance
+	 */
+	public int add(B block)
+	{
+		ensureCapacity(size + 1);
+		for (PopulationColumn column : columns)
+			column.store(size, block);
+		return size++;
+	}
+
+	/**
+	 * Removes the instance at the specified index from the population. The last
+	 * instance of the population is moved to the index of the removed instance,
+	 * i.e. the index of the last instance changes.
+	 *
+	 * @param index index of the instance to be removed
+	 */
+	public void remove(int index)
+	{
+		checkIndex(index);
+		int last = size - 1;
+		if (index != last)
+			for (PopulationColumn column : columns)
+				column.move(last, index);
+		size--;
+	}
+
+	/**
+	 * Loads the values of the instance at the specified index into the
+	 * {@code cursor} and returns the cursor
+	 *
+	 * @param index index of the instance
+	 * @return the cursor with the values of the instance
+	 */
+	public B load(int index)
+	{
+		checkIndex(index);
+		for (PopulationColumn column : columns)
+			column.load(index, cursor);
+		return cursor;
+	}
+
+	/**
+	 * Stores the values of the {@code cursor} into the instance at the specified
+	 * index
+	 *
+	 * @param index index of the instance
+	 */
+	public void store(int index)
+	{
+		checkIndex(index);
+		for (PopulationColumn column : columns)
+			column.store(index, cursor);
+	}
+
+	/**
+	 * Performs the specified operation on each instance of the population as the
+	 * {@code cursor}, i.e. loads the instance into the cursor, performs the
+	 * operation, and stores the cursor back into the instance
+	 *
+	 * @param operation operation to be performed on each instance
+	 */
+	public void forEachInstance(Consumer<? super B> operation)
+	{
+		for (int i = 0; i < size; i++)
+		{
+			operation.accept(load(i));
+			store(i);
+		}
+	}
+
+	/**
+	 * Returns a new, independent instance of the block type with the values of the
+	 * instance at the specified index
+	 *
+	 * @param index index of the instance
+	 * @return new block with the values of the instance
+	 */
+	public B materialize(int index)
+	{
+		checkIndex(index);
+		B result = factory.get();
+		for (PopulationColumn column : columns)
+			column.load(index, result);
+		return result;
+	}
+
+	/**
+	 * Sets the specified field of all instances to the specified value
+	 *
+	 * @param fieldName name of the field
+	 * @param value     value to be set
+	 */
+	public void fill(String fieldName, double value)
+	{
+		PopulationColumn column = column(fieldName);
+		for (int i = 0; i < size; i++)
+			column.setDouble(i, value);
+	}
+
+	/**
+	 * Replaces the value of the specified real field of all instances with the
+	 * result of the specified operator on the value
+	 *
+	 * @param fieldName name of the real field
+	 * @param operator  operator to be applied to the value of each instance
+	 */
+	public void update(String fieldName, DoubleUnaryOperator operator)
+	{
+		double[] values = column(fieldName).doubles();
+		for (int i = 0; i < size; i++)
+			values[i] = operator.applyAsDouble(values[i]);
+	}
+
+	/**
+	 * Sets the specified destination real field of all instances to the result of
+	 * the specified operator on the values of the two other specified real fields,
+	 * i.e. {@code dst[i] = operator(a[i], b[i])}
+	 *
+	 * @param dstFieldName name of the destination real field
+	 * @param aFieldName   name of the first operand real field
+	 * @param bFieldName   name of the second operand real field
+	 * @param operator     operator to be applied to the values of each instance
+	 */
+	public void combine(String dstFieldName, String aFieldName, String bFieldName, DoubleBinaryOperator operator)
+	{
+		double[] dst = column(dstFieldName).doubles();
+		double[] a = column(aFieldName).doubles();
+		double[] b = column(bFieldName).doubles();
+		for (int i = 0; i < size; i++)
+			dst[i] = operator.applyAsDouble(a[i], b[i]);
+	}
+
+	/**
+	 * Adds the value of the specified real field multiplied by the specified
+	 * scalar to the value of the specified destination real field of all
+	 * instances, i.e. {@code dst[i] += a[i] * scalar}, e.g. to update positions
+	 * from velocities over a time step
+	 *
+	 * @param dstFieldName name of the destination real field
+	 * @param aFieldName   name of the real field to be multiplied and added
+	 * @param scalar       value to multiply by
+	 */
+	public void multiplyAdd(String dstFieldName, String aFieldName, double scalar)
+	{
+		double[] dst = column(dstFieldName).doubles();
+		double[] a = column(aFieldName).doubles();
+		for (int i = 0; i < size; i++)
+			dst[i] = ValueKernels.multiplyAdd(a[i], scalar, dst[i]);
+	}
+
+	/**
+	 * Returns the result of the reduction of the values of the specified real
+	 * field of all instances by the specified operator
+	 *
+	 * @param fieldName name of the real field
+	 * @param identity  identity value of the operator, i.e. result for an empty
+	 *                  population
+	 * @param operator  operator to combine the reduced value with the value of an
+	 *                  instance
+	 * @return reduced value
+	 */
+	public double reduce(String fieldName, double identity, DoubleBinaryOperator operator)
+	{
+		double[] values = column(fieldName).doubles();
+		double result = identity;
+		for (int i = 0; i < size; i++)
+			result = operator.applyAsDouble(result, values[i]);
+		return result;
+	}
+
+	/**
+	 * Returns the sum of the values of the specified field of all instances
+	 *
+	 * @param fieldName name of the field
+	 * @return sum of the values
+	 */
+	public double sum(String fieldName)
+	{
+		PopulationColumn column = column(fieldName);
+		double result = 0;
+		if (column.isInteger)
+		{
+			long[] values = column.longs();
+			for (int i = 0; i < size; i++)
+				result += values[i];
+		}
+		else
+		{
+			double[] values = column.doubles();
+			for (int i = 0; i < size; i++)
+				result += values[i];
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the number of bytes used by the values of each instance of the
+	 * population
+	 *
+	 * @return bytes per instance
+	 */
+	public int bytesPerInstance()
+	{
+		return columns.size() * Long.BYTES;
+	}
+
+	/**
+	 * Ensures the columns have at least the specified capacity, growing them by
+	 * doubling if needed
+	 *
+	 * @param minimumCapacity capacity needed
+	 */
+	private void ensureCapacity(int minimumCapacity)
+	{
+		if (minimumCapacity > capacity)
+		{
+			capacity = Math.max(minimumCapacity, capacity * 2);
+			for (PopulationColumn column : columns)
+				column.grow(capacity);
+		}
+	}
+
+	/**
+	 * Checks that the specified index is the index of an instance
+	 *
+	 * @param index index to be checked
+	 * @throws IndexOutOfBoundsException if the index is not that of an instance
+	 */
+	private void checkIndex(int index)
+	{
+		if (index < 0 || index >= size)
+			throw new IndexOutOfBoundsException("index " + index + " of population of size " + size);
+	}
+
+	/**
+	 * Returns the metadata of the numeric value and flow fields of the specified
+	 * block type and its superclasses, i.e. the non-static fields annotated as
+	 * {@code @Value} or {@code @Flow} whose type is {@code RReal},
+	 * {@code IInteger}, or an extension of either, as found in the
+	 * {@code SysMLMetadata} registry
+	 *
+	 * @param blockType type of block whose fields are to be returned
+	 * @return list of the metadata of the numeric value and flow fields
+	 * @throws IllegalArgumentException if the block type or one of its
+	 *                                  superclasses is not indexed
+	 */
+	private static List<FieldMetadata> numericFieldsOf(Class<?> blockType)
+	{
+		List<FieldMetadata> result = new ArrayList<>();
+		List<String> names = new ArrayList<>();
+		for (Class<?> type = blockType; type != null && type != SysMLBlock.class; type = type.getSuperclass())
+		{
+			Optional<ClassMetadata> metadata = SysMLMetadata.classMetadata(type);
+			if (metadata.isPresent())
+			{
+				for (FieldMetadata field : metadata.get().fields)
+				{
+					boolean annotated = field.isAnnotatedWith(Value.class) || field.isAnnotatedWith(Flow.class);
+					if (annotated && isNumeric(field.type) && !field.isStatic && field.accessor.isPresent() && !names.contains(field.name))
+					{
+						result.add(field);
+						names.add(field.name);
+					}
+				}
+			}
+			else
+				throw new IllegalArgumentException("no metadata for " + type.getName() + ", the value and flow fields of which are to be indexed by the ModelMetadataProcessor or named to the population");
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the metadata of the specified numeric fields of the specified block
+	 * type and its superclasses, whereby the fields are accessed by reflection
+	 *
+	 * @param blockType  type of block whose fields are to be returned
+	 * @param fieldNames names of the fields
+	 * @return list of the metadata of the named fields
+	 * @throws IllegalArgumentException if a named field is not a non-static
+	 *                                  numeric field of the block type
+	 * @throws IllegalStateException    if a named field is not accessible
+	 */
+	private static List<FieldMetadata> namedFieldsOf(Class<?> blockType, List<String> fieldNames)
+	{
+		List<FieldMetadata> result = new ArrayList<>();
+		for (String name : fieldNames)
+		{
+			Optional<Field> found = Optional.empty();
+			for (Class<?> type = blockType; type != null && type != SysMLBlock.class && !found.isPresent(); type = type.getSuperclass())
+				for (Field field : type.getDeclaredFields())
+					if (field.getName().equals(name))
+						found = Optional.of(field);
+			if (!found.isPresent() || !isNumeric(found.get().getType()) || Modifier.isStatic(found.get().getModifiers()))
+				throw new IllegalArgumentException("not a numeric value or flow field of " + blockType.getName() + ": " + name);
+			Field field = found.get();
+			if (!field.trySetAccessible())
+				throw new IllegalStateException("field not accessible: " + field);
+			result.add(new FieldMetadata(field.getName(), field.getType(), field.getGenericType().getTypeName(), false, List.of(), instance ->
+			{
+				try
+				{
+					return field.get(instance);
+				} catch (IllegalAccessException e)
+				{
+					throw new IllegalStateException("field not accessible: " + field, e);
+				}
+			}));
+		}
+		return result;
+	}
+
+	/**
+	 * Returns whether the specified type of field is numeric, i.e. is
+	 * {@code RReal}, {@code IInteger}, or an extension of either
+	 *
+	 * @param type type of the field
+	 * @return true if the type is numeric
+	 */
+	private static boolean isNumeric(Class<?> type)
+	{
+		return RReal.class.isAssignableFrom(type) || IInteger.class.isAssignableFrom(type);
+	}
+
+	@Override
+	public String toString()
+	{
+		return String.format("SysMLBlockPopulation [blockType=%s, size=%d, columns=%s]", cursor.getClass().getSimpleName(), size, columns);
+	}
+}
@@ -0,0 +1,10 @@
+/**
+ * Contains the population of blocks, a compact representation of large numbers
+ * of instances of the same {@code SysMLBlock} type, e.g. the thousands of
+ * vehicles of a traffic model. The population stores the numeric values and
+ * flows of all its instances in contiguous primitive arrays (struct-of-arrays)
+ * rather than in a full block object graph per instance, and provides bulk
+ * operations across the population as well as per-instance views in terms of
+ * the block type itself.
+ */
+package sysmlinjava.blocks.populations;
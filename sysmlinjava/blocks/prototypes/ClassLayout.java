@@ -0,0 +1,150 @@
+package sysmlinjava.blocks.prototypes;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InaccessibleObjectException;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import sysmlinjava.common.SerializationConstructors;
+
+/**
+ * Layout of a class of the objects that are copied by the
+ * {@code PrototypeGraph}, i.e. the instance fields of the class and its
+ * superclasses, the field that references the object's context block, if any,
+ * and the constructor by which instances of the class are allocated. The layout
+ * of each class is determined once, by reflection, and is then reused for all
+ * copies of all prototypes.
+ * <h2>Allocation</h2> Instances of model classes are allocated by a
+ * serialization constructor of the class, i.e. a constructor that invokes only
+ * the {@code Object} constructor, so that none of the class's own constructors
+ * and therefore none of its {@code create...()} operations are invoked. The
+ * fields of the allocated instance are then set from the prototype by the
+ * copier. Instances of lambda classes are instead created by the lambda class's
+ * own constructor with the copied values of its captured arguments, as the
+ * fields of a lambda class cannot be set by reflection.
+ *
+ * @author ModelerOne
+ *
+ */
+final class ClassLayout
+{
+	/**
+	 * The class
+	 */
+	final Class<?> type;
+	/**
+	 * Whether the class is a lambda (hidden) class
+	 */
+	final boolean isLambda;
+	/**
+	 * Instance fields of the class and its superclasses, or the captured arguments
+	 * of a lambda class in order of its constructor's parameters
+	 */
+	final Field[] fields;
+	/**
+	 * Optional field that references the context block of instances of the class,
+	 * i.e. the block that owns the instance
+	 */
+	final Optional<Field> contextBlockField;
+	/**
+	 * Constructor by which instances of the class are allocated
+	 */
+	final Constructor<?> allocator;
+
+	/**
+	 * Constructor
+	 *
+	 * @param type the class
+	 * @throws IllegalArgumentException if the class is not accessible by
+	 *                                  reflection, e.g. its package is not open to
+	 *                                  the SysMLinJava module
+	 */
+	ClassLayout(Class<?> type)
+	{
+		super();
+		this.type = type;
+		this.isLambda = type.isHidden();
+		try
+		{
+			List<Field> instanceFields = new ArrayList<>();
+			Field contextField = null;
+			for (Class<?> declaring = type; declaring != null && declaring != Object.class; declaring = declaring.getSuperclass())
+				for (Field field : declaring.getDeclaredFields())
+					if (!Modifier.isStatic(field.getModifiers()))
+					{
+						field.setAccessible(true);
+						instanceFields.add(field);
+						if (contextField == null && field.getName().equals(contextBlockFieldName))
+							contextField = field;
+					}
+			if (isLambda)
+			{
+				instanceFields.sort(Comparator.comparingInt(ClassLayout::capturedArgumentIndex));
+				allocator = type.getDeclaredConstructors()[0];
+				allocator.setAccessible(true);
+			}
+			else
+				allocator = SerializationConstructors.constructorOf(type);
+			this.fields = instanceFields.toArray(new Field[instanceFields.size()]);
+			this.contextBlockField = Optional.ofNullable(contextField);
+		} catch (InaccessibleObjectException | SecurityException | ReflectiveOperationException e)
+		{
+			throw new IllegalArgumentException("class cannot be copied, its package may need to be opened to sysmlinjava: " + type.getName(), e);
+		}
+	}
+
+	/**
+	 * Returns the context block of the specified instance of the class, i.e. the
+	 * value of its context block field, unwrapped if it is an {@code Optional}
+	 *
+	 * @param instance instance of the class
+	 * @return the context block, or null if the class has no context block field
+	 *         or the instance has no context block
+	 */
+	Object contextBlockOf(Object instance)
+	{
+		Object result = null;
+		if (contextBlockField.isPresent())
+			try
+			{
+				result = contextBlockField.get().get(instance);
+				if (result instanceof Optional)
+					result = ((Optional<?>)result).orElse(null);
+			} catch (IllegalAccessException e)
+			{
+				result = null;
+			}
+		return result;
+	}
+
+	/**
+	 * Returns the index of the captured argument of a lambda class that is held
+	 * by the specified field, i.e. the number in its {@code arg$n} name
+	 *
+	 * @param field field of a lambda class
+	 * @return index of the captured argument
+	 */
+	private static int capturedArgumentIndex(Field field)
+	{
+		String name = field.getName();
+		int separator = name.lastIndexOf('$');
+		int result = Integer.MAX_VALUE;
+		try
+		{
+			result = Integer.parseInt(name.substring(separator + 1));
+		} catch (NumberFormatException e)
+		{
+			result = Integer.MAX_VALUE;
+		}
+		return result;
+	}
+
+	/**
+	 * Name of the field of SysMLinJava elements that references their context
+	 * block
+	 */
+	static final String contextBlockFieldName = "contextBlock";
+}
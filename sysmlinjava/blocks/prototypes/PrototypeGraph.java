@@ -0,0 +1,459 @@
+package sysmlinjava.blocks.prototypes;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.concurrent.Future;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import sysmlinjava.analysis.metrics.ElementMetrics;
+import sysmlinjava.blocks.SysMLBlock;
+import sysmlinjava.execution.AdaptiveScheduledExecutor;
+import sysmlinjava.execution.SysMLExecutors;
+
+/**
+ * Graph of the objects of a prototype block that are copied for each copy of
+ * the prototype, i.e. the copy plan of the prototype. The graph is built once,
+ * by a traversal of the prototype's object graph that determines for each
+ * object whether it is copied or shared and, for each copied object, the node
+ * by which it is copied and the references of the node to the other nodes.
+ * Each copy of the prototype is then created from the graph's nodes by index,
+ * i.e. without any traversal, identity maps, or type tests of the prototype's
+ * objects, in the phases described by the {@code PrototypeNode}.
+ * <h2>Copied and shared objects</h2> The objects of the prototype's graph are
+ * copied or shared as follows.
+ * <ul>
+ * <li>Objects of the shared types of the prototype, e.g. units and
+ * requirements, and enums, strings, and classes are shared, i.e. the copy
+ * references the same object as the prototype.</li>
+ * <li>Blocks outside the prototype, i.e. blocks that are not the prototype
+ * itself or one of its direct or indirect parts, and elements whose context
+ * block is outside the prototype, e.g. the ports of the prototype's context
+ * block to which the prototype's ports are connected, are shared, except the
+ * prototype's own context block, which is replaced by the copy's context
+ * block.</li>
+ * <li>Executors are replaced by new executors of the same number of threads,
+ * unless they are the shared adaptive executor, which is shared.</li>
+ * <li>Futures, threads, and element metrics are not copied, i.e. the copy
+ * references null, as they pertain to the execution of the prototype rather
+ * than to its structure, and the element metrics are obtained anew by the
+ * copy when first used.</li>
+ * <li>Optionals, arrays, collections, maps, atomics, and locks are copied with
+ * copies of their contents. Other JDK objects, e.g. loggers and internet
+ * addresses, are shared.</li>
+ * <li>Lambdas are shared unless they capture objects that are copied, in which
+ * case they are re-created with the copies of their captured objects.</li>
+ * <li>All other objects are copied field by field.</li>
+ * </ul>
+ *
+ * @author ModelerOne
+ *
+ * @see PrototypeNode
+ */
+final class PrototypeGraph
+{
+	/**
+	 * Nodes of the graph, the prototype block's node first
+	 */
+	private final PrototypeNode[] nodes;
+	/**
+	 * Indexes of the nodes that are allocated in the allocation phase
+	 */
+	private final int[] allocatedNodes;
+	/**
+	 * Indexes of the dependent nodes in order of their creation
+	 */
+	private final int[] dependentNodes;
+	/**
+	 * Indexes of the nodes in order of their filling
+	 */
+	private final int[] filledNodes;
+
+	/**
+	 * Constructor
+	 *
+	 * @param prototype prototype whose graph is to be built
+	 * @throws IllegalArgumentException if an object of the prototype's graph
+	 *                                  cannot be copied
+	 */
+	PrototypeGraph(SysMLBlockPrototype<?> prototype)
+	{
+		super();
+		Builder builder = new Builder(prototype);
+		this.nodes = builder.nodes.toArray(new PrototypeNode[builder.nodes.size()]);
+		List<Integer> allocated = new ArrayList<>();
+		List<Integer> filledFirst = new ArrayList<>();
+		List<Integer> filledLast = new ArrayList<>();
+		for (int i = 0; i < nodes.length; i++)
+		{
+			if (!nodes[i].isDependent())
+				allocated.add(i);
+			if (nodes[i].isFilledLast())
+				filledLast.add(i);
+			else
+				filledFirst.add(i);
+		}
+		filledFirst.addAll(filledLast);
+		this.allocatedNodes = allocated.stream().mapToInt(Integer::intValue).toArray();
+		this.dependentNodes = dependentOrder().stream().mapToInt(Integer::intValue).toArray();
+		this.filledNodes = filledFirst.stream().mapToInt(Integer::intValue).toArray();
+	}
+
+	/**
+	 * Returns the number of objects copied for each copy of the prototype
+	 *
+	 * @return number of objects copied
+	 */
+	int size()
+	{
+		return nodes.length;
+	}
+
+	/**
+	 * Creates a copy of the prototype with the specified context block
+	 *
+	 * @param contextBlock context block of the copy, or null if none
+	 * @return the copy of the prototype block
+	 * @throws IllegalStateException if an object could not be copied
+	 */
+	Object copy(Object contextBlock)
+	{
+		Object[] copies = new Object[nodes.length];
+		try
+		{
+			for (int index : allocatedNodes)
+				copies[index] = nodes[index].allocate();
+			for (int index : dependentNodes)
+				copies[index] = nodes[index].create(copies, contextBlock);
+			for (int index : filledNodes)
+				nodes[index].fill(copies[index], copies, contextBlock);
+		} catch (ReflectiveOperationException e)
+		{
+			throw new IllegalStateException("prototype could not be copied", e);
+		}
+		return copies[0];
+	}
+
+	/**
+	 * Returns the indexes of the dependent nodes in order of their dependencies,
+	 * i.e. with each dependent node after the dependent nodes it references
+	 *
+	 * @return indexes of the dependent nodes in order of creation
+	 */
+	private List<Integer> dependentOrder()
+	{
+		List<Integer> result = new ArrayList<>();
+		boolean[] isVisited = new boolean[nodes.length];
+		for (int i = 0; i < nodes.length; i++)
+			if (nodes[i].isDependent())
+				addDependent(i, isVisited, result);
+		return result;
+	}
+
+	/**
+	 * Adds the specified dependent node to the order of creation after the
+	 * dependent nodes it references
+	 *
+	 * @param index     index of the dependent node
+	 * @param isVisited whether each node has been visited
+	 * @param order     order of creation of the dependent nodes
+	 */
+	private void addDependent(int index, boolean[] isVisited, List<Integer> order)
+	{
+		if (!isVisited[index])
+		{
+			isVisited[index] = true;
+			for (int target : nodes[index].targets)
+				if (target >= 0 && nodes[target].isDependent())
+					addDependent(target, isVisited, order);
+			order.add(index);
+		}
+	}
+
+	/**
+	 * Builder of the nodes of the graph by a breadth-first traversal of the
+	 * prototype's object graph
+	 */
+	static final class Builder
+	{
+		/**
+		 * The prototype
+		 */
+		private final SysMLBlockPrototype<?> prototype;
+		/**
+		 * Context block of the prototype block, or null if none
+		 */
+		private final Object prototypeContextBlock;
+		/**
+		 * Nodes of the graph in order of their indexes
+		 */
+		final List<PrototypeNode> nodes;
+		/**
+		 * Indexes of the nodes of the copied objects, by identity of the objects
+		 */
+		private final Map<Object, Integer> indexes;
+		/**
+		 * Map of the blocks and elements encountered to whether they are inside the
+		 * prototype, by identity
+		 */
+		private final Map<Object, Boolean> insideBlocks;
+		/**
+		 * Copied objects whose nodes are yet to be linked
+		 */
+		private final Queue<Object> unlinked;
+
+		/**
+		 * Constructor, which builds the nodes of the specified prototype
+		 *
+		 * @param prototype the prototype
+		 */
+		Builder(SysMLBlockPrototype<?> prototype)
+		{
+			super();
+			this.prototype = prototype;
+			this.prototypeContextBlock = prototype.prototype.contextBlock.orElse(null);
+			this.nodes = new ArrayList<>();
+			this.indexes = new IdentityHashMap<>();
+			this.insideBlocks = new IdentityHashMap<>();
+			this.unlinked = new ArrayDeque<>();
+			addNode(prototype.prototype, nodeOf(prototype.prototype, prototype.prototype.getClass()).get());
+			try
+			{
+				while (!unlinked.isEmpty())
+				{
+					Object original = unlinked.remove();
+					nodes.get(indexes.get(original)).link(original, this);
+				}
+			} catch (ReflectiveOperationException e)
+			{
+				throw new IllegalArgumentException("prototype could not be traversed", e);
+			}
+		}
+
+		/**
+		 * Sets the specified reference of the specified node to the copy of the
+		 * specified original object, adding a node for the object if it is copied
+		 * and not already added
+		 *
+		 * @param original the referenced object of the prototype's graph
+		 * @param node     the referencing node
+		 * @param index    index of the reference of the node
+		 */
+		void reference(Object original, PrototypeNode node, int index)
+		{
+			int target = PrototypeNode.constantTarget;
+			Object constant = null;
+			Integer originalIndex = original == null ? null : indexes.get(original);
+			if (original == null)
+				target = PrototypeNode.nullTarget;
+			else if (original == prototypeContextBlock)
+				target = PrototypeNode.contextBlockTarget;
+			else if (originalIndex != null)
+				target = originalIndex;
+			else if (original instanceof Future || original instanceof Thread || original instanceof ElementMetrics)
+				constant = null;
+			else
+			{
+				Optional<PrototypeNode> originalNode = nodeOf(original, original.getClass());
+				if (originalNode.isPresent())
+					target = addNode(original, originalNode.get());
+				else
+					constant = original;
+			}
+			node.targets[index] = target;
+			node.constants[index] = constant;
+		}
+
+		/**
+		 * Adds the specified node of the specified original object to the graph
+		 *
+		 * @param original the original object
+		 * @param node     the node of the object
+		 * @return index of the node
+		 */
+		private int addNode(Object original, PrototypeNode node)
+		{
+			int result = nodes.size();
+			nodes.add(node);
+			indexes.put(original, result);
+			unlinked.add(original);
+			return result;
+		}
+
+		/**
+		 * Returns the node by which the specified original object is copied
+		 *
+		 * @param original the original object
+		 * @param type     class of the object
+		 * @return optional node of the object, empty if the object is shared
+		 */
+		private Optional<PrototypeNode> nodeOf(Object original, Class<?> type)
+		{
+			PrototypeNode result = null;
+			if (prototype.isShared(type))
+				result = null;
+			else if (original instanceof Optional)
+				result = ((Optional<?>)original).isPresent() ? new PrototypeNode.OptionalNode((Optional<?>)original) : null;
+			else if (type.isArray())
+				result = new PrototypeNode.ArrayNode(original);
+			else if (isJDKType(type))
+				result = jdkNodeOf(original);
+			else if (isInside(original))
+			{
+				ClassLayout layout = prototype.layoutOf(type);
+				result = layout.isLambda ? new PrototypeNode.LambdaNode(layout, original) : new PrototypeNode.ObjectNode(layout);
+			}
+			return Optional.ofNullable(result);
+		}
+
+		/**
+		 * Returns the node by which the specified object of a JDK class is copied,
+		 * i.e. a node for executors, collections, maps, atomics, and locks. The
+		 * copies of executors are provided by the {@code SysMLExecutors} as for new
+		 * blocks and states, i.e. per the executor mode and the executor scope of
+		 * the copying thread.
+		 *
+		 * @param original the JDK object
+		 * @return the node of the object, or null if the object is shared
+		 */
+		private PrototypeNode jdkNodeOf(Object original)
+		{
+			PrototypeNode result = null;
+			if (original instanceof ScheduledThreadPoolExecutor && !(original instanceof AdaptiveScheduledExecutor))
+				result = new PrototypeNode.FactoryNode(SysMLExecutors.isStateExecutor((ScheduledThreadPoolExecutor)original) ? SysMLExecutors::newStateExecutor : SysMLExecutors::newBlockExecutor);
+			else if (original instanceof EnumSet)
+			{
+				EnumSet<?> elements = ((EnumSet<?>)original).clone();
+				result = new PrototypeNode.FactoryNode(() -> elements.clone());
+			}
+			else if (original instanceof Collection)
+			{
+				boolean isUnmodifiable = isUnmodifiable(original);
+				boolean isSorted = !isUnmodifiable && (original instanceof PriorityBlockingQueue || original instanceof PriorityQueue || original instanceof SortedSet);
+				result = new PrototypeNode.CollectionNode((Collection<?>)original, publicConstructorOf(original.getClass()), isSorted, isUnmodifiable);
+			}
+			else if (original instanceof Map)
+			{
+				boolean isUnmodifiable = isUnmodifiable(original);
+				result = new PrototypeNode.MapNode((Map<?, ?>)original, publicConstructorOf(original.getClass()), !isUnmodifiable && original instanceof SortedMap, isUnmodifiable);
+			}
+			else if (original instanceof AtomicLong)
+			{
+				long value = ((AtomicLong)original).get();
+				result = new PrototypeNode.FactoryNode(() -> new AtomicLong(value));
+			}
+			else if (original instanceof AtomicInteger)
+			{
+				int value = ((AtomicInteger)original).get();
+				result = new PrototypeNode.FactoryNode(() -> new AtomicInteger(value));
+			}
+			else if (original instanceof AtomicBoolean)
+			{
+				boolean value = ((AtomicBoolean)original).get();
+				result = new PrototypeNode.FactoryNode(() -> new AtomicBoolean(value));
+			}
+			else if (original instanceof AtomicReference)
+				result = new PrototypeNode.AtomicReferenceNode();
+			else if (original instanceof ReentrantLock)
+			{
+				boolean isFair = ((ReentrantLock)original).isFair();
+				result = new PrototypeNode.FactoryNode(() -> new ReentrantLock(isFair));
+			}
+			return result;
+		}
+
+		/**
+		 * Returns whether the specified object is inside the prototype, i.e. is the
+		 * prototype block itself, is a block or element whose context block is
+		 * inside the prototype, or is any other object that is not a block
+		 *
+		 * @param object the object
+		 * @return true if the object is inside the prototype
+		 */
+		private boolean isInside(Object object)
+		{
+			boolean result = true;
+			if (object != prototype.prototype)
+			{
+				Boolean known = insideBlocks.get(object);
+				if (known != null)
+					result = known;
+				else
+				{
+					Object contextBlock = prototype.layoutOf(object.getClass()).contextBlockOf(object);
+					if (contextBlock != null)
+						result = contextBlock != object && isInside(contextBlock);
+					else
+						result = !(object instanceof SysMLBlock);
+					insideBlocks.put(object, result);
+				}
+			}
+			return result;
+		}
+
+		/**
+		 * Returns the public no-argument constructor of the specified JDK collection
+		 * or map class
+		 *
+		 * @param type the class
+		 * @return optional constructor, empty if the class has no public no-argument
+		 *         constructor
+		 */
+		private static Optional<Constructor<?>> publicConstructorOf(Class<?> type)
+		{
+			Optional<Constructor<?>> result = Optional.empty();
+			if (Modifier.isPublic(type.getModifiers()))
+				try
+				{
+					result = Optional.of(type.getConstructor());
+				} catch (NoSuchMethodException | SecurityException e)
+				{
+					result = Optional.empty();
+				}
+			return result;
+		}
+
+		/**
+		 * Returns whether the specified JDK collection or map is one of the
+		 * unmodifiable implementations, e.g. of {@code List.of()} or
+		 * {@code Collections.unmodifiableList()}
+		 *
+		 * @param collection the collection or map
+		 * @return true if the collection or map is unmodifiable
+		 */
+		private static boolean isUnmodifiable(Object collection)
+		{
+			String name = collection.getClass().getName();
+			return name.startsWith("java.util.ImmutableCollections") || name.startsWith("java.util.Collections$Unmodifiable") || name.startsWith("java.util.Collections$Empty")
+				|| name.startsWith("java.util.Collections$Singleton");
+		}
+
+		/**
+		 * Returns whether the specified class is a class of the JDK
+		 *
+		 * @param type the class
+		 * @return true if the class is a class of the JDK
+		 */
+		private static boolean isJDKType(Class<?> type)
+		{
+			String name = type.getName();
+			return name.startsWith("java.") || name.startsWith("javax.") || name.startsWith("jdk.") || name.startsWith("sun.") || name.startsWith("com.sun.");
+		}
+	}
+}
@@ -0,0 +1,777 @@
+package sysmlinjava.blocks.prototypes;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Node of the {@code PrototypeGraph}, i.e. an object of the prototype's object
+ * graph that is copied for each copy of the prototype, with the references of
+ * the object to other objects of the graph. Each reference of a node is either
+ * the index of the referenced node in the graph, a constant, i.e. a shared
+ * object or null, or the context block of the copy.
+ * <h2>Phases of the copy</h2> A copy of the prototype is created by each node
+ * of the graph in three phases, so that all references between the copies can
+ * be set regardless of cycles in the graph.
+ * <ul>
+ * <li>Allocation: the nodes of mutable objects, e.g. model objects, arrays, and
+ * collections, allocate their copies, unset.</li>
+ * <li>Creation: the dependent nodes, i.e. the nodes of immutable objects, e.g.
+ * optionals and lambdas, or of objects that require their references upon
+ * creation, e.g. sorted collections, create their copies, in order of their
+ * dependencies on each other.</li>
+ * <li>Filling: the nodes set the fields or add the elements of their copies,
+ * first all model objects and arrays and then all collections and maps, so that
+ * the elements are complete when they are added.</li>
+ * </ul>
+ *
+ * @author ModelerOne
+ *
+ */
+abstract class PrototypeNode
+{
+	/**
+	 * Indexes of the nodes referenced by the node, {@code constantTarget} for a
+	 * constant, {@code nullTarget} for a null reference, or
+	 * {@code contextBlockTarget} for the context block of the copy
+	 */
+	final int[] targets;
+	/**
+	 * Constants referenced by the node, for the references whose target is
+	 * {@code constantTarget}
+	 */
+	final Object[] constants;
+
+	/**
+	 * Constructor
+	 *
+	 * @param referenceCount number of references of the node
+	 */
+	PrototypeNode(int referenceCount)
+	{
+		super();
+		this.targets = new int[referenceCount];
+		this.constants = new Object[referenceCount];
+	}
+
+	/**
+	 * Links the node to the nodes of the objects referenced by the specified
+	 * original object, by the specified builder
+	 *
+	 * @param original original object of the node
+	 * @param builder  builder of the graph
+	 * @throws ReflectiveOperationException if a field could not be read
+	 */
+	abstract void link(Object original, PrototypeGraph.Builder builder) throws ReflectiveOperationException;
+
+	/**
+	 * Returns whether the node is a dependent node, i.e. is created during the
+	 * creation phase rather than the allocation phase
+	 *
+	 * @return true if the node is a dependent node
+	 */
+	boolean isDependent()
+	{
+		return false;
+	}
+
+	/**
+	 * Returns whether the node is filled after the model objects and arrays, i.e.
+	 * is a collection or map
+	 *
+	 * @return true if the node is filled in the second pass of the fill phase
+	 */
+	boolean isFilledLast()
+	{
+		return false;
+	}
+
+	/**
+	 * Allocates the copy of the node, for nodes that are not dependent
+	 *
+	 * @return the copy
+	 * @throws ReflectiveOperationException if the copy could not be allocated
+	 */
+	Object allocate() throws ReflectiveOperationException
+	{
+		return null;
+	}
+
+	/**
+	 * Creates the copy of the node, for dependent nodes
+	 *
+	 * @param copies       copies of the nodes of the graph
+	 * @param contextBlock context block of the copy
+	 * @return the copy
+	 * @throws ReflectiveOperationException if the copy could not be created
+	 */
+	Object create(Object[] copies, Object contextBlock) throws ReflectiveOperationException
+	{
+		return null;
+	}
+
+	/**
+	 * Fills the copy of the node with the copies of its references
+	 *
+	 * @param copy         the copy of the node
+	 * @param copies       copies of the nodes of the graph
+	 * @param contextBlock context block of the copy
+	 * @throws ReflectiveOperationException if a field could not be set
+	 */
+	void fill(Object copy, Object[] copies, Object contextBlock) throws ReflectiveOperationException
+	{
+	}
+
+	/**
+	 * Returns the copy of the specified reference of the node
+	 *
+	 * @param index        index of the reference
+	 * @param copies       copies of the nodes of the graph
+	 * @param contextBlock context block of the copy
+	 * @return the copy of the referenced object, the shared object, or null
+	 */
+	final Object resolve(int index, Object[] copies, Object contextBlock)
+	{
+		int target = targets[index];
+		return target >= 0 ? copies[target] : target == contextBlockTarget ? contextBlock : constants[index];
+	}
+
+	/**
+	 * Returns whether all the references of the node are constants, i.e. whether
+	 * the copy of an immutable node would be equal to the original
+	 *
+	 * @return true if all references are constants
+	 */
+	final boolean isConstant()
+	{
+		boolean result = true;
+		for (int target : targets)
+			result &= target == constantTarget || target == nullTarget;
+		return result;
+	}
+
+	/**
+	 * Adds the resolved references of the node to the specified collection,
+	 * omitting references to objects that are not copied
+	 *
+	 * @param collection   the collection
+	 * @param count        number of references to be added
+	 * @param copies       copies of the nodes of the graph
+	 * @param contextBlock context block of the copy
+	 */
+	final void addTo(Collection<Object> collection, int count, Object[] copies, Object contextBlock)
+	{
+		for (int i = 0; i < count; i++)
+		{
+			Object element = resolve(i, copies, contextBlock);
+			if (element != null || isNullReference(i))
+				collection.add(element);
+		}
+	}
+
+	/**
+	 * Puts the resolved key and value references of the node into the specified
+	 * map, omitting entries with references to objects that are not copied
+	 *
+	 * @param map          the map
+	 * @param count        number of entries to be put
+	 * @param copies       copies of the nodes of the graph
+	 * @param contextBlock context block of the copy
+	 */
+	final void putInto(Map<Object, Object> map, int count, Object[] copies, Object contextBlock)
+	{
+		for (int i = 0; i < count; i++)
+		{
+			Object key = resolve(2 * i, copies, contextBlock);
+			Object value = resolve(2 * i + 1, copies, contextBlock);
+			if ((key != null || isNullReference(2 * i)) && (value != null || isNullReference(2 * i + 1)))
+				map.put(key, value);
+		}
+	}
+
+	/**
+	 * Returns whether the specified reference of the node is a null reference in
+	 * the original, as opposed to a reference to an object that is not copied
+	 *
+	 * @param index index of the reference
+	 * @return true if the reference is null in the original
+	 */
+	private boolean isNullReference(int index)
+	{
+		return targets[index] == nullTarget;
+	}
+
+	/**
+	 * Node of a model object that is copied field by field
+	 */
+	static final class ObjectNode extends PrototypeNode
+	{
+		/**
+		 * Layout of the object's class
+		 */
+		private final ClassLayout layout;
+
+		/**
+		 * Constructor
+		 *
+		 * @param layout layout of the object's class
+		 */
+		ObjectNode(ClassLayout layout)
+		{
+			super(layout.fields.length);
+			this.layout = layout;
+		}
+
+		@Override
+		void link(Object original, PrototypeGraph.Builder builder) throws ReflectiveOperationException
+		{
+			for (int i = 0; i < layout.fields.length; i++)
+				if (layout.fields[i].getType().isPrimitive())
+				{
+					targets[i] = constantTarget;
+					constants[i] = layout.fields[i].get(original);
+				}
+				else
+					builder.reference(layout.fields[i].get(original), this, i);
+		}
+
+		@Override
+		Object allocate() throws ReflectiveOperationException
+		{
+			return layout.allocator.newInstance();
+		}
+
+		@Override
+		void fill(Object copy, Object[] copies, Object contextBlock) throws ReflectiveOperationException
+		{
+			for (int i = 0; i < targets.length; i++)
+				layout.fields[i].set(copy, resolve(i, copies, contextBlock));
+		}
+	}
+
+	/**
+	 * Node of a lambda, which is re-created with the copies of its captured
+	 * arguments, or is shared if all its captured arguments are shared
+	 */
+	static final class LambdaNode extends PrototypeNode
+	{
+		/**
+		 * Layout of the lambda's class
+		 */
+		private final ClassLayout layout;
+		/**
+		 * The original lambda
+		 */
+		private final Object original;
+
+		/**
+		 * Constructor
+		 *
+		 * @param layout   layout of the lambda's class
+		 * @param original the original lambda
+		 */
+		LambdaNode(ClassLayout layout, Object original)
+		{
+			super(layout.fields.length);
+			this.layout = layout;
+			this.original = original;
+		}
+
+		@Override
+		void link(Object original, PrototypeGraph.Builder builder) throws ReflectiveOperationException
+		{
+			for (int i = 0; i < layout.fields.length; i++)
+				builder.reference(layout.fields[i].get(original), this, i);
+		}
+
+		@Override
+		boolean isDependent()
+		{
+			return true;
+		}
+
+		@Override
+		Object create(Object[] copies, Object contextBlock) throws ReflectiveOperationException
+		{
+			Object result = original;
+			if (!isConstant())
+			{
+				Object[] arguments = new Object[targets.length];
+				for (int i = 0; i < arguments.length; i++)
+					arguments[i] = resolve(i, copies, contextBlock);
+				result = layout.allocator.newInstance(arguments);
+			}
+			return result;
+		}
+	}
+
+	/**
+	 * Node of a present {@code Optional}, which is re-created with the copy of its
+	 * value
+	 */
+	static final class OptionalNode extends PrototypeNode
+	{
+		/**
+		 * The original optional
+		 */
+		private final Optional<?> original;
+
+		/**
+		 * Constructor
+		 *
+		 * @param original the original optional
+		 */
+		OptionalNode(Optional<?> original)
+		{
+			super(1);
+			this.original = original;
+		}
+
+		@Override
+		void link(Object original, PrototypeGraph.Builder builder)
+		{
+			builder.reference(((Optional<?>)original).orElse(null), this, 0);
+		}
+
+		@Override
+		boolean isDependent()
+		{
+			return true;
+		}
+
+		@Override
+		Object create(Object[] copies, Object contextBlock)
+		{
+			return isConstant() ? original : Optional.ofNullable(resolve(0, copies, contextBlock));
+		}
+	}
+
+	/**
+	 * Node of an array, which is copied with the copies of its elements
+	 */
+	static final class ArrayNode extends PrototypeNode
+	{
+		/**
+		 * Component type of the array
+		 */
+		private final Class<?> componentType;
+		/**
+		 * Length of the array
+		 */
+		private final int length;
+		/**
+		 * Optional snapshot of the original array, if it is an array of primitives
+		 */
+		private final Optional<Object> primitives;
+
+		/**
+		 * Constructor
+		 *
+		 * @param original the original array
+		 */
+		ArrayNode(Object original)
+		{
+			super(original.getClass().getComponentType().isPrimitive() ? 0 : Array.getLength(original));
+			this.componentType = original.getClass().getComponentType();
+			this.length = Array.getLength(original);
+			if (componentType.isPrimitive())
+			{
+				Object snapshot = Array.newInstance(componentType, length);
+				System.arraycopy(original, 0, snapshot, 0, length);
+				this.primitives = Optional.of(snapshot);
+			}
+			else
+				this.primitives = Optional.empty();
+		}
+
+		@Override
+		void link(Object original, PrototypeGraph.Builder builder)
+		{
+			for (int i = 0; i < targets.length; i++)
+				builder.reference(((Object[])original)[i], this, i);
+		}
+
+		@Override
+		Object allocate()
+		{
+			Object result = Array.newInstance(componentType, length);
+			if (primitives.isPresent())
+				System.arraycopy(primitives.get(), 0, result, 0, length);
+			return result;
+		}
+
+		@Override
+		void fill(Object copy, Object[] copies, Object contextBlock)
+		{
+			Object[] array = (Object[])copy;
+			for (int i = 0; i < targets.length; i++)
+				array[i] = resolve(i, copies, contextBlock);
+		}
+	}
+
+	/**
+	 * Node of an object that is created anew for each copy by a factory, e.g. an
+	 * executor, an atomic number, or a lock, and has no references
+	 */
+	static final class FactoryNode extends PrototypeNode
+	{
+		/**
+		 * Factory of the copies
+		 */
+		private final Supplier<Object> factory;
+
+		/**
+		 * Constructor
+		 *
+		 * @param factory factory of the copies
+		 */
+		FactoryNode(Supplier<Object> factory)
+		{
+			super(0);
+			this.factory = factory;
+		}
+
+		@Override
+		void link(Object original, PrototypeGraph.Builder builder)
+		{
+		}
+
+		@Override
+		Object allocate()
+		{
+			return factory.get();
+		}
+	}
+
+	/**
+	 * Node of an {@code AtomicReference}, which is copied with the copy of its
+	 * value
+	 */
+	static final class AtomicReferenceNode extends PrototypeNode
+	{
+		/**
+		 * Constructor
+		 */
+		AtomicReferenceNode()
+		{
+			super(1);
+		}
+
+		@Override
+		void link(Object original, PrototypeGraph.Builder builder)
+		{
+			builder.reference(((AtomicReference<?>)original).get(), this, 0);
+		}
+
+		@Override
+		Object allocate()
+		{
+			return new AtomicReference<Object>();
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		void fill(Object copy, Object[] copies, Object contextBlock)
+		{
+			((AtomicReference<Object>)copy).set(resolve(0, copies, contextBlock));
+		}
+	}
+
+	/**
+	 * Node of a JDK collection, which is copied with the copies of its elements
+	 * as a collection of the same class or, if the class cannot be instantiated,
+	 * a list or set of the same modifiability
+	 */
+	static final class CollectionNode extends PrototypeNode
+	{
+		/**
+		 * Optional public no-argument constructor of the collection's class
+		 */
+		private final Optional<Constructor<?>> constructor;
+		/**
+		 * Class of the original collection
+		 */
+		private final Class<?> type;
+		/**
+		 * Number of elements of the collection
+		 */
+		private final int size;
+		/**
+		 * Whether the collection is ordered by a comparator, which is its last
+		 * reference
+		 */
+		private final boolean isSorted;
+		/**
+		 * Whether the collection is unmodifiable
+		 */
+		private final boolean isUnmodifiable;
+		/**
+		 * Whether the collection is a set
+		 */
+		private final boolean isSet;
+
+		/**
+		 * Constructor
+		 *
+		 * @param original       the original collection
+		 * @param constructor    optional public no-argument constructor of the
+		 *                       collection's class
+		 * @param isSorted       whether the collection is ordered by a comparator
+		 * @param isUnmodifiable whether the collection is unmodifiable
+		 */
+		CollectionNode(Collection<?> original, Optional<Constructor<?>> constructor, boolean isSorted, boolean isUnmodifiable)
+		{
+			super(original.size() + (isSorted ? 1 : 0));
+			this.constructor = constructor;
+			this.type = original.getClass();
+			this.size = original.size();
+			this.isSorted = isSorted;
+			this.isUnmodifiable = isUnmodifiable;
+			this.isSet = original instanceof Set;
+		}
+
+		@Override
+		void link(Object original, PrototypeGraph.Builder builder) throws ReflectiveOperationException
+		{
+			int i = 0;
+			for (Object element : (Collection<?>)original)
+				builder.reference(element, this, i++);
+			if (isSorted)
+				builder.reference(comparatorOf(original), this, size);
+		}
+
+		@Override
+		boolean isDependent()
+		{
+			return isSorted || isUnmodifiable;
+		}
+
+		@Override
+		boolean isFilledLast()
+		{
+			return true;
+		}
+
+		@Override
+		Object allocate() throws ReflectiveOperationException
+		{
+			Object result = null;
+			if (!isDependent())
+				result = constructor.isPresent() ? constructor.get().newInstance() : isSet ? new LinkedHashSet<>() : new ArrayList<>();
+			return result;
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		Object create(Object[] copies, Object contextBlock)
+		{
+			Object result;
+			if (isSorted)
+			{
+				Comparator<Object> comparator = (Comparator<Object>)resolve(size, copies, contextBlock);
+				if (type == PriorityBlockingQueue.class)
+					result = new PriorityBlockingQueue<>(Math.max(1, size), comparator);
+				else if (type == PriorityQueue.class)
+					result = new PriorityQueue<>(Math.max(1, size), comparator);
+				else if (type == ConcurrentSkipListSet.class)
+					result = new ConcurrentSkipListSet<>(comparator);
+				else
+					result = new TreeSet<>(comparator);
+			}
+			else
+			{
+				Collection<Object> elements = isSet ? new LinkedHashSet<>() : new ArrayList<>();
+				addTo(elements, size, copies, contextBlock);
+				result = isSet ? Collections.unmodifiableSet((Set<Object>)elements) : Collections.unmodifiableList((List<Object>)elements);
+			}
+			return result;
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		void fill(Object copy, Object[] copies, Object contextBlock)
+		{
+			if (!isUnmodifiable)
+				addTo((Collection<Object>)copy, size, copies, contextBlock);
+		}
+	}
+
+	/**
+	 * Node of a JDK map, which is copied with the copies of its keys and values as
+	 * a map of the same class or, if the class cannot be instantiated, a linked
+	 * hash map of the same modifiability
+	 */
+	static final class MapNode extends PrototypeNode
+	{
+		/**
+		 * Optional public no-argument constructor of the map's class
+		 */
+		private final Optional<Constructor<?>> constructor;
+		/**
+		 * Optional empty copy of the original map, if it is an {@code EnumMap}
+		 */
+		private final Optional<EnumMap<?, ?>> emptyEnumMap;
+		/**
+		 * Class of the original map
+		 */
+		private final Class<?> type;
+		/**
+		 * Number of entries of the map
+		 */
+		private final int size;
+		/**
+		 * Whether the map is ordered by a comparator, which is its last reference
+		 */
+		private final boolean isSorted;
+		/**
+		 * Whether the map is unmodifiable
+		 */
+		private final boolean isUnmodifiable;
+
+		/**
+		 * Constructor
+		 *
+		 * @param original       the original map
+		 * @param constructor    optional public no-argument constructor of the map's
+		 *                       class
+		 * @param isSorted       whether the map is ordered by a comparator
+		 * @param isUnmodifiable whether the map is unmodifiable
+		 */
+		@SuppressWarnings({"unchecked", "rawtypes"})
+		MapNode(Map<?, ?> original, Optional<Constructor<?>> constructor, boolean isSorted, boolean isUnmodifiable)
+		{
+			super(2 * original.size() + (isSorted ? 1 : 0));
+			this.constructor = constructor;
+			this.type = original.getClass();
+			this.size = original.size();
+			this.isSorted = isSorted;
+			this.isUnmodifiable = isUnmodifiable;
+			if (original instanceof EnumMap)
+			{
+				EnumMap<?, ?> empty = new EnumMap((EnumMap)original);
+				empty.clear();
+				this.emptyEnumMap = Optional.of(empty);
+			}
+			else
+				this.emptyEnumMap = Optional.empty();
+		}
+
+		@Override
+		void link(Object original, PrototypeGraph.Builder builder) throws ReflectiveOperationException
+		{
+			int i = 0;
+			for (Map.Entry<?, ?> entry : ((Map<?, ?>)original).entrySet())
+			{
+				builder.reference(entry.getKey(), this, i++);
+				builder.reference(entry.getValue(), this, i++);
+			}
+			if (isSorted)
+				builder.reference(comparatorOf(original), this, 2 * size);
+		}
+
+		@Override
+		boolean isDependent()
+		{
+			return isSorted || isUnmodifiable;
+		}
+
+		@Override
+		boolean isFilledLast()
+		{
+			return true;
+		}
+
+		@Override
+		Object allocate() throws ReflectiveOperationException
+		{
+			Object result = null;
+			if (emptyEnumMap.isPresent())
+				result = emptyEnumMap.get().clone();
+			else if (!isDependent())
+				result = constructor.isPresent() ? constructor.get().newInstance() : new LinkedHashMap<>();
+			return result;
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		Object create(Object[] copies, Object contextBlock)
+		{
+			Object result;
+			if (isSorted)
+			{
+				Comparator<Object> comparator = (Comparator<Object>)resolve(2 * size, copies, contextBlock);
+				result = type == ConcurrentSkipListMap.class ? new ConcurrentSkipListMap<>(comparator) : new TreeMap<>(comparator);
+			}
+			else
+			{
+				Map<Object, Object> entries = new LinkedHashMap<>();
+				putInto(entries, size, copies, contextBlock);
+				result = Collections.unmodifiableMap(entries);
+			}
+			return result;
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		void fill(Object copy, Object[] copies, Object contextBlock)
+		{
+			if (!isUnmodifiable)
+				putInto((Map<Object, Object>)copy, size, copies, contextBlock);
+		}
+	}
+
+	/**
+	 * Returns the comparator of the specified sorted collection or map, i.e. a
+	 * priority queue, sorted set, or sorted map
+	 *
+	 * @param sorted the sorted collection or map
+	 * @return the comparator, or null if ordered by natural ordering
+	 */
+	private static Object comparatorOf(Object sorted)
+	{
+		Object result;
+		if (sorted instanceof PriorityBlockingQueue)
+			result = ((PriorityBlockingQueue<?>)sorted).comparator();
+		else if (sorted instanceof PriorityQueue)
+			result = ((PriorityQueue<?>)sorted).comparator();
+		else if (sorted instanceof SortedSet)
+			result = ((SortedSet<?>)sorted).comparator();
+		else
+			result = ((SortedMap<?, ?>)sorted).comparator();
+		return result;
+	}
+
+	/**
+	 * Target of a reference to a constant
+	 */
+	static final int constantTarget = -1;
+	/**
+	 * Target of a reference to the context block of the copy
+	 */
+	static final int contextBlockTarget = -2;
+	/**
+	 * Target of a null reference, as opposed to a reference to an object that is
+	 * not copied, i.e. a constant null
+	 */
+	static final int nullTarget = -3;
+}
@@ -0,0 +1,266 @@
+package sysmlinjava.blocks.prototypes;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import sysmlinjava.analysis.metadata.ClassMetadata;
+import sysmlinjava.analysis.metadata.FieldMetadata;
+import sysmlinjava.analysis.metrics.LatencyHistogram;
+import sysmlinjava.blocks.SysMLBlock;
+import sysmlinjava.comments.SysMLComment;
+import sysmlinjava.quantitykinds.SysMLQuantityKind;
+import sysmlinjava.quantitykinds.SysMLQuantityKinds;
+import sysmlinjava.requirements.SysMLAbstractRequirement;
+import sysmlinjava.requirements.SysMLRequirements;
+import sysmlinjava.statemachine.SysMLStateMachineDefinition;
+import sysmlinjava.statemachine.SysMLStateMachineDispatcher;
+import sysmlinjava.units.SysMLUnit;
+import sysmlinjava.units.SysMLUnits;
+
+/**
+ * Prototype of a {@code SysMLBlock} from which many identical blocks are
+ * created as copies of the prototype.
+ * <h2>Fast instantiation</h2> The construction of a block invokes its
+ * {@code preCreate()} and {@code createProperties()} operations and thereby its
+ * full sequence of {@code create...()} operations, recursively for all its
+ * parts, ports, state machines, and constraint blocks. For models of thousands
+ * of identical blocks, e.g. the intersections of a city traffic model, the
+ * repeated construction can dominate the time to build the model. The
+ * {@code SysMLBlockPrototype} instead constructs the block once, as the
+ * {@code prototype}, and creates each further block by a deep copy of the
+ * prototype's object graph in which none of the constructors or
+ * {@code create...()} operations are invoked, as follows:
+ *
+ * <pre>
+ * SysMLBlockPrototype&lt;Intersection&gt; intersections = new SysMLBlockPrototype&lt;&gt;(new Intersection(city, "Intersection", 0L));
+ * List&lt;Intersection&gt; grid = intersections.newInstances(20_000, city, "Intersection", 1L);
+ * </pre>
+ *
+ * <h3>Shared and copied elements</h3> The copies share the immutable elements
+ * of the prototype, i.e. the instances of the prototype's shared types, which
+ * include units, quantity kinds, requirements, comments, state machine
+ * definitions and dispatchers, and any types added by the
+ * {@code shareInstancesOf()} operation. All the mutable state of the
+ * prototype, i.e. its values, flows, parts, ports, state machines, constraint
+ * blocks, and the collections thereof, is copied, and all references within the
+ * prototype, e.g. between the prototype's connected parts and ports and from
+ * the parts to their context blocks, are rewired to reference the copies. Each
+ * copy is given its own executor, or the shared adaptive executor if it is
+ * used. References to elements outside the prototype, e.g. to the ports of
+ * other blocks to which the prototype's ports are connected, are retained, and
+ * the prototype's context block is replaced by the context block of the copy.
+ * <h3>Copy plan</h3> Upon the first copy, the prototype's object graph is
+ * traversed once to build the {@code PrototypeGraph}, i.e. the plan of the
+ * objects to be copied and the references between them by index, from which
+ * each copy is then created without any further traversal. The details of the
+ * copying are described by the {@code PrototypeGraph}.
+ * <h3>Restrictions</h3> The prototype must not be started or operated upon
+ * while copies are created, as the copies would otherwise include its
+ * execution state, and must not be modified after the first copy, as the
+ * primitive values of the prototype are recorded in the copy plan. The classes
+ * of the prototype's object graph must be accessible by reflection, i.e. their
+ * packages must be opened to the SysMLinJava module if the model is a named
+ * module. The name and ID of each
+ * copy are set as specified, while the parts of the copy retain the names and
+ * IDs of the prototype's parts.
+ *
+ * @author ModelerOne
+ *
+ * @param <B> type of the prototype block
+ *
+ * @see PrototypeGraph
+ */
+public class SysMLBlockPrototype<B extends SysMLBlock>
+{
+	/**
+	 * The prototype block from which the copies are created
+	 */
+	public final B prototype;
+	/**
+	 * Types whose instances are shared by the prototype and its copies
+	 */
+	private final List<Class<?>> sharedTypes;
+	/**
+	 * Map of the classes encountered in the prototype's graph to whether their
+	 * instances are shared
+	 */
+	private final Map<Class<?>, Boolean> isSharedByClass;
+	/**
+	 * Optional copy plan of the prototype, empty until the first copy
+	 */
+	private volatile Optional<PrototypeGraph> graph;
+
+	/**
+	 * Constructor
+	 *
+	 * @param prototype the prototype block, fully constructed and not started
+	 */
+	public SysMLBlockPrototype(B prototype)
+	{
+		super();
+		this.prototype = prototype;
+		this.sharedTypes = new CopyOnWriteArrayList<>(defaultSharedTypes);
+		this.isSharedByClass = new ConcurrentHashMap<>();
+		this.graph = Optional.empty();
+	}
+
+	/**
+	 * Adds the specified type to the shared types of the prototype, i.e. the
+	 * types whose instances are immutable and are therefore referenced by the
+	 * copies rather than copied
+	 *
+	 * @param type type whose instances are to be shared, including instances of
+	 *             its extensions
+	 */
+	public void shareInstancesOf(Class<?> type)
+	{
+		sharedTypes.add(type);
+		isSharedByClass.clear();
+		graph = Optional.empty();
+	}
+
+	/**
+	 * Returns the number of objects that are copied for each copy of the
+	 * prototype, i.e. the objects of the prototype's graph that are not shared
+	 *
+	 * @return number of objects copied
+	 */
+	public int objectCount()
+	{
+		return graph().size();
+	}
+
+	/**
+	 * Creates a new copy of the prototype with the same context block, name, and
+	 * ID as the prototype
+	 *
+	 * @return the copy of the prototype
+	 */
+	public B newInstance()
+	{
+		return newInstance(prototype.contextBlock, prototype.name, prototype.id);
+	}
+
+	/**
+	 * Creates a new copy of the prototype with the specified context block, name,
+	 * and ID
+	 *
+	 * @param contextBlock context block of the copy
+	 * @param name         name of the copy
+	 * @param id           ID of the copy
+	 * @return the copy of the prototype
+	 */
+	public B newInstance(SysMLBlock contextBlock, String name, Long id)
+	{
+		return newInstance(Optional.ofNullable(contextBlock), Optional.ofNullable(name), id);
+	}
+
+	/**
+	 * Creates the specified number of new copies of the prototype with the
+	 * specified context block, the specified name followed by the index of the
+	 * copy, and consecutive IDs starting at the specified ID. The copies are
+	 * created in parallel.
+	 *
+	 * @param count        number of copies to be created
+	 * @param contextBlock context block of the copies
+	 * @param name         name of the copies, to which the index of the copy is
+	 *                     appended
+	 * @param firstID      ID of the first copy
+	 * @return the copies of the prototype, in order of their indexes
+	 */
+	public List<B> newInstances(int count, SysMLBlock contextBlock, String name, long firstID)
+	{
+		return IntStream.range(0, count).parallel().mapToObj(index -> newInstance(contextBlock, name + index, firstID + index)).collect(Collectors.toList());
+	}
+
+	/**
+	 * Creates a new copy of the prototype with the specified context block, name,
+	 * and ID
+	 *
+	 * @param contextBlock optional context block of the copy
+	 * @param name         optional name of the copy
+	 * @param id           ID of the copy
+	 * @return the copy of the prototype
+	 */
+	@SuppressWarnings("unchecked")
+	private B newInstance(Optional<? extends SysMLBlock> contextBlock, Optional<String> name, Long id)
+	{
+		B result = (B)graph().copy(contextBlock.orElse(null));
+		result.contextBlock = contextBlock;
+		result.name = name;
+		result.id = id;
+		return result;
+	}
+
+	/**
+	 * Returns the copy plan of the prototype, building it if not already built
+	 *
+	 * @return the copy plan
+	 */
+	private PrototypeGraph graph()
+	{
+		Optional<PrototypeGraph> result = graph;
+		if (result.isEmpty())
+			synchronized (this)
+			{
+				result = graph;
+				if (result.isEmpty())
+				{
+					result = Optional.of(new PrototypeGraph(this));
+					graph = result;
+				}
+			}
+		return result.get();
+	}
+
+	/**
+	 * Returns whether the instances of the specified class are shared by the
+	 * prototype and its copies
+	 *
+	 * @param type the class
+	 * @return true if the instances of the class are shared
+	 */
+	boolean isShared(Class<?> type)
+	{
+		Boolean result = isSharedByClass.get(type);
+		if (result == null)
+		{
+			result = type.isEnum() || Enum.class.isAssignableFrom(type) || sharedTypes.stream().anyMatch(sharedType -> sharedType.isAssignableFrom(type));
+			isSharedByClass.put(type, result);
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the layout of the specified class of the prototype's graph
+	 *
+	 * @param type the class
+	 * @return layout of the class
+	 */
+	ClassLayout layoutOf(Class<?> type)
+	{
+		return layouts.get(type);
+	}
+
+	/**
+	 * Types whose instances are shared by all prototypes and their copies
+	 */
+	public static final List<Class<?>> defaultSharedTypes = List.of(String.class, Class.class, SysMLUnit.class, SysMLUnits.class, SysMLQuantityKind.class, SysMLQuantityKinds.class,
+		SysMLAbstractRequirement.class, SysMLRequirements.class, SysMLComment.class, SysMLStateMachineDefinition.class, SysMLStateMachineDispatcher.class, ClassMetadata.class,
+		FieldMetadata.class, LatencyHistogram.class);
+	/**
+	 * Layouts of the classes of the prototypes' graphs, by class
+	 */
+	private static final ClassValue<ClassLayout> layouts = new ClassValue<>()
+	{
+		@Override
+		protected ClassLayout computeValue(Class<?> type)
+		{
+			return new ClassLayout(type);
+		}
+	};
+}
@@ -0,0 +1,11 @@
+/**
+ * Contains the prototype facility for the fast instantiation of many identical
+ * blocks, e.g. the thousands of intersections of a city traffic model. A
+ * prototype block is constructed and wired once by its full sequence of
+ * {@code create...()} operations, and the copies are then created as deep
+ * copies of the prototype's object graph, sharing the immutable elements of
+ * the prototype, e.g. units, requirements, and state machine definitions, and
+ * copying only its mutable state, with the internal connections of the copy
+ * rewired to the copy's own parts and ports.
+ */
+package sysmlinjava.blocks.prototypes;
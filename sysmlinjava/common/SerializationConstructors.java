@@ -0,0 +1,98 @@
+package sysmlinjava.common;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.Optional;
+
+/**
+ * Factory of the constructors by which instances of model classes are allocated
+ * without invoking any of the classes' own constructors, i.e. serialization
+ * constructors that invoke only the {@code Object} constructor. Such
+ * constructors are used by the facilities that recreate model objects from
+ * other objects or from files, e.g. the copying of block prototypes and the
+ * restore of snapshots, so that none of the {@code create...()} operations of
+ * the model classes are invoked and the fields of the allocated instances can
+ * instead be set by the facility.
+ * <h2>Availability</h2> Serialization constructors are created by the JVM's
+ * {@code sun.reflect.ReflectionFactory} of the {@code jdk.unsupported} module,
+ * which is looked up by reflection. If it is not available, the class's own
+ * no-argument constructor is returned instead.
+ *
+ * @author ModelerOne
+ *
+ */
+public final class SerializationConstructors
+{
+	/**
+	 * Private constructor of the static factory
+	 */
+	private SerializationConstructors()
+	{
+		super();
+	}
+
+	/**
+	 * Returns a constructor of the specified class that allocates an instance of
+	 * the class without invoking any of the class's constructors, i.e. a
+	 * serialization constructor, or the class's no-argument constructor if
+	 * serialization constructors are not available in the JVM
+	 *
+	 * @param type the class
+	 * @return constructor of the class
+	 * @throws ReflectiveOperationException if neither constructor is available
+	 */
+	public static Constructor<?> constructorOf(Class<?> type) throws ReflectiveOperationException
+	{
+		Constructor<?> result;
+		if (reflectionFactory.isPresent())
+			result = (Constructor<?>)newConstructorForSerialization.invoke(reflectionFactory.get(), type, Object.class.getDeclaredConstructor());
+		else
+		{
+			result = type.getDeclaredConstructor();
+			result.setAccessible(true);
+		}
+		return result;
+	}
+
+	/**
+	 * Returns whether serialization constructors are available in the JVM, i.e.
+	 * whether the constructors returned by {@code constructorOf()} do not invoke
+	 * the classes' own constructors
+	 *
+	 * @return true if serialization constructors are available
+	 */
+	public static boolean isAvailable()
+	{
+		return reflectionFactory.isPresent();
+	}
+
+	/**
+	 * Optional {@code sun.reflect.ReflectionFactory} of the JVM (in the
+	 * {@code jdk.unsupported} module), by which serialization constructors are
+	 * created, empty if not available
+	 */
+	private static final Optional<Object> reflectionFactory;
+	/**
+	 * The {@code newConstructorForSerialization} operation of the reflection
+	 * factory
+	 */
+	private static final Method newConstructorForSerialization;
+
+	static
+	{
+		Object factory = null;
+		Method method = null;
+		try
+		{
+			Class<?> factoryClass = Class.forName("sun.reflect.ReflectionFactory");
+			factory = factoryClass.getMethod("getReflectionFactory").invoke(null);
+			method = factoryClass.getMethod("newConstructorForSerialization", Class.class, Constructor.class);
+		} catch (ReflectiveOperationException | LinkageError | SecurityException e)
+		{
+			factory = null;
+			method = null;
+		}
+		reflectionFactory = Optional.ofNullable(factory);
+		newConstructorForSerialization = method;
+	}
+}
@@ -22,6 +22,13 @@ import java.util.logging.Logger;
  * needed. The overridable {@code createXxxx()} methods provide a "reminder" to
  * create and initialize the class's attributes and comments as well as a
  * framework for their complete definition.
+ * <h3>Lightweight instances</h3> Many {@code SysMLClass} instances, e.g. the
+ * values of value types, events, and signals, are created in large numbers
+ * while a model executes. The {@code SysMLClass} therefore avoids per-instance
+ * overhead in its construction: the {@code logger} is shared by all instances
+ * of the same class and is obtained from a per-class cache rather than from
+ * the {@code LogManager}, and the empty {@code name} is the shared empty
+ * {@code Optional}.
  *
  * @author ModelerOne
  *
@@ -29,7 +36,8 @@ import java.util.logging.Logger;
 public abstract class SysMLClass
 {
 	/**
-	 * Logger for this and inheriting classes
+	 * Logger for this and inheriting classes. The logger is shared by all
+	 * instances of the same class.
 	 */
 	protected Logger logger;
 	/**
@@ -50,7 +58,7 @@ public abstract class SysMLClass
 	public SysMLClass()
 	{
 		super();
-		logger = Logger.getLogger(this.getClass().getSimpleName());
+		logger = classLoggers.get(getClass());
 		this.name = Optional.empty();
 		this.id = 0L;
 
@@ -92,7 +100,7 @@ public abstract class SysMLClass
 	public SysMLClass(SysMLClass copied)
 	{
 		super();
-		logger = Logger.getLogger(this.getClass().getSimpleName());
+		logger = classLoggers.get(getClass());
 		this.name = copied.name;
 		this.id = copied.id;
 	}
@@ -316,6 +324,20 @@ public abstract class SysMLClass
 	 */
 	public static final String createConstraintNotesMethodName = "createConstraintNotes";
 
+	/**
+	 * Cache of the loggers of the classes that extend the {@code SysMLClass}, i.e.
+	 * one logger per class, obtained from the {@code LogManager} only once per
+	 * class rather than once per instance
+	 */
+	private static final ClassValue<Logger> classLoggers = new ClassValue<>()
+	{
+		@Override
+		protected Logger computeValue(Class<?> type)
+		{
+			return Logger.getLogger(type.getSimpleName());
+		}
+	};
+
 	@Override
 	public String toString()
 	{
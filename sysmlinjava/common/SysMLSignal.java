@@ -1,6 +1,8 @@
 package sysmlinjava.common;
 
+import java.util.Optional;
 import sysmlinjava.analysis.common.StackedProtocolObject;
+import sysmlinjava.analysis.tracing.SignalTrace;
 
 /**
  * SysMLinJava's represention of the SysML signal. {@code SysMLSignal} is
@@ -14,12 +16,23 @@ import sysmlinjava.analysis.common.StackedProtocolObject;
  */
 public abstract class SysMLSignal extends SysMLClass implements StackedProtocolObject
 {
+	/**
+	 * Optional trace context of the signal, present if signal tracing is enabled
+	 * and the signal was transmitted by a {@code SysMLFullPort}. The trace is not
+	 * serialized with the signal, but is transmitted separately by the full port's
+	 * UDP transmitter.
+	 * 
+	 * @see sysmlinjava.analysis.tracing.SignalTracing
+	 */
+	public Optional<SignalTrace> trace;
+
 	/**
 	 * Constructor
 	 */
 	public SysMLSignal()
 	{
 		super();
+		trace = Optional.empty();
 	}
 
 	/**
@@ -31,6 +44,7 @@ public abstract class SysMLSignal extends SysMLClass implements StackedProtocolO
 	public SysMLSignal(String name, long id)
 	{
 		super(name, id);
+		trace = Optional.empty();
 	}
 
 	/**
@@ -0,0 +1,230 @@
+package sysmlinjava.constraintblocks;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import sysmlinjava.analysis.surrogate.Surrogate;
+import sysmlinjava.analysis.surrogate.TrainingSet;
+import sysmlinjava.valuetypes.IInteger;
+import sysmlinjava.valuetypes.RReal;
+import sysmlinjava.valuetypes.SysMLValueType;
+
+/**
+ * Offline sampler of a {@code SysMLConstraintBlock}, i.e. the evaluation of its
+ * constraints for samples of the values of its input constraint parameters
+ * within specified bounds, which yields the {@code TrainingSet} to which a
+ * {@code Surrogate} of the constraint block is fitted.
+ * <h2>Sampling</h2> For each sample, the values of the input constraint
+ * parameters are assigned directly to the constraint parameters, without
+ * notification of their observers, the constraints are performed by the
+ * constraint block's {@code performConstraints()} operation, bypassing any
+ * memoization or surrogate of the block, and the values of the output
+ * constraint parameters are read. The values of the block's {@code RReal} and
+ * {@code IInteger} constraint parameters are saved before and restored after
+ * each sample, so the sampling leaves them as it found them. As the sampling
+ * bypasses the notification of the parameters' observers and the block's
+ * executor, the constraint block should nevertheless be an instance created for
+ * the sampling, not one of a model being executed, e.g.
+ *
+ * <pre>
+ * {@code
+ * ConstraintBlockSampler sampler = new ConstraintBlockSampler(new ThermalConstraintBlock(), List.of("power", "ambient"), new double[] {0.0, -40.0}, new double[] {500.0, 60.0}, List.of("temperature"));
+ * TrainingSet trainingSet = sampler.sample(400, new Random(1L));
+ * Surrogate surrogate = new RadialBasisSurrogate(trainingSet);
+ * }
+ * </pre>
+ *
+ * @author ModelerOne
+ *
+ * @see Surrogate
+ */
+public final class ConstraintBlockSampler
+{
+	/**
+	 * The sampled constraint block
+	 */
+	public final SysMLConstraintBlock constraintBlock;
+	/**
+	 * IDs of the input constraint parameters
+	 */
+	public final List<String> inputParamIDs;
+	/**
+	 * Lower bound of each input
+	 */
+	public final double[] lowerBounds;
+	/**
+	 * Upper bound of each input
+	 */
+	public final double[] upperBounds;
+	/**
+	 * IDs of the output constraint parameters
+	 */
+	public final List<String> outputParamIDs;
+
+	/**
+	 * Constructor
+	 *
+	 * @param constraintBlock the constraint block to be sampled
+	 * @param inputParamIDs   IDs of the input constraint parameters, which must be
+	 *                        {@code RReal}s or {@code IInteger}s
+	 * @param lowerBounds     lower bound of each input
+	 * @param upperBounds     upper bound of each input
+	 * @param outputParamIDs  IDs of the output constraint parameters, which must
+	 *                        be {@code RReal}s or {@code IInteger}s
+	 * @throws IllegalArgumentException if the bounds do not match the inputs or
+	 *                                  are not ordered
+	 */
+	public ConstraintBlockSampler(SysMLConstraintBlock constraintBlock, List<String> inputParamIDs, double[] lowerBounds, double[] upperBounds, List<String> outputParamIDs)
+	{
+		super();
+		if (lowerBounds.length != inputParamIDs.size() || upperBounds.length != inputParamIDs.size())
+			throw new IllegalArgumentException("sampler bounds do not match the inputs");
+		for (int i = 0; i < lowerBounds.length; i++)
+			if (!(lowerBounds[i] <= upperBounds[i]))
+				throw new IllegalArgumentException("sampler input " + inputParamIDs.get(i) + ": lower bound exceeds upper bound");
+		this.constraintBlock = constraintBlock;
+		this.inputParamIDs = List.copyOf(inputParamIDs);
+		this.lowerBounds = lowerBounds.clone();
+		this.upperBounds = upperBounds.clone();
+		this.outputParamIDs = List.copyOf(outputParamIDs);
+	}
+
+	/**
+	 * Samples the constraint block at the specified number of samples of a Latin
+	 * hypercube of the bounds, i.e. with the range of each input stratified into
+	 * as many equal strata as samples, each sampled once. The trained region of a
+	 * surrogate fitted to the samples is thereby nearly the bounds, and may be
+	 * extended to them by samples at their corners.
+	 *
+	 * @param sampleCount number of samples of the Latin hypercube
+	 * @param random      generator of the random numbers of the samples
+	 * @return training set of the samples
+	 * @throws IllegalStateException if a parameter is not an {@code RReal} or
+	 *                               {@code IInteger}, or an output is not finite
+	 */
+	public TrainingSet sample(int sampleCount, Random random)
+	{
+		TrainingSet result = new TrainingSet(inputParamIDs, outputParamIDs);
+		int inputCount = inputParamIDs.size();
+		double[][] strata = new double[inputCount][sampleCount];
+		for (int i = 0; i < inputCount; i++)
+		{
+			for (int s = 0; s < sampleCount; s++)
+				strata[i][s] = s;
+			for (int s = sampleCount - 1; s > 0; s--)
+			{
+				int t = random.nextInt(s + 1);
+				double stratum = strata[i][s];
+				strata[i][s] = strata[i][t];
+				strata[i][t] = stratum;
+			}
+		}
+		double[] inputs = new double[inputCount];
+		for (int s = 0; s < sampleCount; s++)
+		{
+			for (int i = 0; i < inputCount; i++)
+				inputs[i] = lowerBounds[i] + (strata[i][s] + random.nextDouble()) / sampleCount * (upperBounds[i] - lowerBounds[i]);
+			sample(result, inputs);
+		}
+		return result;
+	}
+
+	/**
+	 * Samples the constraint block at the specified values of the inputs, adding
+	 * the sample to the specified training set. The values of the constraint
+	 * block's {@code RReal} and {@code IInteger} constraint parameters are
+	 * restored after the sample.
+	 *
+	 * @param trainingSet training set to which the sample is added
+	 * @param inputs      values of the inputs
+	 * @throws IllegalStateException if a parameter is not an {@code RReal} or
+	 *                               {@code IInteger}, or an output is not finite
+	 */
+	public void sample(TrainingSet trainingSet, double[] inputs)
+	{
+		double[] outputs = new double[outputParamIDs.size()];
+		synchronized (constraintBlock)
+		{
+			Map<SysMLValueType, Number> savedValues = savedParamValues();
+			try
+			{
+				for (int i = 0; i < inputs.length; i++)
+				{
+					SysMLValueType param = paramOf(inputParamIDs.get(i));
+					if (param instanceof RReal)
+						((RReal)param).value = inputs[i];
+					else
+						((IInteger)param).value = Math.round(inputs[i]);
+				}
+				constraintBlock.performConstraints();
+				for (int o = 0; o < outputs.length; o++)
+				{
+					SysMLValueType param = paramOf(outputParamIDs.get(o));
+					outputs[o] = param instanceof RReal ? ((RReal)param).value : ((IInteger)param).value;
+				}
+			} finally
+			{
+				restoreParamValues(savedValues);
+			}
+		}
+		try
+		{
+			trainingSet.add(inputs, outputs);
+		} catch (IllegalArgumentException e)
+		{
+			throw new IllegalStateException("constraint block sample failed: " + e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Returns the current values of the constraint block's {@code RReal} and
+	 * {@code IInteger} constraint parameters, by the parameters' identities
+	 *
+	 * @return the values by their parameters
+	 */
+	private Map<SysMLValueType, Number> savedParamValues()
+	{
+		Map<SysMLValueType, Number> result = new IdentityHashMap<>();
+		for (SysMLValueType param : constraintBlock.constraintParams.values())
+			if (param instanceof RReal)
+				result.put(param, ((RReal)param).value);
+			else if (param instanceof IInteger)
+				result.put(param, ((IInteger)param).value);
+		return result;
+	}
+
+	/**
+	 * Restores the specified values of the constraint block's constraint
+	 * parameters, without notification of their observers
+	 *
+	 * @param savedValues the values by their parameters, as saved by
+	 *                    {@code savedParamValues()}
+	 */
+	private void restoreParamValues(Map<SysMLValueType, Number> savedValues)
+	{
+		savedValues.forEach((param, value) ->
+		{
+			if (param instanceof RReal)
+				((RReal)param).value = value.doubleValue();
+			else
+				((IInteger)param).value = value.longValue();
+		});
+	}
+
+	/**
+	 * Returns the constraint parameter of the specified ID
+	 *
+	 * @param paramID ID of the constraint parameter
+	 * @return the constraint parameter
+	 * @throws IllegalStateException if the parameter is not an {@code RReal} or
+	 *                               {@code IInteger}
+	 */
+	private SysMLValueType paramOf(String paramID)
+	{
+		SysMLValueType result = constraintBlock.constraintParams.get(paramID);
+		if (!(result instanceof RReal) && !(result instanceof IInteger))
+			throw new IllegalStateException("sampled constraint parameter not an RReal or IInteger: " + paramID);
+		return result;
+	}
+}
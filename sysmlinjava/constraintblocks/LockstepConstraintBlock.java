@@ -0,0 +1,102 @@
+package sysmlinjava.constraintblocks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+import sysmlinjava.execution.LockstepParticipant;
+
+/**
+ * Participant in lockstep execution for a {@code SysMLConstraintBlock}. Created
+ * and registered with the active {@code LockstepScheduler} by the
+ * {@code SysMLConstraintBlockStateMachine} upon entry into its operational
+ * state. While registered, the constraint block's parameter changes are
+ * recorded by {@code inputChanged()} rather than submitted as events to its
+ * state machine, and are then read in the read inputs phase of the next tick,
+ * in the order of the parameters' IDs. The block's constraints are performed in
+ * the compute phase, preceded by its {@code onTimeEvent()} if its period is
+ * due, and the block's value change observers are notified in the commit phase.
+ *
+ * @author ModelerOne
+ *
+ * @see sysmlinjava.execution.LockstepScheduler
+ */
+final class LockstepConstraintBlock implements LockstepParticipant
+{
+	/**
+	 * Constraint block stepped by this participant
+	 */
+	final SysMLConstraintBlock constraintBlock;
+	/**
+	 * IDs of the parameters changed since the previous tick, ordered by ID
+	 */
+	private final TreeSet<String> changedParamIDs;
+	/**
+	 * Key by which the participant is ordered
+	 */
+	private final String key;
+
+	/**
+	 * Constructor
+	 *
+	 * @param constraintBlock constraint block to be stepped by this participant
+	 */
+	LockstepConstraintBlock(SysMLConstraintBlock constraintBlock)
+	{
+		super();
+		this.constraintBlock = constraintBlock;
+		this.changedParamIDs = new TreeSet<>();
+		this.key = constraintBlock.identityString();
+	}
+
+	/**
+	 * Records the change of the specified parameter, to be read in the next tick
+	 *
+	 * @param paramID ID of the changed parameter
+	 */
+	void inputChanged(String paramID)
+	{
+		synchronized (changedParamIDs)
+		{
+			changedParamIDs.add(paramID);
+		}
+	}
+
+	@Override
+	public String lockstepKey()
+	{
+		return key;
+	}
+
+	@Override
+	public Object lockstepElement()
+	{
+		return constraintBlock;
+	}
+
+	@Override
+	public boolean readInputs(long tick)
+	{
+		List<String> paramIDs;
+		synchronized (changedParamIDs)
+		{
+			paramIDs = new ArrayList<>(changedParamIDs);
+			changedParamIDs.clear();
+		}
+		paramIDs.forEach(paramID -> constraintBlock.onParameterChange(paramID));
+		return !paramIDs.isEmpty();
+	}
+
+	@Override
+	public void compute(long tick, boolean periodDue)
+	{
+		if (periodDue)
+			constraintBlock.onTimeEvent();
+		constraintBlock.invokePerformConstraints();
+	}
+
+	@Override
+	public void commit(long tick)
+	{
+		constraintBlock.notifyValueChangeObservers();
+	}
+}
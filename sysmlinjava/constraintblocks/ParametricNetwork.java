@@ -0,0 +1,667 @@
+package sysmlinjava.constraintblocks;
+
+import java.lang.reflect.Field;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Comparator;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import sysmlinjava.blocks.SysMLBlock;
+import sysmlinjava.common.ValueObserver;
+import sysmlinjava.connectors.SysMLBindingConnector;
+import sysmlinjava.ports.SysMLConstraintParameterPort;
+import sysmlinjava.valuetypes.SysMLValueType;
+
+/**
+ * Incremental evaluation engine for a network of {@code SysMLConstraintBlock}s
+ * whose constraint parameters are bound to each other's values.
+ * <h2>Dependency graph</h2> Upon its construction, the network builds the
+ * explicit dependency graph of the constraint blocks from the specified
+ * {@code SysMLBindingConnector}s and from the constraint parameter ports bound
+ * by them. The nodes of the graph are the constraint blocks connected by the
+ * binding connectors and the constraint blocks that observe their values,
+ * recursively. A constraint block depends on another if
+ * <ul>
+ * <li>a binding connector connects the other constraint block to it, or</li>
+ * <li>one of its {@code SysMLConstraintParameterPort}s, or the constraint block
+ * itself, observes one of the other constraint block's values, i.e. a public
+ * {@code SysMLValueType} field or constraint parameter of the other block that
+ * is not observed by the other block's own ports, or</li>
+ * <li>one of its ports, or the block itself, observes the other constraint
+ * block</li>
+ * </ul>
+ * The graph is ordered topologically, i.e. into the
+ * {@code evaluationOrder} in which every constraint block follows all the
+ * constraint blocks on which it depends. The evaluation order is partitioned
+ * into the {@code levels} of the graph, where the level of a constraint block
+ * is the length of the longest path of dependencies to it, so that the
+ * constraint blocks of a level depend only on constraint blocks of preceding
+ * levels and are independent of each other. If the graph has a cycle, the network
+ * cannot be ordered and its construction fails with an
+ * {@code IllegalArgumentException} naming the constraint blocks of the cycle, as
+ * follows:
+ *
+ * <pre>
+ * cycle in parametric network: Drag -&gt; Velocity -&gt; Drag
+ * </pre>
+ *
+ * <h3>Incremental evaluation</h3> While the network is attached, by its
+ * {@code attach()} operation, the parameter changes of its constraint blocks
+ * are not submitted as events to the blocks' state machines. Instead, each
+ * change marks the changed constraint block dirty, and the dirty blocks are
+ * evaluated in an evaluation pass, in which the blocks are visited in the
+ * evaluation order. Each dirty block is evaluated once, i.e. its changed
+ * parameters are read in the order of their change, its constraints are
+ * performed, and its value change observers are notified. The values changed
+ * by its constraints thereby mark the blocks that depend on them dirty, which
+ * follow it in the evaluation order and are therefore evaluated later in the
+ * same pass, once all the blocks on which they depend have been evaluated. A
+ * change of several inputs on which a block depends, directly or indirectly,
+ * therefore evaluates the block once rather than once per input, and blocks
+ * that are not affected by the change are not evaluated.
+ * <p>
+ * The evaluation passes are performed as follows:
+ * <ul>
+ * <li>for changes made within the {@code update()} operation, in the thread of
+ * the update, once all its changes have been made, so that all the changes of
+ * the update are evaluated in one pass</li>
+ * <li>for other changes, e.g. of values changed by the state machines of the
+ * model, by a task of the executor of the network's first constraint block,
+ * submitted upon the first change after the previous pass, so that all the
+ * changes made before the pass begins are evaluated in one pass</li>
+ * <li>by the {@code evaluate()} operation</li>
+ * </ul>
+ * The passes are serialized by the network, so that the constraint blocks are
+ * evaluated by one pass at a time. A change of a block that precedes the
+ * block being evaluated in the evaluation order, i.e. a dependency that was not
+ * bound when the graph was built, is evaluated in a subsequent pass.
+ * <h3>Parallel evaluation</h3> If the network is constructed with a compute
+ * pool, i.e. a {@code ForkJoinPool}, the passes evaluate the network level by
+ * level, and the dirty constraint blocks of each level are evaluated
+ * concurrently by the threads of the pool. As the blocks of a level are
+ * independent, each block's values are changed only by its own evaluation, and
+ * the evaluation of each level completes before the blocks of the next level
+ * read the values, the values are not torn by the concurrent evaluations.
+ * Networks of many constraint blocks of disjoint inputs, e.g. of trade
+ * studies, thereby scale with the number of threads of the pool. Levels of a
+ * single dirty block are evaluated in the thread of the pass. The value change
+ * observers of the blocks, other than the network's own blocks, are notified
+ * in the threads of the pool, and must therefore be thread-safe.
+ *
+ * @author ModelerOne
+ *
+ * @see SysMLBindingConnector
+ * @see sysmlinjava.ports.SysMLConstraintParameterPort
+ */
+public final class ParametricNetwork
+{
+	/**
+	 * Constraint blocks of the network in their evaluation order, i.e. in
+	 * topological order of their dependencies
+	 */
+	public final List<SysMLConstraintBlock> evaluationOrder;
+	/**
+	 * Constraint blocks of the network by level of the dependency graph, in their
+	 * evaluation order
+	 */
+	public final List<List<SysMLConstraintBlock>> levels;
+	/**
+	 * Optional pool of threads by which the constraint blocks of each level are
+	 * evaluated concurrently
+	 */
+	public final Optional<ForkJoinPool> computePool;
+	/**
+	 * Nodes of the constraint blocks in their evaluation order
+	 */
+	private final List<ParametricNode> nodes;
+	/**
+	 * Positions in the evaluation order of the first node of each level, followed
+	 * by the number of nodes
+	 */
+	private final int[] levelStarts;
+	/**
+	 * Positions of the dirty nodes in the evaluation order, which also guards the
+	 * changed parameters of the nodes and the scheduling of the passes
+	 */
+	private final BitSet dirty;
+	/**
+	 * Executor by which the evaluation passes of changes made outside updates are
+	 * performed
+	 */
+	private final ScheduledThreadPoolExecutor executor;
+	/**
+	 * Whether an evaluation pass has been submitted to the executor and has not
+	 * yet begun
+	 */
+	private boolean isPassScheduled;
+	/**
+	 * Whether the network is attached to its constraint blocks
+	 */
+	private volatile boolean isAttached;
+	/**
+	 * Thread that is performing an evaluation pass, if any
+	 */
+	private volatile Thread evaluator;
+	/**
+	 * Whether the thread is evaluating a constraint block of a level that is
+	 * evaluated concurrently by the compute pool, i.e. is a worker of the pass
+	 * performed by the {@code evaluator}
+	 */
+	private final ThreadLocal<Boolean> isPassWorker;
+	/**
+	 * Thread that is performing an update, if any
+	 */
+	private volatile Thread updater;
+	/**
+	 * Number of evaluation passes performed
+	 */
+	private volatile long passCount;
+	/**
+	 * Number of evaluations of constraint blocks performed
+	 */
+	private volatile long evaluationCount;
+
+	/**
+	 * Constructor, builds and orders the dependency graph of the constraint blocks
+	 * connected by the specified binding connectors
+	 *
+	 * @param bindingConnectors the binding connectors of the network
+	 * @throws IllegalArgumentException if the binding connectors connect no
+	 *                                  constraint blocks or if the dependency
+	 *                                  graph has a cycle
+	 */
+	public ParametricNetwork(Collection<? extends SysMLBindingConnector> bindingConnectors)
+	{
+		this(bindingConnectors, Optional.empty());
+	}
+
+	/**
+	 * Constructor, builds and orders the dependency graph of the constraint blocks
+	 * connected by the specified binding connectors, to be evaluated in parallel
+	 * by the specified compute pool
+	 *
+	 * @param bindingConnectors the binding connectors of the network
+	 * @param computePool       pool of threads by which the constraint blocks of
+	 *                          each level are to be evaluated concurrently, e.g.
+	 *                          {@code ForkJoinPool.commonPool()}
+	 * @throws IllegalArgumentException if the binding connectors connect no
+	 *                                  constraint blocks or if the dependency
+	 *                                  graph has a cycle
+	 */
+	public ParametricNetwork(Collection<? extends SysMLBindingConnector> bindingConnectors, ForkJoinPool computePool)
+	{
+		this(bindingConnectors, Optional.of(computePool));
+	}
+
+	/**
+	 * Constructor, builds and orders the dependency graph of the constraint blocks
+	 * connected by the specified binding connectors
+	 *
+	 * @param bindingConnectors the binding connectors of the network
+	 * @param computePool       optional pool of threads by which the constraint
+	 *                          blocks of each level are to be evaluated
+	 *                          concurrently
+	 */
+	private ParametricNetwork(Collection<? extends SysMLBindingConnector> bindingConnectors, Optional<ForkJoinPool> computePool)
+	{
+		super();
+		Map<SysMLConstraintBlock, ParametricNode> graph = new IdentityHashMap<>();
+		List<ParametricNode> discovered = new ArrayList<>();
+		for (SysMLBindingConnector bindingConnector : bindingConnectors)
+			for (SysMLConstraintBlock constraintBlock : bindingConnector.participants1)
+			{
+				ParametricNode node = node(constraintBlock, graph, discovered);
+				for (SysMLBlock participant : bindingConnector.participants0)
+					if (participant instanceof SysMLConstraintBlock)
+						addEdge(node((SysMLConstraintBlock)participant, graph, discovered), node);
+			}
+		if (discovered.isEmpty())
+			throw new IllegalArgumentException("parametric network of no constraint blocks");
+		for (int i = 0; i < discovered.size(); i++)
+			addObserverEdges(discovered.get(i), graph, discovered);
+		this.nodes = Collections.unmodifiableList(ordered(discovered));
+		this.evaluationOrder = Collections.unmodifiableList(nodes.stream().map(node -> node.constraintBlock).collect(Collectors.toList()));
+		this.levelStarts = levelStartsOf(nodes);
+		List<List<SysMLConstraintBlock>> blocksByLevel = new ArrayList<>();
+		for (int level = 0; level < levelStarts.length - 1; level++)
+			blocksByLevel.add(evaluationOrder.subList(levelStarts[level], levelStarts[level + 1]));
+		this.levels = Collections.unmodifiableList(blocksByLevel);
+		this.computePool = computePool;
+		this.dirty = new BitSet(nodes.size());
+		this.executor = nodes.get(0).constraintBlock.concurrentExecutionThreads;
+		this.isPassScheduled = false;
+		this.isAttached = false;
+		this.evaluator = null;
+		this.isPassWorker = ThreadLocal.withInitial(() -> false);
+		this.updater = null;
+		this.passCount = 0L;
+		this.evaluationCount = 0L;
+	}
+
+	/**
+	 * Attaches the network to its constraint blocks, so that their parameter
+	 * changes are evaluated by the network rather than by their state machines
+	 *
+	 * @throws IllegalStateException if a constraint block is attached to another
+	 *                               network
+	 */
+	public synchronized void attach()
+	{
+		for (ParametricNode node : nodes)
+			if (node.constraintBlock.parametricNode != null && node.constraintBlock.parametricNode != node)
+				throw new IllegalStateException("constraint block already attached to another parametric network: " + node.constraintBlock.identityString());
+		nodes.forEach(node -> node.constraintBlock.parametricNode = node);
+		isAttached = true;
+	}
+
+	/**
+	 * Detaches the network from its constraint blocks, whose parameter changes
+	 * are thereafter evaluated by their state machines. Changes that have not yet
+	 * been evaluated are discarded.
+	 */
+	public synchronized void detach()
+	{
+		isAttached = false;
+		nodes.forEach(node -> node.constraintBlock.parametricNode = null);
+		synchronized (dirty)
+		{
+			dirty.clear();
+			nodes.forEach(node -> node.changedParamIDs.clear());
+		}
+	}
+
+	/**
+	 * Performs the specified changes of the inputs of the network and then
+	 * evaluates all the constraint blocks affected by the changes in one pass, in
+	 * the calling thread. Updates may be nested, in which case the pass is
+	 * performed at the end of the outermost update.
+	 *
+	 * @param changes the changes, e.g. the setting of the values of the blocks to
+	 *                which the network's constraint parameters are bound
+	 * @return number of constraint blocks evaluated
+	 */
+	public synchronized int update(Runnable changes)
+	{
+		Thread previousUpdater = updater;
+		updater = Thread.currentThread();
+		try
+		{
+			changes.run();
+		} finally
+		{
+			updater = previousUpdater;
+		}
+		return previousUpdater == null ? evaluate() : 0;
+	}
+
+	/**
+	 * Performs an evaluation pass, i.e. evaluates the dirty constraint blocks once
+	 * each, level by level in the evaluation order, concurrently within each level
+	 * if the network has a compute pool
+	 *
+	 * @return number of constraint blocks evaluated
+	 */
+	public synchronized int evaluate()
+	{
+		Thread previousEvaluator = evaluator;
+		evaluator = Thread.currentThread();
+		int result = 0;
+		try
+		{
+			synchronized (dirty)
+			{
+				isPassScheduled = false;
+			}
+			for (int level = 0; level < levelStarts.length - 1; level++)
+			{
+				List<ParametricNode> ready = new ArrayList<>();
+				List<List<String>> readyParamIDs = new ArrayList<>();
+				synchronized (dirty)
+				{
+					for (int position = dirty.nextSetBit(levelStarts[level]); position >= 0 && position < levelStarts[level + 1]; position = dirty.nextSetBit(position + 1))
+					{
+						dirty.clear(position);
+						ParametricNode node = nodes.get(position);
+						ready.add(node);
+						readyParamIDs.add(new ArrayList<>(node.changedParamIDs));
+						node.changedParamIDs.clear();
+					}
+				}
+				if (ready.size() > 1 && computePool.isPresent())
+				{
+					List<ForkJoinTask<?>> evaluations = new ArrayList<>(ready.size());
+					for (int i = 0; i < ready.size(); i++)
+					{
+						ParametricNode node = ready.get(i);
+						List<String> paramIDs = readyParamIDs.get(i);
+						evaluations.add(ForkJoinTask.adapt(() -> evaluateInPass(node, paramIDs)));
+					}
+					computePool.get().invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(evaluations)));
+				}
+				else
+					for (int i = 0; i < ready.size(); i++)
+						ready.get(i).evaluate(readyParamIDs.get(i));
+				result += ready.size();
+			}
+			passCount++;
+			evaluationCount += result;
+		} finally
+		{
+			evaluator = previousEvaluator;
+		}
+		schedulePassIfDirty();
+		return result;
+	}
+
+	/**
+	 * Evaluates the specified node with the specified changed parameters in a
+	 * thread of the compute pool, marking the thread as a worker of the pass for
+	 * the duration of the evaluation so that the changes made by the evaluation
+	 * do not schedule another pass
+	 *
+	 * @param node     the node to be evaluated
+	 * @param paramIDs IDs of the changed parameters of the node
+	 */
+	private void evaluateInPass(ParametricNode node, List<String> paramIDs)
+	{
+		boolean wasPassWorker = isPassWorker.get();
+		isPassWorker.set(true);
+		try
+		{
+			node.evaluate(paramIDs);
+		} finally
+		{
+			if (wasPassWorker)
+				isPassWorker.set(true);
+			else
+				isPassWorker.remove();
+		}
+	}
+
+	/**
+	 * Returns the number of evaluation passes performed
+	 *
+	 * @return number of passes
+	 */
+	public long passCount()
+	{
+		return passCount;
+	}
+
+	/**
+	 * Returns the number of evaluations of constraint blocks performed in all
+	 * passes
+	 *
+	 * @return number of evaluations
+	 */
+	public long evaluationCount()
+	{
+		return evaluationCount;
+	}
+
+	/**
+	 * Records the change of the specified parameter of the constraint block of the
+	 * specified node, marks the node dirty, and, unless the change is made within
+	 * a pass or an update, schedules a pass
+	 *
+	 * @param node    the node
+	 * @param paramID ID of the changed parameter
+	 */
+	void inputChanged(ParametricNode node, String paramID)
+	{
+		Thread current = Thread.currentThread();
+		boolean isInPass = evaluator == current || isPassWorker.get();
+		boolean isSchedulingPass = false;
+		synchronized (dirty)
+		{
+			node.changedParamIDs.add(paramID);
+			dirty.set(node.position);
+			if (isAttached && !isInPass && updater != current && !isPassScheduled)
+			{
+				isPassScheduled = true;
+				isSchedulingPass = true;
+			}
+		}
+		if (isSchedulingPass)
+			executor.execute(this::evaluate);
+	}
+
+	/**
+	 * Schedules a pass for the changes that were not evaluated by the pass that
+	 * ended, i.e. changes of nodes preceding the node that made them
+	 */
+	private void schedulePassIfDirty()
+	{
+		boolean isSchedulingPass = false;
+		synchronized (dirty)
+		{
+			if (isAttached && updater == null && !dirty.isEmpty() && !isPassScheduled)
+			{
+				isPassScheduled = true;
+				isSchedulingPass = true;
+			}
+		}
+		if (isSchedulingPass)
+		{
+			logger.warning("constraint blocks changed by constraint blocks following them in evaluation order, evaluated in next pass");
+			executor.execute(this::evaluate);
+		}
+	}
+
+	/**
+	 * Returns the node of the specified constraint block, created and added to the
+	 * discovered nodes if not yet in the graph
+	 *
+	 * @param constraintBlock the constraint block
+	 * @param graph           nodes of the graph by constraint block
+	 * @param discovered      nodes of the graph in order of their discovery
+	 * @return the node
+	 */
+	private ParametricNode node(SysMLConstraintBlock constraintBlock, Map<SysMLConstraintBlock, ParametricNode> graph, List<ParametricNode> discovered)
+	{
+		ParametricNode result = graph.get(constraintBlock);
+		if (result == null)
+		{
+			result = new ParametricNode(constraintBlock, this);
+			graph.put(constraintBlock, result);
+			discovered.add(result);
+		}
+		return result;
+	}
+
+	/**
+	 * Adds the edge from the specified node to the specified node on which it
+	 * depends, unless already added or a self-dependency
+	 *
+	 * @param from the node depended on
+	 * @param to   the dependent node
+	 */
+	private static void addEdge(ParametricNode from, ParametricNode to)
+	{
+		if (from != to && !from.successors.contains(to))
+		{
+			from.successors.add(to);
+			to.predecessorCount++;
+		}
+	}
+
+	/**
+	 * Adds the edges from the specified node to the nodes of the constraint blocks
+	 * that observe its values or itself, discovering their nodes as needed
+	 *
+	 * @param node       the node
+	 * @param graph      nodes of the graph by constraint block
+	 * @param discovered nodes of the graph in order of their discovery
+	 */
+	private void addObserverEdges(ParametricNode node, Map<SysMLConstraintBlock, ParametricNode> graph, List<ParametricNode> discovered)
+	{
+		for (SysMLValueType value : outputsOf(node.constraintBlock))
+			for (ValueObserver observer : value.observers)
+				addObserverEdge(node, observer, graph, discovered);
+		for (ValueObserver observer : node.constraintBlock.valueObservers)
+			addObserverEdge(node, observer, graph, discovered);
+	}
+
+	/**
+	 * Adds the edge from the specified node to the node of the constraint block of
+	 * the specified observer, if the observer is a constraint block or a port of
+	 * one
+	 *
+	 * @param node       the observed node
+	 * @param observer   the observer
+	 * @param graph      nodes of the graph by constraint block
+	 * @param discovered nodes of the graph in order of their discovery
+	 */
+	private void addObserverEdge(ParametricNode node, ValueObserver observer, Map<SysMLConstraintBlock, ParametricNode> graph, List<ParametricNode> discovered)
+	{
+		if (observer instanceof SysMLConstraintParameterPort && ((SysMLConstraintParameterPort)observer).constraintBlock != null)
+			addEdge(node, node(((SysMLConstraintParameterPort)observer).constraintBlock, graph, discovered));
+		else if (observer instanceof SysMLConstraintBlock)
+			addEdge(node, node((SysMLConstraintBlock)observer, graph, discovered));
+	}
+
+	/**
+	 * Returns the values of the specified constraint block that may be bound to
+	 * other constraint blocks, i.e. its constraint parameters and the values of
+	 * its public {@code SysMLValueType} fields declared by its extensions, other
+	 * than those observed by its own ports, which are its inputs
+	 *
+	 * @param constraintBlock the constraint block
+	 * @return the values, each once
+	 */
+	private static List<SysMLValueType> outputsOf(SysMLConstraintBlock constraintBlock)
+	{
+		Set<SysMLValueType> values = Collections.newSetFromMap(new IdentityHashMap<>());
+		List<SysMLValueType> result = new ArrayList<>();
+		List<SysMLValueType> candidates = new ArrayList<>(constraintBlock.constraintParams.values());
+		for (Field field : constraintBlock.getClass().getFields())
+			if (SysMLValueType.class.isAssignableFrom(field.getType()) && SysMLConstraintBlock.class.isAssignableFrom(field.getDeclaringClass()) && field.getDeclaringClass() != SysMLConstraintBlock.class)
+				try
+				{
+					candidates.add((SysMLValueType)field.get(constraintBlock));
+				} catch (IllegalAccessException e)
+				{
+					logger.fine("value not accessible, not bound: " + field);
+				}
+		for (SysMLValueType value : candidates)
+			if (value != null && values.add(value) && !isInputOf(value, constraintBlock))
+				result.add(value);
+		return result;
+	}
+
+	/**
+	 * Returns whether the specified value is observed by a port of the specified
+	 * constraint block, i.e. is an input of the block
+	 *
+	 * @param value           the value
+	 * @param constraintBlock the constraint block
+	 * @return true if the value is an input of the constraint block
+	 */
+	private static boolean isInputOf(SysMLValueType value, SysMLConstraintBlock constraintBlock)
+	{
+		boolean result = false;
+		for (ValueObserver observer : value.observers)
+			if (observer instanceof SysMLConstraintParameterPort && ((SysMLConstraintParameterPort)observer).constraintBlock == constraintBlock)
+				result = true;
+		return result;
+	}
+
+	/**
+	 * Orders the specified nodes topologically, by Kahn's algorithm, in order of
+	 * their discovery among nodes whose dependencies are ordered, assigns their
+	 * levels, and then reorders them by level, which preserves the topological
+	 * order, and assigns their positions
+	 *
+	 * @param discovered the nodes in order of their discovery
+	 * @return the nodes in topological order
+	 * @throws IllegalArgumentException if the nodes have a cycle
+	 */
+	private static List<ParametricNode> ordered(List<ParametricNode> discovered)
+	{
+		Map<ParametricNode, Integer> remaining = new IdentityHashMap<>();
+		ArrayDeque<ParametricNode> ready = new ArrayDeque<>();
+		for (ParametricNode node : discovered)
+		{
+			remaining.put(node, node.predecessorCount);
+			if (node.predecessorCount == 0)
+				ready.add(node);
+		}
+		List<ParametricNode> result = new ArrayList<>(discovered.size());
+		while (!ready.isEmpty())
+		{
+			ParametricNode node = ready.poll();
+			node.position = result.size();
+			result.add(node);
+			for (ParametricNode successor : node.successors)
+			{
+				successor.level = Math.max(successor.level, node.level + 1);
+				if (remaining.merge(successor, -1, Integer::sum) == 0)
+					ready.add(successor);
+			}
+		}
+		if (result.size() < discovered.size())
+			throw new IllegalArgumentException("cycle in parametric network: " + cycleOf(discovered));
+		result.sort(Comparator.comparingInt((ParametricNode node) -> node.level).thenComparingInt(node -> node.position));
+		for (int position = 0; position < result.size(); position++)
+			result.get(position).position = position;
+		return result;
+	}
+
+	/**
+	 * Returns the positions of the first node of each level of the specified nodes
+	 * ordered by level, followed by the number of nodes
+	 *
+	 * @param ordered the nodes ordered by level
+	 * @return the positions of the levels
+	 */
+	private static int[] levelStartsOf(List<ParametricNode> ordered)
+	{
+		int[] result = new int[ordered.get(ordered.size() - 1).level + 2];
+		for (int position = ordered.size() - 1; position >= 0; position--)
+			result[ordered.get(position).level] = position;
+		result[result.length - 1] = ordered.size();
+		return result;
+	}
+
+	/**
+	 * Returns a cycle of the nodes that could not be ordered, i.e. the nodes
+	 * without positions, as the names of its constraint blocks. As each such node
+	 * depends on another such node, the cycle is found by following the
+	 * dependencies back from any such node until a node repeats.
+	 *
+	 * @param discovered the nodes in order of their discovery
+	 * @return the cycle, e.g. "A -&gt; B -&gt; A"
+	 */
+	private static String cycleOf(List<ParametricNode> discovered)
+	{
+		List<ParametricNode> unordered = discovered.stream().filter(node -> node.position < 0).collect(Collectors.toList());
+		List<ParametricNode> path = new ArrayList<>();
+		ParametricNode node = unordered.get(0);
+		while (!path.contains(node))
+		{
+			path.add(node);
+			ParametricNode dependent = node;
+			node = unordered.stream().filter(candidate -> candidate.successors.contains(dependent)).findFirst().get();
+		}
+		List<ParametricNode> cycle = new ArrayList<>(path.subList(path.indexOf(node), path.size()));
+		cycle.add(node);
+		Collections.reverse(cycle);
+		return cycle.stream().map(cycleNode -> cycleNode.constraintBlock.identityString()).collect(Collectors.joining(" -> "));
+	}
+
+	/**
+	 * Logger for the networks
+	 */
+	private static final Logger logger = Logger.getLogger(ParametricNetwork.class.getSimpleName());
+}
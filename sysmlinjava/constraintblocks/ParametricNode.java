@@ -0,0 +1,96 @@
+package sysmlinjava.constraintblocks;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * Node of the dependency graph of a {@code ParametricNetwork} for a
+ * {@code SysMLConstraintBlock}. While the network is attached, the constraint
+ * block's parameter changes are recorded by {@code inputChanged()}, which marks
+ * the node dirty in the network, rather than submitted as events to its state
+ * machine. The recorded changes are read, in the order in which they occurred,
+ * when the node is evaluated in the next evaluation pass of the network.
+ *
+ * @author ModelerOne
+ *
+ * @see ParametricNetwork
+ */
+final class ParametricNode
+{
+	/**
+	 * Constraint block evaluated by this node
+	 */
+	final SysMLConstraintBlock constraintBlock;
+	/**
+	 * Network of which this node is a node
+	 */
+	final ParametricNetwork network;
+	/**
+	 * Nodes whose constraint parameters are bound to values of this node's
+	 * constraint block, in order of their discovery
+	 */
+	final List<ParametricNode> successors;
+	/**
+	 * Number of nodes on which this node depends, i.e. of which it is a successor
+	 */
+	int predecessorCount;
+	/**
+	 * Level of this node in the dependency graph, i.e. the length of the longest
+	 * path of dependencies to it from a node that depends on no other node
+	 */
+	int level;
+	/**
+	 * Position of this node in the evaluation order of the network, i.e. its
+	 * topological order, or -1 until ordered
+	 */
+	int position;
+	/**
+	 * IDs of the parameters changed since the node was last evaluated, in order of
+	 * their change. Guarded by the marks of the network.
+	 */
+	final LinkedHashSet<String> changedParamIDs;
+
+	/**
+	 * Constructor
+	 *
+	 * @param constraintBlock constraint block to be evaluated by this node
+	 * @param network         network of which this node is a node
+	 */
+	ParametricNode(SysMLConstraintBlock constraintBlock, ParametricNetwork network)
+	{
+		super();
+		this.constraintBlock = constraintBlock;
+		this.network = network;
+		this.successors = new ArrayList<>();
+		this.predecessorCount = 0;
+		this.level = 0;
+		this.position = -1;
+		this.changedParamIDs = new LinkedHashSet<>();
+	}
+
+	/**
+	 * Records the change of the specified parameter and marks this node dirty, to
+	 * be evaluated in the next evaluation pass of the network
+	 *
+	 * @param paramID ID of the changed parameter
+	 */
+	void inputChanged(String paramID)
+	{
+		network.inputChanged(this, paramID);
+	}
+
+	/**
+	 * Evaluates the constraint block for the specified changed parameters, i.e.
+	 * reads each changed parameter, performs the constraints once, and notifies
+	 * the block's value change observers
+	 *
+	 * @param paramIDs IDs of the changed parameters, in order of their change
+	 */
+	void evaluate(List<String> paramIDs)
+	{
+		paramIDs.forEach(paramID -> constraintBlock.onParameterChange(paramID));
+		constraintBlock.invokePerformConstraints();
+		constraintBlock.notifyValueChangeObservers();
+	}
+}
@@ -0,0 +1,182 @@
+package sysmlinjava.constraintblocks;
+
+import java.util.Optional;
+import sysmlinjava.constraintblocks.solver.BlockTriangularDecomposition;
+import sysmlinjava.constraintblocks.solver.EquationSystem;
+import sysmlinjava.constraintblocks.solver.NewtonSolver;
+import sysmlinjava.constraintblocks.solver.ResidualEquation;
+import sysmlinjava.constraintblocks.solver.SolverResult;
+import sysmlinjava.valuetypes.RReal;
+import sysmlinjava.valuetypes.SysMLValueType;
+
+/**
+ * SysMLinJava representation of a SysML constraint block whose constraints are
+ * acausal equations of its constraint parameters.
+ * <h2>Acausal constraints</h2> Whereas the {@code constraint} of the
+ * {@code SysMLConstraintBlock} is a causal calculation of some parameters from
+ * the others, the {@code SysMLAcausalConstraintBlock} declares its constraints
+ * as residual equations of its {@code RReal}-valued constraint parameters, and
+ * declares which of the parameters are the unknowns for which the equations
+ * are to be solved. The parameters that are not unknowns are the inputs of the
+ * equations, typically bound to values of other blocks by the constraint
+ * parameter ports. The equations and unknowns are declared in the
+ * {@code createResidualEquations()} operation, as follows:
+ *
+ * <pre>
+ * {@code
+ * protected void createResidualEquations()
+ * {
+ * 	residual("ohmsLaw", () -> voltage.value - current.value * resistance.value, "voltage", "current", "resistance");
+ * 	residual("power", () -> power.value - voltage.value * current.value, "power", "voltage", "current");
+ * 	unknown("current", "power");
+ * }
+ * }
+ * </pre>
+ *
+ * <h3>Solution</h3> The performance of the constraints solves the equations for
+ * the unknowns by the {@code NewtonSolver}, by the block-triangular
+ * decomposition of the equations determined upon the first performance, and
+ * then notifies the value change observers of the unknowns. The result of the
+ * latest solution is retained as the {@code solverResult}. Equations of several
+ * acausal constraint blocks that form a loop, e.g. through their binding
+ * connectors, can be solved simultaneously by combining their
+ * {@code equations} into one {@code EquationSystem}.
+ * <p>
+ * The changed bound parameters are copied into the existing parameters of the
+ * {@code constraintParams} map rather than replacing them, so that the
+ * equations continue to read the parameters that they reference.
+ *
+ * @author ModelerOne
+ *
+ * @see sysmlinjava.constraintblocks.solver.NewtonSolver
+ * @see sysmlinjava.constraintblocks.solver.EquationSystem
+ */
+public abstract class SysMLAcausalConstraintBlock extends SysMLConstraintBlock
+{
+	/**
+	 * System of the residual equations and unknowns of the constraint block
+	 */
+	public EquationSystem equations;
+	/**
+	 * Solver of the equations
+	 */
+	public NewtonSolver solver;
+	/**
+	 * Result of the latest solution of the equations, if any
+	 */
+	public Optional<SolverResult> solverResult;
+	/**
+	 * Block-triangular decomposition of the equations, determined upon their first
+	 * solution
+	 */
+	private Optional<BlockTriangularDecomposition> decomposition;
+
+	/**
+	 * Constructor
+	 *
+	 * @param parent Optional parent constraint block in the hierarchy (if any) of
+	 *               constraint blocks.
+	 * @param name   Unique name of the constraint block.
+	 */
+	public SysMLAcausalConstraintBlock(Optional<? extends SysMLConstraintBlock> parent, String name)
+	{
+		super(parent, name);
+		equations = new EquationSystem();
+		solver = new NewtonSolver();
+		solverResult = Optional.empty();
+		decomposition = Optional.empty();
+		createResidualEquations();
+	}
+
+	/**
+	 * Abstract operation that should declare the residual equations and the
+	 * unknowns of the constraint block by means of the {@code residual()} and
+	 * {@code unknown()} operations
+	 */
+	protected abstract void createResidualEquations();
+
+	/**
+	 * Declares the specified residual equation of the constraint parameters of the
+	 * specified IDs
+	 *
+	 * @param name     name of the equation
+	 * @param equation the equation
+	 * @param paramIDs IDs of the constraint parameters on which the equation
+	 *                 depends
+	 */
+	protected void residual(String name, ResidualEquation equation, String... paramIDs)
+	{
+		RReal[] variables = new RReal[paramIDs.length];
+		for (int i = 0; i < paramIDs.length; i++)
+			variables[i] = realParam(paramIDs[i]);
+		equations.addResidual(name, equation, variables);
+	}
+
+	/**
+	 * Declares the constraint parameters of the specified IDs to be unknowns of the
+	 * equations
+	 *
+	 * @param paramIDs IDs of the constraint parameters
+	 */
+	protected void unknown(String... paramIDs)
+	{
+		for (String paramID : paramIDs)
+			equations.addUnknown(realParam(paramID));
+	}
+
+	/**
+	 * Solves the equations for the unknowns and notifies the value change
+	 * observers of the unknowns
+	 */
+	@Override
+	protected void performConstraints()
+	{
+		if (decomposition.isEmpty())
+			decomposition = Optional.of(new BlockTriangularDecomposition(equations));
+		SolverResult result = solver.solve(equations, decomposition.get());
+		solverResult = Optional.of(result);
+		if (!result.isConverged)
+			logger.warning(identityString() + ": equations not solved: " + result.failure.orElse(""));
+		equations.unknowns.forEach(unknown -> unknown.notifyValueChangeObservers());
+	}
+
+	/**
+	 * Copies the value of the changed bound parameter into the constraint
+	 * parameter of the same ID, so that the parameter instance referenced by the
+	 * equations is retained
+	 */
+	@Override
+	protected void updateBoundParam(String paramID, SysMLValueType currentParam)
+	{
+		SysMLValueType param = constraintParams.get(paramID);
+		if (param instanceof RReal && currentParam instanceof RReal)
+			((RReal)param).value = ((RReal)currentParam).value;
+		else
+			super.updateBoundParam(paramID, currentParam);
+	}
+
+	/**
+	 * Acausal constraint blocks have no causal constraint, the equations being
+	 * declared by {@code createResidualEquations()}
+	 */
+	@Override
+	protected void createConstraints()
+	{
+	}
+
+	/**
+	 * Returns the {@code RReal} constraint parameter of the specified ID
+	 *
+	 * @param paramID ID of the constraint parameter
+	 * @return the constraint parameter
+	 * @throws IllegalArgumentException if there is no {@code RReal} constraint
+	 *                                  parameter of the ID
+	 */
+	private RReal realParam(String paramID)
+	{
+		SysMLValueType param = constraintParams.get(paramID);
+		if (!(param instanceof RReal))
+			throw new IllegalArgumentException("no RReal constraint parameter of ID: " + paramID);
+		return (RReal)param;
+	}
+}
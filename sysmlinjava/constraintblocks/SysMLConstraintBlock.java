@@ -5,13 +5,23 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import sysmlinjava.analysis.cache.ConstraintMemoization;
+import sysmlinjava.analysis.cache.EvaluationKey;
+import sysmlinjava.analysis.cache.MemoCache;
+import sysmlinjava.analysis.flightrecorder.PerformConstraintsEvent;
+import sysmlinjava.analysis.metrics.ConstraintBlockMetrics;
+import sysmlinjava.analysis.metrics.SysMLMetrics;
+import sysmlinjava.analysis.surrogate.Surrogate;
+import sysmlinjava.analysis.surrogate.SurrogateConstraint;
 import sysmlinjava.annotations.Constraint;
 import sysmlinjava.blocks.SysMLBlock;
 import sysmlinjava.common.ObservableValue;
 import sysmlinjava.common.SysMLConstraint;
 import sysmlinjava.common.ValueObserver;
+import sysmlinjava.execution.TickScheduler;
 import sysmlinjava.ports.SysMLConstraintParameterPort;
 import sysmlinjava.ports.SysMLConstraintParameterPortFunction;
+import sysmlinjava.valuetypes.DurationMilliseconds;
 import sysmlinjava.valuetypes.SysMLValueType;
 
 /**
@@ -54,6 +64,31 @@ import sysmlinjava.valuetypes.SysMLValueType;
  * synchronous (single threaded) model is used, however, then the
  * {@code createStateMachine} operation can be overridden to set the
  * {@code stateMachine = Optional.empty()} if desired.
+ * <h3>Direct evaluation</h3> For purely computational constraints, the
+ * {@code createStateMachine} operation can instead be overridden to invoke
+ * {@code createDirectEvaluation()}, in which case the constraint block has no
+ * state machine and each parameter change is evaluated inline, in the thread
+ * of the change, by the same {@code onParameterChange()},
+ * {@code performConstraints()}, and observer notification as by the state
+ * machine, without the queue hop and context switch of the state machine's
+ * event. Periodic constraints evaluated directly are performed by the ticks of
+ * the {@code TickScheduler} of the constraint block's executor rather than by
+ * state machine timers.
+ * <h3>Memoization</h3> The constraints of a pure constraint block, i.e. one
+ * whose outputs depend only on the values of its input constraint parameters,
+ * may be memoized by invoking {@code createMemoization()}, e.g. at the end of
+ * the constructor of the constraint block, once its constraint parameters are
+ * created, with a {@code MemoCache} that may be shared by many constraint
+ * blocks and model runs. The constraints are then performed only for input
+ * values not already in the cache, and otherwise the outputs are set to the
+ * cached values.
+ * <h3>Surrogates</h3> The constraints of an expensive constraint block, e.g.
+ * of costly physics, may likewise be substituted by a {@code Surrogate} fitted
+ * offline to samples of the constraint block, by invoking
+ * {@code createSurrogate()}. The surrogate's predictions are then used
+ * whenever the input values lie inside its trained region and its estimated
+ * errors are within the specified tolerances, and otherwise the constraints
+ * are performed.
  * 
  * @author ModelerOne
  *
@@ -151,6 +186,52 @@ public abstract class SysMLConstraintBlock extends SysMLBlock implements Observa
 	 * block itself if it needs to react to changes to this constraint block.
 	 */
 	public Optional<? extends SysMLConstraintBlock> parent;
+	/**
+	 * Metrics of this type of constraint block, obtained from the
+	 * {@code SysMLMetrics} registry upon first performance of the constraints
+	 */
+	private volatile ConstraintBlockMetrics constraintBlockMetrics;
+	/**
+	 * Optional memoization of the constraints, as created by the
+	 * {@code createMemoization()} operation
+	 */
+	private Optional<ConstraintMemoization> memoization;
+	/**
+	 * Optional surrogate of the constraints, as created by the
+	 * {@code createSurrogate()} operation
+	 */
+	private Optional<SurrogateConstraint> surrogate;
+	/**
+	 * Participant in lockstep execution for this constraint block while it is
+	 * registered with the active {@code LockstepScheduler}, or null if it is not
+	 */
+	volatile LockstepConstraintBlock lockstepParticipant;
+	/**
+	 * Node of this constraint block in the {@code ParametricNetwork} attached to
+	 * it, or null if none is attached
+	 */
+	volatile ParametricNode parametricNode;
+	/**
+	 * Whether the constraint block is evaluated directly, i.e. without a state
+	 * machine, as set by the {@code createDirectEvaluation()} operation
+	 */
+	public boolean isEvaluatedDirectly;
+	/**
+	 * Optional time until the first periodic performance of the constraints of a
+	 * constraint block evaluated directly
+	 */
+	public Optional<DurationMilliseconds> directInitialDelay;
+	/**
+	 * Optional time between periodic performances of the constraints of a
+	 * constraint block evaluated directly, by the {@code TickScheduler}
+	 */
+	public Optional<DurationMilliseconds> directPeriod;
+	/**
+	 * Registration of the periodic performance of the constraints with the
+	 * {@code TickScheduler} of the constraint block's executor while the constraint block is started, if periodic and
+	 * evaluated directly
+	 */
+	private Optional<TickScheduler.Registration> tickRegistration;
 
 	/**
 	 * Constructor
@@ -175,17 +256,70 @@ public abstract class SysMLConstraintBlock extends SysMLBlock implements Observa
 		valueObservers.add(observer);
 	}
 
+	/**
+	 * Starts the constraint block's state machine or, if the constraint block is
+	 * evaluated directly and periodic, registers the periodic performance of its
+	 * constraints with the {@code TickScheduler} of the constraint block's
+	 * executor, to be first performed after the initial delay from the start
+	 */
+	@Override
+	public void start()
+	{
+		if (isEvaluatedDirectly)
+		{
+			if (directPeriod.isPresent() && tickRegistration.isEmpty())
+				tickRegistration = Optional.of(TickScheduler.schedule(concurrentExecutionThreads, directInitialDelay.orElse(DurationMilliseconds.ZERO), directPeriod.get(), this::onTick));
+		}
+		else
+			super.start();
+	}
+
+	/**
+	 * Stops the constraint block's state machine or, if the constraint block is
+	 * evaluated directly and periodic, unregisters the periodic performance of its
+	 * constraints from the {@code TickScheduler} of the constraint block's
+	 * executor
+	 */
+	@Override
+	public void stop()
+	{
+		if (isEvaluatedDirectly)
+		{
+			if (tickRegistration.isPresent())
+			{
+				TickScheduler.cancel(tickRegistration.get());
+				tickRegistration = Optional.empty();
+			}
+		}
+		else
+			super.stop();
+	}
+
 	/**
 	 * Reacts to notification by a bound parameter or constraint block (which is an
 	 * {@code ObservableValue}) that the observed parameter value or constraint
 	 * block has changed. This emulates the capability of SysML's "binding
 	 * connector" for a constraint parameter or constraint block.
 	 * 
+	 * <p>
+	 * If the constraint block is registered for lockstep execution, the change is
+	 * recorded to be read in the next tick of the {@code LockstepScheduler}
+	 * rather than submitted as an event to its state machine. Likewise, if a
+	 * {@code ParametricNetwork} is attached to the constraint block, the change
+	 * marks the block dirty, to be evaluated in the network's next evaluation
+	 * pass.
+	 * 
 	 * @param paramID unique ID of the constraint parameter whose value changed.
 	 */
 	public synchronized void valueChanged(String paramID)
 	{
-		if (stateMachine.isPresent())
+		LockstepConstraintBlock lockstep = lockstepParticipant;
+		ParametricNode node = parametricNode;
+		if (lockstep != null)
+			lockstep.inputChanged(paramID);
+		else if (node != null)
+			node.inputChanged(paramID);
+		else if (stateMachine.isPresent())
 		{
 			SysMLParameterChangeEvent changeEvent = new SysMLParameterChangeEvent();
 			changeEvent.changeExpression = paramID;
@@ -194,7 +328,7 @@ public abstract class SysMLConstraintBlock extends SysMLBlock implements Observa
 		else
 		{
 			onParameterChange(paramID);
-			performConstraints();
+			invokePerformConstraints();
 			notifyValueChangeObservers();
 		}
 	}
@@ -270,6 +404,18 @@ public abstract class SysMLConstraintBlock extends SysMLBlock implements Observa
 		constraintParams.put(currentParamID.get(), currentParam);
 	}
 
+	/**
+	 * Performs the periodic constraints of a constraint block evaluated directly
+	 * upon the tick of the {@code TickScheduler}, as the state machine does
+	 * upon its time event
+	 */
+	private synchronized void onTick()
+	{
+		onTimeEvent();
+		invokePerformConstraints();
+		notifyValueChangeObservers();
+	}
+
 	/**
 	 * Overridable operation to handle occurrence of a time event. This operation
 	 * will be invoked only if a timer was specified for the state machine created
@@ -298,6 +444,107 @@ public abstract class SysMLConstraintBlock extends SysMLBlock implements Observa
 	 */
 	protected abstract void performConstraints();
 
+	/**
+	 * Invokes the {@code performConstraints()} operation and records its duration
+	 * in the metrics of this type of constraint block and, if enabled, in a JFR
+	 * {@code PerformConstraintsEvent}. This operation is used
+	 * wherever the constraint block or its state machine performs the
+	 * constraints, so the count and duration of all constraint evaluations is
+	 * recorded. If the constraints have a surrogate that is substituted for the
+	 * current input values, the outputs are set to its predictions. Otherwise, if
+	 * the constraints are memoized, they are performed only if the current input
+	 * values are not in the cache, and otherwise the outputs are set to their
+	 * cached values.
+	 * 
+	 * @see SysMLMetrics#forConstraintBlock(SysMLConstraintBlock)
+	 * @see #createMemoization(MemoCache, List, List)
+	 * @see #createSurrogate(Surrogate, double...)
+	 */
+	protected final void invokePerformConstraints()
+	{
+		ConstraintBlockMetrics metrics = constraintBlockMetrics;
+		if (metrics == null)
+		{
+			metrics = SysMLMetrics.forConstraintBlock(this);
+			constraintBlockMetrics = metrics;
+		}
+		PerformConstraintsEvent jfrEvent = new PerformConstraintsEvent();
+		jfrEvent.begin();
+		long startNanos = System.nanoTime();
+		boolean isSubstituted = surrogate.isPresent() && surrogate.get().substitute(this);
+		if (!isSubstituted && memoization.isPresent())
+		{
+			EvaluationKey key = memoization.get().keyOf(this);
+			if (!memoization.get().restore(key))
+			{
+				performConstraints();
+				memoization.get().store(key);
+			}
+		}
+		else if (!isSubstituted)
+			performConstraints();
+		metrics.performConstraintsDuration.recordSince(startNanos);
+		jfrEvent.commitFor(this, contextBlock);
+	}
+
+	/**
+	 * Memoizes the constraints of this constraint block, which must be pure, i.e.
+	 * its outputs must depend only on the values of the specified input
+	 * constraint parameters
+	 * 
+	 * @param cache         cache of the evaluations, which may be shared with
+	 *                      other constraint blocks
+	 * @param inputParamIDs IDs of the input constraint parameters, which must be
+	 *                      {@code RReal}s or {@code IInteger}s
+	 * @param outputs       {@code RReal} or {@code IInteger} outputs set by the
+	 *                      constraints
+	 */
+	protected final void createMemoization(MemoCache cache, List<String> inputParamIDs, List<? extends SysMLValueType> outputs)
+	{
+		memoization = Optional.of(new ConstraintMemoization(this, cache, inputParamIDs, outputs));
+	}
+
+	/**
+	 * Memoizes the constraints of this constraint block, as by
+	 * {@code createMemoization(cache, inputParamIDs, outputs)}, for the specified
+	 * version of the constraints, which is to be changed with each change of the
+	 * code on which the constraints depend other than that of the constraint
+	 * block's class, so that the evaluations cached for previous versions are not
+	 * used
+	 * 
+	 * @param cache         cache of the evaluations, which may be shared with
+	 *                      other constraint blocks
+	 * @param version       version of the constraints
+	 * @param inputParamIDs IDs of the input constraint parameters, which must be
+	 *                      {@code RReal}s or {@code IInteger}s
+	 * @param outputs       {@code RReal} or {@code IInteger} outputs set by the
+	 *                      constraints
+	 */
+	protected final void createMemoization(MemoCache cache, String version, List<String> inputParamIDs, List<? extends SysMLValueType> outputs)
+	{
+		memoization = Optional.of(new ConstraintMemoization(this, cache, version, inputParamIDs, outputs));
+	}
+
+	/**
+	 * Substitutes the specified surrogate for the constraints of this constraint
+	 * block whenever the values of its input constraint parameters lie inside the
+	 * surrogate's trained region and its estimated errors are within the
+	 * specified tolerances
+	 * 
+	 * @param surrogate  surrogate fitted to samples of this type of constraint
+	 *                   block
+	 * @param tolerances tolerance of the estimated error of each output of the
+	 *                   surrogate, or a single tolerance of all the outputs
+	 * @return the surrogate constraint, whose counts of substitutions and
+	 *         fallbacks indicate the use of the surrogate
+	 */
+	protected final SurrogateConstraint createSurrogate(Surrogate surrogate, double... tolerances)
+	{
+		SurrogateConstraint result = new SurrogateConstraint(surrogate, tolerances);
+		this.surrogate = Optional.of(result);
+		return result;
+	}
+
 	@Override
 	protected void preCreate()
 	{
@@ -310,6 +557,12 @@ public abstract class SysMLConstraintBlock extends SysMLBlock implements Observa
 		currentParamID = Optional.empty();
 		previousParamID = Optional.empty();
 		valueObservers = new ArrayList<>();
+		isEvaluatedDirectly = false;
+		directInitialDelay = Optional.empty();
+		directPeriod = Optional.empty();
+		tickRegistration = Optional.empty();
+		memoization = Optional.empty();
+		surrogate = Optional.empty();
 	}
 
 	/**
@@ -331,7 +584,8 @@ public abstract class SysMLConstraintBlock extends SysMLBlock implements Observa
 	 * {@code SysMLStateMachine} is needed, it can be installed by assigning the
 	 * {@code stateMachine} variable with the instance of the custom state machine
 	 * in the overriding operation. If no state machine is needed, then the
-	 * overriding operation need only be empty.
+	 * overriding operation need only be empty, or, for direct evaluation of the
+	 * parameter changes, invoke the {@code createDirectEvaluation()} operation.
 	 */
 	@Override
 	protected void createStateMachine()
@@ -339,6 +593,47 @@ public abstract class SysMLConstraintBlock extends SysMLBlock implements Observa
 		stateMachine = Optional.of(new SysMLConstraintBlockStateMachine(this, this.getClass().getSimpleName()));
 	}
 
+	/**
+	 * Operation to be invoked by an override of the {@code createStateMachine()}
+	 * operation to evaluate the constraint block directly, i.e. without a state
+	 * machine, so that each parameter change is evaluated inline in the thread of
+	 * the change. An example follows:
+	 *
+	 * <pre>
+	 * {@code
+	 * protected void createStateMachine()
+	 * {
+	 * 	createDirectEvaluation();
+	 * }
+	 * }
+	 * </pre>
+	 */
+	protected final void createDirectEvaluation()
+	{
+		stateMachine = Optional.empty();
+		isEvaluatedDirectly = true;
+		directInitialDelay = Optional.empty();
+		directPeriod = Optional.empty();
+	}
+
+	/**
+	 * Operation to be invoked by an override of the {@code createStateMachine()}
+	 * operation to evaluate the constraint block directly, i.e. without a state
+	 * machine, and to perform its constraints periodically, i.e. its
+	 * {@code onTimeEvent()}, {@code performConstraints()}, and observer
+	 * notification, by the ticks of the {@code TickScheduler} of the constraint
+	 * block's executor while the constraint block is started
+	 *
+	 * @param initialDelay time until the first periodic performance
+	 * @param period       time between periodic performances
+	 */
+	protected final void createDirectEvaluation(DurationMilliseconds initialDelay, DurationMilliseconds period)
+	{
+		createDirectEvaluation();
+		directInitialDelay = Optional.of(initialDelay);
+		directPeriod = Optional.of(period);
+	}
+
 	/**
 	 * Overridable operation that should create the constraint block's
 	 * {@code constraint}. The {@code constraint} should perform whatever operations
@@ -9,6 +9,7 @@ import sysmlinjava.annotations.statemachines.OnExitActivity;
 import sysmlinjava.annotations.statemachines.State;
 import sysmlinjava.annotations.statemachines.Transition;
 import sysmlinjava.events.SysMLTimeEvent;
+import sysmlinjava.execution.LockstepScheduler;
 import sysmlinjava.statemachine.FinalTransition;
 import sysmlinjava.statemachine.InitialTransition;
 import sysmlinjava.statemachine.SysMLEffect;
@@ -57,6 +58,14 @@ import sysmlinjava.valuetypes.DurationMilliseconds;
  * multiple threads, i.e. in concurrent block models. If all bound parameters
  * are in blocks that are synchronous with the constraint block, then there is
  * no need to create the state machine for the constraint block.
+ * <p>
+ * If a {@code LockstepScheduler} is active upon entry into the operational
+ * state, the constraint block is registered with the scheduler instead of
+ * starting the timer, i.e. the timer period and initial delay are converted to
+ * numbers of ticks of the scheduler, and both the periodic and the parameter
+ * change-driven performance of the constraints are stepped by the scheduler's
+ * ticks. The constraint block is unregistered upon exit from the operational
+ * state.
  * 
  * @author ModelerOne
  *
@@ -194,7 +203,16 @@ public class SysMLConstraintBlockStateMachine extends SysMLStateMachine
 		{
 			SysMLConstraintBlock constraintBlock = (SysMLConstraintBlock)contextBlock.get();
 			SysMLConstraintBlockStateMachine stateMachine = (SysMLConstraintBlockStateMachine)constraintBlock.stateMachine.get();
-			if (stateMachine.timerPeriod.isPresent())
+			Optional<LockstepScheduler> lockstepScheduler = LockstepScheduler.active();
+			if (lockstepScheduler.isPresent())
+			{
+				LockstepConstraintBlock participant = new LockstepConstraintBlock(constraintBlock);
+				long periodTicks = stateMachine.timerPeriod.isPresent() ? Math.max(1, lockstepScheduler.get().ticksFor(stateMachine.timerPeriod.get())) : 0;
+				long offsetTicks = stateMachine.timerInitialDelay.isPresent() ? lockstepScheduler.get().ticksFor(stateMachine.timerInitialDelay.get()) : 0;
+				constraintBlock.lockstepParticipant = participant;
+				lockstepScheduler.get().register(participant, periodTicks, offsetTicks);
+			}
+			else if (stateMachine.timerPeriod.isPresent())
 			{
 				if (stateMachine.timerInitialDelay.isPresent())
 					stateMachine.startTimer(timerID, stateMachine.timerInitialDelay.get(), stateMachine.timerPeriod.get());
@@ -212,7 +230,13 @@ public class SysMLConstraintBlockStateMachine extends SysMLStateMachine
 		{
 			SysMLConstraintBlock constraintBlock = (SysMLConstraintBlock)contextBlock.get();
 			SysMLConstraintBlockStateMachine stateMachine = (SysMLConstraintBlockStateMachine)constraintBlock.stateMachine.get();
-			if (stateMachine.timerPeriod.isPresent())
+			LockstepConstraintBlock participant = constraintBlock.lockstepParticipant;
+			if (participant != null)
+			{
+				constraintBlock.lockstepParticipant = null;
+				LockstepScheduler.schedulerOf(constraintBlock).ifPresent(scheduler -> scheduler.unregister(participant));
+			}
+			else if (stateMachine.timerPeriod.isPresent())
 				stateMachine.stopTimer(timerID);
 		};
 	}
@@ -235,7 +259,7 @@ public class SysMLConstraintBlockStateMachine extends SysMLStateMachine
 			{
 				SysMLConstraintBlock constraintBlock = (SysMLConstraintBlock)contextBlock.get();
 				constraintBlock.onParameterChange(((SysMLParameterChangeEvent)event.get()).changeExpression);
-				constraintBlock.performConstraints();
+				constraintBlock.invokePerformConstraints();
 				constraintBlock.notifyValueChangeObservers();
 			}
 		};
@@ -247,7 +271,7 @@ public class SysMLConstraintBlockStateMachine extends SysMLStateMachine
 				{
 					SysMLConstraintBlock constraintBlock = (SysMLConstraintBlock)contextBlock.get();
 					constraintBlock.onTimeEvent();
-					constraintBlock.performConstraints();
+					constraintBlock.invokePerformConstraints();
 					constraintBlock.notifyValueChangeObservers();
 				}
 			}
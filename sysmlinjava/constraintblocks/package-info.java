@@ -2,6 +2,12 @@
  * Contains the SysMLinJava representations of elements related to the SysML
  * constraint block. It includes the base class for the constraint block itself
  * as well as related classes. It includes a representation of the SysML
- * objective function constraint block.
+ * objective function constraint block and of the acausal constraint block, whose
+ * residual equations are solved by the solver of the {@code solver} package,
+ * and the {@code ParametricNetwork}, which
+ * evaluates networks of constraint blocks bound to each other incrementally, in
+ * the topological order of their dependencies, and the
+ * {@code ConstraintBlockSampler}, which samples a constraint block offline for
+ * the fitting of its surrogate.
  */
 package sysmlinjava.constraintblocks;
\ No newline at end of file
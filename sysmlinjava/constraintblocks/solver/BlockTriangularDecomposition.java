@@ -0,0 +1,267 @@
+package sysmlinjava.constraintblocks.solver;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Block-triangular decomposition of an {@code EquationSystem}, i.e. its
+ * partition into the smallest subsystems of residuals and unknowns that must be
+ * solved simultaneously, in the order in which they can be solved one after
+ * another.
+ * <h2>Decomposition</h2> The decomposition is determined by the structure of
+ * the system alone, i.e. by the unknowns on which each residual depends:
+ * <ol>
+ * <li>each residual is matched to a distinct unknown on which it depends, by a
+ * maximum bipartite matching of the residuals and unknowns. If there is no such
+ * matching, the system is structurally singular.</li>
+ * <li>a residual depends on another residual if it depends on the unknown
+ * matched to the other residual</li>
+ * <li>the strongly connected components of the dependencies of the residuals,
+ * found by Tarjan's algorithm, are the subsystems, which the algorithm yields
+ * in an order in which every subsystem follows the subsystems on which it
+ * depends</li>
+ * </ol>
+ * Solving the subsystems in order, each for its own unknowns with the unknowns
+ * of the preceding subsystems held constant, solves the whole system. Chains of
+ * causal equations thereby become subsystems of one residual and one unknown,
+ * and independent loops of equations become separate subsystems, so that only
+ * the residuals of each loop are solved together.
+ *
+ * @author ModelerOne
+ *
+ * @see NewtonSolver
+ */
+public final class BlockTriangularDecomposition
+{
+	/**
+	 * Subsystems of the decomposition in the order in which they are to be
+	 * solved
+	 */
+	public final List<Subsystem> subsystems;
+	/**
+	 * Index of the unknown matched to each residual, by residual index
+	 */
+	private final int[] unknownOfResidual;
+
+	/**
+	 * Constructor, decomposes the specified system
+	 *
+	 * @param system the system
+	 * @throws IllegalArgumentException if the system is not square or is
+	 *                                  structurally singular
+	 */
+	public BlockTriangularDecomposition(EquationSystem system)
+	{
+		super();
+		int size = system.residuals.size();
+		if (size != system.unknowns.size())
+			throw new IllegalArgumentException("equation system not square: " + size + " residuals, " + system.unknowns.size() + " unknowns");
+		List<List<Integer>> incidence = new ArrayList<>(size);
+		for (int residual = 0; residual < size; residual++)
+			incidence.add(system.incidence(residual));
+		this.unknownOfResidual = matching(system, incidence);
+		int[] residualOfUnknown = new int[size];
+		for (int residual = 0; residual < size; residual++)
+			residualOfUnknown[unknownOfResidual[residual]] = residual;
+		List<List<Integer>> dependencies = new ArrayList<>(size);
+		for (int residual = 0; residual < size; residual++)
+		{
+			List<Integer> dependsOn = new ArrayList<>();
+			for (int unknown : incidence.get(residual))
+				if (residualOfUnknown[unknown] != residual)
+					dependsOn.add(residualOfUnknown[unknown]);
+			dependencies.add(dependsOn);
+		}
+		List<Subsystem> components = new ArrayList<>();
+		for (List<Integer> component : stronglyConnectedComponents(dependencies))
+		{
+			Collections.sort(component);
+			List<Integer> unknowns = new ArrayList<>(component.size());
+			component.forEach(residual -> unknowns.add(unknownOfResidual[residual]));
+			components.add(new Subsystem(component, unknowns));
+		}
+		this.subsystems = Collections.unmodifiableList(components);
+	}
+
+	/**
+	 * Returns the number of residuals of the largest subsystem
+	 *
+	 * @return size of the largest subsystem
+	 */
+	public int largestSubsystemSize()
+	{
+		return subsystems.stream().mapToInt(subsystem -> subsystem.residualIndexes.size()).max().orElse(0);
+	}
+
+	/**
+	 * Returns the maximum matching of the residuals to the unknowns on which they
+	 * depend, by augmenting paths
+	 *
+	 * @param system    the system
+	 * @param incidence unknowns on which each residual depends
+	 * @return index of the unknown matched to each residual
+	 * @throws IllegalArgumentException if a residual cannot be matched
+	 */
+	private static int[] matching(EquationSystem system, List<List<Integer>> incidence)
+	{
+		int size = incidence.size();
+		int[] residualOfUnknown = new int[size];
+		Arrays.fill(residualOfUnknown, -1);
+		for (int residual = 0; residual < size; residual++)
+			if (!augment(residual, incidence, residualOfUnknown, new boolean[size]))
+				throw new IllegalArgumentException("equation system structurally singular: residual " + system.residuals.get(residual).name + " cannot be matched to an unknown");
+		int[] result = new int[size];
+		for (int unknown = 0; unknown < size; unknown++)
+			result[residualOfUnknown[unknown]] = unknown;
+		return result;
+	}
+
+	/**
+	 * Finds an augmenting path from the specified residual, iteratively, and
+	 * rematches the residuals along the path
+	 *
+	 * @param start             the residual to be matched
+	 * @param incidence         unknowns on which each residual depends
+	 * @param residualOfUnknown residual matched to each unknown, or -1
+	 * @param visited           unknowns visited by the search
+	 * @return true if the residual was matched
+	 */
+	private static boolean augment(int start, List<List<Integer>> incidence, int[] residualOfUnknown, boolean[] visited)
+	{
+		ArrayDeque<int[]> stack = new ArrayDeque<>();
+		ArrayDeque<Integer> path = new ArrayDeque<>();
+		stack.push(new int[] {start, 0});
+		boolean result = false;
+		while (!stack.isEmpty() && !result)
+		{
+			int[] frame = stack.peek();
+			List<Integer> unknowns = incidence.get(frame[0]);
+			if (frame[1] < unknowns.size())
+			{
+				int unknown = unknowns.get(frame[1]++);
+				if (!visited[unknown])
+				{
+					visited[unknown] = true;
+					path.push(unknown);
+					if (residualOfUnknown[unknown] < 0)
+						result = true;
+					else
+						stack.push(new int[] {residualOfUnknown[unknown], 0});
+				}
+			}
+			else
+			{
+				stack.pop();
+				if (!path.isEmpty() && !stack.isEmpty())
+					path.pop();
+			}
+		}
+		if (result)
+			while (!stack.isEmpty())
+				residualOfUnknown[path.pop()] = stack.pop()[0];
+		return result;
+	}
+
+	/**
+	 * Returns the strongly connected components of the specified dependencies, by
+	 * Tarjan's algorithm performed iteratively, in an order in which every
+	 * component follows the components on which it depends
+	 *
+	 * @param dependencies indexes of the residuals on which each residual depends
+	 * @return the components, as indexes of their residuals
+	 */
+	private static List<List<Integer>> stronglyConnectedComponents(List<List<Integer>> dependencies)
+	{
+		int size = dependencies.size();
+		int[] index = new int[size];
+		int[] lowLink = new int[size];
+		boolean[] isOnStack = new boolean[size];
+		Arrays.fill(index, -1);
+		ArrayDeque<Integer> stack = new ArrayDeque<>();
+		List<List<Integer>> result = new ArrayList<>();
+		int nextIndex = 0;
+		for (int root = 0; root < size; root++)
+			if (index[root] < 0)
+			{
+				ArrayDeque<int[]> calls = new ArrayDeque<>();
+				calls.push(new int[] {root, 0});
+				index[root] = lowLink[root] = nextIndex++;
+				stack.push(root);
+				isOnStack[root] = true;
+				while (!calls.isEmpty())
+				{
+					int[] frame = calls.peek();
+					int residual = frame[0];
+					List<Integer> dependsOn = dependencies.get(residual);
+					if (frame[1] < dependsOn.size())
+					{
+						int other = dependsOn.get(frame[1]++);
+						if (index[other] < 0)
+						{
+							index[other] = lowLink[other] = nextIndex++;
+							stack.push(other);
+							isOnStack[other] = true;
+							calls.push(new int[] {other, 0});
+						}
+						else if (isOnStack[other])
+							lowLink[residual] = Math.min(lowLink[residual], index[other]);
+					}
+					else
+					{
+						calls.pop();
+						if (!calls.isEmpty())
+							lowLink[calls.peek()[0]] = Math.min(lowLink[calls.peek()[0]], lowLink[residual]);
+						if (lowLink[residual] == index[residual])
+						{
+							List<Integer> component = new ArrayList<>();
+							int member;
+							do
+							{
+								member = stack.pop();
+								isOnStack[member] = false;
+								component.add(member);
+							} while (member != residual);
+							result.add(component);
+						}
+					}
+				}
+			}
+		return result;
+	}
+
+	/**
+	 * Subsystem of the decomposition, i.e. residuals to be solved simultaneously
+	 * for the unknowns matched to them
+	 *
+	 * @author ModelerOne
+	 *
+	 */
+	public static final class Subsystem
+	{
+		/**
+		 * Indexes of the residuals of the subsystem
+		 */
+		public final List<Integer> residualIndexes;
+		/**
+		 * Indexes of the unknowns of the subsystem, in order of the residuals to which
+		 * they are matched
+		 */
+		public final List<Integer> unknownIndexes;
+
+		/**
+		 * Constructor
+		 *
+		 * @param residualIndexes indexes of the residuals
+		 * @param unknownIndexes  indexes of the unknowns
+		 */
+		private Subsystem(List<Integer> residualIndexes, List<Integer> unknownIndexes)
+		{
+			super();
+			this.residualIndexes = Collections.unmodifiableList(residualIndexes);
+			this.unknownIndexes = Collections.unmodifiableList(unknownIndexes);
+		}
+	}
+}
@@ -0,0 +1,158 @@
+package sysmlinjava.constraintblocks.solver;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import sysmlinjava.valuetypes.RReal;
+
+/**
+ * System of acausal residual equations and of the unknowns for which they are
+ * to be solved, e.g. the equations of a {@code SysMLAcausalConstraintBlock} or
+ * of several such blocks whose equations form an algebraic loop.
+ * <h2>Structure</h2> The unknowns are {@code RReal}-valued constraint
+ * parameters, identified by their instances, and each {@code Residual} declares
+ * the variables on which it depends. The variables of the residuals that are
+ * not unknowns are the inputs of the system. The system is solvable if it has
+ * as many residuals as unknowns and each residual can be matched to a distinct
+ * unknown on which it depends, as determined by the
+ * {@code BlockTriangularDecomposition} of the system.
+ * <h3>Combined systems</h3> The systems of several constraint blocks are
+ * combined into one system by the {@code add()} operation, and a variable of
+ * one block that is bound to a variable of another is equated to it by the
+ * {@code equate()} operation, so that a loop of equations among the blocks is
+ * solved simultaneously rather than by the exchange of value changes among the
+ * blocks.
+ *
+ * @author ModelerOne
+ *
+ * @see NewtonSolver
+ * @see BlockTriangularDecomposition
+ */
+public class EquationSystem
+{
+	/**
+	 * Residual equations of the system in order of their addition
+	 */
+	public final List<Residual> residuals;
+	/**
+	 * Unknowns of the system in order of their addition
+	 */
+	public final List<RReal> unknowns;
+	/**
+	 * Indexes of the unknowns by instance
+	 */
+	private final Map<RReal, Integer> unknownIndexes;
+
+	/**
+	 * Constructor of an empty system
+	 */
+	public EquationSystem()
+	{
+		super();
+		this.residuals = new ArrayList<>();
+		this.unknowns = new ArrayList<>();
+		this.unknownIndexes = new IdentityHashMap<>();
+	}
+
+	/**
+	 * Adds the specified residual equation of the specified variables, whose
+	 * Jacobian entries are approximated by finite differences
+	 *
+	 * @param name      name of the equation
+	 * @param equation  the equation
+	 * @param variables variables on which the equation depends
+	 * @return the residual added
+	 */
+	public Residual addResidual(String name, ResidualEquation equation, RReal... variables)
+	{
+		return addResidual(new Residual(name, List.of(variables), equation, Optional.empty()));
+	}
+
+	/**
+	 * Adds the specified residual
+	 *
+	 * @param residual the residual
+	 * @return the residual added
+	 */
+	public Residual addResidual(Residual residual)
+	{
+		residuals.add(residual);
+		return residual;
+	}
+
+	/**
+	 * Adds the specified variable as an unknown of the system, unless already an
+	 * unknown
+	 *
+	 * @param unknown the variable
+	 */
+	public void addUnknown(RReal unknown)
+	{
+		if (!unknownIndexes.containsKey(unknown))
+		{
+			unknownIndexes.put(unknown, unknowns.size());
+			unknowns.add(unknown);
+		}
+	}
+
+	/**
+	 * Adds the residual equation that equates the specified variables, e.g. a
+	 * variable of one constraint block and the variable of another to which it is
+	 * bound, with exact partial derivatives
+	 *
+	 * @param variable0 the first variable
+	 * @param variable1 the second variable
+	 * @return the residual added
+	 */
+	public Residual equate(RReal variable0, RReal variable1)
+	{
+		return addResidual(new Residual(variable0.identityString() + "=" + variable1.identityString(), List.of(variable0, variable1), () -> variable0.value - variable1.value,
+			Optional.of(() -> new double[] {1.0, -1.0})));
+	}
+
+	/**
+	 * Adds the residuals and unknowns of the specified system to this system
+	 *
+	 * @param system the system
+	 */
+	public void add(EquationSystem system)
+	{
+		system.residuals.forEach(this::addResidual);
+		system.unknowns.forEach(this::addUnknown);
+	}
+
+	/**
+	 * Returns the index of the specified variable among the unknowns
+	 *
+	 * @param variable the variable
+	 * @return the index of the unknown, or -1 if the variable is not an unknown
+	 */
+	public int unknownIndex(RReal variable)
+	{
+		Integer result = unknownIndexes.get(variable);
+		return result != null ? result : -1;
+	}
+
+	/**
+	 * Returns the indexes of the unknowns on which the residual of the specified
+	 * index depends, i.e. the columns of its nonzero entries of the Jacobian, in
+	 * order of its variables
+	 *
+	 * @param residualIndex index of the residual
+	 * @return indexes of the unknowns, each once
+	 */
+	public List<Integer> incidence(int residualIndex)
+	{
+		List<Integer> result = new ArrayList<>();
+		for (RReal variable : residuals.get(residualIndex).variables)
+		{
+			int index = unknownIndex(variable);
+			if (index >= 0 && !result.contains(index))
+				result.add(index);
+		}
+		return Collections.unmodifiableList(result);
+	}
+}
@@ -0,0 +1,391 @@
+package sysmlinjava.constraintblocks.solver;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import sysmlinjava.valuetypes.RReal;
+
+/**
+ * Newton-Raphson solver of the acausal residual equations of an
+ * {@code EquationSystem}.
+ * <h2>Solution by subsystem</h2> The system is solved subsystem by subsystem in
+ * the order of its {@code BlockTriangularDecomposition}, so that independent
+ * subsystems are solved separately and each Newton iteration involves only the
+ * residuals and unknowns of one subsystem. A subsystem of one residual and one
+ * unknown, e.g. a causal equation, is solved by scalar Newton iterations.
+ * <h3>Sparse Jacobian</h3> The Jacobian of each subsystem has an entry only for
+ * each residual and unknown of the subsystem on which the residual depends. The
+ * entries are the partial derivatives supplied by the residual's
+ * {@code ResidualGradient}, if any, or are approximated by forward finite
+ * differences, for which each unknown is perturbed once per iteration and only
+ * the residuals that depend on it are reevaluated. The Newton step is solved by
+ * Gaussian elimination with partial pivoting of the subsystem's Jacobian, and
+ * is halved until it reduces the largest residual of the subsystem, up to
+ * {@code maxStepHalvings} times.
+ * <h3>Convergence</h3> A subsystem converges when its largest absolute residual
+ * is within the {@code tolerance}. The solution stops at the first subsystem
+ * that does not converge within {@code maxIterations} or whose Jacobian is
+ * singular, in which case the unknowns of the remaining subsystems are left at
+ * their values prior to the solution. The unknowns are set directly, i.e. their
+ * value change observers are not notified by the solver.
+ *
+ * @author ModelerOne
+ *
+ * @see EquationSystem
+ * @see BlockTriangularDecomposition
+ */
+public class NewtonSolver
+{
+	/**
+	 * Largest absolute residual at which a subsystem is converged
+	 */
+	public double tolerance;
+	/**
+	 * Maximum number of Newton iterations per subsystem
+	 */
+	public int maxIterations;
+	/**
+	 * Perturbation of the unknowns for the finite-difference approximation of the
+	 * Jacobian, relative to the magnitude of the unknown, or absolute if the
+	 * magnitude is less than one
+	 */
+	public double finiteDifferenceStep;
+	/**
+	 * Maximum number of halvings of a Newton step that does not reduce the
+	 * largest residual
+	 */
+	public int maxStepHalvings;
+
+	/**
+	 * Constructor for the default settings
+	 */
+	public NewtonSolver()
+	{
+		this(1.0e-10, 50);
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param tolerance     largest absolute residual at which a subsystem is
+	 *                      converged
+	 * @param maxIterations maximum number of Newton iterations per subsystem
+	 */
+	public NewtonSolver(double tolerance, int maxIterations)
+	{
+		super();
+		this.tolerance = tolerance;
+		this.maxIterations = maxIterations;
+		this.finiteDifferenceStep = 1.0e-7;
+		this.maxStepHalvings = 10;
+	}
+
+	/**
+	 * Decomposes and solves the specified system
+	 *
+	 * @param system the system
+	 * @return the result of the solution
+	 * @throws IllegalArgumentException if the system is not square or is
+	 *                                  structurally singular
+	 */
+	public SolverResult solve(EquationSystem system)
+	{
+		return solve(system, new BlockTriangularDecomposition(system));
+	}
+
+	/**
+	 * Solves the specified system by its specified decomposition, e.g. a
+	 * decomposition retained for repeated solutions of the same system with
+	 * different inputs
+	 *
+	 * @param system        the system
+	 * @param decomposition the decomposition of the system
+	 * @return the result of the solution
+	 */
+	public SolverResult solve(EquationSystem system, BlockTriangularDecomposition decomposition)
+	{
+		int iterations = 0;
+		double maxResidual = 0.0;
+		Optional<String> failure = Optional.empty();
+		for (BlockTriangularDecomposition.Subsystem subsystem : decomposition.subsystems)
+			if (failure.isEmpty())
+			{
+				SubsystemSolution solution = new SubsystemSolution(system, subsystem);
+				failure = solution.solve();
+				iterations += solution.iterations;
+				maxResidual = Math.max(maxResidual, solution.maxResidual);
+			}
+		return new SolverResult(failure.isEmpty(), iterations, decomposition.subsystems.size(), decomposition.largestSubsystemSize(), maxResidual, failure);
+	}
+
+	/**
+	 * Returns the largest absolute value of the specified residuals, or infinity
+	 * if any is not a number
+	 *
+	 * @param residuals the residuals
+	 * @return the largest absolute residual
+	 */
+	private static double maxAbs(double[] residuals)
+	{
+		double result = 0.0;
+		for (double residual : residuals)
+			result = Double.isNaN(residual) ? Double.POSITIVE_INFINITY : Math.max(result, Math.abs(residual));
+		return result;
+	}
+
+	/**
+	 * Solves the specified linear system in place by Gaussian elimination with
+	 * partial pivoting
+	 *
+	 * @param matrix the matrix of the system, overwritten
+	 * @param vector the right-hand side of the system, overwritten by the
+	 *               solution
+	 * @return true if the matrix is not singular
+	 */
+	private static boolean solveLinear(double[][] matrix, double[] vector)
+	{
+		int size = vector.length;
+		boolean result = true;
+		for (int column = 0; column < size && result; column++)
+		{
+			int pivot = column;
+			for (int row = column + 1; row < size; row++)
+				if (Math.abs(matrix[row][column]) > Math.abs(matrix[pivot][column]))
+					pivot = row;
+			if (matrix[pivot][column] == 0.0 || !Double.isFinite(matrix[pivot][column]))
+				result = false;
+			else
+			{
+				double[] pivotRow = matrix[pivot];
+				matrix[pivot] = matrix[column];
+				matrix[column] = pivotRow;
+				double pivotValue = vector[pivot];
+				vector[pivot] = vector[column];
+				vector[column] = pivotValue;
+				for (int row = column + 1; row < size; row++)
+				{
+					double factor = matrix[row][column] / matrix[column][column];
+					if (factor != 0.0)
+					{
+						for (int k = column; k < size; k++)
+							matrix[row][k] -= factor * matrix[column][k];
+						vector[row] -= factor * vector[column];
+					}
+				}
+			}
+		}
+		if (result)
+			for (int row = size - 1; row >= 0; row--)
+			{
+				double sum = vector[row];
+				for (int k = row + 1; k < size; k++)
+					sum -= matrix[row][k] * vector[k];
+				vector[row] = sum / matrix[row][row];
+			}
+		return result;
+	}
+
+	/**
+	 * Newton-Raphson solution of one subsystem
+	 *
+	 * @author ModelerOne
+	 *
+	 */
+	private final class SubsystemSolution
+	{
+		/**
+		 * Residuals of the subsystem
+		 */
+		private final Residual[] residuals;
+		/**
+		 * Unknowns of the subsystem
+		 */
+		private final RReal[] unknowns;
+		/**
+		 * Rows of the residuals that depend on each unknown, by column
+		 */
+		private final int[][] rowsOfColumn;
+		/**
+		 * Column of each variable of each residual, or -1 if the variable is not an
+		 * unknown of the subsystem, by row
+		 */
+		private final int[][] columnsOfVariables;
+		/**
+		 * Number of iterations performed
+		 */
+		private int iterations;
+		/**
+		 * Largest absolute residual upon completion
+		 */
+		private double maxResidual;
+
+		/**
+		 * Constructor
+		 *
+		 * @param system    the system
+		 * @param subsystem the subsystem of the system
+		 */
+		private SubsystemSolution(EquationSystem system, BlockTriangularDecomposition.Subsystem subsystem)
+		{
+			super();
+			int size = subsystem.residualIndexes.size();
+			this.residuals = new Residual[size];
+			this.unknowns = new RReal[size];
+			this.columnsOfVariables = new int[size][];
+			int[] columnOfUnknown = new int[system.unknowns.size()];
+			Arrays.fill(columnOfUnknown, -1);
+			for (int i = 0; i < size; i++)
+			{
+				residuals[i] = system.residuals.get(subsystem.residualIndexes.get(i));
+				unknowns[i] = system.unknowns.get(subsystem.unknownIndexes.get(i));
+				columnOfUnknown[subsystem.unknownIndexes.get(i)] = i;
+			}
+			int[] rowCounts = new int[size];
+			for (int row = 0; row < size; row++)
+			{
+				List<RReal> variables = residuals[row].variables;
+				columnsOfVariables[row] = new int[variables.size()];
+				for (int v = 0; v < variables.size(); v++)
+				{
+					int unknownIndex = system.unknownIndex(variables.get(v));
+					columnsOfVariables[row][v] = unknownIndex >= 0 ? columnOfUnknown[unknownIndex] : -1;
+					if (columnsOfVariables[row][v] >= 0)
+						rowCounts[columnsOfVariables[row][v]]++;
+				}
+			}
+			this.rowsOfColumn = new int[size][];
+			for (int column = 0; column < size; column++)
+				rowsOfColumn[column] = new int[rowCounts[column]];
+			int[] filled = new int[size];
+			for (int row = 0; row < size; row++)
+				for (int column : columnsOfVariables[row])
+					if (column >= 0 && !contains(rowsOfColumn[column], filled[column], row))
+						rowsOfColumn[column][filled[column]++] = row;
+			for (int column = 0; column < size; column++)
+				rowsOfColumn[column] = Arrays.copyOf(rowsOfColumn[column], filled[column]);
+			this.iterations = 0;
+			this.maxResidual = 0.0;
+		}
+
+		/**
+		 * Solves the subsystem by Newton-Raphson iterations
+		 *
+		 * @return optional description of the failure, empty if converged
+		 */
+		private Optional<String> solve()
+		{
+			int size = unknowns.length;
+			double[] values = new double[size];
+			double[] current = evaluate();
+			maxResidual = maxAbs(current);
+			Optional<String> result = Optional.empty();
+			boolean isDone = maxResidual <= tolerance;
+			while (!isDone)
+			{
+				if (iterations >= maxIterations)
+				{
+					result = Optional.of("not converged in " + maxIterations + " iterations: " + residuals[0].name + " (max residual " + maxResidual + ")");
+					isDone = true;
+				}
+				else
+				{
+					iterations++;
+					double[][] jacobian = jacobian(current);
+					double[] step = new double[size];
+					for (int i = 0; i < size; i++)
+					{
+						step[i] = -current[i];
+						values[i] = unknowns[i].value;
+					}
+					if (!solveLinear(jacobian, step))
+					{
+						result = Optional.of("singular Jacobian: " + residuals[0].name);
+						isDone = true;
+					}
+					else
+					{
+						double scale = 1.0;
+						double[] next = null;
+						for (int halving = 0; halving <= maxStepHalvings && (next == null || maxAbs(next) >= maxResidual); halving++)
+						{
+							if (next != null)
+								scale *= 0.5;
+							for (int i = 0; i < size; i++)
+								unknowns[i].value = values[i] + scale * step[i];
+							next = evaluate();
+						}
+						current = next;
+						maxResidual = maxAbs(current);
+						isDone = maxResidual <= tolerance;
+					}
+				}
+			}
+			return result;
+		}
+
+		/**
+		 * Evaluates the residuals of the subsystem for the current values of the
+		 * unknowns
+		 *
+		 * @return the residuals, by row
+		 */
+		private double[] evaluate()
+		{
+			double[] result = new double[residuals.length];
+			for (int row = 0; row < residuals.length; row++)
+				result[row] = residuals[row].equation.residual();
+			return result;
+		}
+
+		/**
+		 * Returns the Jacobian of the subsystem at the current values of the unknowns,
+		 * i.e. the supplied partial derivatives of the residuals that have gradients
+		 * and finite-difference approximations of the entries of the others
+		 *
+		 * @param current the residuals at the current values
+		 * @return the Jacobian, by row and column
+		 */
+		private double[][] jacobian(double[] current)
+		{
+			int size = unknowns.length;
+			double[][] result = new double[size][size];
+			for (int row = 0; row < size; row++)
+				if (residuals[row].gradient.isPresent())
+				{
+					double[] gradient = residuals[row].gradient.get().gradient();
+					for (int v = 0; v < columnsOfVariables[row].length; v++)
+						if (columnsOfVariables[row][v] >= 0)
+							result[row][columnsOfVariables[row][v]] += gradient[v];
+				}
+			for (int column = 0; column < size; column++)
+			{
+				double value = unknowns[column].value;
+				double perturbation = finiteDifferenceStep * Math.max(1.0, Math.abs(value));
+				unknowns[column].value = value + perturbation;
+				for (int row : rowsOfColumn[column])
+					if (residuals[row].gradient.isEmpty())
+						result[row][column] = (residuals[row].equation.residual() - current[row]) / perturbation;
+				unknowns[column].value = value;
+			}
+			return result;
+		}
+
+		/**
+		 * Returns whether the specified number of leading elements of the specified
+		 * array contain the specified element
+		 *
+		 * @param array   the array
+		 * @param length  number of leading elements
+		 * @param element the element
+		 * @return true if contained
+		 */
+		private boolean contains(int[] array, int length, int element)
+		{
+			boolean result = false;
+			for (int i = 0; i < length; i++)
+				if (array[i] == element)
+					result = true;
+			return result;
+		}
+	}
+}
@@ -0,0 +1,56 @@
+package sysmlinjava.constraintblocks.solver;
+
+import java.util.List;
+import java.util.Optional;
+import sysmlinjava.valuetypes.RReal;
+
+/**
+ * Residual equation of an {@code EquationSystem} together with the variables on
+ * which it depends, i.e. its structure. The variables are the
+ * {@code RReal}-valued constraint parameters read by the equation, identified
+ * by their instances. Those of the variables that are unknowns of the system
+ * determine the nonzero entries of the equation's row of the sparse Jacobian;
+ * the others are inputs of the system, held constant while it is solved.
+ *
+ * @author ModelerOne
+ *
+ * @see EquationSystem
+ */
+public final class Residual
+{
+	/**
+	 * Name of the equation, for diagnostics
+	 */
+	public final String name;
+	/**
+	 * Variables on which the equation depends
+	 */
+	public final List<RReal> variables;
+	/**
+	 * The equation
+	 */
+	public final ResidualEquation equation;
+	/**
+	 * Optional partial derivatives of the equation with respect to its variables,
+	 * approximated by finite differences if empty
+	 */
+	public final Optional<ResidualGradient> gradient;
+
+	/**
+	 * Constructor
+	 *
+	 * @param name      name of the equation
+	 * @param variables variables on which the equation depends
+	 * @param equation  the equation
+	 * @param gradient  optional partial derivatives of the equation, in order of
+	 *                  its variables
+	 */
+	public Residual(String name, List<RReal> variables, ResidualEquation equation, Optional<ResidualGradient> gradient)
+	{
+		super();
+		this.name = name;
+		this.variables = List.copyOf(variables);
+		this.equation = equation;
+		this.gradient = gradient;
+	}
+}
@@ -0,0 +1,36 @@
+package sysmlinjava.constraintblocks.solver;
+
+import sysmlinjava.common.SysMLInterface;
+
+/**
+ * Functional interface for an acausal equation of the constraint parameters of
+ * a constraint block, expressed as its residual, i.e. as the difference of the
+ * two sides of the equation, which is zero where the equation holds. For
+ * example, the equation {@code v = i * r} is expressed as follows:
+ *
+ * <pre>
+ * {@code
+ * ohmsLaw = () -> voltage.value - current.value * resistance.value;
+ * }
+ * </pre>
+ *
+ * The residual is evaluated by the {@code NewtonSolver} for the current values
+ * of the variables of the equation, i.e. it must read the values each time it
+ * is evaluated rather than capture them.
+ *
+ * @author ModelerOne
+ *
+ * @see Residual
+ * @see NewtonSolver
+ */
+@FunctionalInterface
+public interface ResidualEquation extends SysMLInterface
+{
+	/**
+	 * Returns the residual of the equation for the current values of its
+	 * variables
+	 *
+	 * @return the residual, zero where the equation holds
+	 */
+	double residual();
+}
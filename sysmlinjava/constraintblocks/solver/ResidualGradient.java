@@ -0,0 +1,32 @@
+package sysmlinjava.constraintblocks.solver;
+
+import sysmlinjava.common.SysMLInterface;
+
+/**
+ * Functional interface for the user-supplied partial derivatives of a
+ * {@code ResidualEquation} with respect to its variables, which replace the
+ * finite-difference approximation of the equation's entries of the Jacobian.
+ * For example, the gradient of the residual {@code v - i * r} with respect to
+ * its variables {@code v, i, r} is expressed as follows:
+ *
+ * <pre>
+ * {@code
+ * ohmsLawGradient = () -> new double[] {1.0, -resistance.value, -current.value};
+ * }
+ * </pre>
+ *
+ * @author ModelerOne
+ *
+ * @see Residual
+ */
+@FunctionalInterface
+public interface ResidualGradient extends SysMLInterface
+{
+	/**
+	 * Returns the partial derivatives of the residual with respect to its
+	 * variables for their current values
+	 *
+	 * @return the partial derivatives, in order of the variables of the residual
+	 */
+	double[] gradient();
+}
@@ -0,0 +1,68 @@
+package sysmlinjava.constraintblocks.solver;
+
+import java.util.Optional;
+
+/**
+ * Result of the solution of an {@code EquationSystem} by the
+ * {@code NewtonSolver}
+ *
+ * @author ModelerOne
+ *
+ * @see NewtonSolver
+ */
+public final class SolverResult
+{
+	/**
+	 * Whether all subsystems converged, i.e. the residuals of the system are
+	 * within the tolerance of the solver
+	 */
+	public final boolean isConverged;
+	/**
+	 * Number of Newton iterations performed over all subsystems
+	 */
+	public final int iterations;
+	/**
+	 * Number of subsystems of the block-triangular decomposition of the system
+	 */
+	public final int subsystemCount;
+	/**
+	 * Number of residuals of the largest subsystem
+	 */
+	public final int largestSubsystemSize;
+	/**
+	 * Largest absolute residual of the system upon completion
+	 */
+	public final double maxResidual;
+	/**
+	 * Optional description of the failure, present if not converged
+	 */
+	public final Optional<String> failure;
+
+	/**
+	 * Constructor
+	 *
+	 * @param isConverged          whether all subsystems converged
+	 * @param iterations           number of iterations performed
+	 * @param subsystemCount       number of subsystems
+	 * @param largestSubsystemSize number of residuals of the largest subsystem
+	 * @param maxResidual          largest absolute residual upon completion
+	 * @param failure              optional description of the failure
+	 */
+	SolverResult(boolean isConverged, int iterations, int subsystemCount, int largestSubsystemSize, double maxResidual, Optional<String> failure)
+	{
+		super();
+		this.isConverged = isConverged;
+		this.iterations = iterations;
+		this.subsystemCount = subsystemCount;
+		this.largestSubsystemSize = largestSubsystemSize;
+		this.maxResidual = maxResidual;
+		this.failure = failure;
+	}
+
+	@Override
+	public String toString()
+	{
+		return String.format("SolverResult [isConverged=%s, iterations=%d, subsystemCount=%d, largestSubsystemSize=%d, maxResidual=%g%s]", isConverged, iterations, subsystemCount,
+			largestSubsystemSize, maxResidual, failure.isPresent() ? ", failure=" + failure.get() : "");
+	}
+}
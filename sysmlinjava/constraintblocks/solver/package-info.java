@@ -0,0 +1,8 @@
+/**
+ * Contains the solver of acausal constraint equations, i.e. of the residual
+ * equations of the constraint parameters of {@code SysMLAcausalConstraintBlock}s
+ * or of systems of equations combined from several constraint blocks. The
+ * systems are decomposed into block-triangular form and solved subsystem by
+ * subsystem by Newton-Raphson iterations with sparse Jacobians.
+ */
+package sysmlinjava.constraintblocks.solver;
@@ -1,5 +1,7 @@
 package sysmlinjava.events;
 
+import java.util.Optional;
+import sysmlinjava.analysis.tracing.SignalTrace;
 import sysmlinjava.common.SysMLClass;
 
 /**
@@ -22,12 +24,22 @@ import sysmlinjava.common.SysMLClass;
  */
 public abstract class SysMLEvent extends SysMLClass implements Comparable<SysMLEvent>
 {
+	/**
+	 * Optional trace context of the signal from which the event was created,
+	 * present if signal tracing is enabled and the event was created by a
+	 * {@code SysMLFullPort} for a traced signal.
+	 * 
+	 * @see sysmlinjava.analysis.tracing.SignalTracing
+	 */
+	public Optional<SignalTrace> trace;
+
 	/**
 	 * Constructor - default
 	 */
 	public SysMLEvent()
 	{
 		super();
+		trace = Optional.empty();
 	}
 
 	/**
@@ -38,6 +50,7 @@ public abstract class SysMLEvent extends SysMLClass implements Comparable<SysMLE
 	public SysMLEvent(String name)
 	{
 		super(name);
+		trace = Optional.empty();
 	}
 
 	/**
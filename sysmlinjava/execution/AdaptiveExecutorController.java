@@ -0,0 +1,374 @@
+package sysmlinjava.execution;
+
+import java.lang.management.ManagementFactory;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import sysmlinjava.analysis.metrics.LatencyHistogram;
+import sysmlinjava.analysis.metrics.SysMLMetrics;
+
+/**
+ * Controller of the number of threads of an {@code AdaptiveScheduledExecutor}.
+ * The {@code AdaptiveExecutorController} samples the executor periodically and
+ * grows or shrinks its number of (core) threads within the configured bounds:
+ * <ul>
+ * <li><b>Grow</b> - if tasks are ready but not started, i.e. the ready queue is
+ * not empty, and either the utilization of the threads is at or above the
+ * {@code highUtilization} or the 99th percentile of the dispatch latency of the
+ * sample window exceeds the {@code dispatchLatencyTargetMillis}, the number of
+ * threads is increased by the ready queue length, but at most doubled.</li>
+ * <li><b>Shrink</b> - if the ready queue is empty, the utilization is below the
+ * {@code lowUtilization}, and the dispatch latency is within its target for
+ * {@code shrinkAfterSamples} consecutive samples, the number of threads is
+ * decreased by a quarter of the idle threads, but to no fewer than one more
+ * than the busy threads.</li>
+ * </ul>
+ * Note that the asynchronous state machines of the blocks do not occupy the
+ * threads of an {@code AdaptiveScheduledExecutor} while they await events.
+ * Instead, each state machine drains its event queue in a task that is
+ * submitted upon the queuing of an event and ends when the queue is empty, so
+ * the utilization of the executor reflects only the handling of events and the
+ * other tasks of the models, and the number of state machines is not bounded by
+ * the maximum number of threads.
+ * <p>
+ * Each decision is logged and counted, and the controller's measurements and
+ * decisions are exposed as an MBean under the object name
+ * {@code sysmlinjava:type=Executor,name="<executor name>"}, with the executor's
+ * cumulative dispatch latency histogram under the same name with an additional
+ * {@code histogram} key.
+ * 
+ * @author ModelerOne
+ *
+ * @see SysMLExecutors
+ */
+public class AdaptiveExecutorController implements Runnable, AdaptiveExecutorControllerMBean
+{
+	/**
+	 * Logger for the controller
+	 */
+	protected Logger logger;
+	/**
+	 * Executor whose number of threads is controlled
+	 */
+	public final AdaptiveScheduledExecutor executor;
+	/**
+	 * Minimum number of threads
+	 */
+	private volatile int minThreads;
+	/**
+	 * Maximum number of threads
+	 */
+	private volatile int maxThreads;
+	/**
+	 * Period between samples, milliseconds
+	 */
+	public final long samplePeriodMillis;
+	/**
+	 * Utilization at or above which the executor is grown if tasks are ready
+	 */
+	public volatile double highUtilization;
+	/**
+	 * Utilization below which the executor is shrunk if no tasks are ready
+	 */
+	public volatile double lowUtilization;
+	/**
+	 * Target for the 99th percentile of dispatch latency, milliseconds
+	 */
+	public volatile long dispatchLatencyTargetMillis;
+	/**
+	 * Number of consecutive idle samples after which the executor is shrunk
+	 */
+	public volatile int shrinkAfterSamples;
+
+	/**
+	 * Ready queue length measured by the last sample
+	 */
+	private volatile int readyQueueLength;
+	/**
+	 * Utilization measured by the last sample
+	 */
+	private volatile double utilization;
+	/**
+	 * 99th percentile of dispatch latency of the last sample window, nanoseconds
+	 */
+	private volatile long p99DispatchLatencyNanos;
+	/**
+	 * Number of decisions to grow
+	 */
+	private volatile long growDecisions;
+	/**
+	 * Number of decisions to shrink
+	 */
+	private volatile long shrinkDecisions;
+	/**
+	 * Description of the last decision
+	 */
+	private volatile String lastDecision;
+	/**
+	 * Number of consecutive idle samples
+	 */
+	private int idleSamples;
+	/**
+	 * Executor of the sampling thread
+	 */
+	private Optional<ScheduledExecutorService> sampler;
+	/**
+	 * Future of the scheduled sampling
+	 */
+	private Optional<ScheduledFuture<?>> samplerFuture;
+
+	/**
+	 * Constructor
+	 * 
+	 * @param executor           executor whose number of threads is to be
+	 *                           controlled
+	 * @param minThreads         minimum number of threads
+	 * @param maxThreads         maximum number of threads
+	 * @param samplePeriodMillis period between samples, milliseconds
+	 */
+	public AdaptiveExecutorController(AdaptiveScheduledExecutor executor, int minThreads, int maxThreads, long samplePeriodMillis)
+	{
+		super();
+		logger = Logger.getLogger(getClass().getSimpleName());
+		this.executor = executor;
+		this.minThreads = Math.max(1, minThreads);
+		this.maxThreads = Math.max(this.minThreads, maxThreads);
+		this.samplePeriodMillis = samplePeriodMillis;
+		highUtilization = 0.9;
+		lowUtilization = 0.5;
+		dispatchLatencyTargetMillis = 10;
+		shrinkAfterSamples = 20;
+		lastDecision = "none";
+		sampler = Optional.empty();
+		samplerFuture = Optional.empty();
+	}
+
+	/**
+	 * Starts the periodic sampling in a daemon thread and registers the
+	 * controller's MBean
+	 */
+	public synchronized void start()
+	{
+		if (samplerFuture.isEmpty())
+		{
+			ScheduledExecutorService samplerService = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("SysMLinJava-" + executor.name + "-controller", true));
+			samplerFuture = Optional.of(samplerService.scheduleWithFixedDelay(this, samplePeriodMillis, samplePeriodMillis, TimeUnit.MILLISECONDS));
+			sampler = Optional.of(samplerService);
+			register();
+		}
+	}
+
+	/**
+	 * Stops the periodic sampling and unregisters the controller's MBean
+	 */
+	public synchronized void stop()
+	{
+		if (samplerFuture.isPresent())
+		{
+			samplerFuture.get().cancel(false);
+			sampler.get().shutdown();
+			samplerFuture = Optional.empty();
+			sampler = Optional.empty();
+			unregister();
+		}
+	}
+
+	/**
+	 * Runnable operation of the sampling thread that samples the executor and
+	 * grows or shrinks its number of threads
+	 */
+	@Override
+	public void run()
+	{
+		try
+		{
+			int threads = executor.getCorePoolSize();
+			int busyThreads = executor.getActiveCount();
+			int ready = executor.readyQueueLength();
+			LatencyHistogram window = executor.takeDispatchLatencyWindow();
+			long p99Nanos = window.percentileNanos(99.0);
+			double sampleUtilization = threads > 0 ? (double)busyThreads / threads : 1.0;
+			boolean latencyOverTarget = p99Nanos > TimeUnit.MILLISECONDS.toNanos(dispatchLatencyTargetMillis);
+
+			readyQueueLength = ready;
+			utilization = sampleUtilization;
+			p99DispatchLatencyNanos = p99Nanos;
+
+			if (ready > 0 && (sampleUtilization >= highUtilization || latencyOverTarget))
+			{
+				idleSamples = 0;
+				int newThreads = Math.min(maxThreads, threads + Math.max(1, Math.min(ready, threads)));
+				if (newThreads > threads)
+				{
+					growDecisions++;
+					decide(threads, newThreads, busyThreads, ready, sampleUtilization, p99Nanos, "grow");
+				}
+			}
+			else if (ready == 0 && sampleUtilization < lowUtilization && !latencyOverTarget)
+			{
+				idleSamples++;
+				if (idleSamples >= shrinkAfterSamples)
+				{
+					idleSamples = 0;
+					int newThreads = Math.max(minThreads, Math.max(busyThreads + 1, threads - Math.max(1, (threads - busyThreads) / 4)));
+					if (newThreads < threads)
+					{
+						shrinkDecisions++;
+						decide(threads, newThreads, busyThreads, ready, sampleUtilization, p99Nanos, "shrink");
+					}
+				}
+			}
+			else
+				idleSamples = 0;
+			if (threads < minThreads || threads > maxThreads)
+				executor.setCorePoolSize(Math.min(maxThreads, Math.max(minThreads, threads)));
+		} catch (RuntimeException e)
+		{
+			logger.warning("sample failed: " + e);
+		}
+	}
+
+	/**
+	 * Applies and logs a decision to change the number of threads
+	 * 
+	 * @param threads     number of threads before the decision
+	 * @param newThreads  number of threads after the decision
+	 * @param busyThreads number of busy threads
+	 * @param ready       ready queue length
+	 * @param utilization utilization of the threads
+	 * @param p99Nanos    99th percentile of dispatch latency, nanoseconds
+	 * @param decision    the decision, i.e. "grow" or "shrink"
+	 */
+	private void decide(int threads, int newThreads, int busyThreads, int ready, double utilization, long p99Nanos, String decision)
+	{
+		executor.setCorePoolSize(newThreads);
+		lastDecision = String.format("%s %d -> %d threads (busy=%d, ready=%d, utilization=%.2f, p99DispatchMicros=%.1f)", decision, threads, newThreads, busyThreads, ready, utilization, p99Nanos / 1_000.0);
+		logger.info(executor.name + ": " + lastDecision);
+	}
+
+	@Override
+	public int getThreads()
+	{
+		return executor.getCorePoolSize();
+	}
+
+	@Override
+	public int getMinThreads()
+	{
+		return minThreads;
+	}
+
+	@Override
+	public void setMinThreads(int minThreads)
+	{
+		this.minThreads = Math.max(1, Math.min(minThreads, maxThreads));
+	}
+
+	@Override
+	public int getMaxThreads()
+	{
+		return maxThreads;
+	}
+
+	@Override
+	public void setMaxThreads(int maxThreads)
+	{
+		this.maxThreads = Math.max(maxThreads, minThreads);
+	}
+
+	@Override
+	public int getReadyQueueLength()
+	{
+		return readyQueueLength;
+	}
+
+	@Override
+	public double getUtilization()
+	{
+		return utilization;
+	}
+
+	@Override
+	public double getP99DispatchLatencyMicros()
+	{
+		return p99DispatchLatencyNanos / 1_000.0;
+	}
+
+	@Override
+	public long getGrowDecisions()
+	{
+		return growDecisions;
+	}
+
+	@Override
+	public long getShrinkDecisions()
+	{
+		return shrinkDecisions;
+	}
+
+	@Override
+	public String getLastDecision()
+	{
+		return lastDecision;
+	}
+
+	/**
+	 * Returns the JMX object name of the controller, optionally for the specified
+	 * histogram
+	 * 
+	 * @param histogramName optional name of the histogram
+	 * @return JMX object name
+	 * @throws JMException if the name is malformed
+	 */
+	private ObjectName objectName(Optional<String> histogramName) throws JMException
+	{
+		String nameString = String.format("%s:type=Executor,name=%s", SysMLMetrics.domain, ObjectName.quote(executor.name));
+		if (histogramName.isPresent())
+			nameString += ",histogram=" + ObjectName.quote(histogramName.get());
+		return new ObjectName(nameString);
+	}
+
+	/**
+	 * Registers the controller and the executor's dispatch latency histogram with
+	 * the platform MBean server
+	 */
+	private void register()
+	{
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		try
+		{
+			if (!server.isRegistered(objectName(Optional.empty())))
+				server.registerMBean(this, objectName(Optional.empty()));
+			if (!server.isRegistered(objectName(Optional.of("dispatchLatency"))))
+				server.registerMBean(executor.dispatchLatency, objectName(Optional.of("dispatchLatency")));
+		} catch (JMException e)
+		{
+			logger.warning("failed to register controller: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Unregisters the controller and the executor's dispatch latency histogram
+	 * from the platform MBean server
+	 */
+	private void unregister()
+	{
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		try
+		{
+			if (server.isRegistered(objectName(Optional.empty())))
+				server.unregisterMBean(objectName(Optional.empty()));
+			if (server.isRegistered(objectName(Optional.of("dispatchLatency"))))
+				server.unregisterMBean(objectName(Optional.of("dispatchLatency")));
+		} catch (JMException e)
+		{
+			logger.warning("failed to unregister controller: " + e.getMessage());
+		}
+	}
+}
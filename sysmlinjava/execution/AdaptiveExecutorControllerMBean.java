@@ -0,0 +1,94 @@
+package sysmlinjava.execution;
+
+/**
+ * JMX management interface for the {@code AdaptiveExecutorController}. The
+ * attributes expose the controller's bounds, the measurements of its last
+ * sample, and the counts and description of its sizing decisions. The bounds
+ * may be changed while the model executes.
+ *
+ * @author ModelerOne
+ *
+ * @see AdaptiveExecutorController
+ */
+public interface AdaptiveExecutorControllerMBean
+{
+	/**
+	 * Returns the current number of threads of the executor
+	 *
+	 * @return current number of threads
+	 */
+	int getThreads();
+
+	/**
+	 * Returns the minimum number of threads of the executor
+	 *
+	 * @return minimum number of threads
+	 */
+	int getMinThreads();
+
+	/**
+	 * Sets the minimum number of threads of the executor
+	 *
+	 * @param minThreads minimum number of threads
+	 */
+	void setMinThreads(int minThreads);
+
+	/**
+	 * Returns the maximum number of threads of the executor
+	 *
+	 * @return maximum number of threads
+	 */
+	int getMaxThreads();
+
+	/**
+	 * Sets the maximum number of threads of the executor
+	 *
+	 * @param maxThreads maximum number of threads
+	 */
+	void setMaxThreads(int maxThreads);
+
+	/**
+	 * Returns the ready queue length measured by the last sample
+	 *
+	 * @return ready queue length
+	 */
+	int getReadyQueueLength();
+
+	/**
+	 * Returns the utilization of the threads measured by the last sample, i.e.
+	 * the fraction of threads executing tasks
+	 *
+	 * @return utilization, 0.0 to 1.0
+	 */
+	double getUtilization();
+
+	/**
+	 * Returns the 99th percentile of the dispatch latency of the tasks started in
+	 * the last sample window
+	 *
+	 * @return 99th percentile dispatch latency in microseconds
+	 */
+	double getP99DispatchLatencyMicros();
+
+	/**
+	 * Returns the number of decisions to grow the number of threads
+	 *
+	 * @return number of grow decisions
+	 */
+	long getGrowDecisions();
+
+	/**
+	 * Returns the number of decisions to shrink the number of threads
+	 *
+	 * @return number of shrink decisions
+	 */
+	long getShrinkDecisions();
+
+	/**
+	 * Returns a description of the last decision to grow or shrink the number of
+	 * threads
+	 *
+	 * @return description of the last decision
+	 */
+	String getLastDecision();
+}
@@ -0,0 +1,160 @@
+package sysmlinjava.execution;
+
+import java.util.List;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.RunnableScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Logger;
+import sysmlinjava.analysis.metrics.LatencyHistogram;
+
+/**
+ * {@code ScheduledThreadPoolExecutor} that is shared by the blocks and states
+ * of SysMLinJava models and whose number of threads is adjusted by an
+ * {@code AdaptiveExecutorController}. The {@code AdaptiveScheduledExecutor}
+ * measures the pressure on its threads for use by the controller:
+ * <ul>
+ * <li>the ready queue length, i.e. the number of queued tasks whose scheduled
+ * time has passed but which have not yet been started by a thread</li>
+ * <li>the dispatch latency of every task, i.e. the time from the task's
+ * scheduled (or submitted) time to the time a thread starts it, recorded in a
+ * {@code LatencyHistogram} for the current sample window of the controller and
+ * a cumulative {@code LatencyHistogram}</li>
+ * </ul>
+ * <p>
+ * As the executor is shared, the {@code shutdown()} and {@code shutdownNow()}
+ * operations called by any one model are ignored with a warning. The executor is
+ * shut down only by the {@code SysMLExecutors.shutdownShared()} operation.
+ * 
+ * @author ModelerOne
+ *
+ * @see SysMLExecutors#sharedExecutor()
+ */
+public class AdaptiveScheduledExecutor extends ScheduledThreadPoolExecutor
+{
+	/**
+	 * Logger for the executor
+	 */
+	protected Logger logger;
+	/**
+	 * Name of the executor, used for its thread names and JMX object names
+	 */
+	public final String name;
+	/**
+	 * Cumulative histogram of the dispatch latencies of all tasks
+	 */
+	public final LatencyHistogram dispatchLatency;
+	/**
+	 * Histogram of the dispatch latencies of the tasks started in the current
+	 * sample window of the controller
+	 */
+	private final AtomicReference<LatencyHistogram> dispatchLatencyWindow;
+	/**
+	 * Whether shutdown of the executor is permitted, i.e. has been requested by
+	 * {@code SysMLExecutors.shutdownShared()}
+	 */
+	private volatile boolean shutdownPermitted;
+
+	/**
+	 * Constructor
+	 * 
+	 * @param corePoolSize initial number of threads
+	 * @param name         name of the executor
+	 */
+	public AdaptiveScheduledExecutor(int corePoolSize, String name)
+	{
+		super(corePoolSize, new NamedThreadFactory("SysMLinJava-" + name));
+		logger = Logger.getLogger(getClass().getSimpleName());
+		this.name = name;
+		dispatchLatency = new LatencyHistogram();
+		dispatchLatencyWindow = new AtomicReference<>(new LatencyHistogram());
+		shutdownPermitted = false;
+		setRemoveOnCancelPolicy(true);
+	}
+
+	/**
+	 * Records the dispatch latency of the specified task, i.e. the time by which
+	 * its start is later than its scheduled time
+	 */
+	@Override
+	protected void beforeExecute(Thread thread, Runnable runnable)
+	{
+		super.beforeExecute(thread, runnable);
+		if (runnable instanceof RunnableScheduledFuture)
+		{
+			long latenessNanos = -((RunnableScheduledFuture<?>)runnable).getDelay(TimeUnit.NANOSECONDS);
+			dispatchLatency.record(latenessNanos);
+			dispatchLatencyWindow.get().record(latenessNanos);
+		}
+	}
+
+	/**
+	 * Returns the number of queued tasks that are ready to be started, i.e. whose
+	 * scheduled time has passed
+	 * 
+	 * @return ready queue length
+	 */
+	public int readyQueueLength()
+	{
+		int result = 0;
+		for (Runnable runnable : getQueue())
+			if (runnable instanceof Delayed && ((Delayed)runnable).getDelay(TimeUnit.NANOSECONDS) <= 0)
+				result++;
+		return result;
+	}
+
+	/**
+	 * Returns the histogram of the dispatch latencies of the current sample window
+	 * and starts a new window
+	 * 
+	 * @return histogram of the ended window
+	 */
+	public LatencyHistogram takeDispatchLatencyWindow()
+	{
+		return dispatchLatencyWindow.getAndSet(new LatencyHistogram());
+	}
+
+	/**
+	 * Ignores the request to shut down the shared executor unless it was made by
+	 * {@code SysMLExecutors.shutdownShared()}
+	 */
+	@Override
+	public void shutdown()
+	{
+		if (shutdownPermitted)
+			super.shutdown();
+		else
+			logger.warning("shutdown() of shared executor ignored, use SysMLExecutors.shutdownShared()");
+	}
+
+	/**
+	 * Ignores the request to shut down the shared executor unless it was made by
+	 * {@code SysMLExecutors.shutdownShared()}
+	 * 
+	 * @return list of tasks that never commenced execution, or an empty list if the
+	 *         request is ignored
+	 */
+	@Override
+	public List<Runnable> shutdownNow()
+	{
+		List<Runnable> result;
+		if (shutdownPermitted)
+			result = super.shutdownNow();
+		else
+		{
+			logger.warning("shutdownNow() of shared executor ignored, use SysMLExecutors.shutdownShared()");
+			result = List.of();
+		}
+		return result;
+	}
+
+	/**
+	 * Shuts down the executor, i.e. permits and performs the shutdown
+	 */
+	void shutdownShared()
+	{
+		shutdownPermitted = true;
+		super.shutdown();
+	}
+}
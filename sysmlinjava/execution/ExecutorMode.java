@@ -0,0 +1,31 @@
+package sysmlinjava.execution;
+
+/**
+ * Modes of provision of executors to the blocks and states of SysMLinJava
+ * models by the {@code SysMLExecutors} factory
+ * 
+ * @author ModelerOne
+ *
+ */
+public enum ExecutorMode
+{
+	/**
+	 * Each block is provided its own executor of 10 threads, and each state with
+	 * a do-activity but no context block its own executor of 1 thread. This is the
+	 * default mode.
+	 */
+	perBlock,
+	/**
+	 * All blocks and states are provided the single shared
+	 * {@code AdaptiveScheduledExecutor}, whose number of threads is adjusted by the
+	 * {@code AdaptiveExecutorController} within configured bounds.
+	 */
+	adaptive,
+	/**
+	 * All blocks and states are provided the single shared
+	 * {@code VirtualTimeExecutor}, which performs their tasks in a single thread
+	 * in order of their scheduled virtual times, e.g. for the deterministic replay
+	 * of a model's journal.
+	 */
+	deterministic;
+}
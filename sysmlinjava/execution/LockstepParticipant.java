@@ -0,0 +1,73 @@
+package sysmlinjava.execution;
+
+/**
+ * Interface to a participant in the lockstep execution of a
+ * {@code LockstepScheduler}. A participant is stepped by each tick of the
+ * scheduler in phases, i.e. the scheduler calls {@code readInputs()} of all
+ * participants, then {@code compute()} of the participants that are due, in
+ * parallel, and then {@code commit()} of the participants that computed. The
+ * {@code compute()} operation must therefore operate only on the state of the
+ * participant itself, i.e. it must not read or write the state of other
+ * participants, whereas {@code readInputs()} and {@code commit()} are called
+ * from a single thread and may read and write other state, e.g. notify the
+ * observers of the participant's values.
+ *
+ * @author ModelerOne
+ *
+ * @see LockstepScheduler
+ */
+public interface LockstepParticipant
+{
+	/**
+	 * Returns the key by which the participant is ordered relative to other
+	 * participants in the sequential phases of a tick. Participants with unique
+	 * keys are therefore stepped in the same order regardless of the order in
+	 * which they were registered.
+	 *
+	 * @return ordering key of the participant
+	 */
+	String lockstepKey();
+
+	/**
+	 * Returns the model element that is stepped by the participant, e.g. its
+	 * constraint block, by which deliveries to the element are deferred to the
+	 * ticks of the scheduler with which the participant is registered
+	 *
+	 * @return element of the participant, the participant itself by default
+	 */
+	default Object lockstepElement()
+	{
+		return this;
+	}
+
+	/**
+	 * Reads the inputs of the participant that changed since the previous tick,
+	 * e.g. the values of its bound parameters. Called from the scheduler's thread.
+	 *
+	 * @param tick number of the current tick
+	 * @return true if any inputs changed, i.e. the participant is to compute in
+	 *         this tick even if its period is not due, false otherwise
+	 */
+	boolean readInputs(long tick);
+
+	/**
+	 * Computes the participant's new state. Called from one of the threads of the
+	 * scheduler's {@code ForkJoinPool}, in parallel with the computations of other
+	 * participants.
+	 *
+	 * @param tick      number of the current tick
+	 * @param periodDue whether the participant's period is due in this tick, i.e.
+	 *                  the equivalent of a periodic time event, as opposed to a
+	 *                  computation due to changed inputs only
+	 */
+	void compute(long tick, boolean periodDue);
+
+	/**
+	 * Commits the participant's new state, e.g. notifies the observers of its
+	 * values. Called from the scheduler's thread for each participant that
+	 * computed in this tick.
+	 *
+	 * @param tick number of the current tick
+	 */
+	void commit(long tick);
+}
@@ -0,0 +1,594 @@
+package sysmlinjava.execution;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Logger;
+import sysmlinjava.analysis.metrics.LatencyHistogram;
+import sysmlinjava.valuetypes.DurationMilliseconds;
+
+/**
+ * Bulk-synchronous (lockstep) scheduler of time-stepped model elements.
+ * <h2>Lockstep execution</h2> For time-stepped models, e.g. models of many
+ * constraint blocks with fixed periods or of kinematics updated every period,
+ * a timer and a thread per element is the wrong shape of execution. In lockstep
+ * execution, a global tick advances all the registered
+ * {@code LockstepParticipant}s together in phases:
+ * <ol>
+ * <li><b>Read inputs</b> - the port deliveries deferred in the previous tick
+ * are performed, and then each participant reads its changed inputs</li>
+ * <li><b>Compute</b> - the participants whose period is due in the tick, or
+ * whose inputs changed, compute their new states. The participants are
+ * partitioned across the threads of a {@code ForkJoinPool}.</li>
+ * <li><b>Commit</b> - each participant that computed commits its new state,
+ * e.g. notifies the observers of its values, which are thereby the changed
+ * inputs of other participants in the next tick</li>
+ * <li><b>Exchange</b> - the port deliveries deferred in this tick, i.e. the
+ * signals transmitted by the participants, are swapped into the deliveries to
+ * be performed in the next tick</li>
+ * </ol>
+ * The sequential phases visit the participants in the order of their
+ * {@code lockstepKey()}, and deliveries are deferred into a separate buffer per
+ * participant, i.e. the buffers are double-buffered between ticks, so the
+ * results of each tick are the same regardless of the number of threads of the
+ * {@code ForkJoinPool}.
+ * <h3>Activation</h3> Lockstep execution is used by the model elements only if
+ * a scheduler has been activated, by its {@code activate()} operation, prior to
+ * the start of the model. While a scheduler is active,
+ * <ul>
+ * <li>the {@code SysMLConstraintBlockStateMachine} registers its constraint
+ * block with the scheduler rather than starting its periodic timer, i.e. the
+ * block's time events are replaced by the period of the block in ticks, and
+ * its parameter changes are read in the read inputs phase rather than
+ * submitted as events to its state machine</li>
+ * <li>the {@code SysMLFullPort} defers the delivery of signals to connected
+ * peer ports to the next tick, by means of {@code deferDelivery()}, if the
+ * signals are transmitted by a participant while it is stepped or are
+ * received by the element of a participant</li>
+ * </ul>
+ * The deferral is thereby scoped to the participants registered with each
+ * scheduler, i.e. the deliveries of other models in the same JVM are performed
+ * immediately.
+ * The ticks are stepped either as fast as possible, i.e. in virtual time, by
+ * {@code run(ticks)} or {@code step()}, or in real time, i.e. one tick per tick
+ * period, by {@code start()} and {@code stop()}.
+ *
+ * @author ModelerOne
+ *
+ * @see LockstepParticipant
+ */
+public class LockstepScheduler
+{
+	/**
+	 * Logger for the scheduler
+	 */
+	protected Logger logger;
+	/**
+	 * Duration of (model time represented by) each tick
+	 */
+	public final DurationMilliseconds tickPeriod;
+	/**
+	 * Pool of threads for the compute phase
+	 */
+	public final ForkJoinPool computePool;
+	/**
+	 * Histogram of the durations of the ticks
+	 */
+	public final LatencyHistogram tickDuration;
+	/**
+	 * Registrations of the participants, ordered by their keys
+	 */
+	private final List<Registration> registrations;
+	/**
+	 * Registrations and unregistrations requested since the start of the previous
+	 * tick, applied at the start of the next tick
+	 */
+	private final ConcurrentLinkedQueue<Registration> pendingRegistrations;
+	/**
+	 * Deliveries deferred by threads other than those of participants, e.g. by
+	 * the threads of asynchronous state machines
+	 */
+	private final List<Runnable> externalDeliveries;
+	/**
+	 * Deliveries to be performed in the read inputs phase of the next tick
+	 */
+	private List<Runnable> nextDeliveries;
+	/**
+	 * Number of the next tick to be stepped
+	 */
+	private volatile long tick;
+	/**
+	 * Executor of the real-time stepping thread
+	 */
+	private Optional<ScheduledExecutorService> stepper;
+	/**
+	 * Future of the real-time stepping
+	 */
+	private Optional<ScheduledFuture<?>> stepperFuture;
+
+	/**
+	 * Constructor
+	 *
+	 * @param tickPeriod  duration of (model time represented by) each tick
+	 * @param parallelism number of threads of the compute phase
+	 */
+	public LockstepScheduler(DurationMilliseconds tickPeriod, int parallelism)
+	{
+		super();
+		logger = Logger.getLogger(getClass().getSimpleName());
+		this.tickPeriod = tickPeriod;
+		this.computePool = new ForkJoinPool(Math.max(1, parallelism));
+		this.tickDuration = new LatencyHistogram();
+		this.registrations = new ArrayList<>();
+		this.pendingRegistrations = new ConcurrentLinkedQueue<>();
+		this.externalDeliveries = new ArrayList<>();
+		this.nextDeliveries = new ArrayList<>();
+		this.stepper = Optional.empty();
+		this.stepperFuture = Optional.empty();
+	}
+
+	/**
+	 * Constructor for a compute phase with as many threads as processors
+	 *
+	 * @param tickPeriod duration of (model time represented by) each tick
+	 */
+	public LockstepScheduler(DurationMilliseconds tickPeriod)
+	{
+		this(tickPeriod, Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Activates this scheduler, i.e. makes it the scheduler with which model
+	 * elements register for lockstep execution. Must be called prior to the start
+	 * of the model.
+	 */
+	public void activate()
+	{
+		active = Optional.of(this);
+	}
+
+	/**
+	 * Deactivates this scheduler, if active, i.e. subsequently started model
+	 * elements execute with their own timers and threads
+	 */
+	public void deactivate()
+	{
+		if (active.isPresent() && active.get() == this)
+			active = Optional.empty();
+	}
+
+	/**
+	 * Returns the active scheduler, if any
+	 *
+	 * @return optional active scheduler
+	 */
+	public static Optional<LockstepScheduler> active()
+	{
+		return active;
+	}
+
+	/**
+	 * Registers the specified participant to be stepped by the ticks of this
+	 * scheduler, starting with the next tick
+	 *
+	 * @param participant participant to be registered
+	 * @param periodTicks number of ticks between periodic computations of the
+	 *                    participant, or 0 if the participant is to compute only
+	 *                    when its inputs change
+	 * @param offsetTicks number of ticks until the first periodic computation
+	 */
+	public void register(LockstepParticipant participant, long periodTicks, long offsetTicks)
+	{
+		schedulersByElement.put(participant.lockstepElement(), this);
+		pendingRegistrations.add(new Registration(participant, periodTicks, offsetTicks, tick, false));
+	}
+
+	/**
+	 * Unregisters the specified participant, i.e. it is no longer stepped
+	 * starting with the next tick
+	 *
+	 * @param participant participant to be unregistered
+	 */
+	public void unregister(LockstepParticipant participant)
+	{
+		schedulersByElement.remove(participant.lockstepElement(), this);
+		pendingRegistrations.add(new Registration(participant, 0, 0, tick, true));
+	}
+
+	/**
+	 * Returns the number of ticks for the specified duration, rounded to the
+	 * nearest tick
+	 *
+	 * @param duration duration to be converted to ticks
+	 * @return number of ticks
+	 */
+	public long ticksFor(DurationMilliseconds duration)
+	{
+		return tickPeriod.value > 0 ? Math.round((double)duration.value / tickPeriod.value) : 0;
+	}
+
+	/**
+	 * Returns the number of the next tick to be stepped, i.e. the number of ticks
+	 * stepped so far
+	 *
+	 * @return number of the next tick
+	 */
+	public long tick()
+	{
+		return tick;
+	}
+
+	/**
+	 * Returns the model time of the next tick to be stepped
+	 *
+	 * @return model time, milliseconds since the first tick
+	 */
+	public long timeMillis()
+	{
+		return tick * tickPeriod.value;
+	}
+
+	/**
+	 * Returns the scheduler with which a participant for the specified element is
+	 * registered, if any
+	 *
+	 * @param element element of the participant, e.g. a constraint block
+	 * @return optional scheduler of the element
+	 */
+	public static Optional<LockstepScheduler> schedulerOf(Object element)
+	{
+		return element != null ? Optional.ofNullable(schedulersByElement.get(element)) : Optional.empty();
+	}
+
+	/**
+	 * Defers the specified delivery, e.g. of a signal to a port, to the read inputs
+	 * phase of the next tick of a scheduler, if the delivery is made by a
+	 * participant while it is computed or committed by the scheduler, or if the
+	 * receiver is the element of a participant registered with the scheduler.
+	 * Deliveries by and to the elements of models that are not stepped by a
+	 * scheduler are not deferred.
+	 *
+	 * @param receiver element that receives the delivery, e.g. the context block
+	 *                 of the receiving port, or null if none
+	 * @param delivery delivery to be deferred
+	 * @return true if the delivery was deferred, false if it is not to be
+	 *         deferred, i.e. the delivery is to be performed immediately by the
+	 *         caller
+	 */
+	public static boolean deferDelivery(Object receiver, Runnable delivery)
+	{
+		boolean result = false;
+		Registration current = currentRegistration.get();
+		if (current != null)
+		{
+			current.outbox.add(delivery);
+			result = true;
+		}
+		else
+		{
+			Optional<LockstepScheduler> scheduler = schedulerOf(receiver);
+			if (scheduler.isPresent())
+			{
+				synchronized (scheduler.get().externalDeliveries)
+				{
+					scheduler.get().externalDeliveries.add(delivery);
+				}
+				result = true;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Steps the specified number of ticks as fast as possible, i.e. in virtual
+	 * time
+	 *
+	 * @param ticks number of ticks to be stepped
+	 */
+	public void run(long ticks)
+	{
+		for (long i = 0; i < ticks; i++)
+			step();
+	}
+
+	/**
+	 * Starts stepping a tick every tick period, i.e. in real time, in a daemon
+	 * thread
+	 */
+	public synchronized void start()
+	{
+		if (stepperFuture.isEmpty())
+		{
+			ScheduledExecutorService stepperService = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("SysMLinJava-lockstep", true));
+			stepperFuture = Optional.of(stepperService.scheduleAtFixedRate(() ->
+			{
+				try
+				{
+					step();
+				} catch (RuntimeException e)
+				{
+					e.printStackTrace();
+				}
+			}, 0, Math.max(1, tickPeriod.value), TimeUnit.MILLISECONDS));
+			stepper = Optional.of(stepperService);
+		}
+	}
+
+	/**
+	 * Stops the stepping of ticks in real time
+	 */
+	public synchronized void stop()
+	{
+		if (stepperFuture.isPresent())
+		{
+			stepperFuture.get().cancel(false);
+			stepper.get().shutdown();
+			stepperFuture = Optional.empty();
+			stepper = Optional.empty();
+		}
+	}
+
+	/**
+	 * Steps a single tick, i.e. performs the read inputs, compute, commit, and
+	 * exchange phases of the tick
+	 */
+	public void step()
+	{
+		synchronized (registrations)
+		{
+			long startNanos = System.nanoTime();
+			long currentTick = tick;
+			applyPendingRegistrations();
+
+			// Read inputs
+			List<Runnable> deliveries = nextDeliveries;
+			nextDeliveries = new ArrayList<>();
+			deliveries.forEach(delivery -> delivery.run());
+			List<Registration> computing = new ArrayList<>();
+			for (Registration registration : registrations)
+			{
+				boolean inputsChanged = registration.participant.readInputs(currentTick);
+				registration.periodDue = registration.isPeriodDue(currentTick);
+				if (inputsChanged || registration.periodDue)
+					computing.add(registration);
+			}
+
+			// Compute
+			if (!computing.isEmpty())
+				computePool.invoke(new ComputeTask(computing, 0, computing.size(), Math.max(1, computing.size() / (computePool.getParallelism() * 4)), currentTick));
+
+			// Commit
+			for (Registration registration : computing)
+			{
+				currentRegistration.set(registration);
+				try
+				{
+					registration.participant.commit(currentTick);
+				} finally
+				{
+					currentRegistration.remove();
+				}
+			}
+
+			// Exchange
+			for (Registration registration : registrations)
+			{
+				nextDeliveries.addAll(registration.outbox);
+				registration.outbox.clear();
+			}
+			synchronized (externalDeliveries)
+			{
+				nextDeliveries.addAll(externalDeliveries);
+				externalDeliveries.clear();
+			}
+
+			tick = currentTick + 1;
+			tickDuration.recordSince(startNanos);
+		}
+	}
+
+	/**
+	 * Applies the registrations and unregistrations requested since the previous
+	 * tick and orders the registrations by the keys of their participants
+	 */
+	private void applyPendingRegistrations()
+	{
+		if (!pendingRegistrations.isEmpty())
+		{
+			Registration pending;
+			while ((pending = pendingRegistrations.poll()) != null)
+			{
+				LockstepParticipant participant = pending.participant;
+				Optional<Registration> existing = registrations.stream().filter(registration -> registration.participant == participant).findFirst();
+				if (existing.isPresent())
+				{
+					nextDeliveries.addAll(existing.get().outbox);
+					registrations.remove(existing.get());
+				}
+				if (!pending.isUnregistration)
+					registrations.add(pending);
+			}
+			registrations.sort(Comparator.comparing(registration -> registration.participant.lockstepKey()));
+		}
+	}
+
+	/**
+	 * Shuts down the threads of the scheduler, i.e. stops the real-time stepping,
+	 * if started, and shuts down the compute pool. The scheduler is also
+	 * deactivated.
+	 */
+	public void shutdown()
+	{
+		stop();
+		deactivate();
+		computePool.shutdown();
+	}
+
+	@Override
+	public String toString()
+	{
+		return String.format("LockstepScheduler [tickPeriod=%d, tick=%d, participants=%d, parallelism=%d]", tickPeriod.value, tick, registrations.size(), computePool.getParallelism());
+	}
+
+	/**
+	 * Registration of a participant with the scheduler
+	 */
+	private static final class Registration
+	{
+		/**
+		 * The registered participant
+		 */
+		final LockstepParticipant participant;
+		/**
+		 * Number of ticks between periodic computations, or 0 if none
+		 */
+		final long periodTicks;
+		/**
+		 * Tick of the first periodic computation
+		 */
+		final long firstTick;
+		/**
+		 * Whether this is a request to unregister the participant
+		 */
+		final boolean isUnregistration;
+		/**
+		 * Deliveries deferred by the participant in the current tick
+		 */
+		final List<Runnable> outbox;
+		/**
+		 * Whether the participant's period is due in the current tick
+		 */
+		boolean periodDue;
+
+		/**
+		 * Constructor
+		 *
+		 * @param participant      the registered participant
+		 * @param periodTicks      number of ticks between periodic computations, or 0
+		 * @param offsetTicks      number of ticks from the registration until the
+		 *                         first periodic computation
+		 * @param registrationTick tick at which the registration was requested
+		 * @param isUnregistration whether this is a request to unregister
+		 */
+		Registration(LockstepParticipant participant, long periodTicks, long offsetTicks, long registrationTick, boolean isUnregistration)
+		{
+			this.participant = participant;
+			this.periodTicks = Math.max(0, periodTicks);
+			this.firstTick = registrationTick + Math.max(0, offsetTicks);
+			this.isUnregistration = isUnregistration;
+			this.outbox = new ArrayList<>();
+		}
+
+		/**
+		 * Returns whether the participant's period is due in the specified tick
+		 *
+		 * @param tick number of the tick
+		 * @return true if the period is due, false otherwise
+		 */
+		boolean isPeriodDue(long tick)
+		{
+			return periodTicks > 0 && tick >= firstTick && (tick - firstTick) % periodTicks == 0;
+		}
+	}
+
+	/**
+	 * Task of the compute phase, i.e. computes a range of the computing
+	 * participants, splitting the range across the threads of the
+	 * {@code ForkJoinPool} down to the threshold size
+	 */
+	private static final class ComputeTask extends RecursiveAction
+	{
+		/** Serializable ID */
+		private static final long serialVersionUID = 1L;
+		/**
+		 * Registrations of the computing participants
+		 */
+		private final List<Registration> computing;
+		/**
+		 * Index of the first registration of the range
+		 */
+		private final int from;
+		/**
+		 * Index after the last registration of the range
+		 */
+		private final int to;
+		/**
+		 * Size of range below which it is computed rather than split
+		 */
+		private final int threshold;
+		/**
+		 * Number of the current tick
+		 */
+		private final long tick;
+
+		/**
+		 * Constructor
+		 *
+		 * @param computing registrations of the computing participants
+		 * @param from      index of the first registration of the range
+		 * @param to        index after the last registration of the range
+		 * @param threshold size of range below which it is computed rather than split
+		 * @param tick      number of the current tick
+		 */
+		ComputeTask(List<Registration> computing, int from, int to, int threshold, long tick)
+		{
+			this.computing = computing;
+			this.from = from;
+			this.to = to;
+			this.threshold = threshold;
+			this.tick = tick;
+		}
+
+		@Override
+		protected void compute()
+		{
+			if (to - from <= threshold)
+				for (int i = from; i < to; i++)
+				{
+					Registration registration = computing.get(i);
+					currentRegistration.set(registration);
+					try
+					{
+						registration.participant.compute(tick, registration.periodDue);
+					} catch (RuntimeException e)
+					{
+						e.printStackTrace();
+					} finally
+					{
+						currentRegistration.remove();
+					}
+				}
+			else
+			{
+				int middle = (from + to) >>> 1;
+				invokeAll(new ComputeTask(computing, from, middle, threshold, tick), new ComputeTask(computing, middle, to, threshold, tick));
+			}
+		}
+	}
+
+	/**
+	 * The active scheduler, if any
+	 */
+	private static volatile Optional<LockstepScheduler> active = Optional.empty();
+	/**
+	 * Schedulers with which the participants are registered, by the elements of
+	 * the participants
+	 */
+	private static final ConcurrentMap<Object, LockstepScheduler> schedulersByElement = new ConcurrentHashMap<>();
+	/**
+	 * Registration of the participant being computed or committed by the current
+	 * thread, if any, i.e. the registration into whose outbox deliveries are
+	 * deferred
+	 */
+	private static final ThreadLocal<Registration> currentRegistration = new ThreadLocal<>();
+}
@@ -0,0 +1,93 @@
+package sysmlinjava.execution;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@code ThreadFactory} that names its threads with a prefix and a sequence
+ * number, so the threads of the SysMLinJava executors are identifiable in
+ * thread dumps and profilers
+ * 
+ * @author ModelerOne
+ *
+ */
+public class NamedThreadFactory implements ThreadFactory
+{
+	/**
+	 * Prefix of the names of the threads
+	 */
+	public final String prefix;
+	/**
+	 * Whether the threads are daemon threads
+	 */
+	public final boolean daemon;
+	/**
+	 * Sequence number of the next thread
+	 */
+	private final AtomicInteger nextNumber;
+
+	/**
+	 * Constructor for non-daemon threads
+	 * 
+	 * @param prefix prefix of the names of the threads
+	 */
+	public NamedThreadFactory(String prefix)
+	{
+		this(prefix, false);
+	}
+
+	/**
+	 * Constructor
+	 * 
+	 * @param prefix prefix of the names of the threads
+	 * @param daemon whether the threads are to be daemon threads
+	 */
+	public NamedThreadFactory(String prefix, boolean daemon)
+	{
+		super();
+		this.prefix = prefix;
+		this.daemon = daemon;
+		this.nextNumber = new AtomicInteger();
+	}
+
+	@Override
+	public Thread newThread(Runnable runnable)
+	{
+		Thread result = new ExecutorThread(runnable, prefix + "-" + nextNumber.incrementAndGet());
+		result.setDaemon(daemon);
+		return result;
+	}
+
+	/**
+	 * Returns whether the specified thread was created by a
+	 * {@code NamedThreadFactory}, i.e. is a thread of the SysMLinJava executors
+	 * 
+	 * @param thread the thread
+	 * @return true if the thread is a SysMLinJava executor thread
+	 */
+	public static boolean isExecutorThread(Thread thread)
+	{
+		return thread instanceof ExecutorThread;
+	}
+
+	/**
+	 * Thread created by a {@code NamedThreadFactory}, distinguished by its class
+	 * from the threads of the application
+	 * 
+	 * @author ModelerOne
+	 *
+	 */
+	private static final class ExecutorThread extends Thread
+	{
+		/**
+		 * Constructor
+		 * 
+		 * @param runnable runnable performed by the thread
+		 * @param name     name of the thread
+		 */
+		private ExecutorThread(Runnable runnable, String name)
+		{
+			super(runnable, name);
+		}
+	}
+}
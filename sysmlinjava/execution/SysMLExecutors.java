@@ -0,0 +1,316 @@
+package sysmlinjava.execution;
+
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+/**
+ * Factory of the executors that provide the threads of execution to the blocks
+ * and states of SysMLinJava models. The {@code SysMLBlock} obtains its
+ * {@code concurrentExecutionThreads} and the {@code SysMLState} its
+ * {@code doActivityExecutor} from this factory, so the execution of all models
+ * in the JVM is provisioned in one place.
+ * <p>
+ * The mode of provision is set by the system property
+ * {@code sysmlinjava.executor}, whose unrecognized values are logged and
+ * ignored, or by assignment of the {@code mode} field prior to construction of
+ * the model:
+ * <ul>
+ * <li>{@code perBlock} (default) - each block and each state without a context
+ * block is provided its own fixed-size executor, as in prior versions of
+ * SysMLinJava</li>
+ * <li>{@code adaptive} - all blocks and states share a single
+ * {@code AdaptiveScheduledExecutor} whose number of threads is grown and shrunk
+ * by an {@code AdaptiveExecutorController} in accordance with the measured
+ * length of its ready queue, the utilization of its threads, and the latency of
+ * dispatch of ready tasks. The bounds of the number of threads are set by the
+ * system properties {@code sysmlinjava.executor.minThreads} and
+ * {@code sysmlinjava.executor.maxThreads}.</li>
+ * <li>{@code deterministic} - all blocks and states share a single
+ * {@code VirtualTimeExecutor} that performs their tasks in the thread that
+ * drives it, in order of their scheduled virtual times, so that executions of
+ * the model are repeatable and run as fast as the tasks can be performed</li>
+ * </ul>
+ * Regardless of the mode, a model created within the
+ * {@code createWithExecutor()} operation is provided the specified executor,
+ * e.g. its own {@code VirtualTimeExecutor}, so that several models can execute
+ * concurrently in the JVM, each in its own virtual time.
+ * <p>
+ * The threads of the executors are created by {@code NamedThreadFactory}s, so
+ * that the {@code isModelThread()} operation can distinguish the threads of the
+ * models from the threads of the application that operates upon them.
+ * 
+ * @author ModelerOne
+ *
+ * @see AdaptiveExecutorController
+ * @see VirtualTimeExecutor
+ */
+public final class SysMLExecutors
+{
+	/**
+	 * Mode of provision of executors
+	 */
+	public static volatile ExecutorMode mode = modeOf(System.getProperty("sysmlinjava.executor", ExecutorMode.perBlock.name()));
+
+	/**
+	 * Number of threads of the executor provided to each block in
+	 * {@code perBlock} mode
+	 */
+	public static final int threadsPerBlock = 10;
+	/**
+	 * Number of threads of the executor provided to each state without a context
+	 * block in {@code perBlock} mode
+	 */
+	public static final int threadsPerState = 1;
+
+	/**
+	 * Shared executor used in {@code adaptive} mode, created upon first use
+	 */
+	private static Optional<AdaptiveScheduledExecutor> sharedExecutor = Optional.empty();
+	/**
+	 * Controller of the shared executor, created with the shared executor
+	 */
+	private static Optional<AdaptiveExecutorController> sharedController = Optional.empty();
+	/**
+	 * Shared executor used in {@code deterministic} mode, created upon first use
+	 */
+	private static Optional<VirtualTimeExecutor> virtualTimeExecutor = Optional.empty();
+
+	/**
+	 * Private constructor, as all operations are static
+	 */
+	private SysMLExecutors()
+	{
+		super();
+	}
+
+	/**
+	 * Returns the executor mode of the specified name, i.e. of the value of the
+	 * {@code sysmlinjava.executor} system property, or {@code perBlock} if the
+	 * name is not that of a mode, in which case a warning is logged rather than
+	 * failing the initialization of the {@code SysMLExecutors}
+	 * 
+	 * @param name name of the executor mode
+	 * @return executor mode of the name, or {@code perBlock} if not recognized
+	 */
+	private static ExecutorMode modeOf(String name)
+	{
+		ExecutorMode result = ExecutorMode.perBlock;
+		try
+		{
+			result = ExecutorMode.valueOf(name.trim());
+		} catch (IllegalArgumentException e)
+		{
+			Logger.getLogger(SysMLExecutors.class.getSimpleName()).warning("unrecognized sysmlinjava.executor mode \"" + name + "\", using " + result);
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the executor to be used by a block for its state machine, timers,
+	 * do-activities, and other threads of execution
+	 * 
+	 * @return executor for a block
+	 */
+	public static ScheduledThreadPoolExecutor newBlockExecutor()
+	{
+		ScheduledThreadPoolExecutor result;
+		if (scopedExecutor.get().isPresent())
+			result = scopedExecutor.get().get();
+		else if (mode == ExecutorMode.adaptive)
+			result = sharedExecutor();
+		else if (mode == ExecutorMode.deterministic)
+			result = virtualTimeExecutor();
+		else
+			result = new ScheduledThreadPoolExecutor(threadsPerBlock, blockThreadFactory);
+		return result;
+	}
+
+	/**
+	 * Returns the executor to be used by a state without a context block for its
+	 * do-activity
+	 * 
+	 * @return executor for a state
+	 */
+	public static ScheduledThreadPoolExecutor newStateExecutor()
+	{
+		ScheduledThreadPoolExecutor result;
+		if (scopedExecutor.get().isPresent())
+			result = scopedExecutor.get().get();
+		else if (mode == ExecutorMode.adaptive)
+			result = sharedExecutor();
+		else if (mode == ExecutorMode.deterministic)
+			result = virtualTimeExecutor();
+		else
+			result = new ScheduledThreadPoolExecutor(threadsPerState, stateThreadFactory);
+		return result;
+	}
+
+	/**
+	 * Returns the shared adaptive executor, creating it and starting its
+	 * controller upon first call
+	 * 
+	 * @return the shared executor
+	 */
+	public static synchronized AdaptiveScheduledExecutor sharedExecutor()
+	{
+		if (sharedExecutor.isEmpty())
+		{
+			int minThreads = Integer.getInteger("sysmlinjava.executor.minThreads", Runtime.getRuntime().availableProcessors());
+			int maxThreads = Integer.getInteger("sysmlinjava.executor.maxThreads", Math.max(minThreads, 64 * Runtime.getRuntime().availableProcessors()));
+			AdaptiveScheduledExecutor executor = new AdaptiveScheduledExecutor(minThreads, "shared");
+			AdaptiveExecutorController controller = new AdaptiveExecutorController(executor, minThreads, maxThreads, 100);
+			controller.start();
+			sharedExecutor = Optional.of(executor);
+			sharedController = Optional.of(controller);
+		}
+		return sharedExecutor.get();
+	}
+
+	/**
+	 * Returns the shared virtual time executor, creating it upon first call
+	 * 
+	 * @return the virtual time executor
+	 */
+	public static synchronized VirtualTimeExecutor virtualTimeExecutor()
+	{
+		if (virtualTimeExecutor.isEmpty())
+			virtualTimeExecutor = Optional.of(new VirtualTimeExecutor());
+		return virtualTimeExecutor.get();
+	}
+
+	/**
+	 * Creates a model, or any part of a model, by the specified factory in the
+	 * calling thread, providing the specified executor to all the blocks and
+	 * states created by the factory regardless of the mode, e.g. so that each of
+	 * several models executes in its own {@code VirtualTimeExecutor}, driven by
+	 * its own thread
+	 *
+	 * @param <T>      type of the model
+	 * @param executor the executor to be provided to the blocks and states of the
+	 *                 model
+	 * @param factory  factory of the model
+	 * @return the model created by the factory
+	 */
+	public static <T> T createWithExecutor(ScheduledThreadPoolExecutor executor, Supplier<T> factory)
+	{
+		Optional<ScheduledThreadPoolExecutor> previous = scopedExecutor.get();
+		scopedExecutor.set(Optional.of(executor));
+		try
+		{
+			return factory.get();
+		} finally
+		{
+			scopedExecutor.set(previous);
+		}
+	}
+
+	/**
+	 * Submits the specified task, which may block, e.g. on I/O, to the specified
+	 * executor or, if the executor is a {@code VirtualTimeExecutor}, whose single
+	 * thread must not block, to a thread of its own. A task that is performed in
+	 * a thread of its own is to submit its effects upon the model as tasks of the
+	 * virtual time executor, so that they are performed in virtual time.
+	 *
+	 * @param executor the executor of the block that submits the task
+	 * @param task     the task
+	 * @return future of the task
+	 */
+	public static Future<?> submitBlocking(ScheduledThreadPoolExecutor executor, Runnable task)
+	{
+		Future<?> result;
+		if (executor instanceof VirtualTimeExecutor)
+			result = blockingExecutor.submit(task);
+		else
+			result = executor.submit(task);
+		return result;
+	}
+
+	/**
+	 * Returns whether the specified executor was created by
+	 * {@code newStateExecutor()} for a state without a context block, as opposed
+	 * to an executor of a block
+	 * 
+	 * @param executor the executor
+	 * @return true if the executor is an executor of a state
+	 */
+	public static boolean isStateExecutor(ScheduledThreadPoolExecutor executor)
+	{
+		return executor.getThreadFactory() == stateThreadFactory;
+	}
+
+	/**
+	 * Returns whether the calling thread is a thread of the SysMLinJava models,
+	 * i.e. a thread of their executors or the thread that is performing the tasks
+	 * of the virtual time executor, rather than a thread of the application
+	 * 
+	 * @return true if called by a thread of the models
+	 */
+	public static boolean isModelThread()
+	{
+		Optional<VirtualTimeExecutor> executor;
+		synchronized (SysMLExecutors.class)
+		{
+			executor = virtualTimeExecutor;
+		}
+		return NamedThreadFactory.isExecutorThread(Thread.currentThread()) || executor.isPresent() && executor.get().isRunner();
+	}
+
+	/**
+	 * Returns the controller of the shared adaptive executor, if it has been
+	 * created
+	 * 
+	 * @return optional controller of the shared executor
+	 */
+	public static synchronized Optional<AdaptiveExecutorController> sharedController()
+	{
+		return sharedController;
+	}
+
+	/**
+	 * Stops the controller of the shared adaptive executor and shuts the executor
+	 * down, e.g. at completion of all model executions in the JVM, discards the
+	 * tasks of the virtual time executor, and cancels the ticks of the
+	 * {@code TickScheduler}s of the executors. The next call to
+	 * {@code sharedExecutor()} or {@code virtualTimeExecutor()} creates a new
+	 * shared executor.
+	 */
+	public static void shutdownShared()
+	{
+		TickScheduler.shutdownAll();
+		synchronized (SysMLExecutors.class)
+		{
+			sharedController.ifPresent(controller -> controller.stop());
+			sharedExecutor.ifPresent(executor -> executor.shutdownShared());
+			sharedController = Optional.empty();
+			sharedExecutor = Optional.empty();
+			virtualTimeExecutor.ifPresent(executor -> executor.reset());
+			virtualTimeExecutor = Optional.empty();
+		}
+	}
+
+	/**
+	 * Factory of the threads of the executors provided to blocks in
+	 * {@code perBlock} mode
+	 */
+	private static final NamedThreadFactory blockThreadFactory = new NamedThreadFactory("SysMLinJava-block");
+	/**
+	 * Factory of the threads of the executors provided to states in
+	 * {@code perBlock} mode
+	 */
+	private static final NamedThreadFactory stateThreadFactory = new NamedThreadFactory("SysMLinJava-state");
+	/**
+	 * Executor of the blocking tasks submitted for virtual time executors, whose
+	 * threads are created as needed
+	 */
+	private static final ExecutorService blockingExecutor = Executors.newCachedThreadPool(new NamedThreadFactory("SysMLinJava-blocking", true));
+	/**
+	 * Executor provided to the blocks and states created by the calling thread
+	 * within {@code createWithExecutor()}, if any
+	 */
+	private static final ThreadLocal<Optional<ScheduledThreadPoolExecutor>> scopedExecutor = ThreadLocal.withInitial(Optional::empty);
+}
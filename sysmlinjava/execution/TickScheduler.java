@@ -0,0 +1,331 @@
+package sysmlinjava.execution;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+import sysmlinjava.valuetypes.DurationMilliseconds;
+
+/**
+ * Scheduler of the periodic tasks of model elements that have no state
+ * machine, e.g. of constraint blocks evaluated directly.
+ * <h2>Shared ticks</h2> A periodic state machine timer costs each element a
+ * scheduled task, a time event, a queue hop, and a context switch per period.
+ * The {@code TickScheduler} instead groups the registered tasks by their period
+ * and phase, i.e. the time of their first performance modulo the period, and
+ * schedules one periodic tick per group, which performs the tasks of the group
+ * in order of their registration in the thread of the tick. Many elements of
+ * the same period and phase therefore share one scheduled task and one thread
+ * hop per period. Each task is performed first at its own initial delay from
+ * its registration and then every period thereafter, regardless of the other
+ * tasks of its group. A task that fails is logged and does not prevent the
+ * other tasks of its group, or its own next tick, from being performed.
+ * <p>
+ * The ticks are scheduled by the executor of the scheduler, so that the tasks
+ * execute in the same time, i.e. wall clock or virtual time, and threads as the
+ * elements that register them. The {@code schedule()} operation registers a
+ * task with the scheduler of the specified executor, e.g. of the element's
+ * block, creating the scheduler upon the first registration for the executor,
+ * so that the elements whose blocks share an executor, e.g. in the
+ * {@code adaptive} or {@code deterministic} modes of the
+ * {@code SysMLExecutors} or in the scope of
+ * {@code SysMLExecutors.createWithExecutor()}, share its ticks.
+ *
+ * @author ModelerOne
+ *
+ * @see SysMLExecutors
+ */
+public class TickScheduler
+{
+	/**
+	 * Logger for the scheduler
+	 */
+	protected Logger logger;
+	/**
+	 * Executor by which the ticks are scheduled
+	 */
+	public final ScheduledThreadPoolExecutor executor;
+	/**
+	 * Groups of the registered tasks by their period and phase
+	 */
+	private final Map<String, Group> groups;
+
+	/**
+	 * Constructor
+	 *
+	 * @param executor executor by which the ticks are to be scheduled
+	 */
+	public TickScheduler(ScheduledThreadPoolExecutor executor)
+	{
+		super();
+		logger = Logger.getLogger(getClass().getSimpleName());
+		this.executor = executor;
+		this.groups = new HashMap<>();
+	}
+
+	/**
+	 * Registers the specified task to be performed after the specified initial
+	 * delay and then periodically by the tick of the task's period and phase,
+	 * scheduling the tick if it is the first task of the tick
+	 *
+	 * @param initialDelay time until the first performance of the task
+	 * @param period       time between performances of the task, must be
+	 *                     positive
+	 * @param task         the task
+	 * @return the registration of the task, by which it is unregistered
+	 * @throws IllegalArgumentException if the period is not positive
+	 */
+	public synchronized Registration register(DurationMilliseconds initialDelay, DurationMilliseconds period, Runnable task)
+	{
+		if (period.value <= 0L)
+			throw new IllegalArgumentException("tick period must be positive: " + period.value);
+		long nowMillis = nowMillis();
+		long firstMillis = nowMillis + Math.max(0L, initialDelay.value);
+		String key = period.value + "@" + Math.floorMod(firstMillis, period.value);
+		Group group = groups.get(key);
+		if (group == null)
+		{
+			group = new Group(key, period.value);
+			groups.put(key, group);
+			group.scheduleFrom(firstMillis, nowMillis);
+		}
+		else if (!group.hasTicked && group.nextTickMillis > firstMillis)
+		{
+			group.tick.ifPresent(tick -> tick.cancel(false));
+			group.scheduleFrom(firstMillis, nowMillis);
+		}
+		Registration result = new Registration(group, task, firstMillis);
+		group.registrations.add(result);
+		return result;
+	}
+
+	/**
+	 * Unregisters the task of the specified registration, cancelling its tick if
+	 * it was the last task of the tick
+	 *
+	 * @param registration the registration
+	 */
+	public synchronized void unregister(Registration registration)
+	{
+		Group group = registration.group;
+		if (group.registrations.remove(registration) && group.registrations.isEmpty())
+		{
+			group.tick.ifPresent(tick -> tick.cancel(false));
+			groups.remove(group.key);
+		}
+	}
+
+	/**
+	 * Returns the number of ticks scheduled, i.e. of distinct periods and phases
+	 * of the registered tasks
+	 *
+	 * @return number of ticks
+	 */
+	public synchronized int tickCount()
+	{
+		return groups.size();
+	}
+
+	/**
+	 * Returns the current time of the executor, i.e. its virtual time if it is a
+	 * {@code VirtualTimeExecutor}
+	 *
+	 * @return current time, milliseconds
+	 */
+	private long nowMillis()
+	{
+		long nanos = executor instanceof VirtualTimeExecutor ? ((VirtualTimeExecutor)executor).nanoTime() : System.nanoTime();
+		return TimeUnit.NANOSECONDS.toMillis(nanos);
+	}
+
+	/**
+	 * Registers the specified task with the tick scheduler of the specified
+	 * executor, creating the scheduler if the executor has none
+	 *
+	 * @param executor     executor by which the task is to be performed, e.g. the
+	 *                     executor of the block of the registering element
+	 * @param initialDelay time until the first performance of the task
+	 * @param period       time between performances of the task, must be
+	 *                     positive
+	 * @param task         the task
+	 * @return the registration of the task, by which it is cancelled
+	 * @throws IllegalArgumentException if the period is not positive
+	 */
+	public static synchronized Registration schedule(ScheduledThreadPoolExecutor executor, DurationMilliseconds initialDelay, DurationMilliseconds period, Runnable task)
+	{
+		TickScheduler scheduler = schedulersByExecutor.computeIfAbsent(executor, TickScheduler::new);
+		return scheduler.register(initialDelay, period, task);
+	}
+
+	/**
+	 * Cancels the task of the specified registration by the {@code schedule()}
+	 * operation, discarding the tick scheduler of its executor if it was the
+	 * scheduler's last task
+	 *
+	 * @param registration the registration
+	 */
+	public static synchronized void cancel(Registration registration)
+	{
+		TickScheduler scheduler = registration.group.scheduler();
+		scheduler.unregister(registration);
+		if (scheduler.tickCount() == 0)
+			schedulersByExecutor.remove(scheduler.executor, scheduler);
+	}
+
+	/**
+	 * Cancels the ticks of the tick schedulers of all executors and discards the
+	 * schedulers, e.g. at completion of all model executions in the JVM
+	 */
+	public static synchronized void shutdownAll()
+	{
+		schedulersByExecutor.values().forEach(scheduler ->
+		{
+			synchronized (scheduler)
+			{
+				scheduler.groups.values().forEach(group -> group.tick.ifPresent(tick -> tick.cancel(false)));
+				scheduler.groups.clear();
+			}
+		});
+		schedulersByExecutor.clear();
+	}
+
+	/**
+	 * Registration of a task with a tick of the scheduler
+	 *
+	 * @author ModelerOne
+	 *
+	 */
+	public static final class Registration
+	{
+		/**
+		 * Group of the tick with which the task is registered
+		 */
+		private final Group group;
+		/**
+		 * The task
+		 */
+		public final Runnable task;
+		/**
+		 * Time of the first performance of the task, milliseconds of the time of the
+		 * scheduler's executor
+		 */
+		private final long firstMillis;
+
+		/**
+		 * Constructor
+		 *
+		 * @param group       group of the tick
+		 * @param task        the task
+		 * @param firstMillis time of the first performance of the task
+		 */
+		private Registration(Group group, Runnable task, long firstMillis)
+		{
+			super();
+			this.group = group;
+			this.task = task;
+			this.firstMillis = firstMillis;
+		}
+	}
+
+	/**
+	 * Group of the tasks registered with the same period and phase, which are
+	 * performed by one tick
+	 *
+	 * @author ModelerOne
+	 *
+	 */
+	private final class Group
+	{
+		/**
+		 * Key of the group, i.e. its period and phase
+		 */
+		private final String key;
+		/**
+		 * Period of the tick, milliseconds
+		 */
+		private final long periodMillis;
+		/**
+		 * Registrations of the tasks of the group in order of their registration
+		 */
+		private final List<Registration> registrations;
+		/**
+		 * Scheduled tick of the group, present once scheduled
+		 */
+		private Optional<ScheduledFuture<?>> tick;
+		/**
+		 * Scheduled time of the next tick, milliseconds of the time of the
+		 * scheduler's executor
+		 */
+		private volatile long nextTickMillis;
+		/**
+		 * Whether the tick has been performed at least once
+		 */
+		private volatile boolean hasTicked;
+
+		/**
+		 * Constructor
+		 *
+		 * @param key          key of the group
+		 * @param periodMillis period of the tick, milliseconds
+		 */
+		private Group(String key, long periodMillis)
+		{
+			super();
+			this.key = key;
+			this.periodMillis = periodMillis;
+			this.registrations = new CopyOnWriteArrayList<>();
+			this.tick = Optional.empty();
+		}
+
+		/**
+		 * Schedules the tick from the specified time
+		 *
+		 * @param firstMillis time of the first tick
+		 * @param nowMillis   current time
+		 */
+		private void scheduleFrom(long firstMillis, long nowMillis)
+		{
+			nextTickMillis = firstMillis;
+			tick = Optional.of(executor.scheduleAtFixedRate(this::tick, firstMillis - nowMillis, periodMillis, TimeUnit.MILLISECONDS));
+		}
+
+		/**
+		 * Returns the scheduler of the group
+		 *
+		 * @return the scheduler
+		 */
+		private TickScheduler scheduler()
+		{
+			return TickScheduler.this;
+		}
+
+		/**
+		 * Performs the tasks of the group whose first performance is due
+		 */
+		private void tick()
+		{
+			long tickMillis = nextTickMillis;
+			nextTickMillis = tickMillis + periodMillis;
+			hasTicked = true;
+			for (Registration registration : registrations)
+				if (registration.firstMillis <= tickMillis)
+					try
+					{
+						registration.task.run();
+					} catch (RuntimeException e)
+					{
+						logger.severe("tick task failed: " + key + ": " + e);
+					}
+		}
+	}
+
+	/**
+	 * Tick schedulers of the {@code schedule()} operation by their executors
+	 */
+	private static final Map<ScheduledThreadPoolExecutor, TickScheduler> schedulersByExecutor = new HashMap<>();
+}
@@ -0,0 +1,408 @@
+package sysmlinjava.execution;
+
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RunnableScheduledFuture;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * {@code ScheduledThreadPoolExecutor} that executes the tasks of SysMLinJava
+ * models in a single thread and in virtual time, so that the execution of a
+ * model is deterministic and as fast as its tasks can be performed.
+ * <h2>Virtual time</h2> The executor starts no threads. Its tasks are queued in
+ * order of their scheduled virtual time and, for the same time, in order of
+ * their submission, and are performed by the thread that drives the executor by
+ * its {@code runUntil()} or {@code runFor()} operation. The virtual time of the
+ * executor, returned by its {@code nanoTime()} operation, is advanced to the
+ * scheduled time of each task as it is performed, i.e. a timer of a minute
+ * expires as soon as the tasks preceding it are performed rather than after a
+ * minute. As the order of the tasks depends only on their scheduled times and
+ * the order of their submission, two executions of the same model with the same
+ * inputs perform the same tasks in the same order.
+ * <h3>Restrictions</h3> The tasks must be finite, as a task that does not end,
+ * e.g. a do-activity that loops until cancelled, prevents all subsequent tasks
+ * from being performed. Waits, sleeps, and blocking I/O within tasks are not
+ * virtualized, i.e. they wait in real time and block all other tasks. A task
+ * that is to continue after a delay is instead to schedule its continuation,
+ * e.g. by the {@code SysMLBlock.delay(seconds, continuation)} operation, and
+ * blocking I/O, e.g. of the UDP receivers of full ports, is performed in
+ * threads of its own by the {@code SysMLExecutors.submitBlocking()} operation.
+ * The {@code runUntil()} and {@code runFor()} operations may therefore not be
+ * called by the tasks, and the cancellation of a task never interrupts the
+ * thread that drives the executor. The executor is shared by all models in the JVM and, as for the
+ * {@code AdaptiveScheduledExecutor}, its {@code shutdown()} and
+ * {@code shutdownNow()} operations called by any one model are ignored.
+ *
+ * @author ModelerOne
+ *
+ * @see SysMLExecutors#virtualTimeExecutor()
+ */
+public class VirtualTimeExecutor extends ScheduledThreadPoolExecutor
+{
+	/**
+	 * Logger for the executor
+	 */
+	protected Logger logger;
+	/**
+	 * Tasks scheduled and not yet performed, in order of their scheduled time and
+	 * sequence number
+	 */
+	private final PriorityQueue<VirtualTask<?>> tasks;
+	/**
+	 * Current virtual time in nanoseconds
+	 */
+	private long now;
+	/**
+	 * Sequence number of the next task submitted
+	 */
+	private long nextSequence;
+	/**
+	 * Thread that is performing the tasks, if any, i.e. the thread that is in the
+	 * {@code runUntil()} operation
+	 */
+	private volatile Thread runner;
+
+	/**
+	 * Constructor
+	 */
+	public VirtualTimeExecutor()
+	{
+		super(1);
+		logger = Logger.getLogger(getClass().getSimpleName());
+		tasks = new PriorityQueue<>();
+		now = 0L;
+		nextSequence = 0L;
+	}
+
+	/**
+	 * Returns the current virtual time of the executor
+	 *
+	 * @return virtual time in nanoseconds since the executor was created
+	 */
+	public synchronized long nanoTime()
+	{
+		return now;
+	}
+
+	/**
+	 * Returns the number of tasks scheduled and not yet performed
+	 *
+	 * @return number of pending tasks
+	 */
+	public synchronized int pendingTaskCount()
+	{
+		return tasks.size();
+	}
+
+	/**
+	 * Returns whether the calling thread is performing the tasks of the executor
+	 *
+	 * @return true if called by a task of the executor
+	 */
+	public boolean isRunner()
+	{
+		return runner == Thread.currentThread();
+	}
+
+	/**
+	 * Performs the tasks scheduled up to the specified virtual time, including the
+	 * tasks they schedule up to that time, in order of their scheduled times, and
+	 * then advances the virtual time to the specified time if it is later than the
+	 * current virtual time. The operation may not be called by a task of the
+	 * executor, i.e. tasks are never performed within other tasks.
+	 *
+	 * @param virtualNanos virtual time in nanoseconds up to which the tasks are
+	 *                     to be performed
+	 * @return number of tasks performed
+	 * @throws IllegalStateException if called by a task of the executor
+	 */
+	public int runUntil(long virtualNanos)
+	{
+		if (isRunner())
+			throw new IllegalStateException("runUntil() called by a task of the virtual time executor, schedule the continuation of the task instead");
+		runner = Thread.currentThread();
+		int result = 0;
+		try
+		{
+			VirtualTask<?> task = nextTask(virtualNanos);
+			while (task != null)
+			{
+				task.run();
+				result++;
+				task = nextTask(virtualNanos);
+			}
+		} finally
+		{
+			runner = null;
+		}
+		return result;
+	}
+
+	/**
+	 * Performs the tasks scheduled within the specified duration of virtual time
+	 * from the current virtual time
+	 *
+	 * @param duration duration of virtual time
+	 * @param unit     unit of the duration
+	 * @return number of tasks performed
+	 * @throws IllegalStateException if called by a task of the executor
+	 */
+	public int runFor(long duration, TimeUnit unit)
+	{
+		return runUntil(nanoTime() + unit.toNanos(duration));
+	}
+
+	/**
+	 * Removes and returns the next task scheduled up to the specified virtual time
+	 * and advances the virtual time to its scheduled time, or, if there is no such
+	 * task, advances the virtual time to the specified time
+	 *
+	 * @param virtualNanos virtual time up to which the next task is returned
+	 * @return the next task, or null if none
+	 */
+	private synchronized VirtualTask<?> nextTask(long virtualNanos)
+	{
+		VirtualTask<?> result = tasks.peek();
+		while (result != null && result.isCancelled())
+		{
+			tasks.poll();
+			result = tasks.peek();
+		}
+		if (result != null && result.time <= virtualNanos)
+		{
+			tasks.poll();
+			now = Math.max(now, result.time);
+		}
+		else
+		{
+			result = null;
+			now = Math.max(now, virtualNanos);
+		}
+		return result;
+	}
+
+	/**
+	 * Queues the specified task to be performed at its scheduled time
+	 *
+	 * @param <V>  type of the result of the task
+	 * @param task the task
+	 * @return the task
+	 */
+	private synchronized <V> VirtualTask<V> enqueue(VirtualTask<V> task)
+	{
+		tasks.add(task);
+		return task;
+	}
+
+	/**
+	 * Returns the virtual time that is the specified delay after the current
+	 * virtual time
+	 *
+	 * @param delay delay, negative delays are treated as zero
+	 * @param unit  unit of the delay
+	 * @return scheduled virtual time in nanoseconds
+	 */
+	private synchronized long timeAfter(long delay, TimeUnit unit)
+	{
+		return now + Math.max(0L, unit.toNanos(delay));
+	}
+
+	/**
+	 * Returns the next sequence number of a submitted task
+	 *
+	 * @return sequence number
+	 */
+	private synchronized long nextSequence()
+	{
+		return nextSequence++;
+	}
+
+	@Override
+	public void execute(Runnable command)
+	{
+		schedule(command, 0L, TimeUnit.NANOSECONDS);
+	}
+
+	@Override
+	public Future<?> submit(Runnable task)
+	{
+		return schedule(task, 0L, TimeUnit.NANOSECONDS);
+	}
+
+	@Override
+	public <T> Future<T> submit(Runnable task, T result)
+	{
+		return schedule(Executors.callable(task, result), 0L, TimeUnit.NANOSECONDS);
+	}
+
+	@Override
+	public <T> Future<T> submit(Callable<T> task)
+	{
+		return schedule(task, 0L, TimeUnit.NANOSECONDS);
+	}
+
+	@Override
+	public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit)
+	{
+		return enqueue(new VirtualTask<Void>(Executors.callable(command, null), timeAfter(delay, unit), 0L));
+	}
+
+	@Override
+	public <V> ScheduledFuture<V> schedule(Callable<V> callable, long delay, TimeUnit unit)
+	{
+		return enqueue(new VirtualTask<V>(callable, timeAfter(delay, unit), 0L));
+	}
+
+	@Override
+	public ScheduledFuture<?> scheduleAtFixedRate(Runnable command, long initialDelay, long period, TimeUnit unit)
+	{
+		if (period <= 0L)
+			throw new IllegalArgumentException("period must be positive: " + period);
+		return enqueue(new VirtualTask<Void>(Executors.callable(command, null), timeAfter(initialDelay, unit), unit.toNanos(period)));
+	}
+
+	@Override
+	public ScheduledFuture<?> scheduleWithFixedDelay(Runnable command, long initialDelay, long delay, TimeUnit unit)
+	{
+		if (delay <= 0L)
+			throw new IllegalArgumentException("delay must be positive: " + delay);
+		return enqueue(new VirtualTask<Void>(Executors.callable(command, null), timeAfter(initialDelay, unit), -unit.toNanos(delay)));
+	}
+
+	/**
+	 * Ignores the request to shut down the shared executor
+	 */
+	@Override
+	public void shutdown()
+	{
+		logger.warning("shutdown of virtual time executor ignored, executor is shared");
+	}
+
+	/**
+	 * Ignores the request to shut down the shared executor
+	 *
+	 * @return empty list
+	 */
+	@Override
+	public List<Runnable> shutdownNow()
+	{
+		logger.warning("shutdownNow of virtual time executor ignored, executor is shared");
+		return List.of();
+	}
+
+	/**
+	 * Cancels all pending tasks and resets the virtual time to zero, e.g. prior
+	 * to the construction of another model in the same JVM
+	 */
+	public synchronized void reset()
+	{
+		tasks.forEach(task -> task.cancel(false));
+		tasks.clear();
+		now = 0L;
+	}
+
+	/**
+	 * Task of the executor scheduled at a virtual time, performed once or
+	 * periodically
+	 *
+	 * @author ModelerOne
+	 *
+	 * @param <V> type of the result of the task
+	 */
+	private final class VirtualTask<V> extends FutureTask<V> implements RunnableScheduledFuture<V>
+	{
+		/**
+		 * Scheduled virtual time of the task's next performance in nanoseconds
+		 */
+		private long time;
+		/**
+		 * Period of the task in nanoseconds, positive for a fixed rate, negative for
+		 * a fixed delay, zero for a task that is performed once
+		 */
+		private final long period;
+		/**
+		 * Sequence number of the task, which orders tasks of the same scheduled time
+		 */
+		private long sequence;
+
+		/**
+		 * Constructor
+		 *
+		 * @param callable the callable of the task
+		 * @param time     scheduled virtual time of the first performance
+		 * @param period   period of the task, zero for none
+		 */
+		private VirtualTask(Callable<V> callable, long time, long period)
+		{
+			super(callable);
+			this.time = time;
+			this.period = period;
+			this.sequence = nextSequence();
+		}
+
+		@Override
+		public boolean isPeriodic()
+		{
+			return period != 0L;
+		}
+
+		@Override
+		public long getDelay(TimeUnit unit)
+		{
+			return unit.convert(time - nanoTime(), TimeUnit.NANOSECONDS);
+		}
+
+		@Override
+		public int compareTo(Delayed other)
+		{
+			int result;
+			if (other instanceof VirtualTask)
+			{
+				VirtualTask<?> task = (VirtualTask<?>)other;
+				result = time != task.time ? Long.compare(time, task.time) : Long.compare(sequence, task.sequence);
+			}
+			else
+				result = Long.compare(getDelay(TimeUnit.NANOSECONDS), other.getDelay(TimeUnit.NANOSECONDS));
+			return result;
+		}
+
+		/**
+		 * Cancels the task without interrupting it if it is being performed, as its
+		 * thread is the thread that drives the executor rather than a thread of the
+		 * task's own
+		 *
+		 * @param mayInterruptIfRunning ignored, the task is never interrupted
+		 * @return false if the task could not be cancelled, true otherwise
+		 */
+		@Override
+		public boolean cancel(boolean mayInterruptIfRunning)
+		{
+			return super.cancel(false);
+		}
+
+		/**
+		 * Performs the task and, if periodic and neither cancelled nor failed,
+		 * requeues it at its next scheduled time
+		 */
+		@Override
+		public void run()
+		{
+			if (!isPeriodic())
+				super.run();
+			else if (runAndReset())
+			{
+				time = period > 0L ? time + period : nanoTime() - period;
+				sequence = nextSequence();
+				enqueue(this);
+			}
+		}
+	}
+}
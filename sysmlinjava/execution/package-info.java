@@ -0,0 +1,11 @@
+/**
+ * Contains classes that provide and control the threads of execution of
+ * SysMLinJava models, i.e. the factory of the executors used by blocks and
+ * states and the adaptive shared executor whose parallelism is sized by the
+ * measured pressure of its ready queue, the virtual time executor that executes
+ * models deterministically in a single thread, as well as the lockstep
+ * scheduler that steps time-stepped model elements in bulk-synchronous phases
+ * and the tick scheduler that shares periodic ticks among model elements
+ * without state machines.
+ */
+package sysmlinjava.execution;
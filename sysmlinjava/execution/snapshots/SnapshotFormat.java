@@ -0,0 +1,195 @@
+package sysmlinjava.execution.snapshots;
+
+/**
+ * Constants of the binary format of the snapshot files written by the
+ * {@code SnapshotWriter} and read by the {@code SnapshotReader}.
+ * <h2>File layout</h2> A snapshot file consists of a header followed by one
+ * record per block of the model, in the order of the model's blocks determined
+ * by the {@code SnapshotLayout}:
+ * <ul>
+ * <li>header: magic number, format version, capture time in epoch
+ * milliseconds, name of the root block's class, and number of blocks</li>
+ * <li>block: name of the block's class, number of value and flow fields, and for
+ * each such field its name and its tagged value, followed by the kind of the
+ * block's state machine and, if any, its state machine record</li>
+ * <li>state machine: index of the current vertex plus one (0 if not started),
+ * the queued events, the active timers as pairs of time event and remaining
+ * delay in milliseconds, the IDs of the completed sub-state machines of the
+ * current state, and the records of the current state's sub-state machines</li>
+ * </ul>
+ * <h3>Encoding</h3> Counts, lengths, and indexes are unsigned variable-length
+ * integers of 7 bits per byte, and signed integers are zig-zag encoded variable
+ * length integers. Strings are written once and thereafter referenced by their
+ * index in the table of the strings written so far, where index 0 introduces a
+ * new string in UTF-8. Objects are written as a tag followed by the tag's
+ * content. Arrays, collections, maps, and model objects are recorded in the
+ * order of their first occurrence and are thereafter referenced by their index,
+ * preserving the sharing and cycles of the object graph, while blocks are
+ * referenced by their index in the model's blocks.
+ * <h3>Journal layout</h3> A journal file written by the {@code SysMLJournal}
+ * consists of the same header as a snapshot, with the journal's magic number
+ * and its start time, followed by its entries in order of their recording,
+ * each of which is the kind of the entry, its time in nanoseconds since the
+ * start of the journal, and its content:
+ * <ul>
+ * <li>event: index of the block and the tagged event</li>
+ * <li>signal: index of the full port and the tagged signal</li>
+ * <li>timer: index of the block and the ID of the timer</li>
+ * <li>draw: source of the random numbers and the number drawn</li>
+ * <li>end: no content</li>
+ * </ul>
+ * The strings written are retained in the string table for the entire journal,
+ * while the references to objects are reset at the start of each entry, so
+ * that each entry's objects are complete in themselves. The file is zero beyond
+ * its last entry, i.e. an entry kind of zero ends the journal if it was not
+ * closed.
+ *
+ * @author ModelerOne
+ *
+ */
+final class SnapshotFormat
+{
+	/**
+	 * Private constructor of the constants
+	 */
+	private SnapshotFormat()
+	{
+		super();
+	}
+
+	/**
+	 * Magic number at the start of a snapshot file, i.e. "SMLS"
+	 */
+	static final int magic = 0x534D4C53;
+	/**
+	 * Magic number at the start of a journal file, i.e. "SMLJ"
+	 */
+	static final int journalMagic = 0x534D4C4A;
+	/**
+	 * Version of the snapshot file format
+	 */
+	static final short version = 1;
+	/**
+	 * Size of the regions of the snapshot file that are memory-mapped at a time
+	 */
+	static final int regionSize = 16 * 1024 * 1024;
+	/**
+	 * Kind of a journal entry of an event accepted by a block from outside the
+	 * model
+	 */
+	static final byte entryEvent = 1;
+	/**
+	 * Kind of a journal entry of a signal received by a full port by UDP
+	 */
+	static final byte entrySignal = 2;
+	/**
+	 * Kind of a journal entry of the expiry of a state machine's timer
+	 */
+	static final byte entryTimer = 3;
+	/**
+	 * Kind of a journal entry of a random number drawn by a probability
+	 * distribution
+	 */
+	static final byte entryDraw = 4;
+	/**
+	 * Kind of the journal entry that ends the journal
+	 */
+	static final byte entryEnd = 5;
+	/**
+	 * Kind of a block without state machine
+	 */
+	static final byte noStateMachine = 0;
+	/**
+	 * Kind of a block with a {@code SysMLStateMachine}
+	 */
+	static final byte stateMachine = 1;
+	/**
+	 * Kind of a block with a {@code SysMLStateMachineInstance}
+	 */
+	static final byte stateMachineInstance = 2;
+	/**
+	 * Tag of null
+	 */
+	static final byte tagNull = 0;
+	/**
+	 * Tag of a value that is not saved, e.g. a lambda or a shared immutable model
+	 * element, which is retained upon restore
+	 */
+	static final byte tagSkipped = 1;
+	/**
+	 * Tag of a {@code Boolean}
+	 */
+	static final byte tagBoolean = 2;
+	/**
+	 * Tag of a {@code Byte}
+	 */
+	static final byte tagByte = 3;
+	/**
+	 * Tag of a {@code Short}
+	 */
+	static final byte tagShort = 4;
+	/**
+	 * Tag of a {@code Character}
+	 */
+	static final byte tagCharacter = 5;
+	/**
+	 * Tag of an {@code Integer}
+	 */
+	static final byte tagInteger = 6;
+	/**
+	 * Tag of a {@code Long}
+	 */
+	static final byte tagLong = 7;
+	/**
+	 * Tag of a {@code Float}
+	 */
+	static final byte tagFloat = 8;
+	/**
+	 * Tag of a {@code Double}
+	 */
+	static final byte tagDouble = 9;
+	/**
+	 * Tag of a {@code String}
+	 */
+	static final byte tagString = 10;
+	/**
+	 * Tag of an enum constant, by its class and name
+	 */
+	static final byte tagEnum = 11;
+	/**
+	 * Tag of a {@code Class}, by its name
+	 */
+	static final byte tagClass = 12;
+	/**
+	 * Tag of an empty {@code Optional}
+	 */
+	static final byte tagOptionalEmpty = 13;
+	/**
+	 * Tag of a present {@code Optional}, followed by its value
+	 */
+	static final byte tagOptional = 14;
+	/**
+	 * Tag of a reference to a previously written object, by its index
+	 */
+	static final byte tagReference = 15;
+	/**
+	 * Tag of a reference to a block of the model, by its index
+	 */
+	static final byte tagBlock = 16;
+	/**
+	 * Tag of an array, by its class, length, and elements
+	 */
+	static final byte tagArray = 17;
+	/**
+	 * Tag of a collection, by its class, size, and elements
+	 */
+	static final byte tagCollection = 18;
+	/**
+	 * Tag of a map, by its class, size, and keys and values
+	 */
+	static final byte tagMap = 19;
+	/**
+	 * Tag of a model object, by its class and the values of its fields
+	 */
+	static final byte tagObject = 20;
+}
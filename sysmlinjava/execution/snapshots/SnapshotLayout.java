@@ -0,0 +1,423 @@
+package sysmlinjava.execution.snapshots;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InaccessibleObjectException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.logging.Logger;
+import sysmlinjava.analysis.metadata.ClassMetadata;
+import sysmlinjava.analysis.metadata.FieldMetadata;
+import sysmlinjava.analysis.metadata.SysMLMetadata;
+import sysmlinjava.analysis.metrics.ElementMetrics;
+import sysmlinjava.analysis.metrics.LatencyHistogram;
+import sysmlinjava.annotations.Flow;
+import sysmlinjava.annotations.Value;
+import sysmlinjava.blocks.SysMLBlock;
+import sysmlinjava.comments.SysMLComment;
+import sysmlinjava.common.SerializationConstructors;
+import sysmlinjava.common.SysMLClass;
+import sysmlinjava.ports.SysMLProxyPort;
+import sysmlinjava.quantitykinds.SysMLQuantityKind;
+import sysmlinjava.quantitykinds.SysMLQuantityKinds;
+import sysmlinjava.requirements.SysMLAbstractRequirement;
+import sysmlinjava.requirements.SysMLRequirements;
+import sysmlinjava.statemachine.SysMLStateMachine;
+import sysmlinjava.statemachine.SysMLStateMachineDefinition;
+import sysmlinjava.statemachine.SysMLStateMachineDispatcher;
+import sysmlinjava.statemachine.SysMLStateMachineInstance;
+import sysmlinjava.statemachine.SysMLTransition;
+import sysmlinjava.statemachine.SysMLVertex;
+import sysmlinjava.units.SysMLUnit;
+import sysmlinjava.units.SysMLUnits;
+import sysmlinjava.valuetypes.SysMLValueType;
+
+/**
+ * Layout of a class of the objects that are saved to and restored from
+ * snapshots, determined once per class by reflection.
+ * <h2>Blocks</h2> For a class of blocks, the layout consists of the block's
+ * value and flow fields, i.e. the fields annotated {@code @Value} or
+ * {@code @Flow}, whose values are saved, and the fields that may reference the
+ * block's contained blocks, i.e. its parts, full ports, and constraint blocks,
+ * by which the blocks of the model are found. As the annotations are retained
+ * only in the source, the value and flow fields are found in the
+ * {@code SysMLMetadata} registry, i.e. in the index generated by the
+ * {@code ModelMetadataProcessor}, and all the value type fields of a class that
+ * is not indexed are taken to be its value and flow fields.
+ * <h3>Model objects</h3> For any other class of model objects, e.g. value
+ * types, events, and signals, the layout consists of all the instance fields of
+ * the class and its superclasses that make up the state of the object. The
+ * {@code logger} of the {@code SysMLClass} and the units, observers, and
+ * probability distribution of the {@code SysMLValueType} are not part of the
+ * state, as they are determined by the class and the model rather than by the
+ * execution of the model. Instances of model classes that are restored from a
+ * snapshot without an existing instance in the model are allocated by a
+ * serialization constructor and are then initialized with these fields.
+ * <h3>Structural classes</h3> The instances of the JDK's classes other than
+ * the boxed primitives, strings, optionals, collections, and maps, of lambda
+ * classes, and of the structural classes of the model, e.g. state machines,
+ * units, and requirements, are not part of the saved state.
+ *
+ * @author ModelerOne
+ *
+ */
+final class SnapshotLayout
+{
+	/**
+	 * The class
+	 */
+	final Class<?> type;
+	/**
+	 * Whether instances of the class are saved as model objects
+	 */
+	final boolean isObject;
+	/**
+	 * Value and flow fields of a class of blocks, in declaration order from the
+	 * block's superclasses to the class
+	 */
+	final Field[] valueFields;
+	/**
+	 * Fields of a class of blocks that may reference its contained blocks
+	 */
+	final Field[] childFields;
+	/**
+	 * Instance fields of a class of model objects that make up the object's state
+	 */
+	final Field[] stateFields;
+	/**
+	 * Optional constructor by which instances of a class of model objects are
+	 * allocated
+	 */
+	final Optional<Constructor<?>> allocator;
+
+	/**
+	 * Constructor
+	 *
+	 * @param type the class
+	 * @throws IllegalArgumentException if the class is not accessible by
+	 *                                  reflection, e.g. its package is not open to
+	 *                                  the SysMLinJava module
+	 */
+	SnapshotLayout(Class<?> type)
+	{
+		super();
+		this.type = type;
+		this.isObject = !SysMLBlock.class.isAssignableFrom(type) && !type.isHidden() && !type.isArray() && !isJDK(type) && structuralTypes.stream().noneMatch(structural -> structural.isAssignableFrom(type));
+		List<Field> values = new ArrayList<>();
+		List<Field> children = new ArrayList<>();
+		List<Field> states = new ArrayList<>();
+		Constructor<?> constructor = null;
+		try
+		{
+			if (SysMLBlock.class.isAssignableFrom(type))
+			{
+				for (Class<?> declaring : hierarchyOf(type))
+				{
+					Optional<List<String>> valueFieldNames = valueFieldNamesOf(declaring);
+					for (Field field : declaring.getDeclaredFields())
+						if (!Modifier.isStatic(field.getModifiers()))
+						{
+							if (valueFieldNames.isPresent() ? valueFieldNames.get().contains(field.getName()) : SysMLValueType.class.isAssignableFrom(field.getType()))
+							{
+								field.setAccessible(true);
+								values.add(field);
+							}
+							else if (mayReferenceBlocks(field))
+							{
+								field.setAccessible(true);
+								children.add(field);
+							}
+						}
+				}
+			}
+			else if (isObject)
+			{
+				for (Class<?> declaring : hierarchyOf(type))
+					for (Field field : declaring.getDeclaredFields())
+						if (!Modifier.isStatic(field.getModifiers()) && !Modifier.isTransient(field.getModifiers()) && !isDerived(field))
+						{
+							field.setAccessible(true);
+							states.add(field);
+						}
+				if (!Modifier.isAbstract(type.getModifiers()) && !type.isInterface())
+					constructor = SerializationConstructors.constructorOf(type);
+			}
+		} catch (InaccessibleObjectException | SecurityException | ReflectiveOperationException e)
+		{
+			throw new IllegalArgumentException("class cannot be saved to snapshot, its package may need to be opened to sysmlinjava: " + type.getName(), e);
+		}
+		this.valueFields = values.toArray(new Field[values.size()]);
+		this.childFields = children.toArray(new Field[children.size()]);
+		this.stateFields = states.toArray(new Field[states.size()]);
+		this.allocator = Optional.ofNullable(constructor);
+	}
+
+	/**
+	 * Allocates a new instance of the class of model objects without invoking any
+	 * of its constructors and initializes the fields that are not part of its
+	 * state, i.e. the logger of a {@code SysMLClass} and the units, observers, and
+	 * probability distribution of a {@code SysMLValueType}
+	 *
+	 * @return the new instance, whose state fields are to be set from the snapshot
+	 * @throws ReflectiveOperationException if the instance cannot be allocated or
+	 *                                      initialized
+	 */
+	Object allocate() throws ReflectiveOperationException
+	{
+		if (allocator.isEmpty())
+			throw new InstantiationException("class cannot be instantiated: " + type.getName());
+		Object result = allocator.get().newInstance();
+		if (result instanceof SysMLClass)
+			loggerField.set(result, Logger.getLogger(type.getSimpleName()));
+		if (result instanceof SysMLValueType)
+		{
+			SysMLValueType value = (SysMLValueType)result;
+			value.observers = new ArrayList<>();
+			value.probabilityDistribution = Optional.empty();
+			createUnitsMethod.invoke(value);
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the blocks of the model of which the specified block is the root, in
+	 * depth-first order of the blocks' child fields starting at the root. The
+	 * contained blocks of a block are the blocks referenced by its child fields,
+	 * directly or by the elements of arrays, collections, maps, and optionals,
+	 * whose context block is the block.
+	 *
+	 * @param root the root block of the model
+	 * @return list of the blocks of the model
+	 * @throws IllegalArgumentException if a class of the blocks is not accessible
+	 *                                  by reflection
+	 */
+	static List<SysMLBlock> blocksOf(SysMLBlock root)
+	{
+		List<SysMLBlock> result = new ArrayList<>();
+		Map<SysMLBlock, Boolean> visited = new IdentityHashMap<>();
+		List<SysMLBlock> stack = new ArrayList<>();
+		stack.add(root);
+		visited.put(root, Boolean.TRUE);
+		while (!stack.isEmpty())
+		{
+			SysMLBlock block = stack.remove(stack.size() - 1);
+			result.add(block);
+			List<SysMLBlock> children = new ArrayList<>();
+			for (Field field : layouts.get(block.getClass()).childFields)
+				try
+				{
+					addChildren(block, field.get(block), children, visited);
+				} catch (IllegalAccessException e)
+				{
+					throw new IllegalArgumentException("field of block cannot be accessed: " + field, e);
+				}
+			for (int i = children.size() - 1; i >= 0; i--)
+				stack.add(children.get(i));
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the vertices of the specified state machine in breadth-first order of
+	 * its transitions from its initial state, followed by its final state if it is
+	 * not reached by any transition. The order is determined by the structure of
+	 * the state machine and is therefore the same for all instances of its class.
+	 *
+	 * @param stateMachine the state machine
+	 * @return list of the vertices of the state machine
+	 */
+	static List<SysMLVertex> verticesOf(SysMLStateMachine stateMachine)
+	{
+		List<SysMLVertex> result = new ArrayList<>();
+		Map<SysMLVertex, Boolean> visited = new IdentityHashMap<>();
+		result.add(stateMachine.initialState);
+		visited.put(stateMachine.initialState, Boolean.TRUE);
+		for (int v = 0; v < result.size(); v++)
+			for (SysMLTransition transition : result.get(v).transitions)
+				if (transition.nextState != null && visited.put(transition.nextState, Boolean.TRUE) == null)
+					result.add(transition.nextState);
+		if (stateMachine.finalState != null && !visited.containsKey(stateMachine.finalState))
+			result.add(stateMachine.finalState);
+		return result;
+	}
+
+	/**
+	 * Returns the layout of the specified class
+	 *
+	 * @param type the class
+	 * @return layout of the class
+	 */
+	static SnapshotLayout of(Class<?> type)
+	{
+		return layouts.get(type);
+	}
+
+	/**
+	 * Adds the blocks referenced by the specified value, directly or by its
+	 * elements, whose context block is the specified block to the specified
+	 * children, unless already visited
+	 *
+	 * @param block    the block whose children are added
+	 * @param value    value of a child field of the block
+	 * @param children list to which the children are added
+	 * @param visited  map of the blocks already found
+	 */
+	private static void addChildren(SysMLBlock block, Object value, List<SysMLBlock> children, Map<SysMLBlock, Boolean> visited)
+	{
+		if (value instanceof SysMLBlock)
+		{
+			SysMLBlock child = (SysMLBlock)value;
+			if (child.contextBlock != null && child.contextBlock.isPresent() && child.contextBlock.get() == block && visited.put(child, Boolean.TRUE) == null)
+				children.add(child);
+		}
+		else if (value instanceof Optional)
+			addChildren(block, ((Optional<?>)value).orElse(null), children, visited);
+		else if (value instanceof Collection)
+			for (Object element : (Collection<?>)value)
+				addChildren(block, element, children, visited);
+		else if (value instanceof Map)
+			for (Object element : ((Map<?, ?>)value).values())
+				addChildren(block, element, children, visited);
+		else if (value instanceof Object[])
+			for (Object element : (Object[])value)
+				addChildren(block, element, children, visited);
+	}
+
+	/**
+	 * Returns the classes of the hierarchy of the specified class below
+	 * {@code Object}, from the topmost superclass to the class
+	 *
+	 * @param type the class
+	 * @return list of the classes
+	 */
+	private static List<Class<?>> hierarchyOf(Class<?> type)
+	{
+		List<Class<?>> result = new ArrayList<>();
+		for (Class<?> declaring = type; declaring != null && declaring != Object.class; declaring = declaring.getSuperclass())
+			result.add(0, declaring);
+		return result;
+	}
+
+	/**
+	 * Returns the names of the value and flow fields declared by the specified
+	 * class, i.e. the fields annotated {@code @Value} or {@code @Flow}, from the
+	 * {@code SysMLMetadata} registry
+	 *
+	 * @param declaring the class
+	 * @return optional names of the value and flow fields, empty if the class is
+	 *         not indexed
+	 */
+	private static Optional<List<String>> valueFieldNamesOf(Class<?> declaring)
+	{
+		Optional<List<String>> result = Optional.empty();
+		Optional<ClassMetadata> metadata = SysMLMetadata.classMetadata(declaring);
+		if (metadata.isPresent())
+		{
+			List<String> names = new ArrayList<>();
+			for (FieldMetadata field : metadata.get().fields)
+				if (!field.isStatic && (field.isAnnotatedWith(Value.class) || field.isAnnotatedWith(Flow.class)))
+					names.add(field.name);
+			result = Optional.of(names);
+		}
+		return result;
+	}
+
+	/**
+	 * Returns whether the specified field of a block class may reference the
+	 * block's contained blocks, i.e. is not of a primitive, string, enum, value
+	 * type, or state machine type, and is not the block's context block
+	 *
+	 * @param field field of a block class
+	 * @return true if the field may reference contained blocks
+	 */
+	private static boolean mayReferenceBlocks(Field field)
+	{
+		Class<?> fieldType = field.getType();
+		return !fieldType.isPrimitive() && !fieldType.isEnum() && fieldType != String.class && !SysMLValueType.class.isAssignableFrom(fieldType) && !SysMLStateMachine.class.isAssignableFrom(fieldType)
+			&& !field.getName().equals(contextBlockFieldName) && (field.getDeclaringClass() != SysMLBlock.class && field.getDeclaringClass() != SysMLClass.class);
+	}
+
+	/**
+	 * Returns whether the specified field is derived from the class and the model
+	 * rather than being part of the state of its object
+	 *
+	 * @param field the field
+	 * @return true if the field is not part of the object's state
+	 */
+	private static boolean isDerived(Field field)
+	{
+		return field.getDeclaringClass() == SysMLClass.class && field.getName().equals(loggerFieldName) || field.getDeclaringClass() == SysMLValueType.class && derivedValueTypeFieldNames.contains(field.getName());
+	}
+
+	/**
+	 * Returns whether the specified class is a class of the JDK
+	 *
+	 * @param type the class
+	 * @return true if the class is a class of the JDK
+	 */
+	private static boolean isJDK(Class<?> type)
+	{
+		String name = type.getName();
+		return type.isPrimitive() || type.getClassLoader() == null || name.startsWith("java.") || name.startsWith("javax.") || name.startsWith("jdk.") || name.startsWith("sun.");
+	}
+
+	/**
+	 * Name of the field of SysMLinJava elements that references their context
+	 * block
+	 */
+	private static final String contextBlockFieldName = "contextBlock";
+	/**
+	 * Name of the logger field of the {@code SysMLClass}
+	 */
+	private static final String loggerFieldName = "logger";
+	/**
+	 * Names of the fields of the {@code SysMLValueType} that are not part of the
+	 * value's state
+	 */
+	private static final List<String> derivedValueTypeFieldNames = List.of("units", "observers", "probabilityDistribution");
+	/**
+	 * Structural model types whose instances are not part of the saved state
+	 */
+	private static final List<Class<?>> structuralTypes = List.of(SysMLProxyPort.class, SysMLStateMachine.class, SysMLVertex.class, SysMLTransition.class, SysMLStateMachineInstance.class,
+		SysMLStateMachineDefinition.class, SysMLStateMachineDispatcher.class, SysMLUnit.class, SysMLUnits.class, SysMLQuantityKind.class, SysMLQuantityKinds.class,
+		SysMLAbstractRequirement.class, SysMLRequirements.class, SysMLComment.class, ElementMetrics.class, LatencyHistogram.class, ClassMetadata.class, FieldMetadata.class);
+	/**
+	 * The logger field of the {@code SysMLClass}
+	 */
+	private static final Field loggerField;
+	/**
+	 * The {@code createUnits()} operation of the {@code SysMLValueType}
+	 */
+	private static final Method createUnitsMethod;
+	/**
+	 * Layouts of the classes, by class
+	 */
+	private static final ClassValue<SnapshotLayout> layouts = new ClassValue<>()
+	{
+		@Override
+		protected SnapshotLayout computeValue(Class<?> type)
+		{
+			return new SnapshotLayout(type);
+		}
+	};
+
+	static
+	{
+		try
+		{
+			loggerField = SysMLClass.class.getDeclaredField(loggerFieldName);
+			loggerField.setAccessible(true);
+			createUnitsMethod = SysMLValueType.class.getDeclaredMethod(SysMLValueType.createUnitsMethodName);
+			createUnitsMethod.setAccessible(true);
+		} catch (NoSuchFieldException | NoSuchMethodException e)
+		{
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+}
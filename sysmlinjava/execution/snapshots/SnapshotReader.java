@@ -0,0 +1,814 @@
+package sysmlinjava.execution.snapshots;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import sysmlinjava.blocks.SysMLBlock;
+import sysmlinjava.events.SysMLEvent;
+import sysmlinjava.events.SysMLTimeEvent;
+import sysmlinjava.statemachine.SysMLState;
+import sysmlinjava.statemachine.SysMLStateMachine;
+import sysmlinjava.statemachine.SysMLStateMachineInstance;
+import sysmlinjava.statemachine.SysMLVertex;
+import sysmlinjava.valuetypes.DurationMilliseconds;
+
+/**
+ * Reader of a snapshot file in the {@code SnapshotFormat}, which restores the
+ * saved state into the blocks of a newly created model. The file is read
+ * through memory-mapped regions of the {@code SnapshotFormat.regionSize}.
+ * <h2>Restore in place</h2> The values and flows of the blocks are restored into
+ * the existing value objects of the model wherever the saved object is of the
+ * same class as the existing one, so that the units, observers, and bindings of
+ * the values established by the model's construction are retained. New objects
+ * are allocated only for values that are absent or of another class in the
+ * model, and for the queued events and timers of the state machines. The
+ * resumption of the state machines is deferred to the caller, i.e. returned as
+ * operations to be performed after all the blocks are restored, so that no
+ * state machine operates upon a block whose values are not yet restored.
+ *
+ * @author ModelerOne
+ *
+ */
+final class SnapshotReader implements Closeable
+{
+	/**
+	 * Channel of the snapshot file
+	 */
+	private final FileChannel channel;
+	/**
+	 * Size of the snapshot file
+	 */
+	private final long fileSize;
+	/**
+	 * Position in the file of the currently mapped region
+	 */
+	private long regionStart;
+	/**
+	 * Currently mapped region of the file
+	 */
+	private MappedByteBuffer region;
+	/**
+	 * Class loader by which the classes named in the snapshot are loaded
+	 */
+	private final ClassLoader classLoader;
+	/**
+	 * Classes named in the snapshot, by name
+	 */
+	private final Map<String, Class<?>> classes;
+	/**
+	 * Strings read, in order of their indexes
+	 */
+	private final List<String> strings;
+	/**
+	 * Arrays, collections, maps, and model objects read, in order of their indexes
+	 */
+	private final List<Object> objects;
+	/**
+	 * The blocks of the model, in order of their indexes
+	 */
+	private final List<SysMLBlock> blocks;
+
+	/**
+	 * Constructor, opens the snapshot file
+	 *
+	 * @param file   path of the snapshot file
+	 * @param blocks the blocks of the model, in the order of their records
+	 * @throws IOException if the file cannot be opened or mapped
+	 */
+	SnapshotReader(Path file, List<SysMLBlock> blocks) throws IOException
+	{
+		super();
+		this.channel = FileChannel.open(file, StandardOpenOption.READ);
+		this.fileSize = channel.size();
+		this.regionStart = 0L;
+		this.region = channel.map(FileChannel.MapMode.READ_ONLY, 0L, Math.min(fileSize, SnapshotFormat.regionSize));
+		this.classLoader = blocks.get(0).getClass().getClassLoader();
+		this.classes = new HashMap<>();
+		this.strings = new ArrayList<>();
+		this.objects = new ArrayList<>();
+		this.blocks = blocks;
+	}
+
+	/**
+	 * Reads the header of the snapshot or journal and verifies that it is of the
+	 * expected kind and of a model of the same root class and number of blocks as
+	 * the model
+	 *
+	 * @param magic expected magic number of the file, i.e. of a snapshot or a
+	 *              journal
+	 * @return capture time of the snapshot, or start time of the journal, in
+	 *         epoch milliseconds
+	 * @throws IOException if the file cannot be read or does not match the model
+	 */
+	long readHeader(int magic) throws IOException
+	{
+		ensure(Integer.BYTES + Short.BYTES + Long.BYTES);
+		if (region.getInt() != magic)
+			throw new IOException(magic == SnapshotFormat.journalMagic ? "not a journal file" : "not a snapshot file");
+		short version = region.getShort();
+		if (version != SnapshotFormat.version)
+			throw new IOException("unsupported snapshot version: " + version);
+		long result = region.getLong();
+		String rootClassName = readString();
+		if (!rootClassName.equals(blocks.get(0).getClass().getName()))
+			throw new IOException("snapshot of " + rootClassName + " does not match model of " + blocks.get(0).getClass().getName());
+		int blockCount = readCount();
+		if (blockCount != blocks.size())
+			throw new IOException("snapshot of " + blockCount + " blocks does not match model of " + blocks.size() + " blocks");
+		return result;
+	}
+
+	/**
+	 * Returns the block of the model at the specified index
+	 *
+	 * @param index index of the block
+	 * @return the block
+	 * @throws IOException if the index is not of a block of the model
+	 */
+	SysMLBlock block(int index) throws IOException
+	{
+		if (index >= blocks.size())
+			throw new IOException("invalid block index: " + index);
+		return blocks.get(index);
+	}
+
+	/**
+	 * Forgets the objects read so far, in accordance with the
+	 * {@code resetReferences()} of the writer
+	 */
+	void resetReferences()
+	{
+		objects.clear();
+	}
+
+	/**
+	 * Returns whether the entire file has been read
+	 *
+	 * @return true if no bytes remain to be read
+	 */
+	boolean isAtEnd()
+	{
+		return regionStart + region.position() >= fileSize;
+	}
+
+	/**
+	 * Reads the record of the specified block, restoring its values and flows, and
+	 * adds the resumption of its state machine, if any, to the specified
+	 * resumptions
+	 *
+	 * @param block       the block
+	 * @param resumptions list of the resumptions of the state machines, to which
+	 *                    the block's are added
+	 * @throws IOException if the file cannot be read or does not match the model
+	 */
+	void readBlock(SysMLBlock block, List<Runnable> resumptions) throws IOException
+	{
+		SnapshotLayout layout = SnapshotLayout.of(block.getClass());
+		String className = readString();
+		if (!className.equals(block.getClass().getName()))
+			throw new IOException("snapshot of " + className + " does not match block of " + block.getClass().getName());
+		int valueCount = readCount();
+		if (valueCount != layout.valueFields.length)
+			throw new IOException("snapshot of " + valueCount + " values does not match block of " + layout.valueFields.length + " values: " + className);
+		for (Field field : layout.valueFields)
+		{
+			String fieldName = readString();
+			if (!fieldName.equals(field.getName()))
+				throw new IOException("snapshot of value " + fieldName + " does not match value " + field.getName() + " of block " + className);
+			set(field, block, readObject(get(field, block)));
+		}
+		ensure(1);
+		byte kind = region.get();
+		if (kind == SnapshotFormat.stateMachineInstance && block.stateMachineInstance.isPresent())
+			readStateMachineInstance(block.stateMachineInstance.get(), resumptions);
+		else if (kind == SnapshotFormat.stateMachine && block.stateMachine.isPresent())
+			readStateMachine(block.stateMachine.get(), resumptions);
+		else if (kind != SnapshotFormat.noStateMachine)
+			throw new IOException("snapshot of state machine does not match block without state machine: " + className);
+	}
+
+	/**
+	 * Reads the record of the specified state machine and adds its resumption, i.e.
+	 * the resumption in its current state with its queued events and the restart
+	 * of its timers, to the specified resumptions, followed by the resumptions of
+	 * the sub-state machines of its current state
+	 *
+	 * @param stateMachine the state machine
+	 * @param resumptions  list of the resumptions of the state machines
+	 * @throws IOException if the file cannot be read or does not match the model
+	 */
+	private void readStateMachine(SysMLStateMachine stateMachine, List<Runnable> resumptions) throws IOException
+	{
+		List<SysMLVertex> vertices = SnapshotLayout.verticesOf(stateMachine);
+		int vertex = readCount() - 1;
+		if (vertex >= vertices.size() || vertex >= 0 && !(vertices.get(vertex) instanceof SysMLState))
+			throw new IOException("snapshot of state " + vertex + " does not match state machine: " + stateMachine.getClass().getName());
+		Optional<SysMLState> state = vertex >= 0 ? Optional.of((SysMLState)vertices.get(vertex)) : Optional.empty();
+		List<SysMLEvent> events = readEvents();
+		List<SysMLTimeEvent> timerEvents = new ArrayList<>();
+		List<DurationMilliseconds> timerDelays = new ArrayList<>();
+		readTimers(timerEvents, timerDelays);
+		int completedCount = readCount();
+		List<Long> completedIDs = new ArrayList<>();
+		for (int i = 0; i < completedCount; i++)
+			completedIDs.add(readLong());
+		resumptions.add(() ->
+		{
+			if (state.isPresent())
+			{
+				state.get().completedSubStateMachineIDs.clear();
+				state.get().completedSubStateMachineIDs.addAll(completedIDs);
+			}
+			stateMachine.resume(state, events);
+			for (int i = 0; i < timerEvents.size(); i++)
+				stateMachine.startTimer(timerEvents.get(i), timerDelays.get(i));
+		});
+		if (state.isPresent())
+		{
+			int subStateMachineCount = readCount();
+			if (subStateMachineCount != state.get().subStateMachines.size())
+				throw new IOException("snapshot of " + subStateMachineCount + " sub-state machines does not match state: " + state.get().identityString());
+			for (SysMLStateMachine subStateMachine : state.get().subStateMachines)
+				readStateMachine(subStateMachine, resumptions);
+		}
+	}
+
+	/**
+	 * Reads the record of the specified flyweight state machine instance and adds
+	 * its resumption to the specified resumptions
+	 *
+	 * @param instance    the state machine instance
+	 * @param resumptions list of the resumptions of the state machines
+	 * @throws IOException if the file cannot be read or does not match the model
+	 */
+	private void readStateMachineInstance(SysMLStateMachineInstance instance, List<Runnable> resumptions) throws IOException
+	{
+		int vertex = readCount() - 1;
+		if (vertex >= instance.definition.vertexCount() || vertex >= 0 && !instance.definition.isState(vertex))
+			throw new IOException("snapshot of state " + vertex + " does not match state machine: " + instance.definition.name);
+		List<SysMLEvent> events = readEvents();
+		List<SysMLTimeEvent> timerEvents = new ArrayList<>();
+		List<DurationMilliseconds> timerDelays = new ArrayList<>();
+		readTimers(timerEvents, timerDelays);
+		resumptions.add(() ->
+		{
+			instance.resume(vertex, events);
+			for (int i = 0; i < timerEvents.size(); i++)
+				instance.startTimer(timerEvents.get(i), timerDelays.get(i));
+		});
+	}
+
+	/**
+	 * Reads the queued events of a state machine
+	 *
+	 * @return list of the queued events
+	 * @throws IOException if the file cannot be read or does not match the model
+	 */
+	private List<SysMLEvent> readEvents() throws IOException
+	{
+		int eventCount = readCount();
+		List<SysMLEvent> result = new ArrayList<>(eventCount);
+		for (int i = 0; i < eventCount; i++)
+			result.add(cast(readObject(null), SysMLEvent.class));
+		return result;
+	}
+
+	/**
+	 * Reads the timers of a state machine, i.e. their time events and remaining
+	 * delays, into the specified lists
+	 *
+	 * @param timerEvents list to which the time events are added
+	 * @param timerDelays list to which the remaining delays are added
+	 * @throws IOException if the file cannot be read or does not match the model
+	 */
+	private void readTimers(List<SysMLTimeEvent> timerEvents, List<DurationMilliseconds> timerDelays) throws IOException
+	{
+		int timerCount = readCount();
+		for (int i = 0; i < timerCount; i++)
+		{
+			timerEvents.add(cast(readObject(null), SysMLTimeEvent.class));
+			timerDelays.add(new DurationMilliseconds(readLong()));
+		}
+	}
+
+	/**
+	 * Reads a tagged value, restoring it into the specified existing value if it
+	 * is of the same class
+	 *
+	 * @param existing the existing value in the model, possibly null, which is
+	 *                 returned if the value was not saved
+	 * @return the value read
+	 * @throws IOException if the file cannot be read or does not match the model
+	 */
+	Object readObject(Object existing) throws IOException
+	{
+		ensure(1);
+		byte tag = region.get();
+		Object result;
+		switch (tag)
+		{
+		case SnapshotFormat.tagNull:
+			result = null;
+			break;
+		case SnapshotFormat.tagSkipped:
+			result = existing;
+			break;
+		case SnapshotFormat.tagBoolean:
+			ensure(1);
+			result = region.get() != 0;
+			break;
+		case SnapshotFormat.tagByte:
+			ensure(Byte.BYTES);
+			result = region.get();
+			break;
+		case SnapshotFormat.tagShort:
+			ensure(Short.BYTES);
+			result = region.getShort();
+			break;
+		case SnapshotFormat.tagCharacter:
+			ensure(Character.BYTES);
+			result = region.getChar();
+			break;
+		case SnapshotFormat.tagInteger:
+			result = (int)readLong();
+			break;
+		case SnapshotFormat.tagLong:
+			result = readLong();
+			break;
+		case SnapshotFormat.tagFloat:
+			ensure(Float.BYTES);
+			result = region.getFloat();
+			break;
+		case SnapshotFormat.tagDouble:
+			ensure(Double.BYTES);
+			result = region.getDouble();
+			break;
+		case SnapshotFormat.tagString:
+			result = readString();
+			break;
+		case SnapshotFormat.tagEnum:
+			result = readEnum();
+			break;
+		case SnapshotFormat.tagClass:
+			result = classNamed(readString());
+			break;
+		case SnapshotFormat.tagOptionalEmpty:
+			result = Optional.empty();
+			break;
+		case SnapshotFormat.tagOptional:
+			result = Optional.ofNullable(readObject(existing instanceof Optional ? ((Optional<?>)existing).orElse(null) : null));
+			break;
+		case SnapshotFormat.tagReference:
+			result = objects.get(readCount());
+			break;
+		case SnapshotFormat.tagBlock:
+			result = block(readCount());
+			break;
+		case SnapshotFormat.tagArray:
+			result = readArray(existing);
+			break;
+		case SnapshotFormat.tagCollection:
+			result = readCollection(existing);
+			break;
+		case SnapshotFormat.tagMap:
+			result = readMap(existing);
+			break;
+		case SnapshotFormat.tagObject:
+			result = readModelObject(existing);
+			break;
+		default:
+			throw new IOException("invalid tag in snapshot: " + tag);
+		}
+		return result;
+	}
+
+	/**
+	 * Reads an enum constant by its class and name
+	 *
+	 * @return the enum constant
+	 * @throws IOException if the file cannot be read or the constant is not found
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private Object readEnum() throws IOException
+	{
+		Class<?> type = classNamed(readString());
+		String name = readString();
+		if (!type.isEnum())
+			throw new IOException("snapshot of enum does not match class: " + type.getName());
+		Object result;
+		try
+		{
+			result = Enum.valueOf((Class<? extends Enum>)type, name);
+		} catch (IllegalArgumentException e)
+		{
+			throw new IOException("snapshot of enum constant does not match class: " + type.getName() + "." + name, e);
+		}
+		return result;
+	}
+
+	/**
+	 * Reads an array, restoring it into the specified existing array if it is of
+	 * the same class and length
+	 *
+	 * @param existing the existing value in the model, possibly null
+	 * @return the array read
+	 * @throws IOException if the file cannot be read or does not match the model
+	 */
+	private Object readArray(Object existing) throws IOException
+	{
+		Class<?> type = classNamed(readString());
+		int length = readCount();
+		Object result = existing != null && existing.getClass() == type && Array.getLength(existing) == length ? existing : Array.newInstance(type.getComponentType(), length);
+		objects.add(result);
+		Class<?> componentType = type.getComponentType();
+		for (int i = 0; i < length; i++)
+			if (componentType.isPrimitive())
+				Array.set(result, i, readPrimitive(componentType));
+			else
+				Array.set(result, i, readObject(Array.get(result, i)));
+		return result;
+	}
+
+	/**
+	 * Reads a collection, restoring it into the specified existing collection if
+	 * it is of the same class and modifiable, or else into a new collection of the
+	 * same class or of the nearest modifiable class
+	 *
+	 * @param existing the existing value in the model, possibly null
+	 * @return the collection read
+	 * @throws IOException if the file cannot be read or does not match the model
+	 */
+	@SuppressWarnings("unchecked")
+	private Object readCollection(Object existing) throws IOException
+	{
+		Class<?> type = classNamed(readString());
+		Collection<Object> result = null;
+		if (existing != null && existing.getClass() == type)
+			try
+			{
+				result = (Collection<Object>)existing;
+				result.clear();
+			} catch (UnsupportedOperationException e)
+			{
+				result = null;
+			}
+		if (result == null)
+			result = (Collection<Object>)newInstance(type, SortedSet.class.isAssignableFrom(type) ? TreeSet.class
+				: Set.class.isAssignableFrom(type) ? LinkedHashSet.class : Queue.class.isAssignableFrom(type) && !List.class.isAssignableFrom(type) ? ArrayDeque.class : ArrayList.class);
+		objects.add(result);
+		int size = readCount();
+		for (int i = 0; i < size; i++)
+			result.add(readObject(null));
+		return result;
+	}
+
+	/**
+	 * Reads a map, restoring it into the specified existing map if it is of the
+	 * same class and modifiable, or else into a new map of the same class or of
+	 * the nearest modifiable class
+	 *
+	 * @param existing the existing value in the model, possibly null
+	 * @return the map read
+	 * @throws IOException if the file cannot be read or does not match the model
+	 */
+	@SuppressWarnings("unchecked")
+	private Object readMap(Object existing) throws IOException
+	{
+		Class<?> type = classNamed(readString());
+		Map<Object, Object> result = null;
+		if (existing != null && existing.getClass() == type)
+			try
+			{
+				result = (Map<Object, Object>)existing;
+				result.clear();
+			} catch (UnsupportedOperationException e)
+			{
+				result = null;
+			}
+		if (result == null)
+			result = (Map<Object, Object>)newInstance(type, SortedMap.class.isAssignableFrom(type) ? TreeMap.class : LinkedHashMap.class);
+		objects.add(result);
+		int size = readCount();
+		for (int i = 0; i < size; i++)
+		{
+			Object key = readObject(null);
+			result.put(key, readObject(result.get(key)));
+		}
+		return result;
+	}
+
+	/**
+	 * Reads a model object, restoring it into the specified existing object if it
+	 * is of the same class, or else into a newly allocated object of the class
+	 *
+	 * @param existing the existing value in the model, possibly null
+	 * @return the model object read
+	 * @throws IOException if the file cannot be read or does not match the model
+	 */
+	private Object readModelObject(Object existing) throws IOException
+	{
+		Class<?> type = classNamed(readString());
+		SnapshotLayout layout = SnapshotLayout.of(type);
+		Object result = existing;
+		if (existing == null || existing.getClass() != type)
+			try
+			{
+				result = layout.allocate();
+			} catch (ReflectiveOperationException e)
+			{
+				throw new IOException("snapshot object cannot be allocated: " + type.getName(), e);
+			}
+		objects.add(result);
+		int fieldCount = readCount();
+		if (fieldCount != layout.stateFields.length)
+			throw new IOException("snapshot of " + fieldCount + " fields does not match class of " + layout.stateFields.length + " fields: " + type.getName());
+		for (Field field : layout.stateFields)
+			if (field.getType().isPrimitive())
+				set(field, result, readPrimitive(field.getType()));
+			else
+				set(field, result, readObject(get(field, result)));
+		return result;
+	}
+
+	/**
+	 * Reads a value of the specified primitive type written without tag
+	 *
+	 * @param type the primitive type
+	 * @return the boxed value
+	 * @throws IOException if the file cannot be read
+	 */
+	private Object readPrimitive(Class<?> type) throws IOException
+	{
+		Object result;
+		if (type == long.class)
+			result = readLong();
+		else if (type == int.class)
+			result = (int)readLong();
+		else if (type == double.class)
+		{
+			ensure(Double.BYTES);
+			result = region.getDouble();
+		}
+		else if (type == float.class)
+		{
+			ensure(Float.BYTES);
+			result = region.getFloat();
+		}
+		else if (type == short.class)
+		{
+			ensure(Short.BYTES);
+			result = region.getShort();
+		}
+		else if (type == char.class)
+		{
+			ensure(Character.BYTES);
+			result = region.getChar();
+		}
+		else
+		{
+			ensure(1);
+			result = type == boolean.class ? (Object)(region.get() != 0) : (Object)region.get();
+		}
+		return result;
+	}
+
+	/**
+	 * Reads a string by its index in the string table, or as a new string in
+	 * UTF-8 if its index is 0
+	 *
+	 * @return the string
+	 * @throws IOException if the file cannot be read
+	 */
+	String readString() throws IOException
+	{
+		int index = readCount();
+		String result;
+		if (index > 0)
+		{
+			if (index > strings.size())
+				throw new IOException("invalid string index in snapshot: " + index);
+			result = strings.get(index - 1);
+		}
+		else
+		{
+			int length = readCount();
+			ensure(length);
+			byte[] bytes = new byte[length];
+			region.get(bytes);
+			result = new String(bytes, StandardCharsets.UTF_8);
+			strings.add(result);
+		}
+		return result;
+	}
+
+	/**
+	 * Reads an unsigned variable-length integer
+	 *
+	 * @return the count, length, or index
+	 * @throws IOException if the file cannot be read or the integer is invalid
+	 */
+	int readCount() throws IOException
+	{
+		long result = readUnsigned();
+		if (result > Integer.MAX_VALUE)
+			throw new IOException("invalid count in snapshot: " + result);
+		return (int)result;
+	}
+
+	/**
+	 * Reads a zig-zag encoded variable-length integer
+	 *
+	 * @return the signed integer
+	 * @throws IOException if the file cannot be read
+	 */
+	long readLong() throws IOException
+	{
+		long encoded = readUnsigned();
+		return (encoded >>> 1) ^ -(encoded & 1);
+	}
+
+	/**
+	 * Reads an unsigned variable-length integer of up to 64 bits
+	 *
+	 * @return the integer
+	 * @throws IOException if the file cannot be read
+	 */
+	private long readUnsigned() throws IOException
+	{
+		long result = 0L;
+		int shift = 0;
+		byte next;
+		do
+		{
+			ensure(1);
+			next = region.get();
+			result |= (long)(next & 0x7F) << shift;
+			shift += 7;
+		} while ((next & 0x80) != 0 && shift < Long.SIZE);
+		return result;
+	}
+
+	/**
+	 * Closes the file
+	 *
+	 * @throws IOException if the file cannot be closed
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		region = null;
+		channel.close();
+	}
+
+	/**
+	 * Ensures that the specified number of bytes can be read from the current
+	 * region, mapping the next region of the file at the current position if not
+	 *
+	 * @param byteCount number of bytes to be read
+	 * @throws IOException if the file ends before the bytes or the next region
+	 *                     cannot be mapped
+	 */
+	private void ensure(int byteCount) throws IOException
+	{
+		if (region.remaining() < byteCount)
+		{
+			regionStart += region.position();
+			long available = fileSize - regionStart;
+			if (available < byteCount)
+				throw new EOFException("snapshot ends unexpectedly at " + regionStart);
+			region = channel.map(FileChannel.MapMode.READ_ONLY, regionStart, Math.min(available, Math.max(SnapshotFormat.regionSize, byteCount)));
+		}
+	}
+
+	/**
+	 * Returns the class of the specified name, loaded by the model's class loader
+	 *
+	 * @param name name of the class
+	 * @return the class
+	 * @throws IOException if the class is not found
+	 */
+	private Class<?> classNamed(String name) throws IOException
+	{
+		Class<?> result = classes.get(name);
+		if (result == null)
+		{
+			try
+			{
+				result = Class.forName(name, false, classLoader);
+			} catch (ClassNotFoundException e)
+			{
+				throw new IOException("class of snapshot not found: " + name, e);
+			}
+			classes.put(name, result);
+		}
+		return result;
+	}
+
+	/**
+	 * Returns a new instance of the specified collection or map class by its
+	 * public no-argument constructor, or of the specified fallback class if it has
+	 * none
+	 *
+	 * @param type     the collection or map class
+	 * @param fallback modifiable class of the instance if the class cannot be
+	 *                 instantiated
+	 * @return the new instance
+	 * @throws IOException if the instance cannot be created
+	 */
+	private static Object newInstance(Class<?> type, Class<?> fallback) throws IOException
+	{
+		Object result;
+		try
+		{
+			result = type.getConstructor().newInstance();
+		} catch (ReflectiveOperationException | RuntimeException e)
+		{
+			try
+			{
+				result = fallback.getConstructor().newInstance();
+			} catch (ReflectiveOperationException f)
+			{
+				throw new IOException("collection of snapshot cannot be created: " + type.getName(), f);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the specified object cast to the specified type
+	 *
+	 * @param <T>    the type
+	 * @param object the object
+	 * @param type   class of the type
+	 * @return the cast object
+	 * @throws IOException if the object is not of the type
+	 */
+	private static <T> T cast(Object object, Class<T> type) throws IOException
+	{
+		if (!type.isInstance(object))
+			throw new IOException("snapshot object is not of type " + type.getSimpleName() + ": " + object);
+		return type.cast(object);
+	}
+
+	/**
+	 * Returns the value of the specified field of the specified object
+	 *
+	 * @param field  the field, accessible
+	 * @param object the object
+	 * @return value of the field
+	 * @throws IOException if the field cannot be accessed
+	 */
+	private static Object get(Field field, Object object) throws IOException
+	{
+		Object result;
+		try
+		{
+			result = field.get(object);
+		} catch (IllegalAccessException e)
+		{
+			throw new IOException("field cannot be restored from snapshot: " + field, e);
+		}
+		return result;
+	}
+
+	/**
+	 * Sets the specified field of the specified object to the specified value
+	 *
+	 * @param field  the field, accessible
+	 * @param object the object
+	 * @param value  the value
+	 * @throws IOException if the field cannot be set to the value
+	 */
+	private static void set(Field field, Object object, Object value) throws IOException
+	{
+		try
+		{
+			field.set(object, value);
+		} catch (IllegalAccessException | IllegalArgumentException e)
+		{
+			throw new IOException("field cannot be restored from snapshot: " + field, e);
+		}
+	}
+}
@@ -0,0 +1,582 @@
+package sysmlinjava.execution.snapshots;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import sysmlinjava.blocks.SysMLBlock;
+import sysmlinjava.events.SysMLEvent;
+import sysmlinjava.statemachine.SysMLState;
+import sysmlinjava.statemachine.SysMLStateMachine;
+import sysmlinjava.statemachine.SysMLStateMachineInstance;
+import sysmlinjava.statemachine.SysMLVertex;
+
+/**
+ * Writer of a snapshot file in the {@code SnapshotFormat}. The file is written
+ * through memory-mapped regions of the {@code SnapshotFormat.regionSize}, each
+ * mapped at the end of the previous one as it fills, so that the snapshot is
+ * encoded directly into the file's pages without intermediate buffers or
+ * system calls per write. Upon close, the file is truncated to the size
+ * written.
+ *
+ * @author ModelerOne
+ *
+ */
+final class SnapshotWriter implements Closeable
+{
+	/**
+	 * Channel of the snapshot file
+	 */
+	private final FileChannel channel;
+	/**
+	 * Position in the file of the currently mapped region
+	 */
+	private long regionStart;
+	/**
+	 * Currently mapped region of the file
+	 */
+	private MappedByteBuffer region;
+	/**
+	 * Indexes of the strings written, by string
+	 */
+	private final Map<String, Integer> stringIndexes;
+	/**
+	 * Indexes of the arrays, collections, maps, and model objects written, by
+	 * identity
+	 */
+	private final Map<Object, Integer> objectIndexes;
+	/**
+	 * Indexes of the blocks of the model, by identity
+	 */
+	private final Map<SysMLBlock, Integer> blockIndexes;
+
+	/**
+	 * Constructor, creates or overwrites the snapshot file
+	 *
+	 * @param file   path of the snapshot file
+	 * @param blocks the blocks of the model, in the order of their records
+	 * @throws IOException if the file cannot be opened or mapped
+	 */
+	SnapshotWriter(Path file, List<SysMLBlock> blocks) throws IOException
+	{
+		super();
+		this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		this.regionStart = 0L;
+		this.region = channel.map(FileChannel.MapMode.READ_WRITE, 0L, SnapshotFormat.regionSize);
+		this.stringIndexes = new HashMap<>();
+		this.objectIndexes = new IdentityHashMap<>();
+		this.blockIndexes = new IdentityHashMap<>();
+		for (int i = 0; i < blocks.size(); i++)
+			blockIndexes.put(blocks.get(i), i);
+	}
+
+	/**
+	 * Writes the header of the snapshot or journal
+	 *
+	 * @param magic      magic number of the file, i.e. of a snapshot or a journal
+	 * @param root       root block of the model
+	 * @param blockCount number of blocks of the model
+	 * @throws IOException if the file cannot be written
+	 */
+	void writeHeader(int magic, SysMLBlock root, int blockCount) throws IOException
+	{
+		ensure(Integer.BYTES + Short.BYTES + Long.BYTES);
+		region.putInt(magic);
+		region.putShort(SnapshotFormat.version);
+		region.putLong(System.currentTimeMillis());
+		writeString(root.getClass().getName());
+		writeCount(blockCount);
+	}
+
+	/**
+	 * Returns the index of the specified block among the blocks of the model
+	 *
+	 * @param block the block
+	 * @return index of the block, or -1 if it is not a block of the model
+	 */
+	int blockIndex(SysMLBlock block)
+	{
+		Integer result = blockIndexes.get(block);
+		return result != null ? result : -1;
+	}
+
+	/**
+	 * Forgets the objects written so far, so that the objects written next are
+	 * written in full rather than as references, e.g. at the start of each entry
+	 * of a journal
+	 */
+	void resetReferences()
+	{
+		objectIndexes.clear();
+	}
+
+	/**
+	 * Writes the record of the specified block, i.e. its values and flows and its
+	 * state machine. The values and flows are captured while synchronized with the
+	 * event handler of the block's state machine, if any, so that they are
+	 * consistent with its state.
+	 *
+	 * @param block the block
+	 * @throws IOException if the file cannot be written
+	 */
+	void writeBlock(SysMLBlock block) throws IOException
+	{
+		SnapshotLayout layout = SnapshotLayout.of(block.getClass());
+		boolean hasInstance = block.stateMachineInstance != null && block.stateMachineInstance.isPresent();
+		boolean hasStateMachine = !hasInstance && block.stateMachine != null && block.stateMachine.isPresent();
+		Object monitor = hasInstance ? block.stateMachineInstance.get() : hasStateMachine ? block.stateMachine.get() : block;
+		synchronized (monitor)
+		{
+			writeString(block.getClass().getName());
+			writeCount(layout.valueFields.length);
+			for (Field field : layout.valueFields)
+			{
+				writeString(field.getName());
+				writeObject(get(field, block));
+			}
+			ensure(1);
+			if (hasInstance)
+			{
+				region.put(SnapshotFormat.stateMachineInstance);
+				writeStateMachineInstance(block.stateMachineInstance.get());
+			}
+			else if (hasStateMachine)
+			{
+				region.put(SnapshotFormat.stateMachine);
+				writeStateMachine(block.stateMachine.get());
+			}
+			else
+				region.put(SnapshotFormat.noStateMachine);
+		}
+	}
+
+	/**
+	 * Writes the record of the specified state machine and, recursively, of the
+	 * sub-state machines of its current state. The current state, queued events,
+	 * and timers of the state machine are captured while synchronized with its
+	 * event handler, so that they are consistent with each other.
+	 *
+	 * @param stateMachine the state machine
+	 * @throws IOException if the file cannot be written
+	 */
+	private void writeStateMachine(SysMLStateMachine stateMachine) throws IOException
+	{
+		Optional<SysMLState> state;
+		List<SysMLEvent> events;
+		List<SysMLEvent> timerEvents = new ArrayList<>();
+		List<Long> timerDelays = new ArrayList<>();
+		List<Long> completedIDs = new ArrayList<>();
+		synchronized (stateMachine)
+		{
+			state = stateMachine.currentState;
+			events = stateMachine.queuedEvents();
+			for (SysMLStateMachine.Timer timer : stateMachine.timers())
+			{
+				timerEvents.add(timer.event());
+				timerDelays.add(timer.remainingDelay().value);
+			}
+			if (state.isPresent())
+				completedIDs.addAll(state.get().completedSubStateMachineIDs);
+		}
+		List<SysMLVertex> vertices = SnapshotLayout.verticesOf(stateMachine);
+		writeCount(state.isPresent() ? vertices.indexOf(state.get()) + 1 : 0);
+		writeEventsAndTimers(events, timerEvents, timerDelays);
+		writeCount(completedIDs.size());
+		for (Long completedID : completedIDs)
+			writeLong(completedID);
+		if (state.isPresent())
+		{
+			writeCount(state.get().subStateMachines.size());
+			for (SysMLStateMachine subStateMachine : state.get().subStateMachines)
+				writeStateMachine(subStateMachine);
+		}
+	}
+
+	/**
+	 * Writes the record of the specified flyweight state machine instance, whose
+	 * current vertex, queued events, and timers are captured while synchronized
+	 * with its event handler
+	 *
+	 * @param instance the state machine instance
+	 * @throws IOException if the file cannot be written
+	 */
+	private void writeStateMachineInstance(SysMLStateMachineInstance instance) throws IOException
+	{
+		int vertex;
+		List<SysMLEvent> events;
+		List<SysMLEvent> timerEvents = new ArrayList<>();
+		List<Long> timerDelays = new ArrayList<>();
+		synchronized (instance)
+		{
+			vertex = instance.currentVertex();
+			events = instance.queuedEvents();
+			for (SysMLStateMachineInstance.Timer timer : instance.timers())
+			{
+				timerEvents.add(timer.event());
+				timerDelays.add(timer.remainingDelay().value);
+			}
+		}
+		writeCount(vertex + 1);
+		writeEventsAndTimers(events, timerEvents, timerDelays);
+	}
+
+	/**
+	 * Writes the specified queued events and the specified timers, i.e. their time
+	 * events and remaining delays
+	 *
+	 * @param events      the queued events
+	 * @param timerEvents the time events of the timers
+	 * @param timerDelays the remaining delays of the timers in milliseconds
+	 * @throws IOException if the file cannot be written
+	 */
+	private void writeEventsAndTimers(List<SysMLEvent> events, List<SysMLEvent> timerEvents, List<Long> timerDelays) throws IOException
+	{
+		writeCount(events.size());
+		for (SysMLEvent event : events)
+			writeObject(event);
+		writeCount(timerEvents.size());
+		for (int i = 0; i < timerEvents.size(); i++)
+		{
+			writeObject(timerEvents.get(i));
+			writeLong(timerDelays.get(i));
+		}
+	}
+
+	/**
+	 * Writes the specified value as a tag followed by its content
+	 *
+	 * @param value the value, possibly null
+	 * @throws IOException if the file cannot be written
+	 */
+	void writeObject(Object value) throws IOException
+	{
+		ensure(1 + Long.BYTES);
+		if (value == null)
+			region.put(SnapshotFormat.tagNull);
+		else if (value instanceof Boolean)
+			region.put(SnapshotFormat.tagBoolean).put((byte)(((Boolean)value) ? 1 : 0));
+		else if (value instanceof Byte)
+			region.put(SnapshotFormat.tagByte).put((Byte)value);
+		else if (value instanceof Short)
+			region.put(SnapshotFormat.tagShort).putShort((Short)value);
+		else if (value instanceof Character)
+			region.put(SnapshotFormat.tagCharacter).putChar((Character)value);
+		else if (value instanceof Integer)
+		{
+			region.put(SnapshotFormat.tagInteger);
+			writeLong((Integer)value);
+		}
+		else if (value instanceof Long)
+		{
+			region.put(SnapshotFormat.tagLong);
+			writeLong((Long)value);
+		}
+		else if (value instanceof Float)
+			region.put(SnapshotFormat.tagFloat).putFloat((Float)value);
+		else if (value instanceof Double)
+			region.put(SnapshotFormat.tagDouble).putDouble((Double)value);
+		else if (value instanceof String)
+		{
+			region.put(SnapshotFormat.tagString);
+			writeString((String)value);
+		}
+		else if (value instanceof Enum)
+		{
+			region.put(SnapshotFormat.tagEnum);
+			writeString(((Enum<?>)value).getDeclaringClass().getName());
+			writeString(((Enum<?>)value).name());
+		}
+		else if (value instanceof Class)
+		{
+			region.put(SnapshotFormat.tagClass);
+			writeString(((Class<?>)value).getName());
+		}
+		else if (value instanceof Optional)
+		{
+			Optional<?> optional = (Optional<?>)value;
+			if (optional.isPresent())
+			{
+				region.put(SnapshotFormat.tagOptional);
+				writeObject(optional.get());
+			}
+			else
+				region.put(SnapshotFormat.tagOptionalEmpty);
+		}
+		else if (objectIndexes.containsKey(value))
+		{
+			region.put(SnapshotFormat.tagReference);
+			writeCount(objectIndexes.get(value));
+		}
+		else if (value instanceof SysMLBlock)
+		{
+			Integer blockIndex = blockIndexes.get(value);
+			if (blockIndex != null)
+			{
+				region.put(SnapshotFormat.tagBlock);
+				writeCount(blockIndex);
+			}
+			else
+				region.put(SnapshotFormat.tagSkipped);
+		}
+		else if (value.getClass().isArray())
+			writeArray(value);
+		else if (value instanceof Collection && value.getClass().getName().startsWith(javaUtilPrefix))
+			writeCollection((Collection<?>)value);
+		else if (value instanceof Map && value.getClass().getName().startsWith(javaUtilPrefix))
+			writeMap((Map<?, ?>)value);
+		else if (SnapshotLayout.of(value.getClass()).isObject)
+			writeModelObject(value);
+		else
+			region.put(SnapshotFormat.tagSkipped);
+	}
+
+	/**
+	 * Writes the specified array, i.e. its class, length, and elements, of which
+	 * primitive elements are written without tags
+	 *
+	 * @param array the array
+	 * @throws IOException if the file cannot be written
+	 */
+	private void writeArray(Object array) throws IOException
+	{
+		objectIndexes.put(array, objectIndexes.size());
+		region.put(SnapshotFormat.tagArray);
+		writeString(array.getClass().getName());
+		int length = Array.getLength(array);
+		writeCount(length);
+		Class<?> componentType = array.getClass().getComponentType();
+		for (int i = 0; i < length; i++)
+			if (componentType.isPrimitive())
+				writePrimitive(componentType, Array.get(array, i));
+			else
+				writeObject(Array.get(array, i));
+	}
+
+	/**
+	 * Writes the specified collection of the JDK, i.e. its class, size, and
+	 * elements in iteration order
+	 *
+	 * @param collection the collection
+	 * @throws IOException if the file cannot be written
+	 */
+	private void writeCollection(Collection<?> collection) throws IOException
+	{
+		objectIndexes.put(collection, objectIndexes.size());
+		region.put(SnapshotFormat.tagCollection);
+		writeString(collection.getClass().getName());
+		Object[] elements = collection.toArray();
+		writeCount(elements.length);
+		for (Object element : elements)
+			writeObject(element);
+	}
+
+	/**
+	 * Writes the specified map of the JDK, i.e. its class, size, and keys and
+	 * values in iteration order
+	 *
+	 * @param map the map
+	 * @throws IOException if the file cannot be written
+	 */
+	private void writeMap(Map<?, ?> map) throws IOException
+	{
+		objectIndexes.put(map, objectIndexes.size());
+		region.put(SnapshotFormat.tagMap);
+		writeString(map.getClass().getName());
+		List<Map.Entry<?, ?>> entries = new ArrayList<>(map.entrySet());
+		writeCount(entries.size());
+		for (Map.Entry<?, ?> entry : entries)
+		{
+			writeObject(entry.getKey());
+			writeObject(entry.getValue());
+		}
+	}
+
+	/**
+	 * Writes the specified model object, i.e. its class and the values of its
+	 * state fields, of which primitive values are written without tags
+	 *
+	 * @param object the model object
+	 * @throws IOException if the file cannot be written
+	 */
+	private void writeModelObject(Object object) throws IOException
+	{
+		SnapshotLayout layout = SnapshotLayout.of(object.getClass());
+		objectIndexes.put(object, objectIndexes.size());
+		region.put(SnapshotFormat.tagObject);
+		writeString(object.getClass().getName());
+		writeCount(layout.stateFields.length);
+		for (Field field : layout.stateFields)
+			if (field.getType().isPrimitive())
+				writePrimitive(field.getType(), get(field, object));
+			else
+				writeObject(get(field, object));
+	}
+
+	/**
+	 * Writes the specified boxed value of the specified primitive type without tag
+	 *
+	 * @param type  the primitive type
+	 * @param value the boxed value
+	 * @throws IOException if the file cannot be written
+	 */
+	private void writePrimitive(Class<?> type, Object value) throws IOException
+	{
+		ensure(Long.BYTES);
+		if (type == double.class)
+			region.putDouble((Double)value);
+		else if (type == long.class)
+			writeLong((Long)value);
+		else if (type == int.class)
+			writeLong((Integer)value);
+		else if (type == boolean.class)
+			region.put((byte)(((Boolean)value) ? 1 : 0));
+		else if (type == float.class)
+			region.putFloat((Float)value);
+		else if (type == short.class)
+			region.putShort((Short)value);
+		else if (type == char.class)
+			region.putChar((Character)value);
+		else
+			region.put((Byte)value);
+	}
+
+	/**
+	 * Writes the specified string by its index in the string table, or as a new
+	 * string in UTF-8 if not previously written
+	 *
+	 * @param value the string
+	 * @throws IOException if the file cannot be written
+	 */
+	void writeString(String value) throws IOException
+	{
+		Integer index = stringIndexes.get(value);
+		if (index != null)
+			writeCount(index + 1);
+		else
+		{
+			stringIndexes.put(value, stringIndexes.size());
+			byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+			writeCount(0);
+			writeCount(bytes.length);
+			ensure(bytes.length);
+			region.put(bytes);
+		}
+	}
+
+	/**
+	 * Writes the specified non-negative count, length, or index as an unsigned
+	 * variable-length integer
+	 *
+	 * @param value the count
+	 * @throws IOException if the file cannot be written
+	 */
+	void writeCount(long value) throws IOException
+	{
+		ensure(10);
+		long remaining = value;
+		while ((remaining & ~0x7FL) != 0)
+		{
+			region.put((byte)((remaining & 0x7F) | 0x80));
+			remaining >>>= 7;
+		}
+		region.put((byte)remaining);
+	}
+
+	/**
+	 * Writes the specified signed integer as a zig-zag encoded variable-length
+	 * integer
+	 *
+	 * @param value the integer
+	 * @throws IOException if the file cannot be written
+	 */
+	void writeLong(long value) throws IOException
+	{
+		writeCount((value << 1) ^ (value >> 63));
+	}
+
+	/**
+	 * Returns the number of bytes written
+	 *
+	 * @return size of the snapshot written so far
+	 */
+	long size()
+	{
+		return regionStart + region.position();
+	}
+
+	/**
+	 * Flushes the mapped regions to the file, truncates the file to the size
+	 * written, and closes the file
+	 *
+	 * @throws IOException if the file cannot be written
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		try
+		{
+			long size = size();
+			region.force();
+			region = null;
+			channel.truncate(size);
+		} finally
+		{
+			channel.close();
+		}
+	}
+
+	/**
+	 * Ensures that the specified number of bytes can be written to the current
+	 * region, mapping the next region of the file at the current position if not
+	 *
+	 * @param byteCount number of bytes to be written
+	 * @throws IOException if the next region cannot be mapped
+	 */
+	private void ensure(int byteCount) throws IOException
+	{
+		if (region.remaining() < byteCount)
+		{
+			regionStart += region.position();
+			region.force();
+			region = channel.map(FileChannel.MapMode.READ_WRITE, regionStart, Math.max(SnapshotFormat.regionSize, byteCount));
+		}
+	}
+
+	/**
+	 * Returns the value of the specified field of the specified object
+	 *
+	 * @param field  the field, accessible
+	 * @param object the object
+	 * @return value of the field
+	 */
+	private static Object get(Field field, Object object)
+	{
+		Object result;
+		try
+		{
+			result = field.get(object);
+		} catch (IllegalAccessException e)
+		{
+			throw new IllegalArgumentException("field cannot be saved to snapshot: " + field, e);
+		}
+		return result;
+	}
+
+	/**
+	 * Prefix of the names of the JDK's collection and map classes that are saved
+	 * by their elements
+	 */
+	private static final String javaUtilPrefix = "java.util.";
+}
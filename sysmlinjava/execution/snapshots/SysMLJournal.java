@@ -0,0 +1,402 @@
+package sysmlinjava.execution.snapshots;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.logging.Logger;
+import sysmlinjava.blocks.SysMLBlock;
+import sysmlinjava.common.SysMLSignal;
+import sysmlinjava.events.SysMLEvent;
+import sysmlinjava.execution.SysMLExecutors;
+import sysmlinjava.ports.SysMLFullPort;
+
+/**
+ * Append-only journal of the inputs of a running SysMLinJava model that
+ * originate outside the model, from which the run is reproduced by the
+ * {@code SysMLJournalReplay}.
+ * <h2>Recording of a model run</h2> The journal is started with the model, as
+ * follows, and records every input of the model until it is closed:
+ *
+ * <pre>
+ * City city = new City();
+ * try (SysMLJournal journal = SysMLJournal.start(city, Path.of("run.journal")))
+ * {
+ * 	city.delay(3600.0);
+ * }
+ * </pre>
+ *
+ * The inputs are recorded with the time of their occurrence since the start of
+ * the journal:
+ * <ul>
+ * <li>the events accepted by the blocks of the model from outside the model,
+ * i.e. by the {@code acceptEvent()} operation called by a thread of the
+ * application rather than by a thread of the model's executors or by the
+ * handling of another such event</li>
+ * <li>the signals received by the full ports of the model by UDP</li>
+ * <li>the expiries of the timers of the state machines</li>
+ * <li>the random numbers drawn by the probability distributions, by the source
+ * of the numbers, i.e. the class, name, and ID of the distribution, which must
+ * therefore be unique among the distributions that draw while recording</li>
+ * </ul>
+ * Events and signals are encoded by the binary encoding of the
+ * {@code SysMLSnapshot}, and the recorded blocks and ports are identified by
+ * their index in the model, so that the model's blocks and ports referenced by
+ * the events are those of the model into which the journal is replayed.
+ * <h3>Low latency</h3> The entries are encoded directly into memory-mapped
+ * regions of the journal file, so that the recording of an input costs its
+ * encoding and no system call. As the mapped pages belong to the file, the
+ * entries recorded are retained in the file if the JVM fails before the journal
+ * is closed. The recording is serialized by the journal, i.e. inputs occurring
+ * concurrently are recorded in the order in which they obtain the journal. If
+ * no journal is recording, the hooks of the model cost the read of a volatile
+ * field.
+ * <h3>Restrictions</h3> Only one journal records at a time, and only the
+ * inputs of the blocks of the model with which the journal is started, i.e.
+ * the blocks that exist at its start, are recorded. Inputs of the application
+ * other than those recorded, e.g. direct calls of the operations of a block or
+ * changes of its values, are not recorded and are therefore not reproduced.
+ *
+ * @author ModelerOne
+ *
+ * @see SysMLJournalReplay
+ */
+public final class SysMLJournal implements Closeable
+{
+	/**
+	 * Root block of the model whose inputs are recorded
+	 */
+	public final SysMLBlock root;
+	/**
+	 * Path of the journal file
+	 */
+	public final Path file;
+	/**
+	 * Writer of the journal file
+	 */
+	private final SnapshotWriter writer;
+	/**
+	 * {@code System.nanoTime()} at the start of the journal
+	 */
+	private final long startNanos;
+	/**
+	 * Number of entries recorded
+	 */
+	private long entryCount;
+	/**
+	 * Whether the journal has been closed
+	 */
+	private boolean isClosed;
+	/**
+	 * Drawers of the random numbers recorded by the journal, by their sources
+	 */
+	private final Map<String, Object> drawersBySource;
+
+	/**
+	 * Constructor, creates or overwrites the journal file and writes its header
+	 *
+	 * @param root   root block of the model
+	 * @param blocks the blocks of the model, in order of their indexes
+	 * @param file   path of the journal file
+	 * @throws IOException if the journal file cannot be written
+	 */
+	private SysMLJournal(SysMLBlock root, List<SysMLBlock> blocks, Path file) throws IOException
+	{
+		super();
+		this.root = root;
+		this.file = file;
+		this.writer = new SnapshotWriter(file, blocks);
+		writer.writeHeader(SnapshotFormat.journalMagic, root, blocks.size());
+		this.startNanos = System.nanoTime();
+		this.entryCount = 0L;
+		this.isClosed = false;
+		this.drawersBySource = new HashMap<>();
+	}
+
+	/**
+	 * Starts a journal of the model of which the specified block is the root in
+	 * the specified file and starts the model
+	 *
+	 * @param root root block of the model, newly created and not started
+	 * @param file path of the journal file, created or overwritten
+	 * @return the journal, recording until closed
+	 * @throws IOException           if the journal file cannot be written
+	 * @throws IllegalStateException if another journal is recording
+	 */
+	public static SysMLJournal start(SysMLBlock root, Path file) throws IOException
+	{
+		SysMLJournal result;
+		synchronized (SysMLJournal.class)
+		{
+			if (recording.isPresent())
+				throw new IllegalStateException("journal already recording: " + recording.get().file);
+			result = new SysMLJournal(root, SnapshotLayout.blocksOf(root), file);
+			recording = Optional.of(result);
+		}
+		isInModel.set(true);
+		try
+		{
+			root.start();
+		} finally
+		{
+			isInModel.set(false);
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the number of entries recorded
+	 *
+	 * @return number of entries
+	 */
+	public synchronized long entryCount()
+	{
+		return entryCount;
+	}
+
+	/**
+	 * Ends the recording, writes the end of the journal, and closes the journal
+	 * file. The model continues to run.
+	 *
+	 * @throws IOException if the journal file cannot be written
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		synchronized (SysMLJournal.class)
+		{
+			if (recording.isPresent() && recording.get() == this)
+				recording = Optional.empty();
+		}
+		synchronized (this)
+		{
+			if (!isClosed)
+			{
+				isClosed = true;
+				try
+				{
+					beginEntry(SnapshotFormat.entryEnd);
+				} finally
+				{
+					writer.close();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns whether a journal is recording
+	 *
+	 * @return true if a journal is recording
+	 */
+	public static boolean isRecording()
+	{
+		return recording.isPresent();
+	}
+
+	/**
+	 * Records the specified event accepted by the specified block if the event
+	 * originates outside the model, i.e. if the calling thread is not a thread of
+	 * the model and is not already handling an input from outside the model, and
+	 * marks the calling thread as handling the input. Called by the block's
+	 * {@code acceptEvent()} operation.
+	 *
+	 * @param block the block
+	 * @param event the event accepted by the block
+	 * @return true if the event was recorded, in which case the
+	 *         {@code exitModel()} operation is to be called at the end of its
+	 *         acceptance
+	 */
+	public static boolean enterModel(SysMLBlock block, SysMLEvent event)
+	{
+		Optional<SysMLJournal> journal = recording;
+		boolean result = journal.isPresent() && !isInModel.get() && !SysMLExecutors.isModelThread();
+		if (result)
+		{
+			isInModel.set(true);
+			journal.get().recordObject(SnapshotFormat.entryEvent, block, event);
+		}
+		return result;
+	}
+
+	/**
+	 * Marks the end of the handling of an input from outside the model by the
+	 * calling thread
+	 */
+	public static void exitModel()
+	{
+		isInModel.set(false);
+	}
+
+	/**
+	 * Records the specified signal received by the specified full port by UDP
+	 *
+	 * @param port   the full port
+	 * @param signal the signal received
+	 */
+	public static void recordSignal(SysMLFullPort port, SysMLSignal signal)
+	{
+		Optional<SysMLJournal> journal = recording;
+		if (journal.isPresent())
+			journal.get().recordObject(SnapshotFormat.entrySignal, port, signal);
+	}
+
+	/**
+	 * Records the expiry of the timer of the specified ID of a state machine of
+	 * the specified block
+	 *
+	 * @param block   the block of the state machine
+	 * @param timerID the ID of the timer
+	 */
+	public static void recordTimer(SysMLBlock block, String timerID)
+	{
+		Optional<SysMLJournal> journal = recording;
+		if (journal.isPresent())
+			journal.get().recordString(SnapshotFormat.entryTimer, block, timerID);
+	}
+
+	/**
+	 * Records the specified random number drawn by the specified drawer from the
+	 * specified source. As the draws of a source are replayed in the order of
+	 * their recording, the source must identify a single drawer, i.e. the draws
+	 * of different drawers from the same source are rejected.
+	 *
+	 * @param drawer the drawer of the random numbers, e.g. a probability
+	 *               distribution
+	 * @param source the source of the random numbers, e.g. the identity of a
+	 *               probability distribution
+	 * @param drawn  the random number drawn
+	 * @throws IllegalStateException if a different drawer has drawn from the
+	 *                               source
+	 */
+	public static void recordDraw(Object drawer, String source, int drawn)
+	{
+		Optional<SysMLJournal> journal = recording;
+		if (journal.isPresent())
+			journal.get().recordDrawn(drawer, source, drawn);
+	}
+
+	/**
+	 * Records an entry of the specified kind of the specified block and object
+	 *
+	 * @param kind   kind of the entry
+	 * @param block  the block
+	 * @param object the event or signal
+	 */
+	private synchronized void recordObject(byte kind, SysMLBlock block, Object object)
+	{
+		int blockIndex = writer.blockIndex(block);
+		if (blockIndex < 0)
+			logger.warning("input of block not in journal's model not recorded: " + block.identityString());
+		else if (!isClosed)
+			try
+			{
+				beginEntry(kind);
+				writer.writeCount(blockIndex);
+				writer.writeObject(object);
+			} catch (IOException e)
+			{
+				failed(e);
+			}
+	}
+
+	/**
+	 * Records an entry of the specified kind of the specified block and string
+	 *
+	 * @param kind  kind of the entry
+	 * @param block the block
+	 * @param value the string
+	 */
+	private synchronized void recordString(byte kind, SysMLBlock block, String value)
+	{
+		int blockIndex = writer.blockIndex(block);
+		if (blockIndex < 0)
+			logger.warning("input of block not in journal's model not recorded: " + block.identityString());
+		else if (!isClosed)
+			try
+			{
+				beginEntry(kind);
+				writer.writeCount(blockIndex);
+				writer.writeString(value);
+			} catch (IOException e)
+			{
+				failed(e);
+			}
+	}
+
+	/**
+	 * Records an entry of the specified random number drawn by the specified
+	 * drawer from the specified source
+	 *
+	 * @param drawer the drawer of the random numbers
+	 * @param source the source of the random numbers
+	 * @param drawn  the random number drawn
+	 * @throws IllegalStateException if a different drawer has drawn from the
+	 *                               source
+	 */
+	private synchronized void recordDrawn(Object drawer, String source, int drawn)
+	{
+		Object sourceDrawer = drawersBySource.putIfAbsent(source, drawer);
+		if (sourceDrawer != null && sourceDrawer != drawer)
+			throw new IllegalStateException("draws of different distributions from the same source cannot be replayed, the distributions are to have unique names or IDs: " + source);
+		if (!isClosed)
+			try
+			{
+				beginEntry(SnapshotFormat.entryDraw);
+				writer.writeString(source);
+				writer.writeLong(drawn);
+			} catch (IOException e)
+			{
+				failed(e);
+			}
+	}
+
+	/**
+	 * Writes the kind and time of a new entry and resets the references to the
+	 * objects of the previous entries
+	 *
+	 * @param kind kind of the entry
+	 * @throws IOException if the journal file cannot be written
+	 */
+	private void beginEntry(byte kind) throws IOException
+	{
+		writer.resetReferences();
+		writer.writeCount(kind);
+		writer.writeLong(System.nanoTime() - startNanos);
+		entryCount++;
+	}
+
+	/**
+	 * Ends the recording upon failure to write the journal file
+	 *
+	 * @param e the failure
+	 */
+	private void failed(IOException e)
+	{
+		logger.severe("journal recording ended, journal cannot be written: " + file + ": " + e);
+		try
+		{
+			close();
+		} catch (IOException closeException)
+		{
+			logger.severe("journal cannot be closed: " + file + ": " + closeException);
+		}
+	}
+
+	/**
+	 * Journal that is recording, if any
+	 */
+	private static volatile Optional<SysMLJournal> recording = Optional.empty();
+	/**
+	 * Whether the thread is handling an input from outside the model, whose
+	 * consequences are therefore not recorded
+	 */
+	private static final ThreadLocal<Boolean> isInModel = ThreadLocal.withInitial(() -> false);
+	/**
+	 * Logger of the journals
+	 */
+	private static final Logger logger = Logger.getLogger(SysMLJournal.class.getSimpleName());
+}
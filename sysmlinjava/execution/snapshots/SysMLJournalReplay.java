@@ -0,0 +1,358 @@
+package sysmlinjava.execution.snapshots;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.logging.Logger;
+import sysmlinjava.blocks.SysMLBlock;
+import sysmlinjava.common.SysMLSignal;
+import sysmlinjava.events.SysMLEvent;
+import sysmlinjava.execution.ExecutorMode;
+import sysmlinjava.execution.VirtualTimeExecutor;
+import sysmlinjava.ports.SysMLFullPort;
+import sysmlinjava.statemachine.SysMLState;
+import sysmlinjava.statemachine.SysMLStateMachine;
+import sysmlinjava.statemachine.SysMLStateMachineInstance;
+
+/**
+ * Replay of the journal of a model run, recorded by the {@code SysMLJournal},
+ * into a newly created model of the same structure, in virtual time and in a
+ * single thread.
+ * <h2>Deterministic replay</h2> The model into which the journal is replayed
+ * must be created in the {@code deterministic} mode of the
+ * {@code SysMLExecutors}, so that all its tasks are performed by the
+ * {@code VirtualTimeExecutor} in the thread of the replay, as follows:
+ *
+ * <pre>
+ * SysMLExecutors.mode = ExecutorMode.deterministic;
+ * City city = new City();
+ * SysMLJournalReplay.replay(city, Path.of("run.journal"));
+ * </pre>
+ *
+ * The replay starts the model, as did the journal, and then, for each recorded
+ * input in order, performs the model's tasks up to the virtual time of the input
+ * and injects the input into the model, i.e. accepts the recorded event by its
+ * block, receives the recorded signal by its full port, or expires the recorded
+ * timer. Finally, the tasks are performed up to the virtual time at which the
+ * journal was closed. During the replay:
+ * <ul>
+ * <li>the timers of the state machines expire only as recorded, i.e. their
+ * scheduled expiries are suppressed, so that the order of their events
+ * relative to the other inputs is as recorded</li>
+ * <li>the UDP receivers of the full ports are not started, so that no signals
+ * other than those recorded are received</li>
+ * <li>the probability distributions draw the recorded random numbers of their
+ * source in order, and draw new random numbers once the recorded numbers are
+ * exhausted</li>
+ * </ul>
+ * As the virtual time advances to each task's scheduled time without waiting,
+ * the replay runs as fast as the model's handling of its inputs, regardless of
+ * the duration of the recorded run.
+ * <h3>Reproduction</h3> The replay reproduces the transitions of the recorded
+ * run to the extent that they are determined by the model's inputs, i.e. the
+ * replay of the same journal always performs the same transitions in the same
+ * order, and these are the recorded run's transitions unless the recorded run
+ * depended on the relative timing of its concurrent threads. The restrictions of
+ * the {@code VirtualTimeExecutor} apply, i.e. the model's do-activities must be
+ * finite.
+ *
+ * @author ModelerOne
+ *
+ * @see SysMLJournal
+ * @see sysmlinjava.execution.VirtualTimeExecutor
+ */
+public final class SysMLJournalReplay
+{
+	/**
+	 * Executor of the model that is replayed
+	 */
+	private final VirtualTimeExecutor executor;
+	/**
+	 * Recorded inputs of the journal, in order of their recording
+	 */
+	private final List<Input> inputs;
+	/**
+	 * Recorded random numbers that have not yet been drawn, by source
+	 */
+	private final Map<String, ArrayDeque<Integer>> draws;
+	/**
+	 * Time at which the journal ended, in nanoseconds since its start
+	 */
+	private long endNanos;
+
+	/**
+	 * Constructor
+	 *
+	 * @param executor executor of the model that is replayed
+	 */
+	private SysMLJournalReplay(VirtualTimeExecutor executor)
+	{
+		super();
+		this.executor = executor;
+		this.inputs = new ArrayList<>();
+		this.draws = new HashMap<>();
+		this.endNanos = 0L;
+	}
+
+	/**
+	 * Replays the journal in the specified file into the model of which the
+	 * specified block is the root, newly created in {@code deterministic} mode and
+	 * not started
+	 *
+	 * @param root the root block of the model
+	 * @param file path of the journal file
+	 * @return number of inputs replayed, i.e. of events, signals, and timer
+	 *         expiries
+	 * @throws IOException              if the journal file cannot be read or does
+	 *                                  not match the model
+	 * @throws IllegalStateException    if the model was not created in
+	 *                                  {@code deterministic} mode or another
+	 *                                  journal is being replayed
+	 * @throws IllegalArgumentException if a class of the model is not accessible
+	 *                                  by reflection
+	 */
+	public static long replay(SysMLBlock root, Path file) throws IOException
+	{
+		if (!(root.concurrentExecutionThreads instanceof VirtualTimeExecutor))
+			throw new IllegalStateException("model to be replayed not created in " + ExecutorMode.deterministic + " mode");
+		SysMLJournalReplay replay = new SysMLJournalReplay((VirtualTimeExecutor)root.concurrentExecutionThreads);
+		replay.read(SnapshotLayout.blocksOf(root), file);
+		synchronized (SysMLJournalReplay.class)
+		{
+			if (replaying.isPresent())
+				throw new IllegalStateException("journal already replaying");
+			replaying = Optional.of(replay);
+		}
+		try
+		{
+			replay.run(root);
+		} finally
+		{
+			synchronized (SysMLJournalReplay.class)
+			{
+				replaying = Optional.empty();
+			}
+		}
+		return replay.inputs.size();
+	}
+
+	/**
+	 * Returns whether a journal is being replayed
+	 *
+	 * @return true if a journal is being replayed
+	 */
+	public static boolean isReplaying()
+	{
+		return replaying.isPresent();
+	}
+
+	/**
+	 * Returns the next recorded random number of the specified source, if a
+	 * journal is being replayed and its recorded numbers of the source are not
+	 * exhausted
+	 *
+	 * @param source the source of the random numbers
+	 * @return optional recorded random number
+	 */
+	public static Optional<Integer> replayedDraw(String source)
+	{
+		Optional<SysMLJournalReplay> replay = replaying;
+		Optional<Integer> result = Optional.empty();
+		if (replay.isPresent())
+			synchronized (replay.get().draws)
+			{
+				ArrayDeque<Integer> drawn = replay.get().draws.get(source);
+				if (drawn != null && !drawn.isEmpty())
+					result = Optional.of(drawn.poll());
+			}
+		return result;
+	}
+
+	/**
+	 * Reads the entries of the journal, decoding the events and signals into
+	 * objects of the model that is replayed
+	 *
+	 * @param blocks the blocks of the model, in order of their indexes
+	 * @param file   path of the journal file
+	 * @throws IOException if the journal file cannot be read or does not match
+	 *                     the model
+	 */
+	private void read(List<SysMLBlock> blocks, Path file) throws IOException
+	{
+		try (SnapshotReader reader = new SnapshotReader(file, blocks))
+		{
+			reader.readHeader(SnapshotFormat.journalMagic);
+			boolean isEnd = false;
+			while (!isEnd && !reader.isAtEnd())
+			{
+				reader.resetReferences();
+				int kind = reader.readCount();
+				if (kind == 0)
+					isEnd = true;
+				else
+				{
+					long nanos = reader.readLong();
+					endNanos = Math.max(endNanos, nanos);
+					if (kind == SnapshotFormat.entryEvent || kind == SnapshotFormat.entrySignal)
+						inputs.add(new Input(kind, nanos, reader.block(reader.readCount()), reader.readObject(null)));
+					else if (kind == SnapshotFormat.entryTimer)
+						inputs.add(new Input(kind, nanos, reader.block(reader.readCount()), reader.readString()));
+					else if (kind == SnapshotFormat.entryDraw)
+						draws.computeIfAbsent(reader.readString(), source -> new ArrayDeque<>()).add((int)reader.readLong());
+					else if (kind == SnapshotFormat.entryEnd)
+						isEnd = true;
+					else
+						throw new IOException("invalid journal entry kind: " + kind);
+				}
+			}
+		} catch (EOFException e)
+		{
+			logger.warning("journal ends within an entry, e.g. was not closed: " + file);
+		}
+	}
+
+	/**
+	 * Starts the model and injects the recorded inputs at their virtual times
+	 *
+	 * @param root the root block of the model
+	 */
+	private void run(SysMLBlock root)
+	{
+		long startNanos = executor.nanoTime();
+		root.start();
+		for (Input input : inputs)
+		{
+			executor.runUntil(startNanos + input.nanos);
+			inject(input);
+		}
+		executor.runUntil(startNanos + endNanos);
+	}
+
+	/**
+	 * Injects the specified recorded input into the model
+	 *
+	 * @param input the input
+	 */
+	private void inject(Input input)
+	{
+		if (input.kind == SnapshotFormat.entryEvent && input.content instanceof SysMLEvent)
+			input.block.acceptEvent((SysMLEvent)input.content);
+		else if (input.kind == SnapshotFormat.entrySignal && input.block instanceof SysMLFullPort && input.content instanceof SysMLSignal)
+			((SysMLFullPort)input.block).receive((SysMLSignal)input.content);
+		else if (input.kind == SnapshotFormat.entryTimer)
+			expire(input.block, (String)input.content);
+		else
+			logger.warning("recorded input not replayed, not of the model: " + input.block.identityString());
+	}
+
+	/**
+	 * Expires the timer of the specified ID of the state machine of the specified
+	 * block or of one of its active sub-state machines
+	 *
+	 * @param block   the block
+	 * @param timerID the ID of the timer
+	 */
+	private static void expire(SysMLBlock block, String timerID)
+	{
+		boolean isExpired = false;
+		if (block.stateMachineInstance.isPresent())
+		{
+			Optional<SysMLStateMachineInstance.Timer> timer = block.stateMachineInstance.get().timer(timerID);
+			if (timer.isPresent())
+			{
+				timer.get().expire();
+				isExpired = true;
+			}
+		}
+		else if (block.stateMachine.isPresent())
+			isExpired = expire(block.stateMachine.get(), timerID);
+		if (!isExpired)
+			logger.warning("recorded timer not replayed, not active: " + block.identityString() + " " + timerID);
+	}
+
+	/**
+	 * Expires the timer of the specified ID of the specified state machine or, if
+	 * it has none, of the sub-state machines of its current state, recursively
+	 *
+	 * @param stateMachine the state machine
+	 * @param timerID      the ID of the timer
+	 * @return true if the timer was found and expired
+	 */
+	private static boolean expire(SysMLStateMachine stateMachine, String timerID)
+	{
+		boolean result = false;
+		Optional<SysMLStateMachine.Timer> timer = stateMachine.timer(timerID);
+		if (timer.isPresent())
+		{
+			timer.get().expire();
+			result = true;
+		}
+		else
+		{
+			Optional<SysMLState> state = stateMachine.currentState;
+			if (state.isPresent())
+				for (SysMLStateMachine subStateMachine : state.get().subStateMachines)
+					if (!result)
+						result = expire(subStateMachine, timerID);
+		}
+		return result;
+	}
+
+	/**
+	 * Recorded input of the model
+	 *
+	 * @author ModelerOne
+	 *
+	 */
+	private static final class Input
+	{
+		/**
+		 * Kind of the journal entry of the input
+		 */
+		private final int kind;
+		/**
+		 * Time of the input in nanoseconds since the start of the journal
+		 */
+		private final long nanos;
+		/**
+		 * Block, or full port, of the input
+		 */
+		private final SysMLBlock block;
+		/**
+		 * The event, signal, or timer ID of the input
+		 */
+		private final Object content;
+
+		/**
+		 * Constructor
+		 *
+		 * @param kind    kind of the journal entry
+		 * @param nanos   time of the input since the start of the journal
+		 * @param block   block of the input
+		 * @param content event, signal, or timer ID of the input
+		 */
+		private Input(int kind, long nanos, SysMLBlock block, Object content)
+		{
+			super();
+			this.kind = kind;
+			this.nanos = nanos;
+			this.block = block;
+			this.content = content;
+		}
+	}
+
+	/**
+	 * Replay in progress, if any
+	 */
+	private static volatile Optional<SysMLJournalReplay> replaying = Optional.empty();
+	/**
+	 * Logger of the replays
+	 */
+	private static final Logger logger = Logger.getLogger(SysMLJournalReplay.class.getSimpleName());
+}
@@ -0,0 +1,134 @@
+package sysmlinjava.execution.snapshots;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import sysmlinjava.blocks.SysMLBlock;
+
+/**
+ * Snapshot of a running SysMLinJava model, saved to and restored from a compact
+ * binary file.
+ * <h2>Fast restore of a warmed-up model</h2> Simulations of large models often
+ * execute a long warm-up, e.g. until the traffic of a city traffic model has
+ * reached its steady state, before the period of interest. The
+ * {@code SysMLSnapshot} saves the state of the model after the warm-up, so that
+ * each subsequent run can restore it instead of re-executing the warm-up, as
+ * follows:
+ *
+ * <pre>
+ * City city = new City();
+ * city.start();
+ * city.delay(600.0);
+ * SysMLSnapshot.save(city, Path.of("warm.snapshot"));
+ * ...
+ * City restored = new City();
+ * SysMLSnapshot.restore(restored, Path.of("warm.snapshot"));
+ * </pre>
+ *
+ * Restore constructs nothing but the model itself and reads the saved state
+ * into it, i.e. it is as fast as the model's construction plus the reading of
+ * the file, which is mapped into memory rather than read by stream.
+ * <h3>Saved state</h3> The snapshot consists of the state of each block of the
+ * model, i.e. of the root block and of all the blocks it contains, directly or
+ * indirectly, as parts, full ports, or constraint blocks:
+ * <ul>
+ * <li>the values and flows of the block, i.e. its fields annotated
+ * {@code @Value} or {@code @Flow}, including the model objects they reference,
+ * e.g. the elements of a list of value types</li>
+ * <li>the current state of the block's state machine, or of its flyweight state
+ * machine instance, and recursively of the sub-state machines of the current
+ * state</li>
+ * <li>the events queued to the state machines</li>
+ * <li>the active timers of the state machines, with their remaining delays</li>
+ * </ul>
+ * The structure of the model, i.e. its blocks, connectors, state machine
+ * definitions, units, requirements, and so on, is not saved, as it is
+ * re-created by the model's construction. The blocks of the saved and restored
+ * models are matched by their order and classes, so that the snapshot can only
+ * be restored into a model of the same structure as the saved model.
+ * <h3>Consistency</h3> Each state machine is captured while synchronized with
+ * its event handler, so that its state, queued events, and timers are
+ * consistent with each other, but the model keeps running while the snapshot is
+ * saved. For a snapshot of the entire model at a single point of its execution,
+ * the model should be quiescent, e.g. between the steps of the
+ * {@code LockstepScheduler}.
+ * <h3>Resumption</h3> The restored model's state machines are resumed in their
+ * saved states, without performing the initial transitions or the on-enter
+ * activities of the states, which were performed before the snapshot. Their
+ * do-activities are restarted, their queued events are queued to them, and
+ * their timers are restarted with the remaining delays. The restored model must
+ * therefore be newly created and must not be started, neither before nor after
+ * it is restored.
+ *
+ * @author ModelerOne
+ *
+ * @see sysmlinjava.statemachine.SysMLStateMachine#resume(java.util.Optional,
+ *      List)
+ */
+public final class SysMLSnapshot
+{
+	/**
+	 * Private constructor of the static operations
+	 */
+	private SysMLSnapshot()
+	{
+		super();
+	}
+
+	/**
+	 * Saves a snapshot of the running model of which the specified block is the
+	 * root to the specified file
+	 *
+	 * @param root the root block of the model
+	 * @param file path of the snapshot file, created or overwritten
+	 * @return size of the snapshot file in bytes
+	 * @throws IOException              if the snapshot file cannot be written
+	 * @throws IllegalArgumentException if a class of the model is not accessible
+	 *                                  by reflection, e.g. its package is not open
+	 *                                  to the SysMLinJava module
+	 */
+	public static long save(SysMLBlock root, Path file) throws IOException
+	{
+		List<SysMLBlock> blocks = SnapshotLayout.blocksOf(root);
+		long result;
+		try (SnapshotWriter writer = new SnapshotWriter(file, blocks))
+		{
+			writer.writeHeader(SnapshotFormat.magic, root, blocks.size());
+			for (SysMLBlock block : blocks)
+				writer.writeBlock(block);
+			result = writer.size();
+		}
+		return result;
+	}
+
+	/**
+	 * Restores the model of which the specified block is the root, newly created
+	 * and not started, from the snapshot in the specified file and resumes its
+	 * state machines
+	 *
+	 * @param root the root block of the model
+	 * @param file path of the snapshot file
+	 * @return time at which the snapshot was saved, in milliseconds since the
+	 *         epoch
+	 * @throws IOException              if the snapshot file cannot be read or does
+	 *                                  not match the model
+	 * @throws IllegalArgumentException if a class of the model is not accessible
+	 *                                  by reflection, e.g. its package is not open
+	 *                                  to the SysMLinJava module
+	 */
+	public static long restore(SysMLBlock root, Path file) throws IOException
+	{
+		List<SysMLBlock> blocks = SnapshotLayout.blocksOf(root);
+		List<Runnable> resumptions = new ArrayList<>();
+		long result;
+		try (SnapshotReader reader = new SnapshotReader(file, blocks))
+		{
+			result = reader.readHeader(SnapshotFormat.magic);
+			for (SysMLBlock block : blocks)
+				reader.readBlock(block, resumptions);
+		}
+		resumptions.forEach(Runnable::run);
+		return result;
+	}
+}
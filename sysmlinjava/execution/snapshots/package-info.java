@@ -0,0 +1,11 @@
+/**
+ * Contains the classes that save snapshots of running SysMLinJava models to
+ * compact binary files and restore models from them, i.e. the values and flows
+ * of the blocks and the current states, queued events, and active timers of
+ * their state machines, so that a model can be resumed from a warmed-up state
+ * without re-executing the warm-up. The journal of a model run records the
+ * inputs of the model from outside the model in the same binary encoding, so
+ * that the run can be replayed deterministically and in virtual time into a
+ * newly created model.
+ */
+package sysmlinjava.execution.snapshots;
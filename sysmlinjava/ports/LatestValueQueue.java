@@ -0,0 +1,153 @@
+package sysmlinjava.ports;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import sysmlinjava.valuetypes.SysMLValueType;
+
+/**
+ * The {@code queuedParameterValues} of a {@code SysMLConstraintParameterPort},
+ * retained for the port functions that put the bound values into the queue
+ * directly rather than by the port's {@code updateParameterValue()} operation.
+ * The {@code LatestValueQueue} is not a queue of the values but an adapter of
+ * the port's latest-value slot that provides the queue operations used by port
+ * functions and constraint blocks.
+ * <ul>
+ * <li>Values put, offered, or added to the queue are set into the port's
+ * latest-value slot, and into its history if enabled, as by the
+ * {@code updateParameterValue()} operation, i.e. they never block on a full
+ * queue.</li>
+ * <li>The queue contains at most one value, i.e. the latest value if it has not
+ * been read since it was set, whereby the {@code size()}, {@code isEmpty()},
+ * and {@code peek()} operations report the unread latest value, if any, and
+ * the {@code poll()} and {@code take()} operations read it, as by the port's
+ * {@code getValue()} operation.</li>
+ * </ul>
+ *
+ * @author ModelerOne
+ *
+ * @see SysMLConstraintParameterPort
+ */
+public final class LatestValueQueue
+{
+	/**
+	 * Port whose latest-value slot is adapted
+	 */
+	private final SysMLConstraintParameterPort port;
+
+	/**
+	 * Constructor
+	 *
+	 * @param port port whose latest-value slot is to be adapted
+	 */
+	LatestValueQueue(SysMLConstraintParameterPort port)
+	{
+		super();
+		this.port = port;
+	}
+
+	/**
+	 * Sets the specified value into the port's latest-value slot
+	 *
+	 * @param value value to be set
+	 * @throws InterruptedException if interrupted while waiting for space in the
+	 *                              port's history, if enabled
+	 */
+	public void put(SysMLValueType value) throws InterruptedException
+	{
+		port.setValue(value);
+		if (Thread.interrupted())
+			throw new InterruptedException();
+	}
+
+	/**
+	 * Sets the specified value into the port's latest-value slot
+	 *
+	 * @param value value to be set
+	 * @return true, as the slot always accepts the value
+	 */
+	public boolean offer(SysMLValueType value)
+	{
+		port.setValue(value);
+		return true;
+	}
+
+	/**
+	 * Sets the specified value into the port's latest-value slot
+	 *
+	 * @param value value to be set
+	 * @return true, as the slot always accepts the value
+	 */
+	public boolean add(SysMLValueType value)
+	{
+		port.setValue(value);
+		return true;
+	}
+
+	/**
+	 * Returns the number of values in the queue, i.e. 1 if the latest value has
+	 * not been read since it was set, 0 otherwise
+	 *
+	 * @return number of unread values
+	 */
+	public int size()
+	{
+		return port.hasChanged() ? 1 : 0;
+	}
+
+	/**
+	 * Returns whether the queue is empty, i.e. whether the latest value has been
+	 * read since it was set or no value has been set
+	 *
+	 * @return true if there is no unread value
+	 */
+	public boolean isEmpty()
+	{
+		return !port.hasChanged();
+	}
+
+	/**
+	 * Returns the latest value, without reading it, if it has not been read since
+	 * it was set
+	 *
+	 * @return the unread latest value, or null if none
+	 */
+	public SysMLValueType peek()
+	{
+		return port.hasChanged() ? port.latestValue() : null;
+	}
+
+	/**
+	 * Reads and returns the latest value if it has not been read since it was set
+	 *
+	 * @return the unread latest value, or null if none
+	 */
+	public SysMLValueType poll()
+	{
+		return port.hasChanged() ? port.getValue() : null;
+	}
+
+	/**
+	 * Reads and returns the latest value, waiting until a value is set if the
+	 * latest value has been read since it was set. As the slot is lock-free, the
+	 * waiting is by polling of the slot's version.
+	 *
+	 * @return the latest value
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	public SysMLValueType take() throws InterruptedException
+	{
+		while (!port.hasChanged())
+		{
+			LockSupport.parkNanos(takePollNanos);
+			if (Thread.interrupted())
+				throw new InterruptedException();
+		}
+		return port.getValue();
+	}
+
+	/**
+	 * Interval between polls of the slot's version by the {@code take()}
+	 * operation, nanoseconds
+	 */
+	private static final long takePollNanos = TimeUnit.MILLISECONDS.toNanos(1L);
+}
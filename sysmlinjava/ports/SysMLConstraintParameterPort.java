@@ -1,7 +1,11 @@
 package sysmlinjava.ports;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import sysmlinjava.analysis.watchdog.WatchdogRegistry;
 import sysmlinjava.blocks.SysMLBlock;
 import sysmlinjava.common.SysMLClass;
 import sysmlinjava.common.ValueObserver;
@@ -22,21 +26,32 @@ import sysmlinjava.valuetypes.SysMLValueType;
  * in the value of a connected {@code ObservableValue}. It adds itself to the
  * {@code ObservableValue}'s (bound parameter's) {@code ValueObserver}s list.
  * When the bound parameter's value is changed, the port is notified and it
- * retrieves the new value and adds it to a thread-safe queue in the port. The
- * new value is then retrieved from the queue by the constraint block that
+ * retrieves the new value and sets it into the latest-value slot of the port.
+ * The new value is then retrieved from the slot by the constraint block that
  * contains the constraint parameter for the observed value via the
  * {@code getValue()} operation.
  * <h3>Bound values from multiple threads</h3>The
  * {@code SysMLConstraintParameterPort} provides for a thread-safe
  * implementation of the binding connector - a capability typically not
  * available in traditional diagram-based SysML modeling applications. It
- * performs this multiple thread connection by using a thread-safe queue for the
- * passing of updated values to the constraint block. Block values in a thread
- * invoke the port to queue their new values to this thread-safe queue and the
- * constraint block, likely in another thread, retreives the updated values from
- * this queue. In this way the {@code SysMLConstraintParameterPort} enables
- * parametric analysis of bound values located in virtually any thread
- * configuration of multi-threaded models.
+ * performs this multiple thread connection by a lock-free latest-value slot,
+ * i.e. a volatile reference to the latest value and a version counter that is
+ * incremented upon each update. Block values in a thread, typically a single
+ * writer per port, set their new values into the slot without locking or
+ * blocking, and the constraint block, likely in another thread, reads the
+ * latest value without locking and can detect by the version whether the value
+ * has changed since it last read it. Intermediate values that are superseded
+ * before they are read are not retained. In this way the
+ * {@code SysMLConstraintParameterPort} enables parametric analysis of bound
+ * values located in virtually any thread configuration of multi-threaded
+ * models.
+ * <h3>Bounded history</h3> For the constraints that need every sample of the
+ * bound value rather than the latest, the port's history can be enabled by the
+ * {@code enableHistory()} operation, whereby every value set into the slot is
+ * also queued to a bounded history queue, from which the samples are drained
+ * by the {@code drainHistory()} operation. While the history queue is full,
+ * the writer blocks and is registered as a blocked producer with the
+ * {@code WatchdogRegistry}.
  * 
  * @author ModelerOne
  *
@@ -44,12 +59,14 @@ import sysmlinjava.valuetypes.SysMLValueType;
 public final class SysMLConstraintParameterPort extends SysMLClass implements ValueObserver
 {
 	/**
-	 * Queue of changed parameter values. The queue is a thread-safe queue whereby a
-	 * call of the {@code valueChanged()} operation by any thread causes a changed
-	 * parameter value to be enqued, and a call of the {@code getValue()} operation
-	 * by any Observer's thread causes the latest parameter value to be dequeud.
+	 * Queue into which port functions may put changed parameter values, retained
+	 * for port functions that put the values directly rather than by the
+	 * {@code updateParameterValue()} operation. The queue is an adapter of the
+	 * port's latest-value slot, i.e. values put or offered into the queue are set
+	 * into the slot, as by {@code updateParameterValue()}, without blocking, and
+	 * the queue contains only the latest value until it is read.
 	 */
-	public ArrayBlockingQueue<SysMLValueType> queuedParameterValues;
+	public LatestValueQueue queuedParameterValues;
 	/**
 	 * The block of which the observed parameter value is a member, i.e. the context
 	 * block accessed by the port to retrieve the changed value of the associated
@@ -68,26 +85,38 @@ public final class SysMLConstraintParameterPort extends SysMLClass implements Va
 	 * The function that is performed upon notification that the observed value (the
 	 * bound constraint parameter) has changed, i.e. an instance of a
 	 * {@code SysMLConstraintParameterPortFunction}. The function typically will
-	 * retrieve the new value and enqueue it to the {@code queuedParameterValues}
-	 * queue and notify the {@code constraintBlock} of the value change.<br>
+	 * retrieve the new value and update it by the {@code updateParameterValue()}
+	 * operation, which sets it into the latest-value slot and notifies the
+	 * {@code constraintBlock} of the value change.<br>
 	 * Example:
 	 * 
 	 * <pre>
 		alphaPortValueChangedFunction = (constraintParameterPort, contextBlock) ->
-		{
-		try
 		{
 			IInteger parameter = ((MyParameterBlock)contextBlock).paramValue;
-			constraintParameterPort.queuedParameterValues.put(new IInteger(parameter.value));
-			constraintParameterPort.constraintBlock.valueChanged();
-		} catch (InterruptedException e)
-		{
-			e.printStackTrace();
-		}
+			constraintParameterPort.updateParameterValue(new IInteger(parameter.value));
 		};
 	 * </pre>
 	 */
 	public Optional<SysMLConstraintParameterPortFunction> onValueChangedFunction;
+	/**
+	 * Latest value set into the port, or null if none has been set
+	 */
+	private volatile SysMLValueType latestValue;
+	/**
+	 * Version of the latest value, i.e. the number of values set into the port,
+	 * incremented after the latest value is set
+	 */
+	private final AtomicLong version;
+	/**
+	 * Version of the latest value when it was last read by {@code getValue()}
+	 */
+	private volatile long readVersion;
+	/**
+	 * Optional bounded queue of the history of the values set into the port,
+	 * present if enabled by the {@code enableHistory()} operation
+	 */
+	private volatile Optional<ArrayBlockingQueue<SysMLValueType>> history;
 
 	/**
 	 * Constructor (minimal) that specifies the constraint block in which this
@@ -98,9 +127,13 @@ public final class SysMLConstraintParameterPort extends SysMLClass implements Va
 	public SysMLConstraintParameterPort(SysMLConstraintBlock constraintBlock)
 	{
 		super();
-		this.queuedParameterValues = new ArrayBlockingQueue<SysMLValueType>(10);
+		this.queuedParameterValues = new LatestValueQueue(this);
 		this.constraintBlock = constraintBlock;
 		this.onValueChangedFunction = Optional.empty();
+		this.latestValue = null;
+		this.version = new AtomicLong();
+		this.readVersion = 0L;
+		this.history = Optional.empty();
 	}
 
 	/**
@@ -116,9 +149,13 @@ public final class SysMLConstraintParameterPort extends SysMLClass implements Va
 	public SysMLConstraintParameterPort(SysMLConstraintBlock constraintBlock, SysMLConstraintParameterPortFunction valueChangedFunction, String name)
 	{
 		super(name);
-		this.queuedParameterValues = new ArrayBlockingQueue<SysMLValueType>(10);
+		this.queuedParameterValues = new LatestValueQueue(this);
 		this.constraintBlock = constraintBlock;
 		this.onValueChangedFunction = Optional.of(valueChangedFunction);
+		this.latestValue = null;
+		this.version = new AtomicLong();
+		this.readVersion = 0L;
+		this.history = Optional.empty();
 	}
 
 	/**
@@ -132,8 +169,22 @@ public final class SysMLConstraintParameterPort extends SysMLClass implements Va
 	}
 
 	/**
-	 * Updates the parameter value for the bound value by queuing the current bound
-	 * value to the ports parameter values queue and then calling the constraint
+	 * Enables the bounded history of the values set into the port, for
+	 * constraints that need every sample of the bound value. Typically invoked
+	 * upon creation of the port in the constraint block's
+	 * {@code createConstraintParameterPorts()} operation.
+	 * 
+	 * @param capacity maximum number of samples retained until drained, beyond
+	 *                 which the writer blocks
+	 */
+	public void enableHistory(int capacity)
+	{
+		history = Optional.of(new ArrayBlockingQueue<SysMLValueType>(capacity));
+	}
+
+	/**
+	 * Updates the parameter value for the bound value by setting the current bound
+	 * value into the port's latest-value slot and then calling the constraint
 	 * block's {@code valueChanged()} operation which submits a
 	 * {@code SysMLParameterChangeEvent} to the constrain block's state machine.
 	 * 
@@ -141,14 +192,38 @@ public final class SysMLConstraintParameterPort extends SysMLClass implements Va
 	 */
 	public void updateParameterValue(SysMLValueType value)
 	{
-		try
-		{
-			queuedParameterValues.put(value);
-			constraintBlock.valueChanged(name.isPresent() ? name.get() : "");
-		} catch (InterruptedException e)
+		setValue(value);
+		constraintBlock.valueChanged(name.isPresent() ? name.get() : "");
+	}
+
+	/**
+	 * Sets the specified value into the latest-value slot and, if enabled, queues
+	 * it to the history. If the history queue is full, the calling thread is
+	 * registered as a blocked producer with the {@code WatchdogRegistry} until the
+	 * value can be queued.
+	 * 
+	 * @param value updated bound value
+	 */
+	void setValue(SysMLValueType value)
+	{
+		Optional<ArrayBlockingQueue<SysMLValueType>> samples = history;
+		if (samples.isPresent() && !samples.get().offer(value))
 		{
-			logger.warning("Interrupted exception: " + e.getMessage());
+			WatchdogRegistry.producerBlocked(this);
+			try
+			{
+				samples.get().put(value);
+			} catch (InterruptedException e)
+			{
+				logger.warning("Interrupted exception: " + e.getMessage());
+				Thread.currentThread().interrupt();
+			} finally
+			{
+				WatchdogRegistry.producerUnblocked();
+			}
 		}
+		latestValue = value;
+		version.incrementAndGet();
 	}
 
 	@Override
@@ -160,35 +235,66 @@ public final class SysMLConstraintParameterPort extends SysMLClass implements Va
 
 	/**
 	 * Retrieves the latest changed constraint parameter value from the port's
-	 * parameter values queue. This operation is typically called by the parent
-	 * constraint block after being notified of the value change by the
+	 * latest-value slot, without locking. This operation is typically called by
+	 * the parent constraint block after being notified of the value change by the
 	 * {@code valueChanged()} operation.
 	 * 
 	 * @return an extended {@code SysMLValueType} object that represents the
 	 *         latest/changed value of the constraint parameter represented by
-	 *         ("bound" to) this port.
+	 *         ("bound" to) this port, or null if no value has been set
 	 */
 	public SysMLValueType getValue()
 	{
-		SysMLValueType result = null;
-		if (!queuedParameterValues.isEmpty())
-		{
-			if (queuedParameterValues.size() > 2)
-				logger.info("size > 2");
-			while (queuedParameterValues.size() > 1)
-			{
-				try
-				{
-					result = queuedParameterValues.take();
-				} catch (InterruptedException e)
-				{
-					e.printStackTrace();
-				}
-			}
-			result = queuedParameterValues.peek();
-		}
-		else
-			logger.warning("unexpected empty parameters queue");
+		readVersion = version.get();
+		SysMLValueType result = latestValue;
+		if (result == null)
+			logger.warning("unexpected empty parameter value");
+		return result;
+	}
+
+	/**
+	 * Returns the latest value set into the port without reading it, i.e.
+	 * without updating the version last read by {@code getValue()}
+	 * 
+	 * @return the latest value, or null if none has been set
+	 */
+	SysMLValueType latestValue()
+	{
+		return latestValue;
+	}
+
+	/**
+	 * Returns the version of the latest value, i.e. the number of values set into
+	 * the port
+	 * 
+	 * @return version of the latest value
+	 */
+	public long version()
+	{
+		return version.get();
+	}
+
+	/**
+	 * Returns whether a value has been set into the port since the latest value
+	 * was last read by {@code getValue()}
+	 * 
+	 * @return true if the value has changed since last read
+	 */
+	public boolean hasChanged()
+	{
+		return version.get() != readVersion;
+	}
+
+	/**
+	 * Removes and returns the samples of the history, i.e. every value set into
+	 * the port since the history was last drained, in order of their setting
+	 * 
+	 * @return the samples, empty if the history is not enabled
+	 */
+	public List<SysMLValueType> drainHistory()
+	{
+		List<SysMLValueType> result = new ArrayList<>();
+		history.ifPresent(samples -> samples.drainTo(result));
 		return result;
 	}
 }
@@ -15,6 +15,12 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.Future;
+import sysmlinjava.analysis.flightrecorder.PortReceiveEvent;
+import sysmlinjava.analysis.flightrecorder.PortTransmitEvent;
+import sysmlinjava.analysis.metrics.FullPortMetrics;
+import sysmlinjava.analysis.metrics.SysMLMetrics;
+import sysmlinjava.analysis.tracing.SignalTrace;
+import sysmlinjava.analysis.tracing.SignalTracing;
 import sysmlinjava.annotations.Operation;
 import sysmlinjava.annotations.Reception;
 import sysmlinjava.blocks.SysMLBlock;
@@ -22,6 +28,11 @@ import sysmlinjava.common.SysMLClass;
 import sysmlinjava.common.SysMLSignal;
 import sysmlinjava.events.SysMLEvent;
 import sysmlinjava.events.SysMLSignalEvent;
+import sysmlinjava.execution.LockstepScheduler;
+import sysmlinjava.execution.SysMLExecutors;
+import sysmlinjava.execution.VirtualTimeExecutor;
+import sysmlinjava.execution.snapshots.SysMLJournal;
+import sysmlinjava.execution.snapshots.SysMLJournalReplay;
 
 /**
  * SysMLinJava's representation of the SysML full-port.
@@ -174,6 +185,14 @@ public abstract class SysMLFullPort extends SysMLBlock
 	 * @see InteractionMessageUtility
 	 */
 	public Optional<InteractionMessageUtility> messageUtility;
+	/**
+	 * Metrics of this type of full port, obtained from the {@code SysMLMetrics}
+	 * registry upon first use, i.e. after the context block hierarchy of the model
+	 * has been created.
+	 * 
+	 * @see SysMLMetrics#forFullPort(SysMLFullPort)
+	 */
+	private volatile FullPortMetrics fullPortMetrics;
 
 	/**
 	 * Constructor with minimal (contextBlock and index) specification.
@@ -321,14 +340,15 @@ public abstract class SysMLFullPort extends SysMLBlock
 	 * Starts the port, i.e. starts its state machine, if one is configured for the
 	 * port, and, if the port is configured to receive objects from a port in
 	 * another operating system process, then it starts the UDP receiver to receive
-	 * those objects.
+	 * those objects. While a journal is replayed, the UDP receiver is not started,
+	 * as the signals it received are replayed from the journal.
 	 */
 	@Override
 	public void start()
 	{
 		if (stateMachine.isPresent())
 			super.start();
-		if (udpPort.isPresent())
+		if (udpPort.isPresent() && !SysMLJournalReplay.isReplaying())
 			udpReceiver = Optional.of(new UDPReceiver(udpPort.get(), this));
 	}
 
@@ -339,7 +359,7 @@ public abstract class SysMLFullPort extends SysMLBlock
 	@Override
 	public void stop()
 	{
-		if (udpPort.isPresent())
+		if (udpReceiver.isPresent())
 			udpReceiver.get().stop();
 		if (stateMachine.isPresent())
 			super.stop();
@@ -365,19 +385,36 @@ public abstract class SysMLFullPort extends SysMLBlock
 	@Reception
 	public void receive(SysMLSignal signal)
 	{
+		fullPortMetrics().messagesIn.increment();
+		PortReceiveEvent jfrEvent = new PortReceiveEvent();
+		jfrEvent.begin();
+		Optional<SignalTrace> trace = signal.trace.isPresent() && SignalTracing.enabled ? Optional.of(signal.trace.get().receivedBy(getClass().getSimpleName(), SignalTracing.epochNanos())) : Optional.empty();
 		if (eventContextBlock.isPresent())
 		{
 			SysMLSignalEvent event = eventFor(signal);
 			event.index = id.intValue();
+			event.trace = trace;
 			eventContextBlock.get().acceptEvent(event);
 		}
 		else if (!connectedPortsClients.isEmpty())
 		{
 			SysMLClass object = clientObjectFor(signal);
-			connectedPortsClients.forEach(client ->
+			SignalTrace previousTrace = SignalTracing.setCurrent(trace);
+			try
 			{
-				client.receive(object);
-			});
+				connectedPortsClients.forEach(client ->
+				{
+					client.receive(object);
+				});
+			} finally
+			{
+				SignalTracing.restoreCurrent(previousTrace);
+			}
+		}
+		if (jfrEvent.shouldCommitFor(this, contextBlock))
+		{
+			jfrEvent.objectType = signal.getClass().getSimpleName();
+			jfrEvent.commit();
 		}
 	}
 
@@ -399,6 +436,8 @@ public abstract class SysMLFullPort extends SysMLBlock
 	@Operation
 	public void receive(SysMLClass object)
 	{
+		PortReceiveEvent jfrEvent = new PortReceiveEvent();
+		jfrEvent.begin();
 		if (!connectedPortsClients.isEmpty())
 		{
 			SysMLClass clientObject = clientObjectFor(object);
@@ -411,8 +450,15 @@ public abstract class SysMLFullPort extends SysMLBlock
 		else if (eventContextBlock.isPresent())
 		{
 			SysMLEvent event = eventFor(object);
+			if (SignalTracing.enabled)
+				event.trace = SignalTracing.current().map(SignalTrace::fork);
 			eventContextBlock.get().acceptEvent(event);
 		}
+		if (jfrEvent.shouldCommitFor(this, contextBlock))
+		{
+			jfrEvent.objectType = object.getClass().getSimpleName();
+			jfrEvent.commit();
+		}
 	}
 
 	/**
@@ -429,15 +475,24 @@ public abstract class SysMLFullPort extends SysMLBlock
 	 * in the same block) was specified for this full port, then the object is
 	 * inserted into the server's protocol object and transmitted to the server port
 	 * for further processing and transmission in the "stack".
+	 * <p>
+	 * If the signal is transmitted by a participant of a {@code LockstepScheduler}
+	 * while it is stepped, or the context block of an in-process peer port is a
+	 * participant of a scheduler, the reception of the signal by the peer port is
+	 * deferred to the next tick of the scheduler.
 	 * 
 	 * @param object The object to be transmitted to the "server" or "peer" port.
 	 */
 	@Operation
 	public void transmit(SysMLClass object)
 	{
+		PortTransmitEvent jfrEvent = new PortTransmitEvent();
+		jfrEvent.begin();
+		Optional<SignalTrace> trace = SignalTracing.enabled ? Optional.of(SignalTracing.traceForTransmit(getClass().getSimpleName())) : Optional.empty();
 		if (!connectedPortsPeers.isEmpty())
 		{
 			SysMLSignal signal = signalFor(object);
+			signal.trace = trace;
 
 			for (SysMLFullPort peer : connectedPortsPeers)
 			{
@@ -446,9 +501,16 @@ public abstract class SysMLFullPort extends SysMLBlock
 					messageUtility.ifPresent(utility -> utility.perform(Instant.now(), contextBlock.get(), signal, peer, logger));
 
 					if (!udpTransmitter.isPresent() && !peer.ipAddress.isPresent() && !peer.udpPort.isPresent())
-						peer.receive(signal);
+					{
+						fullPortMetrics().messagesOut.increment();
+						if (!LockstepScheduler.deferDelivery(peer.contextBlock.orElse(null), () -> peer.receive(signal)))
+							peer.receive(signal);
+					}
 					else if (udpTransmitter.isPresent() && peer.ipAddress.isPresent() && peer.udpPort.isPresent())
+					{
+						fullPortMetrics().messagesOut.increment();
 						udpTransmitter.get().transmit(signal, peer.ipAddress.get(), peer.udpPort.get());
+					}
 					else
 						logger
 							.severe(String.format("one or more elements for UDP connection are missing: udpTransmitter? %s, ipAddress? %s, udpPort? %s", !udpTransmitter.isPresent(), !peer.ipAddress.isPresent(), !peer.udpPort.isPresent()));
@@ -461,16 +523,45 @@ public abstract class SysMLFullPort extends SysMLBlock
 		else if (!connectedPortsServers.isEmpty())
 		{
 			SysMLClass serverObject = serverObjectFor(object);
-			connectedPortsServers.forEach(server ->
+			SignalTrace previousTrace = SignalTracing.setCurrent(trace);
+			try
 			{
-				String thisIndexString = String.format("[%d]", this.id);
-				String serverIndexString = String.format("[%d]", server.id);
-				logger.info(String.format("[SEQ] %s%s >> %s >> %s%s", this.getClass().getSimpleName(), thisIndexString, serverObject.getClass().getSimpleName(), server.getClass().getSimpleName(), serverIndexString));
-				server.transmit(serverObject);
-			});
+				connectedPortsServers.forEach(server ->
+				{
+					String thisIndexString = String.format("[%d]", this.id);
+					String serverIndexString = String.format("[%d]", server.id);
+					logger.info(String.format("[SEQ] %s%s >> %s >> %s%s", this.getClass().getSimpleName(), thisIndexString, serverObject.getClass().getSimpleName(), server.getClass().getSimpleName(), serverIndexString));
+					server.transmit(serverObject);
+				});
+			} finally
+			{
+				SignalTracing.restoreCurrent(previousTrace);
+			}
+		}
+		if (jfrEvent.shouldCommitFor(this, contextBlock))
+		{
+			jfrEvent.objectType = object.getClass().getSimpleName();
+			jfrEvent.commit();
 		}
 	}
 
+	/**
+	 * Returns the metrics of this type of full port, obtaining them from the
+	 * {@code SysMLMetrics} registry upon first call
+	 * 
+	 * @return metrics of this type of full port
+	 */
+	protected FullPortMetrics fullPortMetrics()
+	{
+		FullPortMetrics result = fullPortMetrics;
+		if (result == null)
+		{
+			result = SysMLMetrics.forFullPort(this);
+			fullPortMetrics = result;
+		}
+		return result;
+	}
+
 	/**
 	 * Adds a port to the collection of ports that are to operate as "clients" to
 	 * this port, i.e. they are "above" this port in a protocol "stack" of ports and
@@ -932,7 +1023,7 @@ public abstract class SysMLFullPort extends SysMLBlock
 			logger = Logger.getLogger(this.getClass().getName());
 			this.fullPort = fullPort;
 			this.udpPort = udpPort;
-			runner = Optional.of(fullPort.concurrentExecutionThreads.submit(this));
+			runner = Optional.of(SysMLExecutors.submitBlocking(fullPort.concurrentExecutionThreads, this));
 			logger.info(String.format("run() submitted for execution for full port %s on udpPort %s", fullPort.identityString(), udpPort));
 		}
 
@@ -950,8 +1041,12 @@ public abstract class SysMLFullPort extends SysMLBlock
 		/**
 		 * Run operation that simply receives a UDP datagram, streams the datagram's
 		 * byte array into an object via an {@code ObjectInputStream}, and invokes the
-		 * full port's {@code receive(Object)} operation to process the received object.
-		 * It continues this activity until the run is interrupted by a socket closure.
+		 * full port's {@code receive(Object)} operation to process the received object,
+		 * or, if the port's executor is a {@code VirtualTimeExecutor}, submits the
+		 * receipt to the executor, as the receiver then runs in a thread of its own
+		 * so as not to block the executor's thread. If the datagram contains a {@code SignalTrace} following the signal, the
+		 * trace is restored to the signal. It continues this activity until the run
+		 * is interrupted by a socket closure.
 		 */
 		public void run()
 		{
@@ -968,6 +1063,7 @@ public abstract class SysMLFullPort extends SysMLBlock
 					{
 						DatagramPacket packet = new DatagramPacket(new byte[byteBufferSize], byteBufferSize);
 						socket.receive(packet);
+						fullPort.fullPortMetrics().udpBytesIn.add(packet.getLength());
 						ByteArrayInputStream byteStream = new ByteArrayInputStream(packet.getData(), packet.getOffset(), packet.getLength());
 						try (ObjectInputStream objectStream = new ObjectInputStream(byteStream))
 						{
@@ -975,15 +1071,34 @@ public abstract class SysMLFullPort extends SysMLBlock
 							{
 								Object readObject = objectStream.readObject();
 								if (readObject instanceof SysMLSignal)
-									fullPort.receive((SysMLSignal)readObject);
+								{
+									SysMLSignal signal = (SysMLSignal)readObject;
+									if (byteStream.available() > 0)
+									{
+										Object traceObject = objectStream.readObject();
+										if (traceObject instanceof SignalTrace)
+											signal.trace = Optional.of((SignalTrace)traceObject);
+									}
+									if (SysMLJournal.isRecording())
+										SysMLJournal.recordSignal(fullPort, signal);
+									if (fullPort.concurrentExecutionThreads instanceof VirtualTimeExecutor)
+										fullPort.concurrentExecutionThreads.execute(() -> fullPort.receive(signal));
+									else
+										fullPort.receive(signal);
+								}
 								else
+								{
+									fullPort.fullPortMetrics().udpErrors.increment();
 									logger.severe("unrecognized object type received: " + readObject.getClass().getSimpleName());
+								}
 							} catch (ClassNotFoundException e)
 							{
+								fullPort.fullPortMetrics().udpErrors.increment();
 								e.printStackTrace();
 							}
 						} catch (IOException e)
 						{
+							fullPort.fullPortMetrics().udpErrors.increment();
 							e.printStackTrace();
 						}
 					} catch (SocketException e)
@@ -994,9 +1109,13 @@ public abstract class SysMLFullPort extends SysMLBlock
 							done = true;
 						}
 						else
+						{
+							fullPort.fullPortMetrics().udpErrors.increment();
 							e.printStackTrace();
+						}
 					} catch (IOException e)
 					{
+						fullPort.fullPortMetrics().udpErrors.increment();
 						e.printStackTrace();
 					}
 				} while (!done);
@@ -1071,10 +1190,15 @@ public abstract class SysMLFullPort extends SysMLBlock
 				ByteArrayOutputStream byteStream = new ByteArrayOutputStream(100_000);
 				ObjectOutputStream objectStream = new ObjectOutputStream(byteStream);
 				objectStream.writeObject(signal);
+				if (signal.trace.isPresent())
+					objectStream.writeObject(signal.trace.get());
+				objectStream.flush();
 				DatagramPacket packet = new DatagramPacket(byteStream.toByteArray(), 0, byteStream.size(), ipAddress, udpPort);
 				socket.send(packet);
+				fullPortMetrics().udpBytesOut.add(packet.getLength());
 			} catch (IOException e)
 			{
+				fullPortMetrics().udpErrors.increment();
 				e.printStackTrace();
 			}
 		}
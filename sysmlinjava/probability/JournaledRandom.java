@@ -0,0 +1,96 @@
+package sysmlinjava.probability;
+
+import java.util.Optional;
+import java.util.Random;
+import sysmlinjava.execution.snapshots.SysMLJournal;
+import sysmlinjava.execution.snapshots.SysMLJournalReplay;
+
+/**
+ * Random number generator of a {@code SysMLProbabilityDistribution} whose draws
+ * are recorded in the {@code SysMLJournal}, while one is recording, and are
+ * replaced by the recorded draws, while a journal is replayed. All the numbers
+ * generated by a {@code Random}, whether integers, doubles, or Gaussians, are
+ * derived from its {@code next()} operation, so that recording its results
+ * records the entire sequence of numbers of the distribution, regardless of the
+ * distribution's formula. The source of the draws in the journal is the class,
+ * name, and ID of the distribution, determined upon its first draw. As the
+ * draws are replayed by their source, the journal rejects the draws of a
+ * distribution whose source is that of another distribution, e.g. of default
+ * distributions without names or IDs, which are then to be given unique names
+ * or IDs.
+ * <p>
+ * If no journal is recording or replayed, the numbers are generated as by the
+ * {@code Random}.
+ *
+ * @author ModelerOne
+ *
+ */
+final class JournaledRandom extends Random
+{
+	/**
+	 * The distribution that draws from this generator
+	 */
+	private final SysMLProbabilityDistribution distribution;
+	/**
+	 * Source of the draws in the journal, empty until the first recorded or
+	 * replayed draw
+	 */
+	private Optional<String> source;
+
+	/**
+	 * Constructor
+	 *
+	 * @param distribution the distribution that draws from this generator
+	 */
+	JournaledRandom(SysMLProbabilityDistribution distribution)
+	{
+		super();
+		this.distribution = distribution;
+		this.source = Optional.empty();
+	}
+
+	/**
+	 * Generates the next random number of the specified number of bits. While a
+	 * journal is recording, the generator draws 32 bits, records them, and
+	 * returns the specified number of their high bits, which is the same number
+	 * as drawn by the {@code Random}. While a journal is replayed, the recorded
+	 * bits are returned instead.
+	 */
+	@Override
+	protected int next(int bits)
+	{
+		int result;
+		if (SysMLJournalReplay.isReplaying())
+		{
+			Optional<Integer> replayed = SysMLJournalReplay.replayedDraw(source());
+			result = (replayed.isPresent() ? replayed.get() : super.next(Integer.SIZE)) >>> (Integer.SIZE - bits);
+		}
+		else if (SysMLJournal.isRecording())
+		{
+			int drawn = super.next(Integer.SIZE);
+			SysMLJournal.recordDraw(distribution, source(), drawn);
+			result = drawn >>> (Integer.SIZE - bits);
+		}
+		else
+			result = super.next(bits);
+		return result;
+	}
+
+	/**
+	 * Returns the source of the draws in the journal, i.e. the class, name, and ID
+	 * of the distribution
+	 *
+	 * @return source of the draws
+	 */
+	private synchronized String source()
+	{
+		if (source.isEmpty())
+			source = Optional.of(distribution.getClass().getName() + ":" + distribution.name.orElse("") + ":" + distribution.id);
+		return source.get();
+	}
+
+	/**
+	 * Serialization version
+	 */
+	private static final long serialVersionUID = 1L;
+}
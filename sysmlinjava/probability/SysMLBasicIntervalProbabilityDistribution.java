@@ -1,6 +1,7 @@
 package sysmlinjava.probability;
 
 import sysmlinjava.annotations.Attribute;
+import sysmlinjava.annotations.Operation;
 
 /**
  * SysMLinJava representation of the SysML basic interval probability
@@ -55,6 +56,20 @@ public abstract class SysMLBasicIntervalProbabilityDistribution extends SysMLPro
 		return this.minimumValue + super.nextRandom() * maximumValue - minimumValue;
 	}
 
+	/**
+	 * Returns the quantile of the specified probability for a uniform
+	 * distribution between the min and max values
+	 * 
+	 * @param probability the probability, between 0.0 and 1.0
+	 * @return the value between the min and max values of the probability
+	 */
+	@Operation
+	@Override
+	public double quantile(double probability)
+	{
+		return minimumValue + probability * (maximumValue - minimumValue);
+	}
+
 	@Override
 	public String toString()
 	{
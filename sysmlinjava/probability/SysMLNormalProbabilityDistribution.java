@@ -46,6 +46,46 @@ public final class SysMLNormalProbabilityDistribution extends SysMLProbabilityDi
 		return mean.value + random.nextGaussian() * standardDeviation.value;
 	}
 
+	/**
+	 * Returns the quantile of the specified probability for the normal
+	 * distribution, by the rational approximation of the inverse of the standard
+	 * normal distribution function by P. J. Acklam, whose relative error is less
+	 * than 1.15e-9
+	 * 
+	 * @param probability the probability, between 0.0 and 1.0
+	 * @return the value of the probability, infinite for 0.0 and 1.0
+	 */
+	@Operation
+	@Override
+	public double quantile(double probability)
+	{
+		double z;
+		if (probability <= 0.0)
+			z = Double.NEGATIVE_INFINITY;
+		else if (probability >= 1.0)
+			z = Double.POSITIVE_INFINITY;
+		else
+		{
+			if (probability < 0.02425)
+			{
+				double q = Math.sqrt(-2.0 * Math.log(probability));
+				z = (((((c[0] * q + c[1]) * q + c[2]) * q + c[3]) * q + c[4]) * q + c[5]) / ((((d[0] * q + d[1]) * q + d[2]) * q + d[3]) * q + 1.0);
+			}
+			else if (probability <= 1.0 - 0.02425)
+			{
+				double q = probability - 0.5;
+				double r = q * q;
+				z = (((((a[0] * r + a[1]) * r + a[2]) * r + a[3]) * r + a[4]) * r + a[5]) * q / (((((b[0] * r + b[1]) * r + b[2]) * r + b[3]) * r + b[4]) * r + 1.0);
+			}
+			else
+			{
+				double q = Math.sqrt(-2.0 * Math.log(1.0 - probability));
+				z = -(((((c[0] * q + c[1]) * q + c[2]) * q + c[3]) * q + c[4]) * q + c[5]) / ((((d[0] * q + d[1]) * q + d[2]) * q + d[3]) * q + 1.0);
+			}
+		}
+		return mean.value + z * standardDeviation.value;
+	}
+
 	@Override
 	protected void createDistributionName()
 	{
@@ -69,4 +109,25 @@ public final class SysMLNormalProbabilityDistribution extends SysMLProbabilityDi
 		builder.append("]");
 		return builder.toString();
 	}
+
+	/**
+	 * Coefficients of the central region of the approximation of the inverse of
+	 * the standard normal distribution function
+	 */
+	private static final double[] a = {-3.969683028665376e+01, 2.209460984245205e+02, -2.759285104469687e+02, 1.383577518672690e+02, -3.066479806614716e+01, 2.506628277459239e+00};
+	/**
+	 * Coefficients of the central region of the approximation of the inverse of
+	 * the standard normal distribution function
+	 */
+	private static final double[] b = {-5.447609879822406e+01, 1.615858368580409e+02, -1.556989798598866e+02, 6.680131188771972e+01, -1.328068155288572e+01};
+	/**
+	 * Coefficients of the tail regions of the approximation of the inverse of the
+	 * standard normal distribution function
+	 */
+	private static final double[] c = {-7.784894002430293e-03, -3.223964580411365e-01, -2.400758277161838e+00, -2.549671010071680e+00, 4.374664141464968e+00, 2.938163982698783e+00};
+	/**
+	 * Coefficients of the tail regions of the approximation of the inverse of the
+	 * standard normal distribution function
+	 */
+	private static final double[] d = {7.784695709041462e-03, 3.224671290700398e-01, 2.445134137142996e+00, 3.754408661907416e+00};
 }
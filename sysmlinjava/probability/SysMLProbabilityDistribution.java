@@ -57,12 +57,16 @@ public abstract class SysMLProbabilityDistribution extends SysMLClass
 
 	/**
 	 * Creates the random number generator for the distribution. This default
-	 * operation creates the Java standard generator. Extended classes may need to
+	 * operation creates the Java standard generator, extended to record the
+	 * numbers it draws in a journal while one is recording and to draw the
+	 * recorded numbers while a journal is replayed. Extended classes may need to
 	 * overide to create a specialized generator.
+	 * 
+	 * @see JournaledRandom
 	 */
 	private void createRandomGenerator()
 	{
-		random = new Random();
+		random = new JournaledRandom(this);
 	}
 
 	/**
@@ -76,6 +80,24 @@ public abstract class SysMLProbabilityDistribution extends SysMLClass
 		return random.nextDouble();
 	}
 
+	/**
+	 * Returns the quantile of the specified probability, i.e. the value below
+	 * which the values of the distribution fall with the probability, by which
+	 * the values of the distribution are generated from uniform samples, e.g. the
+	 * samples of a sensitivity analysis. Extended classes must override to return
+	 * the quantile of their distribution, as there is no quantile of an
+	 * unspecified distribution.
+	 * 
+	 * @param probability the probability, between 0.0 and 1.0
+	 * @return the value of the distribution of the probability
+	 * @throws IllegalStateException if the class of the distribution does not
+	 *                               override the operation
+	 */
+	public double quantile(double probability)
+	{
+		throw new IllegalStateException(getClass().getName() + " does not provide quantile()");
+	}
+
 	@Override
 	public String toString()
 	{
@@ -1,6 +1,7 @@
 package sysmlinjava.statemachine;
 
 import java.util.Optional;
+import sysmlinjava.analysis.flightrecorder.EffectEvent;
 import sysmlinjava.blocks.SysMLBlock;
 import sysmlinjava.common.SysMLClass;
 import sysmlinjava.events.SysMLEvent;
@@ -80,7 +81,12 @@ public final class SysMLEffect extends SysMLClass
 	public void perform(Optional<? extends SysMLEvent> event, Optional<? extends SysMLBlock> contextBlock)
 	{
 		if (activity.isPresent())
+		{
+			EffectEvent jfrEvent = new EffectEvent();
+			jfrEvent.begin();
 			activity.get().perform(event, contextBlock);
+			jfrEvent.commitFor(this, contextBlock);
+		}
 	}
 
 	@Override
@@ -1,6 +1,7 @@
 package sysmlinjava.statemachine;
 
 import java.util.Optional;
+import sysmlinjava.analysis.flightrecorder.GuardEvent;
 import sysmlinjava.blocks.SysMLBlock;
 import sysmlinjava.common.SysMLClass;
 import sysmlinjava.events.SysMLEvent;
@@ -86,7 +87,16 @@ public final class SysMLGuard extends SysMLClass
 	{
 		boolean result = false;
 		if (condition.isPresent())
+		{
+			GuardEvent jfrEvent = new GuardEvent();
+			jfrEvent.begin();
 			result = condition.get().isSatisfied(currentEvent, contextBlock);
+			if (jfrEvent.shouldCommitFor(this, contextBlock))
+			{
+				jfrEvent.satisfied = result;
+				jfrEvent.commit();
+			}
+		}
 		return result;
 	}
 
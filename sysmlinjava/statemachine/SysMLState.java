@@ -6,7 +6,12 @@ import java.util.ListIterator;
 import java.util.Optional;
 import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
+import sysmlinjava.analysis.flightrecorder.DoActivityEvent;
+import sysmlinjava.analysis.flightrecorder.StateEntryEvent;
+import sysmlinjava.analysis.flightrecorder.StateExitEvent;
+import sysmlinjava.analysis.watchdog.WatchdogRegistry;
 import sysmlinjava.blocks.SysMLBlock;
+import sysmlinjava.execution.SysMLExecutors;
 
 /**
  * The SysMLinJava representation of the state in SysML's state machine.
@@ -114,7 +119,7 @@ public class SysMLState extends SysMLVertex
 		if (doActivity.isPresent())
 		{
 			if (!contextBlock.isPresent())
-				doActivityExecutor = Optional.of(new ScheduledThreadPoolExecutor(1));
+				doActivityExecutor = Optional.of(SysMLExecutors.newStateExecutor());
 		}
 		this.doActivityFuture = Optional.empty();
 		this.subStateMachines = new ArrayList<>();
@@ -200,10 +205,13 @@ public class SysMLState extends SysMLVertex
 	 */
 	public void onEnter()
 	{
+		StateEntryEvent jfrEvent = new StateEntryEvent();
+		jfrEvent.begin();
 		if (onEnterActivity.isPresent())
 			onEnterActivity.get().perform(contextBlock);
 		if (!subStateMachines.isEmpty())
 			executeSubStateMachines();
+		jfrEvent.commitFor(this, contextBlock);
 	}
 
 	/**
@@ -219,7 +227,17 @@ public class SysMLState extends SysMLVertex
 			{
 				public void run()
 				{
-					doActivity.get().perform(contextBlock);
+					DoActivityEvent jfrEvent = new DoActivityEvent();
+					jfrEvent.begin();
+					WatchdogRegistry.doActivityStarted(SysMLState.this);
+					try
+					{
+						doActivity.get().perform(contextBlock);
+					} finally
+					{
+						WatchdogRegistry.doActivityEnded(SysMLState.this);
+					}
+					jfrEvent.commitFor(SysMLState.this, contextBlock);
 				}
 			};
 			if (contextBlock.isPresent())
@@ -229,6 +247,25 @@ public class SysMLState extends SysMLVertex
 		}
 	}
 
+	/**
+	 * Operation called upon the resumption of the state as the current state of a
+	 * state machine that is resumed rather than started, e.g. from a snapshot.
+	 * {@code resume()} does not invoke the {@code onEnterActivity}, which was
+	 * invoked upon the original entry into the state. If present, the sub-state
+	 * machines are associated with the containing state machine, but not started,
+	 * as they are resumed in their own states. Otherwise the {@code doActivity} is
+	 * restarted, if provided.
+	 * 
+	 * @see SysMLStateMachine#resume(Optional, java.util.List)
+	 */
+	public void resume()
+	{
+		if (!subStateMachines.isEmpty())
+			subStateMachines.forEach(this::attachSubStateMachine);
+		else
+			doWhileInState();
+	}
+
 	/**
 	 * Operation called upon exit from the state. {@code onExit()} invokes the
 	 * specified {@code onExitActivity}, if provided, but only after it terminates
@@ -237,12 +274,18 @@ public class SysMLState extends SysMLVertex
 	 */
 	public void onExit()
 	{
+		StateExitEvent jfrEvent = new StateExitEvent();
+		jfrEvent.begin();
 		if (!subStateMachines.isEmpty())
 			terminateSubStateMachines();
 		else if (doActivityFuture.isPresent() && !doActivityFuture.get().isDone())
+		{
 			doActivityFuture.get().cancel(true);
+			WatchdogRegistry.doActivityCancelled(this);
+		}
 		if (onExitActivity.isPresent())
 			onExitActivity.get().perform(contextBlock);
+		jfrEvent.commitFor(this, contextBlock);
 	}
 
 	/**
@@ -254,13 +297,25 @@ public class SysMLState extends SysMLVertex
 		completedSubStateMachineIDs.clear();
 		subStateMachines.forEach(subStateMachine ->
 		{
-			if (containingStateMachine.isEmpty() && contextBlock.isPresent())
-				containingStateMachine = Optional.of(contextBlock.get().stateMachine.get());
-			subStateMachine.containingStateMachine = containingStateMachine;
+			attachSubStateMachine(subStateMachine);
 			subStateMachine.start();
 		});
 	}
 
+	/**
+	 * Associates the specified sub-state machine of this state with the state
+	 * machine that contains this state, to which the sub-state machine submits its
+	 * completion event
+	 * 
+	 * @param subStateMachine the sub-state machine
+	 */
+	private void attachSubStateMachine(SysMLStateMachine subStateMachine)
+	{
+		if (containingStateMachine.isEmpty() && contextBlock.isPresent())
+			containingStateMachine = Optional.of(contextBlock.get().stateMachine.get());
+		subStateMachine.containingStateMachine = containingStateMachine;
+	}
+
 	/**
 	 * Terminates (stops) all of the sub-state machines that have been added to this
 	 * state.
@@ -10,7 +10,13 @@ import java.util.concurrent.Future;
 import java.util.concurrent.PriorityBlockingQueue;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Logger;
+import sysmlinjava.analysis.flightrecorder.TransitionEvent;
+import sysmlinjava.analysis.metrics.StateMachineMetrics;
+import sysmlinjava.analysis.metrics.SysMLMetrics;
+import sysmlinjava.analysis.metrics.TimerMetrics;
+import sysmlinjava.analysis.tracing.SignalTracing;
 import sysmlinjava.annotations.Reference;
 import sysmlinjava.annotations.statemachines.FinalState;
 import sysmlinjava.annotations.statemachines.InitialState;
@@ -18,6 +24,10 @@ import sysmlinjava.blocks.SysMLBlock;
 import sysmlinjava.common.SysMLClass;
 import sysmlinjava.events.SysMLEvent;
 import sysmlinjava.events.SysMLTimeEvent;
+import sysmlinjava.execution.AdaptiveScheduledExecutor;
+import sysmlinjava.execution.VirtualTimeExecutor;
+import sysmlinjava.execution.snapshots.SysMLJournal;
+import sysmlinjava.execution.snapshots.SysMLJournalReplay;
 import sysmlinjava.valuetypes.DurationMilliseconds;
 import sysmlinjava.valuetypes.InstantMilliseconds;
 
@@ -224,6 +234,78 @@ public abstract class SysMLStateMachine extends SysMLClass implements Runnable
 	 * @see sysmlinjava.analysis.statetransitionstransmitters.StateTransitionsTransmitters
 	 */
 	public Optional<TransitionsUtility> transitionsUtility;
+	/**
+	 * Metrics of this type of state machine, obtained from the
+	 * {@code SysMLMetrics} registry upon first use, i.e. after the context block
+	 * hierarchy of the model has been created.
+	 * 
+	 * @see SysMLMetrics#forStateMachine(SysMLStateMachine)
+	 */
+	private volatile StateMachineMetrics stateMachineMetrics;
+	/**
+	 * Metrics of the timers of this state machine, mapped by timer ID, obtained
+	 * from the {@code SysMLMetrics} registry upon the first start of each timer
+	 * so that restarts of the timer do not look up the registry
+	 * 
+	 * @see SysMLMetrics#forTimer(SysMLStateMachine, String)
+	 */
+	private final ConcurrentHashMap<String, TimerMetrics> timerMetricsByID = new ConcurrentHashMap<>();
+	/**
+	 * Thread in which the state machine's event handler is currently executing, or
+	 * null if no event is currently being handled. Sampled by the
+	 * {@code StallWatchdog}.
+	 */
+	private volatile Thread handlerThread;
+	/**
+	 * {@code System.nanoTime()} at which the event handler currently executing
+	 * started
+	 */
+	private volatile long handlerStartNanos;
+	/**
+	 * Event currently being handled, or null if none
+	 */
+	private volatile SysMLEvent handlerEvent;
+	/**
+	 * Event taken from the event queue whose handling has not yet started, or null
+	 * if none
+	 */
+	private volatile SysMLEvent dequeuedEvent;
+	/**
+	 * {@code System.nanoTime()} at which the event handler last started, i.e. at
+	 * which the last event was taken from the event queue, or at which the state
+	 * machine was started if no event has yet been taken
+	 */
+	private volatile long lastDequeueNanos;
+	/**
+	 * Optional dispatcher generated for the class of this state machine, present
+	 * only if the dispatcher class exists and its signature matches the
+	 * transitions of this state machine
+	 * 
+	 * @see SysMLStateMachineDispatcher
+	 */
+	private Optional<SysMLStateMachineDispatcher> dispatcher;
+	/**
+	 * Whether the state machine has been resumed in its current state rather than
+	 * started, in which case its {@code run()} operation does not await an initial
+	 * event
+	 * 
+	 * @see #resume(Optional, List)
+	 */
+	private volatile boolean isResumed;
+	/**
+	 * Whether a drain of the event queue is scheduled or in progress, if the state
+	 * machine is asynchronous and its event queue is drained. At most one drain
+	 * is scheduled or in progress at a time, so the events are handled in order
+	 * even if the context block's executor has several threads.
+	 * 
+	 * @see #drain()
+	 */
+	private final AtomicBoolean isDrainScheduled = new AtomicBoolean();
+	/**
+	 * Whether the state machine has been stopped or has completed, in which case
+	 * no further drain of the event queue is scheduled
+	 */
+	private volatile boolean isStopped;
 
 	/**
 	 * Constructor of the state machine. The constructor sets the context block,
@@ -271,21 +353,33 @@ public abstract class SysMLStateMachine extends SysMLClass implements Runnable
 		createTransitionsUtility();
 		createRequirements();
 		createDependencies();
+		bindDispatcher();
 		currentState = Optional.empty();
 	}
 
 	/**
 	 * Starts the state machine. That is, submits an initial event to transition out
 	 * of the {@code InitialState} in accordance with the {@code InitialTransition}
-	 * specified in an extending class.
+	 * specified in an extending class. The state machine is registered with the
+	 * {@code SysMLMetrics} registry before the initial event is submitted, so that
+	 * the {@code StallWatchdog} samples its initial transition.
 	 */
 	public void start()
 	{
+		stateMachineMetrics();
 		if (eventQueue.isPresent())
 		{
 			eventQueue.get().clear();
+			lastDequeueNanos = System.nanoTime();
 			eventQueue.get().put(new InitialEvent());
-			threadFuture = contextBlock.get().concurrentExecutionThreads.submit(this);
+			isStopped = false;
+			if (isDrained())
+			{
+				isDrainScheduled.set(false);
+				scheduleDrain();
+			}
+			else
+				threadFuture = contextBlock.get().concurrentExecutionThreads.submit(this);
 		}
 		else
 			onInitialEvent(new InitialEvent());
@@ -301,6 +395,7 @@ public abstract class SysMLStateMachine extends SysMLClass implements Runnable
 	{
 		if (eventQueue.isPresent())
 		{
+			isStopped = true;
 			if (!threadFuture.isDone())
 			{
 				logger.warning(identityString() + ": cancelling thread");
@@ -366,6 +461,110 @@ public abstract class SysMLStateMachine extends SysMLClass implements Runnable
 			logger.warning(getClass().getSimpleName() + ": timer with timerID \"" + timerID + "\" not found");
 	}
 
+	/**
+	 * Starts a timer for the specified time event whose first occurrence is after
+	 * the specified delay rather than the delay specified by the event, e.g. for a
+	 * timer that is restored from a snapshot with its remaining delay.
+	 * 
+	 * @param event        the {@code SysMLTimeEvent} to be submitted to this state
+	 *                     machine's event queue upon the time occurance(s). The
+	 *                     timer's subsequent period is specified in this event.
+	 * @param initialDelay the delay before the first time event
+	 */
+	public void startTimer(SysMLTimeEvent event, DurationMilliseconds initialDelay)
+	{
+		Timer timer = new Timer(event, initialDelay);
+		timersCollection.put(event.timerID, timer);
+	}
+
+	/**
+	 * Returns the timer of the state machine with the specified ID, if it has not
+	 * been stopped
+	 * 
+	 * @param timerID unique identifier of the timer
+	 * @return optional timer
+	 */
+	public Optional<Timer> timer(String timerID)
+	{
+		return Optional.ofNullable(timersCollection.get(timerID));
+	}
+
+	/**
+	 * Returns the timers of the state machine that have not been stopped, in no
+	 * particular order
+	 * 
+	 * @return list of the timers
+	 */
+	public List<Timer> timers()
+	{
+		return new ArrayList<>(timersCollection.values());
+	}
+
+	/**
+	 * Returns the events currently waiting to be handled by the state machine,
+	 * i.e. the event taken from the event queue whose handling has not yet
+	 * started, if any, followed by the events in the event queue in no particular
+	 * order
+	 * 
+	 * @return list of the queued events, empty if this state machine is
+	 *         synchronous, i.e. has no event queue
+	 */
+	public List<SysMLEvent> queuedEvents()
+	{
+		List<SysMLEvent> result = new ArrayList<>();
+		SysMLEvent dequeued = dequeuedEvent;
+		if (dequeued != null)
+			result.add(dequeued);
+		if (eventQueue.isPresent())
+			result.addAll(eventQueue.get());
+		return result;
+	}
+
+	/**
+	 * Resumes the state machine in the specified state with the specified events
+	 * in its event queue, e.g. when the state machine is restored from a snapshot
+	 * of a previously running model. Unlike the {@code start()} operation, no
+	 * initial transition is performed and the on-enter activity of the state is
+	 * not performed, as both were performed before the snapshot. The do-activity
+	 * of the state is restarted, if any, and its sub-state machines are associated
+	 * with this state machine, but they are not started, as they are to be resumed
+	 * in their own states thereafter. The timers of the state machine are not
+	 * restarted, they are to be restarted by the {@code startTimer()} operation.
+	 * 
+	 * @param state        the optional state in which the state machine is
+	 *                     resumed, empty if the state machine had not been started
+	 * @param queuedEvents the events to be queued to the state machine
+	 * @see sysmlinjava.execution.snapshots.SysMLSnapshot
+	 */
+	public void resume(Optional<SysMLState> state, List<SysMLEvent> queuedEvents)
+	{
+		if (state.isPresent())
+		{
+			stateMachineMetrics();
+			currentState = state;
+			state.get().resume();
+			if (eventQueue.isPresent())
+			{
+				eventQueue.get().clear();
+				eventQueue.get().addAll(queuedEvents);
+				lastDequeueNanos = System.nanoTime();
+				isStopped = false;
+				if (isDrained())
+				{
+					isDrainScheduled.set(false);
+					scheduleDrain();
+				}
+				else
+				{
+					isResumed = true;
+					threadFuture = contextBlock.get().concurrentExecutionThreads.submit(this);
+				}
+			}
+			else
+				queuedEvents.forEach(this::onEvent);
+		}
+	}
+
 	/**
 	 * Enqueues the specified event to the state machine's event queue. The
 	 * operation is called for operation of the state machine that is asynchronous
@@ -375,12 +574,118 @@ public abstract class SysMLStateMachine extends SysMLClass implements Runnable
 	 */
 	public void queueEvent(SysMLEvent event)
 	{
+		stateMachineMetrics().eventsReceived.increment();
+		if (event.trace.isPresent())
+			event.trace.get().enqueueNanos = SignalTracing.epochNanos();
 		if (eventQueue.isPresent())
+		{
 			eventQueue.get().put(event);
+			if (isDrained())
+				scheduleDrain();
+		}
 		else
 			onEvent(event);
 	}
 
+	/**
+	 * Returns the number of events currently waiting in the state machine's event
+	 * queue
+	 * 
+	 * @return number of queued events, or 0 if this state machine is synchronous,
+	 *         i.e. has no event queue
+	 */
+	public int queueDepth()
+	{
+		return eventQueue.isPresent() ? eventQueue.get().size() : 0;
+	}
+
+	/**
+	 * Returns the thread in which the state machine's event handler is currently
+	 * executing, if any
+	 * 
+	 * @return optional thread of the event handler in progress
+	 */
+	public Optional<Thread> handlerThread()
+	{
+		return Optional.ofNullable(handlerThread);
+	}
+
+	/**
+	 * Returns the event currently being handled by the state machine, if any
+	 * 
+	 * @return optional event in progress
+	 */
+	public Optional<SysMLEvent> handlerEvent()
+	{
+		return Optional.ofNullable(handlerEvent);
+	}
+
+	/**
+	 * Returns the {@code System.nanoTime()} at which the event handler currently
+	 * executing started. The value is meaningful only if the
+	 * {@code handlerThread()} is present.
+	 * 
+	 * @return start time of the event handler in progress
+	 */
+	public long handlerStartNanos()
+	{
+		return handlerStartNanos;
+	}
+
+	/**
+	 * Returns the {@code System.nanoTime()} at which the last event was taken from
+	 * the event queue for handling, or at which the state machine was started if
+	 * none has been taken, or 0 if the state machine has not been started
+	 * 
+	 * @return time of last dequeue
+	 */
+	public long lastDequeueNanos()
+	{
+		return lastDequeueNanos;
+	}
+
+	/**
+	 * Records the start of the handling of the specified event for sampling by
+	 * the {@code StallWatchdog}
+	 * 
+	 * @param event event whose handling is started
+	 */
+	private void handlerStarted(SysMLEvent event)
+	{
+		long now = System.nanoTime();
+		dequeuedEvent = null;
+		handlerStartNanos = now;
+		lastDequeueNanos = now;
+		handlerEvent = event;
+		handlerThread = Thread.currentThread();
+	}
+
+	/**
+	 * Records the end of the handling of the current event
+	 */
+	private void handlerEnded()
+	{
+		handlerThread = null;
+		handlerEvent = null;
+	}
+
+	/**
+	 * Returns the metrics of this type of state machine, obtaining them from the
+	 * {@code SysMLMetrics} registry upon first call
+	 * 
+	 * @return metrics of this type of state machine
+	 */
+	private StateMachineMetrics stateMachineMetrics()
+	{
+		StateMachineMetrics result = stateMachineMetrics;
+		if (result == null)
+		{
+			result = SysMLMetrics.forStateMachine(this);
+			stateMachineMetrics = result;
+		}
+		return result;
+	}
+
 	/**
 	 * {@code Runnable} operation that executes the state machine asychronously (in
 	 * a different thread) from the submitter(s) of events. The {@code run()}
@@ -400,23 +705,24 @@ public abstract class SysMLStateMachine extends SysMLClass implements Runnable
 		{
 			try
 			{
-				SysMLEvent firstEvent = eventQueue.get().take();
-				if (firstEvent != null && firstEvent instanceof InitialEvent)
-					onInitialEvent((InitialEvent)firstEvent);
+				if (isResumed)
+					isResumed = false;
 				else
-					logger.warning(identityString() + " first eventQueue.take() is null or not recognized as InitialEvent type");
+				{
+					SysMLEvent firstEvent = eventQueue.get().take();
+					if (firstEvent != null && firstEvent instanceof InitialEvent)
+						onInitialEvent((InitialEvent)firstEvent);
+					else
+						logger.warning(identityString() + " first eventQueue.take() is null or not recognized as InitialEvent type");
+				}
 				while (currentState.isPresent() && currentState.get() != finalState)
 				{
 					SysMLEvent nextEvent = eventQueue.get().take();
+					dequeuedEvent = nextEvent;
 					onEvent(nextEvent);
 				}
 				if (currentState.isPresent() && currentState.get() == finalState)
-				{
-					timersCollection.forEach((id, timer) -> timer.timerThreadFuture.cancel(true));
-					eventQueue.get().clear();
-					if (containingStateMachine.isPresent())
-						containingStateMachine.get().queueEvent(new StateMachineCompletionEvent(id));
-				}
+					completed();
 				logger.info(identityString() + ": run() completed");
 			} catch (InterruptedException e)
 			{
@@ -427,6 +733,83 @@ public abstract class SysMLStateMachine extends SysMLClass implements Runnable
 			logger.warning(getClass().getSimpleName() + ": no event queue present as state machine is synchronous");
 	}
 
+	/**
+	 * Handles the events in the event queue until it is empty, instead of the
+	 * {@code run()} operation that awaits each event in its own thread, if the
+	 * context block's executor is a {@code VirtualTimeExecutor} or an
+	 * {@code AdaptiveScheduledExecutor}, i.e. the executor performs its tasks in
+	 * a single thread, or in threads shared by all the models in the JVM, that the
+	 * state machine must not block. The drain is scheduled upon the start of the
+	 * state machine and upon the queuing of an event when no drain is scheduled.
+	 * Upon completion, the drain schedules another if an event was queued after
+	 * the queue was found empty.
+	 */
+	private void drain()
+	{
+		SysMLEvent nextEvent = eventQueue.get().poll();
+		while (nextEvent != null && !isStopped)
+		{
+			if (currentState.isEmpty())
+			{
+				if (nextEvent instanceof InitialEvent)
+					onInitialEvent((InitialEvent)nextEvent);
+				else
+					logger.warning(identityString() + " first event is not recognized as InitialEvent type");
+			}
+			else
+			{
+				dequeuedEvent = nextEvent;
+				onEvent(nextEvent);
+			}
+			if (currentState.isPresent() && currentState.get() == finalState)
+			{
+				isStopped = true;
+				completed();
+			}
+			nextEvent = eventQueue.get().poll();
+		}
+		isDrainScheduled.set(false);
+		if (!eventQueue.get().isEmpty())
+			scheduleDrain();
+	}
+
+	/**
+	 * Schedules a drain of the event queue in the context block's executor, unless
+	 * one is already scheduled or in progress or the state machine is stopped
+	 */
+	private void scheduleDrain()
+	{
+		if (!isStopped && isDrainScheduled.compareAndSet(false, true))
+			threadFuture = contextBlock.get().concurrentExecutionThreads.submit(this::drain);
+	}
+
+	/**
+	 * Returns whether the event queue is handled by drains rather than by the
+	 * {@code run()} operation, i.e. whether the context block's executor is a
+	 * {@code VirtualTimeExecutor} or a shared {@code AdaptiveScheduledExecutor},
+	 * whose threads are not to be occupied by the state machine while it awaits
+	 * events
+	 * 
+	 * @return true if the event queue is drained
+	 */
+	private boolean isDrained()
+	{
+		return contextBlock.isPresent() && (contextBlock.get().concurrentExecutionThreads instanceof VirtualTimeExecutor || contextBlock.get().concurrentExecutionThreads instanceof AdaptiveScheduledExecutor);
+	}
+
+	/**
+	 * Cancels the timers and clears the event queue of the state machine upon
+	 * reaching its final state, and notifies the containing state machine, if
+	 * any, of its completion
+	 */
+	private void completed()
+	{
+		timersCollection.forEach((id, timer) -> timer.timerThreadFuture.cancel(true));
+		eventQueue.get().clear();
+		if (containingStateMachine.isPresent())
+			containingStateMachine.get().queueEvent(new StateMachineCompletionEvent(id));
+	}
+
 	/**
 	 * Event handler for the initial event. That is, for the first event received by
 	 * the state machine to transition from the initial state. The operation
@@ -438,19 +821,26 @@ public abstract class SysMLStateMachine extends SysMLClass implements Runnable
 	 */
 	public synchronized void onInitialEvent(InitialEvent initialEvent)
 	{
-		currentState = Optional.empty();
-		InitialTransition initialTransition = getInitialTransition(initialState);
-		SysMLVertex nextVertex = performInitialTransition(initialTransition, contextBlock);
-		Optional<SysMLTransition> nextTransition = getNextTransition(nextVertex, Optional.empty(), contextBlock);
-		while (nextVertex != finalState && nextTransition.isPresent())
+		handlerStarted(initialEvent);
+		try
+		{
+			currentState = Optional.empty();
+			InitialTransition initialTransition = getInitialTransition(initialState);
+			SysMLVertex nextVertex = performInitialTransition(initialTransition, contextBlock);
+			Optional<SysMLTransition> nextTransition = getNextTransition(nextVertex, Optional.empty(), contextBlock);
+			while (nextVertex != finalState && nextTransition.isPresent())
+			{
+				nextVertex = performTransition(nextTransition.get(), nextVertex, Optional.empty(), contextBlock);
+				nextTransition = getNextTransition(nextVertex, Optional.empty(), contextBlock);
+			}
+			if (nextVertex instanceof SysMLState)
+				currentState = Optional.of((SysMLState)nextVertex);
+			else
+				logger.severe("next/last vertex after initial event is not a state-type vertex: " + nextVertex.identityString());
+		} finally
 		{
-			nextVertex = performTransition(nextTransition.get(), nextVertex, Optional.empty(), contextBlock);
-			nextTransition = getNextTransition(nextVertex, Optional.empty(), contextBlock);
+			handlerEnded();
 		}
-		if (nextVertex instanceof SysMLState)
-			currentState = Optional.of((SysMLState)nextVertex);
-		else
-			logger.severe("next/last vertex after initial event is not a state-type vertex: " + nextVertex.identityString());
 	}
 
 	/**
@@ -495,45 +885,57 @@ public abstract class SysMLStateMachine extends SysMLClass implements Runnable
 	 */
 	public synchronized void onEvent(SysMLEvent event)
 	{
-		if (currentState.isPresent())
-			if (!subStateMachineUses(currentState.get(), event))
-			{
-				if (!(event instanceof StateMachineCompletionEvent) || event instanceof StateMachineCompletionEvent && currentState.get().subStateMachinesCompleted((StateMachineCompletionEvent)event))
+		handlerStarted(event);
+		try
+		{
+			if (event.trace.isPresent())
+				event.trace.get().dequeueNanos = SignalTracing.epochNanos();
+			if (currentState.isPresent())
+				if (!subStateMachineUses(currentState.get(), event))
 				{
-					SysMLVertex currentVertex = currentState.get();
-					Optional<SysMLTransition> nextTransition = getNextTransition(currentVertex, Optional.of(event), contextBlock);
-					if (nextTransition.isPresent())
+					if (!(event instanceof StateMachineCompletionEvent) || event instanceof StateMachineCompletionEvent && currentState.get().subStateMachinesCompleted((StateMachineCompletionEvent)event))
 					{
-						SysMLVertex nextVertex = performTransition(nextTransition.get(), currentVertex, Optional.of(event), contextBlock);
-						do
+						SysMLVertex currentVertex = currentState.get();
+						Optional<SysMLTransition> nextTransition = getNextTransition(currentVertex, Optional.of(event), contextBlock);
+						if (nextTransition.isPresent())
 						{
-							if (nextVertex != currentVertex)
+							SysMLVertex nextVertex = performTransition(nextTransition.get(), currentVertex, Optional.of(event), contextBlock);
+							do
 							{
-								currentVertex = nextVertex;
-								if (currentVertex != finalState)
+								if (nextVertex != currentVertex)
 								{
-									nextTransition = getNextTransition(currentVertex, Optional.empty(), contextBlock);
-									if (nextTransition.isPresent())
-										nextVertex = performTransition(nextTransition.get(), currentVertex, Optional.empty(), contextBlock);
+									currentVertex = nextVertex;
+									if (currentVertex != finalState)
+									{
+										nextTransition = getNextTransition(currentVertex, Optional.empty(), contextBlock);
+										if (nextTransition.isPresent())
+											nextVertex = performTransition(nextTransition.get(), currentVertex, Optional.empty(), contextBlock);
+									}
+									else
+										nextTransition = Optional.empty();
 								}
 								else
 									nextTransition = Optional.empty();
-							}
+							} while (nextTransition.isPresent());
+							if (currentVertex instanceof SysMLState)
+								currentState = Optional.of((SysMLState)currentVertex);
 							else
-								nextTransition = Optional.empty();
-						} while (nextTransition.isPresent());
-						if (currentVertex instanceof SysMLState)
-							currentState = Optional.of((SysMLState)currentVertex);
-						else
-							logger.severe("next/last vertex after event " + event.identityString() + " is not a state-type vertex: " + currentVertex.identityString());
+								logger.severe("next/last vertex after event " + event.identityString() + " is not a state-type vertex: " + currentVertex.identityString());
+						}
 					}
+					if (event.trace.isPresent())
+						SignalTracing.complete(event.trace.get());
 				}
-			}
+				else
+					for (SysMLStateMachine subStateMachine : currentState.get().subStateMachines)
+						subStateMachine.queueEvent(event);
 			else
-				for (SysMLStateMachine subStateMachine : currentState.get().subStateMachines)
-					subStateMachine.queueEvent(event);
-		else
-			logger.severe("currentState is not present for processing of event: " + event.getClass().getSimpleName());
+				logger.severe("currentState is not present for processing of event: " + event.getClass().getSimpleName());
+			stateMachineMetrics().eventsProcessed.increment();
+		} finally
+		{
+			handlerEnded();
+		}
 	}
 
 	/**
@@ -567,6 +969,9 @@ public abstract class SysMLStateMachine extends SysMLClass implements Runnable
 	 */
 	private SysMLVertex performInitialTransition(InitialTransition initialTransition, Optional<? extends SysMLBlock> contextBlock)
 	{
+		long startNanos = System.nanoTime();
+		TransitionEvent jfrEvent = new TransitionEvent();
+		jfrEvent.begin();
 		SysMLVertex result = null;
 		if (initialTransition.effect.isPresent())
 			initialTransition.effect.get().perform(Optional.empty(), contextBlock);
@@ -580,6 +985,13 @@ public abstract class SysMLStateMachine extends SysMLClass implements Runnable
 			((SysMLState)result).onEnter();
 			((SysMLState)result).doWhileInState();
 		}
+		stateMachineMetrics().transitionLatency.recordSince(startNanos);
+		if (jfrEvent.shouldCommitFor(initialTransition, contextBlock))
+		{
+			jfrEvent.fromVertex = initialState.identityString();
+			jfrEvent.toVertex = result.identityString();
+			jfrEvent.commit();
+		}
 		return result;
 	}
 
@@ -596,6 +1008,9 @@ public abstract class SysMLStateMachine extends SysMLClass implements Runnable
 	 */
 	private SysMLVertex performTransition(SysMLTransition transition, SysMLVertex fromVertex, Optional<SysMLEvent> event, Optional<? extends SysMLBlock> contextBlock)
 	{
+		long startNanos = System.nanoTime();
+		TransitionEvent jfrEvent = new TransitionEvent();
+		jfrEvent.begin();
 		SysMLVertex result = null;
 		boolean isInternalTransition = transition.nextState.equals(fromVertex) && transition.transitionKind == SysMLTransitionKind.internal;
 		if (!isInternalTransition && fromVertex instanceof SysMLState)
@@ -612,6 +1027,14 @@ public abstract class SysMLStateMachine extends SysMLClass implements Runnable
 			((SysMLState)result).onEnter();
 			((SysMLState)result).doWhileInState();
 		}
+		stateMachineMetrics().transitionLatency.recordSince(startNanos);
+		if (jfrEvent.shouldCommitFor(transition, contextBlock))
+		{
+			jfrEvent.fromVertex = fromVertex.identityString();
+			jfrEvent.toVertex = result.identityString();
+			jfrEvent.trigger = event.isPresent() ? event.get().getClass().getSimpleName() : null;
+			jfrEvent.commit();
+		}
 		return result;
 	}
 
@@ -637,7 +1060,9 @@ public abstract class SysMLStateMachine extends SysMLClass implements Runnable
 
 	/**
 	 * Returns the next transition to be performed from the specified state vertex
-	 * for the specified event.
+	 * for the specified event. The transition is selected by the generated
+	 * dispatcher of this state machine, if present, or otherwise by interpretation
+	 * of the vertex's transitions.
 	 * 
 	 * @param fromVertex   the state vertex from which the transition is to be found
 	 * @param currentEvent the current event that is to trigger the next transition,
@@ -648,29 +1073,38 @@ public abstract class SysMLStateMachine extends SysMLClass implements Runnable
 	private Optional<SysMLTransition> getNextTransition(SysMLVertex fromVertex, Optional<SysMLEvent> currentEvent, Optional<? extends SysMLBlock> contextBlock)
 	{
 		Optional<SysMLTransition> result = Optional.empty();
-		ListIterator<? extends SysMLTransition> stateTransitionsIterator = fromVertex.transitions.listIterator();
-		while (stateTransitionsIterator.hasNext() && !result.isPresent())
+		if (dispatcher.isPresent() && fromVertex.dispatchIndex >= 0)
+		{
+			int selected = dispatcher.get().select(fromVertex, currentEvent);
+			if (selected >= 0)
+				result = Optional.of(fromVertex.transitions.get(selected));
+		}
+		else
 		{
-			SysMLTransition candidateTransition = stateTransitionsIterator.next();
-			if (candidateTransition.trigger.isPresent())
+			ListIterator<? extends SysMLTransition> stateTransitionsIterator = fromVertex.transitions.listIterator();
+			while (stateTransitionsIterator.hasNext() && !result.isPresent())
 			{
-				if (currentEvent.isPresent())
-					if (currentEvent.get().isOfEventType(candidateTransition.trigger.get()))
-						if (candidateTransition.guard.isPresent())
-						{
-							if (candidateTransition.guard.get().isSatisfied(currentEvent))
+				SysMLTransition candidateTransition = stateTransitionsIterator.next();
+				if (candidateTransition.trigger.isPresent())
+				{
+					if (currentEvent.isPresent())
+						if (currentEvent.get().isOfEventType(candidateTransition.trigger.get()))
+							if (candidateTransition.guard.isPresent())
+							{
+								if (candidateTransition.guard.get().isSatisfied(currentEvent))
+									result = Optional.of(candidateTransition);
+							}
+							else
 								result = Optional.of(candidateTransition);
-						}
-						else
-							result = Optional.of(candidateTransition);
-			}
-			else if (candidateTransition.guard.isPresent())
-			{
-				if (candidateTransition.guard.get().isSatisfied(currentEvent))
+				}
+				else if (candidateTransition.guard.isPresent())
+				{
+					if (candidateTransition.guard.get().isSatisfied(currentEvent))
+						result = Optional.of(candidateTransition);
+				}
+				else
 					result = Optional.of(candidateTransition);
 			}
-			else
-				result = Optional.of(candidateTransition);
 		}
 		return result;
 	}
@@ -694,7 +1128,7 @@ public abstract class SysMLStateMachine extends SysMLClass implements Runnable
 			{
 				SysMLStateMachine subStateMachine = subStateMachines.next();
 				// TODO make subStateMachine.currentState.get() synchronous
-				Optional<SysMLTransition> selectedTransition = getNextTransition(subStateMachine.currentState.get(), Optional.of(currentEvent), contextBlock);
+				Optional<SysMLTransition> selectedTransition = subStateMachine.getNextTransition(subStateMachine.currentState.get(), Optional.of(currentEvent), contextBlock);
 				if (selectedTransition.isPresent())
 					isUsed = true;
 			}
@@ -702,6 +1136,52 @@ public abstract class SysMLStateMachine extends SysMLClass implements Runnable
 		return isUsed;
 	}
 
+	/**
+	 * Binds the dispatcher generated for the class of this state machine, if any,
+	 * i.e. assigns the dispatch indices of the vertices reachable from the initial
+	 * state in breadth-first order and uses the dispatcher only if its signature
+	 * matches the signature of the transitions of this state machine.
+	 */
+	private void bindDispatcher()
+	{
+		dispatcher = dispatchers.get(getClass());
+		if (dispatcher.isPresent())
+		{
+			List<SysMLVertex> vertices = new ArrayList<>();
+			initialState.dispatchIndex = 0;
+			vertices.add(initialState);
+			StringBuilder signature = new StringBuilder();
+			for (int v = 0; v < vertices.size(); v++)
+			{
+				SysMLVertex vertex = vertices.get(v);
+				signature.append(v).append(':');
+				for (int t = 0; t < vertex.transitions.size(); t++)
+				{
+					SysMLTransition transition = vertex.transitions.get(t);
+					if (transition.nextState.dispatchIndex < 0 || transition.nextState.dispatchIndex >= vertices.size() || vertices.get(transition.nextState.dispatchIndex) != transition.nextState)
+					{
+						transition.nextState.dispatchIndex = vertices.size();
+						vertices.add(transition.nextState);
+					}
+					if (t > 0)
+						signature.append(',');
+					signature.append(transition.nextState.dispatchIndex);
+					if (transition.trigger.isPresent())
+						signature.append('/').append(transition.trigger.get().getName());
+					if (transition.guard.isPresent())
+						signature.append('?');
+				}
+				signature.append(';');
+			}
+			if (!signature.toString().equals(dispatcher.get().signature()))
+			{
+				logger.warning(identityString() + ": generated dispatcher does not match transitions, dispatcher not used");
+				vertices.forEach(vertex -> vertex.dispatchIndex = -1);
+				dispatcher = Optional.empty();
+			}
+		}
+	}
+
 	/**
 	 * Overridable operation that creates the event comparator that implements the
 	 * {@code Comparator<SysMLEvent>} interface used by the event queue to
@@ -1302,6 +1782,19 @@ public abstract class SysMLStateMachine extends SysMLClass implements Runnable
 		 * Future for (reference to) the started timer
 		 */
 		private ScheduledFuture<?> timerThreadFuture;
+		/**
+		 * {@code System.nanoTime()} at which the timer is next scheduled to fire, used
+		 * to record the fire lag
+		 */
+		private long scheduledNanos;
+		/**
+		 * Period of the timer in nanoseconds, or 0 if the timer is a one-shot timer
+		 */
+		private long periodNanos;
+		/**
+		 * Metrics of timers with this timer's ID in this type of state machine
+		 */
+		private TimerMetrics timerMetrics;
 
 		/**
 		 * Timer constructor for relative time
@@ -1316,6 +1809,7 @@ public abstract class SysMLStateMachine extends SysMLClass implements Runnable
 		{
 			super();
 			event = new SysMLTimeEvent(timerID, initialDelay, Optional.of(period));
+			initializeMetrics(initialDelay, Optional.of(period));
 			if (!period.isZero())
 				timerThreadFuture = contextBlock.get().concurrentExecutionThreads.scheduleAtFixedRate(this, initialDelay.value, period.value, TimeUnit.MILLISECONDS);
 			else
@@ -1336,6 +1830,7 @@ public abstract class SysMLStateMachine extends SysMLClass implements Runnable
 			super();
 			event = new SysMLTimeEvent(timerID, absoluteTime, period);
 			DurationMilliseconds initialDelay = DurationMilliseconds.between(InstantMilliseconds.now(), absoluteTime);
+			initializeMetrics(initialDelay, period);
 			if (period.isPresent())
 				timerThreadFuture = contextBlock.get().concurrentExecutionThreads.scheduleAtFixedRate(this, initialDelay.value, period.get().value, TimeUnit.MILLISECONDS);
 			else
@@ -1349,37 +1844,149 @@ public abstract class SysMLStateMachine extends SysMLClass implements Runnable
 		 */
 		public Timer(SysMLTimeEvent event)
 		{
+			this(event, initialDelayOf(event));
+		}
+
+		/**
+		 * Timer constructor for a SysML time event whose first occurrence is after
+		 * the specified delay, e.g. for a timer that is restored from a snapshot with
+		 * its remaining delay. The timer is periodic if the event specifies a non-zero
+		 * periodic time.
+		 * 
+		 * @param event        the SysML time event that specifies the timer
+		 * @param initialDelay the delay before the first time event
+		 */
+		public Timer(SysMLTimeEvent event, DurationMilliseconds initialDelay)
+		{
+			super();
 			this.event = event;
-			DurationMilliseconds initialDelay = DurationMilliseconds.ZERO;
-			if (event.absoluteTime.isPresent())
-				initialDelay = DurationMilliseconds.between(InstantMilliseconds.now(), event.absoluteTime.get());
-			else if (event.relativeTime.isPresent())
-				initialDelay = event.relativeTime.get();
-			if (event.periodicTime.isPresent())
+			initializeMetrics(initialDelay, event.periodicTime);
+			if (event.periodicTime.isPresent() && !event.periodicTime.get().isZero())
 				timerThreadFuture = contextBlock.get().concurrentExecutionThreads.scheduleAtFixedRate(this, initialDelay.value, event.periodicTime.get().value, TimeUnit.MILLISECONDS);
 			else
 				timerThreadFuture = contextBlock.get().concurrentExecutionThreads.schedule(this, initialDelay.value, TimeUnit.MILLISECONDS);
 		}
 
+		/**
+		 * Returns the time event sent to the state machine when the timer expires
+		 * 
+		 * @return the time event of the timer
+		 */
+		public SysMLTimeEvent event()
+		{
+			return event;
+		}
+
+		/**
+		 * Returns the delay remaining until the timer next expires, or zero if the
+		 * timer has expired and is not periodic
+		 * 
+		 * @return remaining delay of the timer
+		 */
+		public DurationMilliseconds remainingDelay()
+		{
+			return new DurationMilliseconds(Math.max(0L, timerThreadFuture.getDelay(TimeUnit.MILLISECONDS)));
+		}
+
 		/**
 		 * Runnable {@code run()} operation. Operation is called at timer's thread
-		 * execution time. On invocation, it either queues up a {@code SysMLTimeEvent}
-		 * to the {@code eventQueue} or, if this is not an asynchronous state machine,
-		 * simply invokes the state-machine's {@code onEvent()} event-handling
-		 * operation.
+		 * execution time. On invocation, it records the expiry in the journal, if
+		 * one is recording, and expires the timer. While a journal is replayed, the
+		 * timer is expired by the replay instead, as recorded.
 		 */
 		@Override
 		public void run()
+		{
+			if (!SysMLJournalReplay.isReplaying())
+			{
+				timerMetrics.fireLag.recordSince(scheduledNanos);
+				scheduledNanos += periodNanos;
+				if (SysMLJournal.isRecording())
+					SysMLJournal.recordTimer(contextBlock.get(), event.timerID);
+				expire();
+			}
+		}
+
+		/**
+		 * Expires the timer, i.e. either queues up its {@code SysMLTimeEvent} to the
+		 * {@code eventQueue} or, if this is not an asynchronous state machine, simply
+		 * invokes the state-machine's {@code onEvent()} event-handling operation.
+		 */
+		public void expire()
 		{
 			if (eventQueue.isPresent())
 			{
 				queueEvent(event);
 			}
 			else
+			{
+				stateMachineMetrics().eventsReceived.increment();
 				onEvent(event);
+			}
+		}
+
+		/**
+		 * Initializes the timer's metrics and the scheduled time of its first firing.
+		 * Called by the constructors prior to scheduling the timer so the first firing
+		 * cannot precede the initialization.
+		 * 
+		 * @param initialDelay delay until the first firing
+		 * @param period       optional period between successive firings
+		 */
+		private void initializeMetrics(DurationMilliseconds initialDelay, Optional<DurationMilliseconds> period)
+		{
+			timerMetrics = timerMetricsByID.computeIfAbsent(event.timerID, timerID -> SysMLMetrics.forTimer(SysMLStateMachine.this, timerID));
+			periodNanos = period.isPresent() ? TimeUnit.MILLISECONDS.toNanos(period.get().value) : 0;
+			scheduledNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Math.max(0, initialDelay.value));
 		}
 	}
 
+	/**
+	 * Returns the delay before the first occurrence of the specified time event,
+	 * i.e. the delay until its absolute time, if specified, or its relative time,
+	 * if specified, or zero
+	 * 
+	 * @param event the time event
+	 * @return delay before the first occurrence of the event
+	 */
+	private static DurationMilliseconds initialDelayOf(SysMLTimeEvent event)
+	{
+		DurationMilliseconds result = DurationMilliseconds.ZERO;
+		if (event.absoluteTime.isPresent())
+			result = DurationMilliseconds.between(InstantMilliseconds.now(), event.absoluteTime.get());
+		else if (event.relativeTime.isPresent())
+			result = event.relativeTime.get();
+		return result;
+	}
+
+	/**
+	 * Cache of the optional generated dispatchers of the state machine classes,
+	 * i.e. one dispatcher instance per class, shared by all instances of the class
+	 */
+	private static final ClassValue<Optional<SysMLStateMachineDispatcher>> dispatchers = new ClassValue<>()
+	{
+		@Override
+		protected Optional<SysMLStateMachineDispatcher> computeValue(Class<?> type)
+		{
+			Optional<SysMLStateMachineDispatcher> result = Optional.empty();
+			String simpleName = type.getName().substring(type.getPackageName().isEmpty() ? 0 : type.getPackageName().length() + 1).replace('$', '_');
+			String dispatcherName = (type.getPackageName().isEmpty() ? "" : type.getPackageName() + ".") + simpleName + SysMLStateMachineDispatcher.classNameSuffix;
+			try
+			{
+				Class<?> dispatcherClass = Class.forName(dispatcherName, true, type.getClassLoader());
+				if (SysMLStateMachineDispatcher.class.isAssignableFrom(dispatcherClass))
+					result = Optional.of((SysMLStateMachineDispatcher)dispatcherClass.getDeclaredConstructor().newInstance());
+			} catch (ClassNotFoundException e)
+			{
+				// no dispatcher generated for the class
+			} catch (ReflectiveOperationException | RuntimeException e)
+			{
+				Logger.getLogger(type.getSimpleName()).warning("generated dispatcher " + dispatcherName + " could not be instantiated: " + e);
+			}
+			return result;
+		}
+	};
+
 	/**
 	 * Name of method to create state on-enter activities, used by SyMLinJava tools
 	 */
@@ -0,0 +1,356 @@
+package sysmlinjava.statemachine;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import sysmlinjava.analysis.metrics.LatencyHistogram;
+import sysmlinjava.blocks.SysMLBlock;
+import sysmlinjava.events.SysMLEvent;
+
+/**
+ * SysMLinJava's compiled, immutable definition of the states and transitions of
+ * a {@code SysMLStateMachine}.
+ * <h2>Flyweight state machines</h2> Each {@code SysMLStateMachine} instance
+ * creates its complete graph of states, pseudo-states, transitions, guards, and
+ * effects in its constructor, i.e. hundreds of objects for every instance of
+ * the same block type. The {@code SysMLStateMachineDefinition} is the graph of a
+ * state machine class compiled once, from a single prototype instance, into
+ * int-indexed arrays of vertices and transitions that refer to the guard
+ * conditions and the effect and state activities of the prototype. The
+ * definition is shared by any number of {@code SysMLStateMachineInstance}s,
+ * each of which holds only the per-instance runtime state, i.e. the index of
+ * the current state, the event queue, and the timers. A model of 100,000
+ * identical blocks thereby holds one graph rather than 100,000 graphs, and the
+ * dispatch of an event is a scan of the current vertex's transition indices.
+ * <h3>Compilation</h3> The definition is compiled by the
+ * {@code forClass(Class, Supplier)} operation, which constructs a prototype
+ * instance of the state machine class with the supplier and compiles it only
+ * for the first request for the class, e.g. in the {@code createStateMachine()}
+ * operation of the context block as follows:
+ *
+ * <pre>
+ * &#64;Override
+ * protected void createStateMachine()
+ * {
+ * 	SysMLStateMachineDefinition definition = SysMLStateMachineDefinition.forClass(MyStateMachine.class, () -&gt; new MyStateMachine(this));
+ * 	stateMachineInstance = Optional.of(new SysMLStateMachineInstance(definition, Optional.of(this), true));
+ * }
+ * </pre>
+ *
+ * The vertices are indexed in the order they are reached from the initial
+ * state, and the transitions of each vertex in the order they were created,
+ * i.e. the order in which the {@code SysMLStateMachine} evaluates them.
+ * <h3>Restrictions</h3> The guard conditions and activities of the prototype
+ * are shared by all instances. They must therefore operate on the
+ * {@code contextBlock} and {@code event} arguments they are invoked with, as
+ * the guard conditions and activities of SysMLinJava models normally do, and
+ * not on the fields of the prototype or its context block. Composite states,
+ * i.e. states with sub-state machines, cannot be compiled, nor can the
+ * {@code TransitionsUtility} of the prototype be used, as both require the
+ * full {@code SysMLStateMachine} instance.
+ *
+ * @author ModelerOne
+ *
+ * @see SysMLStateMachineInstance
+ */
+public final class SysMLStateMachineDefinition
+{
+	/**
+	 * Name of the definition, i.e. the simple name of the compiled state machine
+	 * class
+	 */
+	public final String name;
+	/**
+	 * Index of the initial state vertex
+	 */
+	public final int initialVertex;
+	/**
+	 * Index of the final state vertex
+	 */
+	public final int finalVertex;
+	/**
+	 * Histogram of the latencies of the transitions performed by all instances of
+	 * this definition
+	 */
+	public final LatencyHistogram transitionLatency;
+	/**
+	 * Comparator by which the events queued to the instances of this definition
+	 * are ordered, i.e. the {@code eventComparator} created by the prototype's
+	 * {@code createEventComparator()} operation
+	 */
+	public final Comparator<SysMLEvent> eventComparator;
+	/**
+	 * Whether the events queued to the instances are ordered by priority, i.e. the
+	 * prototype's {@code createEventComparator()} operation is overridden, or in
+	 * the order they are queued, as the default comparator ranks all events
+	 * equally
+	 */
+	public final boolean isPrioritized;
+
+	/**
+	 * Prototype vertices, by vertex index, used as the identity of the vertices in
+	 * flight recorder events
+	 */
+	final SysMLVertex[] vertices;
+	/**
+	 * Whether the vertex, by vertex index, is a state, i.e. not a pseudo-state
+	 */
+	final boolean[] isState;
+	/**
+	 * Optional on-enter activity of the vertex, by vertex index, null if none
+	 */
+	final SysMLOnEnterActivity[] onEnterActivities;
+	/**
+	 * Optional do-activity of the vertex, by vertex index, null if none
+	 */
+	final SysMLDoActivity[] doActivities;
+	/**
+	 * Optional on-exit activity of the vertex, by vertex index, null if none
+	 */
+	final SysMLOnExitActivity[] onExitActivities;
+	/**
+	 * Index of the first transition of the vertex, by vertex index, where the
+	 * transitions of vertex {@code v} are the indices
+	 * {@code firstTransitions[v]} up to {@code firstTransitions[v + 1]}
+	 */
+	final int[] firstTransitions;
+	/**
+	 * Prototype transitions, by transition index, used as the identity of the
+	 * transitions in flight recorder events
+	 */
+	final SysMLTransition[] transitions;
+	/**
+	 * Index of the vertex the transition leads to, by transition index
+	 */
+	final int[] targetVertices;
+	/**
+	 * Optional trigger event type of the transition, by transition index, null if
+	 * none
+	 */
+	final Class<? extends SysMLEvent>[] triggers;
+	/**
+	 * Optional guard condition of the transition, by transition index, null if
+	 * none
+	 */
+	final SysMLGuardCondition[] guardConditions;
+	/**
+	 * Optional effect activity of the transition, by transition index, null if
+	 * none
+	 */
+	final SysMLEffectActivity[] effectActivities;
+	/**
+	 * Whether the transition, by transition index, is an internal transition to
+	 * its own vertex, i.e. one that does not exit and re-enter the vertex
+	 */
+	final boolean[] isInternal;
+
+	/**
+	 * Constructor - compiles the graph of the specified prototype state machine
+	 *
+	 * @param prototype state machine whose graph is to be compiled
+	 * @throws IllegalArgumentException if the prototype has a composite state or
+	 *                                  a transitions utility
+	 */
+	public SysMLStateMachineDefinition(SysMLStateMachine prototype)
+	{
+		super();
+		if (prototype.transitionsUtility.isPresent())
+			throw new IllegalArgumentException(prototype.getClass().getSimpleName() + ": state machine with transitions utility cannot be compiled");
+		name = prototype.getClass().getSimpleName();
+
+		List<SysMLVertex> order = new ArrayList<>();
+		Map<SysMLVertex, Integer> indices = new IdentityHashMap<>();
+		indexOf(prototype.initialState, order, indices);
+		int transitionCount = 0;
+		for (int v = 0; v < order.size(); v++)
+			for (SysMLTransition transition : order.get(v).transitions)
+			{
+				indexOf(transition.nextState, order, indices);
+				transitionCount++;
+			}
+		indexOf(prototype.finalState, order, indices);
+
+		int vertexCount = order.size();
+		vertices = order.toArray(new SysMLVertex[vertexCount]);
+		isState = new boolean[vertexCount];
+		onEnterActivities = new SysMLOnEnterActivity[vertexCount];
+		doActivities = new SysMLDoActivity[vertexCount];
+		onExitActivities = new SysMLOnExitActivity[vertexCount];
+		firstTransitions = new int[vertexCount + 1];
+		transitions = new SysMLTransition[transitionCount];
+		targetVertices = new int[transitionCount];
+		@SuppressWarnings("unchecked")
+		Class<? extends SysMLEvent>[] triggerTypes = (Class<? extends SysMLEvent>[])new Class<?>[transitionCount];
+		triggers = triggerTypes;
+		guardConditions = new SysMLGuardCondition[transitionCount];
+		effectActivities = new SysMLEffectActivity[transitionCount];
+		isInternal = new boolean[transitionCount];
+
+		int t = 0;
+		for (int v = 0; v < vertexCount; v++)
+		{
+			SysMLVertex vertex = vertices[v];
+			if (vertex instanceof SysMLState)
+			{
+				SysMLState state = (SysMLState)vertex;
+				if (!state.subStateMachines.isEmpty())
+					throw new IllegalArgumentException(name + ": composite state cannot be compiled: " + state.identityString());
+				isState[v] = true;
+				onEnterActivities[v] = state.onEnterActivity.orElse(null);
+				doActivities[v] = state.doActivity.orElse(null);
+				onExitActivities[v] = state.onExitActivity.orElse(null);
+			}
+			firstTransitions[v] = t;
+			for (SysMLTransition transition : vertex.transitions)
+			{
+				transitions[t] = transition;
+				targetVertices[t] = indices.get(transition.nextState);
+				triggers[t] = transition.trigger.orElse(null);
+				if (transition.guard.isPresent())
+					guardConditions[t] = transition.guard.get().condition.orElse(unsatisfiable);
+				if (transition.effect.isPresent())
+					effectActivities[t] = transition.effect.get().activity.orElse(null);
+				isInternal[t] = transition.nextState == vertex && transition.transitionKind == SysMLTransitionKind.internal;
+				t++;
+			}
+		}
+		firstTransitions[vertexCount] = t;
+		initialVertex = indices.get(prototype.initialState);
+		finalVertex = indices.get(prototype.finalState);
+		transitionLatency = new LatencyHistogram();
+		eventComparator = prototype.eventComparator;
+		isPrioritized = !(eventComparator instanceof SysMLStateMachine.DefaultEventComparator);
+	}
+
+	/**
+	 * Returns the definition of the specified state machine class, compiling it
+	 * from a prototype created by the specified supplier if the class has not yet
+	 * been compiled
+	 *
+	 * @param stateMachineClass class of the state machine
+	 * @param prototype         supplier of a prototype instance of the class, used
+	 *                          only for the first request for the class
+	 * @return definition of the state machine class
+	 */
+	public static SysMLStateMachineDefinition forClass(Class<? extends SysMLStateMachine> stateMachineClass, Supplier<? extends SysMLStateMachine> prototype)
+	{
+		return definitions.computeIfAbsent(stateMachineClass, type -> new SysMLStateMachineDefinition(prototype.get()));
+	}
+
+	/**
+	 * Returns the number of vertices, i.e. states and pseudo-states, of the
+	 * definition
+	 *
+	 * @return number of vertices
+	 */
+	public int vertexCount()
+	{
+		return vertices.length;
+	}
+
+	/**
+	 * Returns the number of transitions of the definition
+	 *
+	 * @return number of transitions
+	 */
+	public int transitionCount()
+	{
+		return transitions.length;
+	}
+
+	/**
+	 * Returns whether the vertex at the specified index is a state, i.e. a vertex
+	 * in which an instance can be current
+	 *
+	 * @param vertex index of the vertex
+	 * @return true if the vertex is a state
+	 */
+	public boolean isState(int vertex)
+	{
+		return isState[vertex];
+	}
+
+	/**
+	 * Returns the identity string of the vertex at the specified index
+	 *
+	 * @param vertex index of the vertex
+	 * @return identity string of the vertex
+	 */
+	public String vertexName(int vertex)
+	{
+		return vertices[vertex].identityString();
+	}
+
+	/**
+	 * Returns the index of the vertex with the specified identity string
+	 *
+	 * @param vertexName identity string of the vertex
+	 * @return index of the vertex, or -1 if there is no such vertex
+	 */
+	public int vertexIndex(String vertexName)
+	{
+		int result = -1;
+		for (int v = 0; v < vertices.length && result < 0; v++)
+			if (vertices[v].identityString().equals(vertexName))
+				result = v;
+		return result;
+	}
+
+	/**
+	 * Returns the index of the first transition of the specified vertex that is
+	 * enabled by the specified event, i.e. whose trigger, if any, matches the event
+	 * and whose guard condition, if any, is satisfied. The selection is the same as
+	 * that of the {@code SysMLStateMachine}.
+	 *
+	 * @param vertex       index of the vertex
+	 * @param event        optional event, empty for completion transitions
+	 * @param contextBlock context block of the instance for the guard conditions
+	 * @return index of the enabled transition, or -1 if none
+	 */
+	int nextTransition(int vertex, Optional<SysMLEvent> event, Optional<? extends SysMLBlock> contextBlock)
+	{
+		int result = -1;
+		for (int t = firstTransitions[vertex]; t < firstTransitions[vertex + 1] && result < 0; t++)
+			if (triggers[t] == null || event.isPresent() && event.get().isOfEventType(triggers[t]))
+				if (guardConditions[t] == null || guardConditions[t].isSatisfied(event, contextBlock))
+					result = t;
+		return result;
+	}
+
+	/**
+	 * Adds the specified vertex to the order of vertices, if not already present
+	 *
+	 * @param vertex  vertex to be added
+	 * @param order   order of the vertices
+	 * @param indices map of the vertices to their indices in the order
+	 */
+	private static void indexOf(SysMLVertex vertex, List<SysMLVertex> order, Map<SysMLVertex, Integer> indices)
+	{
+		if (!indices.containsKey(vertex))
+		{
+			indices.put(vertex, order.size());
+			order.add(vertex);
+		}
+	}
+
+	@Override
+	public String toString()
+	{
+		return String.format("SysMLStateMachineDefinition [name=%s, vertices=%d, transitions=%d]", name, vertices.length, transitions.length);
+	}
+
+	/**
+	 * Guard condition of guards without a condition, which the
+	 * {@code SysMLGuard} never considers satisfied
+	 */
+	private static final SysMLGuardCondition unsatisfiable = (event, contextBlock) -> false;
+	/**
+	 * Cache of the compiled definitions of the state machine classes
+	 */
+	private static final Map<Class<? extends SysMLStateMachine>, SysMLStateMachineDefinition> definitions = new ConcurrentHashMap<>();
+}
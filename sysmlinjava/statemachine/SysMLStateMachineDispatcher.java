@@ -0,0 +1,68 @@
+package sysmlinjava.statemachine;
+
+import java.util.Optional;
+import sysmlinjava.events.SysMLEvent;
+
+/**
+ * SysMLinJava's interface for a dispatcher that selects the transitions of a
+ * specific {@code SysMLStateMachine} class.
+ * <h2>Generated dispatchers</h2> The {@code SysMLStateMachine} selects the
+ * transition to be performed for an event by interpreting the list of
+ * transitions of the current vertex, i.e. by iterating the list and testing the
+ * optional trigger and guard of each transition. A
+ * {@code SysMLStateMachineDispatcher} is a class that is generated for a state
+ * machine class by the {@code StateMachineDispatcherProcessor} annotation
+ * processor from the transitions created in the class's
+ * {@code createTransitions()} operation. The generated {@code select()}
+ * operation is a {@code switch} on the {@code dispatchIndex} of the vertex
+ * with, for each case, the tests of the triggers and guards of the vertex's
+ * transitions written out in sequence, i.e. code that the JIT compiler can
+ * inline in its entirety.
+ * <h3>Discovery and validation</h3> The dispatcher of state machine class
+ * {@code my.pkg.MyStateMachine} is the class {@code my.pkg.MyStateMachineDispatcher}
+ * (for a nested class {@code my.pkg.Outer.MyStateMachine}, the class
+ * {@code my.pkg.Outer_MyStateMachineDispatcher}). The {@code SysMLStateMachine}
+ * looks for the dispatcher of its class when constructed and, if present,
+ * assigns the {@code dispatchIndex} of each vertex reachable from the initial
+ * state in breadth-first order of the transition lists. It then uses the
+ * dispatcher only if the {@code signature()} of the dispatcher equals the
+ * signature of its own transitions, so that a dispatcher that is out of date
+ * with respect to its state machine class is never used. The signature is the
+ * concatenation, for each vertex in dispatch index order, of the vertex's
+ * dispatch index, a colon, a comma-separated list of its transitions, and a
+ * semicolon, where each transition is the dispatch index of its next vertex
+ * followed by a slash and the binary name of its trigger class, if any, and a
+ * question mark if it has a guard, e.g. {@code "0:1;1:2/my.pkg.OnEvent?,1;2:;"}.
+ *
+ * @author ModelerOne
+ *
+ * @see sysmlinjava.statemachine.compiler.StateMachineDispatcherProcessor
+ */
+public interface SysMLStateMachineDispatcher
+{
+	/**
+	 * Returns the signature of the transitions from which this dispatcher was
+	 * generated
+	 *
+	 * @return signature of the transitions
+	 */
+	String signature();
+
+	/**
+	 * Selects the transition of the specified vertex that is enabled by the
+	 * specified event, i.e. the first transition whose trigger, if any, matches
+	 * the event and whose guard, if any, is satisfied
+	 *
+	 * @param fromVertex vertex whose transitions are to be selected from
+	 * @param event      optional event, empty for completion transitions
+	 * @return index of the selected transition in the vertex's list of
+	 *         transitions, or -1 if no transition is enabled
+	 */
+	int select(SysMLVertex fromVertex, Optional<SysMLEvent> event);
+
+	/**
+	 * Suffix of the name of the dispatcher class generated for a state machine
+	 * class
+	 */
+	public static final String classNameSuffix = "Dispatcher";
+}
@@ -0,0 +1,836 @@
+package sysmlinjava.statemachine;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+import sysmlinjava.analysis.flightrecorder.DoActivityEvent;
+import sysmlinjava.analysis.flightrecorder.StateEntryEvent;
+import sysmlinjava.analysis.flightrecorder.StateExitEvent;
+import sysmlinjava.analysis.flightrecorder.TransitionEvent;
+import sysmlinjava.analysis.metrics.StateMachineInstanceMetrics;
+import sysmlinjava.analysis.metrics.SysMLMetrics;
+import sysmlinjava.analysis.tracing.SignalTracing;
+import sysmlinjava.analysis.watchdog.WatchdogRegistry;
+import sysmlinjava.blocks.SysMLBlock;
+import sysmlinjava.events.SysMLEvent;
+import sysmlinjava.events.SysMLTimeEvent;
+import sysmlinjava.execution.snapshots.SysMLJournal;
+import sysmlinjava.execution.snapshots.SysMLJournalReplay;
+import sysmlinjava.valuetypes.DurationMilliseconds;
+
+/**
+ * SysMLinJava's per-instance runtime record of a state machine whose states and
+ * transitions are defined by a shared {@code SysMLStateMachineDefinition}.
+ * <h2>Flyweight state machine instance</h2> The
+ * {@code SysMLStateMachineInstance} holds only the state of one executing state
+ * machine, i.e. its definition, its context block, the index of its current
+ * vertex, and its event queue, timers, and do-activity, the latter three of
+ * which are created only when first used. It is thereby a few dozen bytes
+ * rather than the hundreds of objects of a {@code SysMLStateMachine}, so that
+ * very large populations of blocks with identical behavior, e.g. the vehicles
+ * or sensors of a fleet model, can each have a state machine.
+ * <h2>Execution</h2> The instance executes events with the same semantics as
+ * the {@code SysMLStateMachine}, i.e. the first enabled transition of the
+ * current vertex is performed, followed by any completion transitions, with the
+ * on-exit, effect, on-enter, and do-activities of the definition invoked with
+ * this instance's context block. An asynchronous instance does not occupy a
+ * thread while it waits for events. Its queued events are instead drained by a
+ * task submitted to the context block's {@code concurrentExecutionThreads}
+ * only while there are events to be processed, so that any number of instances
+ * can share the threads of the executor. Events are processed in the order of
+ * the definition's {@code eventComparator}, i.e. in the order they are queued
+ * unless the prototype state machine specified a prioritizing comparator.
+ * <h2>Metrics and stall detection</h2> As for the {@code SysMLStateMachine},
+ * each instance is registered with the {@code SysMLMetrics} registry when it is
+ * started or resumed, under the name of its definition, and records the thread and
+ * start time of the event it is processing in volatile fields, so that the
+ * {@code StallWatchdog} samples instances as it does state machines.
+ *
+ * @author ModelerOne
+ *
+ * @see SysMLStateMachineDefinition
+ */
+public final class SysMLStateMachineInstance
+{
+	/**
+	 * Shared definition of the states and transitions of this instance
+	 */
+	public final SysMLStateMachineDefinition definition;
+	/**
+	 * Optional block in whose context this instance executes, required if the
+	 * instance is asynchronous or uses timers or do-activities
+	 */
+	public final Optional<? extends SysMLBlock> contextBlock;
+	/**
+	 * Whether this instance processes its events in the context block's executor
+	 * (true) or in the thread that submits them (false)
+	 */
+	public final boolean isAsynchronous;
+	/**
+	 * Index of the current vertex of this instance, or -1 if not started
+	 */
+	private volatile int currentVertex;
+	/**
+	 * Lock of the event queue, separate from the lock of the instance that is held
+	 * while an event is processed, so that events may be queued and the queue
+	 * sampled while an event is being processed
+	 */
+	private final Object queueLock;
+	/**
+	 * Queue of the events to be processed by an asynchronous instance, null until
+	 * the first event is queued
+	 */
+	private Queue<SysMLEvent> eventQueue;
+	/**
+	 * Whether a task to drain the event queue has been submitted and not yet
+	 * completed
+	 */
+	private boolean draining;
+	/**
+	 * Event taken from the event queue whose processing has not yet started, or
+	 * null if none
+	 */
+	private volatile SysMLEvent dequeuedEvent;
+	/**
+	 * Timers of this instance by timer ID, null until the first timer is started
+	 */
+	private Map<String, Timer> timers;
+	/**
+	 * Future of the do-activity of the current state, null if none is executing
+	 */
+	private Future<?> doActivityFuture;
+	/**
+	 * Index of the state whose do-activity is executing, if
+	 * {@code doActivityFuture} is not null
+	 */
+	private int doActivityVertex;
+	/**
+	 * Metrics of the instances of the definition, null until obtained from the
+	 * {@code SysMLMetrics} registry upon first use
+	 */
+	private volatile StateMachineInstanceMetrics metrics;
+	/**
+	 * Thread in which the instance is currently processing an event, or null if
+	 * no event is currently being processed. Sampled by the
+	 * {@code StallWatchdog}.
+	 */
+	private volatile Thread handlerThread;
+	/**
+	 * {@code System.nanoTime()} at which the processing of the current event
+	 * started
+	 */
+	private volatile long handlerStartNanos;
+	/**
+	 * Event currently being processed, or null if none
+	 */
+	private volatile SysMLEvent handlerEvent;
+	/**
+	 * {@code System.nanoTime()} at which the last event was taken from the event
+	 * queue, or at which the draining of the queue was requested if no event has
+	 * since been taken
+	 */
+	private volatile long lastDequeueNanos;
+
+	/**
+	 * Constructor
+	 *
+	 * @param definition     shared definition of the states and transitions
+	 * @param contextBlock   optional block in whose context the instance executes
+	 * @param isAsynchronous whether the instance processes its events in the
+	 *                       context block's executor
+	 */
+	public SysMLStateMachineInstance(SysMLStateMachineDefinition definition, Optional<? extends SysMLBlock> contextBlock, boolean isAsynchronous)
+	{
+		super();
+		this.definition = definition;
+		this.contextBlock = contextBlock;
+		this.isAsynchronous = isAsynchronous;
+		this.currentVertex = -1;
+		this.queueLock = new Object();
+	}
+
+	/**
+	 * Starts the instance by performing the transitions from the initial state,
+	 * in the context block's executor if the instance is asynchronous
+	 */
+	public void start()
+	{
+		metrics();
+		if (isAsynchronous)
+		{
+			synchronized (queueLock)
+			{
+				if (eventQueue != null)
+					eventQueue.clear();
+			}
+			queueEvent(new InitialEvent());
+		}
+		else
+			onInitialEvent();
+	}
+
+	/**
+	 * Stops the instance, i.e. cancels its timers and do-activity and, if the
+	 * instance is asynchronous, discards its queued events. The instance remains
+	 * in its current state.
+	 */
+	public void stop()
+	{
+		if (isAsynchronous)
+			synchronized (queueLock)
+			{
+				if (eventQueue != null)
+					eventQueue.clear();
+			}
+		cancelTimersAndActivity();
+	}
+
+	/**
+	 * Queues the specified event to be processed, or processes it immediately if
+	 * the instance is synchronous
+	 *
+	 * @param event event to be processed
+	 */
+	public void queueEvent(SysMLEvent event)
+	{
+		metrics().eventsReceived.increment();
+		if (event.trace.isPresent())
+			event.trace.get().enqueueNanos = SignalTracing.epochNanos();
+		if (isAsynchronous)
+		{
+			boolean submit = false;
+			synchronized (queueLock)
+			{
+				if (eventQueue == null)
+					eventQueue = definition.isPrioritized ? new PriorityQueue<>(4, definition.eventComparator) : new ArrayDeque<>(4);
+				eventQueue.add(event);
+				if (!draining)
+				{
+					draining = true;
+					submit = true;
+					lastDequeueNanos = System.nanoTime();
+				}
+			}
+			if (submit)
+				contextBlock.get().concurrentExecutionThreads.execute(this::drain);
+		}
+		else if (event instanceof InitialEvent)
+			onInitialEvent();
+		else
+			onEvent(event);
+	}
+
+	/**
+	 * Returns the number of events queued and not yet processed
+	 *
+	 * @return number of queued events
+	 */
+	public int queueDepth()
+	{
+		synchronized (queueLock)
+		{
+			return eventQueue == null ? 0 : eventQueue.size();
+		}
+	}
+
+	/**
+	 * Returns the thread in which the instance is currently processing an event,
+	 * if any
+	 *
+	 * @return optional thread of the event processing in progress
+	 */
+	public Optional<Thread> handlerThread()
+	{
+		return Optional.ofNullable(handlerThread);
+	}
+
+	/**
+	 * Returns the event currently being processed by the instance, if any
+	 *
+	 * @return optional event in progress
+	 */
+	public Optional<SysMLEvent> handlerEvent()
+	{
+		return Optional.ofNullable(handlerEvent);
+	}
+
+	/**
+	 * Returns the {@code System.nanoTime()} at which the processing of the current
+	 * event started. The value is meaningful only if the {@code handlerThread()}
+	 * is present.
+	 *
+	 * @return start time of the event processing in progress
+	 */
+	public long handlerStartNanos()
+	{
+		return handlerStartNanos;
+	}
+
+	/**
+	 * Returns the {@code System.nanoTime()} at which the last event was taken from
+	 * the event queue, or at which the draining of the queue was last requested if
+	 * none has since been taken, or 0 if no event has been queued
+	 *
+	 * @return time of last dequeue
+	 */
+	public long lastDequeueNanos()
+	{
+		return lastDequeueNanos;
+	}
+
+	/**
+	 * Returns the identity string of the instance, i.e. the name of its definition
+	 * followed by the identity string of its context block, if any
+	 *
+	 * @return identity string of the instance
+	 */
+	public String identityString()
+	{
+		return contextBlock.isPresent() ? definition.name + "@" + contextBlock.get().identityString() : definition.name;
+	}
+
+	/**
+	 * Returns the index of the current vertex of the instance
+	 *
+	 * @return index of the current vertex, or -1 if not started
+	 */
+	public int currentVertex()
+	{
+		return currentVertex;
+	}
+
+	/**
+	 * Returns the identity string of the current state of the instance
+	 *
+	 * @return optional identity string of the current state, empty if not started
+	 */
+	public Optional<String> currentState()
+	{
+		int vertex = currentVertex;
+		return vertex < 0 ? Optional.empty() : Optional.of(definition.vertexName(vertex));
+	}
+
+	/**
+	 * Returns whether the instance has reached the final state
+	 *
+	 * @return true if the instance is in the final state, false otherwise
+	 */
+	public boolean isFinal()
+	{
+		return currentVertex == definition.finalVertex;
+	}
+
+	/**
+	 * Starts a timer that delivers a {@code SysMLTimeEvent} with the specified
+	 * timer ID to the instance after the specified delay and then, if the period
+	 * is not zero, periodically
+	 *
+	 * @param timerID      ID of the timer and of its time events
+	 * @param initialDelay delay until the first time event
+	 * @param period       period of the subsequent time events, zero for none
+	 */
+	public void startTimer(String timerID, DurationMilliseconds initialDelay, DurationMilliseconds period)
+	{
+		startTimer(new SysMLTimeEvent(timerID, initialDelay, Optional.of(period)), initialDelay);
+	}
+
+	/**
+	 * Starts a timer for the specified time event whose first occurrence is after
+	 * the specified delay, e.g. for a timer that is restored from a snapshot with
+	 * its remaining delay. The timer is periodic if the event specifies a non-zero
+	 * periodic time.
+	 *
+	 * @param event        time event queued to this instance upon each expiry
+	 * @param initialDelay delay before the first time event
+	 */
+	public void startTimer(SysMLTimeEvent event, DurationMilliseconds initialDelay)
+	{
+		Timer timer = new Timer(event);
+		if (event.periodicTime.isPresent() && !event.periodicTime.get().isZero())
+			timer.future = contextBlock.get().concurrentExecutionThreads.scheduleAtFixedRate(timer, initialDelay.value, event.periodicTime.get().value, TimeUnit.MILLISECONDS);
+		else
+			timer.future = contextBlock.get().concurrentExecutionThreads.schedule(timer, initialDelay.value, TimeUnit.MILLISECONDS);
+		synchronized (this)
+		{
+			if (timers == null)
+				timers = new HashMap<>(4);
+			Timer previous = timers.put(event.timerID, timer);
+			if (previous != null)
+				previous.future.cancel(false);
+		}
+	}
+
+	/**
+	 * Returns the timer with the specified ID, if it has not been stopped
+	 *
+	 * @param timerID ID of the timer
+	 * @return optional timer
+	 */
+	public synchronized Optional<Timer> timer(String timerID)
+	{
+		return Optional.ofNullable(timers != null ? timers.get(timerID) : null);
+	}
+
+	/**
+	 * Stops the timer with the specified ID
+	 *
+	 * @param timerID ID of the timer to be stopped
+	 */
+	public void stopTimer(String timerID)
+	{
+		Timer timer = null;
+		synchronized (this)
+		{
+			if (timers != null)
+				timer = timers.remove(timerID);
+		}
+		if (timer != null)
+			timer.future.cancel(false);
+		else
+			logger.warning(definition.name + ": timer with timerID \"" + timerID + "\" not found");
+	}
+
+	/**
+	 * Performs the transitions from the initial state of the definition up to the
+	 * first state that has no enabled completion transition
+	 */
+	public synchronized void onInitialEvent()
+	{
+		handlerStarted(null);
+		try
+		{
+			int vertex = definition.initialVertex;
+			int transition = definition.nextTransition(vertex, Optional.empty(), contextBlock);
+			while (vertex != definition.finalVertex && transition >= 0)
+			{
+				vertex = performTransition(transition, vertex, Optional.empty());
+				transition = definition.nextTransition(vertex, Optional.empty(), contextBlock);
+			}
+			if (definition.isState[vertex])
+				currentVertex = vertex;
+			else
+				logger.severe(definition.name + ": next/last vertex after initial event is not a state-type vertex: " + definition.vertexName(vertex));
+		} finally
+		{
+			handlerEnded();
+		}
+	}
+
+	/**
+	 * Processes the specified event, i.e. performs the first transition of the
+	 * current state that is enabled by the event followed by any completion
+	 * transitions
+	 *
+	 * @param event event to be processed
+	 */
+	public synchronized void onEvent(SysMLEvent event)
+	{
+		handlerStarted(event);
+		try
+		{
+			if (event.trace.isPresent())
+				event.trace.get().dequeueNanos = SignalTracing.epochNanos();
+			int vertex = currentVertex;
+			if (vertex >= 0)
+			{
+				int transition = definition.nextTransition(vertex, Optional.of(event), contextBlock);
+				if (transition >= 0)
+				{
+					int nextVertex = performTransition(transition, vertex, Optional.of(event));
+					while (nextVertex != vertex && nextVertex != definition.finalVertex && transition >= 0)
+					{
+						vertex = nextVertex;
+						transition = definition.nextTransition(vertex, Optional.empty(), contextBlock);
+						if (transition >= 0)
+							nextVertex = performTransition(transition, vertex, Optional.empty());
+					}
+					vertex = nextVertex;
+					if (definition.isState[vertex])
+						currentVertex = vertex;
+					else
+						logger.severe(definition.name + ": next/last vertex after event " + event.identityString() + " is not a state-type vertex: " + definition.vertexName(vertex));
+					if (vertex == definition.finalVertex)
+						cancelTimersAndActivity();
+				}
+				if (event.trace.isPresent())
+					SignalTracing.complete(event.trace.get());
+			}
+			else
+				logger.severe(definition.name + ": current state is not present for processing of event: " + event.getClass().getSimpleName());
+			metrics().eventsProcessed.increment();
+		} finally
+		{
+			handlerEnded();
+		}
+	}
+
+	/**
+	 * Records the start of the processing of the specified event for sampling by
+	 * the {@code StallWatchdog}
+	 *
+	 * @param event event whose processing is started, null for the initial event
+	 */
+	private void handlerStarted(SysMLEvent event)
+	{
+		dequeuedEvent = null;
+		handlerStartNanos = System.nanoTime();
+		handlerEvent = event;
+		handlerThread = Thread.currentThread();
+	}
+
+	/**
+	 * Records the end of the processing of the current event
+	 */
+	private void handlerEnded()
+	{
+		handlerThread = null;
+		handlerEvent = null;
+	}
+
+	/**
+	 * Returns the metrics of the instances of the definition, obtaining them from
+	 * the {@code SysMLMetrics} registry upon first call
+	 *
+	 * @return metrics of the instances of the definition
+	 */
+	private StateMachineInstanceMetrics metrics()
+	{
+		StateMachineInstanceMetrics result = metrics;
+		if (result == null)
+		{
+			result = SysMLMetrics.forStateMachineInstance(this);
+			metrics = result;
+		}
+		return result;
+	}
+
+	/**
+	 * Performs the specified transition from the specified vertex
+	 *
+	 * @param transition index of the transition
+	 * @param fromVertex index of the vertex the transition is from
+	 * @param event      optional event that triggered the transition
+	 * @return index of the vertex the transition leads to
+	 */
+	private int performTransition(int transition, int fromVertex, Optional<SysMLEvent> event)
+	{
+		long startNanos = System.nanoTime();
+		TransitionEvent jfrEvent = new TransitionEvent();
+		jfrEvent.begin();
+		boolean isInternal = definition.isInternal[transition];
+		if (!isInternal && definition.isState[fromVertex])
+			exitState(fromVertex);
+		SysMLEffectActivity effect = definition.effectActivities[transition];
+		if (effect != null)
+			effect.perform(event, contextBlock);
+		int result = definition.targetVertices[transition];
+		if (!isInternal && definition.isState[result])
+			enterState(result);
+		definition.transitionLatency.recordSince(startNanos);
+		metrics().transitionLatency.recordSince(startNanos);
+		if (jfrEvent.shouldCommitFor(definition.transitions[transition], contextBlock))
+		{
+			jfrEvent.fromVertex = definition.vertexName(fromVertex);
+			jfrEvent.toVertex = definition.vertexName(result);
+			jfrEvent.trigger = event.isPresent() ? event.get().getClass().getSimpleName() : null;
+			jfrEvent.commit();
+		}
+		return result;
+	}
+
+	/**
+	 * Performs the on-enter activity and starts the do-activity, if any, of the
+	 * specified state
+	 *
+	 * @param state index of the state
+	 */
+	private void enterState(int state)
+	{
+		StateEntryEvent jfrEvent = new StateEntryEvent();
+		jfrEvent.begin();
+		SysMLOnEnterActivity onEnter = definition.onEnterActivities[state];
+		if (onEnter != null)
+			onEnter.perform(contextBlock);
+		jfrEvent.commitFor(definition.vertices[state], contextBlock);
+		startDoActivity(state);
+	}
+
+	/**
+	 * Starts the do-activity of the specified state, if any, in the context
+	 * block's executor
+	 *
+	 * @param state index of the state vertex
+	 */
+	private void startDoActivity(int state)
+	{
+		SysMLDoActivity doActivity = definition.doActivities[state];
+		if (doActivity != null)
+		{
+			doActivityVertex = state;
+			doActivityFuture = contextBlock.get().concurrentExecutionThreads.submit(() ->
+			{
+				DoActivityEvent doEvent = new DoActivityEvent();
+				doEvent.begin();
+				WatchdogRegistry.doActivityStarted(definition.vertices[state], contextBlock);
+				try
+				{
+					doActivity.perform(contextBlock);
+				} finally
+				{
+					WatchdogRegistry.doActivityEnded(definition.vertices[state]);
+				}
+				doEvent.commitFor(definition.vertices[state], contextBlock);
+			});
+		}
+	}
+
+	/**
+	 * Cancels the do-activity, if executing, and marks it as cancelled in the
+	 * {@code WatchdogRegistry}
+	 */
+	private void cancelDoActivity()
+	{
+		if (doActivityFuture != null)
+		{
+			if (!doActivityFuture.isDone())
+			{
+				doActivityFuture.cancel(true);
+				WatchdogRegistry.doActivityCancelled(definition.vertices[doActivityVertex], contextBlock);
+			}
+			doActivityFuture = null;
+		}
+	}
+
+	/**
+	 * Cancels the do-activity, if executing, and performs the on-exit activity, if
+	 * any, of the specified state
+	 *
+	 * @param state index of the state
+	 */
+	private void exitState(int state)
+	{
+		StateExitEvent jfrEvent = new StateExitEvent();
+		jfrEvent.begin();
+		cancelDoActivity();
+		SysMLOnExitActivity onExit = definition.onExitActivities[state];
+		if (onExit != null)
+			onExit.perform(contextBlock);
+		jfrEvent.commitFor(definition.vertices[state], contextBlock);
+	}
+
+	/**
+	 * Returns the timers of this instance that have not been stopped, in no
+	 * particular order
+	 *
+	 * @return list of the timers
+	 */
+	public synchronized List<Timer> timers()
+	{
+		return timers == null ? new ArrayList<>() : new ArrayList<>(timers.values());
+	}
+
+	/**
+	 * Returns the events currently waiting to be processed by this instance, in
+	 * order of their processing, i.e. the event taken from the event queue whose
+	 * processing has not yet started, if any, followed by the events in the event
+	 * queue in the order of the definition's {@code eventComparator}
+	 *
+	 * @return list of the queued events, empty if none
+	 */
+	public List<SysMLEvent> queuedEvents()
+	{
+		List<SysMLEvent> result = new ArrayList<>();
+		synchronized (queueLock)
+		{
+			SysMLEvent event = dequeuedEvent;
+			if (event != null)
+				result.add(event);
+			if (eventQueue != null)
+			{
+				List<SysMLEvent> queued = new ArrayList<>(eventQueue);
+				queued.sort(definition.eventComparator);
+				result.addAll(queued);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Resumes this instance in the specified vertex with the specified events in
+	 * its event queue, e.g. when it is restored from a snapshot of a previously
+	 * running model. No initial transition is performed and the on-enter activity
+	 * of the vertex is not performed, as both were performed before the snapshot,
+	 * but the do-activity of the vertex is restarted, if any. The timers are not
+	 * restarted, they are to be restarted by the {@code startTimer()} operation.
+	 *
+	 * @param vertex       index of the state vertex in which the instance is
+	 *                     resumed, or -1 if the instance had not been started
+	 * @param queuedEvents the events to be queued to the instance
+	 * @see sysmlinjava.execution.snapshots.SysMLSnapshot
+	 */
+	public void resume(int vertex, List<SysMLEvent> queuedEvents)
+	{
+		if (vertex >= 0)
+		{
+			metrics();
+			synchronized (queueLock)
+			{
+				if (eventQueue != null)
+					eventQueue.clear();
+			}
+			synchronized (this)
+			{
+				currentVertex = vertex;
+				startDoActivity(vertex);
+			}
+			queuedEvents.forEach(this::queueEvent);
+		}
+	}
+
+	/**
+	 * Processes the queued events until the queue is empty or the final state is
+	 * reached
+	 */
+	private void drain()
+	{
+		boolean done = false;
+		while (!done)
+		{
+			SysMLEvent event;
+			synchronized (queueLock)
+			{
+				event = eventQueue.poll();
+				dequeuedEvent = event;
+				lastDequeueNanos = System.nanoTime();
+				if (event == null)
+				{
+					draining = false;
+					done = true;
+				}
+			}
+			if (event != null)
+			{
+				if (event instanceof InitialEvent)
+					onInitialEvent();
+				else
+					onEvent(event);
+				if (isFinal())
+					synchronized (queueLock)
+					{
+						eventQueue.clear();
+					}
+			}
+		}
+	}
+
+	/**
+	 * Cancels the timers and the do-activity of this instance
+	 */
+	private void cancelTimersAndActivity()
+	{
+		synchronized (this)
+		{
+			if (timers != null)
+			{
+				timers.forEach((id, timer) -> timer.future.cancel(false));
+				timers.clear();
+			}
+			cancelDoActivity();
+		}
+	}
+
+	/**
+	 * Timer of an instance that queues its time event to the instance upon each
+	 * expiry
+	 *
+	 * @author ModelerOne
+	 *
+	 */
+	public final class Timer implements Runnable
+	{
+		/**
+		 * Time event queued to the instance upon each expiry
+		 */
+		private final SysMLTimeEvent event;
+		/**
+		 * Future of the scheduled timer
+		 */
+		private ScheduledFuture<?> future;
+
+		/**
+		 * Constructor
+		 *
+		 * @param event time event queued to the instance upon each expiry
+		 */
+		private Timer(SysMLTimeEvent event)
+		{
+			super();
+			this.event = event;
+		}
+
+		/**
+		 * Returns the time event queued to the instance upon each expiry
+		 *
+		 * @return the time event of the timer
+		 */
+		public SysMLTimeEvent event()
+		{
+			return event;
+		}
+
+		/**
+		 * Returns the delay remaining until the timer next expires, or zero if the
+		 * timer has expired and is not periodic
+		 *
+		 * @return remaining delay of the timer
+		 */
+		public DurationMilliseconds remainingDelay()
+		{
+			return new DurationMilliseconds(Math.max(0L, future.getDelay(TimeUnit.MILLISECONDS)));
+		}
+
+		/**
+		 * Records the expiry in the journal, if one is recording, and expires the
+		 * timer. While a journal is replayed, the timer is expired by the replay
+		 * instead, as recorded.
+		 */
+		@Override
+		public void run()
+		{
+			if (!SysMLJournalReplay.isReplaying())
+			{
+				if (SysMLJournal.isRecording())
+					SysMLJournal.recordTimer(contextBlock.get(), event.timerID);
+				expire();
+			}
+		}
+
+		/**
+		 * Expires the timer, i.e. queues its time event to the instance
+		 */
+		public void expire()
+		{
+			queueEvent(event);
+		}
+	}
+
+	@Override
+	public String toString()
+	{
+		return String.format("SysMLStateMachineInstance [definition=%s, currentState=%s]", definition.name, currentState());
+	}
+
+	/**
+	 * Logger shared by all instances
+	 */
+	private static final Logger logger = Logger.getLogger(SysMLStateMachineInstance.class.getSimpleName());
+}
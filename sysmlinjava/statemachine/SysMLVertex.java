@@ -26,6 +26,12 @@ public abstract class SysMLVertex extends SysMLClass
 	 * Transitions out of and/or within the state.
 	 */
 	public List<SysMLTransition> transitions;
+	/**
+	 * Index of the vertex in the {@code switch} of the state machine's generated
+	 * {@code SysMLStateMachineDispatcher}, or -1 if the state machine has no
+	 * dispatcher or the vertex is not reachable from the initial state.
+	 */
+	public int dispatchIndex;
 
 	/**
 	 * Maximum specified constructor of the SysMLState object.
@@ -40,6 +46,7 @@ public abstract class SysMLVertex extends SysMLClass
 		this.contextBlock = contextBlock;
 		this.transitions = new ArrayList<>();
 		this.name = Optional.of(name);
+		this.dispatchIndex = -1;
 	}
 
 	/**
@@ -0,0 +1,535 @@
+package sysmlinjava.statemachine.compiler;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import com.sun.source.tree.BlockTree;
+import com.sun.source.tree.ClassTree;
+import com.sun.source.tree.ExpressionStatementTree;
+import com.sun.source.tree.ExpressionTree;
+import com.sun.source.tree.MemberSelectTree;
+import com.sun.source.tree.MethodInvocationTree;
+import com.sun.source.tree.MethodTree;
+import com.sun.source.tree.NewClassTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.util.TreePath;
+import com.sun.source.util.TreePathScanner;
+import com.sun.source.util.Trees;
+
+/**
+ * SysMLinJava's annotation processor that generates a
+ * {@code SysMLStateMachineDispatcher} for each {@code SysMLStateMachine} class
+ * that declares {@code &#64;Transition} fields.
+ * <h2>Compiled transition selection</h2> The processor reads the
+ * {@code createTransitions()} operation of the state machine class and, from
+ * the transition constructors invoked in it, the source and next vertex and the
+ * optional trigger and guard of each transition. It then generates the class
+ * {@code <StateMachineClass>Dispatcher} in the package of the state machine
+ * class, whose {@code select()} operation is a {@code switch} on the dispatch
+ * index of the vertex in which the trigger tests ({@code instanceof}) and the
+ * guard invocations of the vertex's transitions are written out in the order in
+ * which the {@code SysMLStateMachine} would evaluate them. The
+ * {@code SysMLStateMachine} finds and uses the dispatcher automatically.
+ * <h2>Usage</h2> The processor is included in the annotation processor path of
+ * the compilation of the model, e.g.
+ *
+ * <pre>
+ * javac -processorpath sysmlinjava.jar -processor sysmlinjava.statemachine.compiler.StateMachineDispatcherProcessor ...
+ * </pre>
+ *
+ * or is found automatically on the processor module path, as it is provided by
+ * the SysMLinJava module as a {@code javax.annotation.processing.Processor}
+ * service. If the model is itself a named module, the packages of its state
+ * machines must be exported or opened to the SysMLinJava module so that the
+ * dispatchers can be instantiated.
+ * <h3>Supported state machines</h3> A dispatcher is generated only if the
+ * transitions of the state machine can be determined exactly from its source,
+ * i.e. if the state machine class directly extends the
+ * {@code SysMLStateMachine}, all of its transitions are created by top-level
+ * statements of its {@code createTransitions()} operation, their vertices are
+ * fields, and their triggers and guards are {@code Optional.of(...)} or
+ * {@code Optional.empty()} expressions. Otherwise the processor reports a note
+ * and the state machine's transitions continue to be interpreted. A generated
+ * dispatcher that does not match the transitions that are actually created is
+ * detected by its signature and is not used.
+ *
+ * @author ModelerOne
+ *
+ * @see sysmlinjava.statemachine.SysMLStateMachineDispatcher
+ */
+@SupportedAnnotationTypes(StateMachineDispatcherProcessor.transitionAnnotationName)
+public class StateMachineDispatcherProcessor extends AbstractProcessor
+{
+	/**
+	 * Compiler trees of the compilation, null if the compiler does not provide
+	 * them
+	 */
+	private Trees trees;
+
+	/**
+	 * Constructor
+	 */
+	public StateMachineDispatcherProcessor()
+	{
+		super();
+	}
+
+	@Override
+	public synchronized void init(ProcessingEnvironment processingEnv)
+	{
+		super.init(processingEnv);
+		try
+		{
+			trees = Trees.instance(processingEnv);
+		} catch (IllegalArgumentException e)
+		{
+			processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE, "state machine dispatchers not generated, compiler does not provide source trees");
+		}
+	}
+
+	@Override
+	public SourceVersion getSupportedSourceVersion()
+	{
+		return SourceVersion.latestSupported();
+	}
+
+	@Override
+	public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv)
+	{
+		if (trees != null)
+		{
+			Set<TypeElement> stateMachines = new LinkedHashSet<>();
+			for (TypeElement annotation : annotations)
+				for (Element element : roundEnv.getElementsAnnotatedWith(annotation))
+					if (element.getEnclosingElement() instanceof TypeElement)
+						stateMachines.add((TypeElement)element.getEnclosingElement());
+			for (TypeElement stateMachine : stateMachines)
+				if (isStateMachine(stateMachine))
+					try
+					{
+						generate(stateMachine, transitionsOf(stateMachine));
+					} catch (UnsupportedTransitionsException e)
+					{
+						processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE, "dispatcher not generated: " + e.getMessage(), stateMachine);
+					} catch (IOException e)
+					{
+						processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING, "dispatcher could not be written: " + e.getMessage(), stateMachine);
+					}
+		}
+		return false;
+	}
+
+	/**
+	 * Returns whether the specified type is an extension of the
+	 * {@code SysMLStateMachine}
+	 *
+	 * @param type type to be checked
+	 * @return true if the type extends the {@code SysMLStateMachine}
+	 */
+	private boolean isStateMachine(TypeElement type)
+	{
+		TypeElement stateMachineType = processingEnv.getElementUtils().getTypeElement(stateMachineClassName);
+		return stateMachineType != null && processingEnv.getTypeUtils().isSubtype(processingEnv.getTypeUtils().erasure(type.asType()), processingEnv.getTypeUtils().erasure(stateMachineType.asType()));
+	}
+
+	/**
+	 * Returns the transitions created by the specified state machine class, in
+	 * order of creation
+	 *
+	 * @param stateMachine state machine class
+	 * @return transitions of the state machine class
+	 * @throws UnsupportedTransitionsException if the transitions cannot be
+	 *                                         determined exactly
+	 */
+	private List<TransitionSource> transitionsOf(TypeElement stateMachine) throws UnsupportedTransitionsException
+	{
+		DeclaredType superclass = (DeclaredType)stateMachine.getSuperclass();
+		if (!((TypeElement)superclass.asElement()).getQualifiedName().contentEquals(stateMachineClassName))
+			throw new UnsupportedTransitionsException(stateMachine.getSimpleName() + " does not directly extend SysMLStateMachine");
+		TreePath classPath = trees.getPath(stateMachine);
+		if (classPath == null)
+			throw new UnsupportedTransitionsException(stateMachine.getSimpleName() + " source is not available");
+		TransitionsScanner scanner = new TransitionsScanner((ClassTree)classPath.getLeaf());
+		scanner.scan(classPath, null);
+		if (scanner.unsupported != null)
+			throw new UnsupportedTransitionsException(stateMachine.getSimpleName() + ": " + scanner.unsupported);
+		return scanner.transitions;
+	}
+
+	/**
+	 * Generates the dispatcher for the specified state machine class and
+	 * transitions
+	 *
+	 * @param stateMachine state machine class
+	 * @param transitions  transitions of the state machine class, in order of
+	 *                     creation
+	 * @throws IOException if the source file cannot be written
+	 */
+	private void generate(TypeElement stateMachine, List<TransitionSource> transitions) throws IOException
+	{
+		Map<String, List<TransitionSource>> transitionsByVertex = new LinkedHashMap<>();
+		for (TransitionSource transition : transitions)
+			transitionsByVertex.computeIfAbsent(transition.fromVertex, vertex -> new ArrayList<>()).add(transition);
+		List<String> vertices = new ArrayList<>();
+		Map<String, Integer> indices = new HashMap<>();
+		vertices.add(initialStateFieldName);
+		indices.put(initialStateFieldName, 0);
+		StringBuilder signature = new StringBuilder();
+		for (int v = 0; v < vertices.size(); v++)
+		{
+			signature.append(v).append(':');
+			List<TransitionSource> vertexTransitions = transitionsByVertex.getOrDefault(vertices.get(v), List.of());
+			for (int t = 0; t < vertexTransitions.size(); t++)
+			{
+				TransitionSource transition = vertexTransitions.get(t);
+				if (!indices.containsKey(transition.nextVertex))
+				{
+					indices.put(transition.nextVertex, vertices.size());
+					vertices.add(transition.nextVertex);
+				}
+				if (t > 0)
+					signature.append(',');
+				signature.append(indices.get(transition.nextVertex));
+				if (transition.triggerBinaryName != null)
+					signature.append('/').append(transition.triggerBinaryName);
+				if (transition.isGuarded)
+					signature.append('?');
+			}
+			signature.append(';');
+		}
+
+		PackageElement packageElement = processingEnv.getElementUtils().getPackageOf(stateMachine);
+		String packageName = packageElement.isUnnamed() ? "" : packageElement.getQualifiedName().toString();
+		String binaryName = processingEnv.getElementUtils().getBinaryName(stateMachine).toString();
+		String dispatcherSimpleName = binaryName.substring(packageName.isEmpty() ? 0 : packageName.length() + 1).replace('$', '_') + dispatcherClassNameSuffix;
+		String dispatcherName = packageName.isEmpty() ? dispatcherSimpleName : packageName + "." + dispatcherSimpleName;
+		try (PrintWriter out = new PrintWriter(processingEnv.getFiler().createSourceFile(dispatcherName, stateMachine).openWriter()))
+		{
+			if (!packageName.isEmpty())
+				out.printf("package %s;%n%n", packageName);
+			out.printf("/**%n * Dispatcher of the {@code %s} generated by the {@code StateMachineDispatcherProcessor}%n */%n", stateMachine.getQualifiedName());
+			out.printf("public final class %s implements sysmlinjava.statemachine.SysMLStateMachineDispatcher%n{%n", dispatcherSimpleName);
+			out.printf("\tpublic %s()%n\t{%n\t\tsuper();%n\t}%n%n", dispatcherSimpleName);
+			out.printf("\t@Override%n\tpublic String signature()%n\t{%n\t\treturn \"%s\";%n\t}%n%n", signature);
+			out.printf("\t@Override%n\tpublic int select(sysmlinjava.statemachine.SysMLVertex fromVertex, java.util.Optional<sysmlinjava.events.SysMLEvent> event)%n\t{%n");
+			out.printf("\t\tjava.util.List<sysmlinjava.statemachine.SysMLTransition> transitions = fromVertex.transitions;%n");
+			out.printf("\t\tswitch (fromVertex.dispatchIndex)%n\t\t{%n");
+			for (int v = 0; v < vertices.size(); v++)
+			{
+				out.printf("\t\tcase %d: // %s%n", v, vertices.get(v));
+				boolean unconditional = false;
+				List<TransitionSource> vertexTransitions = transitionsByVertex.getOrDefault(vertices.get(v), List.of());
+				for (int t = 0; t < vertexTransitions.size() && !unconditional; t++)
+				{
+					TransitionSource transition = vertexTransitions.get(t);
+					List<String> conditions = new ArrayList<>();
+					if (transition.triggerCanonicalName != null)
+						conditions.add(String.format("event.isPresent() && event.get() instanceof %s", transition.triggerCanonicalName));
+					if (transition.isGuarded)
+						conditions.add(String.format("transitions.get(%d).guard.get().isSatisfied(event)", t));
+					if (conditions.isEmpty())
+					{
+						out.printf("\t\t\treturn %d;%n", t);
+						unconditional = true;
+					}
+					else
+						out.printf("\t\t\tif (%s)%n\t\t\t\treturn %d;%n", String.join(" && ", conditions), t);
+				}
+				if (!unconditional)
+					out.printf("\t\t\treturn -1;%n");
+			}
+			out.printf("\t\tdefault:%n\t\t\treturn -1;%n\t\t}%n\t}%n}%n");
+		}
+	}
+
+	/**
+	 * Transition as determined from the source of the state machine class
+	 */
+	private static final class TransitionSource
+	{
+		/**
+		 * Name of the field of the vertex the transition is from
+		 */
+		String fromVertex;
+		/**
+		 * Name of the field of the vertex the transition is to
+		 */
+		String nextVertex;
+		/**
+		 * Binary name of the trigger event class, null if none
+		 */
+		String triggerBinaryName;
+		/**
+		 * Canonical name of the trigger event class, null if none
+		 */
+		String triggerCanonicalName;
+		/**
+		 * Whether the transition has a guard
+		 */
+		boolean isGuarded;
+	}
+
+	/**
+	 * Scanner of the source of a state machine class for the transitions it
+	 * creates
+	 */
+	private final class TransitionsScanner extends TreePathScanner<Void, Void>
+	{
+		/**
+		 * Tree of the state machine class being scanned
+		 */
+		private final ClassTree stateMachineTree;
+		/**
+		 * Transitions found, in order of creation
+		 */
+		final List<TransitionSource> transitions;
+		/**
+		 * Reason the transitions cannot be determined exactly, null if they can
+		 */
+		String unsupported;
+
+		/**
+		 * Constructor
+		 *
+		 * @param stateMachineTree tree of the state machine class to be scanned
+		 */
+		TransitionsScanner(ClassTree stateMachineTree)
+		{
+			super();
+			this.stateMachineTree = stateMachineTree;
+			this.transitions = new ArrayList<>();
+		}
+
+		@Override
+		public Void visitClass(ClassTree tree, Void unused)
+		{
+			return tree == stateMachineTree ? super.visitClass(tree, unused) : null;
+		}
+
+		@Override
+		public Void visitNewClass(NewClassTree tree, Void unused)
+		{
+			Element constructor = trees.getElement(getCurrentPath());
+			if (constructor != null && constructor.getKind() == ElementKind.CONSTRUCTOR && isTransitionType((TypeElement)constructor.getEnclosingElement()) && unsupported == null)
+				if (isTopLevelStatementOfCreateTransitions(getCurrentPath()))
+					transitions.add(transitionOf(tree, (ExecutableElement)constructor));
+				else
+					unsupported = "transition created other than by a top-level statement of createTransitions()";
+			return super.visitNewClass(tree, unused);
+		}
+
+		/**
+		 * Returns whether the specified type is the {@code SysMLTransition} or an
+		 * extension of it
+		 *
+		 * @param type type to be checked
+		 * @return true if the type is a transition type
+		 */
+		private boolean isTransitionType(TypeElement type)
+		{
+			TypeElement transitionType = processingEnv.getElementUtils().getTypeElement(transitionClassName);
+			return processingEnv.getTypeUtils().isSubtype(processingEnv.getTypeUtils().erasure(type.asType()), processingEnv.getTypeUtils().erasure(transitionType.asType()));
+		}
+
+		/**
+		 * Returns whether the expression at the specified path is, or is assigned by,
+		 * a statement of the body of the {@code createTransitions()} operation, i.e. is
+		 * executed exactly once and in statement order
+		 *
+		 * @param path path of the expression
+		 * @return true if the expression is a top-level statement
+		 */
+		private boolean isTopLevelStatementOfCreateTransitions(TreePath path)
+		{
+			TreePath statementPath = path.getParentPath();
+			if (statementPath.getLeaf().getKind() == Tree.Kind.ASSIGNMENT)
+				statementPath = statementPath.getParentPath();
+			boolean result = false;
+			if (statementPath.getLeaf() instanceof ExpressionStatementTree)
+			{
+				TreePath blockPath = statementPath.getParentPath();
+				if (blockPath.getLeaf() instanceof BlockTree && blockPath.getParentPath().getLeaf() instanceof MethodTree)
+				{
+					MethodTree method = (MethodTree)blockPath.getParentPath().getLeaf();
+					result = method.getName().contentEquals(createTransitionsMethodName) && method.getParameters().isEmpty();
+				}
+			}
+			return result;
+		}
+
+		/**
+		 * Returns the transition created by the specified constructor invocation, or
+		 * null with the {@code unsupported} reason set if the transition cannot be
+		 * determined exactly
+		 *
+		 * @param tree        constructor invocation
+		 * @param constructor transition constructor that is invoked
+		 * @return transition created by the invocation
+		 */
+		private TransitionSource transitionOf(NewClassTree tree, ExecutableElement constructor)
+		{
+			TransitionSource result = new TransitionSource();
+			List<? extends VariableElement> parameters = constructor.getParameters();
+			List<? extends ExpressionTree> arguments = tree.getArguments();
+			for (int i = 0; i < parameters.size() && unsupported == null; i++)
+			{
+				String parameterType = parameters.get(i).asType().toString();
+				TreePath argumentPath = new TreePath(getCurrentPath(), arguments.get(i));
+				if (i == 1)
+					result.fromVertex = fieldNameOf(argumentPath);
+				else if (i == 2)
+					result.nextVertex = fieldNameOf(argumentPath);
+				else if (parameterType.startsWith("java.util.Optional<java.lang.Class"))
+				{
+					ExpressionTree triggerArgument = optionalArgumentOf(argumentPath);
+					if (triggerArgument instanceof MemberSelectTree && ((MemberSelectTree)triggerArgument).getIdentifier().contentEquals("class"))
+					{
+						TreePath typePath = new TreePath(argumentPath, ((MemberSelectTree)triggerArgument).getExpression());
+						TypeMirror triggerType = trees.getTypeMirror(typePath);
+						if (triggerType instanceof DeclaredType && isAccessible((TypeElement)((DeclaredType)triggerType).asElement()))
+						{
+							TypeElement triggerElement = (TypeElement)((DeclaredType)triggerType).asElement();
+							result.triggerBinaryName = processingEnv.getElementUtils().getBinaryName(triggerElement).toString();
+							result.triggerCanonicalName = triggerElement.getQualifiedName().toString();
+						}
+						else
+							unsupported = "trigger of transition is not an accessible class: " + triggerArgument;
+					}
+					else if (triggerArgument != null)
+						unsupported = "trigger of transition is not a class literal: " + triggerArgument;
+				}
+				else if (parameterType.startsWith("java.util.Optional<sysmlinjava.statemachine.SysMLGuard"))
+					result.isGuarded = optionalArgumentOf(argumentPath) != null;
+			}
+			return result;
+		}
+
+		/**
+		 * Returns the name of the field referenced by the expression at the specified
+		 * path
+		 *
+		 * @param path path of the expression
+		 * @return name of the field
+		 */
+		private String fieldNameOf(TreePath path)
+		{
+			String result = null;
+			Element element = trees.getElement(path);
+			if (element != null && element.getKind() == ElementKind.FIELD)
+				result = element.getSimpleName().toString();
+			else
+				unsupported = "vertex of transition is not a field: " + path.getLeaf();
+			return result;
+		}
+
+		/**
+		 * Returns the argument of the {@code Optional.of()} expression at the
+		 * specified path, or null if the expression is {@code Optional.empty()}
+		 *
+		 * @param path path of the expression
+		 * @return argument of the expression, or null if empty
+		 */
+		private ExpressionTree optionalArgumentOf(TreePath path)
+		{
+			ExpressionTree result = null;
+			Element method = trees.getElement(path);
+			if (path.getLeaf() instanceof MethodInvocationTree && method != null && ((TypeElement)method.getEnclosingElement()).getQualifiedName().contentEquals("java.util.Optional"))
+			{
+				MethodInvocationTree invocation = (MethodInvocationTree)path.getLeaf();
+				if (method.getSimpleName().contentEquals("of"))
+					result = invocation.getArguments().get(0);
+				else if (!method.getSimpleName().contentEquals("empty"))
+					unsupported = "optional argument of transition is not Optional.of() or Optional.empty(): " + path.getLeaf();
+			}
+			else
+				unsupported = "optional argument of transition is not Optional.of() or Optional.empty(): " + path.getLeaf();
+			return result;
+		}
+
+		/**
+		 * Returns whether the specified type can be referenced by the generated
+		 * dispatcher, i.e. is public, as are any types that enclose it
+		 *
+		 * @param type type to be checked
+		 * @return true if the type can be referenced
+		 */
+		private boolean isAccessible(TypeElement type)
+		{
+			boolean result = true;
+			Element element = type;
+			while (result && element instanceof TypeElement)
+			{
+				result = element.getModifiers().contains(Modifier.PUBLIC);
+				element = element.getEnclosingElement();
+			}
+			return result;
+		}
+	}
+
+	/**
+	 * Exception indicating that the transitions of a state machine class cannot
+	 * be determined exactly from its source
+	 */
+	private static final class UnsupportedTransitionsException extends Exception
+	{
+		/**
+		 * Constructor
+		 *
+		 * @param message reason the transitions cannot be determined
+		 */
+		UnsupportedTransitionsException(String message)
+		{
+			super(message);
+		}
+
+		private static final long serialVersionUID = 1L;
+	}
+
+	/**
+	 * Qualified name of the {@code &#64;Transition} annotation
+	 */
+	static final String transitionAnnotationName = "sysmlinjava.annotations.statemachines.Transition";
+	/**
+	 * Qualified name of the {@code SysMLStateMachine} class
+	 */
+	private static final String stateMachineClassName = "sysmlinjava.statemachine.SysMLStateMachine";
+	/**
+	 * Qualified name of the {@code SysMLTransition} class
+	 */
+	private static final String transitionClassName = "sysmlinjava.statemachine.SysMLTransition";
+	/**
+	 * Name of the field of the initial state of the {@code SysMLStateMachine}
+	 */
+	private static final String initialStateFieldName = "initialState";
+	/**
+	 * Name of the operation of the {@code SysMLStateMachine} that creates the
+	 * transitions
+	 */
+	private static final String createTransitionsMethodName = "createTransitions";
+	/**
+	 * Suffix of the name of the generated dispatcher class, the same as
+	 * {@code SysMLStateMachineDispatcher.classNameSuffix}
+	 */
+	private static final String dispatcherClassNameSuffix = "Dispatcher";
+}
@@ -0,0 +1,7 @@
+/**
+ * Contains the compile-time tools for SysMLinJava state machines, i.e. the
+ * annotation processor that generates the {@code SysMLStateMachineDispatcher}
+ * of each {@code SysMLStateMachine} class whose transitions are annotated with
+ * the {@code &#64;Transition} annotation.
+ */
+package sysmlinjava.statemachine.compiler;
@@ -257,6 +257,73 @@ public class IInteger extends SysMLValueType implements Serializable
 		return value % modulus;
 	}
 
+	/**
+	 * Sets the destination to the sum of the specified values and returns the
+	 * destination. No instance is created and the destination's observers are not
+	 * notified.
+	 * 
+	 * @param dst destination of the sum, may be one of the specified values
+	 * @param a   first value
+	 * @param b   second value
+	 * @return the destination
+	 * 
+	 * @see ValueKernels
+	 */
+	public static IInteger addInto(IInteger dst, IInteger a, IInteger b)
+	{
+		dst.value = ValueKernels.add(a.value, b.value);
+		return dst;
+	}
+
+	/**
+	 * Sets the destination to the difference of the specified values and returns
+	 * the destination. No instance is created and the destination's observers are
+	 * not notified.
+	 * 
+	 * @param dst destination of the difference, may be one of the specified values
+	 * @param a   value to be subtracted from
+	 * @param b   value to subtract
+	 * @return the destination
+	 */
+	public static IInteger subtractInto(IInteger dst, IInteger a, IInteger b)
+	{
+		dst.value = ValueKernels.subtract(a.value, b.value);
+		return dst;
+	}
+
+	/**
+	 * Sets the destination to the product of the specified values and returns the
+	 * destination. No instance is created and the destination's observers are not
+	 * notified.
+	 * 
+	 * @param dst destination of the product, may be one of the specified values
+	 * @param a   first value
+	 * @param b   second value
+	 * @return the destination
+	 */
+	public static IInteger multiplyInto(IInteger dst, IInteger a, IInteger b)
+	{
+		dst.value = ValueKernels.multiply(a.value, b.value);
+		return dst;
+	}
+
+	/**
+	 * Sets the destination to the product of the first two specified values added
+	 * to the third, i.e. {@code a * b + c}, and returns the destination. No
+	 * instance is created and the destination's observers are not notified.
+	 * 
+	 * @param dst destination of the result, may be one of the specified values
+	 * @param a   first value of the product
+	 * @param b   second value of the product
+	 * @param c   value to be added to the product
+	 * @return the destination
+	 */
+	public static IInteger multiplyAddInto(IInteger dst, IInteger a, IInteger b, IInteger c)
+	{
+		dst.value = ValueKernels.multiplyAdd(a.value, b.value, c.value);
+		return dst;
+	}
+
 	/**
 	 * Increments this value by one and then notifies all value change observers, if
 	 * any
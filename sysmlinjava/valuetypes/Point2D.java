@@ -1,8 +1,6 @@
 package sysmlinjava.valuetypes;
 
 import static java.lang.Math.PI;
-import static java.lang.Math.cos;
-import static java.lang.Math.sin;
 import java.io.Serializable;
 import sysmlinjava.annotations.Operation;
 import sysmlinjava.units.SysMLinJavaUnits;
@@ -217,30 +215,31 @@ public class Point2D extends SysMLValueType implements Serializable
 	@Operation
 	public Point2D moved(double lengthNumeric, double directionRadians)
 	{
-		double xDelta = 0;
-		double yDelta = 0;
+		return movedInto(new Point2D(), this, lengthNumeric, directionRadians);
+	}
 
-		if (directionRadians < rad90)
-		{
-			xDelta = cos(rad90 - directionRadians) * lengthNumeric;
-			yDelta = sin(rad90 - directionRadians) * lengthNumeric;
-		}
-		else if (directionRadians < rad180)
-		{
-			xDelta = sin(rad180 - directionRadians) * lengthNumeric;
-			yDelta = -(cos(rad180 - directionRadians) * lengthNumeric);
-		}
-		else if (directionRadians < rad270)
-		{
-			xDelta = -(cos(rad270 - directionRadians) * lengthNumeric);
-			yDelta = -(sin(rad270 - directionRadians) * lengthNumeric);
-		}
-		else if (directionRadians < rad360)
-		{
-			xDelta = -(sin(rad360 - directionRadians) * lengthNumeric);
-			yDelta = cos(rad360 - directionRadians) * lengthNumeric;
-		}
-		return new Point2D(xValue + xDelta, yValue + yDelta);
+	/**
+	 * Sets the destination to the specified point moved at the specified direction
+	 * for the specified distance (length) and returns the destination. No instance
+	 * is created and the destination's observers are not notified.
+	 * 
+	 * @param dst              destination of the moved point, may be the specified
+	 *                         point
+	 * @param from             point to be moved
+	 * @param lengthNumeric    numeric (no units of) length of vector
+	 * @param directionRadians radian direction of vector
+	 * @return the destination
+	 * 
+	 * @see ValueKernels
+	 */
+	public static Point2D movedInto(Point2D dst, Point2D from, double lengthNumeric, double directionRadians)
+	{
+		double xDelta = ValueKernels.horizontalOf(lengthNumeric, directionRadians);
+		double yDelta = ValueKernels.verticalOf(lengthNumeric, directionRadians);
+		dst.xValue = from.xValue + xDelta;
+		dst.yValue = from.yValue + yDelta;
+		dst.isEmpty = false;
+		return dst;
 	}
 
 	/**
@@ -254,6 +253,64 @@ public class Point2D extends SysMLValueType implements Serializable
 		return new Point2D(xValue * multipliedBy, yValue * multipliedBy);
 	}
 
+	/**
+	 * Sets the destination to the sum of the specified points and returns the
+	 * destination. No instance is created and the destination's observers are not
+	 * notified.
+	 * 
+	 * @param dst destination of the sum, may be one of the specified points
+	 * @param a   first point
+	 * @param b   second point
+	 * @return the destination
+	 */
+	public static Point2D addInto(Point2D dst, Point2D a, Point2D b)
+	{
+		dst.xValue = ValueKernels.add(a.xValue, b.xValue);
+		dst.yValue = ValueKernels.add(a.yValue, b.yValue);
+		dst.isEmpty = false;
+		return dst;
+	}
+
+	/**
+	 * Sets the destination to the specified point multiplied by the specified
+	 * value and returns the destination. No instance is created and the
+	 * destination's observers are not notified.
+	 * 
+	 * @param dst          destination of the scaled point, may be the specified
+	 *                     point
+	 * @param a            point to be scaled
+	 * @param multipliedBy value to multiply the point by
+	 * @return the destination
+	 */
+	public static Point2D scaleInto(Point2D dst, Point2D a, double multipliedBy)
+	{
+		dst.xValue = ValueKernels.multiply(a.xValue, multipliedBy);
+		dst.yValue = ValueKernels.multiply(a.yValue, multipliedBy);
+		dst.isEmpty = false;
+		return dst;
+	}
+
+	/**
+	 * Sets the destination to the first point added to the second point multiplied
+	 * by the specified value, i.e. {@code a + b * multipliedBy}, and returns the
+	 * destination. No instance is created and the destination's observers are not
+	 * notified.
+	 * 
+	 * @param dst          destination of the result, may be one of the specified
+	 *                     points
+	 * @param a            point to be added to
+	 * @param b            point to be multiplied and added
+	 * @param multipliedBy value to multiply the second point by
+	 * @return the destination
+	 */
+	public static Point2D multiplyAddInto(Point2D dst, Point2D a, Point2D b, double multipliedBy)
+	{
+		dst.xValue = ValueKernels.multiplyAdd(b.xValue, multipliedBy, a.xValue);
+		dst.yValue = ValueKernels.multiplyAdd(b.yValue, multipliedBy, a.yValue);
+		dst.isEmpty = false;
+		return dst;
+	}
+
 	/**
 	 * Returns instance with specified values
 	 * 
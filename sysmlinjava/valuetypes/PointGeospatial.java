@@ -139,11 +139,28 @@ public class PointGeospatial extends SysMLValueType
 	 */
 	public PointGeospatial deltaOf(PointGeospatial otherPoint)
 	{
-		PointGeospatial result = new PointGeospatial();
-		result.latitude.value = abs(latitude.value - otherPoint.latitude.value);
-		result.longitude.value = abs(longitude.value - otherPoint.longitude.value);
-		result.altitude.value = abs(altitude.value - otherPoint.altitude.value);
-		return result;
+		return deltaOfInto(new PointGeospatial(), otherPoint);
+	}
+
+	/**
+	 * Sets the destination to the difference between this and another point and
+	 * returns the destination. No instance is created and the destination's
+	 * observers are not notified.
+	 * 
+	 * @param dst        destination of the differences, may be this or the other
+	 *                   point
+	 * @param otherPoint the other point to be differed with this point
+	 * @return the destination
+	 */
+	public PointGeospatial deltaOfInto(PointGeospatial dst, PointGeospatial otherPoint)
+	{
+		double latitudeDelta = abs(latitude.value - otherPoint.latitude.value);
+		double longitudeDelta = abs(longitude.value - otherPoint.longitude.value);
+		double altitudeDelta = abs(altitude.value - otherPoint.altitude.value);
+		dst.latitude.value = latitudeDelta;
+		dst.longitude.value = longitudeDelta;
+		dst.altitude.value = altitudeDelta;
+		return dst;
 	}
 
 	/**
@@ -226,10 +243,28 @@ public class PointGeospatial extends SysMLValueType
 	 */
 	public PointGeospatial movedTo(DirectionRadians direction, DistanceMeters distance)
 	{
-		PointGeospatial result = new PointGeospatial();
+		return movedToInto(new PointGeospatial(), direction.value, distance.value);
+	}
+
+	/**
+	 * Sets the latitude and longitude of the destination to those of the point to
+	 * which this point is moved to along specified direction at specified distance
+	 * and returns the destination. The altitude of the destination is unchanged. No
+	 * instance is created and the destination's observers are not notified.
+	 * 
+	 * @param dst              destination of the moved point, may be this point
+	 * @param directionRadians direction (heading, bearing, ...) in radians along
+	 *                         which to move this point.
+	 * @param distanceMeters   distance in meters to move this point
+	 * @return the destination
+	 * 
+	 * @see #movedTo(DirectionRadians, DistanceMeters)
+	 */
+	public PointGeospatial movedToInto(PointGeospatial dst, double directionRadians, double distanceMeters)
+	{
+		PointGeospatial result = dst;
 
-		double directionRadians = direction.value;
-		double distanceRadians = distance.value / metersPerRadian;
+		double distanceRadians = distanceMeters / metersPerRadian;
 		double lat1 = latitude.value;
 		double lon1 = longitude.value;
 
@@ -30,6 +30,15 @@ import sysmlinjava.units.SysMLinJavaUnits;
  * be changed by direct assignment, the {@code setValue()} operation must be
  * used if {@code ValueObserver}s are to be automatically notified of the
  * change.
+ * <p>
+ * The operations whose names end in "ed", e.g. {@code added()} and
+ * {@code multipliedBy()}, return a new instance for each result. For
+ * calculations performed at high rates, e.g. in constraint lambdas, the
+ * in-place operations, e.g. {@code add()} and {@code multiplyAdd()}, and the
+ * static destination-passing operations, e.g.
+ * {@code addInto(dst, a, b)} and {@code multiplyAddInto(dst, a, b, c)}, can be
+ * used instead to compute results without any allocation. These operations
+ * wrap the primitive kernels of the {@code ValueKernels}.
  * 
  * @author ModelerOne
  *
@@ -296,6 +305,30 @@ public class RReal extends SysMLValueType implements Serializable
 		value *= -1.0;
 	}
 
+	/**
+	 * Changes this value to its value added to the product of the specified
+	 * values, i.e. {@code this + a * b}
+	 * 
+	 * @param a first value of the product
+	 * @param b second value of the product
+	 */
+	public void multiplyAdd(RReal a, RReal b)
+	{
+		value = ValueKernels.multiplyAdd(a.value, b.value, value);
+	}
+
+	/**
+	 * Changes this value to its value added to the product of the specified
+	 * values, i.e. {@code this + a * b}
+	 * 
+	 * @param a first value of the product
+	 * @param b second double value of the product
+	 */
+	public void multiplyAdd(RReal a, double b)
+	{
+		value = ValueKernels.multiplyAdd(a.value, b, value);
+	}
+
 	/**
 	 * Sets this value to zero
 	 */
@@ -425,6 +458,169 @@ public class RReal extends SysMLValueType implements Serializable
 		return new RReal(value);
 	}
 
+	/**
+	 * Sets the destination to the sum of the specified values and returns the
+	 * destination. No instance is created and the destination's observers are not
+	 * notified.
+	 * 
+	 * @param <T> type of the destination, i.e. {@code RReal} or one of its
+	 *            extensions
+	 * @param dst destination of the sum, may be one of the specified values
+	 * @param a   first value
+	 * @param b   second value
+	 * @return the destination
+	 * 
+	 * @see ValueKernels
+	 */
+	public static <T extends RReal> T addInto(T dst, RReal a, RReal b)
+	{
+		dst.value = ValueKernels.add(a.value, b.value);
+		return dst;
+	}
+
+	/**
+	 * Sets the destination to the difference of the specified values and returns
+	 * the destination. No instance is created and the destination's observers are
+	 * not notified.
+	 * 
+	 * @param <T> type of the destination, i.e. {@code RReal} or one of its
+	 *            extensions
+	 * @param dst destination of the difference, may be one of the specified values
+	 * @param a   value to be subtracted from
+	 * @param b   value to subtract
+	 * @return the destination
+	 */
+	public static <T extends RReal> T subtractInto(T dst, RReal a, RReal b)
+	{
+		dst.value = ValueKernels.subtract(a.value, b.value);
+		return dst;
+	}
+
+	/**
+	 * Sets the destination to the product of the specified values and returns the
+	 * destination. No instance is created and the destination's observers are not
+	 * notified.
+	 * 
+	 * @param <T> type of the destination, i.e. {@code RReal} or one of its
+	 *            extensions
+	 * @param dst destination of the product, may be one of the specified values
+	 * @param a   first value
+	 * @param b   second value
+	 * @return the destination
+	 */
+	public static <T extends RReal> T multiplyInto(T dst, RReal a, RReal b)
+	{
+		dst.value = ValueKernels.multiply(a.value, b.value);
+		return dst;
+	}
+
+	/**
+	 * Sets the destination to the product of the specified value and double value
+	 * and returns the destination. No instance is created and the destination's
+	 * observers are not notified.
+	 * 
+	 * @param <T> type of the destination, i.e. {@code RReal} or one of its
+	 *            extensions
+	 * @param dst destination of the product, may be the specified value
+	 * @param a   value
+	 * @param b   double value to multiply the value by
+	 * @return the destination
+	 */
+	public static <T extends RReal> T multiplyInto(T dst, RReal a, double b)
+	{
+		dst.value = ValueKernels.multiply(a.value, b);
+		return dst;
+	}
+
+	/**
+	 * Sets the destination to the quotient of the specified values and returns the
+	 * destination. No instance is created and the destination's observers are not
+	 * notified.
+	 * 
+	 * @param <T> type of the destination, i.e. {@code RReal} or one of its
+	 *            extensions
+	 * @param dst destination of the quotient, may be one of the specified values
+	 * @param a   dividend
+	 * @param b   divisor
+	 * @return the destination
+	 */
+	public static <T extends RReal> T divideInto(T dst, RReal a, RReal b)
+	{
+		dst.value = ValueKernels.divide(a.value, b.value);
+		return dst;
+	}
+
+	/**
+	 * Sets the destination to the product of the first two specified values added
+	 * to the third, i.e. {@code a * b + c}, and returns the destination. No
+	 * instance is created and the destination's observers are not notified.
+	 * 
+	 * @param <T> type of the destination, i.e. {@code RReal} or one of its
+	 *            extensions
+	 * @param dst destination of the result, may be one of the specified values
+	 * @param a   first value of the product
+	 * @param b   second value of the product
+	 * @param c   value to be added to the product
+	 * @return the destination
+	 */
+	public static <T extends RReal> T multiplyAddInto(T dst, RReal a, RReal b, RReal c)
+	{
+		dst.value = ValueKernels.multiplyAdd(a.value, b.value, c.value);
+		return dst;
+	}
+
+	/**
+	 * Sets the destination to the absolute value of the specified value and
+	 * returns the destination. No instance is created and the destination's
+	 * observers are not notified.
+	 * 
+	 * @param <T> type of the destination, i.e. {@code RReal} or one of its
+	 *            extensions
+	 * @param dst destination of the absolute value, may be the specified value
+	 * @param a   value
+	 * @return the destination
+	 */
+	public static <T extends RReal> T absoluteInto(T dst, RReal a)
+	{
+		dst.value = ValueKernels.absolute(a.value);
+		return dst;
+	}
+
+	/**
+	 * Sets the destination to the negation of the specified value and returns the
+	 * destination. No instance is created and the destination's observers are not
+	 * notified.
+	 * 
+	 * @param <T> type of the destination, i.e. {@code RReal} or one of its
+	 *            extensions
+	 * @param dst destination of the negation, may be the specified value
+	 * @param a   value
+	 * @return the destination
+	 */
+	public static <T extends RReal> T negateInto(T dst, RReal a)
+	{
+		dst.value = -a.value;
+		return dst;
+	}
+
+	/**
+	 * Sets the destination to the length of the hypotenuse for a right triangle of
+	 * specified opposite and adjacent sides and returns the destination. No
+	 * instance is created and the destination's observers are not notified.
+	 * 
+	 * @param <T>      type of the destination, i.e. {@code RReal} or one of its
+	 *                 extensions
+	 * @param dst      destination of the length
+	 * @param opposite length of one of the right sides
+	 * @param adjacent length of the other of the right sides
+	 * @return the destination
+	 */
+	public static <T extends RReal> T hypotenuseInto(T dst, RReal opposite, RReal adjacent)
+	{
+		dst.value = ValueKernels.hypotenuse(opposite.value, adjacent.value);
+		return dst;
+	}
+
 	/**
 	 * Returns the numeric length of hypotenuse for right triangle of specified
 	 * opposite and adjacent sides
@@ -0,0 +1,247 @@
+package sysmlinjava.valuetypes;
+
+import static java.lang.Math.PI;
+import static java.lang.Math.abs;
+import static java.lang.Math.sqrt;
+
+/**
+ * Static primitive kernels for the arithmetic of the numeric value types.
+ * <h2>Allocation-free arithmetic</h2> The {@code ValueKernels} operate on
+ * primitive {@code double} and {@code long} values only and therefore never
+ * allocate. The numeric value types, e.g. {@code RReal}, {@code IInteger},
+ * {@code Point2D}, {@code Vector2D}, and {@code PointGeospatial}, wrap these
+ * kernels in destination-passing operations, e.g.
+ * {@code RReal.addInto(dst, a, b)}, which write their result into an existing
+ * value type instance rather than creating a new one. Constraint lambdas that
+ * are evaluated at high rates, e.g. the force and torque chains of a physics
+ * model, can thereby compute their results with no allocation at all, as
+ * follows:
+ *
+ * <pre>
+ * // torque = force * arm + offset, into the existing torque value
+ * RReal.multiplyAddInto(torque, force, arm, offset);
+ * // or, directly on the primitive values
+ * torque.value = ValueKernels.multiplyAdd(force.value, arm.value, offset.value);
+ * </pre>
+ *
+ * Note that the destination-passing operations, like the other in-place
+ * operations of the value types, e.g. {@code RReal.add()}, do not notify the
+ * value change observers of the destination. The {@code setValue()} operation
+ * of the destination should be used after the calculation if observers are to
+ * be notified.
+ *
+ * @author ModelerOne
+ *
+ */
+public final class ValueKernels
+{
+	/**
+	 * Constructor - private as the class has only static operations
+	 */
+	private ValueKernels()
+	{
+		super();
+	}
+
+	/**
+	 * Returns the sum of the specified values
+	 *
+	 * @param a first value
+	 * @param b second value
+	 * @return a + b
+	 */
+	public static double add(double a, double b)
+	{
+		return a + b;
+	}
+
+	/**
+	 * Returns the difference of the specified values
+	 *
+	 * @param a value to be subtracted from
+	 * @param b value to subtract
+	 * @return a - b
+	 */
+	public static double subtract(double a, double b)
+	{
+		return a - b;
+	}
+
+	/**
+	 * Returns the product of the specified values
+	 *
+	 * @param a first value
+	 * @param b second value
+	 * @return a * b
+	 */
+	public static double multiply(double a, double b)
+	{
+		return a * b;
+	}
+
+	/**
+	 * Returns the quotient of the specified values
+	 *
+	 * @param a dividend
+	 * @param b divisor
+	 * @return a / b
+	 */
+	public static double divide(double a, double b)
+	{
+		return a / b;
+	}
+
+	/**
+	 * Returns the product of the first two specified values added to the third.
+	 * Note that {@code Math.fma()} is not used as it is implemented with
+	 * {@code BigDecimal} arithmetic, i.e. allocation, on processors that do not
+	 * provide a fused multiply-add instruction.
+	 *
+	 * @param a first value of the product
+	 * @param b second value of the product
+	 * @param c value to be added to the product
+	 * @return a * b + c
+	 */
+	public static double multiplyAdd(double a, double b, double c)
+	{
+		return a * b + c;
+	}
+
+	/**
+	 * Returns the absolute value of the specified value
+	 *
+	 * @param a value
+	 * @return |a|
+	 */
+	public static double absolute(double a)
+	{
+		return abs(a);
+	}
+
+	/**
+	 * Returns the length of the hypotenuse of a right triangle with the specified
+	 * sides
+	 *
+	 * @param opposite length of one of the right sides
+	 * @param adjacent length of the other of the right sides
+	 * @return length of the hypotenuse
+	 */
+	public static double hypotenuse(double opposite, double adjacent)
+	{
+		return sqrt(opposite * opposite + adjacent * adjacent);
+	}
+
+	/**
+	 * Returns the sum of the specified values
+	 *
+	 * @param a first value
+	 * @param b second value
+	 * @return a + b
+	 */
+	public static long add(long a, long b)
+	{
+		return a + b;
+	}
+
+	/**
+	 * Returns the difference of the specified values
+	 *
+	 * @param a value to be subtracted from
+	 * @param b value to subtract
+	 * @return a - b
+	 */
+	public static long subtract(long a, long b)
+	{
+		return a - b;
+	}
+
+	/**
+	 * Returns the product of the specified values
+	 *
+	 * @param a first value
+	 * @param b second value
+	 * @return a * b
+	 */
+	public static long multiply(long a, long b)
+	{
+		return a * b;
+	}
+
+	/**
+	 * Returns the product of the first two specified values added to the third
+	 *
+	 * @param a first value of the product
+	 * @param b second value of the product
+	 * @param c value to be added to the product
+	 * @return a * b + c
+	 */
+	public static long multiplyAdd(long a, long b, long c)
+	{
+		return a * b + c;
+	}
+
+	/**
+	 * Returns the horizontal (x) component of a vector of the specified length and
+	 * compass direction, i.e. where 0 is north (+y) and the direction increases
+	 * clockwise
+	 *
+	 * @param length           length of the vector
+	 * @param directionRadians compass direction of the vector, radians
+	 * @return horizontal component of the vector, or 0 if the direction is 2*PI or
+	 *         more
+	 */
+	public static double horizontalOf(double length, double directionRadians)
+	{
+		double result = 0;
+		if (directionRadians < rad90)
+			result = Math.cos(rad90 - directionRadians) * length;
+		else if (directionRadians < rad180)
+			result = Math.sin(rad180 - directionRadians) * length;
+		else if (directionRadians < rad270)
+			result = -(Math.cos(rad270 - directionRadians) * length);
+		else if (directionRadians < rad360)
+			result = -(Math.sin(rad360 - directionRadians) * length);
+		return result;
+	}
+
+	/**
+	 * Returns the vertical (y) component of a vector of the specified length and
+	 * compass direction, i.e. where 0 is north (+y) and the direction increases
+	 * clockwise
+	 *
+	 * @param length           length of the vector
+	 * @param directionRadians compass direction of the vector, radians
+	 * @return vertical component of the vector, or 0 if the direction is 2*PI or
+	 *         more
+	 */
+	public static double verticalOf(double length, double directionRadians)
+	{
+		double result = 0;
+		if (directionRadians < rad90)
+			result = Math.sin(rad90 - directionRadians) * length;
+		else if (directionRadians < rad180)
+			result = -(Math.cos(rad180 - directionRadians) * length);
+		else if (directionRadians < rad270)
+			result = -(Math.sin(rad270 - directionRadians) * length);
+		else if (directionRadians < rad360)
+			result = Math.cos(rad360 - directionRadians) * length;
+		return result;
+	}
+
+	/**
+	 * Constant value for 90 degrees in radians
+	 */
+	private static final double rad90 = 0.5 * PI;
+	/**
+	 * Constant value for 180 degrees in radians
+	 */
+	private static final double rad180 = 1.0 * PI;
+	/**
+	 * Constant value for 270 degrees in radians
+	 */
+	private static final double rad270 = 1.5 * PI;
+	/**
+	 * Constant value for 360 degrees in radians
+	 */
+	private static final double rad360 = 2.0 * PI;
+}
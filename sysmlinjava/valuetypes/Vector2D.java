@@ -121,10 +121,24 @@ public class Vector2D extends RReal
 	 * @return vector value for the horizontal component of this vector
 	 */
 	public Vector2D horizontalComponent()
+	{
+		return horizontalComponentInto(new Vector2D(0, 0));
+	}
+
+	/**
+	 * Sets the destination to the horizontal component of this vector and returns
+	 * the destination. No instance is created and the destination's observers are
+	 * not notified.
+	 * 
+	 * @param dst destination of the horizontal component, may be this vector
+	 * @return the destination
+	 */
+	public Vector2D horizontalComponentInto(Vector2D dst)
 	{
 		double magnitude = value * sin(direction.value);
-		double direction = magnitude < 0 ? toRadians(270) : toRadians(90);
-		return new Vector2D(Math.abs(magnitude), direction);
+		dst.value = Math.abs(magnitude);
+		dst.direction.value = magnitude < 0 ? rad270 : rad90;
+		return dst;
 	}
 
 	/**
@@ -133,10 +147,24 @@ public class Vector2D extends RReal
 	 * @return vector value for the vertical component of this vector
 	 */
 	public Vector2D verticalComponent()
+	{
+		return verticalComponentInto(new Vector2D(0, 0));
+	}
+
+	/**
+	 * Sets the destination to the vertical component of this vector and returns
+	 * the destination. No instance is created and the destination's observers are
+	 * not notified.
+	 * 
+	 * @param dst destination of the vertical component, may be this vector
+	 * @return the destination
+	 */
+	public Vector2D verticalComponentInto(Vector2D dst)
 	{
 		double magnitude = value * cos(direction.value);
-		double direction = magnitude < 0 ? toRadians(180) : toRadians(0);
-		return new Vector2D(Math.abs(magnitude), direction);
+		dst.value = Math.abs(magnitude);
+		dst.direction.value = magnitude < 0 ? rad180 : 0;
+		return dst;
 	}
 
 	/**
@@ -147,13 +175,28 @@ public class Vector2D extends RReal
 	 */
 	public static Vector2D sum(List<Vector2D> vectors)
 	{
-		Vector2D result = new Vector2D(0, 0);
+		return sumInto(new Vector2D(0, 0), vectors);
+	}
+
+	/**
+	 * Sets the destination to the vector sum of the specified set of vectors and
+	 * returns the destination. No instance is created and the destination's
+	 * observers are not notified.
+	 * 
+	 * @param dst     destination of the vector sum, may be one of the specified
+	 *                vectors
+	 * @param vectors list of vector values to be summed
+	 * @return the destination
+	 */
+	public static Vector2D sumInto(Vector2D dst, List<Vector2D> vectors)
+	{
+		Vector2D result = dst;
 		double horizontalComponents = 0;
 		double verticalComponents = 0;
 		for (Vector2D force : vectors)
 		{
-			horizontalComponents += force.value * sin(force.direction.value);
-			verticalComponents += force.value * cos(force.direction.value);
+			horizontalComponents = ValueKernels.multiplyAdd(force.value, sin(force.direction.value), horizontalComponents);
+			verticalComponents = ValueKernels.multiplyAdd(force.value, cos(force.direction.value), verticalComponents);
 		}
 		result.value = hypot(horizontalComponents, verticalComponents);
 		double direction = atan(horizontalComponents / verticalComponents);
@@ -186,6 +229,19 @@ public class Vector2D extends RReal
 		units = SysMLinJavaUnits.Numeric;
 	}
 
+	/**
+	 * Constant value for 90 degrees in radians
+	 */
+	private static final double rad90 = toRadians(90);
+	/**
+	 * Constant value for 180 degrees in radians
+	 */
+	private static final double rad180 = toRadians(180);
+	/**
+	 * Constant value for 270 degrees in radians
+	 */
+	private static final double rad270 = toRadians(270);
+
 	@Override
 	public String toString()
 	{